@@ -0,0 +1,144 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.benchmark;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.operator.ArrayPositionLinks;
+import com.facebook.presto.operator.PagesHash;
+import com.facebook.presto.operator.PagesHashStrategy;
+import com.facebook.presto.operator.SimplePagesHashStrategy;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.google.common.collect.ImmutableList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.operator.SyntheticAddress.encodeSyntheticAddress;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+import static org.openjdk.jmh.annotations.Scope.Thread;
+
+/**
+ * Measures how long it takes to build the hash table of a join lookup source
+ * depending on the number of threads used to build it.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Thread)
+@OutputTimeUnit(MILLISECONDS)
+@BenchmarkMode(AverageTime)
+@Fork(3)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class BenchmarkPagesHashBuild
+{
+    private static final int POSITIONS_PER_BLOCK = 10_000;
+
+    @State(Thread)
+    public static class Context
+    {
+        @Param({"1", "2", "4", "8", "16"})
+        private int buildConcurrency;
+
+        @Param({"1000000", "10000000"})
+        private int positionCount;
+
+        // number of build rows per distinct key, the higher the longer position links chains
+        @Param({"1", "10"})
+        private int rowsPerKey;
+
+        private LongArrayList addresses;
+        private PagesHashStrategy pagesHashStrategy;
+        private ExecutorService executor;
+
+        @Setup
+        public void setUp()
+        {
+            executor = newFixedThreadPool(buildConcurrency, daemonThreadsNamed("join-hash-build-%s"));
+            ImmutableList.Builder<Block> blocks = ImmutableList.builder();
+            addresses = new LongArrayList(positionCount);
+            int distinctKeys = positionCount / rowsPerKey;
+            for (int block = 0; block * POSITIONS_PER_BLOCK < positionCount; block++) {
+                int blockPositions = Math.min(POSITIONS_PER_BLOCK, positionCount - block * POSITIONS_PER_BLOCK);
+                BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, blockPositions);
+                for (int position = 0; position < blockPositions; position++) {
+                    BIGINT.writeLong(blockBuilder, ThreadLocalRandom.current().nextInt(distinctKeys));
+                    addresses.add(encodeSyntheticAddress(block, position));
+                }
+                blocks.add(blockBuilder.build());
+            }
+
+            pagesHashStrategy = new SimplePagesHashStrategy(
+                    ImmutableList.of(BIGINT),
+                    ImmutableList.of(0),
+                    ImmutableList.<List<Block>>of(blocks.build()),
+                    ImmutableList.of(0),
+                    OptionalInt.empty(),
+                    Optional.empty(),
+                    MetadataManager.createTestMetadataManager().getFunctionManager(),
+                    new FeaturesConfig().isGroupByUsesEqualTo());
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public PagesHash benchmarkBuild(Context context)
+    {
+        return new PagesHash(
+                context.addresses,
+                context.pagesHashStrategy,
+                ArrayPositionLinks.builder(context.addresses.size()),
+                context.buildConcurrency,
+                context.executor);
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkPagesHashBuild.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -42,6 +42,8 @@ public final class PrestoHeaders
 
     public static final String PRESTO_CURRENT_STATE = "X-Presto-Current-State";
     public static final String PRESTO_MAX_WAIT = "X-Presto-Max-Wait";
+    public static final String PRESTO_FINISHED_PIPELINES = "X-Presto-Finished-Pipelines";
+    public static final String PRESTO_ACKNOWLEDGED_VERSION = "X-Presto-Acknowledged-Version";
     public static final String PRESTO_MAX_SIZE = "X-Presto-Max-Size";
     public static final String PRESTO_TASK_INSTANCE_ID = "X-Presto-Task-Instance-Id";
     public static final String PRESTO_PAGE_TOKEN = "X-Presto-Page-Sequence-Id";
@@ -169,6 +169,8 @@ public class HiveClientConfig
     private DataSize pageFileStripeMaxSize = new DataSize(24, MEGABYTE);
     private boolean parquetBatchReadOptimizationEnabled;
     private boolean parquetEnableBatchReaderVerification;
+    private boolean parquetSelectiveReaderEnabled;
+    private boolean parquetPageIndexFilteringEnabled;
 
     public int getMaxInitialSplits()
     {
@@ -1394,4 +1396,30 @@ public class HiveClientConfig
     {
         return this.parquetEnableBatchReaderVerification;
     }
+
+    @Config("hive.parquet-selective-reader-enabled")
+    @ConfigDescription("Read Parquet files with the selective reader when filter pushdown is enabled")
+    public HiveClientConfig setParquetSelectiveReaderEnabled(boolean parquetSelectiveReaderEnabled)
+    {
+        this.parquetSelectiveReaderEnabled = parquetSelectiveReaderEnabled;
+        return this;
+    }
+
+    public boolean isParquetSelectiveReaderEnabled()
+    {
+        return this.parquetSelectiveReaderEnabled;
+    }
+
+    @Config("hive.parquet-page-index-filtering-enabled")
+    @ConfigDescription("Skip the Parquet pages that cannot match the predicate according to the page indexes of the file")
+    public HiveClientConfig setParquetPageIndexFilteringEnabled(boolean parquetPageIndexFilteringEnabled)
+    {
+        this.parquetPageIndexFilteringEnabled = parquetPageIndexFilteringEnabled;
+        return this;
+    }
+
+    public boolean isParquetPageIndexFilteringEnabled()
+    {
+        return this.parquetPageIndexFilteringEnabled;
+    }
 }
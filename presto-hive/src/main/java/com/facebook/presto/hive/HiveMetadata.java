@@ -103,6 +103,8 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import io.airlift.slice.Slice;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
@@ -248,6 +250,7 @@ import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Predicates.not;
+import static com.google.common.base.Strings.nullToEmpty;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
@@ -255,6 +258,7 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Streams.stream;
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.emptyList;
 import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
@@ -263,6 +267,7 @@ import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
+import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.DDL_TIME;
 
 public class HiveMetadata
         implements TransactionalMetadata
@@ -276,6 +281,9 @@ public class HiveMetadata
 
     private static final String PRESTO_TEMPORARY_TABLE_NAME_PREFIX = "__presto_temporary_table_";
 
+    // basic statistics the metastore updates when data is written, in addition to the last DDL time
+    private static final List<String> DATA_VERSION_STATISTICS = ImmutableList.of("numFiles", "numRows", "totalSize");
+
     // Comma is not a reserved keyword with or without quote
     // See https://cwiki.apache.org/confluence/display/Hive/LanguageManual+DDL#LanguageManualDDL-Keywords,Non-reservedKeywordsandReservedKeywords
     private static final char COMMA = ',';
@@ -705,6 +713,77 @@ public class HiveMetadata
         return filterStatsCalculatorService.filterStats(tableStatistics, combinedPredicate, session, ImmutableBiMap.copyOf(allColumns).inverse(), allColumnTypes);
     }
 
+    /**
+     * The data version is derived from the last DDL time and the basic statistics the metastore keeps for the table and
+     * for each of the partitions that are read. The metastore updates both when data is written through it, but not when
+     * files are added to a table or partition location directly.
+     */
+    @Override
+    public Optional<String> getTableDataVersion(ConnectorSession session, ConnectorTableHandle tableHandle, Optional<ConnectorTableLayoutHandle> tableLayoutHandle)
+    {
+        if (!tableLayoutHandle.isPresent()) {
+            return Optional.empty();
+        }
+        Optional<List<HivePartition>> partitions = ((HiveTableLayoutHandle) tableLayoutHandle.get()).getPartitions();
+        SchemaTableName tableName = ((HiveTableHandle) tableHandle).getSchemaTableName();
+        Optional<Table> table = metastore.getTable(tableName.getSchemaName(), tableName.getTableName());
+        if (!partitions.isPresent() || !table.isPresent() || table.get().getTableType().equals(TEMPORARY_TABLE)) {
+            return Optional.empty();
+        }
+
+        ImmutableMap.Builder<String, Map<String, String>> partitionParameters = ImmutableMap.builder();
+        if (!table.get().getPartitionColumns().isEmpty()) {
+            List<String> partitionNames = partitions.get().stream()
+                    .map(HivePartition::getPartitionId)
+                    .collect(toImmutableList());
+            Map<String, Optional<Partition>> metastorePartitions = metastore.getPartitionsByNames(tableName.getSchemaName(), tableName.getTableName(), partitionNames);
+            for (String partitionName : partitionNames) {
+                Optional<Partition> partition = metastorePartitions.getOrDefault(partitionName, Optional.empty());
+                if (!partition.isPresent()) {
+                    return Optional.empty();
+                }
+                partitionParameters.put(partitionName, partition.get().getParameters());
+            }
+        }
+        return getDataVersion(tableName, table.get().getParameters(), partitionParameters.build());
+    }
+
+    @VisibleForTesting
+    static Optional<String> getDataVersion(SchemaTableName tableName, Map<String, String> tableParameters, Map<String, Map<String, String>> partitionParameters)
+    {
+        Hasher hasher = Hashing.sha256().newHasher();
+        if (!putDataVersion(hasher, tableName.toString(), tableParameters)) {
+            return Optional.empty();
+        }
+        for (Map.Entry<String, Map<String, String>> partition : partitionParameters.entrySet()) {
+            if (!putDataVersion(hasher, partition.getKey(), partition.getValue())) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(hasher.hash().toString());
+    }
+
+    private static boolean putDataVersion(Hasher hasher, String name, Map<String, String> parameters)
+    {
+        String lastDdlTime = parameters.get(DDL_TIME);
+        if (lastDdlTime == null) {
+            // the metastore does not track when the data changes
+            return false;
+        }
+        putString(hasher, name);
+        putString(hasher, lastDdlTime);
+        for (String statisticName : DATA_VERSION_STATISTICS) {
+            putString(hasher, nullToEmpty(parameters.get(statisticName)));
+        }
+        return true;
+    }
+
+    private static void putString(Hasher hasher, String value)
+    {
+        hasher.putInt(value.length());
+        hasher.putString(value, UTF_8);
+    }
+
     private List<SchemaTableName> listTables(ConnectorSession session, SchemaTablePrefix prefix)
     {
         if (prefix.getSchemaName() == null || prefix.getTableName() == null) {
@@ -953,6 +1032,11 @@ public class HiveMetadata
         // ORC format specific properties
         List<String> columns = getOrcBloomFilterColumns(tableMetadata.getProperties());
         if (columns != null && !columns.isEmpty()) {
+            // DWRF files do not have bloom filter streams
+            HiveStorageFormat hiveStorageFormat = getHiveStorageFormat(tableMetadata.getProperties());
+            if (hiveStorageFormat == DWRF) {
+                throw new PrestoException(INVALID_TABLE_PROPERTY, format("Cannot specify %s table property for storage format: %s", ORC_BLOOM_FILTER_COLUMNS, hiveStorageFormat));
+            }
             tableProperties.put(ORC_BLOOM_FILTER_COLUMNS_KEY, Joiner.on(COMMA).join(columns));
             tableProperties.put(ORC_BLOOM_FILTER_FPP_KEY, String.valueOf(getOrcBloomFilterFpp(tableMetadata.getProperties())));
         }
@@ -103,6 +103,8 @@ public final class HiveSessionProperties
     public static final String USE_LIST_DIRECTORY_CACHE = "use_list_directory_cache";
     private static final String PARQUET_BATCH_READ_OPTIMIZATION_ENABLED = "parquet_batch_read_optimization_enabled";
     private static final String PARQUET_BATCH_READER_VERIFICATION_ENABLED = "parquet_batch_reader_verification_enabled";
+    private static final String PARQUET_SELECTIVE_READER_ENABLED = "parquet_selective_reader_enabled";
+    private static final String PARQUET_PAGE_INDEX_FILTERING_ENABLED = "parquet_page_index_filtering_enabled";
 
     private final List<PropertyMetadata<?>> sessionProperties;
 
@@ -468,6 +470,16 @@ public final class HiveSessionProperties
                         PARQUET_BATCH_READER_VERIFICATION_ENABLED,
                         "Is Parquet batch reader verification enabled? This is for testing purposes only, not to be used in production",
                         hiveClientConfig.isParquetBatchReaderVerificationEnabled(),
+                        false),
+                booleanProperty(
+                        PARQUET_SELECTIVE_READER_ENABLED,
+                        "Is the selective Parquet reader used when filter pushdown is enabled",
+                        hiveClientConfig.isParquetSelectiveReaderEnabled(),
+                        false),
+                booleanProperty(
+                        PARQUET_PAGE_INDEX_FILTERING_ENABLED,
+                        "Are the Parquet pages that cannot match the predicate skipped using the page indexes",
+                        hiveClientConfig.isParquetPageIndexFilteringEnabled(),
                         false));
     }
 
@@ -782,6 +794,16 @@ public final class HiveSessionProperties
         return session.getProperty(PARQUET_BATCH_READER_VERIFICATION_ENABLED, Boolean.class);
     }
 
+    public static boolean isParquetSelectiveReaderEnabled(ConnectorSession session)
+    {
+        return session.getProperty(PARQUET_SELECTIVE_READER_ENABLED, Boolean.class);
+    }
+
+    public static boolean isParquetPageIndexFilteringEnabled(ConnectorSession session)
+    {
+        return session.getProperty(PARQUET_PAGE_INDEX_FILTERING_ENABLED, Boolean.class);
+    }
+
     public static PropertyMetadata<DataSize> dataSizeSessionProperty(String name, String description, DataSize defaultValue, boolean hidden)
     {
         return new PropertyMetadata<>(
@@ -21,6 +21,7 @@ import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.schedule.NodeSelectionStrategy;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
@@ -29,11 +30,13 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.TreeMap;
 
 import static com.facebook.presto.spi.StandardErrorCode.NO_NODES_AVAILABLE;
 import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.SOFT_AFFINITY;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.util.Objects.requireNonNull;
 
 public class HiveSplit
@@ -43,6 +46,7 @@ public class HiveSplit
     private final long start;
     private final long length;
     private final long fileSize;
+    private final long fileModifiedTime;
     private final Storage storage;
     private final List<HivePartitionKey> partitionKeys;
     private final List<HostAddress> addresses;
@@ -68,6 +72,7 @@ public class HiveSplit
             @JsonProperty("start") long start,
             @JsonProperty("length") long length,
             @JsonProperty("fileSize") long fileSize,
+            @JsonProperty("fileModifiedTime") long fileModifiedTime,
             @JsonProperty("storage") Storage storage,
             @JsonProperty("partitionKeys") List<HivePartitionKey> partitionKeys,
             @JsonProperty("addresses") List<HostAddress> addresses,
@@ -106,6 +111,7 @@ public class HiveSplit
         this.start = start;
         this.length = length;
         this.fileSize = fileSize;
+        this.fileModifiedTime = fileModifiedTime;
         this.storage = storage;
         this.partitionKeys = ImmutableList.copyOf(partitionKeys);
         this.addresses = ImmutableList.copyOf(addresses);
@@ -162,6 +168,12 @@ public class HiveSplit
         return fileSize;
     }
 
+    @JsonProperty
+    public long getFileModifiedTime()
+    {
+        return fileModifiedTime;
+    }
+
     @JsonProperty
     public Storage getStorage()
     {
@@ -262,6 +274,7 @@ public class HiveSplit
                 .put("start", start)
                 .put("length", length)
                 .put("fileSize", fileSize)
+                .put("fileModifiedTime", fileModifiedTime)
                 .put("hosts", addresses)
                 .put("database", database)
                 .put("table", table)
@@ -272,6 +285,33 @@ public class HiveSplit
                 .build();
     }
 
+    @Override
+    public Optional<String> getSplitIdentifier()
+    {
+        // The data read by the split also depends on how the file is decoded and which values the partition
+        // columns take, so splits whose schema is adapted at read time or whose extra file info is opaque are not identified.
+        if (fileModifiedTime <= 0 || !partitionSchemaDifference.isEmpty() || bucketConversion.isPresent() || extraFileInfo.isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(Joiner.on(':').useForNull("null").join(
+                path,
+                start,
+                length,
+                fileSize,
+                // a file that is rewritten in place gets a new modification time
+                fileModifiedTime,
+                storage.getStorageFormat().getSerDeNullable(),
+                storage.getStorageFormat().getInputFormatNullable(),
+                new TreeMap<>(storage.getSerdeParameters()),
+                new TreeMap<>(storage.getParameters()),
+                partitionKeys.stream()
+                        .map(partitionKey -> partitionKey.getName() + "=" + partitionKey.getValue())
+                        .collect(toImmutableList()),
+                partitionDataColumnCount,
+                readBucketNumber,
+                tableBucketNumber));
+    }
+
     @Override
     public String toString()
     {
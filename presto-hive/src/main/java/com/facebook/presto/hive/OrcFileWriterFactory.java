@@ -30,6 +30,7 @@ import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.PrestoException;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.ql.io.orc.OrcFile.OrcTableProperties;
@@ -199,7 +200,7 @@ public class OrcFileWriterFactory
                     fileColumnNames,
                     fileColumnTypes,
                     compression,
-                    orcWriterOptions
+                    getBloomFilterOptions(schema, orcEncoding, orcWriterOptions)
                             .withStripeMinSize(getOrcOptimizedWriterMinStripeSize(session))
                             .withStripeMaxSize(getOrcOptimizedWriterMaxStripeSize(session))
                             .withStripeMaxRowCount(getOrcOptimizedWriterMaxStripeRows(session))
@@ -226,6 +227,28 @@ public class OrcFileWriterFactory
         return dataSinkFactory.createDataSink(session, fileSystem, path);
     }
 
+    private static OrcWriterOptions getBloomFilterOptions(Properties schema, OrcEncoding orcEncoding, OrcWriterOptions orcWriterOptions)
+    {
+        // DWRF files do not have bloom filter streams; Presto does not create DWRF tables with bloom filter
+        // columns, but tables created by other engines can still have them
+        String bloomFilterColumns = schema.getProperty(OrcTableProperties.BLOOM_FILTER_COLUMNS.getPropName());
+        if (orcEncoding != ORC || bloomFilterColumns == null) {
+            return orcWriterOptions;
+        }
+
+        OrcWriterOptions options = orcWriterOptions.withBloomFilterColumns(ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(bloomFilterColumns)));
+        String bloomFilterFpp = schema.getProperty(OrcTableProperties.BLOOM_FILTER_FPP.getPropName());
+        if (bloomFilterFpp != null) {
+            try {
+                options = options.withBloomFilterFpp(Double.parseDouble(bloomFilterFpp));
+            }
+            catch (IllegalArgumentException e) {
+                throw new PrestoException(HIVE_UNSUPPORTED_FORMAT, "Invalid ORC bloom filter false positive probability " + bloomFilterFpp);
+            }
+        }
+        return options;
+    }
+
     private static CompressionKind getCompression(Properties schema, JobConf configuration, OrcEncoding orcEncoding)
     {
         String compressionName = schema.getProperty(OrcTableProperties.COMPRESSION.getPropName());
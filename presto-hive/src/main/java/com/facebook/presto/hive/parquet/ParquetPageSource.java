@@ -160,6 +160,58 @@ public class ParquetPageSource
         }
     }
 
+    /**
+     * Advances to the next batch of rows, whose columns are then read with {@link #readBlock(int, int[], int)}.
+     * Returns the number of rows of the batch, or -1 when there are no more rows.
+     */
+    int nextBatch()
+    {
+        try {
+            batchId++;
+            int batchSize = parquetReader.nextBatch();
+
+            if (closed || batchSize <= 0) {
+                close();
+                return -1;
+            }
+
+            completedPositions += batchSize;
+            return batchSize;
+        }
+        catch (PrestoException e) {
+            closeWithSuppression(e);
+            throw e;
+        }
+        catch (RuntimeException e) {
+            closeWithSuppression(e);
+            throw new PrestoException(HIVE_CURSOR_ERROR, e);
+        }
+    }
+
+    /**
+     * Reads the values of the given positions of the current batch of a column. Only the values of these positions
+     * are decoded. A column is read at most once per batch.
+     *
+     * @param positions positions in the batch, in increasing order
+     */
+    Block readBlock(int channel, int[] positions, int positionCount)
+    {
+        Optional<Field> field = fields.get(channel);
+        if (!field.isPresent()) {
+            return RunLengthEncodedBlock.create(types.get(channel), null, positionCount);
+        }
+
+        try {
+            return parquetReader.readBlock(field.get(), positions, positionCount);
+        }
+        catch (ParquetCorruptionException e) {
+            throw new PrestoException(HIVE_BAD_DATA, e);
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_CURSOR_ERROR, e);
+        }
+    }
+
     private void closeWithSuppression(Throwable throwable)
     {
         requireNonNull(throwable, "throwable is null");
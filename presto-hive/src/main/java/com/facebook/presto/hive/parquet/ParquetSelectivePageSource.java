@@ -0,0 +1,343 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.LazyBlock;
+import com.facebook.presto.common.block.LazyBlockLoader;
+import com.facebook.presto.common.block.RunLengthEncodedBlock;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.orc.FilterFunction;
+import com.facebook.presto.orc.TupleDomainFilter;
+import com.facebook.presto.spi.ConnectorPageSource;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.hive.FilteringPageSource.filterBlock;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Applies the pushed down filters to a Parquet file while reading it. Every batch of rows starts with all its
+ * positions selected. The columns with a {@link TupleDomainFilter} are read first, one at a time, and only the
+ * values of the positions the previous filters kept are decoded and tested; the Parquet column readers skip over
+ * the other values. The inputs of the filter function are read next, for the positions that passed the domain
+ * filters. The remaining columns are read last, for the surviving positions only, and only when the consumer
+ * loads them. A batch without surviving positions is never decoded for these columns.
+ */
+public class ParquetSelectivePageSource
+        implements ConnectorPageSource
+{
+    private final ParquetPageSource delegate;
+    private final Type[] types;
+    private final int[] delegateChannels;
+    private final Block[] constantBlocks;
+    private final TupleDomainFilter[] domainFilters;
+    private final Optional<FilterFunction> filterFunction;
+    private final int[] outputChannels;
+    private final boolean adaptiveFilterReordering;
+
+    // channels with a domain filter in the order the filters are applied
+    private final int[] filterOrder;
+    private final long[] filterInputPositions;
+    private final long[] filterOutputPositions;
+
+    // blocks of the current batch read so far, and the positions of the batch they hold; key is channel
+    private final Block[] blocks;
+    private final int[][] blockPositions;
+
+    private int batchId;
+    private int[] positions = new int[0];
+    private int[] indexes = new int[0];
+
+    /**
+     * @param delegate reads the columns without a constant value, in channel order
+     * @param types types of all the columns
+     * @param constantValues single position blocks of the columns with a constant value, such as partition keys; key is channel
+     * @param domainFilters key is channel
+     * @param filterFunction refers to columns by channel
+     * @param outputChannels channels of the columns to return
+     */
+    public ParquetSelectivePageSource(
+            ParquetPageSource delegate,
+            List<Type> types,
+            Map<Integer, Block> constantValues,
+            Map<Integer, TupleDomainFilter> domainFilters,
+            Optional<FilterFunction> filterFunction,
+            List<Integer> outputChannels,
+            boolean adaptiveFilterReordering)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.types = requireNonNull(types, "types is null").toArray(new Type[0]);
+        requireNonNull(constantValues, "constantValues is null");
+        requireNonNull(domainFilters, "domainFilters is null");
+        this.filterFunction = requireNonNull(filterFunction, "filterFunction is null");
+        this.outputChannels = requireNonNull(outputChannels, "outputChannels is null").stream().mapToInt(Integer::intValue).toArray();
+        this.adaptiveFilterReordering = adaptiveFilterReordering;
+
+        this.delegateChannels = new int[this.types.length];
+        this.constantBlocks = new Block[this.types.length];
+        int delegateChannel = 0;
+        for (int channel = 0; channel < this.types.length; channel++) {
+            Block constantValue = constantValues.get(channel);
+            if (constantValue != null) {
+                checkArgument(constantValue.getPositionCount() == 1, "constant value of channel %s must have a single position", channel);
+                constantBlocks[channel] = constantValue;
+                delegateChannels[channel] = -1;
+            }
+            else {
+                delegateChannels[channel] = delegateChannel;
+                delegateChannel++;
+            }
+        }
+
+        this.domainFilters = new TupleDomainFilter[this.types.length];
+        this.filterOrder = new int[domainFilters.size()];
+        int filterIndex = 0;
+        for (Map.Entry<Integer, TupleDomainFilter> entry : domainFilters.entrySet()) {
+            int channel = entry.getKey();
+            checkArgument(channel >= 0 && channel < this.types.length, "invalid filter channel %s", channel);
+            this.domainFilters[channel] = entry.getValue();
+            filterOrder[filterIndex] = channel;
+            filterIndex++;
+        }
+        this.filterInputPositions = new long[this.types.length];
+        this.filterOutputPositions = new long[this.types.length];
+
+        this.blocks = new Block[this.types.length];
+        this.blockPositions = new int[this.types.length][];
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        int batchSize = delegate.nextBatch();
+        if (batchSize < 0) {
+            return null;
+        }
+
+        batchId++;
+        Arrays.fill(blocks, null);
+        Arrays.fill(blockPositions, null);
+        if (positions.length < batchSize) {
+            positions = new int[batchSize];
+            indexes = new int[batchSize];
+        }
+        for (int i = 0; i < batchSize; i++) {
+            positions[i] = i;
+        }
+        int positionCount = batchSize;
+
+        for (int channel : filterOrder) {
+            Block block = getBlock(channel, positionCount);
+            filterInputPositions[channel] += positionCount;
+            for (int i = 0; i < positionCount; i++) {
+                indexes[i] = i;
+            }
+            positionCount = selectPositions(filterBlock(block, types[channel], domainFilters[channel], indexes, positionCount));
+            filterOutputPositions[channel] += positionCount;
+            if (positionCount == 0) {
+                break;
+            }
+        }
+
+        if (adaptiveFilterReordering) {
+            reorderFilters();
+        }
+
+        if (positionCount > 0 && filterFunction.isPresent()) {
+            positionCount = applyFilterFunction(filterFunction.get(), positionCount);
+        }
+
+        if (positionCount == 0) {
+            return new Page(0);
+        }
+
+        Block[] outputBlocks = new Block[outputChannels.length];
+        LazyBlock[] lazyBlocks = new LazyBlock[types.length];
+        for (int i = 0; i < outputChannels.length; i++) {
+            int channel = outputChannels[i];
+            if (blocks[channel] != null || constantBlocks[channel] != null) {
+                outputBlocks[i] = getBlock(channel, positionCount);
+            }
+            else {
+                if (lazyBlocks[channel] == null) {
+                    lazyBlocks[channel] = new LazyBlock(positionCount, new ParquetBlockLoader(channel, Arrays.copyOf(positions, positionCount)));
+                }
+                outputBlocks[i] = lazyBlocks[channel];
+            }
+        }
+        return new Page(positionCount, outputBlocks);
+    }
+
+    private int applyFilterFunction(FilterFunction filterFunction, int positionCount)
+    {
+        int[] inputChannels = filterFunction.getInputChannels();
+        Block[] inputBlocks = new Block[inputChannels.length];
+        for (int i = 0; i < inputChannels.length; i++) {
+            inputBlocks[i] = getBlock(inputChannels[i], positionCount);
+        }
+
+        for (int i = 0; i < positionCount; i++) {
+            indexes[i] = i;
+        }
+        RuntimeException[] errors = new RuntimeException[positionCount];
+        int outputPositionCount = filterFunction.filter(new Page(positionCount, inputBlocks), indexes, positionCount, errors);
+        for (int i = 0; i < outputPositionCount; i++) {
+            if (errors[i] != null) {
+                throw errors[i];
+            }
+        }
+        return selectPositions(outputPositionCount);
+    }
+
+    /**
+     * Keeps the positions of the batch at the first {@code indexCount} indexes, which are in increasing order.
+     */
+    private int selectPositions(int indexCount)
+    {
+        for (int i = 0; i < indexCount; i++) {
+            positions[i] = positions[indexes[i]];
+        }
+        return indexCount;
+    }
+
+    /**
+     * Returns the values of the selected positions of a column, reading them if the column has not been read for the
+     * current batch yet. A column that has been read holds a superset of the selected positions.
+     */
+    private Block getBlock(int channel, int positionCount)
+    {
+        if (constantBlocks[channel] != null) {
+            return new RunLengthEncodedBlock(constantBlocks[channel], positionCount);
+        }
+
+        Block block = blocks[channel];
+        if (block == null) {
+            block = delegate.readBlock(delegateChannels[channel], positions, positionCount);
+            blocks[channel] = block;
+            blockPositions[channel] = Arrays.copyOf(positions, positionCount);
+            return block;
+        }
+
+        int[] readPositions = blockPositions[channel];
+        if (readPositions.length == positionCount) {
+            return block;
+        }
+        int[] readIndexes = new int[positionCount];
+        int readIndex = 0;
+        for (int i = 0; i < positionCount; i++) {
+            while (readPositions[readIndex] != positions[i]) {
+                readIndex++;
+            }
+            readIndexes[i] = readIndex;
+        }
+        return block.getPositions(readIndexes, 0, positionCount);
+    }
+
+    /**
+     * Moves the filters that drop the most positions to the front, so that the other filter
+     * columns are decoded and tested for fewer positions.
+     */
+    private void reorderFilters()
+    {
+        for (int i = 1; i < filterOrder.length; i++) {
+            int channel = filterOrder[i];
+            int j = i - 1;
+            while (j >= 0 && passRate(filterOrder[j]) > passRate(channel)) {
+                filterOrder[j + 1] = filterOrder[j];
+                j--;
+            }
+            filterOrder[j + 1] = channel;
+        }
+    }
+
+    private double passRate(int channel)
+    {
+        if (filterInputPositions[channel] == 0) {
+            return 1.0;
+        }
+        return (double) filterOutputPositions[channel] / filterInputPositions[channel];
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return delegate.getCompletedBytes();
+    }
+
+    @Override
+    public long getCompletedPositions()
+    {
+        return delegate.getCompletedPositions();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return delegate.getReadTimeNanos();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return delegate.isFinished();
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return delegate.getSystemMemoryUsage();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        delegate.close();
+    }
+
+    private final class ParquetBlockLoader
+            implements LazyBlockLoader<LazyBlock>
+    {
+        private final int expectedBatchId = batchId;
+        private final int channel;
+        private final int[] positions;
+        private boolean loaded;
+
+        public ParquetBlockLoader(int channel, int[] positions)
+        {
+            this.channel = channel;
+            this.positions = requireNonNull(positions, "positions is null");
+        }
+
+        @Override
+        public final void load(LazyBlock lazyBlock)
+        {
+            if (loaded) {
+                return;
+            }
+
+            checkState(batchId == expectedBatchId);
+            lazyBlock.setBlock(delegate.readBlock(delegateChannels[channel], positions, positions.length));
+            loaded = true;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.common.Subfield;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.TypeManager;
+import com.facebook.presto.hive.BucketAdaptation;
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.HdfsEnvironment;
+import com.facebook.presto.hive.HiveCoercer;
+import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.hive.HiveFileContext;
+import com.facebook.presto.hive.HiveSelectivePageSourceFactory;
+import com.facebook.presto.hive.metastore.Storage;
+import com.facebook.presto.hive.orc.TupleDomainFilterCache;
+import com.facebook.presto.orc.FilterFunction;
+import com.facebook.presto.orc.TupleDomainFilter;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.relation.InputReferenceExpression;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.RowExpressionService;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.joda.time.DateTimeZone;
+
+import javax.inject.Inject;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static com.facebook.presto.common.predicate.Utils.nativeValueToBlock;
+import static com.facebook.presto.expressions.LogicalRowExpressions.TRUE_CONSTANT;
+import static com.facebook.presto.expressions.RowExpressionNodeInliner.replaceExpression;
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.hive.HiveSessionProperties.getParquetMaxReadBlockSize;
+import static com.facebook.presto.hive.HiveSessionProperties.isAdaptiveFilterReorderingEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isFailOnCorruptedParquetStatistics;
+import static com.facebook.presto.hive.HiveSessionProperties.isParquetBatchReaderVerificationEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isParquetBatchReadsEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isParquetPageIndexFilteringEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isParquetSelectiveReaderEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isUseParquetColumnNames;
+import static com.facebook.presto.hive.HiveUtil.typedPartitionKey;
+import static com.facebook.presto.hive.parquet.ParquetPageSourceFactory.PARQUET_SERDE_CLASS_NAMES;
+import static com.facebook.presto.hive.parquet.ParquetPageSourceFactory.createParquetPageSource;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.util.Objects.requireNonNull;
+import static java.util.function.Function.identity;
+
+/**
+ * Creates page sources that apply the pushed down filters to Parquet files while reading them.
+ * Splits with coercions, bucket adaptation or filters on subfields are left to the Parquet page
+ * source with a filter on top.
+ */
+public class ParquetSelectivePageSourceFactory
+        implements HiveSelectivePageSourceFactory
+{
+    private final TypeManager typeManager;
+    private final RowExpressionService rowExpressionService;
+    private final HdfsEnvironment hdfsEnvironment;
+    private final FileFormatDataSourceStats stats;
+    private final TupleDomainFilterCache tupleDomainFilterCache;
+
+    @Inject
+    public ParquetSelectivePageSourceFactory(
+            TypeManager typeManager,
+            RowExpressionService rowExpressionService,
+            HdfsEnvironment hdfsEnvironment,
+            FileFormatDataSourceStats stats,
+            TupleDomainFilterCache tupleDomainFilterCache)
+    {
+        this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.rowExpressionService = requireNonNull(rowExpressionService, "rowExpressionService is null");
+        this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.stats = requireNonNull(stats, "stats is null");
+        this.tupleDomainFilterCache = requireNonNull(tupleDomainFilterCache, "tupleDomainFilterCache is null");
+    }
+
+    @Override
+    public Optional<? extends ConnectorPageSource> createPageSource(
+            Configuration configuration,
+            ConnectorSession session,
+            Path path,
+            long start,
+            long length,
+            long fileSize,
+            Storage storage,
+            List<HiveColumnHandle> columns,
+            Map<Integer, String> prefilledValues,
+            Map<Integer, HiveCoercer> coercers,
+            Optional<BucketAdaptation> bucketAdaptation,
+            List<Integer> outputColumns,
+            TupleDomain<Subfield> domainPredicate,
+            RowExpression remainingPredicate,
+            DateTimeZone hiveStorageTimeZone,
+            HiveFileContext hiveFileContext)
+    {
+        if (!isParquetSelectiveReaderEnabled(session) || !PARQUET_SERDE_CLASS_NAMES.contains(storage.getStorageFormat().getSerDe())) {
+            return Optional.empty();
+        }
+
+        checkArgument(!domainPredicate.isNone(), "Unexpected NONE domain");
+        if (!coercers.isEmpty() || bucketAdaptation.isPresent() || domainPredicate.getDomains().get().keySet().stream().anyMatch(subfield -> !subfield.getPath().isEmpty())) {
+            return Optional.empty();
+        }
+
+        Map<String, Integer> channels = IntStream.range(0, columns.size())
+                .boxed()
+                .collect(toImmutableMap(channel -> columns.get(channel).getName(), identity()));
+        Map<Integer, Integer> hiveColumnIndexToChannel = IntStream.range(0, columns.size())
+                .boxed()
+                .collect(toImmutableMap(channel -> columns.get(channel).getHiveColumnIndex(), identity()));
+        List<Type> types = columns.stream()
+                .map(column -> typeManager.getType(column.getTypeSignature()))
+                .collect(toImmutableList());
+
+        ImmutableList.Builder<HiveColumnHandle> regularColumns = ImmutableList.builder();
+        ImmutableMap.Builder<Integer, Block> constantValues = ImmutableMap.builder();
+        for (int channel = 0; channel < columns.size(); channel++) {
+            HiveColumnHandle column = columns.get(channel);
+            String prefilledValue = prefilledValues.get(column.getHiveColumnIndex());
+            if (prefilledValue != null) {
+                Type type = types.get(channel);
+                constantValues.put(channel, nativeValueToBlock(type, typedPartitionKey(prefilledValue, type, column.getName(), hiveStorageTimeZone)));
+            }
+            else {
+                checkArgument(column.getColumnType() == REGULAR, "column %s is neither regular nor prefilled", column.getName());
+                regularColumns.add(column);
+            }
+        }
+
+        ImmutableMap.Builder<Integer, TupleDomainFilter> domainFilters = ImmutableMap.builder();
+        for (Map.Entry<Subfield, Domain> entry : domainPredicate.getDomains().get().entrySet()) {
+            domainFilters.put(channels.get(entry.getKey().getRootName()), tupleDomainFilterCache.getFilter(entry.getValue()));
+        }
+
+        // prune row groups with the statistics of the regular columns
+        Map<String, HiveColumnHandle> regularColumnsByName = regularColumns.build().stream()
+                .collect(toImmutableMap(HiveColumnHandle::getName, identity()));
+        TupleDomain<HiveColumnHandle> effectivePredicate = domainPredicate.transform(subfield -> regularColumnsByName.get(subfield.getRootName()));
+
+        ParquetPageSource parquetPageSource = createParquetPageSource(
+                hdfsEnvironment,
+                session.getUser(),
+                configuration,
+                path,
+                start,
+                length,
+                fileSize,
+                regularColumns.build(),
+                isUseParquetColumnNames(session),
+                isFailOnCorruptedParquetStatistics(session),
+                getParquetMaxReadBlockSize(session),
+                isParquetBatchReadsEnabled(session),
+                isParquetBatchReaderVerificationEnabled(session),
+                isParquetPageIndexFilteringEnabled(session),
+                typeManager,
+                effectivePredicate,
+                stats,
+                hiveFileContext);
+
+        return Optional.of(new ParquetSelectivePageSource(
+                parquetPageSource,
+                types,
+                constantValues.build(),
+                domainFilters.build(),
+                toFilterFunction(remainingPredicate, columns, types, session),
+                outputColumns.stream()
+                        .map(hiveColumnIndexToChannel::get)
+                        .collect(toImmutableList()),
+                isAdaptiveFilterReorderingEnabled(session)));
+    }
+
+    private Optional<FilterFunction> toFilterFunction(RowExpression remainingPredicate, List<HiveColumnHandle> columns, List<Type> types, ConnectorSession session)
+    {
+        if (TRUE_CONSTANT.equals(remainingPredicate)) {
+            return Optional.empty();
+        }
+
+        Map<VariableReferenceExpression, InputReferenceExpression> variableToInput = IntStream.range(0, columns.size())
+                .boxed()
+                .collect(toImmutableMap(
+                        channel -> new VariableReferenceExpression(columns.get(channel).getName(), types.get(channel)),
+                        channel -> new InputReferenceExpression(channel, types.get(channel))));
+
+        RowExpression filter = replaceExpression(remainingPredicate, variableToInput);
+        return Optional.of(new FilterFunction(
+                session.getSqlFunctionProperties(),
+                rowExpressionService.getDeterminismEvaluator().isDeterministic(filter),
+                rowExpressionService.getPredicateCompiler().compilePredicate(session.getSqlFunctionProperties(), filter).get()));
+    }
+}
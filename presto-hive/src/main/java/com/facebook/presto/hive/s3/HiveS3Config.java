@@ -58,6 +58,11 @@ public class HiveS3Config
     private String s3UserAgentPrefix = "";
     private PrestoS3AclType s3AclType = PrestoS3AclType.PRIVATE;
     private boolean skipGlacierObjects;
+    private boolean s3StreamingUploadEnabled;
+    private DataSize s3StreamingPartSize = new DataSize(16, MEGABYTE);
+    private int s3StreamingMaxBufferedParts = 4;
+    private int s3StreamingUploadThreads = 16;
+    private DataSize s3StreamingMaxBufferSize = new DataSize(256, MEGABYTE);
 
     public String getS3AwsAccessKey()
     {
@@ -402,4 +407,74 @@ public class HiveS3Config
         this.skipGlacierObjects = skipGlacierObjects;
         return this;
     }
+
+    public boolean isS3StreamingUploadEnabled()
+    {
+        return s3StreamingUploadEnabled;
+    }
+
+    @Config("hive.s3.streaming.enabled")
+    @ConfigDescription("Upload files to S3 in parts while they are written instead of staging them on local disk")
+    public HiveS3Config setS3StreamingUploadEnabled(boolean s3StreamingUploadEnabled)
+    {
+        this.s3StreamingUploadEnabled = s3StreamingUploadEnabled;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("5MB")
+    public DataSize getS3StreamingPartSize()
+    {
+        return s3StreamingPartSize;
+    }
+
+    @Config("hive.s3.streaming.part-size")
+    @ConfigDescription("Part size for S3 streaming uploads")
+    public HiveS3Config setS3StreamingPartSize(DataSize s3StreamingPartSize)
+    {
+        this.s3StreamingPartSize = s3StreamingPartSize;
+        return this;
+    }
+
+    @Min(1)
+    public int getS3StreamingMaxBufferedParts()
+    {
+        return s3StreamingMaxBufferedParts;
+    }
+
+    @Config("hive.s3.streaming.max-buffered-parts")
+    @ConfigDescription("Maximum number of parts of a file being uploaded that are kept in memory")
+    public HiveS3Config setS3StreamingMaxBufferedParts(int s3StreamingMaxBufferedParts)
+    {
+        this.s3StreamingMaxBufferedParts = s3StreamingMaxBufferedParts;
+        return this;
+    }
+
+    @Min(1)
+    public int getS3StreamingUploadThreads()
+    {
+        return s3StreamingUploadThreads;
+    }
+
+    @Config("hive.s3.streaming.upload-threads")
+    @ConfigDescription("Number of threads that upload the parts of S3 streaming uploads")
+    public HiveS3Config setS3StreamingUploadThreads(int s3StreamingUploadThreads)
+    {
+        this.s3StreamingUploadThreads = s3StreamingUploadThreads;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getS3StreamingMaxBufferSize()
+    {
+        return s3StreamingMaxBufferSize;
+    }
+
+    @Config("hive.s3.streaming.max-buffer-size")
+    @ConfigDescription("Maximum memory of the parts of all S3 streaming uploads that are waiting for or in upload")
+    public HiveS3Config setS3StreamingMaxBufferSize(DataSize s3StreamingMaxBufferSize)
+    {
+        this.s3StreamingMaxBufferSize = s3StreamingMaxBufferSize;
+        return this;
+    }
 }
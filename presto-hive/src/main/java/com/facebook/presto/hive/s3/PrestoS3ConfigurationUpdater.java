@@ -50,6 +50,11 @@ public class PrestoS3ConfigurationUpdater
     private final String userAgentPrefix;
     private final PrestoS3AclType aclType;
     private boolean skipGlacierObjects;
+    private final boolean streamingUploadEnabled;
+    private final DataSize streamingUploadPartSize;
+    private final int streamingUploadMaxBufferedParts;
+    private final int streamingUploadThreads;
+    private final DataSize streamingUploadMaxBufferSize;
 
     @Inject
     public PrestoS3ConfigurationUpdater(HiveS3Config config)
@@ -80,6 +85,11 @@ public class PrestoS3ConfigurationUpdater
         this.userAgentPrefix = config.getS3UserAgentPrefix();
         this.aclType = config.getS3AclType();
         this.skipGlacierObjects = config.isSkipGlacierObjects();
+        this.streamingUploadEnabled = config.isS3StreamingUploadEnabled();
+        this.streamingUploadPartSize = config.getS3StreamingPartSize();
+        this.streamingUploadMaxBufferedParts = config.getS3StreamingMaxBufferedParts();
+        this.streamingUploadThreads = config.getS3StreamingUploadThreads();
+        this.streamingUploadMaxBufferSize = config.getS3StreamingMaxBufferSize();
     }
 
     @Override
@@ -130,5 +140,10 @@ public class PrestoS3ConfigurationUpdater
         config.set(S3_USER_AGENT_PREFIX, userAgentPrefix);
         config.set(S3_ACL_TYPE, aclType.name());
         config.setBoolean(S3_SKIP_GLACIER_OBJECTS, skipGlacierObjects);
+        config.setBoolean(S3_STREAMING_UPLOAD_ENABLED, streamingUploadEnabled);
+        config.setLong(S3_STREAMING_UPLOAD_PART_SIZE, streamingUploadPartSize.toBytes());
+        config.setInt(S3_STREAMING_UPLOAD_MAX_BUFFERED_PARTS, streamingUploadMaxBufferedParts);
+        config.setInt(S3_STREAMING_UPLOAD_THREADS, streamingUploadThreads);
+        config.setLong(S3_STREAMING_UPLOAD_MAX_BUFFER_SIZE, streamingUploadMaxBufferSize.toBytes());
     }
 }
@@ -33,18 +33,23 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Builder;
 import com.amazonaws.services.s3.AmazonS3Client;
 import com.amazonaws.services.s3.AmazonS3EncryptionClient;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.EncryptionMaterialsProvider;
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.KMSEncryptionMaterialsProvider;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.amazonaws.services.s3.model.SSEAwsKeyManagementParams;
+import com.amazonaws.services.s3.model.UploadPartRequest;
 import com.amazonaws.services.s3.transfer.Transfer;
 import com.amazonaws.services.s3.transfer.TransferManager;
 import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
@@ -81,21 +86,31 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.file.Files;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.amazonaws.regions.Regions.US_EAST_1;
 import static com.amazonaws.services.s3.Headers.SERVER_SIDE_ENCRYPTION;
 import static com.amazonaws.services.s3.Headers.UNENCRYPTED_CONTENT_LENGTH;
 import static com.amazonaws.services.s3.model.StorageClass.Glacier;
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.presto.hive.RetryDriver.retry;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_ACCESS_KEY;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_ACL_TYPE;
@@ -122,6 +137,11 @@ import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_SSE_KMS_KEY_
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_SSE_TYPE;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_SSL_ENABLED;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_STAGING_DIRECTORY;
+import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_STREAMING_UPLOAD_ENABLED;
+import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_STREAMING_UPLOAD_MAX_BUFFERED_PARTS;
+import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_STREAMING_UPLOAD_MAX_BUFFER_SIZE;
+import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_STREAMING_UPLOAD_PART_SIZE;
+import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_STREAMING_UPLOAD_THREADS;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_USER_AGENT_PREFIX;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_USER_AGENT_SUFFIX;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_USE_INSTANCE_CREDENTIALS;
@@ -135,6 +155,7 @@ import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.Iterables.toArray;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static java.lang.String.format;
 import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
@@ -142,7 +163,9 @@ import static java.net.HttpURLConnection.HTTP_FORBIDDEN;
 import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
 import static java.nio.file.Files.createDirectories;
 import static java.nio.file.Files.createTempFile;
+import static java.util.Comparator.comparing;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.apache.hadoop.fs.FSExceptionMessages.CANNOT_SEEK_PAST_EOF;
 import static org.apache.hadoop.fs.FSExceptionMessages.NEGATIVE_SEEK;
@@ -181,6 +204,11 @@ public class PrestoS3FileSystem
     private long multiPartUploadMinPartSize;
     private PrestoS3AclType s3AclType;
     private boolean skipGlacierObjects;
+    private boolean streamingUploadEnabled;
+    private int streamingUploadPartSize;
+    private int streamingUploadMaxBufferedParts;
+    private ExecutorService uploadExecutor;
+    private Semaphore uploadBufferPermits;
 
     @Override
     public void initialize(URI uri, Configuration conf)
@@ -217,6 +245,16 @@ public class PrestoS3FileSystem
         this.s3AclType = PrestoS3AclType.valueOf(conf.get(S3_ACL_TYPE, defaults.getS3AclType().name()));
         String userAgentPrefix = conf.get(S3_USER_AGENT_PREFIX, defaults.getS3UserAgentPrefix());
         this.skipGlacierObjects = conf.getBoolean(S3_SKIP_GLACIER_OBJECTS, defaults.isSkipGlacierObjects());
+        this.streamingUploadEnabled = conf.getBoolean(S3_STREAMING_UPLOAD_ENABLED, defaults.isS3StreamingUploadEnabled());
+        this.streamingUploadPartSize = toIntExact(conf.getLong(S3_STREAMING_UPLOAD_PART_SIZE, defaults.getS3StreamingPartSize().toBytes()));
+        this.streamingUploadMaxBufferedParts = conf.getInt(S3_STREAMING_UPLOAD_MAX_BUFFERED_PARTS, defaults.getS3StreamingMaxBufferedParts());
+        if (streamingUploadEnabled) {
+            int uploadThreads = conf.getInt(S3_STREAMING_UPLOAD_THREADS, defaults.getS3StreamingUploadThreads());
+            this.uploadExecutor = newFixedThreadPool(uploadThreads, daemonThreadsNamed("s3-streaming-upload-%s"));
+            // one permit per part that is queued or uploading, shared by all streams of the file system
+            long maxBufferSize = conf.getLong(S3_STREAMING_UPLOAD_MAX_BUFFER_SIZE, defaults.getS3StreamingMaxBufferSize().toBytes());
+            this.uploadBufferPermits = new Semaphore(toIntExact(max(1, maxBufferSize / streamingUploadPartSize)));
+        }
 
         ClientConfiguration configuration = new ClientConfiguration()
                 .withMaxErrorRetry(maxErrorRetries)
@@ -241,6 +279,9 @@ public class PrestoS3FileSystem
                 closer.register((Closeable) credentialsProvider);
             }
             closer.register(s3::shutdown);
+            if (uploadExecutor != null) {
+                closer.register(uploadExecutor::shutdownNow);
+            }
         }
     }
 
@@ -369,6 +410,13 @@ public class PrestoS3FileSystem
             throw new IOException("File already exists:" + path);
         }
 
+        String key = keyFromPath(qualifiedPath(path));
+        if (streamingUploadEnabled) {
+            return new FSDataOutputStream(
+                    new PrestoS3StreamingOutputStream(s3, getBucketName(uri), key, uploadExecutor, uploadBufferPermits, streamingUploadPartSize, streamingUploadMaxBufferedParts, sseEnabled, sseType, sseKmsKeyId, s3AclType),
+                    statistics);
+        }
+
         if (!stagingDirectory.exists()) {
             createDirectories(stagingDirectory.toPath());
         }
@@ -377,7 +425,6 @@ public class PrestoS3FileSystem
         }
         File tempFile = createTempFile(stagingDirectory.toPath(), "presto-s3-", ".tmp").toFile();
 
-        String key = keyFromPath(qualifiedPath(path));
         return new FSDataOutputStream(
                 new PrestoS3OutputStream(s3, getBucketName(uri), key, tempFile, sseEnabled, sseType, sseKmsKeyId, multiPartUploadMinFileSize, multiPartUploadMinPartSize, s3AclType),
                 statistics);
@@ -1233,6 +1280,423 @@ public class PrestoS3FileSystem
         }
     }
 
+    /**
+     * Uploads the data to S3 in parts while it is written. A part is uploaded as soon as it is full, by the
+     * upload executor of the file system, and at most {@code maxBufferedParts} full parts of the stream are
+     * kept in memory, so writing blocks while the oldest part is uploading. Every full part also holds one of
+     * the buffer permits of the file system until it is uploaded, which bounds the memory of all the streams
+     * of the file system together. Data that fits in a single part is uploaded with a plain put request.
+     * <p>
+     * The part that is being written is not covered by the buffer permits, since a writer holding a permit
+     * for it could block the other streams of the same writer forever. Its buffer grows with the data up to
+     * the part size, so every open stream adds up to one part size of heap on top of the buffer limit.
+     */
+    private static class PrestoS3StreamingOutputStream
+            extends OutputStream
+    {
+        // S3 does not accept more parts for a multipart upload
+        private static final int MAX_PARTS = 10_000;
+        private static final int MIN_BUFFER_SIZE = 64 * 1024;
+
+        private final AmazonS3 s3;
+        private final String host;
+        private final String key;
+        private final ExecutorService uploadExecutor;
+        private final Semaphore uploadBufferPermits;
+        private final int partSize;
+        private final int maxBufferedParts;
+        private final boolean sseEnabled;
+        private final PrestoS3SseType sseType;
+        private final String sseKmsKeyId;
+        private final CannedAccessControlList aclType;
+
+        private final Deque<PendingPart> pendingParts = new ArrayDeque<>();
+        private final List<PartETag> uploadedParts = new ArrayList<>();
+        private Optional<String> uploadId = Optional.empty();
+        private int nextPartNumber = 1;
+
+        private byte[] buffer;
+        private int bufferSize;
+
+        private boolean closed;
+        private boolean failed;
+
+        public PrestoS3StreamingOutputStream(
+                AmazonS3 s3,
+                String host,
+                String key,
+                ExecutorService uploadExecutor,
+                Semaphore uploadBufferPermits,
+                int partSize,
+                int maxBufferedParts,
+                boolean sseEnabled,
+                PrestoS3SseType sseType,
+                String sseKmsKeyId,
+                PrestoS3AclType aclType)
+        {
+            checkArgument(partSize > 0, "partSize must be positive");
+            checkArgument(maxBufferedParts > 0, "maxBufferedParts must be positive");
+            this.s3 = requireNonNull(s3, "s3 is null");
+            this.host = requireNonNull(host, "host is null");
+            this.key = requireNonNull(key, "key is null");
+            this.uploadExecutor = requireNonNull(uploadExecutor, "uploadExecutor is null");
+            this.uploadBufferPermits = requireNonNull(uploadBufferPermits, "uploadBufferPermits is null");
+            this.partSize = partSize;
+            this.maxBufferedParts = maxBufferedParts;
+            this.sseEnabled = sseEnabled;
+            this.sseType = requireNonNull(sseType, "sseType is null");
+            this.sseKmsKeyId = sseKmsKeyId;
+            this.aclType = requireNonNull(aclType, "aclType is null").getCannedACL();
+            this.buffer = new byte[0];
+
+            log.debug("Streaming OutputStream for key '%s' using %s byte parts", key, partSize);
+        }
+
+        @Override
+        public void write(int b)
+                throws IOException
+        {
+            checkOpen();
+            checkPartLimit();
+            ensureCapacity(bufferSize + 1);
+            buffer[bufferSize] = (byte) b;
+            bufferSize++;
+            if (bufferSize == partSize) {
+                uploadPart();
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length)
+                throws IOException
+        {
+            checkOpen();
+            checkPositionIndexes(offset, offset + length, bytes.length);
+            while (length > 0) {
+                checkPartLimit();
+                int chunk = min(length, partSize - bufferSize);
+                ensureCapacity(bufferSize + chunk);
+                System.arraycopy(bytes, offset, buffer, bufferSize, chunk);
+                bufferSize += chunk;
+                offset += chunk;
+                length -= chunk;
+                if (bufferSize == partSize) {
+                    uploadPart();
+                }
+            }
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            if (failed) {
+                abortUpload();
+                throw new IOException(format("Upload of %s/%s failed", host, key));
+            }
+
+            try {
+                if (!uploadId.isPresent()) {
+                    putObject();
+                }
+                else {
+                    if (bufferSize > 0) {
+                        uploadPart();
+                    }
+                    completeUpload();
+                }
+            }
+            catch (IOException | RuntimeException e) {
+                markFailed();
+                abortUpload();
+                throw e;
+            }
+            finally {
+                buffer = null;
+            }
+        }
+
+        private void checkOpen()
+                throws IOException
+        {
+            if (closed) {
+                throw new IOException(STREAM_IS_CLOSED);
+            }
+            if (failed) {
+                throw new IOException(format("Upload of %s/%s failed", host, key));
+            }
+        }
+
+        private void checkPartLimit()
+                throws IOException
+        {
+            // the data written so far fills all the parts an upload may have
+            if (nextPartNumber > MAX_PARTS) {
+                markFailed();
+                throw new IOException(format("Upload of %s/%s exceeds the S3 limit of %s parts of %s bytes, increase hive.s3.streaming.part-size", host, key, MAX_PARTS, partSize));
+            }
+        }
+
+        private void ensureCapacity(int capacity)
+        {
+            if (buffer.length >= capacity) {
+                return;
+            }
+            // a stream that already uploaded a part is large, so its next parts are allocated in full
+            long newLength = uploadId.isPresent() ? partSize : max(capacity, max(MIN_BUFFER_SIZE, buffer.length * 2L));
+            buffer = Arrays.copyOf(buffer, toIntExact(min(newLength, partSize)));
+        }
+
+        private void putObject()
+                throws IOException
+        {
+            try {
+                log.debug("Starting upload for host: %s, key: %s, size: %s", host, key, bufferSize);
+                STATS.uploadStarted();
+
+                ObjectMetadata metadata = new ObjectMetadata();
+                metadata.setContentLength(bufferSize);
+                PutObjectRequest request = new PutObjectRequest(host, key, new ByteArrayInputStream(buffer, 0, bufferSize), metadata);
+                if (sseEnabled) {
+                    switch (sseType) {
+                        case KMS:
+                            request.withSSEAwsKeyManagementParams(getSseKmsParams());
+                            break;
+                        case S3:
+                            metadata.setSSEAlgorithm(ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
+                            break;
+                    }
+                }
+                request.withCannedAcl(aclType);
+
+                s3.putObject(request);
+                STATS.uploadSuccessful();
+                log.debug("Completed upload for host: %s, key: %s", host, key);
+            }
+            catch (AmazonClientException e) {
+                markFailed();
+                throw new IOException(e);
+            }
+        }
+
+        private void uploadPart()
+                throws IOException
+        {
+            if (!uploadId.isPresent()) {
+                uploadId = Optional.of(initiateUpload());
+            }
+
+            // collect the parts that finished uploading, so that a failed part surfaces on the next write
+            collectUploadedParts();
+
+            // wait for the oldest part to be uploaded before buffering another one
+            while (pendingParts.size() >= maxBufferedParts) {
+                uploadedParts.add(getUploadedPart(pendingParts.removeFirst()));
+            }
+            acquireBufferPermit();
+
+            UploadPartRequest request = new UploadPartRequest()
+                    .withBucketName(host)
+                    .withKey(key)
+                    .withUploadId(uploadId.get())
+                    .withPartNumber(nextPartNumber)
+                    .withInputStream(new ByteArrayInputStream(buffer, 0, bufferSize))
+                    .withPartSize(bufferSize);
+            nextPartNumber++;
+            pendingParts.addLast(submitPart(request));
+
+            // the buffer is owned by the upload until it completes
+            buffer = new byte[0];
+            bufferSize = 0;
+        }
+
+        private void collectUploadedParts()
+                throws IOException
+        {
+            Iterator<PendingPart> iterator = pendingParts.iterator();
+            while (iterator.hasNext()) {
+                PendingPart part = iterator.next();
+                if (part.isDone()) {
+                    iterator.remove();
+                    uploadedParts.add(getUploadedPart(part));
+                }
+            }
+        }
+
+        private void acquireBufferPermit()
+                throws IOException
+        {
+            try {
+                uploadBufferPermits.acquire();
+            }
+            catch (InterruptedException e) {
+                markFailed();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+
+        private PendingPart submitPart(UploadPartRequest request)
+                throws IOException
+        {
+            AtomicBoolean released = new AtomicBoolean();
+            Runnable releaseBuffer = () -> {
+                if (released.compareAndSet(false, true)) {
+                    uploadBufferPermits.release();
+                }
+            };
+            try {
+                Future<PartETag> future = uploadExecutor.submit(() -> {
+                    try {
+                        return s3.uploadPart(request).getPartETag();
+                    }
+                    finally {
+                        releaseBuffer.run();
+                    }
+                });
+                return new PendingPart(future, releaseBuffer);
+            }
+            catch (RejectedExecutionException e) {
+                releaseBuffer.run();
+                markFailed();
+                throw new IOException("S3 upload executor is shut down", e);
+            }
+        }
+
+        private String initiateUpload()
+                throws IOException
+        {
+            try {
+                log.debug("Starting multipart upload for host: %s, key: %s", host, key);
+                STATS.uploadStarted();
+
+                InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(host, key);
+                if (sseEnabled) {
+                    switch (sseType) {
+                        case KMS:
+                            request.withSSEAwsKeyManagementParams(getSseKmsParams());
+                            break;
+                        case S3:
+                            ObjectMetadata metadata = new ObjectMetadata();
+                            metadata.setSSEAlgorithm(ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
+                            request.setObjectMetadata(metadata);
+                            break;
+                    }
+                }
+                request.withCannedACL(aclType);
+
+                return s3.initiateMultipartUpload(request).getUploadId();
+            }
+            catch (AmazonClientException e) {
+                markFailed();
+                throw new IOException(e);
+            }
+        }
+
+        private PartETag getUploadedPart(PendingPart part)
+                throws IOException
+        {
+            try {
+                return part.getPartETag();
+            }
+            catch (InterruptedException e) {
+                markFailed();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            catch (ExecutionException e) {
+                markFailed();
+                throw new IOException(format("Upload of a part of %s/%s failed", host, key), e.getCause());
+            }
+        }
+
+        private void completeUpload()
+                throws IOException
+        {
+            while (!pendingParts.isEmpty()) {
+                uploadedParts.add(getUploadedPart(pendingParts.removeFirst()));
+            }
+            // the parts are collected in the order they finished uploading
+            uploadedParts.sort(comparing(PartETag::getPartNumber));
+            try {
+                s3.completeMultipartUpload(new CompleteMultipartUploadRequest(host, key, uploadId.get(), uploadedParts));
+                STATS.uploadSuccessful();
+                log.debug("Completed multipart upload for host: %s, key: %s, parts: %s", host, key, uploadedParts.size());
+            }
+            catch (AmazonClientException e) {
+                markFailed();
+                throw new IOException(e);
+            }
+        }
+
+        /**
+         * Counts the upload as failed once, however many steps of it fail.
+         */
+        private void markFailed()
+        {
+            if (!failed) {
+                failed = true;
+                STATS.uploadFailed();
+            }
+        }
+
+        private void abortUpload()
+        {
+            pendingParts.forEach(PendingPart::cancel);
+            pendingParts.clear();
+            buffer = null;
+            if (!uploadId.isPresent()) {
+                return;
+            }
+            try {
+                s3.abortMultipartUpload(new AbortMultipartUploadRequest(host, key, uploadId.get()));
+            }
+            catch (AmazonClientException e) {
+                log.warn(e, "Could not abort multipart upload for host: %s, key: %s", host, key);
+            }
+        }
+
+        private SSEAwsKeyManagementParams getSseKmsParams()
+        {
+            return sseKmsKeyId != null ? new SSEAwsKeyManagementParams(sseKmsKeyId) : new SSEAwsKeyManagementParams();
+        }
+
+        private static class PendingPart
+        {
+            private final Future<PartETag> future;
+            private final Runnable releaseBuffer;
+
+            public PendingPart(Future<PartETag> future, Runnable releaseBuffer)
+            {
+                this.future = requireNonNull(future, "future is null");
+                this.releaseBuffer = requireNonNull(releaseBuffer, "releaseBuffer is null");
+            }
+
+            public boolean isDone()
+            {
+                return future.isDone();
+            }
+
+            public PartETag getPartETag()
+                    throws InterruptedException, ExecutionException
+            {
+                return future.get();
+            }
+
+            public void cancel()
+            {
+                future.cancel(true);
+                // a part cancelled before it started uploading never releases its buffer itself
+                releaseBuffer.run();
+            }
+        }
+    }
+
     @VisibleForTesting
     AmazonS3 getS3Client()
     {
@@ -45,6 +45,11 @@ public interface S3ConfigurationUpdater
     String S3_ACCESS_KEY = "presto.s3.access-key";
     String S3_ACL_TYPE = "presto.s3.upload-acl-type";
     String S3_SKIP_GLACIER_OBJECTS = "presto.s3.skip-glacier-objects";
+    String S3_STREAMING_UPLOAD_ENABLED = "presto.s3.streaming.enabled";
+    String S3_STREAMING_UPLOAD_PART_SIZE = "presto.s3.streaming.part-size";
+    String S3_STREAMING_UPLOAD_MAX_BUFFERED_PARTS = "presto.s3.streaming.max-buffered-parts";
+    String S3_STREAMING_UPLOAD_THREADS = "presto.s3.streaming.upload-threads";
+    String S3_STREAMING_UPLOAD_MAX_BUFFER_SIZE = "presto.s3.streaming.max-buffer-size";
 
     void updateConfiguration(Configuration config);
 }
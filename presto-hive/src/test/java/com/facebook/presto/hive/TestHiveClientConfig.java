@@ -134,7 +134,9 @@ public class TestHiveClientConfig
                 .setFileStatusCacheTables("")
                 .setPageFileStripeMaxSize(new DataSize(24, Unit.MEGABYTE))
                 .setParquetBatchReaderVerificationEnabled(false)
-                .setParquetBatchReadOptimizationEnabled(false));
+                .setParquetBatchReadOptimizationEnabled(false)
+                .setParquetSelectiveReaderEnabled(false)
+                .setParquetPageIndexFilteringEnabled(false));
     }
 
     @Test
@@ -232,6 +234,8 @@ public class TestHiveClientConfig
                 .put("hive.pagefile.writer.stripe-max-size", "1kB")
                 .put("hive.parquet-batch-read-optimization-enabled", "true")
                 .put("hive.enable-parquet-batch-reader-verification", "true")
+                .put("hive.parquet-selective-reader-enabled", "true")
+                .put("hive.parquet-page-index-filtering-enabled", "true")
                 .build();
 
         HiveClientConfig expected = new HiveClientConfig()
@@ -326,7 +330,9 @@ public class TestHiveClientConfig
                 .setFileStatusCacheExpireAfterWrite(new Duration(30, TimeUnit.MINUTES))
                 .setPageFileStripeMaxSize(new DataSize(1, Unit.KILOBYTE))
                 .setParquetBatchReaderVerificationEnabled(true)
-                .setParquetBatchReadOptimizationEnabled(true);
+                .setParquetBatchReadOptimizationEnabled(true)
+                .setParquetSelectiveReaderEnabled(true)
+                .setParquetPageIndexFilteringEnabled(true);
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
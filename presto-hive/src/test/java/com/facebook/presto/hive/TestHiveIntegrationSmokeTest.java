@@ -4577,6 +4577,23 @@ public class TestHiveIntegrationSmokeTest
         assertQueryFails(createTableSql, "Cannot specify avro_schema_url table property for storage format: ORC");
     }
 
+    @Test
+    public void testCreateDwrfTableWithBloomFilterColumns()
+    {
+        @Language("SQL") String createTableSql = format("" +
+                        "CREATE TABLE %s.%s.test_dwrf_bloom_filter (\n" +
+                        "   dummy_col varchar\n" +
+                        ")\n" +
+                        "WITH (\n" +
+                        "   orc_bloom_filter_columns = ARRAY['dummy_col'],\n" +
+                        "   format = 'DWRF'\n" +
+                        ")",
+                getSession().getCatalog().get(),
+                getSession().getSchema().get());
+
+        assertQueryFails(createTableSql, "Cannot specify orc_bloom_filter_columns table property for storage format: DWRF");
+    }
+
     @Test
     public void testCtasFailsWithAvroSchemaUrl()
             throws Exception
@@ -25,16 +25,22 @@ import io.airlift.slice.Slices;
 import org.testng.annotations.Test;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.facebook.presto.hive.HiveMetadata.createPredicate;
 import static com.facebook.presto.hive.HiveMetadata.decodePreferredOrderingColumnsFromStorage;
 import static com.facebook.presto.hive.HiveMetadata.encodePreferredOrderingColumns;
+import static com.facebook.presto.hive.HiveMetadata.getDataVersion;
 import static com.facebook.presto.hive.HiveTableProperties.PREFERRED_ORDERING_COLUMNS;
 import static com.facebook.presto.hive.metastore.SortingColumn.Order.ASCENDING;
 import static com.facebook.presto.hive.metastore.SortingColumn.Order.DESCENDING;
 import static com.facebook.presto.hive.metastore.StorageFormat.VIEW_STORAGE_FORMAT;
+import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.DDL_TIME;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
 
 public class TestHiveMetadata
 {
@@ -111,6 +117,29 @@ public class TestHiveMetadata
         verifyPreferredOrderingColumnsRoundTrip(ImmutableList.of(new SortingColumn("DESC", DESCENDING)));
     }
 
+    @Test
+    public void testDataVersion()
+    {
+        SchemaTableName tableName = new SchemaTableName("test", "test");
+        Map<String, String> tableParameters = ImmutableMap.of(DDL_TIME, "1000");
+        Map<String, String> partitionParameters = ImmutableMap.of(DDL_TIME, "2000", "numFiles", "3", "totalSize", "4096");
+
+        Optional<String> version = getDataVersion(tableName, tableParameters, ImmutableMap.of("ds=1", partitionParameters));
+        assertTrue(version.isPresent());
+        assertEquals(getDataVersion(tableName, tableParameters, ImmutableMap.of("ds=1", partitionParameters)), version);
+
+        // a different table, partition, DDL time or file count is a different version
+        assertNotEquals(getDataVersion(new SchemaTableName("test", "other"), tableParameters, ImmutableMap.of("ds=1", partitionParameters)), version);
+        assertNotEquals(getDataVersion(tableName, tableParameters, ImmutableMap.of("ds=2", partitionParameters)), version);
+        assertNotEquals(getDataVersion(tableName, tableParameters, ImmutableMap.of("ds=1", ImmutableMap.of(DDL_TIME, "2001", "numFiles", "3", "totalSize", "4096"))), version);
+        assertNotEquals(getDataVersion(tableName, tableParameters, ImmutableMap.of("ds=1", ImmutableMap.of(DDL_TIME, "2000", "numFiles", "4", "totalSize", "4096"))), version);
+        assertNotEquals(getDataVersion(tableName, ImmutableMap.of(DDL_TIME, "1001"), ImmutableMap.of("ds=1", partitionParameters)), version);
+
+        // without a DDL time there is no version
+        assertFalse(getDataVersion(tableName, ImmutableMap.of(), ImmutableMap.of()).isPresent());
+        assertFalse(getDataVersion(tableName, tableParameters, ImmutableMap.of("ds=1", ImmutableMap.of("numFiles", "3"))).isPresent());
+    }
+
     private void verifyPreferredOrderingColumnsRoundTrip(List<SortingColumn> sortingColumns)
     {
         List<SortingColumn> decoded = decodePreferredOrderingColumnsFromStorage(
@@ -48,6 +48,7 @@ public class TestHivePageSourceProvider
                 0,
                 10,
                 10,
+                12345,
                 new Storage(
                         StorageFormat.create(config.getHiveStorageFormat().getSerDe(), config.getHiveStorageFormat().getInputFormat(), config.getHiveStorageFormat().getOutputFormat()),
                         "location",
@@ -79,6 +80,7 @@ public class TestHivePageSourceProvider
                 0,
                 10,
                 10,
+                12345,
                 new Storage(
                         StorageFormat.create(config.getHiveStorageFormat().getSerDe(), config.getHiveStorageFormat().getInputFormat(), config.getHiveStorageFormat().getOutputFormat()),
                         "location",
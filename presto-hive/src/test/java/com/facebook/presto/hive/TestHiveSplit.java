@@ -41,6 +41,8 @@ import com.google.inject.Module;
 import com.google.inject.Scopes;
 import org.testng.annotations.Test;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 
@@ -54,6 +56,9 @@ import static com.facebook.presto.hive.HiveType.HIVE_STRING;
 import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.NO_PREFERENCE;
 import static com.google.inject.multibindings.Multibinder.newSetBinder;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
 
 public class TestHiveSplit
 {
@@ -71,6 +76,7 @@ public class TestHiveSplit
                 42,
                 87,
                 88,
+                1234,
                 new Storage(
                         StorageFormat.create("serde", "input", "output"),
                         "location",
@@ -104,6 +110,7 @@ public class TestHiveSplit
         assertEquals(actual.getStart(), expected.getStart());
         assertEquals(actual.getLength(), expected.getLength());
         assertEquals(actual.getFileSize(), expected.getFileSize());
+        assertEquals(actual.getFileModifiedTime(), expected.getFileModifiedTime());
         assertEquals(actual.getStorage(), expected.getStorage());
         assertEquals(actual.getPartitionKeys(), expected.getPartitionKeys());
         assertEquals(actual.getAddresses(), expected.getAddresses());
@@ -115,6 +122,70 @@ public class TestHiveSplit
         assertEquals(actual.getCacheQuotaRequirement(), expected.getCacheQuotaRequirement());
     }
 
+    @Test
+    public void testSplitIdentifier()
+    {
+        Storage storage = new Storage(
+                StorageFormat.create("serde", "input", "output"),
+                "location",
+                Optional.empty(),
+                false,
+                ImmutableMap.of("field.delim", ","),
+                ImmutableMap.of());
+        List<HivePartitionKey> partitionKeys = ImmutableList.of(new HivePartitionKey("ds", "2020-01-01"));
+        Optional<String> identifier = createSplit(storage, partitionKeys, 10, ImmutableMap.of()).getSplitIdentifier();
+        assertTrue(identifier.isPresent());
+        assertEquals(createSplit(storage, partitionKeys, 10, ImmutableMap.of()).getSplitIdentifier(), identifier);
+
+        // the same file read as another partition, with another format or serde, or with another column mapping is different data
+        assertNotEquals(createSplit(storage, ImmutableList.of(new HivePartitionKey("ds", "2020-01-02")), 10, ImmutableMap.of()).getSplitIdentifier(), identifier);
+        Storage otherFormat = new Storage(
+                StorageFormat.create("other_serde", "other_input", "output"),
+                "location",
+                Optional.empty(),
+                false,
+                ImmutableMap.of("field.delim", ","),
+                ImmutableMap.of());
+        assertNotEquals(createSplit(otherFormat, partitionKeys, 10, ImmutableMap.of()).getSplitIdentifier(), identifier);
+        Storage otherSerdeParameters = new Storage(
+                StorageFormat.create("serde", "input", "output"),
+                "location",
+                Optional.empty(),
+                false,
+                ImmutableMap.of("field.delim", "|"),
+                ImmutableMap.of());
+        assertNotEquals(createSplit(otherSerdeParameters, partitionKeys, 10, ImmutableMap.of()).getSplitIdentifier(), identifier);
+        assertNotEquals(createSplit(storage, partitionKeys, 11, ImmutableMap.of()).getSplitIdentifier(), identifier);
+
+        // the partition schema is adapted to the table schema at read time
+        assertFalse(createSplit(storage, partitionKeys, 10, ImmutableMap.of(1, new Column("name", HIVE_STRING, Optional.empty()))).getSplitIdentifier().isPresent());
+    }
+
+    private static HiveSplit createSplit(Storage storage, List<HivePartitionKey> partitionKeys, int partitionDataColumnCount, Map<Integer, Column> partitionSchemaDifference)
+    {
+        return new HiveSplit(
+                "db",
+                "table",
+                "partitionId",
+                "path",
+                42,
+                87,
+                88,
+                1234,
+                storage,
+                partitionKeys,
+                ImmutableList.of(),
+                OptionalInt.empty(),
+                OptionalInt.empty(),
+                NO_PREFERENCE,
+                partitionDataColumnCount,
+                partitionSchemaDifference,
+                Optional.empty(),
+                false,
+                Optional.empty(),
+                NO_CACHE_REQUIREMENT);
+    }
+
     private JsonCodec<HiveSplit> getJsonCodec()
             throws Exception
     {
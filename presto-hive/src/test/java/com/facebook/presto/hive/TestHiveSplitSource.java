@@ -498,6 +498,7 @@ public class TestHiveSplitSource
                     0,
                     100,
                     100,
+                    0,
                     ImmutableList.of(new InternalHiveBlock(100, ImmutableList.of())),
                     bucketNumber,
                     bucketNumber,
@@ -0,0 +1,288 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.Subfield;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.Range;
+import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.common.predicate.ValueSet;
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.FilteringPageSource;
+import com.facebook.presto.hive.HiveClientConfig;
+import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.hive.HivePageSourceProvider.ColumnMapping;
+import com.facebook.presto.hive.HiveSessionProperties;
+import com.facebook.presto.hive.HiveStorageFormat;
+import com.facebook.presto.hive.OrcFileWriterConfig;
+import com.facebook.presto.hive.ParquetFileWriterConfig;
+import com.facebook.presto.hive.metastore.Storage;
+import com.facebook.presto.hive.metastore.StorageFormat;
+import com.facebook.presto.hive.orc.TupleDomainFilterCache;
+import com.facebook.presto.parquet.writer.ParquetWriter;
+import com.facebook.presto.parquet.writer.ParquetWriterOptions;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.testing.TestingConnectorSession;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slices;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.joda.time.DateTimeZone;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.expressions.LogicalRowExpressions.TRUE_CONSTANT;
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.hive.HiveFileContext.DEFAULT_HIVE_FILE_CONTEXT;
+import static com.facebook.presto.hive.HiveTestUtils.HDFS_ENVIRONMENT;
+import static com.facebook.presto.hive.HiveTestUtils.ROW_EXPRESSION_SERVICE;
+import static com.facebook.presto.hive.HiveTestUtils.TYPE_MANAGER;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.io.Files.createTempDir;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+
+/**
+ * Compares reading a Parquet file with a filter on one column through {@link ParquetSelectivePageSource}, which decodes
+ * the other columns only for the rows that pass the filter, with reading it through {@link ParquetPageSource} and
+ * filtering the pages with {@link FilteringPageSource}.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkParquetSelectivePageSource
+{
+    private static final int ROW_COUNT = 1_000_000;
+    private static final int ROWS_PER_PAGE = 10_000;
+    private static final int FILTER_VALUE_RANGE = 1000;
+
+    private static final HiveColumnHandle FILTER_COLUMN = new HiveColumnHandle("filter", HIVE_LONG, BIGINT.getTypeSignature(), 0, REGULAR, Optional.empty());
+    private static final HiveColumnHandle LONG_COLUMN = new HiveColumnHandle("long", HIVE_LONG, BIGINT.getTypeSignature(), 1, REGULAR, Optional.empty());
+    private static final HiveColumnHandle VARCHAR_COLUMN = new HiveColumnHandle("varchar", HIVE_STRING, VARCHAR.getTypeSignature(), 2, REGULAR, Optional.empty());
+    private static final List<HiveColumnHandle> COLUMNS = ImmutableList.of(FILTER_COLUMN, LONG_COLUMN, VARCHAR_COLUMN);
+
+    @Benchmark
+    public long selectivePageSource(BenchmarkData data)
+            throws IOException
+    {
+        return readAll(data.createSelectivePageSource());
+    }
+
+    @Benchmark
+    public long filteringPageSource(BenchmarkData data)
+            throws IOException
+    {
+        return readAll(data.createFilteringPageSource());
+    }
+
+    private static long readAll(ConnectorPageSource source)
+            throws IOException
+    {
+        long positionCount = 0;
+        try (ConnectorPageSource pageSource = source) {
+            while (!pageSource.isFinished()) {
+                Page page = pageSource.getNextPage();
+                if (page == null) {
+                    continue;
+                }
+                for (int channel = 0; channel < page.getChannelCount(); channel++) {
+                    page.getBlock(channel).getLoadedBlock();
+                }
+                positionCount += page.getPositionCount();
+            }
+        }
+        return positionCount;
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        // fraction of the rows that pass the filter, which are spread over the whole file
+        @Param({"0.01", "0.1", "0.5", "1.0"})
+        private double selectivity = 0.1;
+
+        @Param({"true", "false"})
+        private boolean batchReadsEnabled = true;
+
+        private File temporaryDirectory;
+        private File file;
+        private ConnectorSession session;
+        private Domain domain;
+
+        @Setup
+        public void setup()
+                throws IOException
+        {
+            temporaryDirectory = createTempDir();
+            file = new File(temporaryDirectory, "data.parquet");
+            Random random = new Random(0);
+            try (ParquetWriter writer = new ParquetWriter(
+                    new FileOutputStream(file),
+                    ImmutableList.of(FILTER_COLUMN.getName(), LONG_COLUMN.getName(), VARCHAR_COLUMN.getName()),
+                    ImmutableList.of(BIGINT, BIGINT, VARCHAR),
+                    ParquetWriterOptions.builder().build(),
+                    null)) {
+                for (int start = 0; start < ROW_COUNT; start += ROWS_PER_PAGE) {
+                    BlockBuilder filterValues = BIGINT.createBlockBuilder(null, ROWS_PER_PAGE);
+                    BlockBuilder longValues = BIGINT.createBlockBuilder(null, ROWS_PER_PAGE);
+                    BlockBuilder varcharValues = VARCHAR.createBlockBuilder(null, ROWS_PER_PAGE);
+                    for (int row = start; row < start + ROWS_PER_PAGE; row++) {
+                        BIGINT.writeLong(filterValues, random.nextInt(FILTER_VALUE_RANGE));
+                        BIGINT.writeLong(longValues, random.nextLong());
+                        VARCHAR.writeSlice(varcharValues, Slices.utf8Slice("value" + random.nextInt()));
+                    }
+                    writer.write(new Page(filterValues.build(), longValues.build(), varcharValues.build()));
+                }
+            }
+
+            HiveClientConfig config = new HiveClientConfig()
+                    .setParquetSelectiveReaderEnabled(true)
+                    .setParquetBatchReadOptimizationEnabled(batchReadsEnabled);
+            session = new TestingConnectorSession(new HiveSessionProperties(config, new OrcFileWriterConfig(), new ParquetFileWriterConfig()).getSessionProperties());
+            domain = Domain.create(ValueSet.ofRanges(Range.lessThan(BIGINT, (long) (FILTER_VALUE_RANGE * selectivity))), false);
+        }
+
+        @TearDown
+        public void tearDown()
+                throws IOException
+        {
+            deleteRecursively(temporaryDirectory.toPath(), ALLOW_INSECURE);
+        }
+
+        public ConnectorPageSource createSelectivePageSource()
+        {
+            ParquetSelectivePageSourceFactory pageSourceFactory = new ParquetSelectivePageSourceFactory(TYPE_MANAGER, ROW_EXPRESSION_SERVICE, HDFS_ENVIRONMENT, new FileFormatDataSourceStats(), new TupleDomainFilterCache());
+            return pageSourceFactory.createPageSource(
+                    new Configuration(),
+                    session,
+                    new Path(file.getAbsolutePath()),
+                    0,
+                    file.length(),
+                    file.length(),
+                    createStorage(),
+                    COLUMNS,
+                    ImmutableMap.of(),
+                    ImmutableMap.of(),
+                    Optional.empty(),
+                    ImmutableList.of(0, 1, 2),
+                    TupleDomain.withColumnDomains(ImmutableMap.of(new Subfield(FILTER_COLUMN.getName()), domain)),
+                    TRUE_CONSTANT,
+                    DateTimeZone.UTC,
+                    DEFAULT_HIVE_FILE_CONTEXT)
+                    .get();
+        }
+
+        public ConnectorPageSource createFilteringPageSource()
+        {
+            TupleDomain<HiveColumnHandle> domainPredicate = TupleDomain.withColumnDomains(ImmutableMap.of(FILTER_COLUMN, domain));
+            ParquetPageSourceFactory pageSourceFactory = new ParquetPageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT, new FileFormatDataSourceStats());
+            ConnectorPageSource parquetPageSource = pageSourceFactory.createPageSource(
+                    new Configuration(),
+                    session,
+                    new Path(file.getAbsolutePath()),
+                    0,
+                    file.length(),
+                    file.length(),
+                    createStorage(),
+                    ImmutableMap.of(),
+                    COLUMNS,
+                    domainPredicate,
+                    DateTimeZone.UTC,
+                    DEFAULT_HIVE_FILE_CONTEXT)
+                    .get();
+            return new FilteringPageSource(
+                    ImmutableList.of(
+                            ColumnMapping.regular(FILTER_COLUMN, 0, Optional.empty()),
+                            ColumnMapping.regular(LONG_COLUMN, 1, Optional.empty()),
+                            ColumnMapping.regular(VARCHAR_COLUMN, 2, Optional.empty())),
+                    domainPredicate,
+                    TRUE_CONSTANT,
+                    TYPE_MANAGER,
+                    ROW_EXPRESSION_SERVICE,
+                    session,
+                    ImmutableSet.of(0, 1, 2),
+                    parquetPageSource);
+        }
+
+        private static Storage createStorage()
+        {
+            HiveStorageFormat format = HiveStorageFormat.PARQUET;
+            return new Storage(
+                    StorageFormat.create(format.getSerDe(), format.getInputFormat(), format.getOutputFormat()),
+                    "location",
+                    Optional.empty(),
+                    false,
+                    ImmutableMap.of(),
+                    ImmutableMap.of());
+        }
+    }
+
+    public static void main(String[] args)
+            throws IOException, RunnerException
+    {
+        // assure the benchmarks are valid before running
+        BenchmarkData data = new BenchmarkData();
+        data.setup();
+        try {
+            long selected = readAll(data.createSelectivePageSource());
+            long filtered = readAll(data.createFilteringPageSource());
+            checkState(selected == filtered, "selective page source returned %s rows, filtering page source returned %s rows", selected, filtered);
+        }
+        finally {
+            data.tearDown();
+        }
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkParquetSelectivePageSource.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
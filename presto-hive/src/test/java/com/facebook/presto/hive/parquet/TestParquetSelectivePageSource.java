@@ -0,0 +1,316 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.Subfield;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.Range;
+import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.common.predicate.ValueSet;
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.HiveClientConfig;
+import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.hive.HiveSessionProperties;
+import com.facebook.presto.hive.HiveStorageFormat;
+import com.facebook.presto.hive.OrcFileWriterConfig;
+import com.facebook.presto.hive.ParquetFileWriterConfig;
+import com.facebook.presto.hive.metastore.Storage;
+import com.facebook.presto.hive.metastore.StorageFormat;
+import com.facebook.presto.hive.orc.TupleDomainFilterCache;
+import com.facebook.presto.parquet.writer.ParquetWriter;
+import com.facebook.presto.parquet.writer.ParquetWriterOptions;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.testing.TestingConnectorSession;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.joda.time.DateTimeZone;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntPredicate;
+
+import static com.facebook.presto.common.function.OperatorType.GREATER_THAN;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.expressions.LogicalRowExpressions.TRUE_CONSTANT;
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.PARTITION_KEY;
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.hive.HiveColumnHandle.MAX_PARTITION_KEY_COLUMN_INDEX;
+import static com.facebook.presto.hive.HiveFileContext.DEFAULT_HIVE_FILE_CONTEXT;
+import static com.facebook.presto.hive.HiveTestUtils.FUNCTION_RESOLUTION;
+import static com.facebook.presto.hive.HiveTestUtils.HDFS_ENVIRONMENT;
+import static com.facebook.presto.hive.HiveTestUtils.ROW_EXPRESSION_SERVICE;
+import static com.facebook.presto.hive.HiveTestUtils.TYPE_MANAGER;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static com.facebook.presto.sql.relational.Expressions.call;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.io.Files.createTempDir;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestParquetSelectivePageSource
+{
+    private static final int ROW_COUNT = 20_000;
+    private static final int ROWS_PER_PAGE = 1000;
+    private static final String PARTITION_VALUE = "7";
+
+    private static final HiveColumnHandle COLUMN_A = new HiveColumnHandle("a", HIVE_LONG, BIGINT.getTypeSignature(), 0, REGULAR, Optional.empty());
+    private static final HiveColumnHandle COLUMN_B = new HiveColumnHandle("b", HIVE_LONG, BIGINT.getTypeSignature(), 1, REGULAR, Optional.empty());
+    private static final HiveColumnHandle COLUMN_C = new HiveColumnHandle("c", HIVE_STRING, VARCHAR.getTypeSignature(), 2, REGULAR, Optional.empty());
+    private static final HiveColumnHandle COLUMN_P = new HiveColumnHandle("p", HIVE_LONG, BIGINT.getTypeSignature(), MAX_PARTITION_KEY_COLUMN_INDEX, PARTITION_KEY, Optional.empty());
+    private static final List<HiveColumnHandle> COLUMNS = ImmutableList.of(COLUMN_A, COLUMN_B, COLUMN_C, COLUMN_P);
+
+    private File temporaryDirectory;
+    private File file;
+
+    @BeforeClass
+    public void setUp()
+            throws IOException
+    {
+        temporaryDirectory = createTempDir();
+        file = new File(temporaryDirectory, "data.parquet");
+        ParquetWriterOptions options = ParquetWriterOptions.builder()
+                .setMaxPageSize(DataSize.succinctBytes(1000))
+                .build();
+        try (ParquetWriter writer = new ParquetWriter(new FileOutputStream(file), ImmutableList.of("a", "b", "c"), ImmutableList.of(BIGINT, BIGINT, VARCHAR), options, null)) {
+            for (int start = 0; start < ROW_COUNT; start += ROWS_PER_PAGE) {
+                BlockBuilder a = BIGINT.createBlockBuilder(null, ROWS_PER_PAGE);
+                BlockBuilder b = BIGINT.createBlockBuilder(null, ROWS_PER_PAGE);
+                BlockBuilder c = VARCHAR.createBlockBuilder(null, ROWS_PER_PAGE);
+                for (int row = start; row < start + ROWS_PER_PAGE; row++) {
+                    BIGINT.writeLong(a, row);
+                    if (isBNull(row)) {
+                        b.appendNull();
+                    }
+                    else {
+                        BIGINT.writeLong(b, b(row));
+                    }
+                    if (isCNull(row)) {
+                        c.appendNull();
+                    }
+                    else {
+                        VARCHAR.writeSlice(c, Slices.utf8Slice(c(row)));
+                    }
+                }
+                writer.write(new Page(a.build(), b.build(), c.build()));
+            }
+        }
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(temporaryDirectory.toPath(), ALLOW_INSECURE);
+    }
+
+    @DataProvider
+    public static Object[][] batchReadsEnabled()
+    {
+        return new Object[][] {{true}, {false}};
+    }
+
+    @Test(dataProvider = "batchReadsEnabled")
+    public void testNoFilter(boolean batchReadsEnabled)
+            throws IOException
+    {
+        assertRows(batchReadsEnabled, TupleDomain.all(), TRUE_CONSTANT, row -> true);
+    }
+
+    @Test(dataProvider = "batchReadsEnabled")
+    public void testDomainFilters(boolean batchReadsEnabled)
+            throws IOException
+    {
+        assertRows(
+                batchReadsEnabled,
+                TupleDomain.withColumnDomains(ImmutableMap.of(
+                        new Subfield("a"), Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 1500L, true, 17_250L, false)), false),
+                        new Subfield("b"), Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 100L, true, 300L, true)), false))),
+                TRUE_CONSTANT,
+                row -> row >= 1500 && row < 17_250 && !isBNull(row) && b(row) >= 100 && b(row) <= 300);
+    }
+
+    @Test(dataProvider = "batchReadsEnabled")
+    public void testNullFilter(boolean batchReadsEnabled)
+            throws IOException
+    {
+        assertRows(
+                batchReadsEnabled,
+                TupleDomain.withColumnDomains(ImmutableMap.of(new Subfield("b"), Domain.onlyNull(BIGINT))),
+                TRUE_CONSTANT,
+                TestParquetSelectivePageSource::isBNull);
+    }
+
+    @Test(dataProvider = "batchReadsEnabled")
+    public void testFilterFunction(boolean batchReadsEnabled)
+            throws IOException
+    {
+        // b > a
+        RowExpression filter = call(
+                GREATER_THAN.name(),
+                FUNCTION_RESOLUTION.comparisonFunction(GREATER_THAN, BIGINT, BIGINT),
+                BOOLEAN,
+                new VariableReferenceExpression("b", BIGINT),
+                new VariableReferenceExpression("a", BIGINT));
+        assertRows(
+                batchReadsEnabled,
+                TupleDomain.withColumnDomains(ImmutableMap.of(new Subfield("a"), Domain.create(ValueSet.ofRanges(Range.greaterThanOrEqual(BIGINT, 250L)), false))),
+                filter,
+                row -> row >= 250 && !isBNull(row) && b(row) > row);
+    }
+
+    @Test(dataProvider = "batchReadsEnabled")
+    public void testNoRowPasses(boolean batchReadsEnabled)
+            throws IOException
+    {
+        assertRows(
+                batchReadsEnabled,
+                TupleDomain.withColumnDomains(ImmutableMap.of(
+                        new Subfield("a"), Domain.create(ValueSet.ofRanges(Range.lessThan(BIGINT, 5000L)), false),
+                        new Subfield("b"), Domain.singleValue(BIGINT, 1000L))),
+                TRUE_CONSTANT,
+                row -> false);
+    }
+
+    private void assertRows(boolean batchReadsEnabled, TupleDomain<Subfield> domainPredicate, RowExpression remainingPredicate, IntPredicate expected)
+            throws IOException
+    {
+        List<Integer> expectedRows = new ArrayList<>();
+        for (int row = 0; row < ROW_COUNT; row++) {
+            if (expected.test(row)) {
+                expectedRows.add(row);
+            }
+        }
+
+        int rowIndex = 0;
+        try (ConnectorPageSource pageSource = createPageSource(batchReadsEnabled, domainPredicate, remainingPredicate)) {
+            assertTrue(pageSource instanceof ParquetSelectivePageSource);
+            while (!pageSource.isFinished()) {
+                Page page = pageSource.getNextPage();
+                if (page == null || page.getPositionCount() == 0) {
+                    continue;
+                }
+                assertEquals(page.getChannelCount(), 4);
+                Block a = page.getBlock(0).getLoadedBlock();
+                Block b = page.getBlock(1).getLoadedBlock();
+                Block c = page.getBlock(2).getLoadedBlock();
+                Block p = page.getBlock(3).getLoadedBlock();
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    assertTrue(rowIndex < expectedRows.size(), "more rows than expected");
+                    int row = expectedRows.get(rowIndex);
+                    assertEquals(BIGINT.getLong(a, position), row);
+                    if (isBNull(row)) {
+                        assertTrue(b.isNull(position));
+                    }
+                    else {
+                        assertFalse(b.isNull(position));
+                        assertEquals(BIGINT.getLong(b, position), b(row));
+                    }
+                    if (isCNull(row)) {
+                        assertTrue(c.isNull(position));
+                    }
+                    else {
+                        assertFalse(c.isNull(position));
+                        assertEquals(VARCHAR.getSlice(c, position).toStringUtf8(), c(row));
+                    }
+                    assertEquals(BIGINT.getLong(p, position), Long.parseLong(PARTITION_VALUE));
+                    rowIndex++;
+                }
+            }
+        }
+        assertEquals(rowIndex, expectedRows.size());
+    }
+
+    private ConnectorPageSource createPageSource(boolean batchReadsEnabled, TupleDomain<Subfield> domainPredicate, RowExpression remainingPredicate)
+    {
+        HiveClientConfig config = new HiveClientConfig()
+                .setParquetSelectiveReaderEnabled(true)
+                .setParquetBatchReadOptimizationEnabled(batchReadsEnabled);
+        ConnectorSession session = new TestingConnectorSession(new HiveSessionProperties(config, new OrcFileWriterConfig(), new ParquetFileWriterConfig()).getSessionProperties());
+        ParquetSelectivePageSourceFactory pageSourceFactory = new ParquetSelectivePageSourceFactory(TYPE_MANAGER, ROW_EXPRESSION_SERVICE, HDFS_ENVIRONMENT, new FileFormatDataSourceStats(), new TupleDomainFilterCache());
+
+        HiveStorageFormat format = HiveStorageFormat.PARQUET;
+        Map<Integer, String> prefilledValues = ImmutableMap.of(COLUMN_P.getHiveColumnIndex(), PARTITION_VALUE);
+        return pageSourceFactory.createPageSource(
+                new Configuration(),
+                session,
+                new Path(file.getAbsolutePath()),
+                0,
+                file.length(),
+                file.length(),
+                new Storage(
+                        StorageFormat.create(format.getSerDe(), format.getInputFormat(), format.getOutputFormat()),
+                        "location",
+                        Optional.empty(),
+                        false,
+                        ImmutableMap.of(),
+                        ImmutableMap.of()),
+                COLUMNS,
+                prefilledValues,
+                ImmutableMap.of(),
+                Optional.empty(),
+                COLUMNS.stream()
+                        .map(HiveColumnHandle::getHiveColumnIndex)
+                        .collect(toImmutableList()),
+                domainPredicate,
+                remainingPredicate,
+                DateTimeZone.UTC,
+                DEFAULT_HIVE_FILE_CONTEXT)
+                .get();
+    }
+
+    private static boolean isBNull(int row)
+    {
+        return row % 7 == 0;
+    }
+
+    private static long b(int row)
+    {
+        return (row * 37L) % 1000;
+    }
+
+    private static boolean isCNull(int row)
+    {
+        return row % 11 == 0;
+    }
+
+    private static String c(int row)
+    {
+        return "value" + row;
+    }
+}
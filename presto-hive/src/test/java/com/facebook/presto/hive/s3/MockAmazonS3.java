@@ -14,20 +14,39 @@
 package com.facebook.presto.hive.s3;
 
 import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.amazonaws.services.s3.model.StorageClass;
-
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.google.common.io.ByteStreams;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.net.HttpURLConnection.HTTP_OK;
 
@@ -43,6 +62,13 @@ public class MockAmazonS3
     private CannedAccessControlList acl;
     private boolean hasGlacierObjects;
 
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> multipartUploads = new ConcurrentHashMap<>();
+    private final Set<String> abortedUploads = new HashSet<>();
+    private final AtomicInteger uploadPartCalls = new AtomicInteger();
+    private final AtomicInteger maxPartNumber = new AtomicInteger();
+    private int uploadPartHttpCode = HTTP_OK;
+
     public void setGetObjectHttpErrorCode(int getObjectHttpErrorCode)
     {
         this.getObjectHttpCode = getObjectHttpErrorCode;
@@ -68,6 +94,31 @@ public class MockAmazonS3
         return getObjectMetadataRequest;
     }
 
+    public void setUploadPartHttpCode(int uploadPartHttpCode)
+    {
+        this.uploadPartHttpCode = uploadPartHttpCode;
+    }
+
+    public byte[] getUploadedObject(String key)
+    {
+        return objects.get(key);
+    }
+
+    public int getUploadPartCalls()
+    {
+        return uploadPartCalls.get();
+    }
+
+    public int getMaxPartNumber()
+    {
+        return maxPartNumber.get();
+    }
+
+    public synchronized Set<String> getAbortedUploads()
+    {
+        return new HashSet<>(abortedUploads);
+    }
+
     @Override
     public ObjectMetadata getObjectMetadata(GetObjectMetadataRequest getObjectMetadataRequest)
     {
@@ -95,9 +146,63 @@ public class MockAmazonS3
     public PutObjectResult putObject(PutObjectRequest putObjectRequest)
     {
         this.acl = putObjectRequest.getCannedAcl();
+        if (putObjectRequest.getInputStream() != null) {
+            objects.put(putObjectRequest.getKey(), readAll(putObjectRequest.getInputStream()));
+        }
         return new PutObjectResult();
     }
 
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request)
+    {
+        this.acl = request.getCannedACL();
+        String uploadId = "upload-" + multipartUploads.size();
+        multipartUploads.put(uploadId, new ConcurrentHashMap<>());
+        InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setUploadId(uploadId);
+        return result;
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request)
+    {
+        uploadPartCalls.incrementAndGet();
+        maxPartNumber.accumulateAndGet(request.getPartNumber(), Math::max);
+        if (uploadPartHttpCode != HTTP_OK) {
+            AmazonS3Exception exception = new AmazonS3Exception("Failing uploadPart call with " + uploadPartHttpCode);
+            exception.setStatusCode(uploadPartHttpCode);
+            throw exception;
+        }
+        byte[] data = readAll(request.getInputStream());
+        multipartUploads.get(request.getUploadId()).put(request.getPartNumber(), data);
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag("etag-" + request.getPartNumber());
+        return result;
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request)
+    {
+        Map<Integer, byte[]> parts = new HashMap<>(multipartUploads.remove(request.getUploadId()));
+        ByteArrayOutputStream object = new ByteArrayOutputStream();
+        for (PartETag partETag : request.getPartETags()) {
+            byte[] part = parts.get(partETag.getPartNumber());
+            object.write(part, 0, part.length);
+        }
+        objects.put(request.getKey(), object.toByteArray());
+        return new CompleteMultipartUploadResult();
+    }
+
+    @Override
+    public synchronized void abortMultipartUpload(AbortMultipartUploadRequest request)
+    {
+        multipartUploads.remove(request.getUploadId());
+        abortedUploads.add(request.getUploadId());
+    }
+
     @Override
     public PutObjectResult putObject(String bucketName, String key, String content)
     {
@@ -130,4 +235,14 @@ public class MockAmazonS3
     public void shutdown()
     {
     }
+
+    private static byte[] readAll(InputStream inputStream)
+    {
+        try {
+            return ByteStreams.toByteArray(inputStream);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
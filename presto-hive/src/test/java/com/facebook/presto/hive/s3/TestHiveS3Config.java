@@ -59,7 +59,12 @@ public class TestHiveS3Config
                 .setPinS3ClientToCurrentRegion(false)
                 .setS3UserAgentPrefix("")
                 .setS3AclType(PrestoS3AclType.PRIVATE)
-                .setSkipGlacierObjects(false));
+                .setSkipGlacierObjects(false)
+                .setS3StreamingUploadEnabled(false)
+                .setS3StreamingPartSize(new DataSize(16, Unit.MEGABYTE))
+                .setS3StreamingMaxBufferedParts(4)
+                .setS3StreamingUploadThreads(16)
+                .setS3StreamingMaxBufferSize(new DataSize(256, Unit.MEGABYTE)));
     }
 
     @Test
@@ -92,6 +97,11 @@ public class TestHiveS3Config
                 .put("hive.s3.user-agent-prefix", "user-agent-prefix")
                 .put("hive.s3.upload-acl-type", "PUBLIC_READ")
                 .put("hive.s3.skip-glacier-objects", "true")
+                .put("hive.s3.streaming.enabled", "true")
+                .put("hive.s3.streaming.part-size", "32MB")
+                .put("hive.s3.streaming.max-buffered-parts", "8")
+                .put("hive.s3.streaming.upload-threads", "4")
+                .put("hive.s3.streaming.max-buffer-size", "128MB")
                 .build();
 
         HiveS3Config expected = new HiveS3Config()
@@ -120,7 +130,12 @@ public class TestHiveS3Config
                 .setPinS3ClientToCurrentRegion(true)
                 .setS3UserAgentPrefix("user-agent-prefix")
                 .setS3AclType(PrestoS3AclType.PUBLIC_READ)
-                .setSkipGlacierObjects(true);
+                .setSkipGlacierObjects(true)
+                .setS3StreamingUploadEnabled(true)
+                .setS3StreamingPartSize(new DataSize(32, Unit.MEGABYTE))
+                .setS3StreamingMaxBufferedParts(8)
+                .setS3StreamingUploadThreads(4)
+                .setS3StreamingMaxBufferSize(new DataSize(128, Unit.MEGABYTE));
 
         assertFullMapping(properties, expected);
     }
@@ -71,6 +71,10 @@ import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_SECRET_KEY;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_SIGNER_TYPE;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_SKIP_GLACIER_OBJECTS;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_STAGING_DIRECTORY;
+import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_STREAMING_UPLOAD_ENABLED;
+import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_STREAMING_UPLOAD_MAX_BUFFERED_PARTS;
+import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_STREAMING_UPLOAD_MAX_BUFFER_SIZE;
+import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_STREAMING_UPLOAD_PART_SIZE;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_USER_AGENT_PREFIX;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_USER_AGENT_SUFFIX;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_USE_INSTANCE_CREDENTIALS;
@@ -80,10 +84,13 @@ import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
 import static java.net.HttpURLConnection.HTTP_FORBIDDEN;
 import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
 import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
+import static java.net.HttpURLConnection.HTTP_OK;
 import static java.nio.file.Files.createTempDirectory;
 import static java.nio.file.Files.createTempFile;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 public class TestPrestoS3FileSystem
 {
@@ -608,6 +615,156 @@ public class TestPrestoS3FileSystem
         }
     }
 
+    @Test
+    public void testStreamingUpload()
+            throws Exception
+    {
+        Configuration config = new Configuration();
+        config.setBoolean(S3_STREAMING_UPLOAD_ENABLED, true);
+        config.setLong(S3_STREAMING_UPLOAD_PART_SIZE, 10);
+        config.setInt(S3_STREAMING_UPLOAD_MAX_BUFFERED_PARTS, 2);
+
+        try (PrestoS3FileSystem fs = new PrestoS3FileSystem()) {
+            MockAmazonS3 s3 = new MockAmazonS3();
+            fs.initialize(new URI("s3n://test-bucket/"), config);
+            fs.setS3Client(s3);
+            byte[] data = new byte[95];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) i;
+            }
+            try (FSDataOutputStream stream = fs.create(new Path("s3n://test-bucket/test"))) {
+                stream.write(data, 0, 42);
+                stream.write(data[42]);
+                stream.write(data, 43, data.length - 43);
+            }
+            assertEquals(s3.getUploadPartCalls(), 10);
+            assertEquals(s3.getUploadedObject("test"), data);
+            assertEquals(s3.getAcl(), CannedAccessControlList.Private);
+        }
+    }
+
+    @Test
+    public void testStreamingUploadOfSinglePart()
+            throws Exception
+    {
+        Configuration config = new Configuration();
+        config.setBoolean(S3_STREAMING_UPLOAD_ENABLED, true);
+        config.setLong(S3_STREAMING_UPLOAD_PART_SIZE, 10);
+
+        try (PrestoS3FileSystem fs = new PrestoS3FileSystem()) {
+            MockAmazonS3 s3 = new MockAmazonS3();
+            fs.initialize(new URI("s3n://test-bucket/"), config);
+            fs.setS3Client(s3);
+            try (FSDataOutputStream stream = fs.create(new Path("s3n://test-bucket/test"))) {
+                stream.write(new byte[] {1, 2, 3});
+            }
+            // data that fits in a part is uploaded with a single request
+            assertEquals(s3.getUploadPartCalls(), 0);
+            assertEquals(s3.getUploadedObject("test"), new byte[] {1, 2, 3});
+        }
+    }
+
+    @Test
+    public void testStreamingUploadFailure()
+            throws Exception
+    {
+        Configuration config = new Configuration();
+        config.setBoolean(S3_STREAMING_UPLOAD_ENABLED, true);
+        config.setLong(S3_STREAMING_UPLOAD_PART_SIZE, 10);
+        config.setInt(S3_STREAMING_UPLOAD_MAX_BUFFERED_PARTS, 1);
+
+        try (PrestoS3FileSystem fs = new PrestoS3FileSystem()) {
+            MockAmazonS3 s3 = new MockAmazonS3();
+            s3.setUploadPartHttpCode(HTTP_INTERNAL_ERROR);
+            fs.initialize(new URI("s3n://test-bucket/"), config);
+            fs.setS3Client(s3);
+            long failedUploads = PrestoS3FileSystem.getFileSystemStats().getFailedUploads().getTotalCount();
+            try (FSDataOutputStream stream = fs.create(new Path("s3n://test-bucket/test"))) {
+                // the second part waits for the failed upload of the first one
+                stream.write(new byte[25]);
+                fail("expected exception");
+            }
+            catch (IOException expected) {
+            }
+            assertEquals(s3.getAbortedUploads().size(), 1);
+            assertNull(s3.getUploadedObject("test"));
+            assertEquals(PrestoS3FileSystem.getFileSystemStats().getFailedUploads().getTotalCount(), failedUploads + 1);
+        }
+    }
+
+    @Test
+    public void testStreamingUploadPartLimit()
+            throws Exception
+    {
+        Configuration config = new Configuration();
+        config.setBoolean(S3_STREAMING_UPLOAD_ENABLED, true);
+        config.setLong(S3_STREAMING_UPLOAD_PART_SIZE, 1);
+
+        try (PrestoS3FileSystem fs = new PrestoS3FileSystem()) {
+            MockAmazonS3 s3 = new MockAmazonS3();
+            fs.initialize(new URI("s3n://test-bucket/"), config);
+            fs.setS3Client(s3);
+            try (FSDataOutputStream stream = fs.create(new Path("s3n://test-bucket/test"))) {
+                stream.write(new byte[10_000]);
+                // the byte after the last part S3 accepts fails before it is buffered
+                stream.write(1);
+                fail("expected exception");
+            }
+            catch (IOException expected) {
+                assertTrue(expected.getMessage().contains("exceeds the S3 limit of 10000 parts"), expected.getMessage());
+            }
+            // the abort cancels the parts that have not started uploading yet, so fewer parts than written may reach S3
+            assertTrue(s3.getUploadPartCalls() > 0);
+            assertTrue(s3.getMaxPartNumber() <= 10_000, "part number beyond the S3 limit");
+            assertEquals(s3.getAbortedUploads().size(), 1);
+            assertNull(s3.getUploadedObject("test"));
+        }
+    }
+
+    @Test
+    public void testStreamingUploadBufferLimit()
+            throws Exception
+    {
+        Configuration config = new Configuration();
+        config.setBoolean(S3_STREAMING_UPLOAD_ENABLED, true);
+        config.setLong(S3_STREAMING_UPLOAD_PART_SIZE, 10);
+        config.setInt(S3_STREAMING_UPLOAD_MAX_BUFFERED_PARTS, 4);
+        // a single part of all the streams of the file system can wait for or be in upload
+        config.setLong(S3_STREAMING_UPLOAD_MAX_BUFFER_SIZE, 10);
+
+        try (PrestoS3FileSystem fs = new PrestoS3FileSystem()) {
+            MockAmazonS3 s3 = new MockAmazonS3();
+            s3.setUploadPartHttpCode(HTTP_INTERNAL_ERROR);
+            fs.initialize(new URI("s3n://test-bucket/"), config);
+            fs.setS3Client(s3);
+            try {
+                // the failure surfaces on write or on close, depending on when the failed part completes
+                try (FSDataOutputStream stream = fs.create(new Path("s3n://test-bucket/failed"))) {
+                    stream.write(new byte[25]);
+                }
+                fail("expected exception");
+            }
+            catch (IOException expected) {
+            }
+
+            // the failed upload gave back its buffer
+            s3.setUploadPartHttpCode(HTTP_OK);
+            byte[] data = new byte[95];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) i;
+            }
+            try (FSDataOutputStream first = fs.create(new Path("s3n://test-bucket/first"));
+                    FSDataOutputStream second = fs.create(new Path("s3n://test-bucket/second"))) {
+                for (int offset = 0; offset < data.length; offset += 5) {
+                    first.write(data, offset, 5);
+                    second.write(data, offset, 5);
+                }
+            }
+            assertEquals(s3.getUploadedObject("first"), data);
+            assertEquals(s3.getUploadedObject("second"), data);
+        }
+    }
+
     @Test
     public void testEmptyDirectory()
             throws Exception
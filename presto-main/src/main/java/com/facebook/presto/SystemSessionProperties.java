@@ -16,6 +16,7 @@ package com.facebook.presto;
 import com.facebook.presto.execution.QueryManagerConfig;
 import com.facebook.presto.execution.QueryManagerConfig.ExchangeMaterializationStrategy;
 import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.execution.buffer.PageCompressionCodec;
 import com.facebook.presto.execution.warnings.WarningCollectorConfig;
 import com.facebook.presto.execution.warnings.WarningHandlingLevel;
 import com.facebook.presto.memory.MemoryManagerConfig;
@@ -41,6 +42,7 @@ import java.util.stream.Stream;
 
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
 import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.spi.StandardErrorCode.INVALID_SESSION_PROPERTY;
@@ -112,12 +114,21 @@ public final class SystemSessionProperties
     public static final String QUERY_PRIORITY = "query_priority";
     public static final String SPILL_ENABLED = "spill_enabled";
     public static final String AGGREGATION_OPERATOR_UNSPILL_MEMORY_LIMIT = "aggregation_operator_unspill_memory_limit";
+    public static final String SPILL_WINDOW_OPERATOR = "spill_window_operator";
+    public static final String SPILL_ORDER_BY = "spill_order_by";
+    public static final String SPILL_TOPN_ROW_NUMBER = "spill_topn_row_number";
     public static final String OPTIMIZE_DISTINCT_AGGREGATIONS = "optimize_mixed_distinct_aggregations";
     public static final String LEGACY_ROW_FIELD_ORDINAL_ACCESS = "legacy_row_field_ordinal_access";
     public static final String LEGACY_MAP_SUBSCRIPT = "do_not_use_legacy_map_subscript";
     public static final String ITERATIVE_OPTIMIZER = "iterative_optimizer_enabled";
     public static final String ITERATIVE_OPTIMIZER_TIMEOUT = "iterative_optimizer_timeout";
     public static final String EXCHANGE_COMPRESSION = "exchange_compression";
+    public static final String EXCHANGE_COMPRESSION_CODEC = "exchange_compression_codec";
+    public static final String EXCHANGE_COMPRESSION_ZSTD_LEVEL = "exchange_compression_zstd_level";
+    public static final String EXCHANGE_ADAPTIVE_COMPRESSION = "exchange_adaptive_compression";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION = "adaptive_partial_aggregation";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS = "adaptive_partial_aggregation_min_rows";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION_REDUCTION_RATIO_THRESHOLD = "adaptive_partial_aggregation_reduction_ratio_threshold";
     public static final String LEGACY_TIMESTAMP = "legacy_timestamp";
     public static final String ENABLE_INTERMEDIATE_AGGREGATIONS = "enable_intermediate_aggregations";
     public static final String PUSH_AGGREGATION_THROUGH_JOIN = "push_aggregation_through_join";
@@ -153,6 +164,12 @@ public final class SystemSessionProperties
     public static final String USE_LEGACY_SCHEDULER = "use_legacy_scheduler";
     public static final String OPTIMIZE_COMMON_SUB_EXPRESSIONS = "optimize_common_sub_expressions";
     public static final String PREFER_DISTRIBUTED_UNION = "prefer_distributed_union";
+    public static final String ENABLE_DYNAMIC_FILTERING = "enable_dynamic_filtering";
+    public static final String DYNAMIC_FILTERING_MAX_DISTINCT_VALUES = "dynamic_filtering_max_distinct_values";
+    public static final String JOIN_HASH_BUILD_CONCURRENCY = "join_hash_build_concurrency";
+    public static final String QUERY_RESULT_CACHE_ENABLED = "query_result_cache_enabled";
+    public static final String FRAGMENT_RESULT_CACHE_ENABLED = "fragment_result_cache_enabled";
+    public static final String SKEWED_JOIN_SPREAD_FACTOR = "skewed_join_spread_factor";
     public static final String WARNING_HANDLING = "warning_handling";
 
     private final List<PropertyMetadata<?>> sessionProperties;
@@ -538,6 +555,21 @@ public final class SystemSessionProperties
                         false,
                         value -> DataSize.valueOf((String) value),
                         DataSize::toString),
+                booleanProperty(
+                        SPILL_WINDOW_OPERATOR,
+                        "Experimental: Spill window operator if spill is enabled",
+                        featuresConfig.isSpillWindowOperator(),
+                        false),
+                booleanProperty(
+                        SPILL_ORDER_BY,
+                        "Experimental: Spill order by operator if spill is enabled",
+                        featuresConfig.isSpillOrderBy(),
+                        false),
+                booleanProperty(
+                        SPILL_TOPN_ROW_NUMBER,
+                        "Experimental: Spill top N row number operator if spill is enabled",
+                        featuresConfig.isSpillTopNRowNumber(),
+                        false),
                 booleanProperty(
                         OPTIMIZE_DISTINCT_AGGREGATIONS,
                         "Optimize mixed non-distinct and distinct aggregations",
@@ -572,6 +604,73 @@ public final class SystemSessionProperties
                         "Enable compression in exchanges",
                         featuresConfig.isExchangeCompressionEnabled(),
                         false),
+                new PropertyMetadata<>(
+                        EXCHANGE_COMPRESSION_CODEC,
+                        format("Codec used to compress exchange pages. Options are %s",
+                                Stream.of(PageCompressionCodec.values())
+                                        .map(PageCompressionCodec::name)
+                                        .collect(joining(","))),
+                        VARCHAR,
+                        PageCompressionCodec.class,
+                        featuresConfig.getExchangeCompressionCodec(),
+                        false,
+                        value -> PageCompressionCodec.valueOf(((String) value).toUpperCase()),
+                        PageCompressionCodec::name),
+                new PropertyMetadata<>(
+                        EXCHANGE_COMPRESSION_ZSTD_LEVEL,
+                        "Compression level used when exchange pages are compressed with ZSTD",
+                        INTEGER,
+                        Integer.class,
+                        featuresConfig.getExchangeCompressionZstdLevel(),
+                        false,
+                        value -> {
+                            int intValue = ((Number) requireNonNull(value, "value is null")).intValue();
+                            if (intValue < 1 || intValue > 22) {
+                                throw new PrestoException(INVALID_SESSION_PROPERTY, format("%s must be between 1 and 22: %s", EXCHANGE_COMPRESSION_ZSTD_LEVEL, intValue));
+                            }
+                            return intValue;
+                        },
+                        value -> value),
+                booleanProperty(
+                        EXCHANGE_ADAPTIVE_COMPRESSION,
+                        "Send exchange pages uncompressed without trying to compress them while the data does not compress well",
+                        featuresConfig.isExchangeAdaptiveCompressionEnabled(),
+                        false),
+                booleanProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION,
+                        "Stop aggregating in partial aggregations that do not reduce the number of rows enough",
+                        featuresConfig.isAdaptivePartialAggregationEnabled(),
+                        false),
+                new PropertyMetadata<>(
+                        ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS,
+                        "Minimum number of input rows a partial aggregation must process before it can be disabled",
+                        BIGINT,
+                        Long.class,
+                        featuresConfig.getAdaptivePartialAggregationMinRows(),
+                        false,
+                        value -> {
+                            long longValue = ((Number) requireNonNull(value, "value is null")).longValue();
+                            if (longValue < 1) {
+                                throw new PrestoException(INVALID_SESSION_PROPERTY, format("%s must be positive: %s", ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS, longValue));
+                            }
+                            return longValue;
+                        },
+                        value -> value),
+                new PropertyMetadata<>(
+                        ADAPTIVE_PARTIAL_AGGREGATION_REDUCTION_RATIO_THRESHOLD,
+                        "Partial aggregation is disabled when the fraction of input rows it eliminates is below this threshold",
+                        DOUBLE,
+                        Double.class,
+                        featuresConfig.getAdaptivePartialAggregationReductionRatioThreshold(),
+                        false,
+                        value -> {
+                            double doubleValue = ((Number) requireNonNull(value, "value is null")).doubleValue();
+                            if (doubleValue < 0.0 || doubleValue > 1.0) {
+                                throw new PrestoException(INVALID_SESSION_PROPERTY, format("%s must be between 0.0 and 1.0: %s", ADAPTIVE_PARTIAL_AGGREGATION_REDUCTION_RATIO_THRESHOLD, doubleValue));
+                            }
+                            return doubleValue;
+                        },
+                        value -> value),
                 booleanProperty(
                         LEGACY_TIMESTAMP,
                         "Use legacy TIME & TIMESTAMP semantics (warning: this will be removed)",
@@ -773,6 +872,44 @@ public final class SystemSessionProperties
                         "Prefer distributed union",
                         featuresConfig.isPreferDistributedUnion(),
                         true),
+                booleanProperty(
+                        ENABLE_DYNAMIC_FILTERING,
+                        "Filter probe side table scans of broadcast joins with the keys collected from the build side",
+                        featuresConfig.isEnableDynamicFiltering(),
+                        false),
+                integerProperty(
+                        DYNAMIC_FILTERING_MAX_DISTINCT_VALUES,
+                        "Maximum number of distinct build side values per join key tracked by a dynamic filter",
+                        featuresConfig.getDynamicFilteringMaxDistinctValues(),
+                        false),
+                new PropertyMetadata<>(
+                        JOIN_HASH_BUILD_CONCURRENCY,
+                        "Number of threads used to build the hash table of a single join lookup source",
+                        INTEGER,
+                        Integer.class,
+                        featuresConfig.getJoinHashBuildConcurrency(),
+                        false,
+                        value -> validateIntegerValue(value, JOIN_HASH_BUILD_CONCURRENCY, 1, false),
+                        object -> object),
+                booleanProperty(
+                        QUERY_RESULT_CACHE_ENABLED,
+                        "Serve the results of repeated deterministic queries from the coordinator result cache",
+                        featuresConfig.isQueryResultCacheEnabled(),
+                        false),
+                booleanProperty(
+                        FRAGMENT_RESULT_CACHE_ENABLED,
+                        "Reuse the cached output of leaf plan fragments for splits that were processed before",
+                        featuresConfig.isFragmentResultCacheEnabled(),
+                        false),
+                new PropertyMetadata<>(
+                        SKEWED_JOIN_SPREAD_FACTOR,
+                        "Number of partitions the probe rows of a skewed partition of a partitioned join are spread across, or 1 to disable",
+                        INTEGER,
+                        Integer.class,
+                        featuresConfig.getSkewedJoinSpreadFactor(),
+                        false,
+                        value -> validateIntegerValue(value, SKEWED_JOIN_SPREAD_FACTOR, 1, false),
+                        object -> object),
                 new PropertyMetadata<>(
                         WARNING_HANDLING,
                         format("The level of warning handling. Levels are %s",
@@ -1073,6 +1210,21 @@ public final class SystemSessionProperties
         return memoryLimitForMerge;
     }
 
+    public static boolean isSpillWindowOperator(Session session)
+    {
+        return session.getSystemProperty(SPILL_WINDOW_OPERATOR, Boolean.class);
+    }
+
+    public static boolean isSpillOrderBy(Session session)
+    {
+        return session.getSystemProperty(SPILL_ORDER_BY, Boolean.class);
+    }
+
+    public static boolean isSpillTopNRowNumber(Session session)
+    {
+        return session.getSystemProperty(SPILL_TOPN_ROW_NUMBER, Boolean.class);
+    }
+
     public static boolean isOptimizeDistinctAggregationEnabled(Session session)
     {
         return session.getSystemProperty(OPTIMIZE_DISTINCT_AGGREGATIONS, Boolean.class);
@@ -1109,6 +1261,36 @@ public final class SystemSessionProperties
         return session.getSystemProperty(EXCHANGE_COMPRESSION, Boolean.class);
     }
 
+    public static PageCompressionCodec getExchangeCompressionCodec(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_COMPRESSION_CODEC, PageCompressionCodec.class);
+    }
+
+    public static int getExchangeCompressionZstdLevel(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_COMPRESSION_ZSTD_LEVEL, Integer.class);
+    }
+
+    public static boolean isExchangeAdaptiveCompressionEnabled(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_ADAPTIVE_COMPRESSION, Boolean.class);
+    }
+
+    public static boolean isAdaptivePartialAggregationEnabled(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION, Boolean.class);
+    }
+
+    public static long getAdaptivePartialAggregationMinRows(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS, Long.class);
+    }
+
+    public static double getAdaptivePartialAggregationReductionRatioThreshold(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_REDUCTION_RATIO_THRESHOLD, Double.class);
+    }
+
     public static boolean isEnableIntermediateAggregations(Session session)
     {
         return session.getSystemProperty(ENABLE_INTERMEDIATE_AGGREGATIONS, Boolean.class);
@@ -1325,4 +1507,34 @@ public final class SystemSessionProperties
     {
         return session.getSystemProperty(WARNING_HANDLING, WarningHandlingLevel.class);
     }
+
+    public static boolean isEnableDynamicFiltering(Session session)
+    {
+        return session.getSystemProperty(ENABLE_DYNAMIC_FILTERING, Boolean.class);
+    }
+
+    public static int getDynamicFilteringMaxDistinctValues(Session session)
+    {
+        return session.getSystemProperty(DYNAMIC_FILTERING_MAX_DISTINCT_VALUES, Integer.class);
+    }
+
+    public static int getJoinHashBuildConcurrency(Session session)
+    {
+        return session.getSystemProperty(JOIN_HASH_BUILD_CONCURRENCY, Integer.class);
+    }
+
+    public static boolean isQueryResultCacheEnabled(Session session)
+    {
+        return session.getSystemProperty(QUERY_RESULT_CACHE_ENABLED, Boolean.class);
+    }
+
+    public static boolean isFragmentResultCacheEnabled(Session session)
+    {
+        return session.getSystemProperty(FRAGMENT_RESULT_CACHE_ENABLED, Boolean.class);
+    }
+
+    public static int getSkewedJoinSpreadFactor(Session session)
+    {
+        return session.getSystemProperty(SKEWED_JOIN_SPREAD_FACTOR, Integer.class);
+    }
 }
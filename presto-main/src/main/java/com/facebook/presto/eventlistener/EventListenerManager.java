@@ -17,6 +17,7 @@ import com.facebook.airlift.log.Logger;
 import com.facebook.presto.spi.classloader.ThreadContextClassLoader;
 import com.facebook.presto.spi.eventlistener.EventListener;
 import com.facebook.presto.spi.eventlistener.EventListenerFactory;
+import com.facebook.presto.spi.eventlistener.LowMemoryKillerEvent;
 import com.facebook.presto.spi.eventlistener.QueryCompletedEvent;
 import com.facebook.presto.spi.eventlistener.QueryCreatedEvent;
 import com.facebook.presto.spi.eventlistener.SplitCompletedEvent;
@@ -108,4 +109,11 @@ public class EventListenerManager
             configuredEventListener.get().get().splitCompleted(splitCompletedEvent);
         }
     }
+
+    public void lowMemoryKillerActed(LowMemoryKillerEvent lowMemoryKillerEvent)
+    {
+        if (configuredEventListener.get().isPresent()) {
+            configuredEventListener.get().get().lowMemoryKillerActed(lowMemoryKillerEvent);
+        }
+    }
 }
@@ -172,6 +172,23 @@ public class MemoryRevokingScheduler
         }
     }
 
+    /**
+     * Requests revoking all of the revocable memory of the memory pools that have no free memory left, and
+     * revoking the other pools down to the revoking target even if they are below the revoking threshold.
+     * The coordinator asks for this when the cluster is running low on memory, before it kills a query.
+     */
+    public void requestMemoryRevokingByCoordinator()
+    {
+        taskManagementExecutor.execute(() -> {
+            try {
+                runMemoryRevokingByCoordinator();
+            }
+            catch (Throwable e) {
+                log.error(e, "Error requesting memory revoking for the coordinator");
+            }
+        });
+    }
+
     private void scheduleRevoking()
     {
         taskManagementExecutor.execute(() -> {
@@ -202,6 +219,27 @@ public class MemoryRevokingScheduler
         }
     }
 
+    private synchronized void runMemoryRevokingByCoordinator()
+    {
+        Collection<SqlTask> sqlTasks = null;
+        for (MemoryPool memoryPool : memoryPools) {
+            if (memoryPool.getReservedRevocableBytes() == 0) {
+                continue;
+            }
+
+            if (sqlTasks == null) {
+                sqlTasks = requireNonNull(currentTasksSupplier.get());
+            }
+
+            if (memoryPool.getFreeBytes() > 0) {
+                requestMemoryRevoking(memoryPool, sqlTasks);
+                continue;
+            }
+            long remainingBytesToRevoke = memoryPool.getReservedRevocableBytes() - getMemoryAlreadyBeingRevoked(sqlTasks, memoryPool);
+            requestRevoking(memoryPool, sqlTasks, remainingBytesToRevoke);
+        }
+    }
+
     private void requestMemoryRevoking(MemoryPool memoryPool, Collection<SqlTask> sqlTasks)
     {
         long remainingBytesToRevoke = (long) (-memoryPool.getFreeBytes() + (memoryPool.getMaxBytes() * (1.0 - memoryRevokingTarget)));
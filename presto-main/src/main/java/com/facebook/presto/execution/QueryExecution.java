@@ -17,6 +17,8 @@ import com.facebook.presto.common.type.Type;
 import com.facebook.presto.execution.QueryPreparer.PreparedQuery;
 import com.facebook.presto.execution.QueryTracker.TrackedQuery;
 import com.facebook.presto.execution.StateMachine.StateChangeListener;
+import com.facebook.presto.execution.resultcache.CachedQueryResult;
+import com.facebook.presto.execution.resultcache.QueryResultCacheKey;
 import com.facebook.presto.execution.warnings.WarningCollector;
 import com.facebook.presto.memory.VersionedMemoryPoolId;
 import com.facebook.presto.server.BasicQueryInfo;
@@ -102,13 +104,28 @@ public interface QueryExecution
         private final List<Type> columnTypes;
         private final Map<URI, TaskId> bufferLocations;
         private final boolean noMoreBufferLocations;
+        private final Optional<QueryResultCacheKey> resultCacheKey;
+        private final Optional<CachedQueryResult> cachedResult;
 
         public QueryOutputInfo(List<String> columnNames, List<Type> columnTypes, Map<URI, TaskId> bufferLocations, boolean noMoreBufferLocations)
+        {
+            this(columnNames, columnTypes, bufferLocations, noMoreBufferLocations, Optional.empty(), Optional.empty());
+        }
+
+        public QueryOutputInfo(
+                List<String> columnNames,
+                List<Type> columnTypes,
+                Map<URI, TaskId> bufferLocations,
+                boolean noMoreBufferLocations,
+                Optional<QueryResultCacheKey> resultCacheKey,
+                Optional<CachedQueryResult> cachedResult)
         {
             this.columnNames = ImmutableList.copyOf(requireNonNull(columnNames, "columnNames is null"));
             this.columnTypes = ImmutableList.copyOf(requireNonNull(columnTypes, "columnTypes is null"));
             this.bufferLocations = ImmutableMap.copyOf(requireNonNull(bufferLocations, "bufferLocations is null"));
             this.noMoreBufferLocations = noMoreBufferLocations;
+            this.resultCacheKey = requireNonNull(resultCacheKey, "resultCacheKey is null");
+            this.cachedResult = requireNonNull(cachedResult, "cachedResult is null");
         }
 
         public List<String> getColumnNames()
@@ -130,5 +147,21 @@ public interface QueryExecution
         {
             return noMoreBufferLocations;
         }
+
+        /**
+         * Key the output of the query should be stored under in the result cache, if the query is cacheable.
+         */
+        public Optional<QueryResultCacheKey> getResultCacheKey()
+        {
+            return resultCacheKey;
+        }
+
+        /**
+         * Output of the query if it is served from the result cache instead of the output buffers.
+         */
+        public Optional<CachedQueryResult> getCachedResult()
+        {
+            return cachedResult;
+        }
     }
 }
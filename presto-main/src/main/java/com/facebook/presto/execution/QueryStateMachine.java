@@ -18,6 +18,8 @@ import com.facebook.presto.Session;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.execution.QueryExecution.QueryOutputInfo;
 import com.facebook.presto.execution.StateMachine.StateChangeListener;
+import com.facebook.presto.execution.resultcache.CachedQueryResult;
+import com.facebook.presto.execution.resultcache.QueryResultCacheKey;
 import com.facebook.presto.execution.warnings.WarningCollector;
 import com.facebook.presto.memory.VersionedMemoryPoolId;
 import com.facebook.presto.metadata.Metadata;
@@ -67,6 +69,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 
 import static com.facebook.presto.execution.BasicStageExecutionStats.EMPTY_STAGE_STATS;
@@ -143,6 +146,11 @@ public class QueryStateMachine
 
     private final AtomicReference<String> updateType = new AtomicReference<>();
 
+    private final AtomicLong resultCacheHits = new AtomicLong();
+    private final AtomicLong resultCacheMisses = new AtomicLong();
+    private final AtomicLong resultCacheSavedBytes = new AtomicLong();
+    private final AtomicReference<LongSupplier> resultCacheEvictions = new AtomicReference<>(() -> 0);
+
     private final AtomicReference<ExecutionFailureInfo> failureCause = new AtomicReference<>();
 
     private final AtomicReference<Set<Input>> inputs = new AtomicReference<>(ImmutableSet.of());
@@ -490,6 +498,9 @@ public class QueryStateMachine
 
         long writtenIntermediatePhysicalDataSize = 0;
 
+        long fragmentResultCacheHits = 0;
+        long fragmentResultCacheMisses = 0;
+
         ImmutableList.Builder<StageGcStatistics> stageGcStatistics = ImmutableList.builder();
 
         boolean fullyBlocked = rootStage.isPresent();
@@ -523,6 +534,9 @@ public class QueryStateMachine
 
             totalAllocation += stageExecutionStats.getTotalAllocation().toBytes();
 
+            fragmentResultCacheHits += stageExecutionStats.getFragmentResultCacheHits();
+            fragmentResultCacheMisses += stageExecutionStats.getFragmentResultCacheMisses();
+
             if (stageInfo.getPlan().isPresent()) {
                 PlanFragment plan = stageInfo.getPlan().get();
                 if (!plan.getTableScanSchedulingOrder().isEmpty()) {
@@ -621,6 +635,13 @@ public class QueryStateMachine
 
                 succinctBytes(writtenIntermediatePhysicalDataSize),
 
+                resultCacheHits.get(),
+                resultCacheMisses.get(),
+                resultCacheEvictions.get().getAsLong(),
+                succinctBytes(resultCacheSavedBytes.get()),
+                fragmentResultCacheHits,
+                fragmentResultCacheMisses,
+
                 stageGcStatistics.build(),
 
                 operatorStatsSummary.build());
@@ -660,6 +681,27 @@ public class QueryStateMachine
         outputManager.updateOutputLocations(newExchangeLocations, noMoreExchangeLocations);
     }
 
+    public void setResultCacheKey(QueryResultCacheKey resultCacheKey)
+    {
+        outputManager.setResultCacheKey(resultCacheKey);
+        resultCacheMisses.set(1);
+    }
+
+    public void setCachedResult(CachedQueryResult cachedResult)
+    {
+        outputManager.setCachedResult(cachedResult);
+        resultCacheHits.set(1);
+        resultCacheSavedBytes.set(cachedResult.getSizeInBytes());
+    }
+
+    /**
+     * Sets the number of results evicted from the result cache since the query looked up its result.
+     */
+    public void setResultCacheEvictions(LongSupplier evictions)
+    {
+        resultCacheEvictions.set(requireNonNull(evictions, "evictions is null"));
+    }
+
     public void setInputs(List<Input> inputs)
     {
         requireNonNull(inputs, "inputs is null");
@@ -1120,6 +1162,12 @@ public class QueryStateMachine
                 queryStats.getWrittenOutputLogicalDataSize(),
                 queryStats.getWrittenOutputPhysicalDataSize(),
                 queryStats.getWrittenIntermediatePhysicalDataSize(),
+                queryStats.getResultCacheHits(),
+                queryStats.getResultCacheMisses(),
+                queryStats.getResultCacheEvictions(),
+                queryStats.getResultCacheSavedDataSize(),
+                queryStats.getFragmentResultCacheHits(),
+                queryStats.getFragmentResultCacheMisses(),
                 queryStats.getStageGcStatistics(),
                 ImmutableList.of()); // Remove the operator summaries as OperatorInfo (especially ExchangeClientStatus) can hold onto a large amount of memory
     }
@@ -1139,6 +1187,10 @@ public class QueryStateMachine
         private final Map<URI, TaskId> exchangeLocations = new LinkedHashMap<>();
         @GuardedBy("this")
         private boolean noMoreExchangeLocations;
+        @GuardedBy("this")
+        private Optional<QueryResultCacheKey> resultCacheKey = Optional.empty();
+        @GuardedBy("this")
+        private Optional<CachedQueryResult> cachedResult = Optional.empty();
 
         public QueryOutputManager(Executor executor)
         {
@@ -1157,6 +1209,20 @@ public class QueryStateMachine
             queryOutputInfo.ifPresent(info -> executor.execute(() -> listener.accept(info)));
         }
 
+        public synchronized void setResultCacheKey(QueryResultCacheKey resultCacheKey)
+        {
+            requireNonNull(resultCacheKey, "resultCacheKey is null");
+            checkState(columnNames == null, "result cache key must be set before the output fields");
+            this.resultCacheKey = Optional.of(resultCacheKey);
+        }
+
+        public synchronized void setCachedResult(CachedQueryResult cachedResult)
+        {
+            requireNonNull(cachedResult, "cachedResult is null");
+            checkState(columnNames == null, "cached result must be set before the output fields");
+            this.cachedResult = Optional.of(cachedResult);
+        }
+
         public void setColumns(List<String> columnNames, List<Type> columnTypes)
         {
             requireNonNull(columnNames, "columnNames is null");
@@ -1201,7 +1267,7 @@ public class QueryStateMachine
             if (columnNames == null || columnTypes == null) {
                 return Optional.empty();
             }
-            return Optional.of(new QueryOutputInfo(columnNames, columnTypes, exchangeLocations, noMoreExchangeLocations));
+            return Optional.of(new QueryOutputInfo(columnNames, columnTypes, exchangeLocations, noMoreExchangeLocations, resultCacheKey, cachedResult));
         }
 
         private void fireStateChanged(QueryOutputInfo queryOutputInfo, List<Consumer<QueryOutputInfo>> outputInfoListeners)
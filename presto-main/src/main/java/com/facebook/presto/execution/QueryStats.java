@@ -98,6 +98,13 @@ public class QueryStats
 
     private final DataSize writtenIntermediatePhysicalDataSize;
 
+    private final long resultCacheHits;
+    private final long resultCacheMisses;
+    private final long resultCacheEvictions;
+    private final DataSize resultCacheSavedDataSize;
+    private final long fragmentResultCacheHits;
+    private final long fragmentResultCacheMisses;
+
     private final List<StageGcStatistics> stageGcStatistics;
 
     private final List<OperatorStats> operatorSummaries;
@@ -162,6 +169,13 @@ public class QueryStats
 
             @JsonProperty("writtenIntermediatePhysicalDataSize") DataSize writtenIntermediatePhysicalDataSize,
 
+            @JsonProperty("resultCacheHits") long resultCacheHits,
+            @JsonProperty("resultCacheMisses") long resultCacheMisses,
+            @JsonProperty("resultCacheEvictions") long resultCacheEvictions,
+            @JsonProperty("resultCacheSavedDataSize") DataSize resultCacheSavedDataSize,
+            @JsonProperty("fragmentResultCacheHits") long fragmentResultCacheHits,
+            @JsonProperty("fragmentResultCacheMisses") long fragmentResultCacheMisses,
+
             @JsonProperty("stageGcStatistics") List<StageGcStatistics> stageGcStatistics,
 
             @JsonProperty("operatorSummaries") List<OperatorStats> operatorSummaries)
@@ -235,6 +249,18 @@ public class QueryStats
         this.writtenOutputPhysicalDataSize = requireNonNull(writtenOutputPhysicalDataSize, "writtenOutputPhysicalDataSize is null");
         this.writtenIntermediatePhysicalDataSize = requireNonNull(writtenIntermediatePhysicalDataSize, "writtenIntermediatePhysicalDataSize is null");
 
+        checkArgument(resultCacheHits >= 0, "resultCacheHits is negative");
+        this.resultCacheHits = resultCacheHits;
+        checkArgument(resultCacheMisses >= 0, "resultCacheMisses is negative");
+        this.resultCacheMisses = resultCacheMisses;
+        checkArgument(resultCacheEvictions >= 0, "resultCacheEvictions is negative");
+        this.resultCacheEvictions = resultCacheEvictions;
+        this.resultCacheSavedDataSize = requireNonNull(resultCacheSavedDataSize, "resultCacheSavedDataSize is null");
+        checkArgument(fragmentResultCacheHits >= 0, "fragmentResultCacheHits is negative");
+        this.fragmentResultCacheHits = fragmentResultCacheHits;
+        checkArgument(fragmentResultCacheMisses >= 0, "fragmentResultCacheMisses is negative");
+        this.fragmentResultCacheMisses = fragmentResultCacheMisses;
+
         this.stageGcStatistics = ImmutableList.copyOf(requireNonNull(stageGcStatistics, "stageGcStatistics is null"));
 
         this.operatorSummaries = ImmutableList.copyOf(requireNonNull(operatorSummaries, "operatorSummaries is null"));
@@ -290,6 +316,12 @@ public class QueryStats
                 new DataSize(0, BYTE),
                 new DataSize(0, BYTE),
                 new DataSize(0, BYTE),
+                0,
+                0,
+                0,
+                new DataSize(0, BYTE),
+                0,
+                0,
                 ImmutableList.of(),
                 ImmutableList.of());
     }
@@ -571,6 +603,58 @@ public class QueryStats
         return writtenIntermediatePhysicalDataSize;
     }
 
+    /**
+     * Number of times the output of the query was served from the query result cache instead of being computed, 0 or 1.
+     */
+    @JsonProperty
+    public long getResultCacheHits()
+    {
+        return resultCacheHits;
+    }
+
+    /**
+     * Number of times the output of a cacheable query was not found in the query result cache, 0 or 1.
+     */
+    @JsonProperty
+    public long getResultCacheMisses()
+    {
+        return resultCacheMisses;
+    }
+
+    /**
+     * Number of results evicted from the query result cache since the query looked up its result. The result of the
+     * query itself is only stored after all of its output has been returned, so these are evictions of other results.
+     */
+    @JsonProperty
+    public long getResultCacheEvictions()
+    {
+        return resultCacheEvictions;
+    }
+
+    /**
+     * Size of the output served from the query result cache, which did not have to be computed.
+     */
+    @JsonProperty
+    public DataSize getResultCacheSavedDataSize()
+    {
+        return resultCacheSavedDataSize;
+    }
+
+    /**
+     * Number of splits whose output was served from the fragment result cache of a worker.
+     */
+    @JsonProperty
+    public long getFragmentResultCacheHits()
+    {
+        return fragmentResultCacheHits;
+    }
+
+    @JsonProperty
+    public long getFragmentResultCacheMisses()
+    {
+        return fragmentResultCacheMisses;
+    }
+
     @JsonProperty
     public List<StageGcStatistics> getStageGcStatistics()
     {
@@ -21,6 +21,7 @@ import com.google.common.collect.Multimap;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.net.URI;
+import java.util.List;
 
 public interface RemoteTask
 {
@@ -49,6 +50,13 @@ public interface RemoteTask
 
     ListenableFuture<?> removeRemoteSource(TaskId remoteSourceTaskId);
 
+    /**
+     * Takes the splits of the specified source that are queued on the task, but have not started
+     * running, back from the task. The returned splits will not run on this task, and must be
+     * scheduled on another task.
+     */
+    ListenableFuture<List<Split>> withdrawQueuedSplits(PlanNodeId sourceId);
+
     /**
      * Listener is always notified asynchronously using a dedicated notification thread pool so, care should
      * be taken to avoid leaking {@code this} when adding a listener in a constructor. Additionally, it is
@@ -22,6 +22,9 @@ import com.facebook.presto.execution.QueryPreparer.PreparedQuery;
 import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.execution.buffer.OutputBuffers;
 import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
+import com.facebook.presto.execution.resultcache.CachedQueryResult;
+import com.facebook.presto.execution.resultcache.QueryResultCache;
+import com.facebook.presto.execution.resultcache.QueryResultCacheKey;
 import com.facebook.presto.execution.scheduler.ExecutionPolicy;
 import com.facebook.presto.execution.scheduler.LegacySqlQueryScheduler;
 import com.facebook.presto.execution.scheduler.SectionExecutionFactory;
@@ -58,6 +61,7 @@ import com.facebook.presto.sql.planner.SubPlan;
 import com.facebook.presto.sql.planner.optimizations.PlanOptimizer;
 import com.facebook.presto.sql.planner.plan.OutputNode;
 import com.facebook.presto.sql.tree.Explain;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
@@ -75,9 +79,11 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
+import static com.facebook.presto.SystemSessionProperties.isQueryResultCacheEnabled;
 import static com.facebook.presto.SystemSessionProperties.isUseLegacyScheduler;
 import static com.facebook.presto.execution.buffer.OutputBuffers.BROADCAST_PARTITION_ID;
 import static com.facebook.presto.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
+import static com.facebook.presto.execution.resultcache.QueryResultCacheKey.createQueryResultCacheKey;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Throwables.throwIfInstanceOf;
@@ -112,6 +118,7 @@ public class SqlQueryExecution
     private final Analysis analysis;
     private final StatsCalculator statsCalculator;
     private final CostCalculator costCalculator;
+    private final QueryResultCache queryResultCache;
 
     private SqlQueryExecution(
             PreparedQuery preparedQuery,
@@ -133,6 +140,7 @@ public class SqlQueryExecution
             SplitSchedulerStats schedulerStats,
             StatsCalculator statsCalculator,
             CostCalculator costCalculator,
+            QueryResultCache queryResultCache,
             WarningCollector warningCollector)
     {
         try (SetThreadName ignored = new SetThreadName("Query-%s", stateMachine.getQueryId())) {
@@ -150,6 +158,7 @@ public class SqlQueryExecution
             this.schedulerStats = requireNonNull(schedulerStats, "schedulerStats is null");
             this.statsCalculator = requireNonNull(statsCalculator, "statsCalculator is null");
             this.costCalculator = requireNonNull(costCalculator, "costCalculator is null");
+            this.queryResultCache = requireNonNull(queryResultCache, "queryResultCache is null");
             this.stateMachine = requireNonNull(stateMachine, "stateMachine is null");
 
             // analyze query
@@ -311,6 +320,19 @@ public class SqlQueryExecution
 
                 metadata.beginQuery(getSession(), plan.getConnectors());
 
+                // serve the output from the result cache if an identical query ran before
+                Optional<QueryResultCacheKey> resultCacheKey = createResultCacheKey(plan);
+                if (resultCacheKey.isPresent()) {
+                    long evictions = queryResultCache.getEvictions().getTotalCount();
+                    stateMachine.setResultCacheEvictions(() -> queryResultCache.getEvictions().getTotalCount() - evictions);
+                    Optional<CachedQueryResult> cachedResult = queryResultCache.get(resultCacheKey.get());
+                    if (cachedResult.isPresent()) {
+                        finishWithCachedResult(plan, cachedResult.get());
+                        return;
+                    }
+                    stateMachine.setResultCacheKey(resultCacheKey.get());
+                }
+
                 // plan distribution of query
                 planDistribution(plan);
 
@@ -409,6 +431,31 @@ public class SqlQueryExecution
         return connectors.build();
     }
 
+    private Optional<QueryResultCacheKey> createResultCacheKey(PlanRoot plan)
+    {
+        if (!isQueryResultCacheEnabled(getSession())) {
+            return Optional.empty();
+        }
+        // plans that write data or run EXPLAIN ANALYZE have no cache key
+        return createQueryResultCacheKey(plan.getRoot(), getSession(), metadata);
+    }
+
+    private void finishWithCachedResult(PlanRoot plan, CachedQueryResult cachedResult)
+    {
+        // the client protocol reads and closes the cached result it gets with the output fields, there are no output buffers to read from
+        stateMachine.setCachedResult(cachedResult);
+        SubPlan outputStagePlan = plan.getRoot();
+        stateMachine.setColumns(((OutputNode) outputStagePlan.getFragment().getRoot()).getColumnNames(), outputStagePlan.getFragment().getTypes());
+        stateMachine.updateOutputLocations(ImmutableMap.of(), true);
+
+        if (!stateMachine.transitionToStarting()) {
+            // query already finished
+            return;
+        }
+        stateMachine.transitionToRunning();
+        stateMachine.transitionToFinishing();
+    }
+
     private void planDistribution(PlanRoot plan)
     {
         CloseableSplitSourceProvider splitSourceProvider = new CloseableSplitSourceProvider(splitManager::getSplits);
@@ -627,6 +674,7 @@ public class SqlQueryExecution
         private final Map<String, ExecutionPolicy> executionPolicies;
         private final StatsCalculator statsCalculator;
         private final CostCalculator costCalculator;
+        private final QueryResultCache queryResultCache;
 
         @Inject
         SqlQueryExecutionFactory(QueryManagerConfig config,
@@ -645,7 +693,8 @@ public class SqlQueryExecution
                 Map<String, ExecutionPolicy> executionPolicies,
                 SplitSchedulerStats schedulerStats,
                 StatsCalculator statsCalculator,
-                CostCalculator costCalculator)
+                CostCalculator costCalculator,
+                QueryResultCache queryResultCache)
         {
             requireNonNull(config, "config is null");
             this.schedulerStats = requireNonNull(schedulerStats, "schedulerStats is null");
@@ -665,6 +714,7 @@ public class SqlQueryExecution
             this.planOptimizers = planOptimizers.get();
             this.statsCalculator = requireNonNull(statsCalculator, "statsCalculator is null");
             this.costCalculator = requireNonNull(costCalculator, "costCalculator is null");
+            this.queryResultCache = requireNonNull(queryResultCache, "queryResultCache is null");
         }
 
         @Override
@@ -699,6 +749,7 @@ public class SqlQueryExecution
                     schedulerStats,
                     statsCalculator,
                     costCalculator,
+                    queryResultCache,
                     warningCollector);
 
             return execution;
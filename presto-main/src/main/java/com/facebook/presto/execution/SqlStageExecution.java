@@ -538,6 +538,21 @@ public final class SqlStageExecution
         stateMachine.recordGetSplitTime(start);
     }
 
+    public void recordSplitPlacementTime(long start)
+    {
+        stateMachine.recordSplitPlacementTime(start);
+    }
+
+    public void recordSplitQueueWaitTime(long start)
+    {
+        stateMachine.recordSplitQueueWaitTime(start);
+    }
+
+    public void recordSplitBatchSize(int splitBatchSize)
+    {
+        stateMachine.recordSplitBatchSize(splitBatchSize);
+    }
+
     private static Split createRemoteSplitFor(TaskId taskId, URI remoteSourceTaskLocation, TaskId remoteSourceTaskId)
     {
         // Fetch the results from the buffer assigned to the task based on id
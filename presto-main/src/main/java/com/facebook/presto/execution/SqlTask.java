@@ -27,6 +27,7 @@ import com.facebook.presto.execution.scheduler.TableWriteInfo;
 import com.facebook.presto.memory.QueryContext;
 import com.facebook.presto.operator.ExchangeClientSupplier;
 import com.facebook.presto.operator.PipelineContext;
+import com.facebook.presto.operator.PipelineStats;
 import com.facebook.presto.operator.PipelineStatus;
 import com.facebook.presto.operator.TaskContext;
 import com.facebook.presto.operator.TaskExchangeClientManager;
@@ -59,6 +60,7 @@ import static com.facebook.presto.execution.TaskState.FAILED;
 import static com.facebook.presto.util.Failures.toFailures;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.units.DataSize.Unit.BYTE;
@@ -252,7 +254,7 @@ public class SqlTask
         DataSize physicalWrittenDataSize = new DataSize(0, BYTE);
         DataSize userMemoryReservation = new DataSize(0, BYTE);
         DataSize systemMemoryReservation = new DataSize(0, BYTE);
-        // TODO: add a mechanism to avoid sending the whole completedDriverGroups set over the wire for every task status reply
+        // callers that acknowledge versions only get the driver groups completed since the acknowledged status, see TaskResource
         Set<Lifespan> completedDriverGroups = ImmutableSet.of();
         long fullGcCount = 0;
         Duration fullGcTime = new Duration(0, MILLISECONDS);
@@ -329,8 +331,29 @@ public class SqlTask
         return ImmutableSet.of();
     }
 
+    private static Set<Integer> getFinishedPipelineIds(TaskHolder taskHolder)
+    {
+        TaskInfo finalTaskInfo = taskHolder.getFinalTaskInfo();
+        if (finalTaskInfo != null) {
+            // the final task info never changes
+            return finalTaskInfo.getStats().getPipelines().stream()
+                    .map(PipelineStats::getPipelineId)
+                    .collect(toImmutableSet());
+        }
+        SqlTaskExecution taskExecution = taskHolder.getTaskExecution();
+        if (taskExecution != null) {
+            return taskExecution.getTaskContext().getPipelineContexts().stream()
+                    .filter(PipelineContext::isFinished)
+                    .map(PipelineContext::getPipelineId)
+                    .collect(toImmutableSet());
+        }
+        return ImmutableSet.of();
+    }
+
     private TaskInfo createTaskInfo(TaskHolder taskHolder)
     {
+        // the finished pipelines must be determined before the stats are collected, so their stats are final
+        Set<Integer> finishedPipelineIds = getFinishedPipelineIds(taskHolder);
         TaskStats taskStats = getTaskStats(taskHolder);
         Set<PlanNodeId> noMoreSplits = getNoMoreSplits(taskHolder);
 
@@ -342,7 +365,8 @@ public class SqlTask
                 outputBuffer.getInfo(),
                 noMoreSplits,
                 taskStats,
-                needsPlan.get());
+                needsPlan.get(),
+                finishedPipelineIds);
     }
 
     public ListenableFuture<TaskStatus> getTaskStatus(TaskState callersCurrentState)
@@ -462,6 +486,20 @@ public class SqlTask
                 .forEach(exchangeClient -> exchangeClient.removeRemoteSource(sourceTaskId));
     }
 
+    public TaskSource withdrawQueuedSplits(PlanNodeId sourceId, long withdrawalId)
+    {
+        requireNonNull(sourceId, "sourceId is null");
+
+        SqlTaskExecution taskExecution = taskHolderReference.get().getTaskExecution();
+        if (taskExecution == null) {
+            // the task has not received any splits, or it is done
+            return new TaskSource(sourceId, ImmutableSet.of(), false);
+        }
+
+        log.debug("Withdrawing queued splits of source %s from task %s", sourceId, taskId);
+        return new TaskSource(sourceId, taskExecution.withdrawQueuedSplits(sourceId, withdrawalId), false);
+    }
+
     public void failed(Throwable cause)
     {
         requireNonNull(cause, "cause is null");
@@ -20,10 +20,12 @@ import com.facebook.presto.execution.buffer.BufferState;
 import com.facebook.presto.execution.buffer.OutputBuffer;
 import com.facebook.presto.execution.executor.TaskExecutor;
 import com.facebook.presto.execution.executor.TaskHandle;
+import com.facebook.presto.execution.resultcache.FragmentResultCacheContext;
 import com.facebook.presto.operator.Driver;
 import com.facebook.presto.operator.DriverContext;
 import com.facebook.presto.operator.DriverFactory;
 import com.facebook.presto.operator.DriverStats;
+import com.facebook.presto.operator.Operator;
 import com.facebook.presto.operator.PipelineContext;
 import com.facebook.presto.operator.PipelineExecutionStrategy;
 import com.facebook.presto.operator.StageExecutionDescriptor;
@@ -120,6 +122,8 @@ public class SqlTaskExecution
 
     private final SplitMonitor splitMonitor;
 
+    private final Optional<FragmentResultCacheContext> fragmentResultCacheContext;
+
     private final List<WeakReference<Driver>> drivers = new CopyOnWriteArrayList<>();
 
     private final Map<PlanNodeId, DriverSplitRunnerFactory> driverRunnerFactoriesWithSplitLifeCycle;
@@ -139,6 +143,10 @@ public class SqlTaskExecution
     @GuardedBy("this")
     private final Map<PlanNodeId, PendingSplitsForPlanNode> pendingSplitsByPlanNode;
 
+    // the last withdrawal of queued splits of every partitioned source, so that a retried withdrawal returns the same splits
+    @GuardedBy("this")
+    private final Map<PlanNodeId, SplitWithdrawal> splitWithdrawals = new HashMap<>();
+
     private final Status status;
 
     static SqlTaskExecution createSqlTaskExecution(
@@ -149,7 +157,8 @@ public class SqlTaskExecution
             LocalExecutionPlan localExecutionPlan,
             TaskExecutor taskExecutor,
             Executor notificationExecutor,
-            SplitMonitor queryMonitor)
+            SplitMonitor queryMonitor,
+            Optional<FragmentResultCacheContext> fragmentResultCacheContext)
     {
         SqlTaskExecution task = new SqlTaskExecution(
                 taskStateMachine,
@@ -158,7 +167,8 @@ public class SqlTaskExecution
                 localExecutionPlan,
                 taskExecutor,
                 queryMonitor,
-                notificationExecutor);
+                notificationExecutor,
+                fragmentResultCacheContext);
         try (SetThreadName ignored = new SetThreadName("Task-%s", task.getTaskId())) {
             // The scheduleDriversForTaskLifeCycle method calls enqueueDriverSplitRunner, which registers a callback with access to this object.
             // The call back is accessed from another thread, so this code can not be placed in the constructor.
@@ -175,7 +185,8 @@ public class SqlTaskExecution
             LocalExecutionPlan localExecutionPlan,
             TaskExecutor taskExecutor,
             SplitMonitor splitMonitor,
-            Executor notificationExecutor)
+            Executor notificationExecutor,
+            Optional<FragmentResultCacheContext> fragmentResultCacheContext)
     {
         this.taskStateMachine = requireNonNull(taskStateMachine, "taskStateMachine is null");
         this.taskId = taskStateMachine.getTaskId();
@@ -186,6 +197,7 @@ public class SqlTaskExecution
         this.notificationExecutor = requireNonNull(notificationExecutor, "notificationExecutor is null");
 
         this.splitMonitor = requireNonNull(splitMonitor, "splitMonitor is null");
+        this.fragmentResultCacheContext = requireNonNull(fragmentResultCacheContext, "fragmentResultCacheContext is null");
 
         try (SetThreadName ignored = new SetThreadName("Task-%s", taskId)) {
             // index driver factories
@@ -605,6 +617,68 @@ public class SqlTaskExecution
         }
     }
 
+    /**
+     * Takes the splits of an ungrouped partitioned source back from the task, if they have not started running yet,
+     * so that the scheduler can place them on other tasks. A withdrawal that is retried with the same id returns the
+     * same splits, and a withdrawal older than the last one returns no splits.
+     */
+    public Set<ScheduledSplit> withdrawQueuedSplits(PlanNodeId planNodeId, long withdrawalId)
+    {
+        requireNonNull(planNodeId, "planNodeId is null");
+
+        try (SetThreadName ignored = new SetThreadName("Task-%s", taskId)) {
+            Set<ScheduledSplit> splits;
+            synchronized (this) {
+                SplitWithdrawal lastWithdrawal = splitWithdrawals.get(planNodeId);
+                if (lastWithdrawal != null && withdrawalId <= lastWithdrawal.getWithdrawalId()) {
+                    return withdrawalId == lastWithdrawal.getWithdrawalId() ? lastWithdrawal.getSplits() : ImmutableSet.of();
+                }
+                splits = removeQueuedSplits(planNodeId);
+                splitWithdrawals.put(planNodeId, new SplitWithdrawal(withdrawalId, splits));
+            }
+
+            // the withdrawn splits may have been the last drivers the task was waiting for
+            checkTaskCompletion();
+            return splits;
+        }
+    }
+
+    @GuardedBy("this")
+    private Set<ScheduledSplit> removeQueuedSplits(PlanNodeId planNodeId)
+    {
+        checkHoldsLock();
+
+        DriverSplitRunnerFactory partitionedDriverRunnerFactory = driverRunnerFactoriesWithSplitLifeCycle.get(planNodeId);
+        if (partitionedDriverRunnerFactory == null || partitionedDriverRunnerFactory.getPipelineExecutionStrategy() != UNGROUPED_EXECUTION) {
+            // the splits of a grouped source belong to a driver group that is scheduled on this task
+            return ImmutableSet.of();
+        }
+
+        ImmutableSet.Builder<ScheduledSplit> splits = ImmutableSet.builder();
+
+        // splits that have not been turned into drivers yet
+        PendingSplits pendingSplits = pendingSplitsByPlanNode.get(planNodeId).getLifespan(Lifespan.taskWide());
+        if (pendingSplits.getState() != FINISHED) {
+            Set<ScheduledSplit> removedSplits = pendingSplits.removeAllSplits();
+            partitionedDriverRunnerFactory.splitsRemoved(removedSplits.size());
+            splits.addAll(removedSplits);
+        }
+
+        // drivers that are queued in the task executor, but have not started
+        List<SplitRunner> removedRunners = taskExecutor.removeQueuedSplits(
+                taskHandle,
+                runner -> runner instanceof DriverSplitRunner && ((DriverSplitRunner) runner).getDriverSplitRunnerFactory() == partitionedDriverRunnerFactory);
+        for (SplitRunner runner : removedRunners) {
+            DriverSplitRunner driverSplitRunner = (DriverSplitRunner) runner;
+            partitionedDriverRunnerFactory.driverRunnerRemoved(driverSplitRunner);
+            status.decrementRemainingDriver(driverSplitRunner.getLifespan());
+            splits.add(driverSplitRunner.getPartitionedSplit());
+        }
+        partitionedDriverRunnerFactory.closeDriverFactoryIfFullyCreated();
+
+        return splits.build();
+    }
+
     public synchronized Set<PlanNodeId> getNoMoreSplits()
     {
         ImmutableSet.Builder<PlanNodeId> noMoreSplits = ImmutableSet.builder();
@@ -940,13 +1014,18 @@ public class SqlTaskExecution
 
         public Driver createDriver(DriverContext driverContext, @Nullable ScheduledSplit partitionedSplit)
         {
-            Driver driver = driverFactory.createDriver(driverContext);
+            List<Operator> operators = driverFactory.createOperators(driverContext);
+            if (partitionedSplit != null && fragmentResultCacheContext.isPresent()) {
+                operators = fragmentResultCacheContext.get().createOperators(partitionedSplit.getSplit(), operators);
+            }
+            Driver driver = Driver.createDriver(driverContext, operators);
 
             // record driver so other threads add remote sources can see the driver
             // NOTE: this MUST be done before reading remoteSources, so we see a consistent view of the remote sources
             drivers.add(new WeakReference<>(driver));
 
-            if (partitionedSplit != null) {
+            // a driver that replays the cached output of the split has no source operator
+            if (partitionedSplit != null && driver.getSourceId().isPresent()) {
                 // TableScanOperator requires partitioned split to be added before the first call to process
                 driver.updateSource(new TaskSource(partitionedSplit.getPlanNodeId(), ImmutableSet.of(partitionedSplit), true));
             }
@@ -991,6 +1070,7 @@ public class SqlTaskExecution
                 return;
             }
             driverFactory.noMoreDrivers();
+            pipelineContext.noMoreDrivers();
             closed = true;
         }
 
@@ -1008,6 +1088,20 @@ public class SqlTaskExecution
         {
             pipelineContext.splitsAdded(count);
         }
+
+        public void splitsRemoved(int count)
+        {
+            pipelineContext.splitsRemoved(count);
+        }
+
+        // forgets a driver runner that was removed from the task executor before it created its driver
+        public void driverRunnerRemoved(DriverSplitRunner driverSplitRunner)
+        {
+            DriverContext driverContext = driverSplitRunner.driverContext;
+            pipelineContext.driverRemoved(driverContext);
+            pipelineContext.splitsRemoved(1);
+            status.decrementPendingCreation(pipelineContext.getPipelineId(), driverContext.getLifespan());
+        }
     }
 
     private static class DriverSplitRunner
@@ -1047,6 +1141,17 @@ public class SqlTaskExecution
             return lifespan;
         }
 
+        public DriverSplitRunnerFactory getDriverSplitRunnerFactory()
+        {
+            return driverSplitRunnerFactory;
+        }
+
+        @Nullable
+        public ScheduledSplit getPartitionedSplit()
+        {
+            return partitionedSplit;
+        }
+
         @Override
         public synchronized boolean isFinished()
         {
@@ -1098,6 +1203,28 @@ public class SqlTaskExecution
         }
     }
 
+    private static class SplitWithdrawal
+    {
+        private final long withdrawalId;
+        private final Set<ScheduledSplit> splits;
+
+        public SplitWithdrawal(long withdrawalId, Set<ScheduledSplit> splits)
+        {
+            this.withdrawalId = withdrawalId;
+            this.splits = ImmutableSet.copyOf(requireNonNull(splits, "splits is null"));
+        }
+
+        public long getWithdrawalId()
+        {
+            return withdrawalId;
+        }
+
+        public Set<ScheduledSplit> getSplits()
+        {
+            return splits;
+        }
+    }
+
     private static final class CheckTaskCompletionOnBufferFinish
             implements StateChangeListener<BufferState>
     {
@@ -19,6 +19,8 @@ import com.facebook.presto.common.block.BlockEncodingSerde;
 import com.facebook.presto.event.SplitMonitor;
 import com.facebook.presto.execution.buffer.OutputBuffer;
 import com.facebook.presto.execution.executor.TaskExecutor;
+import com.facebook.presto.execution.resultcache.FragmentResultCache;
+import com.facebook.presto.execution.resultcache.FragmentResultCacheContext;
 import com.facebook.presto.execution.scheduler.TableWriteInfo;
 import com.facebook.presto.memory.QueryContext;
 import com.facebook.presto.operator.TaskContext;
@@ -30,6 +32,7 @@ import com.facebook.presto.sql.planner.LocalExecutionPlanner.LocalExecutionPlan;
 import com.facebook.presto.sql.planner.PlanFragment;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Executor;
 
 import static com.facebook.presto.execution.SqlTaskExecution.createSqlTaskExecution;
@@ -51,6 +54,7 @@ public class SqlTaskExecutionFactory
     private final boolean perOperatorAllocationTrackingEnabled;
     private final boolean allocationTrackingEnabled;
     private final boolean legacyLifespanCompletionCondition;
+    private final Optional<FragmentResultCache> fragmentResultCache;
 
     public SqlTaskExecutionFactory(
             Executor taskNotificationExecutor,
@@ -60,6 +64,19 @@ public class SqlTaskExecutionFactory
             OrderingCompiler orderingCompiler,
             SplitMonitor splitMonitor,
             TaskManagerConfig config)
+    {
+        this(taskNotificationExecutor, taskExecutor, planner, blockEncodingSerde, orderingCompiler, splitMonitor, config, Optional.empty());
+    }
+
+    public SqlTaskExecutionFactory(
+            Executor taskNotificationExecutor,
+            TaskExecutor taskExecutor,
+            LocalExecutionPlanner planner,
+            BlockEncodingSerde blockEncodingSerde,
+            OrderingCompiler orderingCompiler,
+            SplitMonitor splitMonitor,
+            TaskManagerConfig config,
+            Optional<FragmentResultCache> fragmentResultCache)
     {
         this.taskNotificationExecutor = requireNonNull(taskNotificationExecutor, "taskNotificationExecutor is null");
         this.taskExecutor = requireNonNull(taskExecutor, "taskExecutor is null");
@@ -73,6 +90,7 @@ public class SqlTaskExecutionFactory
         this.perOperatorAllocationTrackingEnabled = config.isPerOperatorAllocationTrackingEnabled();
         this.allocationTrackingEnabled = config.isTaskAllocationTrackingEnabled();
         this.legacyLifespanCompletionCondition = config.isLegacyLifespanCompletionCondition();
+        this.fragmentResultCache = requireNonNull(fragmentResultCache, "fragmentResultCache is null");
     }
 
     public SqlTaskExecution create(
@@ -114,6 +132,7 @@ public class SqlTaskExecutionFactory
                 throw new RuntimeException(e);
             }
         }
+        Optional<FragmentResultCacheContext> fragmentResultCacheContext = fragmentResultCache.flatMap(cache -> cache.createContext(fragment, localExecutionPlan, taskContext));
         return createSqlTaskExecution(
                 taskStateMachine,
                 taskContext,
@@ -122,6 +141,7 @@ public class SqlTaskExecutionFactory
                 localExecutionPlan,
                 taskExecutor,
                 taskNotificationExecutor,
-                splitMonitor);
+                splitMonitor,
+                fragmentResultCacheContext);
     }
 }
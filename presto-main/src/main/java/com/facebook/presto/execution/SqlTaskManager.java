@@ -26,6 +26,7 @@ import com.facebook.presto.execution.buffer.BufferResult;
 import com.facebook.presto.execution.buffer.OutputBuffers;
 import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
 import com.facebook.presto.execution.executor.TaskExecutor;
+import com.facebook.presto.execution.resultcache.FragmentResultCache;
 import com.facebook.presto.execution.scheduler.TableWriteInfo;
 import com.facebook.presto.memory.LocalMemoryManager;
 import com.facebook.presto.memory.MemoryPool;
@@ -36,6 +37,7 @@ import com.facebook.presto.memory.QueryContext;
 import com.facebook.presto.operator.ExchangeClientSupplier;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.spiller.LocalSpillManager;
 import com.facebook.presto.spiller.NodeSpillConfig;
 import com.facebook.presto.sql.gen.OrderingCompiler;
@@ -129,7 +131,8 @@ public class SqlTaskManager
             NodeSpillConfig nodeSpillConfig,
             GcMonitor gcMonitor,
             BlockEncodingSerde blockEncodingSerde,
-            OrderingCompiler orderingCompiler)
+            OrderingCompiler orderingCompiler,
+            FragmentResultCache fragmentResultCache)
     {
         requireNonNull(nodeInfo, "nodeInfo is null");
         requireNonNull(config, "config is null");
@@ -151,7 +154,8 @@ public class SqlTaskManager
                 blockEncodingSerde,
                 orderingCompiler,
                 splitMonitor,
-                config);
+                config,
+                Optional.of(requireNonNull(fragmentResultCache, "fragmentResultCache is null")));
 
         this.localMemoryManager = requireNonNull(localMemoryManager, "localMemoryManager is null");
         DataSize maxQueryUserMemoryPerNode = nodeMemoryConfig.getMaxQueryMemoryPerNode();
@@ -429,6 +433,15 @@ public class SqlTaskManager
         tasks.getUnchecked(taskId).removeRemoteSource(remoteSourceTaskId);
     }
 
+    @Override
+    public TaskSource withdrawQueuedSplits(TaskId taskId, PlanNodeId sourceId, long withdrawalId)
+    {
+        requireNonNull(taskId, "taskId is null");
+        requireNonNull(sourceId, "sourceId is null");
+
+        return tasks.getUnchecked(taskId).withdrawQueuedSplits(sourceId, withdrawalId);
+    }
+
     @Override
     public TaskInfo cancelTask(TaskId taskId)
     {
@@ -369,6 +369,9 @@ public class StageExecutionStateMachine
 
         long physicalWrittenDataSize = 0;
 
+        long fragmentResultCacheHits = 0;
+        long fragmentResultCacheMisses = 0;
+
         int fullGcCount = 0;
         int fullGcTaskCount = 0;
         int minFullGcSec = 0;
@@ -428,6 +431,9 @@ public class StageExecutionStateMachine
 
             physicalWrittenDataSize += taskStats.getPhysicalWrittenDataSize().toBytes();
 
+            fragmentResultCacheHits += taskStats.getFragmentResultCacheHits();
+            fragmentResultCacheMisses += taskStats.getFragmentResultCacheMisses();
+
             fullGcCount += taskStats.getFullGcCount();
             fullGcTaskCount += taskStats.getFullGcCount() > 0 ? 1 : 0;
 
@@ -483,6 +489,9 @@ public class StageExecutionStateMachine
                 outputPositions,
                 succinctBytes(physicalWrittenDataSize),
 
+                fragmentResultCacheHits,
+                fragmentResultCacheMisses,
+
                 new StageGcStatistics(
                         stageExecutionId.getStageId().getId(),
                         stageExecutionId.getId(),
@@ -513,6 +522,21 @@ public class StageExecutionStateMachine
         scheduledStats.getGetSplitTime().add(elapsedNanos, NANOSECONDS);
     }
 
+    public void recordSplitPlacementTime(long startNanos)
+    {
+        scheduledStats.getSplitPlacementTime().add(System.nanoTime() - startNanos, NANOSECONDS);
+    }
+
+    public void recordSplitQueueWaitTime(long startNanos)
+    {
+        scheduledStats.getSplitQueueWaitTime().add(System.nanoTime() - startNanos, NANOSECONDS);
+    }
+
+    public void recordSplitBatchSize(int splitBatchSize)
+    {
+        scheduledStats.getSplitBatchSize().add(splitBatchSize);
+    }
+
     @Override
     public String toString()
     {
@@ -85,6 +85,9 @@ public class StageExecutionStats
 
     private final DataSize physicalWrittenDataSize;
 
+    private final long fragmentResultCacheHits;
+    private final long fragmentResultCacheMisses;
+
     private final StageGcStatistics gcInfo;
 
     private final List<OperatorStats> operatorSummaries;
@@ -134,6 +137,9 @@ public class StageExecutionStats
 
             @JsonProperty("physicalWrittenDataSize") DataSize physicalWrittenDataSize,
 
+            @JsonProperty("fragmentResultCacheHits") long fragmentResultCacheHits,
+            @JsonProperty("fragmentResultCacheMisses") long fragmentResultCacheMisses,
+
             @JsonProperty("gcInfo") StageGcStatistics gcInfo,
 
             @JsonProperty("operatorSummaries") List<OperatorStats> operatorSummaries)
@@ -193,6 +199,11 @@ public class StageExecutionStats
 
         this.physicalWrittenDataSize = requireNonNull(physicalWrittenDataSize, "writtenDataSize is null");
 
+        checkArgument(fragmentResultCacheHits >= 0, "fragmentResultCacheHits is negative");
+        this.fragmentResultCacheHits = fragmentResultCacheHits;
+        checkArgument(fragmentResultCacheMisses >= 0, "fragmentResultCacheMisses is negative");
+        this.fragmentResultCacheMisses = fragmentResultCacheMisses;
+
         this.gcInfo = requireNonNull(gcInfo, "gcInfo is null");
 
         this.operatorSummaries = ImmutableList.copyOf(requireNonNull(operatorSummaries, "operatorSummaries is null"));
@@ -384,6 +395,18 @@ public class StageExecutionStats
         return physicalWrittenDataSize;
     }
 
+    @JsonProperty
+    public long getFragmentResultCacheHits()
+    {
+        return fragmentResultCacheHits;
+    }
+
+    @JsonProperty
+    public long getFragmentResultCacheMisses()
+    {
+        return fragmentResultCacheMisses;
+    }
+
     @JsonProperty
     public StageGcStatistics getGcInfo()
     {
@@ -458,6 +481,8 @@ public class StageExecutionStats
                 new DataSize(0, BYTE),
                 0,
                 new DataSize(0, BYTE),
+                0,
+                0,
                 new StageGcStatistics(stageId, 0, 0, 0, 0, 0, 0, 0),
                 ImmutableList.of());
     }
@@ -15,23 +15,33 @@ package com.facebook.presto.execution;
 
 import com.facebook.presto.execution.buffer.BufferInfo;
 import com.facebook.presto.execution.buffer.OutputBufferInfo;
+import com.facebook.presto.operator.PipelineStats;
 import com.facebook.presto.operator.TaskStats;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import org.joda.time.DateTime;
 
 import javax.annotation.concurrent.Immutable;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
 import java.util.Set;
+import java.util.TreeMap;
 
 import static com.facebook.presto.execution.TaskStatus.initialTaskStatus;
 import static com.facebook.presto.execution.buffer.BufferState.OPEN;
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static java.util.Objects.requireNonNull;
+import static java.util.function.Function.identity;
 
 @Immutable
 public class TaskInfo
@@ -44,6 +54,33 @@ public class TaskInfo
     private final TaskStats stats;
 
     private final boolean needsPlan;
+    private final Set<Integer> finishedPipelineIds;
+    private final OptionalLong baseVersion;
+
+    public TaskInfo(
+            TaskId taskId,
+            TaskStatus taskStatus,
+            DateTime lastHeartbeat,
+            OutputBufferInfo outputBuffers,
+            Set<PlanNodeId> noMoreSplits,
+            TaskStats stats,
+            boolean needsPlan)
+    {
+        this(taskId, taskStatus, lastHeartbeat, outputBuffers, noMoreSplits, stats, needsPlan, ImmutableSet.of());
+    }
+
+    public TaskInfo(
+            TaskId taskId,
+            TaskStatus taskStatus,
+            DateTime lastHeartbeat,
+            OutputBufferInfo outputBuffers,
+            Set<PlanNodeId> noMoreSplits,
+            TaskStats stats,
+            boolean needsPlan,
+            Set<Integer> finishedPipelineIds)
+    {
+        this(taskId, taskStatus, lastHeartbeat, outputBuffers, noMoreSplits, stats, needsPlan, finishedPipelineIds, OptionalLong.empty());
+    }
 
     @JsonCreator
     public TaskInfo(
@@ -53,7 +90,9 @@ public class TaskInfo
             @JsonProperty("outputBuffers") OutputBufferInfo outputBuffers,
             @JsonProperty("noMoreSplits") Set<PlanNodeId> noMoreSplits,
             @JsonProperty("stats") TaskStats stats,
-            @JsonProperty("needsPlan") boolean needsPlan)
+            @JsonProperty("needsPlan") boolean needsPlan,
+            @JsonProperty("finishedPipelineIds") Set<Integer> finishedPipelineIds,
+            @JsonProperty("baseVersion") OptionalLong baseVersion)
     {
         this.taskId = requireNonNull(taskId, "taskId is null");
         this.taskStatus = requireNonNull(taskStatus, "taskStatus is null");
@@ -63,6 +102,8 @@ public class TaskInfo
         this.stats = requireNonNull(stats, "stats is null");
 
         this.needsPlan = needsPlan;
+        this.finishedPipelineIds = ImmutableSet.copyOf(requireNonNull(finishedPipelineIds, "finishedPipelineIds is null"));
+        this.baseVersion = requireNonNull(baseVersion, "baseVersion is null");
     }
 
     @JsonProperty
@@ -107,12 +148,153 @@ public class TaskInfo
         return needsPlan;
     }
 
+    /**
+     * Ids of the pipelines whose stats in this task info will not change anymore.
+     */
+    @JsonProperty
+    public Set<Integer> getFinishedPipelineIds()
+    {
+        return finishedPipelineIds;
+    }
+
+    /**
+     * Version of the task info this task info is a delta of, if it is one. A delta leaves out the operator summaries
+     * that did not change since that version.
+     */
+    @JsonProperty
+    public OptionalLong getBaseVersion()
+    {
+        return baseVersion;
+    }
+
     public TaskInfo summarize()
     {
         if (taskStatus.getState().isDone()) {
-            return new TaskInfo(taskId, taskStatus, lastHeartbeat, outputBuffers.summarize(), noMoreSplits, stats.summarizeFinal(), needsPlan);
+            return new TaskInfo(taskId, taskStatus, lastHeartbeat, outputBuffers.summarize(), noMoreSplits, stats.summarizeFinal(), needsPlan, finishedPipelineIds);
+        }
+        // the summary of a running task has no pipelines, the finished ones are reported as left out
+        return new TaskInfo(taskId, taskStatus, lastHeartbeat, outputBuffers.summarize(), noMoreSplits, stats.summarize(), needsPlan, finishedPipelineIds);
+    }
+
+    /**
+     * Returns a summary of this task info that keeps the summarized stats of the finished pipelines of a running task,
+     * so that a receiver that leaves them out of later updates gets the stats of every pipeline once, as it finishes,
+     * instead of all of them with the final task info.
+     */
+    public TaskInfo summarizeWithFinishedPipelines()
+    {
+        if (taskStatus.getState().isDone()) {
+            return summarize();
         }
-        return new TaskInfo(taskId, taskStatus, lastHeartbeat, outputBuffers.summarize(), noMoreSplits, stats.summarize(), needsPlan);
+        List<PipelineStats> pipelines = stats.getPipelines().stream()
+                .filter(pipeline -> finishedPipelineIds.contains(pipeline.getPipelineId()))
+                .map(PipelineStats::summarize)
+                .collect(toImmutableList());
+        return new TaskInfo(taskId, taskStatus, lastHeartbeat, outputBuffers.summarize(), noMoreSplits, stats.summarize().withPipelines(pipelines), needsPlan, finishedPipelineIds);
+    }
+
+    /**
+     * Returns this task info without the stats of those of the given pipelines that are finished, as the receiver
+     * already has their final stats. The pipelines left out are still reported as finished.
+     */
+    public TaskInfo withoutFinishedPipelines(Set<Integer> pipelineIds)
+    {
+        List<PipelineStats> pipelines = stats.getPipelines().stream()
+                .filter(pipeline -> !pipelineIds.contains(pipeline.getPipelineId()) || !finishedPipelineIds.contains(pipeline.getPipelineId()))
+                .collect(toImmutableList());
+        if (pipelines.size() == stats.getPipelines().size()) {
+            return this;
+        }
+        return new TaskInfo(taskId, taskStatus, lastHeartbeat, outputBuffers, noMoreSplits, stats.withPipelines(pipelines), needsPlan, finishedPipelineIds, baseVersion);
+    }
+
+    /**
+     * Adds the final stats of the pipelines {@link #withoutFinishedPipelines(Set)} left out, taken from the given previous
+     * task info. A left out pipeline the previous task info has no final stats for is no longer reported as finished,
+     * so that the receiver asks for its stats again.
+     */
+    public TaskInfo withFinishedPipelinesFrom(TaskInfo previousTaskInfo)
+    {
+        Map<Integer, PipelineStats> pipelines = new TreeMap<>();
+        for (PipelineStats pipeline : stats.getPipelines()) {
+            pipelines.put(pipeline.getPipelineId(), pipeline);
+        }
+        if (pipelines.keySet().containsAll(finishedPipelineIds)) {
+            return this;
+        }
+
+        for (PipelineStats pipeline : previousTaskInfo.getStats().getPipelines()) {
+            int pipelineId = pipeline.getPipelineId();
+            if (finishedPipelineIds.contains(pipelineId) && previousTaskInfo.getFinishedPipelineIds().contains(pipelineId)) {
+                pipelines.putIfAbsent(pipelineId, pipeline);
+            }
+        }
+        return new TaskInfo(
+                taskId,
+                taskStatus,
+                lastHeartbeat,
+                outputBuffers,
+                noMoreSplits,
+                stats.withPipelines(ImmutableList.copyOf(pipelines.values())),
+                needsPlan,
+                Sets.intersection(finishedPipelineIds, pipelines.keySet()),
+                baseVersion);
+    }
+
+    /**
+     * Returns this task info as a delta of the given earlier task info of this task, which the receiver already has.
+     * The operator summaries that did not change since are left out.
+     */
+    public TaskInfo withoutOperatorSummariesOf(TaskInfo baseTaskInfo)
+    {
+        Map<Integer, PipelineStats> basePipelines = pipelinesById(baseTaskInfo);
+        List<PipelineStats> pipelines = stats.getPipelines().stream()
+                .map(pipeline -> {
+                    PipelineStats basePipeline = basePipelines.get(pipeline.getPipelineId());
+                    return basePipeline == null ? pipeline : pipeline.withoutOperatorSummariesOf(basePipeline);
+                })
+                .collect(toImmutableList());
+        return new TaskInfo(
+                taskId,
+                taskStatus,
+                lastHeartbeat,
+                outputBuffers,
+                noMoreSplits,
+                stats.withPipelines(pipelines),
+                needsPlan,
+                finishedPipelineIds,
+                OptionalLong.of(baseTaskInfo.getTaskStatus().getVersion()));
+    }
+
+    /**
+     * Adds the operator summaries {@link #withoutOperatorSummariesOf(TaskInfo)} left out, taken from the task info
+     * this task info is a delta of.
+     */
+    public TaskInfo withOperatorSummariesFrom(TaskInfo baseTaskInfo)
+    {
+        if (!baseVersion.isPresent()) {
+            return this;
+        }
+        checkArgument(
+                baseTaskInfo.getTaskStatus().getVersion() == baseVersion.getAsLong(),
+                "Task info is a delta of version %s, not of version %s",
+                baseVersion.getAsLong(),
+                baseTaskInfo.getTaskStatus().getVersion());
+
+        Map<Integer, PipelineStats> basePipelines = pipelinesById(baseTaskInfo);
+        List<PipelineStats> pipelines = stats.getPipelines().stream()
+                .map(pipeline -> {
+                    PipelineStats basePipeline = basePipelines.get(pipeline.getPipelineId());
+                    return basePipeline == null ? pipeline : pipeline.withOperatorSummariesFrom(basePipeline);
+                })
+                .collect(toImmutableList());
+        return new TaskInfo(taskId, taskStatus, lastHeartbeat, outputBuffers, noMoreSplits, stats.withPipelines(pipelines), needsPlan, finishedPipelineIds);
+    }
+
+    private static Map<Integer, PipelineStats> pipelinesById(TaskInfo taskInfo)
+    {
+        return taskInfo.getStats().getPipelines().stream()
+                .collect(toImmutableMap(PipelineStats::getPipelineId, identity()));
     }
 
     @Override
@@ -138,6 +320,6 @@ public class TaskInfo
 
     public TaskInfo withTaskStatus(TaskStatus newTaskStatus)
     {
-        return new TaskInfo(taskId, newTaskStatus, lastHeartbeat, outputBuffers, noMoreSplits, stats, needsPlan);
+        return new TaskInfo(taskId, newTaskStatus, lastHeartbeat, outputBuffers, noMoreSplits, stats, needsPlan, finishedPipelineIds, baseVersion);
     }
 }
@@ -20,6 +20,7 @@ import com.facebook.presto.execution.buffer.OutputBuffers;
 import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
 import com.facebook.presto.execution.scheduler.TableWriteInfo;
 import com.facebook.presto.memory.MemoryPoolAssignmentsRequest;
+import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
@@ -142,4 +143,11 @@ public interface TaskManager
      * from {@code remoteSourceTaskId} will be ignored.
      */
     void removeRemoteSource(TaskId taskId, TaskId remoteSourceTaskId);
+
+    /**
+     * Takes the splits of {@code sourceId} that are queued, but not started, back from
+     * {@code taskId}, and returns them. The splits will not run on the task anymore. A retried
+     * request with the same {@code withdrawalId} returns the same splits.
+     */
+    TaskSource withdrawQueuedSplits(TaskId taskId, PlanNodeId sourceId, long withdrawalId);
 }
@@ -69,6 +69,8 @@ public class TaskManagerConfig
     private Duration infoRefreshMaxWait = new Duration(0, TimeUnit.SECONDS);
 
     private Duration infoUpdateInterval = new Duration(3, TimeUnit.SECONDS);
+    private boolean infoOmitFinishedPipelinesEnabled;
+    private boolean deltaUpdatesEnabled;
 
     private int writerCount = 1;
     private Integer partitionedWriterCount;
@@ -82,6 +84,9 @@ public class TaskManagerConfig
 
     private BigDecimal levelTimeMultiplier = new BigDecimal(2.0);
 
+    private boolean workStealingEnabled;
+    private int workStealingNodeCount = 1;
+
     private boolean legacyLifespanCompletionCondition;
     private TaskPriorityTracking taskPriorityTracking = TaskPriorityTracking.TASK_FAIR;
 
@@ -131,6 +136,32 @@ public class TaskManagerConfig
         return this;
     }
 
+    public boolean isInfoOmitFinishedPipelinesEnabled()
+    {
+        return infoOmitFinishedPipelinesEnabled;
+    }
+
+    @Config("task.info-omit-finished-pipelines-enabled")
+    @ConfigDescription("Leave the stats of pipelines the coordinator already has final stats for out of task info updates")
+    public TaskManagerConfig setInfoOmitFinishedPipelinesEnabled(boolean infoOmitFinishedPipelinesEnabled)
+    {
+        this.infoOmitFinishedPipelinesEnabled = infoOmitFinishedPipelinesEnabled;
+        return this;
+    }
+
+    public boolean isDeltaUpdatesEnabled()
+    {
+        return deltaUpdatesEnabled;
+    }
+
+    @Config("task.delta-updates-enabled")
+    @ConfigDescription("Acknowledge the version of the last task info and task status received, so that workers send the next ones as deltas of these")
+    public TaskManagerConfig setDeltaUpdatesEnabled(boolean deltaUpdatesEnabled)
+    {
+        this.deltaUpdatesEnabled = deltaUpdatesEnabled;
+        return this;
+    }
+
     public boolean isPerOperatorCpuTimerEnabled()
     {
         return perOperatorCpuTimerEnabled;
@@ -258,6 +289,33 @@ public class TaskManagerConfig
         return this;
     }
 
+    public boolean isWorkStealingEnabled()
+    {
+        return workStealingEnabled;
+    }
+
+    @Config("task.work-stealing-enabled")
+    @ConfigDescription("Give every runner thread its own queue of waiting splits, and let runner threads with an empty queue steal splits from the other queues")
+    public TaskManagerConfig setWorkStealingEnabled(boolean workStealingEnabled)
+    {
+        this.workStealingEnabled = workStealingEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getWorkStealingNodeCount()
+    {
+        return workStealingNodeCount;
+    }
+
+    @Config("task.work-stealing-node-count")
+    @ConfigDescription("Number of groups, such as NUMA nodes, the runner threads are divided into. Runner threads steal splits from their own group first")
+    public TaskManagerConfig setWorkStealingNodeCount(int workStealingNodeCount)
+    {
+        this.workStealingNodeCount = workStealingNodeCount;
+        return this;
+    }
+
     @Min(1)
     public int getMaxWorkerThreads()
     {
@@ -17,9 +17,11 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 
 import java.net.URI;
 import java.util.List;
+import java.util.OptionalLong;
 import java.util.Set;
 
 import static com.facebook.presto.execution.TaskState.PLANNED;
@@ -68,6 +70,44 @@ public class TaskStatus
 
     private final List<ExecutionFailureInfo> failures;
 
+    private final OptionalLong baseVersion;
+
+    public TaskStatus(
+            String taskInstanceId,
+            long version,
+            TaskState state,
+            URI self,
+            Set<Lifespan> completedDriverGroups,
+            List<ExecutionFailureInfo> failures,
+            int queuedPartitionedDrivers,
+            int runningPartitionedDrivers,
+            double outputBufferUtilization,
+            boolean outputBufferOverutilized,
+            long physicalWrittenDataSizeInBytes,
+            long memoryReservationInBytes,
+            long systemMemoryReservationInBytes,
+            long fullGcCount,
+            long fullGcTimeInMillis)
+    {
+        this(
+                taskInstanceId,
+                version,
+                state,
+                self,
+                completedDriverGroups,
+                failures,
+                queuedPartitionedDrivers,
+                runningPartitionedDrivers,
+                outputBufferUtilization,
+                outputBufferOverutilized,
+                physicalWrittenDataSizeInBytes,
+                memoryReservationInBytes,
+                systemMemoryReservationInBytes,
+                fullGcCount,
+                fullGcTimeInMillis,
+                OptionalLong.empty());
+    }
+
     @JsonCreator
     public TaskStatus(
             @JsonProperty("taskInstanceId") String taskInstanceId,
@@ -84,7 +124,8 @@ public class TaskStatus
             @JsonProperty("memoryReservationInBytes") long memoryReservationInBytes,
             @JsonProperty("systemMemoryReservationInBytes") long systemMemoryReservationInBytes,
             @JsonProperty("fullGcCount") long fullGcCount,
-            @JsonProperty("fullGcTimeInMillis") long fullGcTimeInMillis)
+            @JsonProperty("fullGcTimeInMillis") long fullGcTimeInMillis,
+            @JsonProperty("baseVersion") OptionalLong baseVersion)
     {
         this.taskInstanceId = requireNonNull(taskInstanceId, "taskInstanceId is null");
 
@@ -112,6 +153,7 @@ public class TaskStatus
         checkArgument(fullGcCount >= 0, "fullGcCount is negative");
         this.fullGcCount = fullGcCount;
         this.fullGcTimeInMillis = fullGcTimeInMillis;
+        this.baseVersion = requireNonNull(baseVersion, "baseVersion is null");
     }
 
     @JsonProperty
@@ -204,6 +246,66 @@ public class TaskStatus
         return fullGcTimeInMillis;
     }
 
+    /**
+     * Version of the status this status is a delta of, if it is one. A delta leaves out the driver groups that were
+     * already completed in that version.
+     */
+    @JsonProperty
+    public OptionalLong getBaseVersion()
+    {
+        return baseVersion;
+    }
+
+    /**
+     * Returns this status as a delta of the given earlier status of this task, which the receiver already has.
+     */
+    public TaskStatus withoutCompletedDriverGroupsOf(TaskStatus baseTaskStatus)
+    {
+        return withCompletedDriverGroups(
+                ImmutableSet.copyOf(Sets.difference(completedDriverGroups, baseTaskStatus.getCompletedDriverGroups())),
+                OptionalLong.of(baseTaskStatus.getVersion()));
+    }
+
+    /**
+     * Adds the completed driver groups {@link #withoutCompletedDriverGroupsOf(TaskStatus)} left out, taken from the
+     * status this status is a delta of.
+     */
+    public TaskStatus withCompletedDriverGroupsFrom(TaskStatus baseTaskStatus)
+    {
+        if (!baseVersion.isPresent()) {
+            return this;
+        }
+        checkArgument(
+                baseTaskStatus.getVersion() == baseVersion.getAsLong(),
+                "Task status is a delta of version %s, not of version %s",
+                baseVersion.getAsLong(),
+                baseTaskStatus.getVersion());
+        return withCompletedDriverGroups(
+                ImmutableSet.copyOf(Sets.union(completedDriverGroups, baseTaskStatus.getCompletedDriverGroups())),
+                OptionalLong.empty());
+    }
+
+    private TaskStatus withCompletedDriverGroups(Set<Lifespan> completedDriverGroups, OptionalLong baseVersion)
+    {
+        return new TaskStatus(
+                taskInstanceId,
+                version,
+                state,
+                self,
+                completedDriverGroups,
+                failures,
+                queuedPartitionedDrivers,
+                runningPartitionedDrivers,
+                outputBufferUtilization,
+                outputBufferOverutilized,
+                physicalWrittenDataSizeInBytes,
+                memoryReservationInBytes,
+                systemMemoryReservationInBytes,
+                fullGcCount,
+                fullGcTimeInMillis,
+                baseVersion);
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,87 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.buffer;
+
+import com.facebook.presto.spi.page.PageCodecMarker;
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.compress.snappy.SnappyCompressor;
+import io.airlift.compress.snappy.SnappyDecompressor;
+import io.airlift.compress.zstd.ZstdDecompressor;
+
+import static com.facebook.presto.spi.page.PageCodecMarker.SNAPPY_CODEC;
+import static com.facebook.presto.spi.page.PageCodecMarker.ZSTD_CODEC;
+
+public enum PageCompressionCodec
+{
+    LZ4(PageCodecMarker.none()),
+    SNAPPY(SNAPPY_CODEC.set(PageCodecMarker.none())),
+    ZSTD(ZSTD_CODEC.set(PageCodecMarker.none()));
+
+    private final byte codecMarkers;
+
+    PageCompressionCodec(byte codecMarkers)
+    {
+        this.codecMarkers = codecMarkers;
+    }
+
+    public byte getCodecMarkers()
+    {
+        return codecMarkers;
+    }
+
+    public Compressor createCompressor(int zstdCompressionLevel)
+    {
+        switch (this) {
+            case LZ4:
+                return new Lz4Compressor();
+            case SNAPPY:
+                return new SnappyCompressor();
+            case ZSTD:
+                return new ZstdJniCompressor(zstdCompressionLevel);
+        }
+        throw new UnsupportedOperationException("Unsupported page compression codec: " + this);
+    }
+
+    public Decompressor createDecompressor()
+    {
+        switch (this) {
+            case LZ4:
+                return new Lz4Decompressor();
+            case SNAPPY:
+                return new SnappyDecompressor();
+            case ZSTD:
+                return new ZstdDecompressor();
+        }
+        throw new UnsupportedOperationException("Unsupported page compression codec: " + this);
+    }
+
+    public static PageCompressionCodec fromCodecMarkers(byte pageCodecMarkers)
+    {
+        boolean snappy = SNAPPY_CODEC.isSet(pageCodecMarkers);
+        boolean zstd = ZSTD_CODEC.isSet(pageCodecMarkers);
+        if (snappy && zstd) {
+            throw new IllegalArgumentException("Page is marked with more than one compression codec");
+        }
+        if (snappy) {
+            return SNAPPY;
+        }
+        if (zstd) {
+            return ZSTD;
+        }
+        return LZ4;
+    }
+}
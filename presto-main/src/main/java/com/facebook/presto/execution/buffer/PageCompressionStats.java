@@ -0,0 +1,153 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.buffer;
+
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PageCompressionStats
+{
+    private final Map<PageCompressionCodec, CodecStats> codecStats = new EnumMap<>(PageCompressionCodec.class);
+
+    public PageCompressionStats()
+    {
+        for (PageCompressionCodec codec : PageCompressionCodec.values()) {
+            codecStats.put(codec, new CodecStats());
+        }
+    }
+
+    public CodecStats getCodecStats(PageCompressionCodec codec)
+    {
+        return codecStats.get(codec);
+    }
+
+    @Managed
+    @Nested
+    public CodecStats getLz4()
+    {
+        return getCodecStats(PageCompressionCodec.LZ4);
+    }
+
+    @Managed
+    @Nested
+    public CodecStats getSnappy()
+    {
+        return getCodecStats(PageCompressionCodec.SNAPPY);
+    }
+
+    @Managed
+    @Nested
+    public CodecStats getZstd()
+    {
+        return getCodecStats(PageCompressionCodec.ZSTD);
+    }
+
+    public static class CodecStats
+    {
+        private final AtomicLong compressedPages = new AtomicLong();
+        private final AtomicLong compressionInputBytes = new AtomicLong();
+        private final AtomicLong compressionOutputBytes = new AtomicLong();
+        // CPU time is only measured for a sample of the pages
+        private final AtomicLong compressionSampledPages = new AtomicLong();
+        private final AtomicLong compressionSampledCpuNanos = new AtomicLong();
+        private final AtomicLong decompressedPages = new AtomicLong();
+        private final AtomicLong decompressionSampledPages = new AtomicLong();
+        private final AtomicLong decompressionSampledCpuNanos = new AtomicLong();
+
+        public void recordCompression(long inputBytes, long outputBytes)
+        {
+            compressedPages.incrementAndGet();
+            compressionInputBytes.addAndGet(inputBytes);
+            compressionOutputBytes.addAndGet(outputBytes);
+        }
+
+        public void recordSampledCompression(long inputBytes, long outputBytes, long cpuNanos)
+        {
+            recordCompression(inputBytes, outputBytes);
+            compressionSampledPages.incrementAndGet();
+            compressionSampledCpuNanos.addAndGet(cpuNanos);
+        }
+
+        public void recordDecompression()
+        {
+            decompressedPages.incrementAndGet();
+        }
+
+        public void recordSampledDecompression(long cpuNanos)
+        {
+            recordDecompression();
+            decompressionSampledPages.incrementAndGet();
+            decompressionSampledCpuNanos.addAndGet(cpuNanos);
+        }
+
+        @Managed
+        public long getCompressedPages()
+        {
+            return compressedPages.get();
+        }
+
+        @Managed
+        public long getCompressionInputBytes()
+        {
+            return compressionInputBytes.get();
+        }
+
+        @Managed
+        public long getCompressionOutputBytes()
+        {
+            return compressionOutputBytes.get();
+        }
+
+        @Managed
+        public double getCompressionRatio()
+        {
+            long inputBytes = compressionInputBytes.get();
+            if (inputBytes == 0) {
+                return Double.NaN;
+            }
+            return compressionOutputBytes.get() / (double) inputBytes;
+        }
+
+        @Managed
+        public double getCompressionCpuNanosPerPage()
+        {
+            return averageCpuNanos(compressionSampledCpuNanos, compressionSampledPages);
+        }
+
+        @Managed
+        public long getDecompressedPages()
+        {
+            return decompressedPages.get();
+        }
+
+        @Managed
+        public double getDecompressionCpuNanosPerPage()
+        {
+            return averageCpuNanos(decompressionSampledCpuNanos, decompressionSampledPages);
+        }
+
+        private static double averageCpuNanos(AtomicLong sampledCpuNanos, AtomicLong sampledPages)
+        {
+            long pages = sampledPages.get();
+            if (pages == 0) {
+                return Double.NaN;
+            }
+            return sampledCpuNanos.get() / (double) pages;
+        }
+    }
+}
@@ -14,29 +14,58 @@
 package com.facebook.presto.execution.buffer;
 
 import com.facebook.presto.common.block.BlockEncodingSerde;
+import com.facebook.presto.execution.buffer.PageCompressionStats.CodecStats;
 import com.facebook.presto.spi.page.PageCompressor;
 import com.facebook.presto.spi.page.PageDecompressor;
 import com.facebook.presto.spi.page.PagesSerde;
 import com.facebook.presto.spi.spiller.SpillCipher;
 import io.airlift.compress.Compressor;
 import io.airlift.compress.Decompressor;
-import io.airlift.compress.lz4.Lz4Compressor;
-import io.airlift.compress.lz4.Lz4Decompressor;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
 
+import static com.facebook.presto.execution.buffer.PageCompressionCodec.LZ4;
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 public class PagesSerdeFactory
 {
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    // reading the thread CPU time costs about as much as compressing a small page, so only every n-th page is timed
+    private static final int CPU_TIME_SAMPLE_INTERVAL = 16;
+
     private final BlockEncodingSerde blockEncodingSerde;
     private final boolean compressionEnabled;
+    private final PageCompressionCodec compressionCodec;
+    private final int zstdCompressionLevel;
+    private final boolean adaptiveCompressionEnabled;
+    private final PageCompressionStats compressionStats;
 
     public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, boolean compressionEnabled)
+    {
+        this(blockEncodingSerde, compressionEnabled, LZ4, ZstdJniCompressor.DEFAULT_COMPRESSION_LEVEL, false, new PageCompressionStats());
+    }
+
+    public PagesSerdeFactory(
+            BlockEncodingSerde blockEncodingSerde,
+            boolean compressionEnabled,
+            PageCompressionCodec compressionCodec,
+            int zstdCompressionLevel,
+            boolean adaptiveCompressionEnabled,
+            PageCompressionStats compressionStats)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
         this.compressionEnabled = compressionEnabled;
+        this.compressionCodec = requireNonNull(compressionCodec, "compressionCodec is null");
+        checkArgument(zstdCompressionLevel >= 1 && zstdCompressionLevel <= ZstdJniCompressor.MAX_COMPRESSION_LEVEL, "Invalid zstd compression level: %s", zstdCompressionLevel);
+        this.zstdCompressionLevel = zstdCompressionLevel;
+        this.adaptiveCompressionEnabled = adaptiveCompressionEnabled;
+        this.compressionStats = requireNonNull(compressionStats, "compressionStats is null");
     }
 
     public PagesSerde createPagesSerde()
@@ -54,57 +83,155 @@ public class PagesSerdeFactory
         if (compressionEnabled) {
             return new PagesSerde(
                     blockEncodingSerde,
-                    Optional.of(new PageCompressor()
-                    {
-                        Compressor compressor = new Lz4Compressor();
-                        @Override
-                        public int maxCompressedLength(int uncompressedSize)
-                        {
-                            return compressor.maxCompressedLength(uncompressedSize);
-                        }
-
-                        @Override
-                        public int compress(
-                                byte[] input,
-                                int inputOffset,
-                                int inputLength,
-                                byte[] output,
-                                int outputOffset,
-                                int maxOutputLength)
-                        {
-                            return compressor.compress(input, inputOffset, inputLength, output, outputOffset, maxOutputLength);
-                        }
-
-                        @Override
-                        public void compress(ByteBuffer input, ByteBuffer output)
-                        {
-                            compressor.compress(input, output);
-                        }
-                    }),
-                    Optional.of(new PageDecompressor()
-                    {
-                        Decompressor decompressor = new Lz4Decompressor();
-                        @Override
-                        public int decompress(
-                                byte[] input,
-                                int inputOffset,
-                                int inputLength,
-                                byte[] output,
-                                int outputOffset,
-                                int maxOutputLength)
-                        {
-                            return decompressor.decompress(input, inputOffset, inputLength, output, outputOffset, maxOutputLength);
-                        }
-
-                        @Override
-                        public void decompress(ByteBuffer input, ByteBuffer output)
-                        {
-                            decompressor.decompress(input, output);
-                        }
-                    }),
-                    spillCipher);
+                    Optional.of(new CodecPageCompressor(compressionCodec, compressionCodec.createCompressor(zstdCompressionLevel), compressionStats.getCodecStats(compressionCodec))),
+                    Optional.of(new CodecPageDecompressor(compressionStats)),
+                    spillCipher,
+                    adaptiveCompressionEnabled);
         }
 
         return new PagesSerde(blockEncodingSerde, Optional.empty(), Optional.empty(), spillCipher);
     }
+
+    private static long currentThreadCpuTime()
+    {
+        return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+    }
+
+    private static boolean isSampled(long pageCount)
+    {
+        return pageCount % CPU_TIME_SAMPLE_INTERVAL == 0;
+    }
+
+    private static class CodecPageCompressor
+            implements PageCompressor
+    {
+        private final PageCompressionCodec codec;
+        private final Compressor compressor;
+        private final CodecStats stats;
+        private long compressedPages;
+
+        public CodecPageCompressor(PageCompressionCodec codec, Compressor compressor, CodecStats stats)
+        {
+            this.codec = requireNonNull(codec, "codec is null");
+            this.compressor = requireNonNull(compressor, "compressor is null");
+            this.stats = requireNonNull(stats, "stats is null");
+        }
+
+        @Override
+        public int maxCompressedLength(int uncompressedSize)
+        {
+            return compressor.maxCompressedLength(uncompressedSize);
+        }
+
+        @Override
+        public int compress(
+                byte[] input,
+                int inputOffset,
+                int inputLength,
+                byte[] output,
+                int outputOffset,
+                int maxOutputLength)
+        {
+            if (!isSampled(compressedPages++)) {
+                int compressedSize = compressor.compress(input, inputOffset, inputLength, output, outputOffset, maxOutputLength);
+                stats.recordCompression(inputLength, compressedSize);
+                return compressedSize;
+            }
+            long start = currentThreadCpuTime();
+            int compressedSize = compressor.compress(input, inputOffset, inputLength, output, outputOffset, maxOutputLength);
+            stats.recordSampledCompression(inputLength, compressedSize, currentThreadCpuTime() - start);
+            return compressedSize;
+        }
+
+        @Override
+        public void compress(ByteBuffer input, ByteBuffer output)
+        {
+            int inputLength = input.remaining();
+            int outputPosition = output.position();
+            if (!isSampled(compressedPages++)) {
+                compressor.compress(input, output);
+                stats.recordCompression(inputLength, output.position() - outputPosition);
+                return;
+            }
+            long start = currentThreadCpuTime();
+            compressor.compress(input, output);
+            stats.recordSampledCompression(inputLength, output.position() - outputPosition, currentThreadCpuTime() - start);
+        }
+
+        @Override
+        public byte getCodecMarkers()
+        {
+            return codec.getCodecMarkers();
+        }
+    }
+
+    /**
+     * Decompresses pages written with any {@link PageCompressionCodec}, so that a stream mixing
+     * pages from producers with different codec settings still decodes correctly.
+     */
+    private static class CodecPageDecompressor
+            implements PageDecompressor
+    {
+        private final Map<PageCompressionCodec, Decompressor> decompressors = new EnumMap<>(PageCompressionCodec.class);
+        private final PageCompressionStats stats;
+        private long decompressedPages;
+
+        public CodecPageDecompressor(PageCompressionStats stats)
+        {
+            this.stats = requireNonNull(stats, "stats is null");
+        }
+
+        @Override
+        public int decompress(
+                byte[] input,
+                int inputOffset,
+                int inputLength,
+                byte[] output,
+                int outputOffset,
+                int maxOutputLength)
+        {
+            return getDecompressor(LZ4).decompress(input, inputOffset, inputLength, output, outputOffset, maxOutputLength);
+        }
+
+        @Override
+        public void decompress(ByteBuffer input, ByteBuffer output)
+        {
+            decompress(LZ4.getCodecMarkers(), input, output);
+        }
+
+        @Override
+        public void decompress(byte pageCodecMarkers, ByteBuffer input, ByteBuffer output)
+        {
+            PageCompressionCodec codec = PageCompressionCodec.fromCodecMarkers(pageCodecMarkers);
+            Decompressor decompressor = getDecompressor(codec);
+            boolean sampled = isSampled(decompressedPages++);
+            long start = sampled ? currentThreadCpuTime() : 0;
+            if (input.hasArray() && output.hasArray()) {
+                // not every codec implements the ByteBuffer variant for heap buffers
+                int decompressedSize = decompressor.decompress(
+                        input.array(),
+                        input.arrayOffset() + input.position(),
+                        input.remaining(),
+                        output.array(),
+                        output.arrayOffset() + output.position(),
+                        output.remaining());
+                input.position(input.limit());
+                output.position(output.position() + decompressedSize);
+            }
+            else {
+                decompressor.decompress(input, output);
+            }
+            if (sampled) {
+                stats.getCodecStats(codec).recordSampledDecompression(currentThreadCpuTime() - start);
+            }
+            else {
+                stats.getCodecStats(codec).recordDecompression();
+            }
+        }
+
+        private Decompressor getDecompressor(PageCompressionCodec codec)
+        {
+            return decompressors.computeIfAbsent(codec, PageCompressionCodec::createDecompressor);
+        }
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.buffer;
+
+import com.github.luben.zstd.Zstd;
+import io.airlift.compress.Compressor;
+
+import java.nio.ByteBuffer;
+
+import static java.lang.Math.toIntExact;
+import static java.lang.String.format;
+
+public class ZstdJniCompressor
+        implements Compressor
+{
+    public static final int DEFAULT_COMPRESSION_LEVEL = 3;
+    public static final int MAX_COMPRESSION_LEVEL = 22;
+
+    private final int compressionLevel;
+
+    public ZstdJniCompressor()
+    {
+        this(DEFAULT_COMPRESSION_LEVEL);
+    }
+
+    public ZstdJniCompressor(int compressionLevel)
+    {
+        if (compressionLevel < 1 || compressionLevel > MAX_COMPRESSION_LEVEL) {
+            throw new IllegalArgumentException(format("Invalid zstd compression level: %s", compressionLevel));
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    @Override
+    public int maxCompressedLength(int uncompressedSize)
+    {
+        return toIntExact(Zstd.compressBound(uncompressedSize));
+    }
+
+    @Override
+    public int compress(byte[] input, int inputOffset, int inputLength, byte[] output, int outputOffset, int maxOutputLength)
+    {
+        return checkError(Zstd.compressByteArray(output, outputOffset, maxOutputLength, input, inputOffset, inputLength, compressionLevel));
+    }
+
+    @Override
+    public void compress(ByteBuffer input, ByteBuffer output)
+    {
+        int compressedSize;
+        if (input.hasArray() && output.hasArray()) {
+            compressedSize = compress(
+                    input.array(),
+                    input.arrayOffset() + input.position(),
+                    input.remaining(),
+                    output.array(),
+                    output.arrayOffset() + output.position(),
+                    output.remaining());
+        }
+        else if (input.isDirect() && output.isDirect()) {
+            compressedSize = checkError(Zstd.compressDirectByteBuffer(output, output.position(), output.remaining(), input, input.position(), input.remaining(), compressionLevel));
+        }
+        else {
+            // zstd-jni only compresses between two heap arrays or two direct buffers
+            byte[] inputBytes = new byte[input.remaining()];
+            input.duplicate().get(inputBytes);
+            byte[] outputBytes = new byte[maxCompressedLength(inputBytes.length)];
+            compressedSize = compress(inputBytes, 0, inputBytes.length, outputBytes, 0, outputBytes.length);
+            output.duplicate().put(outputBytes, 0, compressedSize);
+        }
+        input.position(input.limit());
+        output.position(output.position() + compressedSize);
+    }
+
+    private static int checkError(long size)
+    {
+        if (Zstd.isError(size)) {
+            throw new RuntimeException(Zstd.getErrorName(size));
+        }
+        return toIntExact(size);
+    }
+}
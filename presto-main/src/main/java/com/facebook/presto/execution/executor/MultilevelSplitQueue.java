@@ -28,63 +28,142 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
 import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.floorMod;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
+/**
+ * Splits waiting for a runner thread, ordered by the multilevel feedback queue.
+ * <p>
+ * The waiting splits can be divided into several runner queues, normally one for every
+ * runner thread. A runner thread takes splits from its own queue and only steals splits
+ * from the other queues when its own queue is empty, trying the queues of the same node
+ * before the queues of the other nodes. The scheduled time of every level is shared by
+ * all runner queues, so the target thread utilization of the levels does not depend on
+ * the number of queues.
+ */
 @ThreadSafe
 public class MultilevelSplitQueue
 {
     static final int[] LEVEL_THRESHOLD_SECONDS = {0, 1, 10, 60, 300};
     static final long LEVEL_CONTRIBUTION_CAP = SECONDS.toNanos(30);
 
-    @GuardedBy("lock")
-    private final List<PriorityQueue<PrioritizedSplitRunner>> levelWaitingSplits;
+    private final List<RunnerQueue> runnerQueues;
+    // for every runner queue, the other runner queues in the order they are stolen from
+    private final int[][] stealingOrder;
+    private final AtomicInteger nextRunnerQueue = new AtomicInteger();
 
     private final AtomicLong[] levelScheduledTime = new AtomicLong[LEVEL_THRESHOLD_SECONDS.length];
+    private final AtomicInteger[] levelWaitingSplitCount = new AtomicInteger[LEVEL_THRESHOLD_SECONDS.length];
 
     private final AtomicLong[] levelMinPriority;
     private final List<CounterStat> selectedLevelCounters;
+    private final CounterStat stolenSplits = new CounterStat();
 
-    private final ReentrantLock lock = new ReentrantLock();
-    private final Condition notEmpty = lock.newCondition();
+    // runner threads that found all runner queues empty wait on this lock
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final Condition notEmpty = idleLock.newCondition();
+    private final AtomicInteger idleRunners = new AtomicInteger();
 
     private final double levelTimeMultiplier;
 
     @Inject
     public MultilevelSplitQueue(TaskManagerConfig taskManagerConfig)
     {
-        this(taskManagerConfig.getLevelTimeMultiplier().doubleValue());
+        this(
+                taskManagerConfig.getLevelTimeMultiplier().doubleValue(),
+                taskManagerConfig.isWorkStealingEnabled() ? taskManagerConfig.getMaxWorkerThreads() : 1,
+                taskManagerConfig.getWorkStealingNodeCount());
     }
 
     public MultilevelSplitQueue(double levelTimeMultiplier)
     {
+        this(levelTimeMultiplier, 1, 1);
+    }
+
+    public MultilevelSplitQueue(double levelTimeMultiplier, int runnerQueueCount, int nodeCount)
+    {
+        checkArgument(runnerQueueCount > 0, "runnerQueueCount must be at least 1");
+        checkArgument(nodeCount > 0, "nodeCount must be at least 1");
+
         this.levelMinPriority = new AtomicLong[LEVEL_THRESHOLD_SECONDS.length];
-        this.levelWaitingSplits = new ArrayList<>(LEVEL_THRESHOLD_SECONDS.length);
         ImmutableList.Builder<CounterStat> counters = ImmutableList.builder();
 
         for (int i = 0; i < LEVEL_THRESHOLD_SECONDS.length; i++) {
             levelScheduledTime[i] = new AtomicLong();
+            levelWaitingSplitCount[i] = new AtomicInteger();
             levelMinPriority[i] = new AtomicLong(-1);
-            levelWaitingSplits.add(new PriorityQueue<>());
             counters.add(new CounterStat());
         }
 
         this.selectedLevelCounters = counters.build();
 
+        ImmutableList.Builder<RunnerQueue> runnerQueues = ImmutableList.builder();
+        for (int i = 0; i < runnerQueueCount; i++) {
+            runnerQueues.add(new RunnerQueue());
+        }
+        this.runnerQueues = runnerQueues.build();
+        this.stealingOrder = computeStealingOrder(runnerQueueCount, Math.min(nodeCount, runnerQueueCount));
+
         this.levelTimeMultiplier = levelTimeMultiplier;
     }
 
+    private static int[][] computeStealingOrder(int runnerQueueCount, int nodeCount)
+    {
+        // consecutive runner queues belong to the same node
+        int[] nodes = new int[runnerQueueCount];
+        for (int queue = 0; queue < runnerQueueCount; queue++) {
+            nodes[queue] = (int) ((long) queue * nodeCount / runnerQueueCount);
+        }
+
+        int[][] stealingOrder = new int[runnerQueueCount][];
+        for (int queue = 0; queue < runnerQueueCount; queue++) {
+            int[] order = new int[runnerQueueCount - 1];
+            int position = 0;
+            for (int offset = 1; offset < runnerQueueCount; offset++) {
+                int victim = (queue + offset) % runnerQueueCount;
+                if (nodes[victim] == nodes[queue]) {
+                    order[position++] = victim;
+                }
+            }
+            for (int offset = 1; offset < runnerQueueCount; offset++) {
+                int victim = (queue + offset) % runnerQueueCount;
+                if (nodes[victim] != nodes[queue]) {
+                    order[position++] = victim;
+                }
+            }
+            stealingOrder[queue] = order;
+        }
+        return stealingOrder;
+    }
+
     private void addLevelTime(int level, long nanos)
     {
         levelScheduledTime[level].addAndGet(nanos);
     }
 
+    @Managed
+    public int getRunnerQueueCount()
+    {
+        return runnerQueues.size();
+    }
+
+    /**
+     * Adds the split to the runner queues in a round robin fashion.
+     */
+    public void offer(PrioritizedSplitRunner split)
+    {
+        offer(split, floorMod(nextRunnerQueue.getAndIncrement(), runnerQueues.size()));
+    }
+
     /**
      * During periods of time when a level has no waiting splits, it will not accumulate
      * scheduled time and will fall behind relative to other levels.
@@ -95,99 +174,92 @@ public class MultilevelSplitQueue
      * To prevent this we set the scheduled time for levels which were empty to the expected
      * scheduled time.
      */
-    public void offer(PrioritizedSplitRunner split)
+    public void offer(PrioritizedSplitRunner split, int runnerQueue)
     {
         checkArgument(split != null, "split is null");
+        checkElementIndex(runnerQueue, runnerQueues.size(), "runnerQueue");
 
         split.setReady();
         int level = split.getPriority().getLevel();
-        lock.lock();
-        try {
-            if (levelWaitingSplits.get(level).isEmpty()) {
-                // Accesses to levelScheduledTime are not synchronized, so we have a data race
-                // here - our level time math will be off. However, the staleness is bounded by
-                // the fact that only running splits that complete during this computation
-                // can update the level time. Therefore, this is benign.
-                long level0Time = getLevel0TargetTime();
-                long levelExpectedTime = (long) (level0Time / Math.pow(levelTimeMultiplier, level));
-                long delta = levelExpectedTime - levelScheduledTime[level].get();
-                levelScheduledTime[level].addAndGet(delta);
-            }
-
-            levelWaitingSplits.get(level).offer(split);
-            notEmpty.signal();
+        if (levelWaitingSplitCount[level].getAndIncrement() == 0) {
+            // Accesses to levelScheduledTime are not synchronized, so we have a data race
+            // here - our level time math will be off. However, the staleness is bounded by
+            // the fact that only running splits that complete during this computation
+            // can update the level time. Therefore, this is benign.
+            long level0Time = getLevel0TargetTime();
+            long levelExpectedTime = (long) (level0Time / Math.pow(levelTimeMultiplier, level));
+            long delta = levelExpectedTime - levelScheduledTime[level].get();
+            levelScheduledTime[level].addAndGet(delta);
         }
-        finally {
-            lock.unlock();
+
+        runnerQueues.get(runnerQueue).offer(split, level);
+
+        // an idle runner thread increments idleRunners before it looks for a split for the last time,
+        // so either it finds this split or it is waiting for the signal
+        if (idleRunners.get() > 0) {
+            idleLock.lock();
+            try {
+                notEmpty.signal();
+            }
+            finally {
+                idleLock.unlock();
+            }
         }
     }
 
-    public PrioritizedSplitRunner take()
+    public PrioritizedSplitRunner take(int runnerQueue)
             throws InterruptedException
     {
+        checkElementIndex(runnerQueue, runnerQueues.size(), "runnerQueue");
         while (true) {
-            lock.lockInterruptibly();
-            try {
-                PrioritizedSplitRunner result;
-                while ((result = pollSplit()) == null) {
-                    notEmpty.await();
+            PrioritizedSplitRunner result = pollSplit(runnerQueue);
+            if (result == null) {
+                idleLock.lockInterruptibly();
+                try {
+                    idleRunners.incrementAndGet();
+                    try {
+                        while ((result = pollSplit(runnerQueue)) == null) {
+                            notEmpty.await();
+                        }
+                    }
+                    finally {
+                        idleRunners.decrementAndGet();
+                    }
                 }
-
-                if (result.updateLevelPriority()) {
-                    offer(result);
-                    continue;
+                finally {
+                    idleLock.unlock();
                 }
-
-                int selectedLevel = result.getPriority().getLevel();
-                levelMinPriority[selectedLevel].set(result.getPriority().getLevelPriority());
-                selectedLevelCounters.get(selectedLevel).update(1);
-
-                return result;
             }
-            finally {
-                lock.unlock();
+
+            if (result.updateLevelPriority()) {
+                offer(result, runnerQueue);
+                continue;
             }
+
+            int selectedLevel = result.getPriority().getLevel();
+            levelMinPriority[selectedLevel].set(result.getPriority().getLevelPriority());
+            selectedLevelCounters.get(selectedLevel).update(1);
+
+            return result;
         }
     }
 
-    /**
-     * Presto attempts to give each level a target amount of scheduled time, which is configurable
-     * using levelTimeMultiplier.
-     * <p>
-     * This function selects the level that has the the lowest ratio of actual to the target time
-     * with the objective of minimizing deviation from the target scheduled time. From this level,
-     * we pick the split with the lowest priority.
-     */
-    @GuardedBy("lock")
-    private PrioritizedSplitRunner pollSplit()
+    private PrioritizedSplitRunner pollSplit(int runnerQueue)
     {
-        long targetScheduledTime = getLevel0TargetTime();
-        double worstRatio = 1;
-        int selectedLevel = -1;
-        for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
-            if (!levelWaitingSplits.get(level).isEmpty()) {
-                long levelTime = levelScheduledTime[level].get();
-                double ratio = levelTime == 0 ? 0 : targetScheduledTime / (1.0 * levelTime);
-                if (selectedLevel == -1 || ratio > worstRatio) {
-                    worstRatio = ratio;
-                    selectedLevel = level;
-                }
-            }
-
-            targetScheduledTime /= levelTimeMultiplier;
+        PrioritizedSplitRunner result = runnerQueues.get(runnerQueue).poll();
+        if (result != null) {
+            return result;
         }
-
-        if (selectedLevel == -1) {
-            return null;
+        for (int victim : stealingOrder[runnerQueue]) {
+            result = runnerQueues.get(victim).poll();
+            if (result != null) {
+                stolenSplits.update(1);
+                return result;
+            }
         }
-
-        PrioritizedSplitRunner result = levelWaitingSplits.get(selectedLevel).poll();
-        checkState(result != null, "pollSplit cannot return null");
-
-        return result;
+        return null;
     }
 
-    @GuardedBy("lock")
     private long getLevel0TargetTime()
     {
         long level0TargetTime = levelScheduledTime[0].get();
@@ -247,27 +319,17 @@ public class MultilevelSplitQueue
     public void remove(PrioritizedSplitRunner split)
     {
         checkArgument(split != null, "split is null");
-        lock.lock();
-        try {
-            for (PriorityQueue<PrioritizedSplitRunner> level : levelWaitingSplits) {
-                level.remove(split);
+        for (RunnerQueue runnerQueue : runnerQueues) {
+            if (runnerQueue.remove(split)) {
+                return;
             }
         }
-        finally {
-            lock.unlock();
-        }
     }
 
     public void removeAll(Collection<PrioritizedSplitRunner> splits)
     {
-        lock.lock();
-        try {
-            for (PriorityQueue<PrioritizedSplitRunner> level : levelWaitingSplits) {
-                level.removeAll(splits);
-            }
-        }
-        finally {
-            lock.unlock();
+        for (RunnerQueue runnerQueue : runnerQueues) {
+            runnerQueue.removeAll(splits);
         }
     }
 
@@ -279,17 +341,11 @@ public class MultilevelSplitQueue
 
     public int size()
     {
-        lock.lock();
-        try {
-            int total = 0;
-            for (PriorityQueue<PrioritizedSplitRunner> level : levelWaitingSplits) {
-                total += level.size();
-            }
-            return total;
-        }
-        finally {
-            lock.unlock();
+        int total = 0;
+        for (AtomicInteger count : levelWaitingSplitCount) {
+            total += count.get();
         }
+        return total;
     }
 
     public static int computeLevel(long threadUsageNanos)
@@ -310,6 +366,13 @@ public class MultilevelSplitQueue
         return levelScheduledTime[level].longValue();
     }
 
+    @Managed
+    @Nested
+    public CounterStat getStolenSplits()
+    {
+        return stolenSplits;
+    }
+
     @Managed
     public long getLevel0Time()
     {
@@ -374,4 +437,108 @@ public class MultilevelSplitQueue
     {
         return selectedLevelCounters.get(4);
     }
+
+    @ThreadSafe
+    private class RunnerQueue
+    {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        @GuardedBy("lock")
+        private final List<PriorityQueue<PrioritizedSplitRunner>> levelWaitingSplits;
+
+        public RunnerQueue()
+        {
+            this.levelWaitingSplits = new ArrayList<>(LEVEL_THRESHOLD_SECONDS.length);
+            for (int i = 0; i < LEVEL_THRESHOLD_SECONDS.length; i++) {
+                levelWaitingSplits.add(new PriorityQueue<>());
+            }
+        }
+
+        public void offer(PrioritizedSplitRunner split, int level)
+        {
+            lock.lock();
+            try {
+                levelWaitingSplits.get(level).offer(split);
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Presto attempts to give each level a target amount of scheduled time, which is configurable
+         * using levelTimeMultiplier.
+         * <p>
+         * This function selects the level that has the the lowest ratio of actual to the target time
+         * with the objective of minimizing deviation from the target scheduled time. From this level,
+         * we pick the split with the lowest priority.
+         */
+        public PrioritizedSplitRunner poll()
+        {
+            lock.lock();
+            try {
+                long targetScheduledTime = getLevel0TargetTime();
+                double worstRatio = 1;
+                int selectedLevel = -1;
+                for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
+                    if (!levelWaitingSplits.get(level).isEmpty()) {
+                        long levelTime = levelScheduledTime[level].get();
+                        double ratio = levelTime == 0 ? 0 : targetScheduledTime / (1.0 * levelTime);
+                        if (selectedLevel == -1 || ratio > worstRatio) {
+                            worstRatio = ratio;
+                            selectedLevel = level;
+                        }
+                    }
+
+                    targetScheduledTime /= levelTimeMultiplier;
+                }
+
+                if (selectedLevel == -1) {
+                    return null;
+                }
+
+                PrioritizedSplitRunner result = levelWaitingSplits.get(selectedLevel).poll();
+                checkState(result != null, "pollSplit cannot return null");
+                levelWaitingSplitCount[selectedLevel].decrementAndGet();
+
+                return result;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean remove(PrioritizedSplitRunner split)
+        {
+            lock.lock();
+            try {
+                for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
+                    if (levelWaitingSplits.get(level).remove(split)) {
+                        levelWaitingSplitCount[level].decrementAndGet();
+                        return true;
+                    }
+                }
+                return false;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        public void removeAll(Collection<PrioritizedSplitRunner> splits)
+        {
+            lock.lock();
+            try {
+                for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
+                    PriorityQueue<PrioritizedSplitRunner> waitingSplits = levelWaitingSplits.get(level);
+                    int sizeBefore = waitingSplits.size();
+                    waitingSplits.removeAll(splits);
+                    levelWaitingSplitCount[level].addAndGet(waitingSplits.size() - sizeBefore);
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
 }
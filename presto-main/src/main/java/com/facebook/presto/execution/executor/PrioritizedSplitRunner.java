@@ -98,6 +98,11 @@ public class PrioritizedSplitRunner
         return taskHandle;
     }
 
+    public SplitRunner getSplitRunner()
+    {
+        return split;
+    }
+
     public ListenableFuture<?> getFinishedFuture()
     {
         return finishedFuture;
@@ -33,6 +33,7 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.Duration;
 import org.weakref.jmx.Managed;
@@ -65,6 +66,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.DoubleSupplier;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.airlift.concurrent.Threads.threadsNamed;
@@ -234,6 +236,8 @@ public class TaskExecutor
         checkArgument(guaranteedNumberOfDriversPerTask > 0, "guaranteedNumberOfDriversPerTask must be at least 1");
         checkArgument(maximumNumberOfDriversPerTask > 0, "maximumNumberOfDriversPerTask must be at least 1");
         checkArgument(guaranteedNumberOfDriversPerTask <= maximumNumberOfDriversPerTask, "guaranteedNumberOfDriversPerTask cannot be greater than maximumNumberOfDriversPerTask");
+        // a runner queue without a runner thread is only served by stealing, which does not happen while the other queues are busy
+        checkArgument(requireNonNull(splitQueue, "splitQueue is null").getRunnerQueueCount() <= runnerThreads, "splitQueue cannot have more runner queues than runnerThreads");
 
         // we manage thread pool size directly, so create an unlimited pool
         this.executor = newCachedThreadPool(threadsNamed("task-processor-%s"));
@@ -270,7 +274,7 @@ public class TaskExecutor
     {
         checkState(!closed, "TaskExecutor is closed");
         for (int i = 0; i < runnerThreads; i++) {
-            addRunnerThread();
+            addRunnerThread(i % waitingSplits.getRunnerQueueCount());
         }
     }
 
@@ -295,10 +299,10 @@ public class TaskExecutor
                 .toString();
     }
 
-    private synchronized void addRunnerThread()
+    private synchronized void addRunnerThread(int runnerQueue)
     {
         try {
-            executor.execute(embedVersion.embedVersion(new TaskRunner()));
+            executor.execute(embedVersion.embedVersion(new TaskRunner(runnerQueue)));
         }
         catch (RejectedExecutionException ignored) {
         }
@@ -409,6 +413,25 @@ public class TaskExecutor
         return finishedFutures;
     }
 
+    /**
+     * Removes the splits of the task that are queued, but not started, and accepted by the filter. The removed
+     * splits are closed without running, and their finished futures never complete.
+     */
+    public List<SplitRunner> removeQueuedSplits(TaskHandle taskHandle, Predicate<SplitRunner> filter)
+    {
+        List<PrioritizedSplitRunner> splits;
+        synchronized (this) {
+            splits = taskHandle.removeQueuedSplits(split -> filter.test(split.getSplitRunner()));
+        }
+
+        ImmutableList.Builder<SplitRunner> removedSplits = ImmutableList.builder();
+        for (PrioritizedSplitRunner split : splits) {
+            split.destroy();
+            removedSplits.add(split.getSplitRunner());
+        }
+        return removedSplits.build();
+    }
+
     private void splitFinished(PrioritizedSplitRunner split)
     {
         completedSplitsPerLevel.incrementAndGet(split.getPriority().getLevel());
@@ -518,6 +541,12 @@ public class TaskExecutor
             implements Runnable
     {
         private final long runnerId = NEXT_RUNNER_ID.getAndIncrement();
+        private final int runnerQueue;
+
+        public TaskRunner(int runnerQueue)
+        {
+            this.runnerQueue = runnerQueue;
+        }
 
         @Override
         public void run()
@@ -527,7 +556,7 @@ public class TaskExecutor
                     // select next worker
                     final PrioritizedSplitRunner split;
                     try {
-                        split = waitingSplits.take();
+                        split = waitingSplits.take(runnerQueue);
                     }
                     catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
@@ -554,8 +583,9 @@ public class TaskExecutor
                             splitFinished(split);
                         }
                         else {
+                            // keep the split on the queue of this runner, which most likely still has its data in the cache
                             if (blocked.isDone()) {
-                                waitingSplits.offer(split);
+                                waitingSplits.offer(split, runnerQueue);
                             }
                             else {
                                 blockedSplits.put(split, blocked);
@@ -563,7 +593,7 @@ public class TaskExecutor
                                     blockedSplits.remove(split);
                                     // reset the level priority to prevent previously-blocked splits from starving existing splits
                                     split.resetLevelPriority();
-                                    waitingSplits.offer(split);
+                                    waitingSplits.offer(split, runnerQueue);
                                 }, executor);
                             }
                         }
@@ -586,7 +616,7 @@ public class TaskExecutor
             finally {
                 // unless we have been closed, we need to replace this thread
                 if (!closed) {
-                    addRunnerThread();
+                    addRunnerThread(runnerQueue);
                 }
             }
         }
@@ -23,11 +23,13 @@ import javax.annotation.concurrent.ThreadSafe;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.OptionalInt;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.DoubleSupplier;
+import java.util.function.Predicate;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkState;
@@ -123,6 +125,21 @@ public class TaskHandle
         queuedLeafSplits.add(split);
     }
 
+    // Removes the queued splits accepted by the filter. The caller must destroy these.
+    public synchronized List<PrioritizedSplitRunner> removeQueuedSplits(Predicate<PrioritizedSplitRunner> filter)
+    {
+        ImmutableList.Builder<PrioritizedSplitRunner> builder = ImmutableList.builder();
+        Iterator<PrioritizedSplitRunner> iterator = queuedLeafSplits.iterator();
+        while (iterator.hasNext()) {
+            PrioritizedSplitRunner split = iterator.next();
+            if (filter.test(split)) {
+                iterator.remove();
+                builder.add(split);
+            }
+        }
+        return builder.build();
+    }
+
     public synchronized void recordIntermediateSplit(PrioritizedSplitRunner split)
     {
         checkState(!destroyed, "Cannot add split to destroyed task handle");
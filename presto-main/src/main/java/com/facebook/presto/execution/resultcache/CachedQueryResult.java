@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.resultcache;
+
+import com.facebook.airlift.log.Logger;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.page.SerializedPage;
+import io.airlift.slice.InputStreamSliceInput;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.readSerializedPages;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Output of a query served from the {@link QueryResultCache}. The pages are read from the
+ * file of the cache entry one at a time as they are returned to the client, so only the
+ * read buffer is held in memory. The file is opened when the result is looked up, so the
+ * result can still be read if the entry is evicted in the meantime.
+ */
+@ThreadSafe
+public class CachedQueryResult
+        implements Closeable
+{
+    private static final Logger log = Logger.get(CachedQueryResult.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final long sizeInBytes;
+
+    @GuardedBy("this")
+    private final InputStream input;
+    @GuardedBy("this")
+    private final Iterator<SerializedPage> pages;
+    @GuardedBy("this")
+    private boolean finished;
+    @GuardedBy("this")
+    private boolean closed;
+
+    CachedQueryResult(InputStream input, long sizeInBytes)
+    {
+        this.input = requireNonNull(input, "input is null");
+        this.pages = readSerializedPages(new InputStreamSliceInput(input, BUFFER_SIZE));
+        checkArgument(sizeInBytes >= 0, "sizeInBytes is negative");
+        this.sizeInBytes = sizeInBytes;
+    }
+
+    /**
+     * Returns the next page of the result, or null once all pages have been returned.
+     * The file is closed after the last page is read.
+     */
+    public synchronized SerializedPage pollPage()
+    {
+        if (finished) {
+            return null;
+        }
+        // a result closed before it was read completely must not look like a complete result
+        checkState(!closed, "cached query result is closed");
+
+        try {
+            if (!pages.hasNext()) {
+                finished = true;
+                close();
+                return null;
+            }
+            SerializedPage page = pages.next();
+            if (!pages.hasNext()) {
+                finished = true;
+                close();
+            }
+            return page;
+        }
+        catch (RuntimeException e) {
+            close();
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to read cached query result", e);
+        }
+    }
+
+    /**
+     * Returns true once all pages of the result have been returned.
+     */
+    public synchronized boolean isFinished()
+    {
+        return finished;
+    }
+
+    /**
+     * Returns the size of the serialized pages of the result.
+     */
+    public long getSizeInBytes()
+    {
+        return sizeInBytes;
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            input.close();
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to close cached query result");
+        }
+    }
+}
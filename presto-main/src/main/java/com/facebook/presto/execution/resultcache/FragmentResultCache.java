@@ -0,0 +1,223 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.resultcache;
+
+import com.facebook.airlift.stats.CounterStat;
+import com.facebook.presto.Session;
+import com.facebook.presto.cost.StatsAndCosts;
+import com.facebook.presto.execution.buffer.PagesSerdeFactory;
+import com.facebook.presto.execution.resultcache.QueryResultCache.ResultRecorder;
+import com.facebook.presto.metadata.FunctionManager;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.operator.DriverFactory;
+import com.facebook.presto.operator.TaskContext;
+import com.facebook.presto.spi.page.PagesSerde;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.facebook.presto.spi.plan.AggregationNode;
+import com.facebook.presto.spi.plan.FilterNode;
+import com.facebook.presto.spi.plan.LimitNode;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.plan.ProjectNode;
+import com.facebook.presto.spi.plan.TableScanNode;
+import com.facebook.presto.spi.plan.TopNNode;
+import com.facebook.presto.sql.planner.LocalExecutionPlanner.LocalExecutionPlan;
+import com.facebook.presto.sql.planner.PlanFragment;
+import com.facebook.presto.sql.planner.TypeProvider;
+import com.facebook.presto.sql.relational.RowExpressionDeterminismEvaluator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.SystemSessionProperties.isFragmentResultCacheEnabled;
+import static com.facebook.presto.execution.resultcache.QueryResultCacheKey.hasDeterministicResult;
+import static com.facebook.presto.execution.resultcache.QueryResultCacheKey.putSessionProperties;
+import static com.facebook.presto.execution.resultcache.QueryResultCacheKey.putString;
+import static com.facebook.presto.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static com.facebook.presto.sql.planner.planPrinter.PlanPrinter.textLogicalPlan;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+
+/**
+ * Worker local cache of the output of leaf plan fragments, stored separately for every split.
+ * The output of a split is the sequence of pages the fragment passes to its output operator,
+ * so the cached output can be replayed regardless of how the output is partitioned.
+ */
+@ThreadSafe
+public class FragmentResultCache
+{
+    // operators that produce the same output for a split every time they process it
+    private static final Set<Class<? extends PlanNode>> CACHEABLE_PLAN_NODES = ImmutableSet.of(
+            TableScanNode.class,
+            FilterNode.class,
+            ProjectNode.class,
+            AggregationNode.class,
+            LimitNode.class,
+            TopNNode.class);
+
+    private final QueryResultCache storage;
+    private final FunctionManager functionManager;
+    private final PagesSerdeFactory pagesSerdeFactory;
+
+    @Inject
+    public FragmentResultCache(FragmentResultCacheConfig config, Metadata metadata)
+    {
+        this(
+                new QueryResultCache(
+                        config.getDirectory(),
+                        config.getMaxSize().toBytes(),
+                        config.getMaxEntrySize().toBytes(),
+                        // results waiting to be written can not use more memory than the cache would hold on disk
+                        config.getMaxSize().toBytes(),
+                        newSingleThreadExecutor(daemonThreadsNamed("fragment-result-cache-writer-%s"))),
+                metadata);
+    }
+
+    public FragmentResultCache(QueryResultCache storage, Metadata metadata)
+    {
+        this.storage = requireNonNull(storage, "storage is null");
+        requireNonNull(metadata, "metadata is null");
+        this.functionManager = metadata.getFunctionManager();
+        this.pagesSerdeFactory = new PagesSerdeFactory(metadata.getBlockEncodingSerde(), true);
+    }
+
+    /**
+     * Returns the context for caching the output of the splits processed by a task, or empty if
+     * the output of the fragment can not be cached.
+     */
+    public Optional<FragmentResultCacheContext> createContext(PlanFragment fragment, LocalExecutionPlan localExecutionPlan, TaskContext taskContext)
+    {
+        Session session = taskContext.getSession();
+        if (!isFragmentResultCacheEnabled(session) || !isCacheable(fragment, localExecutionPlan)) {
+            return Optional.empty();
+        }
+
+        Hasher hasher = Hashing.sha256().newHasher();
+        putString(hasher, textLogicalPlan(
+                fragment.getRoot(),
+                TypeProvider.fromVariables(fragment.getVariables()),
+                functionManager,
+                StatsAndCosts.empty(),
+                session,
+                0,
+                true));
+        putString(hasher, fragment.getPartitioningScheme().getOutputLayout().toString());
+        putSessionProperties(hasher, session);
+        return Optional.of(new FragmentResultCacheContext(this, hasher.hash().toString(), taskContext));
+    }
+
+    private boolean isCacheable(PlanFragment fragment, LocalExecutionPlan localExecutionPlan)
+    {
+        // the output of every driver must be the output of exactly one split
+        List<DriverFactory> driverFactories = localExecutionPlan.getDriverFactories();
+        if (driverFactories.size() != 1 || localExecutionPlan.getTableScanSourceOrder().size() != 1) {
+            return false;
+        }
+        DriverFactory driverFactory = getOnlyElement(driverFactories);
+        if (!driverFactory.isOutputDriver() || !driverFactory.getSourceId().equals(Optional.of(getOnlyElement(localExecutionPlan.getTableScanSourceOrder())))) {
+            return false;
+        }
+
+        PlanNode root = fragment.getRoot();
+        if (!fragment.getRemoteSourceNodes().isEmpty() || searchFrom(root).where(node -> !CACHEABLE_PLAN_NODES.contains(node.getClass())).matches()) {
+            return false;
+        }
+        return hasDeterministicResult(root, new RowExpressionDeterminismEvaluator(functionManager));
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        storage.stop();
+    }
+
+    Optional<List<SerializedPage>> get(QueryResultCacheKey key)
+    {
+        Optional<CachedQueryResult> cachedResult = storage.get(key);
+        if (!cachedResult.isPresent()) {
+            return Optional.empty();
+        }
+
+        // the result of a split is bounded by the memory limit of its recording, so it is read at once
+        try (CachedQueryResult result = cachedResult.get()) {
+            ImmutableList.Builder<SerializedPage> pages = ImmutableList.builder();
+            for (SerializedPage page = result.pollPage(); page != null; page = result.pollPage()) {
+                pages.add(page);
+            }
+            return Optional.of(pages.build());
+        }
+    }
+
+    ResultRecorder recordResult(QueryResultCacheKey key)
+    {
+        return storage.recordResult(key);
+    }
+
+    PagesSerde createPagesSerde()
+    {
+        return pagesSerdeFactory.createPagesSerde();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return storage.getHits();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return storage.getMisses();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getEvictions()
+    {
+        return storage.getEvictions();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBytesSaved()
+    {
+        return storage.getBytesSaved();
+    }
+
+    @Managed
+    public long getEntryCount()
+    {
+        return storage.getEntryCount();
+    }
+
+    @Managed
+    public long getSizeInBytes()
+    {
+        return storage.getSizeInBytes();
+    }
+}
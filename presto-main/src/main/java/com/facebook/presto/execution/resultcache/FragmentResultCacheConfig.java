@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.resultcache;
+
+import com.facebook.airlift.configuration.Config;
+import com.facebook.airlift.configuration.ConfigDescription;
+import io.airlift.units.DataSize;
+
+import javax.validation.constraints.NotNull;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
+public class FragmentResultCacheConfig
+{
+    private Path directory = Paths.get("var/cache/fragment-results");
+    private DataSize maxSize = new DataSize(10, GIGABYTE);
+    private DataSize maxEntrySize = new DataSize(8, MEGABYTE);
+
+    @NotNull
+    public Path getDirectory()
+    {
+        return directory;
+    }
+
+    @Config("fragment-result-cache.directory")
+    @ConfigDescription("Local directory the cached fragment results are stored in")
+    public FragmentResultCacheConfig setDirectory(String directory)
+    {
+        this.directory = Paths.get(directory);
+        return this;
+    }
+
+    @NotNull
+    public DataSize getMaxSize()
+    {
+        return maxSize;
+    }
+
+    @Config("fragment-result-cache.max-size")
+    @ConfigDescription("Maximum total size of the cached fragment results, least recently used results are evicted first")
+    public FragmentResultCacheConfig setMaxSize(DataSize maxSize)
+    {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getMaxEntrySize()
+    {
+        return maxEntrySize;
+    }
+
+    @Config("fragment-result-cache.max-entry-size")
+    @ConfigDescription("Maximum serialized size of the result of a single split that is cached")
+    public FragmentResultCacheConfig setMaxEntrySize(DataSize maxEntrySize)
+    {
+        this.maxEntrySize = maxEntrySize;
+        return this;
+    }
+}
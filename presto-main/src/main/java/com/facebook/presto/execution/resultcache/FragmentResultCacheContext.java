@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.resultcache;
+
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.operator.Operator;
+import com.facebook.presto.operator.TaskContext;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.execution.resultcache.QueryResultCacheKey.putString;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Caches the output of the splits processed by the drivers of a single task.
+ */
+public class FragmentResultCacheContext
+{
+    private final FragmentResultCache cache;
+    private final String fragmentHash;
+    private final TaskContext taskContext;
+
+    FragmentResultCacheContext(FragmentResultCache cache, String fragmentHash, TaskContext taskContext)
+    {
+        this.cache = requireNonNull(cache, "cache is null");
+        this.fragmentHash = requireNonNull(fragmentHash, "fragmentHash is null");
+        this.taskContext = requireNonNull(taskContext, "taskContext is null");
+    }
+
+    /**
+     * Returns the operators of the driver that processes the specified split. When the output of the
+     * split is cached, the operators that compute it are replaced by the cached pages and the returned
+     * driver does not need the split. Otherwise the pages passed to the output operator are recorded
+     * and cached once the driver finishes.
+     */
+    public List<Operator> createOperators(Split split, List<Operator> operators)
+    {
+        requireNonNull(split, "split is null");
+        requireNonNull(operators, "operators is null");
+        checkArgument(operators.size() >= 2, "Expected at least a source and an output operator");
+
+        Optional<String> splitIdentifier = split.getConnectorSplit().getSplitIdentifier();
+        if (!splitIdentifier.isPresent()) {
+            return operators;
+        }
+
+        Hasher hasher = Hashing.sha256().newHasher();
+        putString(hasher, fragmentHash);
+        putString(hasher, split.getConnectorId().toString());
+        putString(hasher, splitIdentifier.get());
+        QueryResultCacheKey key = new QueryResultCacheKey(hasher.hash().toString());
+
+        int outputOperatorIndex = operators.size() - 1;
+        Optional<List<SerializedPage>> cachedPages = cache.get(key);
+        if (cachedPages.isPresent()) {
+            taskContext.recordFragmentResultCacheHit();
+            // the operator that feeds the output operator reports the replayed pages as its output
+            for (Operator operator : operators.subList(0, outputOperatorIndex - 1)) {
+                closeUnusedOperator(operator);
+            }
+            return ImmutableList.of(
+                    new FragmentResultReplayOperator(operators.get(outputOperatorIndex - 1), cachedPages.get(), cache.createPagesSerde()),
+                    operators.get(outputOperatorIndex));
+        }
+
+        taskContext.recordFragmentResultCacheMiss();
+        return ImmutableList.<Operator>builder()
+                .addAll(operators.subList(0, outputOperatorIndex))
+                .add(new FragmentResultRecordingOperator(operators.get(outputOperatorIndex), cache.recordResult(key), cache.createPagesSerde()))
+                .build();
+    }
+
+    private static void closeUnusedOperator(Operator operator)
+    {
+        try {
+            operator.close();
+        }
+        catch (Exception e) {
+            throwIfUnchecked(e);
+            throw new RuntimeException(e);
+        }
+        finally {
+            operator.getOperatorContext().destroy();
+        }
+    }
+}
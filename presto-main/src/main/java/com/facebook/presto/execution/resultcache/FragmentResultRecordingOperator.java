@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.resultcache;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.execution.resultcache.QueryResultCache.ResultRecorder;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.Operator;
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.spi.page.PagesSerde;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Records the pages passed to the output operator of a driver, and caches them once the
+ * driver has passed all of its output. If the driver is closed before that, for example
+ * because the output is no longer needed, nothing is cached.
+ */
+class FragmentResultRecordingOperator
+        implements Operator
+{
+    private final Operator outputOperator;
+    private final ResultRecorder recorder;
+    private final PagesSerde pagesSerde;
+    private final LocalMemoryContext memoryContext;
+    private boolean finishing;
+
+    public FragmentResultRecordingOperator(Operator outputOperator, ResultRecorder recorder, PagesSerde pagesSerde)
+    {
+        this.outputOperator = requireNonNull(outputOperator, "outputOperator is null");
+        this.recorder = requireNonNull(recorder, "recorder is null");
+        this.pagesSerde = requireNonNull(pagesSerde, "pagesSerde is null");
+        this.memoryContext = outputOperator.getOperatorContext().newLocalSystemMemoryContext(FragmentResultRecordingOperator.class.getSimpleName());
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return outputOperator.getOperatorContext();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return outputOperator.isBlocked();
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return outputOperator.needsInput();
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        if (!recorder.isDone()) {
+            recorder.addPage(pagesSerde.serialize(page));
+            memoryContext.setBytes(recorder.getSizeInBytes());
+        }
+        outputOperator.addInput(page);
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        return outputOperator.getOutput();
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        return outputOperator.startMemoryRevoke();
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        outputOperator.finishMemoryRevoke();
+    }
+
+    @Override
+    public void finish()
+    {
+        if (!finishing) {
+            // finish is only called once the upstream operators passed all of their output
+            finishing = true;
+            recorder.commit();
+            memoryContext.setBytes(0);
+        }
+        outputOperator.finish();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return outputOperator.isFinished();
+    }
+
+    @Override
+    public void close()
+            throws Exception
+    {
+        recorder.abandon();
+        memoryContext.close();
+        outputOperator.close();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.resultcache;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.Operator;
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.spi.page.PagesSerde;
+import com.facebook.presto.spi.page.SerializedPage;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Produces the cached output of a split in place of the operator that would have computed it.
+ * The replaced operator is never invoked, only its context is used to report the output.
+ */
+class FragmentResultReplayOperator
+        implements Operator
+{
+    private final Operator replacedOperator;
+    private final Iterator<SerializedPage> pages;
+    private final PagesSerde pagesSerde;
+    private final LocalMemoryContext memoryContext;
+    private long remainingSizeInBytes;
+
+    public FragmentResultReplayOperator(Operator replacedOperator, List<SerializedPage> pages, PagesSerde pagesSerde)
+    {
+        this.replacedOperator = requireNonNull(replacedOperator, "replacedOperator is null");
+        this.pages = requireNonNull(pages, "pages is null").iterator();
+        this.pagesSerde = requireNonNull(pagesSerde, "pagesSerde is null");
+        this.memoryContext = replacedOperator.getOperatorContext().newLocalSystemMemoryContext(FragmentResultReplayOperator.class.getSimpleName());
+        this.remainingSizeInBytes = pages.stream()
+                .mapToLong(SerializedPage::getSizeInBytes)
+                .sum();
+        memoryContext.setBytes(remainingSizeInBytes);
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return replacedOperator.getOperatorContext();
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return false;
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        throw new UnsupportedOperationException(getClass().getName() + " can not take input");
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        if (!pages.hasNext()) {
+            return null;
+        }
+        SerializedPage page = pages.next();
+        remainingSizeInBytes -= page.getSizeInBytes();
+        memoryContext.setBytes(remainingSizeInBytes);
+        return pagesSerde.deserialize(page);
+    }
+
+    @Override
+    public void finish()
+    {
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return !pages.hasNext();
+    }
+
+    @Override
+    public void close()
+            throws Exception
+    {
+        memoryContext.close();
+        replacedOperator.close();
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.resultcache;
+
+import com.facebook.airlift.log.Logger;
+import com.facebook.airlift.stats.CounterStat;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.SliceOutput;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.writeSerializedPages;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+
+/**
+ * Coordinator local cache of the serialized output pages of deterministic queries.
+ * The pages are stored in files in a local directory; only the index is kept in memory,
+ * and a cached result is read from its file while it is returned to the client.
+ * When the total size of the stored results exceeds the configured maximum, the least
+ * recently used results are evicted.
+ * <p>
+ * The output of a query is held in memory while it is being recorded and until it is written
+ * to its file by a background thread. The memory of all these results together is limited to
+ * the configured maximum recording size; results that do not fit are not cached.
+ */
+@ThreadSafe
+public class QueryResultCache
+{
+    private static final Logger log = Logger.get(QueryResultCache.class);
+
+    private static final String FILE_SUFFIX = ".results";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long maxSizeInBytes;
+    private final long maxEntrySizeInBytes;
+    private final long maxRecordingSizeInBytes;
+    private final ExecutorService writerExecutor;
+    private final AtomicLong nextFileId = new AtomicLong();
+
+    // access ordered, so iteration starts with the least recently used entry
+    @GuardedBy("this")
+    private final LinkedHashMap<QueryResultCacheKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    @GuardedBy("this")
+    private long sizeInBytes;
+    // memory of the results that are recorded or waiting to be written
+    @GuardedBy("this")
+    private long recordingSizeInBytes;
+
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat evictions = new CounterStat();
+    private final CounterStat bytesSaved = new CounterStat();
+
+    @Inject
+    public QueryResultCache(QueryResultCacheConfig config)
+    {
+        this(
+                config.getDirectory(),
+                config.getMaxSize().toBytes(),
+                config.getMaxEntrySize().toBytes(),
+                config.getMaxRecordingSize().toBytes(),
+                newSingleThreadExecutor(daemonThreadsNamed("query-result-cache-writer-%s")));
+    }
+
+    public QueryResultCache(Path directory, long maxSizeInBytes, long maxEntrySizeInBytes, long maxRecordingSizeInBytes, ExecutorService writerExecutor)
+    {
+        checkArgument(maxSizeInBytes >= 0, "maxSizeInBytes is negative");
+        checkArgument(maxEntrySizeInBytes >= 0, "maxEntrySizeInBytes is negative");
+        checkArgument(maxRecordingSizeInBytes >= 0, "maxRecordingSizeInBytes is negative");
+        this.directory = requireNonNull(directory, "directory is null");
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.maxEntrySizeInBytes = maxEntrySizeInBytes;
+        this.maxRecordingSizeInBytes = maxRecordingSizeInBytes;
+        this.writerExecutor = requireNonNull(writerExecutor, "writerExecutor is null");
+
+        // the index does not survive restarts, so results left behind by a previous process are unreachable
+        deleteStaleResults();
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        writerExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the cached result, or empty if the result is not cached. The pages of the result
+     * are read from its file while they are returned, so the caller must close the result.
+     */
+    public Optional<CachedQueryResult> get(QueryResultCacheKey key)
+    {
+        requireNonNull(key, "key is null");
+
+        CacheEntry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            misses.update(1);
+            return Optional.empty();
+        }
+
+        InputStream input;
+        try {
+            input = Files.newInputStream(entry.getPath());
+        }
+        catch (IOException | RuntimeException e) {
+            // the entry was evicted while it was being opened, or the file is no longer readable
+            log.debug(e, "Failed to open cached query result %s", entry.getPath());
+            remove(key, entry);
+            misses.update(1);
+            return Optional.empty();
+        }
+
+        hits.update(1);
+        bytesSaved.update(entry.getSizeInBytes());
+        return Optional.of(new CachedQueryResult(input, entry.getSizeInBytes()));
+    }
+
+    /**
+     * Returns a recorder that collects the output pages of a query and stores them in the cache
+     * under the specified key once the query has produced all of its output.
+     */
+    public ResultRecorder recordResult(QueryResultCacheKey key)
+    {
+        return new ResultRecorder(key);
+    }
+
+    private void put(QueryResultCacheKey key, List<SerializedPage> pages, long entrySizeInBytes)
+    {
+        Path path = directory.resolve(key.getHash() + "-" + nextFileId.incrementAndGet() + FILE_SUFFIX);
+        try {
+            Files.createDirectories(directory);
+            try (SliceOutput output = new OutputStreamSliceOutput(Files.newOutputStream(path, CREATE_NEW), BUFFER_SIZE)) {
+                writeSerializedPages(output, pages);
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            log.warn(e, "Failed to write cached query result %s", path);
+            deleteQuietly(path);
+            return;
+        }
+
+        List<Path> removedPaths = new ArrayList<>();
+        synchronized (this) {
+            CacheEntry previous = entries.put(key, new CacheEntry(path, entrySizeInBytes));
+            if (previous != null) {
+                sizeInBytes -= previous.getSizeInBytes();
+                removedPaths.add(previous.getPath());
+            }
+            sizeInBytes += entrySizeInBytes;
+
+            Iterator<CacheEntry> iterator = entries.values().iterator();
+            while (sizeInBytes > maxSizeInBytes && iterator.hasNext()) {
+                CacheEntry eldest = iterator.next();
+                iterator.remove();
+                sizeInBytes -= eldest.getSizeInBytes();
+                removedPaths.add(eldest.getPath());
+                evictions.update(1);
+            }
+        }
+
+        // readers that already opened a removed file can still read it
+        removedPaths.forEach(QueryResultCache::deleteQuietly);
+    }
+
+    private synchronized boolean tryReserveRecording(long bytes)
+    {
+        if (recordingSizeInBytes + bytes > maxRecordingSizeInBytes) {
+            return false;
+        }
+        recordingSizeInBytes += bytes;
+        return true;
+    }
+
+    private synchronized void freeRecording(long bytes)
+    {
+        recordingSizeInBytes -= bytes;
+    }
+
+    private void remove(QueryResultCacheKey key, CacheEntry entry)
+    {
+        synchronized (this) {
+            if (!entries.remove(key, entry)) {
+                return;
+            }
+            sizeInBytes -= entry.getSizeInBytes();
+        }
+        deleteQuietly(entry.getPath());
+    }
+
+    private void deleteStaleResults()
+    {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            paths.forEach(QueryResultCache::deleteQuietly);
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to delete stale query results in %s", directory);
+        }
+    }
+
+    private static void deleteQuietly(Path path)
+    {
+        try {
+            Files.deleteIfExists(path);
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to delete cached query result %s", path);
+        }
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getEvictions()
+    {
+        return evictions;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBytesSaved()
+    {
+        return bytesSaved;
+    }
+
+    @Managed
+    public synchronized long getEntryCount()
+    {
+        return entries.size();
+    }
+
+    @Managed
+    public synchronized long getSizeInBytes()
+    {
+        return sizeInBytes;
+    }
+
+    @Managed
+    public synchronized long getRecordingSizeInBytes()
+    {
+        return recordingSizeInBytes;
+    }
+
+    @NotThreadSafe
+    public class ResultRecorder
+    {
+        private final QueryResultCacheKey key;
+        private final List<SerializedPage> pages = new ArrayList<>();
+        private long entrySizeInBytes;
+        private boolean done;
+
+        private ResultRecorder(QueryResultCacheKey key)
+        {
+            this.key = requireNonNull(key, "key is null");
+        }
+
+        public void addPage(SerializedPage page)
+        {
+            requireNonNull(page, "page is null");
+            if (done) {
+                return;
+            }
+            long pageSizeInBytes = page.getSizeInBytes();
+            if (entrySizeInBytes + pageSizeInBytes > maxEntrySizeInBytes || !tryReserveRecording(pageSizeInBytes)) {
+                // too large to cache, or too many results are recorded at the same time, stop holding on to the pages
+                abandon();
+                return;
+            }
+            entrySizeInBytes += pageSizeInBytes;
+            pages.add(page);
+        }
+
+        /**
+         * Stores the recorded pages in the cache in the background. Must only be called once the query
+         * finished successfully and all of its output pages have been added.
+         */
+        public void commit()
+        {
+            if (done) {
+                return;
+            }
+            done = true;
+            List<SerializedPage> result = ImmutableList.copyOf(pages);
+            long resultSizeInBytes = entrySizeInBytes;
+            pages.clear();
+            try {
+                writerExecutor.execute(() -> {
+                    try {
+                        put(key, result, resultSizeInBytes);
+                    }
+                    finally {
+                        freeRecording(resultSizeInBytes);
+                    }
+                });
+            }
+            catch (RejectedExecutionException e) {
+                // the cache is shutting down
+                freeRecording(resultSizeInBytes);
+            }
+        }
+
+        public void abandon()
+        {
+            if (done) {
+                return;
+            }
+            done = true;
+            pages.clear();
+            freeRecording(entrySizeInBytes);
+        }
+
+        /**
+         * Returns true if the recorder no longer accepts pages, because the result was committed,
+         * abandoned or is too large to be cached.
+         */
+        public boolean isDone()
+        {
+            return done;
+        }
+
+        public long getSizeInBytes()
+        {
+            return done ? 0 : entrySizeInBytes;
+        }
+    }
+
+    private static class CacheEntry
+    {
+        private final Path path;
+        private final long sizeInBytes;
+
+        public CacheEntry(Path path, long sizeInBytes)
+        {
+            this.path = requireNonNull(path, "path is null");
+            checkArgument(sizeInBytes >= 0, "sizeInBytes is negative");
+            this.sizeInBytes = sizeInBytes;
+        }
+
+        public Path getPath()
+        {
+            return path;
+        }
+
+        public long getSizeInBytes()
+        {
+            return sizeInBytes;
+        }
+    }
+}
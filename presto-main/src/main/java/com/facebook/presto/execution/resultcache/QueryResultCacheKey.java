@@ -0,0 +1,242 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.resultcache;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.expressions.DefaultRowExpressionTraversalVisitor;
+import com.facebook.presto.metadata.FunctionManager;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.spi.ConnectorId;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.plan.TableScanNode;
+import com.facebook.presto.spi.relation.CallExpression;
+import com.facebook.presto.spi.relation.DeterminismEvaluator;
+import com.facebook.presto.spi.relation.LambdaDefinitionExpression;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.sql.planner.PlanFragment;
+import com.facebook.presto.sql.planner.SubPlan;
+import com.facebook.presto.sql.planner.plan.DeleteNode;
+import com.facebook.presto.sql.planner.plan.ExplainAnalyzeNode;
+import com.facebook.presto.sql.planner.plan.IndexSourceNode;
+import com.facebook.presto.sql.planner.plan.MetadataDeleteNode;
+import com.facebook.presto.sql.planner.plan.SampleNode;
+import com.facebook.presto.sql.planner.plan.StatisticsWriterNode;
+import com.facebook.presto.sql.planner.plan.TableFinishNode;
+import com.facebook.presto.sql.planner.plan.TableWriterMergeNode;
+import com.facebook.presto.sql.planner.plan.TableWriterNode;
+import com.facebook.presto.sql.relational.RowExpressionDeterminismEvaluator;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.facebook.presto.sql.planner.ExpressionExtractor.extractExpressions;
+import static com.facebook.presto.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static com.facebook.presto.sql.planner.planPrinter.PlanPrinter.textDistributedPlan;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Identifies the result of a query in the {@link QueryResultCache}. The key covers the
+ * distributed plan, the session settings that can change the output, and the data version
+ * of every table that is read.
+ */
+public final class QueryResultCacheKey
+{
+    // deterministic within a query, but evaluated against the start time or the user of each query
+    private static final Set<String> SESSION_DEPENDENT_FUNCTIONS = ImmutableSet.of(
+            "$current_user",
+            "current_date",
+            "current_time",
+            "current_timestamp",
+            "now",
+            "localtime",
+            "localtimestamp");
+
+    private final String hash;
+
+    public QueryResultCacheKey(String hash)
+    {
+        this.hash = requireNonNull(hash, "hash is null");
+    }
+
+    /**
+     * Returns the key of the result of the specified plan, or empty if the result may be
+     * different the next time the plan is executed.
+     */
+    public static Optional<QueryResultCacheKey> createQueryResultCacheKey(SubPlan plan, Session session, Metadata metadata)
+    {
+        if (!isReadOnly(plan)) {
+            return Optional.empty();
+        }
+
+        FunctionManager functionManager = metadata.getFunctionManager();
+        DeterminismEvaluator determinismEvaluator = new RowExpressionDeterminismEvaluator(functionManager);
+        Hasher hasher = Hashing.sha256().newHasher();
+
+        for (PlanFragment fragment : plan.getAllFragments()) {
+            if (!hasDeterministicResult(fragment.getRoot(), determinismEvaluator)) {
+                return Optional.empty();
+            }
+
+            List<TableScanNode> tableScans = searchFrom(fragment.getRoot())
+                    .where(TableScanNode.class::isInstance)
+                    .findAll();
+            for (TableScanNode tableScan : tableScans) {
+                Optional<String> dataVersion = metadata.getTableDataVersion(session, tableScan.getTable());
+                if (!dataVersion.isPresent()) {
+                    return Optional.empty();
+                }
+                putString(hasher, tableScan.getTable().getConnectorId().toString());
+                putString(hasher, dataVersion.get());
+            }
+        }
+
+        putString(hasher, textDistributedPlan(plan, functionManager, session, true));
+
+        putString(hasher, session.getUser());
+        putString(hasher, session.getCatalog().orElse(""));
+        putString(hasher, session.getSchema().orElse(""));
+        putSessionProperties(hasher, session);
+
+        return Optional.of(new QueryResultCacheKey(hasher.hash().toString()));
+    }
+
+    /**
+     * Returns true if the plan neither writes nor deletes data, and does not report execution statistics like
+     * EXPLAIN ANALYZE, so that skipping its execution does not change anything but the time it takes.
+     */
+    static boolean isReadOnly(SubPlan plan)
+    {
+        return plan.getAllFragments().stream()
+                .noneMatch(fragment -> searchFrom(fragment.getRoot())
+                        .where(node -> node instanceof TableWriterNode
+                                || node instanceof TableWriterMergeNode
+                                || node instanceof TableFinishNode
+                                || node instanceof DeleteNode
+                                || node instanceof MetadataDeleteNode
+                                || node instanceof StatisticsWriterNode
+                                || node instanceof ExplainAnalyzeNode)
+                        .matches());
+    }
+
+    /**
+     * Returns true if the plan produces the same result every time it is executed over the same data.
+     */
+    static boolean hasDeterministicResult(PlanNode root, DeterminismEvaluator determinismEvaluator)
+    {
+        if (searchFrom(root).where(node -> node instanceof SampleNode || node instanceof IndexSourceNode).matches()) {
+            return false;
+        }
+        for (RowExpression expression : extractExpressions(root)) {
+            if (!determinismEvaluator.isDeterministic(expression) || isSessionDependent(expression)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the session settings that can change the output of a plan to the hash.
+     */
+    static void putSessionProperties(Hasher hasher, Session session)
+    {
+        putString(hasher, session.getTimeZoneKey().getId());
+        putString(hasher, session.getLocale().toLanguageTag());
+        putProperties(hasher, session.getSystemProperties());
+        Map<String, Map<String, String>> connectorProperties = new TreeMap<>();
+        for (Map.Entry<ConnectorId, Map<String, String>> entry : session.getConnectorProperties().entrySet()) {
+            connectorProperties.put(entry.getKey().toString(), entry.getValue());
+        }
+        for (Map.Entry<String, Map<String, String>> entry : connectorProperties.entrySet()) {
+            putString(hasher, entry.getKey());
+            putProperties(hasher, entry.getValue());
+        }
+    }
+
+    private static boolean isSessionDependent(RowExpression expression)
+    {
+        AtomicBoolean found = new AtomicBoolean();
+        expression.accept(new DefaultRowExpressionTraversalVisitor<AtomicBoolean>()
+        {
+            @Override
+            public Void visitCall(CallExpression call, AtomicBoolean context)
+            {
+                if (SESSION_DEPENDENT_FUNCTIONS.contains(call.getDisplayName())) {
+                    context.set(true);
+                }
+                return super.visitCall(call, context);
+            }
+
+            @Override
+            public Void visitLambda(LambdaDefinitionExpression lambda, AtomicBoolean context)
+            {
+                return lambda.getBody().accept(this, context);
+            }
+        }, found);
+        return found.get();
+    }
+
+    private static void putProperties(Hasher hasher, Map<String, String> properties)
+    {
+        for (Map.Entry<String, String> entry : new TreeMap<>(properties).entrySet()) {
+            putString(hasher, entry.getKey());
+            putString(hasher, entry.getValue());
+        }
+        // terminate the map so that adjacent maps can not be confused with each other
+        hasher.putInt(-1);
+    }
+
+    static void putString(Hasher hasher, String value)
+    {
+        hasher.putInt(value.length());
+        hasher.putString(value, UTF_8);
+    }
+
+    public String getHash()
+    {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        QueryResultCacheKey that = (QueryResultCacheKey) o;
+        return hash.equals(that.hash);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hash.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return hash;
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.airlift.stats.CounterStat;
+import com.facebook.presto.execution.RemoteTask;
+import com.facebook.presto.metadata.InternalNode;
+import com.facebook.presto.metadata.Split;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimap;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Sizes the split queues of the tasks of a source stage, and the split batches fetched for them, from the
+ * rate at which every task completes splits. The queue of a task that completes splits faster than the
+ * average task of the stage grows up to {@link #MAX_QUEUE_SCALE} times the configured maximum number of
+ * pending splits per task, and the queue of a slower task shrinks by up to the same factor.
+ * <p>
+ * A task that completes splits at less than the straggler ratio of the median rate of the stage is a straggler,
+ * and at most one split is queued for it, so that the remaining splits of the stage go to the other tasks. A task
+ * stays a straggler for {@link #STRAGGLER_PROBATION_NANOS}, and its rate is then measured again from scratch with
+ * a regular split queue, so that a task that was slow for a while is not held back by its own reduced queue.
+ * The splits that are queued on a straggler when it is detected, but have not started running, are withdrawn
+ * from it by the scheduler and assigned to the other tasks. Splits already running on a straggler stay there;
+ * they are not run again on other tasks.
+ */
+@ThreadSafe
+public class AdaptiveSplitQueueSizer
+{
+    @VisibleForTesting
+    static final double MAX_QUEUE_SCALE = 4;
+    // the completion rate of a task is sampled at most this often, so that a single status update does not dominate it
+    private static final long MIN_SAMPLE_INTERVAL_NANOS = MILLISECONDS.toNanos(500);
+    // weight of the most recent sample in the completion rate
+    private static final double SAMPLE_WEIGHT = 0.5;
+    private static final int STRAGGLER_MAX_PENDING_SPLITS = 1;
+    // a task is only judged against the other tasks after this many samples of its completion rate
+    @VisibleForTesting
+    static final int STRAGGLER_MIN_SAMPLES = 2;
+    @VisibleForTesting
+    static final long STRAGGLER_PROBATION_NANOS = SECONDS.toNanos(10);
+
+    private final int maxPendingSplitsPerTask;
+    private final boolean scaleQueues;
+    private final OptionalDouble stragglerSplitRateRatio;
+    private final CounterStat throttledStragglerTasks;
+    private final Ticker ticker;
+
+    @GuardedBy("this")
+    private final Map<String, TaskCompletionRate> completionRates = new HashMap<>();
+    @GuardedBy("this")
+    private Map<String, Integer> maxPendingSplits = ImmutableMap.of();
+    // the time at which every current straggler was detected
+    @GuardedBy("this")
+    private final Map<String, Long> stragglers = new HashMap<>();
+    // the stragglers detected since the last call to pollNewStragglers
+    @GuardedBy("this")
+    private final Set<String> newStragglers = new HashSet<>();
+
+    public AdaptiveSplitQueueSizer(int maxPendingSplitsPerTask, Ticker ticker)
+    {
+        this(maxPendingSplitsPerTask, true, OptionalDouble.empty(), new CounterStat(), ticker);
+    }
+
+    public AdaptiveSplitQueueSizer(int maxPendingSplitsPerTask, boolean scaleQueues, OptionalDouble stragglerSplitRateRatio, CounterStat throttledStragglerTasks, Ticker ticker)
+    {
+        checkArgument(maxPendingSplitsPerTask > 0, "maxPendingSplitsPerTask must be positive");
+        this.maxPendingSplitsPerTask = maxPendingSplitsPerTask;
+        this.scaleQueues = scaleQueues;
+        this.stragglerSplitRateRatio = requireNonNull(stragglerSplitRateRatio, "stragglerSplitRateRatio is null");
+        this.throttledStragglerTasks = requireNonNull(throttledStragglerTasks, "throttledStragglerTasks is null");
+        this.ticker = requireNonNull(ticker, "ticker is null");
+    }
+
+    public synchronized void recordAssignments(Multimap<InternalNode, Split> assignments)
+    {
+        for (InternalNode node : assignments.keySet()) {
+            recordAssignedSplits(node.getNodeIdentifier(), assignments.get(node).size());
+        }
+    }
+
+    /**
+     * Samples the number of splits every task has completed so far, and recomputes the queue size of every task.
+     */
+    public synchronized void update(List<RemoteTask> tasks)
+    {
+        for (RemoteTask task : tasks) {
+            updatePartitionedSplitCount(task.getNodeId(), task.getPartitionedSplitCount());
+        }
+        updateMaxPendingSplits();
+    }
+
+    /**
+     * Returns the maximum number of splits that may be queued for the task of the stage on the specified node.
+     */
+    public synchronized int getMaxPendingSplits(String nodeId)
+    {
+        return maxPendingSplits.getOrDefault(nodeId, maxPendingSplitsPerTask);
+    }
+
+    /**
+     * Returns the number of splits that fit into the free space of the split queues of the stage, but at least
+     * one split for every node and at most maxSplitBatchSize splits. Nodes without a task have an empty queue.
+     */
+    public synchronized int getSplitBatchSize(List<RemoteTask> tasks, int nodeCount, int maxSplitBatchSize)
+    {
+        if (!scaleQueues) {
+            return maxSplitBatchSize;
+        }
+        long freeQueueSpace = (long) max(nodeCount - tasks.size(), 0) * maxPendingSplitsPerTask;
+        for (RemoteTask task : tasks) {
+            freeQueueSpace += max(getMaxPendingSplits(task.getNodeId()) - task.getQueuedPartitionedSplitCount(), 0);
+        }
+        return (int) min(max(freeQueueSpace, max(nodeCount, 1)), maxSplitBatchSize);
+    }
+
+    /**
+     * Returns whether the task of the stage on the specified node is a straggler.
+     */
+    public synchronized boolean isStraggler(String nodeId)
+    {
+        return stragglers.containsKey(nodeId);
+    }
+
+    /**
+     * Returns the stragglers detected since the last call, whose queued splits should be withdrawn.
+     */
+    public synchronized Set<String> pollNewStragglers()
+    {
+        Set<String> result = ImmutableSet.copyOf(newStragglers);
+        newStragglers.clear();
+        return result;
+    }
+
+    /**
+     * Records that splits assigned to the task of the stage on the specified node were withdrawn from it,
+     * so that they are not mistaken for splits the task completed.
+     */
+    public synchronized void recordWithdrawnSplits(String nodeId, int splitCount)
+    {
+        TaskCompletionRate completionRate = completionRates.get(nodeId);
+        if (completionRate != null) {
+            completionRate.removeAssignedSplits(splitCount);
+        }
+    }
+
+    @VisibleForTesting
+    synchronized void recordAssignedSplits(String nodeId, int splitCount)
+    {
+        completionRates.computeIfAbsent(nodeId, ignored -> new TaskCompletionRate()).addAssignedSplits(splitCount, ticker.read());
+    }
+
+    @VisibleForTesting
+    synchronized void updatePartitionedSplitCount(String nodeId, int partitionedSplitCount)
+    {
+        TaskCompletionRate completionRate = completionRates.get(nodeId);
+        if (completionRate != null) {
+            completionRate.update(partitionedSplitCount, ticker.read());
+        }
+    }
+
+    @VisibleForTesting
+    synchronized void updateMaxPendingSplits()
+    {
+        long nowNanos = ticker.read();
+        // stragglers are measured again once their probation is over
+        stragglers.entrySet().removeIf(entry -> {
+            if (nowNanos - entry.getValue() < STRAGGLER_PROBATION_NANOS) {
+                return false;
+            }
+            completionRates.get(entry.getKey()).reset(nowNanos);
+            newStragglers.remove(entry.getKey());
+            return true;
+        });
+
+        // the rates of stragglers reflect their reduced split queue, not their speed, so they do not count towards the rate of the stage
+        List<Double> rates = completionRates.entrySet().stream()
+                .filter(entry -> !stragglers.containsKey(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .filter(TaskCompletionRate::hasRate)
+                .map(TaskCompletionRate::getRate)
+                .sorted()
+                .collect(toImmutableList());
+        double totalRate = rates.stream()
+                .mapToDouble(Double::doubleValue)
+                .sum();
+
+        ImmutableMap.Builder<String, Integer> limits = ImmutableMap.builder();
+        completionRates.forEach((nodeId, completionRate) -> {
+            if (stragglers.containsKey(nodeId)) {
+                limits.put(nodeId, STRAGGLER_MAX_PENDING_SPLITS);
+                return;
+            }
+            if (!completionRate.hasRate() || totalRate == 0) {
+                // the task or the stage has not completed any splits yet
+                return;
+            }
+            double medianRate = rates.get(rates.size() / 2);
+            // a task can only be slower than the others if there are other tasks
+            if (stragglerSplitRateRatio.isPresent()
+                    && rates.size() > 1
+                    && completionRate.getSampleCount() >= STRAGGLER_MIN_SAMPLES
+                    && completionRate.getRate() < medianRate * stragglerSplitRateRatio.getAsDouble()) {
+                throttledStragglerTasks.update(1);
+                stragglers.put(nodeId, nowNanos);
+                newStragglers.add(nodeId);
+                limits.put(nodeId, STRAGGLER_MAX_PENDING_SPLITS);
+            }
+            else if (scaleQueues) {
+                double averageRate = totalRate / rates.size();
+                double scale = min(max(completionRate.getRate() / averageRate, 1 / MAX_QUEUE_SCALE), MAX_QUEUE_SCALE);
+                limits.put(nodeId, max((int) Math.round(maxPendingSplitsPerTask * scale), 1));
+            }
+        });
+        maxPendingSplits = limits.build();
+    }
+
+    /**
+     * Rate at which a task completes splits while it has splits to run. The time a task spends with an empty
+     * split queue, waiting for the scheduler, is not counted, so that a starved task is not mistaken for a slow one.
+     */
+    private static class TaskCompletionRate
+    {
+        private long assignedSplits;
+        private long completedSplits;
+        private long lastSampleNanos;
+        // whether all of the assigned splits had been completed at the last sample
+        private boolean idle = true;
+        private double splitsPerSecond = -1;
+        private int sampleCount;
+
+        public void addAssignedSplits(int splitCount, long nowNanos)
+        {
+            if (idle && splitCount > 0) {
+                // the task is busy from now on
+                lastSampleNanos = nowNanos;
+                idle = false;
+            }
+            assignedSplits += splitCount;
+        }
+
+        public void removeAssignedSplits(int splitCount)
+        {
+            assignedSplits -= splitCount;
+            // the withdrawn splits may already have been counted as completed by a sample taken after the withdrawal
+            completedSplits = min(completedSplits, assignedSplits);
+        }
+
+        public void update(int partitionedSplitCount, long nowNanos)
+        {
+            if (idle) {
+                return;
+            }
+            long elapsedNanos = nowNanos - lastSampleNanos;
+            if (elapsedNanos < MIN_SAMPLE_INTERVAL_NANOS) {
+                return;
+            }
+            // splits that are neither queued nor running on the task are completed
+            long completedSplits = max(assignedSplits - partitionedSplitCount, this.completedSplits);
+            double sample = (completedSplits - this.completedSplits) * (double) SECONDS.toNanos(1) / elapsedNanos;
+            boolean drained = completedSplits == assignedSplits;
+            // a task that ran out of splits during the interval was idle for part of it, so the sample only bounds its rate from below
+            if (!hasRate() || !drained || sample > splitsPerSecond) {
+                splitsPerSecond = hasRate() ? SAMPLE_WEIGHT * sample + (1 - SAMPLE_WEIGHT) * splitsPerSecond : sample;
+                sampleCount++;
+            }
+            this.completedSplits = completedSplits;
+            lastSampleNanos = nowNanos;
+            idle = drained;
+        }
+
+        /**
+         * Forgets the rate of the task, so that it is measured again from now on.
+         */
+        public void reset(long nowNanos)
+        {
+            splitsPerSecond = -1;
+            sampleCount = 0;
+            lastSampleNanos = nowNanos;
+        }
+
+        public boolean hasRate()
+        {
+            return splitsPerSecond >= 0;
+        }
+
+        public double getRate()
+        {
+            return splitsPerSecond;
+        }
+
+        public int getSampleCount()
+        {
+            return sampleCount;
+        }
+    }
+}
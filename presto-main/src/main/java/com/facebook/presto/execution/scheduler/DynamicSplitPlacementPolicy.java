@@ -17,11 +17,17 @@ import com.facebook.presto.execution.RemoteTask;
 import com.facebook.presto.execution.scheduler.nodeSelection.NodeSelector;
 import com.facebook.presto.metadata.InternalNode;
 import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Supplier;
 
+import static com.google.common.util.concurrent.Futures.transform;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.util.Objects.requireNonNull;
 
 public class DynamicSplitPlacementPolicy
@@ -29,17 +35,68 @@ public class DynamicSplitPlacementPolicy
 {
     private final NodeSelector nodeSelector;
     private final Supplier<? extends List<RemoteTask>> remoteTasks;
+    private final Optional<AdaptiveSplitQueueSizer> splitQueueSizer;
 
     public DynamicSplitPlacementPolicy(NodeSelector nodeSelector, Supplier<? extends List<RemoteTask>> remoteTasks)
+    {
+        this(nodeSelector, remoteTasks, Optional.empty());
+    }
+
+    public DynamicSplitPlacementPolicy(NodeSelector nodeSelector, Supplier<? extends List<RemoteTask>> remoteTasks, Optional<AdaptiveSplitQueueSizer> splitQueueSizer)
     {
         this.nodeSelector = requireNonNull(nodeSelector, "nodeSelector is null");
         this.remoteTasks = requireNonNull(remoteTasks, "remoteTasks is null");
+        this.splitQueueSizer = requireNonNull(splitQueueSizer, "splitQueueSizer is null");
     }
 
     @Override
     public SplitPlacementResult computeAssignments(Set<Split> splits)
     {
-        return nodeSelector.computeAssignments(splits, remoteTasks.get());
+        List<RemoteTask> tasks = remoteTasks.get();
+        if (!splitQueueSizer.isPresent()) {
+            return nodeSelector.computeAssignments(splits, tasks);
+        }
+
+        AdaptiveSplitQueueSizer sizer = splitQueueSizer.get();
+        sizer.update(tasks);
+        SplitPlacementResult result = nodeSelector.computeAssignments(splits, tasks, sizer::getMaxPendingSplits, sizer::isStraggler);
+        sizer.recordAssignments(result.getAssignments());
+        return result;
+    }
+
+    @Override
+    public int getNextSplitBatchSize(int maxSplitBatchSize)
+    {
+        if (!splitQueueSizer.isPresent()) {
+            return maxSplitBatchSize;
+        }
+        return splitQueueSizer.get().getSplitBatchSize(remoteTasks.get(), nodeSelector.allNodes().size(), maxSplitBatchSize);
+    }
+
+    @Override
+    public List<ListenableFuture<List<Split>>> withdrawSplitsFromStragglers(PlanNodeId sourceId)
+    {
+        if (!splitQueueSizer.isPresent()) {
+            return ImmutableList.of();
+        }
+
+        AdaptiveSplitQueueSizer sizer = splitQueueSizer.get();
+        Set<String> stragglers = sizer.pollNewStragglers();
+        if (stragglers.isEmpty()) {
+            return ImmutableList.of();
+        }
+
+        ImmutableList.Builder<ListenableFuture<List<Split>>> withdrawals = ImmutableList.builder();
+        for (RemoteTask task : remoteTasks.get()) {
+            String nodeId = task.getNodeId();
+            if (stragglers.contains(nodeId)) {
+                withdrawals.add(transform(task.withdrawQueuedSplits(sourceId), splits -> {
+                    sizer.recordWithdrawnSplits(nodeId, splits.size());
+                    return splits;
+                }, directExecutor()));
+            }
+        }
+        return withdrawals.build();
     }
 
     @Override
@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.presto.spi.HostAddress;
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.execution.scheduler.NetworkLocation.ROOT_LOCATION;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Locale.ENGLISH;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Network topology read from a file with a line for every host, for example {@code worker-1.example.com us-east-1a/rack-7}.
+ * The location of a host has a segment for each of the configured segment names, followed by the host itself.
+ * Hosts that are not in the file are at the root location. Empty lines and lines starting with {@code #} are ignored.
+ */
+public class FileNetworkTopology
+        implements NetworkTopology
+{
+    private static final Splitter LINE_SPLITTER = Splitter.on(CharMatcher.whitespace()).omitEmptyStrings().trimResults();
+    private static final Splitter LOCATION_SPLITTER = Splitter.on('/').omitEmptyStrings().trimResults();
+
+    private final List<String> locationSegmentNames;
+    private final Map<String, List<String>> locations;
+
+    @Inject
+    public FileNetworkTopology(FileNetworkTopologyConfig config)
+    {
+        this(config.getNetworkTopologyFile(), config.getLocationSegmentNames());
+    }
+
+    public FileNetworkTopology(File networkTopologyFile, List<String> locationSegmentNames)
+    {
+        requireNonNull(networkTopologyFile, "networkTopologyFile is null");
+        requireNonNull(locationSegmentNames, "locationSegmentNames is null");
+        this.locationSegmentNames = ImmutableList.<String>builder()
+                .addAll(locationSegmentNames)
+                .add("machine")
+                .build();
+        this.locations = readLocations(networkTopologyFile, locationSegmentNames.size());
+    }
+
+    @Override
+    public NetworkLocation locate(HostAddress address)
+    {
+        List<String> segments = locations.get(address.getHostText().toLowerCase(ENGLISH));
+        if (segments == null) {
+            return ROOT_LOCATION;
+        }
+        return NetworkLocation.create(ImmutableList.<String>builder()
+                .addAll(segments)
+                .add(address.getHostText())
+                .build());
+    }
+
+    @Override
+    public List<String> getLocationSegmentNames()
+    {
+        return locationSegmentNames;
+    }
+
+    private static Map<String, List<String>> readLocations(File file, int segmentCount)
+    {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file.toPath());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to read network topology file " + file, e);
+        }
+
+        ImmutableMap.Builder<String, List<String>> locations = ImmutableMap.builder();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            List<String> fields = LINE_SPLITTER.splitToList(line);
+            checkArgument(fields.size() == 2, "Expected a host and a location in line %s of %s: %s", i + 1, file, line);
+            List<String> segments = ImmutableList.copyOf(LOCATION_SPLITTER.split(fields.get(1)));
+            checkArgument(segments.size() == segmentCount, "Expected %s location segments in line %s of %s: %s", segmentCount, i + 1, file, line);
+            locations.put(fields.get(0).toLowerCase(ENGLISH), segments);
+        }
+        return locations.build();
+    }
+}
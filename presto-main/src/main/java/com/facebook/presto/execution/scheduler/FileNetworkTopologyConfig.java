@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.airlift.configuration.Config;
+import com.facebook.airlift.configuration.ConfigDescription;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import java.io.File;
+import java.util.List;
+
+public class FileNetworkTopologyConfig
+{
+    private File networkTopologyFile;
+    private List<String> locationSegmentNames = ImmutableList.of("zone", "rack");
+
+    @NotNull
+    public File getNetworkTopologyFile()
+    {
+        return networkTopologyFile;
+    }
+
+    @Config("node-scheduler.network-topology.file")
+    @ConfigDescription("File that maps every host to its network location")
+    public FileNetworkTopologyConfig setNetworkTopologyFile(File networkTopologyFile)
+    {
+        this.networkTopologyFile = networkTopologyFile;
+        return this;
+    }
+
+    @NotNull
+    @Size(min = 1)
+    public List<String> getLocationSegmentNames()
+    {
+        return locationSegmentNames;
+    }
+
+    public FileNetworkTopologyConfig setLocationSegmentNames(List<String> locationSegmentNames)
+    {
+        this.locationSegmentNames = locationSegmentNames;
+        return this;
+    }
+
+    @Config("node-scheduler.network-topology.segment-names")
+    @ConfigDescription("Names of the segments of the network locations in the network topology file, from the outermost to the innermost")
+    public FileNetworkTopologyConfig setLocationSegmentNames(String locationSegmentNames)
+    {
+        this.locationSegmentNames = ImmutableList.copyOf(Splitter.on(',').omitEmptyStrings().trimResults().split(locationSegmentNames));
+        return this;
+    }
+}
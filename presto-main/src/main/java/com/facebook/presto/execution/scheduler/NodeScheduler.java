@@ -27,6 +27,7 @@ import com.facebook.presto.spi.ConnectorId;
 import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.SplitContext;
 import com.google.common.base.Supplier;
+import com.google.common.base.Ticker;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -41,15 +42,22 @@ import javax.inject.Inject;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalDouble;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 import static com.facebook.airlift.concurrent.MoreFutures.whenAnyCompleteCancelOthers;
+import static com.facebook.presto.execution.scheduler.NetworkLocation.ROOT_LOCATION;
 import static com.facebook.presto.execution.scheduler.NodeSchedulerConfig.NetworkTopologyType;
 import static com.facebook.presto.spi.NodeState.ACTIVE;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -58,6 +66,7 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static java.lang.Math.min;
+import static java.util.Comparator.reverseOrder;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -76,6 +85,9 @@ public class NodeScheduler
     private final NodeTaskMap nodeTaskMap;
     private final boolean useNetworkTopology;
     private final Duration nodeMapRefreshInterval;
+    private final boolean adaptiveSplitQueueSizingEnabled;
+    private final OptionalDouble stragglerSplitRateRatio;
+    private final boolean topologyAwareTaskPlacementEnabled;
 
     @Inject
     public NodeScheduler(NetworkTopology networkTopology, InternalNodeManager nodeManager, NodeSelectionStats nodeSelectionStats, NodeSchedulerConfig config, NodeTaskMap nodeTaskMap)
@@ -102,6 +114,9 @@ public class NodeScheduler
         this.nodeTaskMap = requireNonNull(nodeTaskMap, "nodeTaskMap is null");
         checkArgument(maxSplitsPerNode >= maxPendingSplitsPerTask, "maxSplitsPerNode must be > maxPendingSplitsPerTask");
         this.useNetworkTopology = !config.getNetworkTopology().equals(NetworkTopologyType.LEGACY);
+        this.adaptiveSplitQueueSizingEnabled = config.isAdaptiveSplitQueueSizingEnabled();
+        this.stragglerSplitRateRatio = config.isStragglerThrottlingEnabled() ? OptionalDouble.of(config.getStragglerSplitRateRatio()) : OptionalDouble.empty();
+        this.topologyAwareTaskPlacementEnabled = config.isTopologyAwareTaskPlacementEnabled();
 
         ImmutableList.Builder<CounterStat> builder = ImmutableList.builder();
         if (useNetworkTopology) {
@@ -155,13 +170,27 @@ public class NodeScheduler
                     maxPendingSplitsPerTask,
                     topologicalSplitCounters,
                     networkLocationSegmentNames,
-                    networkLocationCache);
+                    networkLocationCache,
+                    topologyAwareTaskPlacementEnabled);
         }
         else {
             return new SimpleNodeSelector(nodeManager, nodeSelectionStats, nodeTaskMap, includeCoordinator, nodeMap, minCandidates, maxSplitsPerNode, maxPendingSplitsPerTask, maxTasksPerStage);
         }
     }
 
+    public Optional<AdaptiveSplitQueueSizer> createAdaptiveSplitQueueSizer(SplitSchedulerStats schedulerStats)
+    {
+        if (!adaptiveSplitQueueSizingEnabled && !stragglerSplitRateRatio.isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(new AdaptiveSplitQueueSizer(
+                maxPendingSplitsPerTask,
+                adaptiveSplitQueueSizingEnabled,
+                stragglerSplitRateRatio,
+                schedulerStats.getThrottledStragglerTasks(),
+                Ticker.systemTicker()));
+    }
+
     private Supplier<NodeMap> createNodeMapSupplier(ConnectorId connectorId)
     {
         return () -> {
@@ -219,6 +248,52 @@ public class NodeScheduler
         return selectedNodes.build();
     }
 
+    /**
+     * Selects up to limit candidates, taking all candidates of a top level network location before moving to the next one.
+     * The location containing the preferred location comes first, followed by the other locations with the most candidates first.
+     * Candidates with an unknown location are taken last.
+     */
+    public static List<InternalNode> selectNodesByNetworkLocation(
+            int limit,
+            ResettableRandomizedIterator<InternalNode> candidates,
+            Function<InternalNode, NetworkLocation> locator,
+            NetworkLocation preferredLocation)
+    {
+        checkArgument(limit > 0, "limit must be at least 1");
+
+        // the candidates keep their random order within a location
+        Map<NetworkLocation, List<InternalNode>> candidatesByLocation = new HashMap<>();
+        while (candidates.hasNext()) {
+            InternalNode candidate = candidates.next();
+            candidatesByLocation.computeIfAbsent(getTopLevelLocation(locator.apply(candidate)), location -> new ArrayList<>()).add(candidate);
+        }
+
+        NetworkLocation preferredTopLevelLocation = getTopLevelLocation(preferredLocation);
+        List<NetworkLocation> locations = candidatesByLocation.keySet().stream()
+                .sorted(Comparator.<NetworkLocation, Boolean>comparing(location -> location.equals(ROOT_LOCATION) || !location.equals(preferredTopLevelLocation))
+                        .thenComparing(location -> location.equals(ROOT_LOCATION))
+                        .thenComparing(location -> candidatesByLocation.get(location).size(), reverseOrder()))
+                .collect(toImmutableList());
+
+        ImmutableList.Builder<InternalNode> selectedNodes = ImmutableList.builderWithExpectedSize(min(limit, candidates.size()));
+        int selectedCount = 0;
+        for (NetworkLocation location : locations) {
+            for (InternalNode node : candidatesByLocation.get(location)) {
+                if (selectedCount == limit) {
+                    return selectedNodes.build();
+                }
+                selectedNodes.add(node);
+                selectedCount++;
+            }
+        }
+        return selectedNodes.build();
+    }
+
+    private static NetworkLocation getTopLevelLocation(NetworkLocation location)
+    {
+        return location.subLocation(0, min(1, location.getSegments().size()));
+    }
+
     public static ResettableRandomizedIterator<InternalNode> randomizedNodes(NodeMap nodeMap, boolean includeCoordinator, Set<InternalNode> excludedNodes)
     {
         ImmutableList<InternalNode> nodes = nodeMap.getNodesByHostAndPort().values().stream()
@@ -327,6 +402,11 @@ public class NodeScheduler
     }
 
     public static ListenableFuture<?> toWhenHasSplitQueueSpaceFuture(Set<InternalNode> blockedNodes, List<RemoteTask> existingTasks, int spaceThreshold)
+    {
+        return toWhenHasSplitQueueSpaceFuture(blockedNodes, existingTasks, nodeId -> spaceThreshold);
+    }
+
+    public static ListenableFuture<?> toWhenHasSplitQueueSpaceFuture(Set<InternalNode> blockedNodes, List<RemoteTask> existingTasks, ToIntFunction<String> spaceThreshold)
     {
         if (blockedNodes.isEmpty()) {
             return immediateFuture(null);
@@ -339,7 +419,7 @@ public class NodeScheduler
                 .map(InternalNode::getNodeIdentifier)
                 .map(nodeToTaskMap::get)
                 .filter(Objects::nonNull)
-                .map(remoteTask -> remoteTask.whenSplitQueueHasSpace(spaceThreshold))
+                .map(remoteTask -> remoteTask.whenSplitQueueHasSpace(spaceThreshold.applyAsInt(remoteTask.getNodeId())))
                 .collect(toImmutableList());
         if (blockedFutures.isEmpty()) {
             return immediateFuture(null);
@@ -348,12 +428,17 @@ public class NodeScheduler
     }
 
     public static ListenableFuture<?> toWhenHasSplitQueueSpaceFuture(List<RemoteTask> existingTasks, int spaceThreshold)
+    {
+        return toWhenHasSplitQueueSpaceFuture(existingTasks, nodeId -> spaceThreshold);
+    }
+
+    public static ListenableFuture<?> toWhenHasSplitQueueSpaceFuture(List<RemoteTask> existingTasks, ToIntFunction<String> spaceThreshold)
     {
         if (existingTasks.isEmpty()) {
             return immediateFuture(null);
         }
         List<ListenableFuture<?>> stateChangeFutures = existingTasks.stream()
-                .map(remoteTask -> remoteTask.whenSplitQueueHasSpace(spaceThreshold))
+                .map(remoteTask -> remoteTask.whenSplitQueueHasSpace(spaceThreshold.applyAsInt(remoteTask.getNodeId())))
                 .collect(toImmutableList());
         return whenAnyCompleteCancelOthers(stateChangeFutures);
     }
@@ -14,9 +14,12 @@
 package com.facebook.presto.execution.scheduler;
 
 import com.facebook.airlift.configuration.Config;
+import com.facebook.airlift.configuration.ConfigDescription;
 import com.facebook.airlift.configuration.DefunctConfig;
 import com.facebook.airlift.configuration.LegacyConfig;
 
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
@@ -27,6 +30,7 @@ public class NodeSchedulerConfig
     {
         public static final String LEGACY = "legacy";
         public static final String FLAT = "flat";
+        public static final String FILE = "file";
         public static final String BENCHMARK = "benchmark";
     }
 
@@ -35,6 +39,10 @@ public class NodeSchedulerConfig
     private int maxSplitsPerNode = 100;
     private int maxPendingSplitsPerTask = 10;
     private String networkTopology = NetworkTopologyType.LEGACY;
+    private boolean adaptiveSplitQueueSizingEnabled;
+    private boolean stragglerThrottlingEnabled;
+    private double stragglerSplitRateRatio = 0.25;
+    private boolean topologyAwareTaskPlacementEnabled;
 
     @NotNull
     public String getNetworkTopology()
@@ -98,4 +106,58 @@ public class NodeSchedulerConfig
         this.maxSplitsPerNode = maxSplitsPerNode;
         return this;
     }
+
+    public boolean isAdaptiveSplitQueueSizingEnabled()
+    {
+        return adaptiveSplitQueueSizingEnabled;
+    }
+
+    @Config("node-scheduler.adaptive-split-queue-sizing-enabled")
+    @ConfigDescription("Size the split queues of source tasks and the split batches from the split completion rate of the tasks")
+    public NodeSchedulerConfig setAdaptiveSplitQueueSizingEnabled(boolean adaptiveSplitQueueSizingEnabled)
+    {
+        this.adaptiveSplitQueueSizingEnabled = adaptiveSplitQueueSizingEnabled;
+        return this;
+    }
+
+    public boolean isStragglerThrottlingEnabled()
+    {
+        return stragglerThrottlingEnabled;
+    }
+
+    @Config("node-scheduler.straggler-throttling-enabled")
+    @ConfigDescription("Stop queueing splits for source tasks that complete splits much slower than the other tasks of the stage")
+    public NodeSchedulerConfig setStragglerThrottlingEnabled(boolean stragglerThrottlingEnabled)
+    {
+        this.stragglerThrottlingEnabled = stragglerThrottlingEnabled;
+        return this;
+    }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getStragglerSplitRateRatio()
+    {
+        return stragglerSplitRateRatio;
+    }
+
+    @Config("node-scheduler.straggler-split-rate-ratio")
+    @ConfigDescription("Fraction of the median split completion rate of a stage below which a task is a straggler")
+    public NodeSchedulerConfig setStragglerSplitRateRatio(double stragglerSplitRateRatio)
+    {
+        this.stragglerSplitRateRatio = stragglerSplitRateRatio;
+        return this;
+    }
+
+    public boolean isTopologyAwareTaskPlacementEnabled()
+    {
+        return topologyAwareTaskPlacementEnabled;
+    }
+
+    @Config("node-scheduler.topology-aware-task-placement-enabled")
+    @ConfigDescription("Place the tasks of stages that do not read splits in as few top level network locations as possible, starting with the location of the coordinator")
+    public NodeSchedulerConfig setTopologyAwareTaskPlacementEnabled(boolean topologyAwareTaskPlacementEnabled)
+    {
+        this.topologyAwareTaskPlacementEnabled = topologyAwareTaskPlacementEnabled;
+        return this;
+    }
 }
@@ -96,6 +96,8 @@ public class SourcePartitionedScheduler
     private boolean lifespanAdded;
 
     private final Map<Lifespan, ScheduleGroup> scheduleGroups = new HashMap<>();
+    // queued splits being withdrawn from straggler tasks, which must be placed again before the task-wide group is done
+    private final List<ListenableFuture<List<Split>>> splitWithdrawals = new ArrayList<>();
     private State state = State.INITIALIZED;
 
     private SettableFuture<?> whenFinishedOrNewLifespanAdded = SettableFuture.create();
@@ -214,13 +216,19 @@ public class SourcePartitionedScheduler
             Lifespan lifespan = entry.getKey();
             ScheduleGroup scheduleGroup = entry.getValue();
 
+            if (!groupedExecution) {
+                addWithdrawnSplits(scheduleGroup);
+            }
+
             if (scheduleGroup.state == ScheduleGroupState.NO_MORE_SPLITS || scheduleGroup.state == ScheduleGroupState.DONE) {
                 verify(scheduleGroup.nextSplitBatchFuture == null);
             }
             else if (scheduleGroup.pendingSplits.isEmpty()) {
                 // try to get the next batch
                 if (scheduleGroup.nextSplitBatchFuture == null) {
-                    scheduleGroup.nextSplitBatchFuture = splitSource.getNextBatch(scheduleGroup.partitionHandle, lifespan, splitBatchSize);
+                    int nextSplitBatchSize = splitPlacementPolicy.getNextSplitBatchSize(splitBatchSize);
+                    stage.recordSplitBatchSize(nextSplitBatchSize);
+                    scheduleGroup.nextSplitBatchFuture = splitSource.getNextBatch(scheduleGroup.partitionHandle, lifespan, nextSplitBatchSize);
 
                     long start = System.nanoTime();
                     addSuccessCallback(scheduleGroup.nextSplitBatchFuture, () -> stage.recordGetSplitTime(start));
@@ -270,16 +278,24 @@ public class SourcePartitionedScheduler
                 }
 
                 // calculate placements for splits
+                long placementStart = System.nanoTime();
                 SplitPlacementResult splitPlacementResult = splitPlacementPolicy.computeAssignments(scheduleGroup.pendingSplits);
+                stage.recordSplitPlacementTime(placementStart);
                 splitAssignment = splitPlacementResult.getAssignments();
 
                 // remove splits with successful placements
                 splitAssignment.values().forEach(scheduleGroup.pendingSplits::remove); // AbstractSet.removeAll performs terribly here.
                 overallSplitAssignmentCount += splitAssignment.size();
 
+                if (!groupedExecution) {
+                    splitWithdrawals.addAll(splitPlacementPolicy.withdrawSplitsFromStragglers(partitionedNode));
+                }
+
                 // if not completed placed, mark scheduleGroup as blocked on placement
                 if (!scheduleGroup.pendingSplits.isEmpty()) {
                     scheduleGroup.placementFuture = splitPlacementResult.getBlocked();
+                    long queueWaitStart = System.nanoTime();
+                    addSuccessCallback(scheduleGroup.placementFuture, () -> stage.recordSplitQueueWaitTime(queueWaitStart));
                     overallBlockedFutures.add(scheduleGroup.placementFuture);
                     anyBlockedOnPlacements = true;
                 }
@@ -287,7 +303,13 @@ public class SourcePartitionedScheduler
 
             // if no new splits will be assigned, update state and attach completion event
             Multimap<InternalNode, Lifespan> noMoreSplitsNotification = ImmutableMultimap.of();
-            if (scheduleGroup.pendingSplits.isEmpty() && scheduleGroup.state == ScheduleGroupState.NO_MORE_SPLITS) {
+            boolean blockedOnSplitWithdrawals = false;
+            if (scheduleGroup.pendingSplits.isEmpty() && scheduleGroup.state == ScheduleGroupState.NO_MORE_SPLITS && !splitWithdrawals.isEmpty()) {
+                // the withdrawn splits still have to be placed
+                anyBlockedOnPlacements = true;
+                blockedOnSplitWithdrawals = true;
+            }
+            else if (scheduleGroup.pendingSplits.isEmpty() && scheduleGroup.state == ScheduleGroupState.NO_MORE_SPLITS) {
                 scheduleGroup.state = ScheduleGroupState.DONE;
                 if (!lifespan.isTaskWide()) {
                     InternalNode node = ((BucketedSplitPlacementPolicy) splitPlacementPolicy).getNodeForBucket(lifespan.getId());
@@ -305,7 +327,7 @@ public class SourcePartitionedScheduler
             // 1. It always returns a completed future when there are no tasks, regardless of whether all nodes are blocked.
             // 2. The returned future will only be completed when a node with an assigned task becomes unblocked. Other nodes don't trigger future completion.
             // As a result, to avoid busy loops caused by 1, we check pendingSplits.isEmpty() instead of placementFuture.isDone() here.
-            if (scheduleGroup.nextSplitBatchFuture == null && scheduleGroup.pendingSplits.isEmpty() && scheduleGroup.state != ScheduleGroupState.DONE) {
+            if (scheduleGroup.nextSplitBatchFuture == null && scheduleGroup.pendingSplits.isEmpty() && scheduleGroup.state != ScheduleGroupState.DONE && !blockedOnSplitWithdrawals) {
                 anyNotBlocked = true;
             }
         }
@@ -375,6 +397,10 @@ public class SourcePartitionedScheduler
             blockedReason = anyBlockedOnPlacements ? SPLIT_QUEUES_FULL : NO_ACTIVE_DRIVER_GROUP;
         }
 
+        if (!splitWithdrawals.isEmpty()) {
+            // the withdrawn splits can be placed as soon as a withdrawal completes
+            overallBlockedFutures.add(whenAnyComplete(splitWithdrawals));
+        }
         overallBlockedFutures.add(whenFinishedOrNewLifespanAdded);
         return ScheduleResult.blocked(
                 false,
@@ -446,6 +472,18 @@ public class SourcePartitionedScheduler
         whenFinishedOrNewLifespanAdded.set(null);
     }
 
+    private void addWithdrawnSplits(ScheduleGroup scheduleGroup)
+    {
+        Iterator<ListenableFuture<List<Split>>> iterator = splitWithdrawals.iterator();
+        while (iterator.hasNext()) {
+            ListenableFuture<List<Split>> splitWithdrawal = iterator.next();
+            if (splitWithdrawal.isDone()) {
+                scheduleGroup.pendingSplits.addAll(getFutureValue(splitWithdrawal));
+                iterator.remove();
+            }
+        }
+    }
+
     private Set<RemoteTask> assignSplits(Multimap<InternalNode, Split> splitAssignment, Multimap<InternalNode, Lifespan> noMoreSplitsNotification)
     {
         ImmutableSet.Builder<RemoteTask> newTasks = ImmutableSet.builder();
@@ -15,6 +15,9 @@ package com.facebook.presto.execution.scheduler;
 
 import com.facebook.presto.metadata.InternalNode;
 import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
 import java.util.Set;
@@ -26,4 +29,21 @@ public interface SplitPlacementPolicy
     void lockDownNodes();
 
     List<InternalNode> allNodes();
+
+    /**
+     * Returns the number of splits to fetch from the split source for the next call to {@link #computeAssignments(Set)}.
+     */
+    default int getNextSplitBatchSize(int maxSplitBatchSize)
+    {
+        return maxSplitBatchSize;
+    }
+
+    /**
+     * Withdraws the queued splits of the specified source from the tasks that have fallen behind the other tasks
+     * since the last call. The withdrawn splits must be placed again by the caller.
+     */
+    default List<ListenableFuture<List<Split>>> withdrawSplitsFromStragglers(PlanNodeId sourceId)
+    {
+        return ImmutableList.of();
+    }
 }
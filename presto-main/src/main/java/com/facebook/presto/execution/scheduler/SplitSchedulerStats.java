@@ -28,10 +28,14 @@ public class SplitSchedulerStats
 {
     private final TimeStat sleepTime = new TimeStat(MILLISECONDS);
     private final TimeStat getSplitTime = new TimeStat(MILLISECONDS);
+    private final TimeStat splitPlacementTime = new TimeStat(MILLISECONDS);
+    private final TimeStat splitQueueWaitTime = new TimeStat(MILLISECONDS);
+    private final DistributionStat splitBatchSize = new DistributionStat();
     private final CounterStat waitingForSource = new CounterStat();
     private final CounterStat splitQueuesFull = new CounterStat();
     private final CounterStat mixedSplitQueuesFullAndWaitingForSource = new CounterStat();
     private final CounterStat noActiveDriverGroup = new CounterStat();
+    private final CounterStat throttledStragglerTasks = new CounterStat();
     private final DistributionStat splitsPerIteration = new DistributionStat();
 
     @Managed
@@ -48,6 +52,27 @@ public class SplitSchedulerStats
         return getSplitTime;
     }
 
+    @Managed
+    @Nested
+    public TimeStat getSplitPlacementTime()
+    {
+        return splitPlacementTime;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getSplitQueueWaitTime()
+    {
+        return splitQueueWaitTime;
+    }
+
+    @Managed
+    @Nested
+    public DistributionStat getSplitBatchSize()
+    {
+        return splitBatchSize;
+    }
+
     @Managed
     @Nested
     public DistributionStat getSplitsScheduledPerIteration()
@@ -82,4 +107,11 @@ public class SplitSchedulerStats
     {
         return noActiveDriverGroup;
     }
+
+    @Managed
+    @Nested
+    public CounterStat getThrottledStragglerTasks()
+    {
+        return throttledStragglerTasks;
+    }
 }
@@ -22,6 +22,8 @@ import com.google.common.collect.ImmutableSet;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
 public interface NodeSelector
 {
@@ -48,6 +50,18 @@ public interface NodeSelector
      */
     SplitPlacementResult computeAssignments(Set<Split> splits, List<RemoteTask> existingTasks);
 
+    /**
+     * Identifies the nodes for running the specified splits like {@link #computeAssignments(Set, List)}, but limits the number
+     * of splits queued for the task on a node to the limit maxPendingSplits returns for the node identifier, instead of the
+     * configured maximum number of pending splits per task. Nodes for which isStraggler returns true only get splits up to
+     * that limit, even when they have room for more splits of other stages. Node selectors that do not support this use the
+     * configured maximum.
+     */
+    default SplitPlacementResult computeAssignments(Set<Split> splits, List<RemoteTask> existingTasks, ToIntFunction<String> maxPendingSplits, Predicate<String> isStraggler)
+    {
+        return computeAssignments(splits, existingTasks);
+    }
+
     /**
      * Identifies the nodes for running the specified splits based on a precomputed fixed partitioning.
      *
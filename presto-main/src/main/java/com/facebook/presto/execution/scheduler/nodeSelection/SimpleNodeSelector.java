@@ -41,6 +41,8 @@ import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
 import static com.facebook.presto.execution.scheduler.NodeScheduler.calculateLowWatermark;
 import static com.facebook.presto.execution.scheduler.NodeScheduler.randomizedNodes;
@@ -119,6 +121,12 @@ public class SimpleNodeSelector
 
     @Override
     public SplitPlacementResult computeAssignments(Set<Split> splits, List<RemoteTask> existingTasks)
+    {
+        return computeAssignments(splits, existingTasks, nodeId -> maxPendingSplitsPerTask, nodeId -> false);
+    }
+
+    @Override
+    public SplitPlacementResult computeAssignments(Set<Split> splits, List<RemoteTask> existingTasks, ToIntFunction<String> maxPendingSplits, Predicate<String> isStraggler)
     {
         Multimap<InternalNode, Split> assignment = HashMultimap.create();
         NodeMap nodeMap = this.nodeMap.get().get();
@@ -155,9 +163,14 @@ public class SimpleNodeSelector
                 throw new PrestoException(NO_NODES_AVAILABLE, "No nodes available to run query");
             }
 
-            Optional<InternalNodeInfo> chosenNodeInfo = chooseLeastBusyNode(candidateNodes, assignmentStats::getTotalSplitCount, preferredNodeCount, maxSplitsPerNode);
+            Optional<InternalNodeInfo> chosenNodeInfo = chooseLeastBusyNode(
+                    candidateNodes,
+                    assignmentStats::getTotalSplitCount,
+                    preferredNodeCount,
+                    // stragglers are limited to their split queue, regardless of the splits of other stages on the node
+                    node -> isStraggler.test(node.getNodeIdentifier()) ? 0 : maxSplitsPerNode);
             if (!chosenNodeInfo.isPresent()) {
-                chosenNodeInfo = chooseLeastBusyNode(candidateNodes, assignmentStats::getQueuedSplitCountForStage, preferredNodeCount, maxPendingSplitsPerTask);
+                chosenNodeInfo = chooseLeastBusyNode(candidateNodes, assignmentStats::getQueuedSplitCountForStage, preferredNodeCount, node -> maxPendingSplits.applyAsInt(node.getNodeIdentifier()));
             }
 
             if (chosenNodeInfo.isPresent()) {
@@ -185,10 +198,10 @@ public class SimpleNodeSelector
 
         ListenableFuture<?> blocked;
         if (splitWaitingForAnyNode) {
-            blocked = toWhenHasSplitQueueSpaceFuture(existingTasks, calculateLowWatermark(maxPendingSplitsPerTask));
+            blocked = toWhenHasSplitQueueSpaceFuture(existingTasks, nodeId -> calculateLowWatermark(maxPendingSplits.applyAsInt(nodeId)));
         }
         else {
-            blocked = toWhenHasSplitQueueSpaceFuture(blockedExactNodes, existingTasks, calculateLowWatermark(maxPendingSplitsPerTask));
+            blocked = toWhenHasSplitQueueSpaceFuture(blockedExactNodes, existingTasks, nodeId -> calculateLowWatermark(maxPendingSplits.applyAsInt(nodeId)));
         }
         return new SplitPlacementResult(blocked, assignment);
     }
@@ -199,13 +212,14 @@ public class SimpleNodeSelector
         return selectDistributionNodes(nodeMap.get().get(), nodeTaskMap, maxSplitsPerNode, maxPendingSplitsPerTask, splits, existingTasks, bucketNodeMap);
     }
 
-    private Optional<InternalNodeInfo> chooseLeastBusyNode(List<InternalNode> candidateNodes, Function<InternalNode, Integer> splitCountProvider, OptionalInt preferredNodeCount, int maxSplitCount)
+    private Optional<InternalNodeInfo> chooseLeastBusyNode(List<InternalNode> candidateNodes, Function<InternalNode, Integer> splitCountProvider, OptionalInt preferredNodeCount, ToIntFunction<InternalNode> maxSplitCountProvider)
     {
         int min = Integer.MAX_VALUE;
         InternalNode chosenNode = null;
         for (int i = 0; i < candidateNodes.size(); i++) {
             InternalNode node = candidateNodes.get(i);
             int splitCount = splitCountProvider.apply(node);
+            int maxSplitCount = maxSplitCountProvider.applyAsInt(node);
 
             // choose the preferred node first as long as they're not busy
             if (preferredNodeCount.isPresent() && i < preferredNodeCount.getAsInt() && splitCount < maxSplitCount) {
@@ -50,6 +50,7 @@ import static com.facebook.presto.execution.scheduler.NodeScheduler.randomizedNo
 import static com.facebook.presto.execution.scheduler.NodeScheduler.selectDistributionNodes;
 import static com.facebook.presto.execution.scheduler.NodeScheduler.selectExactNodes;
 import static com.facebook.presto.execution.scheduler.NodeScheduler.selectNodes;
+import static com.facebook.presto.execution.scheduler.NodeScheduler.selectNodesByNetworkLocation;
 import static com.facebook.presto.execution.scheduler.NodeScheduler.toWhenHasSplitQueueSpaceFuture;
 import static com.facebook.presto.execution.scheduler.nodeSelection.NodeSelectionUtils.sortedNodes;
 import static com.facebook.presto.spi.StandardErrorCode.NO_NODES_AVAILABLE;
@@ -71,6 +72,7 @@ public class TopologyAwareNodeSelector
     private final List<CounterStat> topologicalSplitCounters;
     private final List<String> networkLocationSegmentNames;
     private final NetworkLocationCache networkLocationCache;
+    private final boolean topologyAwareTaskPlacementEnabled;
 
     public TopologyAwareNodeSelector(
             InternalNodeManager nodeManager,
@@ -82,7 +84,8 @@ public class TopologyAwareNodeSelector
             int maxPendingSplitsPerTask,
             List<CounterStat> topologicalSplitCounters,
             List<String> networkLocationSegmentNames,
-            NetworkLocationCache networkLocationCache)
+            NetworkLocationCache networkLocationCache,
+            boolean topologyAwareTaskPlacementEnabled)
     {
         this.nodeManager = requireNonNull(nodeManager, "nodeManager is null");
         this.nodeTaskMap = requireNonNull(nodeTaskMap, "nodeTaskMap is null");
@@ -94,6 +97,7 @@ public class TopologyAwareNodeSelector
         this.topologicalSplitCounters = requireNonNull(topologicalSplitCounters, "topologicalSplitCounters is null");
         this.networkLocationSegmentNames = requireNonNull(networkLocationSegmentNames, "networkLocationSegmentNames is null");
         this.networkLocationCache = requireNonNull(networkLocationCache, "networkLocationCache is null");
+        this.topologyAwareTaskPlacementEnabled = topologyAwareTaskPlacementEnabled;
     }
 
     @Override
@@ -118,7 +122,13 @@ public class TopologyAwareNodeSelector
     @Override
     public List<InternalNode> selectRandomNodes(int limit, Set<InternalNode> excludedNodes)
     {
-        return selectNodes(limit, randomizedNodes(nodeMap.get().get(), includeCoordinator, excludedNodes));
+        ResettableRandomizedIterator<InternalNode> candidates = randomizedNodes(nodeMap.get().get(), includeCoordinator, excludedNodes);
+        if (topologyAwareTaskPlacementEnabled) {
+            // keep the tasks close to each other and to the coordinator, which receives the output of the query
+            NetworkLocation coordinatorLocation = networkLocationCache.get(nodeManager.getCurrentNode().getHostAndPort());
+            return selectNodesByNetworkLocation(limit, candidates, node -> networkLocationCache.get(node.getHostAndPort()), coordinatorLocation);
+        }
+        return selectNodes(limit, candidates);
     }
 
     @Override
@@ -16,6 +16,7 @@ package com.facebook.presto.memory;
 import com.facebook.airlift.http.client.HttpClient;
 import com.facebook.airlift.json.JsonCodec;
 import com.facebook.airlift.log.Logger;
+import com.facebook.presto.eventlistener.EventListenerManager;
 import com.facebook.presto.execution.LocationFactory;
 import com.facebook.presto.execution.QueryExecution;
 import com.facebook.presto.execution.QueryIdGenerator;
@@ -30,6 +31,7 @@ import com.facebook.presto.server.smile.Codec;
 import com.facebook.presto.server.smile.SmileCodec;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.eventlistener.LowMemoryKillerEvent;
 import com.facebook.presto.spi.memory.ClusterMemoryPoolManager;
 import com.facebook.presto.spi.memory.MemoryPoolId;
 import com.facebook.presto.spi.memory.MemoryPoolInfo;
@@ -51,6 +53,7 @@ import javax.annotation.concurrent.GuardedBy;
 import javax.inject.Inject;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -79,6 +82,8 @@ import static com.facebook.presto.server.smile.JsonCodecWrapper.wrapJsonCodec;
 import static com.facebook.presto.spi.NodeState.ACTIVE;
 import static com.facebook.presto.spi.NodeState.SHUTTING_DOWN;
 import static com.facebook.presto.spi.StandardErrorCode.CLUSTER_OUT_OF_MEMORY;
+import static com.facebook.presto.spi.eventlistener.LowMemoryKillerEvent.Action.KILL_QUERY;
+import static com.facebook.presto.spi.eventlistener.LowMemoryKillerEvent.Action.REVOKE_MEMORY;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
@@ -86,11 +91,14 @@ import static com.google.common.collect.MoreCollectors.toOptional;
 import static com.google.common.collect.Sets.difference;
 import static io.airlift.units.DataSize.succinctBytes;
 import static io.airlift.units.Duration.nanosSince;
+import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.lang.String.format;
+import static java.time.Duration.ofNanos;
 import static java.util.AbstractMap.SimpleEntry;
 import static java.util.Comparator.comparingLong;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.weakref.jmx.ObjectNames.generatedNameOf;
 
 public class ClusterMemoryManager
@@ -111,12 +119,15 @@ public class ClusterMemoryManager
     private final boolean enabled;
     private final LowMemoryKiller lowMemoryKiller;
     private final Duration killOnOutOfMemoryDelay;
+    private final double memoryRevokingThreshold;
+    private final EventListenerManager eventListenerManager;
     private final String coordinatorId;
     private final AtomicLong memoryPoolAssignmentsVersion = new AtomicLong();
     private final AtomicLong clusterUserMemoryReservation = new AtomicLong();
     private final AtomicLong clusterTotalMemoryReservation = new AtomicLong();
     private final AtomicLong clusterMemoryBytes = new AtomicLong();
     private final AtomicLong queriesKilledDueToOutOfMemory = new AtomicLong();
+    private final AtomicLong memoryRevokingRequests = new AtomicLong();
     private final boolean isWorkScheduledOnCoordinator;
     private final boolean isBinaryTransportEnabled;
 
@@ -135,6 +146,10 @@ public class ClusterMemoryManager
     @GuardedBy("this")
     private QueryId lastKilledQuery;
 
+    // the time the nodes were first asked to revoke memory since the general pool went above the revoking threshold, or null
+    @GuardedBy("this")
+    private Long memoryRevokingRequestTime;
+
     @Inject
     public ClusterMemoryManager(
             @ForMemoryManager HttpClient httpClient,
@@ -151,7 +166,8 @@ public class ClusterMemoryManager
             MemoryManagerConfig config,
             NodeMemoryConfig nodeMemoryConfig,
             NodeSchedulerConfig schedulerConfig,
-            InternalCommunicationConfig communicationConfig)
+            InternalCommunicationConfig communicationConfig,
+            EventListenerManager eventListenerManager)
     {
         requireNonNull(config, "config is null");
         requireNonNull(nodeMemoryConfig, "nodeMemoryConfig is null");
@@ -168,6 +184,8 @@ public class ClusterMemoryManager
         this.coordinatorId = queryIdGenerator.getCoordinatorId();
         this.enabled = serverConfig.isCoordinator();
         this.killOnOutOfMemoryDelay = config.getKillOnOutOfMemoryDelay();
+        this.memoryRevokingThreshold = config.getMemoryRevokingThreshold();
+        this.eventListenerManager = requireNonNull(eventListenerManager, "eventListenerManager is null");
         this.isWorkScheduledOnCoordinator = schedulerConfig.isIncludeCoordinator();
         this.isBinaryTransportEnabled = communicationConfig.isBinaryTransportEnabled();
         if (this.isBinaryTransportEnabled) {
@@ -275,23 +293,38 @@ public class ClusterMemoryManager
         clusterUserMemoryReservation.set(totalUserMemoryBytes);
         clusterTotalMemoryReservation.set(totalMemoryBytes);
 
+        List<MemoryInfo> nodeMemoryInfos = getNodeMemoryInfos();
+        Optional<Duration> memoryRevokingGracePeriod = lowMemoryKiller.getMemoryRevokingGracePeriod();
+        // revoking starts before the nodes are blocked, so that they have spilled by the time the cluster runs out of memory
+        if (!memoryRevokingGracePeriod.isPresent() || !(outOfMemory || isGeneralPoolAboveMemoryRevokingThreshold())) {
+            memoryRevokingRequestTime = null;
+        }
+        else if (memoryRevokingRequestTime == null) {
+            memoryRevokingRequestTime = System.nanoTime();
+            memoryRevokingRequests.incrementAndGet();
+            reportLowMemoryKillerAction(REVOKE_MEMORY, Optional.empty(), nodeMemoryInfos);
+        }
+
         boolean killOnOomDelayPassed = nanosSince(lastTimeNotOutOfMemory).compareTo(killOnOutOfMemoryDelay) > 0;
+        boolean memoryRevokingGracePeriodPassed = isMemoryRevokingGracePeriodPassed(memoryRevokingGracePeriod, nodeMemoryInfos);
         boolean lastKilledQueryGone = isLastKilledQueryGone();
         boolean shouldCallOomKiller = !(lowMemoryKiller instanceof NoneLowMemoryKiller) &&
                 outOfMemory &&
                 !queryKilled &&
                 killOnOomDelayPassed &&
+                memoryRevokingGracePeriodPassed &&
                 lastKilledQueryGone;
 
         if (shouldCallOomKiller) {
-            callOomKiller(runningQueries);
+            callOomKiller(runningQueries, nodeMemoryInfos);
         }
         else {
             // if the cluster is out of memory and we didn't trigger the oom killer we log the state to make debugging easier
             if (outOfMemory) {
-                log.debug("The cluster is out of memory and the OOM killer is not called (query killed: %s, kill on OOM delay passed: %s, last killed query gone: %s).",
+                log.debug("The cluster is out of memory and the OOM killer is not called (query killed: %s, kill on OOM delay passed: %s, memory revoking grace period passed: %s, last killed query gone: %s).",
                         queryKilled,
                         killOnOomDelayPassed,
+                        memoryRevokingGracePeriodPassed,
                         lastKilledQueryGone);
             }
         }
@@ -304,29 +337,27 @@ public class ClusterMemoryManager
 
         updatePools(countByPool);
 
+        // the nodes are asked to revoke memory for as long as the general pool is above the revoking threshold
+        boolean memoryRevokingRequested = memoryRevokingRequestTime != null;
         MemoryPoolAssignmentsRequest assignmentsRequest;
         if (pools.containsKey(RESERVED_POOL)) {
-            assignmentsRequest = updateAssignments(runningQueries);
+            assignmentsRequest = updateAssignments(runningQueries, memoryRevokingRequested);
         }
         else {
             // If reserved pool is not enabled, we don't create a MemoryPoolAssignmentsRequest that puts all the queries
             // in the general pool (as they already are). In this case we create an effectively NOOP MemoryPoolAssignmentsRequest.
             // Once the reserved pool is removed we should get rid of the logic of putting queries into reserved pool including
             // this piece of code.
-            assignmentsRequest = new MemoryPoolAssignmentsRequest(coordinatorId, Long.MIN_VALUE, ImmutableList.of());
+            assignmentsRequest = new MemoryPoolAssignmentsRequest(coordinatorId, Long.MIN_VALUE, ImmutableList.of(), memoryRevokingRequested);
         }
         updateNodes(assignmentsRequest);
     }
 
-    private synchronized void callOomKiller(Iterable<QueryExecution> runningQueries)
+    private synchronized void callOomKiller(Iterable<QueryExecution> runningQueries, List<MemoryInfo> nodeMemoryInfos)
     {
+        Map<QueryId, Long> revocableMemoryReservations = pools.get(GENERAL_POOL).getQueryMemoryRevocableReservations();
         List<QueryMemoryInfo> queryMemoryInfoList = Streams.stream(runningQueries)
-                .map(this::createQueryMemoryInfo)
-                .collect(toImmutableList());
-        List<MemoryInfo> nodeMemoryInfos = nodes.values().stream()
-                .map(RemoteNodeMemory::getInfo)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
+                .map(query -> createQueryMemoryInfo(query, revocableMemoryReservations))
                 .collect(toImmutableList());
         Optional<QueryId> chosenQueryId = lowMemoryKiller.chooseQueryToKill(queryMemoryInfoList, nodeMemoryInfos);
         if (chosenQueryId.isPresent()) {
@@ -338,8 +369,83 @@ public class ClusterMemoryManager
                 queriesKilledDueToOutOfMemory.incrementAndGet();
                 lastKilledQuery = chosenQueryId.get();
                 logQueryKill(chosenQueryId.get(), nodeMemoryInfos);
+                reportLowMemoryKillerAction(KILL_QUERY, queryMemoryInfoList.stream().filter(query -> chosenQueryId.get().equals(query.getQueryId())).findFirst(), nodeMemoryInfos);
             }
         }
+        else {
+            // the killer is called again on every update while the cluster is out of memory
+            log.debug("Low memory killer found no query to kill");
+        }
+    }
+
+    @GuardedBy("this")
+    private List<MemoryInfo> getNodeMemoryInfos()
+    {
+        return nodes.values().stream()
+                .map(RemoteNodeMemory::getInfo)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(toImmutableList());
+    }
+
+    @GuardedBy("this")
+    private boolean isGeneralPoolAboveMemoryRevokingThreshold()
+    {
+        ClusterMemoryPool generalPool = pools.get(GENERAL_POOL);
+        long reservedBytes = generalPool.getReservedDistributedBytes() + generalPool.getReservedRevocableDistributedBytes();
+        return generalPool.getTotalDistributedBytes() > 0 && reservedBytes >= generalPool.getTotalDistributedBytes() * memoryRevokingThreshold;
+    }
+
+    @GuardedBy("this")
+    private boolean isMemoryRevokingGracePeriodPassed(Optional<Duration> memoryRevokingGracePeriod, List<MemoryInfo> nodeMemoryInfos)
+    {
+        if (!memoryRevokingGracePeriod.isPresent() || memoryRevokingRequestTime == null) {
+            return true;
+        }
+        // There is nothing left to wait for once the blocked nodes have revoked all of their revocable memory.
+        // The revocable memory of the other nodes does not unblock them.
+        if (getRevocableBytesOnBlockedNodes(nodeMemoryInfos) == 0) {
+            return true;
+        }
+        // revoking may have started long before the cluster ran out of memory
+        long gracePeriodStart = max(memoryRevokingRequestTime, lastTimeNotOutOfMemory);
+        return nanosSince(gracePeriodStart).compareTo(memoryRevokingGracePeriod.get()) > 0;
+    }
+
+    private static long getRevocableBytesOnBlockedNodes(List<MemoryInfo> nodeMemoryInfos)
+    {
+        long revocableBytes = 0;
+        for (MemoryInfo node : nodeMemoryInfos) {
+            MemoryPoolInfo generalPool = node.getPools().get(GENERAL_POOL);
+            // same definition of a blocked node as ClusterMemoryPool
+            if (generalPool != null && generalPool.getFreeBytes() + generalPool.getReservedRevocableBytes() <= 0) {
+                revocableBytes += generalPool.getReservedRevocableBytes();
+            }
+        }
+        return revocableBytes;
+    }
+
+    @GuardedBy("this")
+    private void reportLowMemoryKillerAction(LowMemoryKillerEvent.Action action, Optional<QueryMemoryInfo> query, List<MemoryInfo> nodeMemoryInfos)
+    {
+        ClusterMemoryPool generalPool = pools.get(GENERAL_POOL);
+        LowMemoryKillerEvent event = new LowMemoryKillerEvent(
+                action,
+                lowMemoryKiller.getClass().getSimpleName(),
+                Instant.now(),
+                query.map(info -> info.getQueryId().toString()),
+                query.map(QueryMemoryInfo::getMemoryReservation).orElse(0L),
+                query.map(QueryMemoryInfo::getRevocableMemoryReservation).orElse(0L),
+                query.map(info -> ofNanos(info.getCpuTime().roundTo(NANOSECONDS))),
+                generalPool.getReservedDistributedBytes(),
+                generalPool.getReservedRevocableDistributedBytes(),
+                generalPool.getTotalDistributedBytes(),
+                generalPool.getBlockedNodes(),
+                getRevocableBytesOnBlockedNodes(nodeMemoryInfos),
+                ofNanos(System.nanoTime() - lastTimeNotOutOfMemory));
+        log.info("Low memory killer action %s (query: %s)", action, event.getQueryId().orElse("none"));
+        // event listeners must not hold up the memory manager
+        listenerExecutor.execute(() -> eventListenerManager.lowMemoryKillerActed(event));
     }
 
     @GuardedBy("this")
@@ -423,7 +529,7 @@ public class ClusterMemoryManager
 
     // TODO once the reserved pool is removed we can remove this method. We can also update
     // RemoteNodeMemory as we don't need to POST anything.
-    private synchronized MemoryPoolAssignmentsRequest updateAssignments(Iterable<QueryExecution> queries)
+    private synchronized MemoryPoolAssignmentsRequest updateAssignments(Iterable<QueryExecution> queries, boolean memoryRevokingRequested)
     {
         ClusterMemoryPool reservedPool = pools.get(RESERVED_POOL);
         ClusterMemoryPool generalPool = pools.get(GENERAL_POOL);
@@ -460,12 +566,17 @@ public class ClusterMemoryManager
         for (QueryExecution queryExecution : queries) {
             assignments.add(new MemoryPoolAssignment(queryExecution.getQueryId(), queryExecution.getMemoryPool().getId()));
         }
-        return new MemoryPoolAssignmentsRequest(coordinatorId, version, assignments.build());
+        return new MemoryPoolAssignmentsRequest(coordinatorId, version, assignments.build(), memoryRevokingRequested);
     }
 
-    private QueryMemoryInfo createQueryMemoryInfo(QueryExecution query)
+    private QueryMemoryInfo createQueryMemoryInfo(QueryExecution query, Map<QueryId, Long> revocableMemoryReservations)
     {
-        return new QueryMemoryInfo(query.getQueryId(), query.getMemoryPool().getId(), query.getTotalMemoryReservation().toBytes());
+        return new QueryMemoryInfo(
+                query.getQueryId(),
+                query.getMemoryPool().getId(),
+                query.getTotalMemoryReservation().toBytes(),
+                revocableMemoryReservations.getOrDefault(query.getQueryId(), 0L),
+                query.getTotalCpuTime());
     }
 
     private long getQueryMemoryReservation(QueryExecution query)
@@ -615,4 +726,10 @@ public class ClusterMemoryManager
     {
         return queriesKilledDueToOutOfMemory.get();
     }
+
+    @Managed
+    public long getMemoryRevokingRequests()
+    {
+        return memoryRevokingRequests.get();
+    }
 }
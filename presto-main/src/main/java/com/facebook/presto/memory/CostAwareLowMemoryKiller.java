@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.memory;
+
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.memory.MemoryPoolInfo;
+import io.airlift.units.Duration;
+
+import javax.inject.Inject;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.memory.LocalMemoryManager.GENERAL_POOL;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Kills the query that loses the least completed work for every byte of memory it frees on the blocked nodes.
+ * Only the memory that can not be revoked counts as freed, since the revocable memory of a query is spilled
+ * rather than lost. The cluster memory manager asks the blocked nodes to revoke memory for the grace period
+ * before it calls this killer, so that queries are only killed when spilling did not unblock the nodes.
+ */
+public class CostAwareLowMemoryKiller
+        implements LowMemoryKiller
+{
+    private final Duration memoryRevokingGracePeriod;
+
+    @Inject
+    public CostAwareLowMemoryKiller(MemoryManagerConfig config)
+    {
+        this(requireNonNull(config, "config is null").getMemoryRevokingGracePeriod());
+    }
+
+    public CostAwareLowMemoryKiller(Duration memoryRevokingGracePeriod)
+    {
+        this.memoryRevokingGracePeriod = requireNonNull(memoryRevokingGracePeriod, "memoryRevokingGracePeriod is null");
+    }
+
+    @Override
+    public Optional<Duration> getMemoryRevokingGracePeriod()
+    {
+        return Optional.of(memoryRevokingGracePeriod);
+    }
+
+    @Override
+    public Optional<QueryId> chooseQueryToKill(List<QueryMemoryInfo> runningQueries, List<MemoryInfo> nodes)
+    {
+        Map<QueryId, Long> memoryReservationOnBlockedNodes = new HashMap<>();
+        for (MemoryInfo node : nodes) {
+            MemoryPoolInfo generalPool = node.getPools().get(GENERAL_POOL);
+            if (generalPool == null) {
+                continue;
+            }
+            if (generalPool.getFreeBytes() + generalPool.getReservedRevocableBytes() > 0) {
+                continue;
+            }
+            generalPool.getQueryMemoryReservations().forEach((queryId, memoryReservation) -> memoryReservationOnBlockedNodes.merge(queryId, memoryReservation, Long::sum));
+        }
+
+        QueryMemoryInfo chosenQuery = null;
+        double minWastedCpuPerByte = Double.MAX_VALUE;
+        long chosenQueryFreedBytes = 0;
+        for (QueryMemoryInfo query : runningQueries) {
+            if (!GENERAL_POOL.equals(query.getMemoryPoolId())) {
+                continue;
+            }
+            long freedBytes = memoryReservationOnBlockedNodes.getOrDefault(query.getQueryId(), 0L);
+            if (freedBytes <= 0) {
+                continue;
+            }
+            double wastedCpuPerByte = query.getCpuTime().getValue(NANOSECONDS) / freedBytes;
+            // among queries that waste the same work per byte, the one that frees the most memory is killed
+            if (wastedCpuPerByte < minWastedCpuPerByte || (wastedCpuPerByte == minWastedCpuPerByte && freedBytes > chosenQueryFreedBytes)) {
+                chosenQuery = query;
+                minWastedCpuPerByte = wastedCpuPerByte;
+                chosenQueryFreedBytes = freedBytes;
+            }
+        }
+        return Optional.ofNullable(chosenQuery).map(QueryMemoryInfo::getQueryId);
+    }
+}
@@ -16,28 +16,48 @@ package com.facebook.presto.memory;
 
 import com.facebook.presto.spi.QueryId;
 import com.facebook.presto.spi.memory.MemoryPoolId;
+import io.airlift.units.Duration;
 
 import java.util.List;
 import java.util.Optional;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 public interface LowMemoryKiller
 {
     Optional<QueryId> chooseQueryToKill(List<QueryMemoryInfo> runningQueries, List<MemoryInfo> nodes);
 
+    /**
+     * Returns how long the cluster memory manager lets the blocked nodes revoke their revocable memory
+     * before it asks this killer for a query to kill. If empty, queries are killed without revoking first.
+     */
+    default Optional<Duration> getMemoryRevokingGracePeriod()
+    {
+        return Optional.empty();
+    }
+
     class QueryMemoryInfo
     {
         private final QueryId queryId;
         private final MemoryPoolId memoryPoolId;
         private final long memoryReservation;
+        private final long revocableMemoryReservation;
+        private final Duration cpuTime;
 
         public QueryMemoryInfo(QueryId queryId, MemoryPoolId memoryPoolId, long memoryReservation)
+        {
+            this(queryId, memoryPoolId, memoryReservation, 0, new Duration(0, NANOSECONDS));
+        }
+
+        public QueryMemoryInfo(QueryId queryId, MemoryPoolId memoryPoolId, long memoryReservation, long revocableMemoryReservation, Duration cpuTime)
         {
             this.queryId = requireNonNull(queryId, "queryId is null");
             this.memoryPoolId = requireNonNull(memoryPoolId, "memoryPoolId is null");
             this.memoryReservation = memoryReservation;
+            this.revocableMemoryReservation = revocableMemoryReservation;
+            this.cpuTime = requireNonNull(cpuTime, "cpuTime is null");
         }
 
         public QueryId getQueryId()
@@ -55,6 +75,16 @@ public interface LowMemoryKiller
             return memoryReservation;
         }
 
+        public long getRevocableMemoryReservation()
+        {
+            return revocableMemoryReservation;
+        }
+
+        public Duration getCpuTime()
+        {
+            return cpuTime;
+        }
+
         @Override
         public String toString()
         {
@@ -62,6 +92,8 @@ public interface LowMemoryKiller
                     .add("queryId", queryId)
                     .add("memoryPoolId", memoryPoolId)
                     .add("memoryReservation", memoryReservation)
+                    .add("revocableMemoryReservation", revocableMemoryReservation)
+                    .add("cpuTime", cpuTime)
                     .toString();
         }
     }
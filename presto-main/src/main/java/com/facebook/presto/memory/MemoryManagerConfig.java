@@ -20,11 +20,14 @@ import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.airlift.units.MinDuration;
 
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotNull;
 
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.succinctBytes;
 import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 @DefunctConfig({
         "experimental.cluster-memory-manager-enabled",
@@ -39,6 +42,8 @@ public class MemoryManagerConfig
     private DataSize softMaxQueryTotalMemory;
     private String lowMemoryKillerPolicy = LowMemoryKillerPolicy.NONE;
     private Duration killOnOutOfMemoryDelay = new Duration(5, MINUTES);
+    private Duration memoryRevokingGracePeriod = new Duration(30, SECONDS);
+    private double memoryRevokingThreshold = 0.9;
 
     public String getLowMemoryKillerPolicy()
     {
@@ -67,6 +72,35 @@ public class MemoryManagerConfig
         return this;
     }
 
+    @NotNull
+    public Duration getMemoryRevokingGracePeriod()
+    {
+        return memoryRevokingGracePeriod;
+    }
+
+    @Config("query.low-memory-killer.revoking-grace-period")
+    @ConfigDescription("Time the blocked nodes are given to revoke memory before the cost-aware killer kills a query")
+    public MemoryManagerConfig setMemoryRevokingGracePeriod(Duration memoryRevokingGracePeriod)
+    {
+        this.memoryRevokingGracePeriod = memoryRevokingGracePeriod;
+        return this;
+    }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getMemoryRevokingThreshold()
+    {
+        return memoryRevokingThreshold;
+    }
+
+    @Config("query.low-memory-killer.revoking-threshold")
+    @ConfigDescription("Fill ratio of the cluster general pool at which the cost-aware killer asks the nodes to revoke memory")
+    public MemoryManagerConfig setMemoryRevokingThreshold(double memoryRevokingThreshold)
+    {
+        this.memoryRevokingThreshold = memoryRevokingThreshold;
+        return this;
+    }
+
     @NotNull
     public DataSize getMaxQueryMemory()
     {
@@ -136,5 +170,6 @@ public class MemoryManagerConfig
         public static final String NONE = "none";
         public static final String TOTAL_RESERVATION = "total-reservation";
         public static final String TOTAL_RESERVATION_ON_BLOCKED_NODES = "total-reservation-on-blocked-nodes";
+        public static final String COST_AWARE = "cost-aware";
     }
 }
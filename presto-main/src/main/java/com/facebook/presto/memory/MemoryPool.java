@@ -24,14 +24,16 @@ import io.airlift.units.DataSize;
 import org.weakref.jmx.Managed;
 
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.GuardedBy;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.memory.context.AbstractAggregatedMemoryContext.FORCE_FREE_TAG;
 import static com.facebook.presto.operator.Operator.NOT_BLOCKED;
@@ -42,6 +44,14 @@ import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static java.util.Objects.requireNonNull;
 import static java.util.function.Function.identity;
 
+/**
+ * Tracks the memory reserved by queries on this node.
+ * <p>
+ * Reservations are on the hot path of every driver thread, so the pool avoids a global lock:
+ * the pool totals are atomic counters and the per-query reservations and tagged allocations
+ * live in concurrent maps that are updated atomically per query. The pool monitor is only
+ * taken when the blocked future has to be created or completed, and when moving a query.
+ */
 public class MemoryPool
 {
     private static final String MOVE_QUERY_TAG = "MOVE_QUERY_OPERATION";
@@ -49,25 +59,22 @@ public class MemoryPool
     private final MemoryPoolId id;
     private final long maxBytes;
 
-    @GuardedBy("this")
-    private long reservedBytes;
-    @GuardedBy("this")
-    private long reservedRevocableBytes;
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final AtomicLong reservedRevocableBytes = new AtomicLong();
 
+    // Only created and completed while holding the pool monitor. It is volatile so that
+    // freeing memory can check whether anybody is blocked without taking the monitor.
     @Nullable
-    @GuardedBy("this")
-    private NonCancellableMemoryFuture<?> future;
+    private volatile NonCancellableMemoryFuture<?> future;
 
-    @GuardedBy("this")
     // TODO: It would be better if we just tracked QueryContexts, but their lifecycle is managed by a weak reference, so we can't do that
-    private final Map<QueryId, Long> queryMemoryReservations = new HashMap<>();
+    private final ConcurrentMap<QueryId, Long> queryMemoryReservations = new ConcurrentHashMap<>();
 
     // This map keeps track of all the tagged allocations, e.g., query-1 -> ['TableScanOperator': 10MB, 'LazyOutputBuffer': 5MB, ...]
-    @GuardedBy("this")
-    private final Map<QueryId, Map<String, Long>> taggedMemoryAllocations = new HashMap<>();
+    // The allocations of a query are only updated while computing its entry in queryMemoryReservations.
+    private final ConcurrentMap<QueryId, Map<String, Long>> taggedMemoryAllocations = new ConcurrentHashMap<>();
 
-    @GuardedBy("this")
-    private final Map<QueryId, Long> queryMemoryRevocableReservations = new HashMap<>();
+    private final ConcurrentMap<QueryId, Long> queryMemoryRevocableReservations = new ConcurrentHashMap<>();
 
     private final List<MemoryPoolListener> listeners = new CopyOnWriteArrayList<>();
 
@@ -83,7 +90,7 @@ public class MemoryPool
         return id;
     }
 
-    public synchronized MemoryPoolInfo getInfo()
+    public MemoryPoolInfo getInfo()
     {
         Map<QueryId, List<MemoryAllocation>> memoryAllocations = new HashMap<>();
         for (Entry<QueryId, Map<String, Long>> entry : taggedMemoryAllocations.entrySet()) {
@@ -93,7 +100,7 @@ public class MemoryPool
             }
             memoryAllocations.put(entry.getKey(), allocations);
         }
-        return new MemoryPoolInfo(maxBytes, reservedBytes, reservedRevocableBytes, queryMemoryReservations, memoryAllocations, queryMemoryRevocableReservations);
+        return new MemoryPoolInfo(maxBytes, reservedBytes.get(), reservedRevocableBytes.get(), queryMemoryReservations, memoryAllocations, queryMemoryRevocableReservations);
     }
 
     public void addListener(MemoryPoolListener listener)
@@ -113,24 +120,14 @@ public class MemoryPool
     {
         checkArgument(bytes >= 0, "bytes is negative");
 
-        ListenableFuture<?> result;
-        synchronized (this) {
-            if (bytes != 0) {
-                queryMemoryReservations.merge(queryId, bytes, Long::sum);
+        if (bytes != 0) {
+            queryMemoryReservations.compute(queryId, (ignored, queryReservation) -> {
                 updateTaggedMemoryAllocations(queryId, allocationTag, bytes);
-            }
-            reservedBytes += bytes;
-            if (getFreeBytes() <= 0) {
-                if (future == null) {
-                    future = NonCancellableMemoryFuture.create();
-                }
-                checkState(!future.isDone(), "future is already completed");
-                result = future;
-            }
-            else {
-                result = NOT_BLOCKED;
-            }
+                return queryReservation == null ? bytes : queryReservation + bytes;
+            });
         }
+        reservedBytes.addAndGet(bytes);
+        ListenableFuture<?> result = getFreeBytes() <= 0 ? getBlockedFuture() : NOT_BLOCKED;
 
         onMemoryReserved();
         return result;
@@ -145,23 +142,11 @@ public class MemoryPool
     {
         checkArgument(bytes >= 0, "bytes is negative");
 
-        ListenableFuture<?> result;
-        synchronized (this) {
-            if (bytes != 0) {
-                queryMemoryRevocableReservations.merge(queryId, bytes, Long::sum);
-            }
-            reservedRevocableBytes += bytes;
-            if (getFreeBytes() <= 0) {
-                if (future == null) {
-                    future = NonCancellableMemoryFuture.create();
-                }
-                checkState(!future.isDone(), "future is already completed");
-                result = future;
-            }
-            else {
-                result = NOT_BLOCKED;
-            }
+        if (bytes != 0) {
+            queryMemoryRevocableReservations.merge(queryId, bytes, Long::sum);
         }
+        reservedRevocableBytes.addAndGet(bytes);
+        ListenableFuture<?> result = getFreeBytes() <= 0 ? getBlockedFuture() : NOT_BLOCKED;
 
         onMemoryReserved();
         return result;
@@ -173,72 +158,98 @@ public class MemoryPool
     public boolean tryReserve(QueryId queryId, String allocationTag, long bytes)
     {
         checkArgument(bytes >= 0, "bytes is negative");
-        synchronized (this) {
-            if (getFreeBytes() - bytes < 0) {
+        while (true) {
+            long currentReservedBytes = reservedBytes.get();
+            if (maxBytes - currentReservedBytes - reservedRevocableBytes.get() - bytes < 0) {
                 return false;
             }
-            reservedBytes += bytes;
-            if (bytes != 0) {
-                queryMemoryReservations.merge(queryId, bytes, Long::sum);
-                updateTaggedMemoryAllocations(queryId, allocationTag, bytes);
+            if (reservedBytes.compareAndSet(currentReservedBytes, currentReservedBytes + bytes)) {
+                break;
             }
         }
+        if (bytes != 0) {
+            queryMemoryReservations.compute(queryId, (ignored, queryReservation) -> {
+                updateTaggedMemoryAllocations(queryId, allocationTag, bytes);
+                return queryReservation == null ? bytes : queryReservation + bytes;
+            });
+        }
 
         onMemoryReserved();
         return true;
     }
 
-    public synchronized void free(QueryId queryId, String allocationTag, long bytes)
+    public void free(QueryId queryId, String allocationTag, long bytes)
     {
         checkArgument(bytes >= 0, "bytes is negative");
-        checkArgument(reservedBytes >= bytes, "tried to free more memory than is reserved");
+        checkArgument(reservedBytes.get() >= bytes, "tried to free more memory than is reserved");
         if (bytes == 0) {
             // Freeing zero bytes is a no-op
             return;
         }
 
-        Long queryReservation = queryMemoryReservations.get(queryId);
-        requireNonNull(queryReservation, "queryReservation is null");
-        checkArgument(queryReservation - bytes >= 0, "tried to free more memory than is reserved by query");
-        queryReservation -= bytes;
-        if (queryReservation == 0) {
-            queryMemoryReservations.remove(queryId);
-            taggedMemoryAllocations.remove(queryId);
-        }
-        else {
-            queryMemoryReservations.put(queryId, queryReservation);
+        queryMemoryReservations.compute(queryId, (ignored, queryReservation) -> {
+            requireNonNull(queryReservation, "queryReservation is null");
+            checkArgument(queryReservation - bytes >= 0, "tried to free more memory than is reserved by query");
+            queryReservation -= bytes;
+            if (queryReservation == 0) {
+                taggedMemoryAllocations.remove(queryId);
+                return null;
+            }
             updateTaggedMemoryAllocations(queryId, allocationTag, -bytes);
-        }
-        reservedBytes -= bytes;
-        if (getFreeBytes() > 0 && future != null) {
-            future.set(null);
-            future = null;
-        }
+            return queryReservation;
+        });
+        reservedBytes.addAndGet(-bytes);
+        onMemoryFreed();
     }
 
-    public synchronized void freeRevocable(QueryId queryId, long bytes)
+    public void freeRevocable(QueryId queryId, long bytes)
     {
         checkArgument(bytes >= 0, "bytes is negative");
-        checkArgument(reservedRevocableBytes >= bytes, "tried to free more revocable memory than is reserved");
+        checkArgument(reservedRevocableBytes.get() >= bytes, "tried to free more revocable memory than is reserved");
         if (bytes == 0) {
             // Freeing zero bytes is a no-op
             return;
         }
 
-        Long queryReservation = queryMemoryRevocableReservations.get(queryId);
-        requireNonNull(queryReservation, "queryReservation is null");
-        checkArgument(queryReservation - bytes >= 0, "tried to free more revocable memory than is reserved by query");
-        queryReservation -= bytes;
-        if (queryReservation == 0) {
-            queryMemoryRevocableReservations.remove(queryId);
+        queryMemoryRevocableReservations.compute(queryId, (ignored, queryReservation) -> {
+            requireNonNull(queryReservation, "queryReservation is null");
+            checkArgument(queryReservation - bytes >= 0, "tried to free more revocable memory than is reserved by query");
+            queryReservation -= bytes;
+            return queryReservation == 0 ? null : queryReservation;
+        });
+        reservedRevocableBytes.addAndGet(-bytes);
+        onMemoryFreed();
+    }
+
+    private synchronized ListenableFuture<?> getBlockedFuture()
+    {
+        if (getFreeBytes() > 0) {
+            // memory was freed concurrently
+            return NOT_BLOCKED;
         }
-        else {
-            queryMemoryRevocableReservations.put(queryId, queryReservation);
+        if (future == null) {
+            future = NonCancellableMemoryFuture.create();
+            // A concurrent free that completed before the future was published did not see it, so check again.
+            // Either this check observes the freed memory or the freeing thread observes the future.
+            if (getFreeBytes() > 0) {
+                future.set(null);
+                future = null;
+                return NOT_BLOCKED;
+            }
         }
-        reservedRevocableBytes -= bytes;
-        if (getFreeBytes() > 0 && future != null) {
-            future.set(null);
-            future = null;
+        checkState(!future.isDone(), "future is already completed");
+        return future;
+    }
+
+    private void onMemoryFreed()
+    {
+        if (future != null && getFreeBytes() > 0) {
+            synchronized (this) {
+                if (future != null && getFreeBytes() > 0) {
+                    future.set(null);
+                    future = null;
+                }
+            }
         }
     }
 
@@ -256,7 +267,12 @@ public class MemoryPool
         free(queryId, MOVE_QUERY_TAG, originalReserved);
         targetMemoryPool.reserveRevocable(queryId, originalRevocableReserved);
         freeRevocable(queryId, originalRevocableReserved);
-        targetMemoryPool.taggedMemoryAllocations.put(queryId, taggedAllocations);
+        if (taggedAllocations == null) {
+            targetMemoryPool.taggedMemoryAllocations.remove(queryId);
+        }
+        else {
+            targetMemoryPool.taggedMemoryAllocations.put(queryId, taggedAllocations);
+        }
         return future;
     }
 
@@ -264,48 +280,48 @@ public class MemoryPool
      * Returns the number of free bytes. This value may be negative, which indicates that the pool is over-committed.
      */
     @Managed
-    public synchronized long getFreeBytes()
+    public long getFreeBytes()
     {
-        return maxBytes - reservedBytes - reservedRevocableBytes;
+        return maxBytes - reservedBytes.get() - reservedRevocableBytes.get();
     }
 
     @Managed
-    public synchronized long getMaxBytes()
+    public long getMaxBytes()
     {
         return maxBytes;
     }
 
     @Managed
-    public synchronized long getReservedBytes()
+    public long getReservedBytes()
     {
-        return reservedBytes;
+        return reservedBytes.get();
     }
 
     @Managed
-    public synchronized long getReservedRevocableBytes()
+    public long getReservedRevocableBytes()
     {
-        return reservedRevocableBytes;
+        return reservedRevocableBytes.get();
     }
 
-    synchronized long getQueryMemoryReservation(QueryId queryId)
+    long getQueryMemoryReservation(QueryId queryId)
     {
         return queryMemoryReservations.getOrDefault(queryId, 0L);
     }
 
-    synchronized long getQueryRevocableMemoryReservation(QueryId queryId)
+    long getQueryRevocableMemoryReservation(QueryId queryId)
     {
         return queryMemoryRevocableReservations.getOrDefault(queryId, 0L);
     }
 
     @Override
-    public synchronized String toString()
+    public String toString()
     {
         return toStringHelper(this)
                 .add("id", id)
                 .add("maxBytes", maxBytes)
                 .add("freeBytes", getFreeBytes())
-                .add("reservedBytes", reservedBytes)
-                .add("reservedRevocableBytes", reservedRevocableBytes)
+                .add("reservedBytes", reservedBytes.get())
+                .add("reservedRevocableBytes", reservedRevocableBytes.get())
                 .add("future", future)
                 .toString();
     }
@@ -331,13 +347,13 @@ public class MemoryPool
         }
     }
 
-    private synchronized void updateTaggedMemoryAllocations(QueryId queryId, String allocationTag, long delta)
+    private void updateTaggedMemoryAllocations(QueryId queryId, String allocationTag, long delta)
     {
         if (delta == 0) {
             return;
         }
 
-        Map<String, Long> allocations = taggedMemoryAllocations.computeIfAbsent(queryId, ignored -> new HashMap<>());
+        Map<String, Long> allocations = taggedMemoryAllocations.computeIfAbsent(queryId, ignored -> new ConcurrentHashMap<>());
         allocations.compute(allocationTag, (ignored, oldValue) -> {
             if (oldValue == null) {
                 return delta;
@@ -351,19 +367,20 @@ public class MemoryPool
     }
 
     @VisibleForTesting
-    synchronized Map<QueryId, Map<String, Long>> getTaggedMemoryAllocations()
+    Map<QueryId, Map<String, Long>> getTaggedMemoryAllocations()
     {
         return taggedMemoryAllocations.keySet().stream()
                 .collect(toImmutableMap(identity(), this::getTaggedMemoryAllocations));
     }
 
     @VisibleForTesting
-    synchronized Map<String, Long> getTaggedMemoryAllocations(QueryId targetQueryId)
+    Map<String, Long> getTaggedMemoryAllocations(QueryId targetQueryId)
     {
-        if (taggedMemoryAllocations.get(targetQueryId) == null) {
+        Map<String, Long> allocations = taggedMemoryAllocations.get(targetQueryId);
+        if (allocations == null) {
             return null;
         }
-        return taggedMemoryAllocations.get(targetQueryId)
+        return allocations
                 .entrySet().stream()
                 .filter(entry -> !entry.getKey().equals(FORCE_FREE_TAG))
                 .collect(toImmutableMap(Map.Entry::getKey, Map.Entry::getValue));
@@ -27,13 +27,24 @@ public class MemoryPoolAssignmentsRequest
     private final String coordinatorId;
     private final long version;
     private final List<MemoryPoolAssignment> assignments;
+    private final boolean memoryRevokingRequested;
+
+    public MemoryPoolAssignmentsRequest(String coordinatorId, long version, List<MemoryPoolAssignment> assignments)
+    {
+        this(coordinatorId, version, assignments, false);
+    }
 
     @JsonCreator
-    public MemoryPoolAssignmentsRequest(@JsonProperty("coordinatorId") String coordinatorId, @JsonProperty("version") long version, @JsonProperty("assignments") List<MemoryPoolAssignment> assignments)
+    public MemoryPoolAssignmentsRequest(
+            @JsonProperty("coordinatorId") String coordinatorId,
+            @JsonProperty("version") long version,
+            @JsonProperty("assignments") List<MemoryPoolAssignment> assignments,
+            @JsonProperty("memoryRevokingRequested") boolean memoryRevokingRequested)
     {
         this.coordinatorId = requireNonNull(coordinatorId, "coordinatorId is null");
         this.version = version;
         this.assignments = ImmutableList.copyOf(requireNonNull(assignments, "assignments is null"));
+        this.memoryRevokingRequested = memoryRevokingRequested;
     }
 
     @JsonProperty
@@ -54,12 +65,22 @@ public class MemoryPoolAssignmentsRequest
         return assignments;
     }
 
+    /**
+     * Whether the coordinator asks the node to revoke memory because the cluster is running low on memory.
+     */
+    @JsonProperty
+    public boolean isMemoryRevokingRequested()
+    {
+        return memoryRevokingRequested;
+    }
+
     @Override
     public String toString()
     {
         return toStringHelper(this)
                 .add("version", version)
                 .add("assignments", assignments)
+                .add("memoryRevokingRequested", memoryRevokingRequested)
                 .toString();
     }
 }
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.memory;
 
+import com.facebook.presto.execution.MemoryRevokingScheduler;
 import com.facebook.presto.execution.TaskManager;
 import com.facebook.presto.spi.memory.MemoryPoolInfo;
 
@@ -40,12 +41,14 @@ public class MemoryResource
 {
     private final LocalMemoryManager memoryManager;
     private final TaskManager taskManager;
+    private final MemoryRevokingScheduler memoryRevokingScheduler;
 
     @Inject
-    public MemoryResource(LocalMemoryManager memoryManager, TaskManager taskManager)
+    public MemoryResource(LocalMemoryManager memoryManager, TaskManager taskManager, MemoryRevokingScheduler memoryRevokingScheduler)
     {
         this.memoryManager = requireNonNull(memoryManager, "memoryManager is null");
         this.taskManager = requireNonNull(taskManager, "taskManager is null");
+        this.memoryRevokingScheduler = requireNonNull(memoryRevokingScheduler, "memoryRevokingScheduler is null");
     }
 
     @POST
@@ -54,6 +57,9 @@ public class MemoryResource
     public MemoryInfo getMemoryInfo(MemoryPoolAssignmentsRequest request)
     {
         taskManager.updateMemoryPoolAssignments(request);
+        if (request.isMemoryRevokingRequested()) {
+            memoryRevokingScheduler.requestMemoryRevokingByCoordinator();
+        }
         return memoryManager.getInfo();
     }
 
@@ -142,6 +142,11 @@ public interface Metadata
      */
     TableStatistics getTableStatistics(Session session, TableHandle tableHandle, List<ColumnHandle> columnHandles, Constraint<ColumnHandle> constraint);
 
+    /**
+     * Return the version of the data of the specified table, or empty if the connector does not track data versions.
+     */
+    Optional<String> getTableDataVersion(Session session, TableHandle tableHandle);
+
     /**
      * Get the names that match the specified table prefix (never null).
      */
@@ -13,12 +13,14 @@
  */
 package com.facebook.presto.operator;
 
-import com.facebook.presto.array.IntBigArray;
 import com.facebook.presto.array.LongBigArray;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.PageBuilder;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.block.DictionaryBlock;
+import com.facebook.presto.common.block.LongArrayBlock;
+import com.facebook.presto.common.block.RunLengthEncodedBlock;
 import com.facebook.presto.common.type.BigintType;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.spi.PrestoException;
@@ -27,7 +29,9 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import org.openjdk.jol.info.ClassLayout;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INSUFFICIENT_RESOURCES;
@@ -35,8 +39,10 @@ import static com.facebook.presto.type.TypeUtils.NULL_HASH_CODE;
 import static com.facebook.presto.util.HashCollisionsEstimator.estimateNumberOfHashCollisions;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.sizeOf;
 import static it.unimi.dsi.fastutil.HashCommon.arraySize;
 import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
+import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 
@@ -46,19 +52,21 @@ public class BigintGroupByHash
     private static final int INSTANCE_SIZE = ClassLayout.parseClass(BigintGroupByHash.class).instanceSize();
 
     private static final float FILL_RATIO = 0.75f;
+    private static final int BATCH_SIZE = 1024;
     private static final List<Type> TYPES = ImmutableList.of(BIGINT);
     private static final List<Type> TYPES_WITH_RAW_HASH = ImmutableList.of(BIGINT, BIGINT);
 
     private final int hashChannel;
     private final boolean outputRawHash;
+    private final boolean processDictionary;
 
     private int hashCapacity;
     private int maxFill;
     private int mask;
 
-    // the hash table from values to groupIds
-    private LongBigArray values;
-    private IntBigArray groupIds;
+    // the hash table from values to groupIds; each slot stores the value immediately followed by
+    // its groupId (-1 for an empty slot) so that probing a slot touches a single cache line
+    private LongBigArray hashTable;
 
     // groupId for the null value
     private int nullGroupId = -1;
@@ -66,6 +74,13 @@ public class BigintGroupByHash
     // reverse index from the groupId back to the value
     private final LongBigArray valuesByGroupId;
 
+    // scratch space for hashing a batch of positions before probing the hash table
+    private final long[] batchValues = new long[BATCH_SIZE];
+    private final long[] batchHashPositions = new long[BATCH_SIZE];
+    private final long[] batchGroupIds = new long[BATCH_SIZE];
+
+    private DictionaryLookBack dictionaryLookBack;
+
     private int nextGroupId;
     private long hashCollisions;
     private double expectedHashCollisions;
@@ -75,22 +90,21 @@ public class BigintGroupByHash
     private long preallocatedMemoryInBytes;
     private long currentPageSizeInBytes;
 
-    public BigintGroupByHash(int hashChannel, boolean outputRawHash, int expectedSize, UpdateMemory updateMemory)
+    public BigintGroupByHash(int hashChannel, boolean outputRawHash, int expectedSize, boolean processDictionary, UpdateMemory updateMemory)
     {
         checkArgument(hashChannel >= 0, "hashChannel must be at least zero");
         checkArgument(expectedSize > 0, "expectedSize must be greater than zero");
 
         this.hashChannel = hashChannel;
         this.outputRawHash = outputRawHash;
+        this.processDictionary = processDictionary;
 
         hashCapacity = arraySize(expectedSize, FILL_RATIO);
 
         maxFill = calculateMaxFill(hashCapacity);
         mask = hashCapacity - 1;
-        values = new LongBigArray();
-        values.ensureCapacity(hashCapacity);
-        groupIds = new IntBigArray(-1);
-        groupIds.ensureCapacity(hashCapacity);
+        hashTable = new LongBigArray(-1);
+        hashTable.ensureCapacity(2L * hashCapacity);
 
         valuesByGroupId = new LongBigArray();
         valuesByGroupId.ensureCapacity(hashCapacity);
@@ -104,9 +118,12 @@ public class BigintGroupByHash
     public long getEstimatedSize()
     {
         return INSTANCE_SIZE +
-                groupIds.sizeOf() +
-                values.sizeOf() +
+                hashTable.sizeOf() +
                 valuesByGroupId.sizeOf() +
+                sizeOf(batchValues) +
+                sizeOf(batchHashPositions) +
+                sizeOf(batchGroupIds) +
+                (dictionaryLookBack == null ? 0 : dictionaryLookBack.getRetainedSizeInBytes()) +
                 preallocatedMemoryInBytes;
     }
 
@@ -161,14 +178,22 @@ public class BigintGroupByHash
     public Work<?> addPage(Page page)
     {
         currentPageSizeInBytes = page.getRetainedSizeInBytes();
-        return new AddPageWork(page.getBlock(hashChannel));
+        Block block = page.getBlock(hashChannel);
+        if (block instanceof RunLengthEncodedBlock) {
+            return new RunLengthEncodedWork((RunLengthEncodedBlock) block, false);
+        }
+        return new BatchWork(block, false);
     }
 
     @Override
     public Work<GroupByIdBlock> getGroupIds(Page page)
     {
         currentPageSizeInBytes = page.getRetainedSizeInBytes();
-        return new GetGroupIdsWork(page.getBlock(hashChannel));
+        Block block = page.getBlock(hashChannel);
+        if (block instanceof RunLengthEncodedBlock) {
+            return new RunLengthEncodedWork((RunLengthEncodedBlock) block, true);
+        }
+        return new BatchWork(block, true);
     }
 
     @Override
@@ -184,11 +209,11 @@ public class BigintGroupByHash
 
         // look for an empty slot or a slot containing this key
         while (true) {
-            int groupId = groupIds.get(hashPosition);
+            long groupId = hashTable.get(groupIdIndex(hashPosition));
             if (groupId == -1) {
                 return false;
             }
-            else if (value == values.get(hashPosition)) {
+            else if (value == hashTable.get(valueIndex(hashPosition))) {
                 return true;
             }
 
@@ -210,29 +235,67 @@ public class BigintGroupByHash
         return hashCapacity;
     }
 
-    private int putIfAbsent(int position, Block block)
+    /**
+     * Assigns group ids to {@code length} positions of a flat block. The values and their hash table
+     * positions for the whole batch are computed first, so that the probe loop does nothing but walk
+     * the hash table and the table reads of consecutive rows are independent of each other.
+     * The caller guarantees the batch cannot fill the hash table, so no rehash happens here.
+     */
+    private void putIfAbsent(Block block, int offset, int length, long[] groupIds, int groupIdsOffset)
     {
-        if (block.isNull(position)) {
-            if (nullGroupId < 0) {
-                // set null group id
-                nullGroupId = nextGroupId++;
+        for (int i = 0; i < length; i++) {
+            long value = BIGINT.getLong(block, offset + i);
+            batchValues[i] = value;
+            batchHashPositions[i] = getHashPosition(value, mask);
+        }
+
+        if (block.mayHaveNull()) {
+            for (int i = 0; i < length; i++) {
+                groupIds[groupIdsOffset + i] = block.isNull(offset + i) ? getNullGroupId() : putIfAbsent(batchValues[i], batchHashPositions[i]);
             }
+        }
+        else {
+            for (int i = 0; i < length; i++) {
+                groupIds[groupIdsOffset + i] = putIfAbsent(batchValues[i], batchHashPositions[i]);
+            }
+        }
+    }
 
-            return nullGroupId;
+    private void putIfAbsent(DictionaryBlock block, int offset, int length, long[] groupIds, int groupIdsOffset)
+    {
+        Block dictionary = block.getDictionary();
+        for (int i = 0; i < length; i++) {
+            int positionInDictionary = block.getId(offset + i);
+            int groupId = dictionaryLookBack.getGroupId(positionInDictionary);
+            if (groupId == -1) {
+                groupId = putIfAbsent(positionInDictionary, dictionary);
+                dictionaryLookBack.setGroupId(positionInDictionary, groupId);
+            }
+            groupIds[groupIdsOffset + i] = groupId;
+        }
+    }
+
+    private int putIfAbsent(int position, Block block)
+    {
+        if (block.isNull(position)) {
+            return getNullGroupId();
         }
 
         long value = BIGINT.getLong(block, position);
-        long hashPosition = getHashPosition(value, mask);
+        return putIfAbsent(value, getHashPosition(value, mask));
+    }
 
+    private int putIfAbsent(long value, long hashPosition)
+    {
         // look for an empty slot or a slot containing this key
         while (true) {
-            int groupId = groupIds.get(hashPosition);
+            long groupId = hashTable.get(groupIdIndex(hashPosition));
             if (groupId == -1) {
                 break;
             }
 
-            if (value == values.get(hashPosition)) {
-                return groupId;
+            if (value == hashTable.get(valueIndex(hashPosition))) {
+                return (int) groupId;
             }
 
             // increment position and mask to handle wrap around
@@ -243,19 +306,23 @@ public class BigintGroupByHash
         return addNewGroup(hashPosition, value);
     }
 
+    private int getNullGroupId()
+    {
+        if (nullGroupId < 0) {
+            // set null group id
+            nullGroupId = nextGroupId++;
+        }
+        return nullGroupId;
+    }
+
     private int addNewGroup(long hashPosition, long value)
     {
         // record group id in hash
         int groupId = nextGroupId++;
 
-        values.set(hashPosition, value);
+        hashTable.set(valueIndex(hashPosition), value);
+        hashTable.set(groupIdIndex(hashPosition), groupId);
         valuesByGroupId.set(groupId, value);
-        groupIds.set(hashPosition, groupId);
-
-        // increase capacity, if necessary
-        if (needRehash()) {
-            tryRehash();
-        }
         return groupId;
     }
 
@@ -268,8 +335,8 @@ public class BigintGroupByHash
         int newCapacity = toIntExact(newCapacityLong);
 
         // An estimate of how much extra memory is needed before we can go ahead and expand the hash table.
-        // This includes the new capacity for values, groupIds, and valuesByGroupId as well as the size of the current page
-        preallocatedMemoryInBytes = (newCapacity - hashCapacity) * (long) (Long.BYTES + Integer.BYTES) + (calculateMaxFill(newCapacity) - maxFill) * Long.BYTES + currentPageSizeInBytes;
+        // This includes the new capacity for the hash table and valuesByGroupId as well as the size of the current page
+        preallocatedMemoryInBytes = (newCapacity - hashCapacity) * 2L * Long.BYTES + (calculateMaxFill(newCapacity) - maxFill) * Long.BYTES + currentPageSizeInBytes;
         if (!updateMemory.update()) {
             // reserved memory but has exceeded the limit
             return false;
@@ -279,10 +346,8 @@ public class BigintGroupByHash
         expectedHashCollisions += estimateNumberOfHashCollisions(getGroupCount(), hashCapacity);
 
         int newMask = newCapacity - 1;
-        LongBigArray newValues = new LongBigArray();
-        newValues.ensureCapacity(newCapacity);
-        IntBigArray newGroupIds = new IntBigArray(-1);
-        newGroupIds.ensureCapacity(newCapacity);
+        LongBigArray newHashTable = new LongBigArray(-1);
+        newHashTable.ensureCapacity(2L * newCapacity);
 
         for (int groupId = 0; groupId < nextGroupId; groupId++) {
             if (groupId == nullGroupId) {
@@ -292,21 +357,20 @@ public class BigintGroupByHash
 
             // find an empty slot for the address
             long hashPosition = getHashPosition(value, newMask);
-            while (newGroupIds.get(hashPosition) != -1) {
+            while (newHashTable.get(groupIdIndex(hashPosition)) != -1) {
                 hashPosition = (hashPosition + 1) & newMask;
                 hashCollisions++;
             }
 
             // record the mapping
-            newValues.set(hashPosition, value);
-            newGroupIds.set(hashPosition, groupId);
+            newHashTable.set(valueIndex(hashPosition), value);
+            newHashTable.set(groupIdIndex(hashPosition), groupId);
         }
 
         mask = newMask;
         hashCapacity = newCapacity;
         maxFill = calculateMaxFill(hashCapacity);
-        values = newValues;
-        groupIds = newGroupIds;
+        hashTable = newHashTable;
 
         this.valuesByGroupId.ensureCapacity(maxFill);
         return true;
@@ -317,6 +381,32 @@ public class BigintGroupByHash
         return nextGroupId >= maxFill;
     }
 
+    private void updateDictionaryLookBack(Block dictionary)
+    {
+        if (dictionaryLookBack == null || dictionaryLookBack.getDictionary() != dictionary) {
+            dictionaryLookBack = new DictionaryLookBack(dictionary);
+        }
+    }
+
+    private boolean canProcessDictionary(Block block)
+    {
+        if (!(block instanceof DictionaryBlock)) {
+            return false;
+        }
+        // without dictionary aggregation, only use the look back when it is no larger than the block itself
+        return processDictionary || ((DictionaryBlock) block).getDictionary().getPositionCount() <= block.getPositionCount();
+    }
+
+    private static long valueIndex(long hashPosition)
+    {
+        return hashPosition << 1;
+    }
+
+    private static long groupIdIndex(long hashPosition)
+    {
+        return (hashPosition << 1) + 1;
+    }
+
     private static long getHashPosition(long rawHash, int mask)
     {
         return murmurHash3(rawHash) & mask;
@@ -333,93 +423,150 @@ public class BigintGroupByHash
         return maxFill;
     }
 
-    private class AddPageWork
-            implements Work<Void>
+    private static final class DictionaryLookBack
+    {
+        private final Block dictionary;
+        private final int[] groupIds;
+
+        public DictionaryLookBack(Block dictionary)
+        {
+            this.dictionary = dictionary;
+            this.groupIds = new int[dictionary.getPositionCount()];
+            Arrays.fill(groupIds, -1);
+        }
+
+        public Block getDictionary()
+        {
+            return dictionary;
+        }
+
+        public int getGroupId(int position)
+        {
+            return groupIds[position];
+        }
+
+        public void setGroupId(int position, int groupId)
+        {
+            groupIds[position] = groupId;
+        }
+
+        public long getRetainedSizeInBytes()
+        {
+            return sizeOf(groupIds);
+        }
+    }
+
+    private class BatchWork
+            implements Work<GroupByIdBlock>
     {
         private final Block block;
+        private final Optional<DictionaryBlock> dictionaryBlock;
+        // group ids are only materialized for getGroupIds
+        private final long[] groupIds;
 
+        private boolean finished;
         private int lastPosition;
 
-        public AddPageWork(Block block)
+        public BatchWork(Block block, boolean produceGroupIds)
         {
             this.block = requireNonNull(block, "block is null");
+            this.dictionaryBlock = canProcessDictionary(block) ? Optional.of((DictionaryBlock) block) : Optional.empty();
+            dictionaryBlock.ifPresent(dictionary -> updateDictionaryLookBack(dictionary.getDictionary()));
+            // we know the exact size required for the block
+            this.groupIds = produceGroupIds ? new long[block.getPositionCount()] : null;
         }
 
         @Override
         public boolean process()
         {
             int positionCount = block.getPositionCount();
-            checkState(lastPosition < positionCount, "position count out of bound");
-
-            // needRehash() == false indicates we have reached capacity boundary and a rehash is needed.
-            // We can only proceed if tryRehash() successfully did a rehash.
-            if (needRehash() && !tryRehash()) {
-                return false;
-            }
+            checkState(lastPosition <= positionCount, "position count out of bound");
+            checkState(!finished);
 
-            // putIfAbsent will rehash automatically if rehash is needed, unless there isn't enough memory to do so.
-            // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
-            while (lastPosition < positionCount && !needRehash()) {
-                // get the group for the current row
-                putIfAbsent(lastPosition, block);
-                lastPosition++;
+            while (lastPosition < positionCount) {
+                // needRehash() == true indicates we have reached capacity boundary and a rehash is needed.
+                // We can only proceed if tryRehash() successfully did a rehash.
+                if (needRehash() && !tryRehash()) {
+                    return false;
+                }
+
+                // every position adds at most one group, so bounding the batch by the remaining capacity
+                // guarantees no rehash is needed until the batch is done
+                int length = min(min(positionCount - lastPosition, BATCH_SIZE), maxFill - nextGroupId);
+                long[] output = groupIds == null ? batchGroupIds : groupIds;
+                int outputOffset = groupIds == null ? 0 : lastPosition;
+                if (dictionaryBlock.isPresent()) {
+                    putIfAbsent(dictionaryBlock.get(), lastPosition, length, output, outputOffset);
+                }
+                else {
+                    putIfAbsent(block, lastPosition, length, output, outputOffset);
+                }
+                lastPosition += length;
             }
-            return lastPosition == positionCount;
+            return true;
         }
 
         @Override
-        public Void getResult()
+        public GroupByIdBlock getResult()
         {
-            throw new UnsupportedOperationException();
+            checkState(groupIds != null, "group ids are not produced when adding a page");
+            checkState(lastPosition == block.getPositionCount(), "process has not yet finished");
+            checkState(!finished, "result has produced");
+            finished = true;
+            return new GroupByIdBlock(nextGroupId, new LongArrayBlock(groupIds.length, Optional.empty(), groupIds));
         }
     }
 
-    private class GetGroupIdsWork
+    private class RunLengthEncodedWork
             implements Work<GroupByIdBlock>
     {
-        private final BlockBuilder blockBuilder;
-        private final Block block;
+        private final RunLengthEncodedBlock block;
+        private final boolean produceGroupIds;
 
-        private boolean finished;
-        private int lastPosition;
+        private int groupId = -1;
+        private boolean processFinished;
+        private boolean resultProduced;
 
-        public GetGroupIdsWork(Block block)
+        public RunLengthEncodedWork(RunLengthEncodedBlock block, boolean produceGroupIds)
         {
             this.block = requireNonNull(block, "block is null");
-            // we know the exact size required for the block
-            this.blockBuilder = BIGINT.createFixedSizeBlockBuilder(block.getPositionCount());
+            this.produceGroupIds = produceGroupIds;
         }
 
         @Override
         public boolean process()
         {
-            int positionCount = block.getPositionCount();
-            checkState(lastPosition < positionCount, "position count out of bound");
-            checkState(!finished);
+            checkState(!processFinished);
+            if (block.getPositionCount() == 0) {
+                processFinished = true;
+                return true;
+            }
 
-            // needRehash() == false indicates we have reached capacity boundary and a rehash is needed.
+            // needRehash() == true indicates we have reached capacity boundary and a rehash is needed.
             // We can only proceed if tryRehash() successfully did a rehash.
             if (needRehash() && !tryRehash()) {
                 return false;
             }
 
-            // putIfAbsent will rehash automatically if rehash is needed, unless there isn't enough memory to do so.
-            // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
-            while (lastPosition < positionCount && !needRehash()) {
-                // output the group id for this row
-                BIGINT.writeLong(blockBuilder, putIfAbsent(lastPosition, block));
-                lastPosition++;
-            }
-            return lastPosition == positionCount;
+            // Only needs to process the first row since it is Run Length Encoded
+            groupId = putIfAbsent(0, block.getValue());
+            processFinished = true;
+            return true;
         }
 
         @Override
         public GroupByIdBlock getResult()
         {
-            checkState(lastPosition == block.getPositionCount(), "process has not yet finished");
-            checkState(!finished, "result has produced");
-            finished = true;
-            return new GroupByIdBlock(nextGroupId, blockBuilder.build());
+            checkState(produceGroupIds, "group ids are not produced when adding a page");
+            checkState(processFinished);
+            checkState(!resultProduced);
+            resultProduced = true;
+
+            return new GroupByIdBlock(
+                    nextGroupId,
+                    new RunLengthEncodedBlock(
+                            BIGINT.createFixedSizeBlockBuilder(1).writeLong(groupId).build(),
+                            block.getPositionCount()));
         }
     }
 }
@@ -103,7 +103,12 @@ public class DriverFactory
         return operatorFactories;
     }
 
-    public synchronized Driver createDriver(DriverContext driverContext)
+    public Driver createDriver(DriverContext driverContext)
+    {
+        return Driver.createDriver(driverContext, createOperators(driverContext));
+    }
+
+    public synchronized List<Operator> createOperators(DriverContext driverContext)
     {
         checkState(!closed, "DriverFactory is already closed");
         requireNonNull(driverContext, "driverContext is null");
@@ -114,7 +119,7 @@ public class DriverFactory
             Operator operator = operatorFactory.createOperator(driverContext);
             operators.add(operator);
         }
-        return Driver.createDriver(driverContext, operators.build());
+        return operators.build();
     }
 
     public synchronized void noMoreDrivers(Lifespan lifespan)
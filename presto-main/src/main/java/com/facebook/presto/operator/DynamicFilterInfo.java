@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.util.Mergeable;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+public class DynamicFilterInfo
+        implements Mergeable<DynamicFilterInfo>, OperatorInfo
+{
+    private final long inputPositions;
+    private final long filteredPositions;
+    // info of the split being scanned, as published by SplitOperatorInfo when there is no dynamic filter
+    @Nullable
+    private final Object splitInfo;
+
+    @JsonCreator
+    public DynamicFilterInfo(
+            @JsonProperty("inputPositions") long inputPositions,
+            @JsonProperty("filteredPositions") long filteredPositions,
+            @JsonProperty("splitInfo") @Nullable Object splitInfo)
+    {
+        this.inputPositions = inputPositions;
+        this.filteredPositions = filteredPositions;
+        this.splitInfo = splitInfo;
+    }
+
+    @JsonProperty
+    public long getInputPositions()
+    {
+        return inputPositions;
+    }
+
+    @JsonProperty
+    public long getFilteredPositions()
+    {
+        return filteredPositions;
+    }
+
+    @Nullable
+    @JsonProperty
+    public Object getSplitInfo()
+    {
+        return splitInfo;
+    }
+
+    @Override
+    public DynamicFilterInfo mergeWith(DynamicFilterInfo other)
+    {
+        return new DynamicFilterInfo(
+                this.inputPositions + other.getInputPositions(),
+                this.filteredPositions + other.getFilteredPositions(),
+                // like other split infos, only one of the merged splits is kept
+                this.splitInfo != null ? this.splitInfo : other.getSplitInfo());
+    }
+
+    @Override
+    public boolean isFinal()
+    {
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("inputPositions", inputPositions)
+                .add("filteredPositions", filteredPositions)
+                .add("splitInfo", splitInfo)
+                .toString();
+    }
+}
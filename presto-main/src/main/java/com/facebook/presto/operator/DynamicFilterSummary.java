@@ -0,0 +1,164 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.Type;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.openjdk.jol.info.ClassLayout;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import static com.facebook.presto.type.TypeUtils.hashPosition;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOfLongArray;
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+import static it.unimi.dsi.fastutil.HashCommon.arraySize;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Summary of the non-null values of a single join key seen on the build side of a hash join.
+ * A probe row can only find a match if its key is between the collected minimum and maximum
+ * and, as long as the number of distinct values stays small, its hash is one of the collected hashes.
+ * The summary may report false positives, but never false negatives.
+ * <p>
+ * Summaries are mutated only while the build side is consumed and are read-only once published
+ * by {@link JoinDynamicFilter}.
+ */
+@NotThreadSafe
+public class DynamicFilterSummary
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(DynamicFilterSummary.class).instanceSize();
+    private static final int HASH_SET_INSTANCE_SIZE = ClassLayout.parseClass(LongOpenHashSet.class).instanceSize();
+
+    private final Type type;
+    private final int maxDistinctValues;
+
+    private boolean hasValues;
+    @Nullable
+    private Block min;
+    @Nullable
+    private Block max;
+    // null when more than maxDistinctValues distinct hashes have been seen
+    @Nullable
+    private LongOpenHashSet hashes = new LongOpenHashSet();
+
+    public DynamicFilterSummary(Type type, int maxDistinctValues)
+    {
+        this.type = requireNonNull(type, "type is null");
+        checkArgument(maxDistinctValues >= 0, "maxDistinctValues is negative");
+        this.maxDistinctValues = maxDistinctValues;
+    }
+
+    public Type getType()
+    {
+        return type;
+    }
+
+    public void add(Block block)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                continue;
+            }
+            hasValues = true;
+            if (type.isOrderable()) {
+                if (min == null || type.compareTo(block, position, min, 0) < 0) {
+                    min = block.getSingleValueBlock(position);
+                }
+                if (max == null || type.compareTo(block, position, max, 0) > 0) {
+                    max = block.getSingleValueBlock(position);
+                }
+            }
+            if (hashes != null) {
+                hashes.add(hashPosition(type, block, position));
+                if (hashes.size() > maxDistinctValues) {
+                    hashes = null;
+                }
+            }
+        }
+    }
+
+    public void mergeWith(DynamicFilterSummary other)
+    {
+        checkArgument(type.equals(other.type), "type mismatch: %s != %s", type, other.type);
+        if (!other.hasValues) {
+            return;
+        }
+        if (!hasValues) {
+            hasValues = true;
+            min = other.min;
+            max = other.max;
+            hashes = other.hashes == null ? null : new LongOpenHashSet(other.hashes);
+            return;
+        }
+        if (min != null && type.compareTo(other.min, 0, min, 0) < 0) {
+            min = other.min;
+        }
+        if (max != null && type.compareTo(other.max, 0, max, 0) > 0) {
+            max = other.max;
+        }
+        if (hashes != null && other.hashes != null) {
+            hashes.addAll(other.hashes);
+            if (hashes.size() > maxDistinctValues) {
+                hashes = null;
+            }
+        }
+        else {
+            hashes = null;
+        }
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        long size = INSTANCE_SIZE;
+        if (min != null) {
+            size += min.getRetainedSizeInBytes();
+        }
+        if (max != null) {
+            size += max.getRetainedSizeInBytes();
+        }
+        if (hashes != null) {
+            // the table has one extra slot for the zero key
+            size += HASH_SET_INSTANCE_SIZE + sizeOfLongArray(arraySize(hashes.size(), DEFAULT_LOAD_FACTOR) + 1);
+        }
+        return size;
+    }
+
+    /**
+     * @return false if the value at {@code position} can not be equal to any of the summarized values
+     */
+    public boolean test(Block block, int position)
+    {
+        if (!hasValues || block.isNull(position)) {
+            return false;
+        }
+        if (min != null && (type.compareTo(block, position, min, 0) < 0 || type.compareTo(block, position, max, 0) > 0)) {
+            return false;
+        }
+        return hashes == null || hashes.contains(hashPosition(type, block, position));
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("type", type)
+                .add("hasValues", hasValues)
+                .add("distinctValues", hashes == null ? "> " + maxDistinctValues : String.valueOf(hashes.size()))
+                .toString();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.LazyBlock;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Applies the build side key summaries of one or more {@link JoinDynamicFilter}s to the pages
+ * produced by a probe side table scan. Filters that are not complete yet are ignored, so the scan
+ * never waits for the build side.
+ */
+public class DynamicPageFilter
+{
+    private final List<Target> targets;
+
+    public DynamicPageFilter(List<Target> targets)
+    {
+        this.targets = ImmutableList.copyOf(requireNonNull(targets, "targets is null"));
+        checkArgument(!targets.isEmpty(), "targets is empty");
+    }
+
+    public List<Target> getTargets()
+    {
+        return targets;
+    }
+
+    /**
+     * @return the positions of {@code page} that may find a match on the build side of every complete filter
+     */
+    public Page filter(Page page)
+    {
+        int[] positions = null;
+        int positionCount = page.getPositionCount();
+        for (Target target : targets) {
+            Optional<DynamicFilterSummary> summary = target.getFilter().getSummary(target.getKeyIndex());
+            if (!summary.isPresent()) {
+                continue;
+            }
+
+            Block block = page.getBlock(target.getChannel());
+            int selectedCount = 0;
+            if (positions == null) {
+                positions = new int[positionCount];
+                for (int position = 0; position < positionCount; position++) {
+                    if (summary.get().test(block, position)) {
+                        positions[selectedCount] = position;
+                        selectedCount++;
+                    }
+                }
+            }
+            else {
+                for (int i = 0; i < positionCount; i++) {
+                    if (summary.get().test(block, positions[i])) {
+                        positions[selectedCount] = positions[i];
+                        selectedCount++;
+                    }
+                }
+            }
+            positionCount = selectedCount;
+        }
+
+        if (positions == null || positionCount == page.getPositionCount()) {
+            return page;
+        }
+        return getPositions(page, positions, positionCount);
+    }
+
+    private static Page getPositions(Page page, int[] positions, int positionCount)
+    {
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            Block block = page.getBlock(channel);
+            if (block instanceof LazyBlock && !((LazyBlock) block).isLoaded()) {
+                // keep columns that are not used by the filter lazy
+                LazyBlock lazyBlock = (LazyBlock) block;
+                blocks[channel] = new LazyBlock(positionCount, filtered -> filtered.setBlock(lazyBlock.getLoadedBlock().getPositions(positions, 0, positionCount)));
+            }
+            else {
+                blocks[channel] = block.getPositions(positions, 0, positionCount);
+            }
+        }
+        return new Page(positionCount, blocks);
+    }
+
+    public static class Target
+    {
+        private final JoinDynamicFilter filter;
+        private final int keyIndex;
+        private final int channel;
+
+        public Target(JoinDynamicFilter filter, int keyIndex, int channel)
+        {
+            this.filter = requireNonNull(filter, "filter is null");
+            checkArgument(keyIndex >= 0 && keyIndex < filter.getKeyTypes().size(), "invalid keyIndex %s", keyIndex);
+            checkArgument(channel >= 0, "channel is negative");
+            this.keyIndex = keyIndex;
+            this.channel = channel;
+        }
+
+        public JoinDynamicFilter getFilter()
+        {
+            return filter;
+        }
+
+        public int getKeyIndex()
+        {
+            return keyIndex;
+        }
+
+        public int getChannel()
+        {
+            return channel;
+        }
+    }
+}
@@ -16,8 +16,13 @@ package com.facebook.presto.operator;
 import com.facebook.airlift.concurrent.ThreadPoolExecutorMBean;
 import com.facebook.airlift.http.client.HttpClient;
 import com.facebook.drift.client.DriftClient;
+import com.facebook.presto.execution.scheduler.NetworkLocationCache;
+import com.facebook.presto.execution.scheduler.NetworkTopology;
+import com.facebook.presto.execution.scheduler.NodeSchedulerConfig;
 import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.metadata.InternalNodeManager;
 import com.facebook.presto.server.thrift.ThriftTaskClient;
+import com.google.common.base.Suppliers;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import org.weakref.jmx.Managed;
@@ -26,11 +31,13 @@ import org.weakref.jmx.Nested;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.execution.scheduler.NodeSchedulerConfig.NetworkTopologyType.LEGACY;
 import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.Objects.requireNonNull;
@@ -51,13 +58,37 @@ public class ExchangeClientFactory
     private final ScheduledExecutorService scheduler;
     private final ThreadPoolExecutorMBean executorMBean;
     private final ExecutorService pageBufferClientCallbackExecutor;
+    private final Optional<NetworkDistanceClassifier> networkDistanceClassifier;
+
+    public ExchangeClientFactory(
+            ExchangeClientConfig config,
+            HttpClient httpClient,
+            DriftClient<ThriftTaskClient> driftClient,
+            ScheduledExecutorService scheduler)
+    {
+        this(
+                config.getMaxBufferSize(),
+                config.getMaxResponseSize(),
+                config.getConcurrentRequestMultiplier(),
+                config.getMaxErrorDuration(),
+                config.isAcknowledgePages(),
+                config.isAsyncPageTransportEnabled(),
+                config.getPageBufferClientMaxCallbackThreads(),
+                config.getResponseSizeExponentialMovingAverageDecayingAlpha(),
+                httpClient,
+                driftClient,
+                scheduler);
+    }
 
     @Inject
     public ExchangeClientFactory(
             ExchangeClientConfig config,
             @ForExchange HttpClient httpClient,
             @ForExchange DriftClient<ThriftTaskClient> driftClient,
-            @ForExchange ScheduledExecutorService scheduler)
+            @ForExchange ScheduledExecutorService scheduler,
+            NodeSchedulerConfig nodeSchedulerConfig,
+            NetworkTopology networkTopology,
+            InternalNodeManager nodeManager)
     {
         this(
                 config.getMaxBufferSize(),
@@ -70,7 +101,12 @@ public class ExchangeClientFactory
                 config.getResponseSizeExponentialMovingAverageDecayingAlpha(),
                 httpClient,
                 driftClient,
-                scheduler);
+                scheduler,
+                // the legacy network topology is not used for scheduling, so do not spend lookups on it
+                nodeSchedulerConfig.getNetworkTopology().equals(LEGACY) ? Optional.empty() : Optional.of(new NetworkDistanceClassifier(
+                        new NetworkLocationCache(networkTopology),
+                        networkTopology.getLocationSegmentNames(),
+                        Suppliers.memoize(() -> nodeManager.getCurrentNode().getHostAndPort()))));
     }
 
     public ExchangeClientFactory(
@@ -85,6 +121,35 @@ public class ExchangeClientFactory
             HttpClient httpClient,
             DriftClient<ThriftTaskClient> driftClient,
             ScheduledExecutorService scheduler)
+    {
+        this(
+                maxBufferedBytes,
+                maxResponseSize,
+                concurrentRequestMultiplier,
+                maxErrorDuration,
+                acknowledgePages,
+                asyncPageTransportEnabled,
+                pageBufferClientMaxCallbackThreads,
+                responseSizeExponentialMovingAverageDecayingAlpha,
+                httpClient,
+                driftClient,
+                scheduler,
+                Optional.empty());
+    }
+
+    public ExchangeClientFactory(
+            DataSize maxBufferedBytes,
+            DataSize maxResponseSize,
+            int concurrentRequestMultiplier,
+            Duration maxErrorDuration,
+            boolean acknowledgePages,
+            boolean asyncPageTransportEnabled,
+            int pageBufferClientMaxCallbackThreads,
+            double responseSizeExponentialMovingAverageDecayingAlpha,
+            HttpClient httpClient,
+            DriftClient<ThriftTaskClient> driftClient,
+            ScheduledExecutorService scheduler,
+            Optional<NetworkDistanceClassifier> networkDistanceClassifier)
     {
         this.maxBufferedBytes = requireNonNull(maxBufferedBytes, "maxBufferedBytes is null");
         this.concurrentRequestMultiplier = concurrentRequestMultiplier;
@@ -106,6 +171,7 @@ public class ExchangeClientFactory
         this.executorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) pageBufferClientCallbackExecutor);
 
         this.responseSizeExponentialMovingAverageDecayingAlpha = responseSizeExponentialMovingAverageDecayingAlpha;
+        this.networkDistanceClassifier = requireNonNull(networkDistanceClassifier, "networkDistanceClassifier is null");
 
         checkArgument(maxBufferedBytes.toBytes() > 0, "maxBufferSize must be at least 1 byte: %s", maxBufferedBytes);
         checkArgument(maxResponseSize.toBytes() > 0, "maxResponseSize must be at least 1 byte: %s", maxResponseSize);
@@ -117,6 +183,7 @@ public class ExchangeClientFactory
     public void stop()
     {
         pageBufferClientCallbackExecutor.shutdownNow();
+        networkDistanceClassifier.ifPresent(NetworkDistanceClassifier::stop);
     }
 
     @Managed
@@ -141,6 +208,7 @@ public class ExchangeClientFactory
                 driftClient,
                 scheduler,
                 systemMemoryContext,
-                pageBufferClientCallbackExecutor);
+                pageBufferClientCallbackExecutor,
+                networkDistanceClassifier);
     }
 }
@@ -17,8 +17,11 @@ import com.facebook.presto.util.Mergeable;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static java.util.Objects.requireNonNull;
@@ -33,6 +36,19 @@ public class ExchangeClientStatus
     private final int bufferedPages;
     private final boolean noMoreLocations;
     private final List<PageBufferClientStatus> pageBufferClientStatuses;
+    private final Map<String, Long> bytesByNetworkDistance;
+
+    public ExchangeClientStatus(
+            long bufferedBytes,
+            long maxBufferedBytes,
+            long averageBytesPerRequest,
+            long successFullRequestsCount,
+            int bufferedPages,
+            boolean noMoreLocations,
+            List<PageBufferClientStatus> pageBufferClientStatuses)
+    {
+        this(bufferedBytes, maxBufferedBytes, averageBytesPerRequest, successFullRequestsCount, bufferedPages, noMoreLocations, pageBufferClientStatuses, ImmutableMap.of());
+    }
 
     @JsonCreator
     public ExchangeClientStatus(
@@ -42,7 +58,8 @@ public class ExchangeClientStatus
             @JsonProperty("successfulRequestsCount") long successFullRequestsCount,
             @JsonProperty("bufferedPages") int bufferedPages,
             @JsonProperty("noMoreLocations") boolean noMoreLocations,
-            @JsonProperty("pageBufferClientStatuses") List<PageBufferClientStatus> pageBufferClientStatuses)
+            @JsonProperty("pageBufferClientStatuses") List<PageBufferClientStatus> pageBufferClientStatuses,
+            @JsonProperty("bytesByNetworkDistance") Map<String, Long> bytesByNetworkDistance)
     {
         this.bufferedBytes = bufferedBytes;
         this.maxBufferedBytes = maxBufferedBytes;
@@ -51,6 +68,7 @@ public class ExchangeClientStatus
         this.bufferedPages = bufferedPages;
         this.noMoreLocations = noMoreLocations;
         this.pageBufferClientStatuses = ImmutableList.copyOf(requireNonNull(pageBufferClientStatuses, "pageBufferClientStatuses is null"));
+        this.bytesByNetworkDistance = ImmutableMap.copyOf(requireNonNull(bytesByNetworkDistance, "bytesByNetworkDistance is null"));
     }
 
     @JsonProperty
@@ -95,6 +113,16 @@ public class ExchangeClientStatus
         return pageBufferClientStatuses;
     }
 
+    /**
+     * Returns the number of bytes received from the remote tasks by their distance in the network topology,
+     * as classified by {@link NetworkDistanceClassifier}. Empty when the network topology is not used.
+     */
+    @JsonProperty
+    public Map<String, Long> getBytesByNetworkDistance()
+    {
+        return bytesByNetworkDistance;
+    }
+
     @Override
     public boolean isFinal()
     {
@@ -112,6 +140,7 @@ public class ExchangeClientStatus
                 .add("bufferedPages", bufferedPages)
                 .add("noMoreLocations", noMoreLocations)
                 .add("pageBufferClientStatuses", pageBufferClientStatuses)
+                .add("bytesByNetworkDistance", bytesByNetworkDistance)
                 .toString();
     }
 
@@ -125,7 +154,15 @@ public class ExchangeClientStatus
                 successfulRequestsCount + other.successfulRequestsCount,
                 bufferedPages + other.bufferedPages,
                 noMoreLocations && other.noMoreLocations, // if at least one has some locations, mergee has some too
-                ImmutableList.of()); // pageBufferClientStatuses may be long, so we don't want to combine the lists
+                ImmutableList.of(), // pageBufferClientStatuses may be long, so we don't want to combine the lists
+                mergeBytesByNetworkDistance(bytesByNetworkDistance, other.bytesByNetworkDistance));
+    }
+
+    private static Map<String, Long> mergeBytesByNetworkDistance(Map<String, Long> first, Map<String, Long> second)
+    {
+        Map<String, Long> merged = new HashMap<>(first);
+        second.forEach((distance, bytes) -> merged.merge(distance, bytes, Long::sum));
+        return merged;
     }
 
     private static long mergeAvgs(long value1, long count1, long value2, long count2)
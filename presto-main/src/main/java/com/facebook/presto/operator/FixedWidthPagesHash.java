@@ -0,0 +1,240 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.PageBuilder;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.Type;
+import com.google.common.collect.ImmutableList;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.operator.PagesHash.isParallelBuild;
+import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
+import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
+import static com.facebook.presto.util.HashCollisionsEstimator.estimateNumberOfHashCollisions;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static io.airlift.slice.SizeOf.sizeOfLongArray;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Variant of {@link PagesHash} for joins on one or two keys whose values fit in a long and whose
+ * equality is equality of those longs. The key values are copied into primitive arrays laid out
+ * next to the slots of the open addressing table, so lookups compare raw longs instead of calling
+ * into {@link PagesHashStrategy} and the blocks of the build side. The hash is built by a single
+ * thread, so it is only used for builds that {@link PagesHash} would not split between threads.
+ */
+// This implementation assumes arrays used in the hash are always a power of 2
+public final class FixedWidthPagesHash
+{
+    public static final int MAX_KEY_CHANNELS = 2;
+
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(FixedWidthPagesHash.class).instanceSize();
+    private static final List<Type> SUPPORTED_KEY_TYPES = ImmutableList.of(BIGINT, INTEGER, SMALLINT, TINYINT, DATE);
+
+    private final LongArrayList addresses;
+    private final PagesHashStrategy pagesHashStrategy;
+
+    private final int channelCount;
+    private final int mask;
+    private final int[] key;
+    // key values of the position stored in the corresponding slot of key; the second array is null for single key joins
+    private final long[] keyValues0;
+    private final long[] keyValues1;
+    private final Type keyType0;
+    private final Type keyType1;
+    private final long size;
+
+    private final long hashCollisions;
+    private final double expectedHashCollisions;
+
+    public FixedWidthPagesHash(
+            LongArrayList addresses,
+            PagesHashStrategy pagesHashStrategy,
+            PositionLinks.FactoryBuilder positionLinks,
+            List<List<Block>> keyChannels,
+            List<Type> keyTypes)
+    {
+        this.addresses = requireNonNull(addresses, "addresses is null");
+        this.pagesHashStrategy = requireNonNull(pagesHashStrategy, "pagesHashStrategy is null");
+        requireNonNull(positionLinks, "positionLinks is null");
+        requireNonNull(keyChannels, "keyChannels is null");
+        requireNonNull(keyTypes, "keyTypes is null");
+        checkArgument(keyChannels.size() == keyTypes.size(), "keyChannels and keyTypes must have the same size");
+        checkArgument(isSupportedKeyTypes(keyTypes), "Unsupported key types: %s", keyTypes);
+        this.channelCount = pagesHashStrategy.getChannelCount();
+        this.keyType0 = keyTypes.get(0);
+        this.keyType1 = keyTypes.size() > 1 ? keyTypes.get(1) : null;
+
+        // reserve memory for the arrays
+        int hashSize = HashCommon.arraySize(addresses.size(), 0.75f);
+
+        mask = hashSize - 1;
+        key = new int[hashSize];
+        Arrays.fill(key, -1);
+        keyValues0 = new long[hashSize];
+        keyValues1 = keyType1 == null ? null : new long[hashSize];
+
+        hashCollisions = build(positionLinks, keyChannels);
+
+        size = sizeOf(addresses.elements()) + pagesHashStrategy.getSizeInBytes() +
+                sizeOf(key) + sizeOf(keyValues0) + (keyValues1 == null ? 0 : sizeOf(keyValues1));
+        expectedHashCollisions = estimateNumberOfHashCollisions(addresses.size(), hashSize);
+    }
+
+    public static boolean isSupportedKeyTypes(List<? extends Type> keyTypes)
+    {
+        return !keyTypes.isEmpty() && keyTypes.size() <= MAX_KEY_CHANNELS && SUPPORTED_KEY_TYPES.containsAll(keyTypes);
+    }
+
+    /**
+     * @return whether a hash of {@code positionCount} positions on keys of the given types is built with this class
+     */
+    public static boolean isUsedForBuild(List<? extends Type> keyTypes, int positionCount, int buildConcurrency)
+    {
+        return isSupportedKeyTypes(keyTypes) && !isParallelBuild(positionCount, buildConcurrency);
+    }
+
+    /**
+     * @return memory retained by the key value arrays of a hash of {@code positionCount} positions on {@code keyCount} keys,
+     * in addition to the memory of a {@link PagesHash} of the same positions
+     */
+    public static long getEstimatedKeyValuesSizeInBytes(int positionCount, int keyCount)
+    {
+        return keyCount * sizeOfLongArray(HashCommon.arraySize(positionCount, 0.75f));
+    }
+
+    private long build(PositionLinks.FactoryBuilder positionLinks, List<List<Block>> keyChannels)
+    {
+        List<Block> keyBlocks0 = keyChannels.get(0);
+        List<Block> keyBlocks1 = keyType1 == null ? null : keyChannels.get(1);
+        long hashCollisionsLocal = 0;
+
+        for (int position = 0; position < addresses.size(); position++) {
+            long pageAddress = addresses.getLong(position);
+            int blockIndex = decodeSliceIndex(pageAddress);
+            int blockPosition = decodePosition(pageAddress);
+
+            if (pagesHashStrategy.isPositionNull(blockIndex, blockPosition)) {
+                continue;
+            }
+
+            long value0 = keyType0.getLong(keyBlocks0.get(blockIndex), blockPosition);
+            long value1 = keyBlocks1 == null ? 0 : keyType1.getLong(keyBlocks1.get(blockIndex), blockPosition);
+            int pos = getHashPosition(pagesHashStrategy.hashPosition(blockIndex, blockPosition), mask);
+
+            // look for an empty slot or a slot containing this key
+            int realPosition = position;
+            while (key[pos] != -1) {
+                if (keyValues0[pos] == value0 && (keyValues1 == null || keyValues1[pos] == value1)) {
+                    // found a slot for this key
+                    // link the new key position to the current key position
+                    realPosition = positionLinks.link(realPosition, key[pos]);
+
+                    // key[pos] updated outside of this loop
+                    break;
+                }
+                // increment position and mask to handler wrap around
+                pos = (pos + 1) & mask;
+                hashCollisionsLocal++;
+            }
+
+            key[pos] = realPosition;
+            keyValues0[pos] = value0;
+            if (keyValues1 != null) {
+                keyValues1[pos] = value1;
+            }
+        }
+        return hashCollisionsLocal;
+    }
+
+    public final int getChannelCount()
+    {
+        return channelCount;
+    }
+
+    public int getPositionCount()
+    {
+        return addresses.size();
+    }
+
+    public long getInMemorySizeInBytes()
+    {
+        return INSTANCE_SIZE + size;
+    }
+
+    public long getHashCollisions()
+    {
+        return hashCollisions;
+    }
+
+    public double getExpectedHashCollisions()
+    {
+        return expectedHashCollisions;
+    }
+
+    public int getAddressIndex(int position, Page hashChannelsPage)
+    {
+        return getAddressIndex(position, hashChannelsPage, pagesHashStrategy.hashRow(position, hashChannelsPage));
+    }
+
+    public int getAddressIndex(int rightPosition, Page hashChannelsPage, long rawHash)
+    {
+        long value0 = keyType0.getLong(hashChannelsPage.getBlock(0), rightPosition);
+        long value1 = keyType1 == null ? 0 : keyType1.getLong(hashChannelsPage.getBlock(1), rightPosition);
+        int pos = getHashPosition(rawHash, mask);
+
+        while (key[pos] != -1) {
+            if (keyValues0[pos] == value0 && (keyValues1 == null || keyValues1[pos] == value1)) {
+                return key[pos];
+            }
+            // increment position and mask to handler wrap around
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    public void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        long pageAddress = addresses.getLong(toIntExact(position));
+        int blockIndex = decodeSliceIndex(pageAddress);
+        int blockPosition = decodePosition(pageAddress);
+
+        pagesHashStrategy.appendTo(blockIndex, blockPosition, pageBuilder, outputChannelOffset);
+    }
+
+    private static int getHashPosition(long rawHash, long mask)
+    {
+        // Same avalanche function as PagesHash, see there for details
+        rawHash ^= rawHash >>> 33;
+        rawHash *= 0xff51afd7ed558ccdL;
+        rawHash ^= rawHash >>> 33;
+        rawHash *= 0xc4ceb9fe1a85ec53L;
+        rawHash ^= rawHash >>> 33;
+
+        return (int) (rawHash & mask);
+    }
+}
@@ -104,7 +104,16 @@ public class GroupedTopNBuilder
 
     public Iterator<Page> buildResult()
     {
-        return new ResultIterator();
+        return new ResultIterator(produceRowNumber);
+    }
+
+    /**
+     * Returns the top N rows of every group in source layout, without row numbers, so that
+     * they can be spilled and processed again by another builder.
+     */
+    public Iterator<Page> buildRetainedRows()
+    {
+        return new ResultIterator(false);
     }
 
     public long getEstimatedSizeInBytes()
@@ -376,6 +385,7 @@ public class GroupedTopNBuilder
             extends AbstractIterator<Page>
     {
         private final PageBuilder pageBuilder;
+        private final boolean produceRowNumber;
         // we may have 0 groups if there is no input page processed
         private final int groupCount = groupByHash.getGroupCount();
 
@@ -389,8 +399,9 @@ public class GroupedTopNBuilder
 
         private ObjectBigArray<Row> currentRows = nextGroupedRows();
 
-        ResultIterator()
+        ResultIterator(boolean produceRowNumber)
         {
+            this.produceRowNumber = produceRowNumber;
             if (produceRowNumber) {
                 pageBuilder = new PageBuilder(new ImmutableList.Builder<Type>().addAll(sourceTypes).add(BIGINT).build());
             }
@@ -0,0 +1,89 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.util.Mergeable;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import static java.util.Objects.requireNonNull;
+
+public class HashAggregationInfo
+        implements Mergeable<HashAggregationInfo>, OperatorInfo
+{
+    private final HashCollisionsInfo hashCollisionsInfo;
+    private final long partialAggregationDisabledOperators;
+    private final long aggregatedInputRows;
+    private final long aggregatedOutputRows;
+    private final long passThroughRows;
+
+    @JsonCreator
+    public HashAggregationInfo(
+            @JsonProperty("hashCollisionsInfo") HashCollisionsInfo hashCollisionsInfo,
+            @JsonProperty("partialAggregationDisabledOperators") long partialAggregationDisabledOperators,
+            @JsonProperty("aggregatedInputRows") long aggregatedInputRows,
+            @JsonProperty("aggregatedOutputRows") long aggregatedOutputRows,
+            @JsonProperty("passThroughRows") long passThroughRows)
+    {
+        this.hashCollisionsInfo = requireNonNull(hashCollisionsInfo, "hashCollisionsInfo is null");
+        this.partialAggregationDisabledOperators = partialAggregationDisabledOperators;
+        this.aggregatedInputRows = aggregatedInputRows;
+        this.aggregatedOutputRows = aggregatedOutputRows;
+        this.passThroughRows = passThroughRows;
+    }
+
+    @JsonProperty
+    public HashCollisionsInfo getHashCollisionsInfo()
+    {
+        return hashCollisionsInfo;
+    }
+
+    /**
+     * Number of operators that switched from partial aggregation to passing rows through.
+     */
+    @JsonProperty
+    public long getPartialAggregationDisabledOperators()
+    {
+        return partialAggregationDisabledOperators;
+    }
+
+    @JsonProperty
+    public long getAggregatedInputRows()
+    {
+        return aggregatedInputRows;
+    }
+
+    @JsonProperty
+    public long getAggregatedOutputRows()
+    {
+        return aggregatedOutputRows;
+    }
+
+    @JsonProperty
+    public long getPassThroughRows()
+    {
+        return passThroughRows;
+    }
+
+    @Override
+    public HashAggregationInfo mergeWith(HashAggregationInfo other)
+    {
+        return new HashAggregationInfo(
+                hashCollisionsInfo.mergeWith(other.getHashCollisionsInfo()),
+                partialAggregationDisabledOperators + other.getPartialAggregationDisabledOperators(),
+                aggregatedInputRows + other.getAggregatedInputRows(),
+                aggregatedOutputRows + other.getAggregatedOutputRows(),
+                passThroughRows + other.getPassThroughRows());
+    }
+}
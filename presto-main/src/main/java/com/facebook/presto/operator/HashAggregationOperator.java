@@ -15,10 +15,14 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.PageBuilder;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.block.LongArrayBlock;
 import com.facebook.presto.common.type.BigintType;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.operator.aggregation.Accumulator;
 import com.facebook.presto.operator.aggregation.AccumulatorFactory;
+import com.facebook.presto.operator.aggregation.GroupedAccumulator;
 import com.facebook.presto.operator.aggregation.builder.HashAggregationBuilder;
 import com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder;
 import com.facebook.presto.operator.aggregation.builder.SpillableHashAggregationBuilder;
@@ -39,6 +43,7 @@ import java.util.stream.Collectors;
 import static com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder.toTypes;
 import static com.facebook.presto.sql.planner.optimizations.HashGenerationOptimizer.INITIAL_HASH_VALUE;
 import static com.facebook.presto.type.TypeUtils.NULL_HASH_CODE;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
@@ -71,6 +76,7 @@ public class HashAggregationOperator
         private final SpillerFactory spillerFactory;
         private final JoinCompiler joinCompiler;
         private final boolean useSystemMemory;
+        private final Optional<PartialAggregationController> partialAggregationController;
 
         private boolean closed;
 
@@ -109,7 +115,8 @@ public class HashAggregationOperator
                         throw new UnsupportedOperationException();
                     },
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    Optional.empty());
         }
 
         public HashAggregationOperatorFactory(
@@ -130,6 +137,46 @@ public class HashAggregationOperator
                 SpillerFactory spillerFactory,
                 JoinCompiler joinCompiler,
                 boolean useSystemMemory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    groupByTypes,
+                    groupByChannels,
+                    globalAggregationGroupIds,
+                    step,
+                    produceDefaultOutput,
+                    accumulatorFactories,
+                    hashChannel,
+                    groupIdChannel,
+                    expectedGroups,
+                    maxPartialMemory,
+                    spillEnabled,
+                    unspillMemoryLimit,
+                    spillerFactory,
+                    joinCompiler,
+                    useSystemMemory,
+                    Optional.empty());
+        }
+
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                List<Integer> globalAggregationGroupIds,
+                Step step,
+                boolean produceDefaultOutput,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> hashChannel,
+                Optional<Integer> groupIdChannel,
+                int expectedGroups,
+                Optional<DataSize> maxPartialMemory,
+                boolean spillEnabled,
+                DataSize unspillMemoryLimit,
+                SpillerFactory spillerFactory,
+                JoinCompiler joinCompiler,
+                boolean useSystemMemory,
+                Optional<PartialAggregationController> partialAggregationController)
         {
             this(operatorId,
                     planNodeId,
@@ -148,7 +195,8 @@ public class HashAggregationOperator
                     DataSize.succinctBytes((long) (unspillMemoryLimit.toBytes() * MERGE_WITH_MEMORY_RATIO)),
                     spillerFactory,
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    partialAggregationController);
         }
 
         @VisibleForTesting
@@ -171,6 +219,48 @@ public class HashAggregationOperator
                 SpillerFactory spillerFactory,
                 JoinCompiler joinCompiler,
                 boolean useSystemMemory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    groupByTypes,
+                    groupByChannels,
+                    globalAggregationGroupIds,
+                    step,
+                    produceDefaultOutput,
+                    accumulatorFactories,
+                    hashChannel,
+                    groupIdChannel,
+                    expectedGroups,
+                    maxPartialMemory,
+                    spillEnabled,
+                    memoryLimitForMerge,
+                    memoryLimitForMergeWithMemory,
+                    spillerFactory,
+                    joinCompiler,
+                    useSystemMemory,
+                    Optional.empty());
+        }
+
+        private HashAggregationOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                List<Integer> globalAggregationGroupIds,
+                Step step,
+                boolean produceDefaultOutput,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> hashChannel,
+                Optional<Integer> groupIdChannel,
+                int expectedGroups,
+                Optional<DataSize> maxPartialMemory,
+                boolean spillEnabled,
+                DataSize memoryLimitForMerge,
+                DataSize memoryLimitForMergeWithMemory,
+                SpillerFactory spillerFactory,
+                JoinCompiler joinCompiler,
+                boolean useSystemMemory,
+                Optional<PartialAggregationController> partialAggregationController)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -190,6 +280,8 @@ public class HashAggregationOperator
             this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
             this.useSystemMemory = useSystemMemory;
+            this.partialAggregationController = requireNonNull(partialAggregationController, "partialAggregationController is null");
+            checkArgument(!partialAggregationController.isPresent() || step == Step.PARTIAL, "partialAggregationController can only be used for partial aggregation");
         }
 
         @Override
@@ -215,7 +307,8 @@ public class HashAggregationOperator
                     memoryLimitForMergeWithMemory,
                     spillerFactory,
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    partialAggregationController);
             return hashAggregationOperator;
         }
 
@@ -246,7 +339,8 @@ public class HashAggregationOperator
                     memoryLimitForMergeWithMemory,
                     spillerFactory,
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    partialAggregationController.map(PartialAggregationController::duplicate));
         }
     }
 
@@ -268,6 +362,8 @@ public class HashAggregationOperator
     private final JoinCompiler joinCompiler;
     private final boolean useSystemMemory;
 
+    private final Optional<PartialAggregationController> partialAggregationController;
+
     private final List<Type> types;
     private final HashCollisionsCounter hashCollisionsCounter;
 
@@ -277,6 +373,15 @@ public class HashAggregationOperator
     private boolean finishing;
     private boolean finished;
 
+    // adaptive partial aggregation: rows fed into and produced by the current aggregation builder
+    private long builderInputRows;
+    private long builderOutputRows;
+    private boolean partialAggregationDisabled;
+    private Page passThroughPage;
+    private long aggregatedInputRows;
+    private long aggregatedOutputRows;
+    private long passThroughRows;
+
     // for yield when memory is not available
     private Work<?> unfinishedWork;
 
@@ -298,6 +403,46 @@ public class HashAggregationOperator
             SpillerFactory spillerFactory,
             JoinCompiler joinCompiler,
             boolean useSystemMemory)
+    {
+        this(operatorContext,
+                groupByTypes,
+                groupByChannels,
+                globalAggregationGroupIds,
+                step,
+                produceDefaultOutput,
+                accumulatorFactories,
+                hashChannel,
+                groupIdChannel,
+                expectedGroups,
+                maxPartialMemory,
+                spillEnabled,
+                memoryLimitForMerge,
+                memoryLimitForMergeWithMemory,
+                spillerFactory,
+                joinCompiler,
+                useSystemMemory,
+                Optional.empty());
+    }
+
+    public HashAggregationOperator(
+            OperatorContext operatorContext,
+            List<Type> groupByTypes,
+            List<Integer> groupByChannels,
+            List<Integer> globalAggregationGroupIds,
+            Step step,
+            boolean produceDefaultOutput,
+            List<AccumulatorFactory> accumulatorFactories,
+            Optional<Integer> hashChannel,
+            Optional<Integer> groupIdChannel,
+            int expectedGroups,
+            Optional<DataSize> maxPartialMemory,
+            boolean spillEnabled,
+            DataSize memoryLimitForMerge,
+            DataSize memoryLimitForMergeWithMemory,
+            SpillerFactory spillerFactory,
+            JoinCompiler joinCompiler,
+            boolean useSystemMemory,
+            Optional<PartialAggregationController> partialAggregationController)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(step, "step is null");
@@ -321,8 +466,21 @@ public class HashAggregationOperator
         this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
         this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
         this.hashCollisionsCounter = new HashCollisionsCounter(operatorContext);
-        operatorContext.setInfoSupplier(hashCollisionsCounter);
         this.useSystemMemory = useSystemMemory;
+        requireNonNull(partialAggregationController, "partialAggregationController is null");
+        // ORDER BY and DISTINCT aggregations cannot be evaluated row by row, and global aggregations must stay a single group
+        if (step == Step.PARTIAL && !groupByChannels.isEmpty() && !hasOrderBy() && !hasDistinct()) {
+            this.partialAggregationController = partialAggregationController;
+        }
+        else {
+            this.partialAggregationController = Optional.empty();
+        }
+        if (this.partialAggregationController.isPresent()) {
+            operatorContext.setInfoSupplier(this::getHashAggregationInfo);
+        }
+        else {
+            operatorContext.setInfoSupplier(hashCollisionsCounter);
+        }
     }
 
     @Override
@@ -346,7 +504,7 @@ public class HashAggregationOperator
     @Override
     public boolean needsInput()
     {
-        if (finishing || outputPages != null) {
+        if (finishing || outputPages != null || passThroughPage != null) {
             return false;
         }
         else if (aggregationBuilder != null && aggregationBuilder.isFull()) {
@@ -363,8 +521,15 @@ public class HashAggregationOperator
         checkState(unfinishedWork == null, "Operator has unfinished work");
         checkState(!finishing, "Operator is already finishing");
         requireNonNull(page, "page is null");
+        checkState(passThroughPage == null, "Operator has a pending pass-through page");
         inputProcessed = true;
 
+        if (partialAggregationDisabled) {
+            passThroughPage = createPassThroughPage(page);
+            passThroughRows += page.getPositionCount();
+            return;
+        }
+
         if (aggregationBuilder == null) {
             // TODO: We ignore spillEnabled here if any aggregate has ORDER BY clause or DISTINCT because they are not yet implemented for spilling.
             if (step.isOutputPartial() || !spillEnabled || hasOrderBy() || hasDistinct()) {
@@ -404,6 +569,7 @@ public class HashAggregationOperator
         }
 
         // process the current page; save the unfinished work if we are waiting for memory
+        builderInputRows += page.getPositionCount();
         unfinishedWork = aggregationBuilder.processPage(page);
         if (unfinishedWork.process()) {
             unfinishedWork = null;
@@ -455,6 +621,12 @@ public class HashAggregationOperator
             unfinishedWork = null;
         }
 
+        if (passThroughPage != null) {
+            Page output = passThroughPage;
+            passThroughPage = null;
+            return output;
+        }
+
         if (outputPages == null) {
             if (finishing) {
                 if (!inputProcessed && produceDefaultOutput) {
@@ -470,7 +642,8 @@ public class HashAggregationOperator
             }
 
             // only flush if we are finishing or the aggregation builder is full
-            if (!finishing && (aggregationBuilder == null || !aggregationBuilder.isFull())) {
+            // (or partial aggregation has been disabled, in which case the buffered groups are flushed before rows are passed through)
+            if (!finishing && (aggregationBuilder == null || !(aggregationBuilder.isFull() || isPartialAggregationDisabled()))) {
                 return null;
             }
 
@@ -482,16 +655,20 @@ public class HashAggregationOperator
         }
 
         if (outputPages.isFinished()) {
+            onAggregationBuilderFlushed();
             closeAggregationBuilder();
             return null;
         }
 
-        return outputPages.getResult();
+        Page result = outputPages.getResult();
+        builderOutputRows += result.getPositionCount();
+        return result;
     }
 
     @Override
     public void close()
     {
+        passThroughPage = null;
         closeAggregationBuilder();
     }
 
@@ -501,6 +678,63 @@ public class HashAggregationOperator
         return aggregationBuilder;
     }
 
+    private boolean isPartialAggregationDisabled()
+    {
+        return partialAggregationController.map(PartialAggregationController::isPartialAggregationDisabled).orElse(false);
+    }
+
+    private void onAggregationBuilderFlushed()
+    {
+        aggregatedInputRows += builderInputRows;
+        aggregatedOutputRows += builderOutputRows;
+        if (partialAggregationController.isPresent()) {
+            partialAggregationController.get().onFlush(builderInputRows, builderOutputRows);
+            partialAggregationDisabled = partialAggregationController.get().isPartialAggregationDisabled();
+        }
+        builderInputRows = 0;
+        builderOutputRows = 0;
+    }
+
+    private Page createPassThroughPage(Page page)
+    {
+        int positionCount = page.getPositionCount();
+        long[] groupIds = new long[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            groupIds[position] = position;
+        }
+        GroupByIdBlock groupIdsBlock = new GroupByIdBlock(positionCount, new LongArrayBlock(positionCount, Optional.empty(), groupIds));
+
+        Block[] blocks = new Block[types.size()];
+        int channel = 0;
+        for (int groupByChannel : groupByChannels) {
+            blocks[channel++] = page.getBlock(groupByChannel);
+        }
+        if (hashChannel.isPresent()) {
+            blocks[channel++] = page.getBlock(hashChannel.get());
+        }
+        // every input row becomes a group of its own, so each output row is the intermediate state of that single row
+        for (AccumulatorFactory accumulatorFactory : accumulatorFactories) {
+            GroupedAccumulator accumulator = accumulatorFactory.createGroupedAccumulator();
+            accumulator.addInput(groupIdsBlock, page);
+            BlockBuilder blockBuilder = accumulator.getIntermediateType().createBlockBuilder(null, positionCount);
+            for (int groupId = 0; groupId < positionCount; groupId++) {
+                accumulator.evaluateIntermediate(groupId, blockBuilder);
+            }
+            blocks[channel++] = blockBuilder.build();
+        }
+        return new Page(positionCount, blocks);
+    }
+
+    private HashAggregationInfo getHashAggregationInfo()
+    {
+        return new HashAggregationInfo(
+                hashCollisionsCounter.get(),
+                partialAggregationDisabled ? 1 : 0,
+                aggregatedInputRows,
+                aggregatedOutputRows,
+                passThroughRows);
+    }
+
     private void closeAggregationBuilder()
     {
         outputPages = null;
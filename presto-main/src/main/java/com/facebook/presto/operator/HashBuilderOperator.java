@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.common.Page;
+import com.facebook.presto.common.type.Type;
 import com.facebook.presto.execution.Lifespan;
 import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.spi.plan.PlanNodeId;
@@ -40,9 +41,12 @@ import java.util.Queue;
 
 import static com.facebook.airlift.concurrent.MoreFutures.checkSuccess;
 import static com.facebook.airlift.concurrent.MoreFutures.getDone;
+import static com.facebook.presto.SystemSessionProperties.getJoinHashBuildConcurrency;
+import static com.facebook.presto.operator.PagesHash.getEstimatedBuildTemporarySizeInBytes;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -68,6 +72,7 @@ public class HashBuilderOperator
         private final int expectedPositions;
         private final boolean spillEnabled;
         private final SingleStreamSpillerFactory singleStreamSpillerFactory;
+        private final Optional<JoinDynamicFilter> dynamicFilter;
 
         private final Map<Lifespan, Integer> partitionIndexManager = new HashMap<>();
 
@@ -86,7 +91,8 @@ public class HashBuilderOperator
                 int expectedPositions,
                 PagesIndex.Factory pagesIndexFactory,
                 boolean spillEnabled,
-                SingleStreamSpillerFactory singleStreamSpillerFactory)
+                SingleStreamSpillerFactory singleStreamSpillerFactory,
+                Optional<JoinDynamicFilter> dynamicFilter)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -104,6 +110,7 @@ public class HashBuilderOperator
             this.pagesIndexFactory = requireNonNull(pagesIndexFactory, "pagesIndexFactory is null");
             this.spillEnabled = spillEnabled;
             this.singleStreamSpillerFactory = requireNonNull(singleStreamSpillerFactory, "singleStreamSpillerFactory is null");
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
 
             this.expectedPositions = expectedPositions;
         }
@@ -130,7 +137,10 @@ public class HashBuilderOperator
                     expectedPositions,
                     pagesIndexFactory,
                     spillEnabled,
-                    singleStreamSpillerFactory);
+                    singleStreamSpillerFactory,
+                    dynamicFilter.map(filter -> filter.createCollector(
+                            hashChannels,
+                            operatorContext.aggregateUserMemoryContext().newLocalMemoryContext(JoinDynamicFilter.class.getSimpleName()))));
         }
 
         @Override
@@ -212,6 +222,7 @@ public class HashBuilderOperator
     private final SingleStreamSpillerFactory singleStreamSpillerFactory;
 
     private final HashCollisionsCounter hashCollisionsCounter;
+    private final Optional<JoinDynamicFilter.Collector> dynamicFilterCollector;
 
     private State state = State.CONSUMING_INPUT;
     private Optional<ListenableFuture<?>> lookupSourceNotNeeded = Optional.empty();
@@ -238,7 +249,8 @@ public class HashBuilderOperator
             int expectedPositions,
             PagesIndex.Factory pagesIndexFactory,
             boolean spillEnabled,
-            SingleStreamSpillerFactory singleStreamSpillerFactory)
+            SingleStreamSpillerFactory singleStreamSpillerFactory,
+            Optional<JoinDynamicFilter.Collector> dynamicFilterCollector)
     {
         requireNonNull(pagesIndexFactory, "pagesIndexFactory is null");
 
@@ -263,6 +275,7 @@ public class HashBuilderOperator
 
         this.spillEnabled = spillEnabled;
         this.singleStreamSpillerFactory = requireNonNull(singleStreamSpillerFactory, "singleStreamSpillerFactory is null");
+        this.dynamicFilterCollector = requireNonNull(dynamicFilterCollector, "dynamicFilterCollector is null");
     }
 
     @Override
@@ -324,6 +337,9 @@ public class HashBuilderOperator
             return;
         }
 
+        // summarize the build side keys regardless of spilling, so the dynamic filter covers every row
+        dynamicFilterCollector.ifPresent(collector -> collector.add(page));
+
         if (state == State.SPILLING_INPUT) {
             spillInput(page);
             return;
@@ -483,6 +499,8 @@ public class HashBuilderOperator
             return;
         }
 
+        dynamicFilterCollector.ifPresent(JoinDynamicFilter.Collector::finish);
+
         LookupSourceSupplier partition = buildLookupSource();
         if (spillEnabled) {
             localRevocableMemoryContext.setBytes(partition.get().getInMemorySizeInBytes());
@@ -518,6 +536,7 @@ public class HashBuilderOperator
             return;
         }
         checkSuccess(spillInProgress, "spilling failed");
+        dynamicFilterCollector.ifPresent(JoinDynamicFilter.Collector::finish);
         state = State.INPUT_SPILLED;
     }
 
@@ -586,7 +605,26 @@ public class HashBuilderOperator
 
     private LookupSourceSupplier buildLookupSource()
     {
-        LookupSourceSupplier partition = index.createLookupSourceSupplier(operatorContext.getSession(), hashChannels, preComputedHashChannel, filterFunctionFactory, sortChannel, searchFunctionFactories, Optional.of(outputChannels));
+        // the temporary arrays of a parallel build are released once the lookup source is built, and the key value arrays
+        // of a fixed width hash are accounted as part of the lookup source from then on
+        int positionCount = index.getPositionCount();
+        int buildConcurrency = getJoinHashBuildConcurrency(operatorContext.getSession());
+        long buildSizeInBytes = getEstimatedBuildTemporarySizeInBytes(positionCount, buildConcurrency);
+        List<Type> hashTypes = hashChannels.stream()
+                .map(index.getTypes()::get)
+                .collect(toImmutableList());
+        if (FixedWidthPagesHash.isUsedForBuild(hashTypes, positionCount, buildConcurrency)) {
+            buildSizeInBytes += FixedWidthPagesHash.getEstimatedKeyValuesSizeInBytes(positionCount, hashTypes.size());
+        }
+        LocalMemoryContext buildMemoryContext = operatorContext.aggregateUserMemoryContext().newLocalMemoryContext(PagesHash.class.getSimpleName());
+        buildMemoryContext.setBytes(buildSizeInBytes);
+        LookupSourceSupplier partition;
+        try {
+            partition = index.createLookupSourceSupplier(operatorContext.getSession(), hashChannels, preComputedHashChannel, filterFunctionFactory, sortChannel, searchFunctionFactories, Optional.of(outputChannels));
+        }
+        finally {
+            buildMemoryContext.close();
+        }
         hashCollisionsCounter.recordHashCollision(partition.getHashCollisions(), partition.getExpectedHashCollisions());
         checkState(lookupSourceSupplier == null, "lookupSourceSupplier is already set");
         this.lookupSourceSupplier = partition;
@@ -627,6 +665,7 @@ public class HashBuilderOperator
             spiller.ifPresent(closer::register);
             closer.register(() -> localUserMemoryContext.setBytes(0));
             closer.register(() -> localRevocableMemoryContext.setBytes(0));
+            dynamicFilterCollector.ifPresent(collector -> closer.register(collector::close));
         }
         catch (IOException e) {
             throw new RuntimeException(e);
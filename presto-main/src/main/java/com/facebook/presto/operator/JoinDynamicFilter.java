@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collects {@link DynamicFilterSummary summaries} of the join keys from every build partition
+ * of a hash join. Once all partitions have finished, the combined summaries are published to the
+ * probe side table scans of the same task, which use them to drop rows that can not find a match.
+ */
+@ThreadSafe
+public class JoinDynamicFilter
+{
+    private final List<Type> keyTypes;
+    private final int maxDistinctValues;
+
+    @GuardedBy("this")
+    private final List<DynamicFilterSummary> collectedSummaries;
+    @GuardedBy("this")
+    private OptionalInt pendingPartitions = OptionalInt.empty();
+
+    // null until all build partitions have been collected
+    private volatile List<DynamicFilterSummary> summaries;
+
+    public JoinDynamicFilter(List<Type> keyTypes, int maxDistinctValues)
+    {
+        this.keyTypes = ImmutableList.copyOf(requireNonNull(keyTypes, "keyTypes is null"));
+        checkArgument(!keyTypes.isEmpty(), "keyTypes is empty");
+        this.maxDistinctValues = maxDistinctValues;
+        this.collectedSummaries = createSummaries();
+    }
+
+    public List<Type> getKeyTypes()
+    {
+        return keyTypes;
+    }
+
+    /**
+     * Sets the number of build partitions, i.e. {@link HashBuilderOperator}s, that must be collected
+     * before the filter is published. The probe side is planned before the build side, so this is only
+     * known once the build side has been planned.
+     */
+    public synchronized void setPartitionCount(int partitionCount)
+    {
+        checkArgument(partitionCount > 0, "partitionCount must be positive");
+        checkState(!pendingPartitions.isPresent(), "partitionCount is already set");
+        pendingPartitions = OptionalInt.of(partitionCount);
+    }
+
+    public Collector createCollector(List<Integer> keyChannels, LocalMemoryContext memoryContext)
+    {
+        return new Collector(keyChannels, memoryContext);
+    }
+
+    public boolean isComplete()
+    {
+        return summaries != null;
+    }
+
+    public Optional<DynamicFilterSummary> getSummary(int keyIndex)
+    {
+        List<DynamicFilterSummary> summaries = this.summaries;
+        if (summaries == null) {
+            return Optional.empty();
+        }
+        return Optional.of(summaries.get(keyIndex));
+    }
+
+    private List<DynamicFilterSummary> createSummaries()
+    {
+        return keyTypes.stream()
+                .map(type -> new DynamicFilterSummary(type, maxDistinctValues))
+                .collect(toImmutableList());
+    }
+
+    private synchronized void addPartition(List<DynamicFilterSummary> partitionSummaries)
+    {
+        checkState(pendingPartitions.isPresent(), "partitionCount is not set");
+        checkState(pendingPartitions.getAsInt() > 0, "All partitions have already been collected");
+        for (int i = 0; i < collectedSummaries.size(); i++) {
+            collectedSummaries.get(i).mergeWith(partitionSummaries.get(i));
+        }
+        pendingPartitions = OptionalInt.of(pendingPartitions.getAsInt() - 1);
+        if (pendingPartitions.getAsInt() == 0) {
+            summaries = collectedSummaries;
+        }
+    }
+
+    /**
+     * Summarizes the build side input of a single {@link HashBuilderOperator}.
+     * <p>
+     * The memory of the partition summaries stays reserved until the collector is closed. The combined
+     * summaries are never larger than the sum of the partition summaries, so this also covers them while
+     * the build side is alive.
+     */
+    @NotThreadSafe
+    public class Collector
+    {
+        private final List<Integer> keyChannels;
+        private final List<DynamicFilterSummary> partitionSummaries = createSummaries();
+        private final LocalMemoryContext memoryContext;
+        private boolean finished;
+
+        private Collector(List<Integer> keyChannels, LocalMemoryContext memoryContext)
+        {
+            this.keyChannels = ImmutableList.copyOf(requireNonNull(keyChannels, "keyChannels is null"));
+            checkArgument(keyChannels.size() == keyTypes.size(), "expected %s key channels, but got %s", keyTypes.size(), keyChannels.size());
+            this.memoryContext = requireNonNull(memoryContext, "memoryContext is null");
+        }
+
+        public void add(Page page)
+        {
+            checkState(!finished, "collector is finished");
+            long retainedSizeInBytes = 0;
+            for (int i = 0; i < keyChannels.size(); i++) {
+                DynamicFilterSummary summary = partitionSummaries.get(i);
+                summary.add(page.getBlock(keyChannels.get(i)));
+                retainedSizeInBytes += summary.getRetainedSizeInBytes();
+            }
+            memoryContext.setBytes(retainedSizeInBytes);
+        }
+
+        public void finish()
+        {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            addPartition(partitionSummaries);
+        }
+
+        public void close()
+        {
+            memoryContext.close();
+        }
+    }
+}
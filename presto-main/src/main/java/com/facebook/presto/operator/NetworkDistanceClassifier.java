@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.execution.scheduler.NetworkLocation;
+import com.facebook.presto.execution.scheduler.NetworkLocationCache;
+import com.facebook.presto.spi.HostAddress;
+import com.google.common.collect.ImmutableList;
+
+import java.net.URI;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.facebook.presto.execution.scheduler.NetworkLocation.ROOT_LOCATION;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Classifies the tasks an exchange client reads from by their distance to the local node in the network topology.
+ * A distance is named after the innermost location segment both nodes share, {@code all} when they share no segment,
+ * like the topological split counters of the node scheduler, or {@code unknown} when either location is not known yet.
+ */
+public class NetworkDistanceClassifier
+{
+    public static final String ALL = "all";
+    public static final String UNKNOWN = "unknown";
+
+    private final NetworkLocationCache networkLocationCache;
+    private final List<String> locationSegmentNames;
+    private final Supplier<HostAddress> localAddress;
+
+    public NetworkDistanceClassifier(NetworkLocationCache networkLocationCache, List<String> locationSegmentNames, Supplier<HostAddress> localAddress)
+    {
+        this.networkLocationCache = requireNonNull(networkLocationCache, "networkLocationCache is null");
+        this.locationSegmentNames = ImmutableList.copyOf(requireNonNull(locationSegmentNames, "locationSegmentNames is null"));
+        this.localAddress = requireNonNull(localAddress, "localAddress is null");
+    }
+
+    /**
+     * Stops the network location cache.
+     */
+    public void stop()
+    {
+        networkLocationCache.stop();
+    }
+
+    public String classify(URI remoteLocation)
+    {
+        NetworkLocation local = networkLocationCache.get(localAddress.get());
+        NetworkLocation remote = networkLocationCache.get(HostAddress.fromUri(remoteLocation));
+        if (local.equals(ROOT_LOCATION) || remote.equals(ROOT_LOCATION)) {
+            return UNKNOWN;
+        }
+
+        List<String> localSegments = local.getSegments();
+        List<String> remoteSegments = remote.getSegments();
+        int sharedSegments = 0;
+        while (sharedSegments < min(localSegments.size(), remoteSegments.size()) && localSegments.get(sharedSegments).equals(remoteSegments.get(sharedSegments))) {
+            sharedSegments++;
+        }
+        if (sharedSegments == 0) {
+            return ALL;
+        }
+        return locationSegmentNames.get(min(sharedSegments, locationSegmentNames.size()) - 1);
+    }
+}
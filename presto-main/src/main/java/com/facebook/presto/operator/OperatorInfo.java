@@ -29,9 +29,12 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
         @JsonSubTypes.Type(value = TableFinishInfo.class, name = "tableFinish"),
         @JsonSubTypes.Type(value = SplitOperatorInfo.class, name = "splitOperator"),
         @JsonSubTypes.Type(value = HashCollisionsInfo.class, name = "hashCollisionsInfo"),
+        @JsonSubTypes.Type(value = HashAggregationInfo.class, name = "hashAggregationInfo"),
+        @JsonSubTypes.Type(value = DynamicFilterInfo.class, name = "dynamicFilterInfo"),
         @JsonSubTypes.Type(value = PartitionedOutputInfo.class, name = "partitionedOutput"),
         @JsonSubTypes.Type(value = JoinOperatorInfo.class, name = "joinOperatorInfo"),
         @JsonSubTypes.Type(value = WindowInfo.class, name = "windowInfo"),
+        @JsonSubTypes.Type(value = OrderByInfo.class, name = "orderByInfo"),
         @JsonSubTypes.Type(value = TableWriterInfo.class, name = "tableWriter"),
         @JsonSubTypes.Type(value = TableWriterMergeInfo.class, name = "tableWriterMerge")})
 public interface OperatorInfo
@@ -24,6 +24,7 @@ import io.airlift.units.Duration;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 
+import java.util.Objects;
 import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -616,4 +617,63 @@ public class OperatorStats
                 blockedReason,
                 (info != null && info.isFinal()) ? info : null);
     }
+
+    /**
+     * Operator infos without value equality are only equal to themselves, so stats carrying them are only equal if
+     * they carry the same info.
+     */
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        OperatorStats that = (OperatorStats) o;
+        return stageId == that.stageId &&
+                stageExecutionId == that.stageExecutionId &&
+                pipelineId == that.pipelineId &&
+                operatorId == that.operatorId &&
+                Objects.equals(planNodeId, that.planNodeId) &&
+                Objects.equals(operatorType, that.operatorType) &&
+                totalDrivers == that.totalDrivers &&
+                addInputCalls == that.addInputCalls &&
+                Objects.equals(addInputWall, that.addInputWall) &&
+                Objects.equals(addInputCpu, that.addInputCpu) &&
+                Objects.equals(addInputAllocation, that.addInputAllocation) &&
+                Objects.equals(rawInputDataSize, that.rawInputDataSize) &&
+                rawInputPositions == that.rawInputPositions &&
+                Objects.equals(inputDataSize, that.inputDataSize) &&
+                inputPositions == that.inputPositions &&
+                Double.compare(sumSquaredInputPositions, that.sumSquaredInputPositions) == 0 &&
+                getOutputCalls == that.getOutputCalls &&
+                Objects.equals(getOutputWall, that.getOutputWall) &&
+                Objects.equals(getOutputCpu, that.getOutputCpu) &&
+                Objects.equals(getOutputAllocation, that.getOutputAllocation) &&
+                Objects.equals(outputDataSize, that.outputDataSize) &&
+                outputPositions == that.outputPositions &&
+                Objects.equals(physicalWrittenDataSize, that.physicalWrittenDataSize) &&
+                Objects.equals(blockedWall, that.blockedWall) &&
+                finishCalls == that.finishCalls &&
+                Objects.equals(finishWall, that.finishWall) &&
+                Objects.equals(finishCpu, that.finishCpu) &&
+                Objects.equals(finishAllocation, that.finishAllocation) &&
+                Objects.equals(userMemoryReservation, that.userMemoryReservation) &&
+                Objects.equals(revocableMemoryReservation, that.revocableMemoryReservation) &&
+                Objects.equals(systemMemoryReservation, that.systemMemoryReservation) &&
+                Objects.equals(peakUserMemoryReservation, that.peakUserMemoryReservation) &&
+                Objects.equals(peakSystemMemoryReservation, that.peakSystemMemoryReservation) &&
+                Objects.equals(peakTotalMemoryReservation, that.peakTotalMemoryReservation) &&
+                Objects.equals(spilledDataSize, that.spilledDataSize) &&
+                Objects.equals(blockedReason, that.blockedReason) &&
+                Objects.equals(info, that.info);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(stageId, stageExecutionId, pipelineId, operatorId, planNodeId, addInputCalls, getOutputCalls, finishCalls, inputPositions, outputPositions);
+    }
 }
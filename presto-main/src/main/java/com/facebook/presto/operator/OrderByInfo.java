@@ -0,0 +1,42 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.util.Mergeable;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class OrderByInfo
+        implements Mergeable<OrderByInfo>, OperatorInfo
+{
+    private final long spilledRuns;
+
+    @JsonCreator
+    public OrderByInfo(@JsonProperty("spilledRuns") long spilledRuns)
+    {
+        this.spilledRuns = spilledRuns;
+    }
+
+    @JsonProperty
+    public long getSpilledRuns()
+    {
+        return spilledRuns;
+    }
+
+    @Override
+    public OrderByInfo mergeWith(OrderByInfo other)
+    {
+        return new OrderByInfo(spilledRuns + other.getSpilledRuns());
+    }
+}
@@ -15,17 +15,28 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.PageBuilder;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
 import io.airlift.units.DataSize;
 import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import org.openjdk.jol.info.ClassLayout;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.IntConsumer;
 
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
 import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
 import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
 import static com.facebook.presto.util.HashCollisionsEstimator.estimateNumberOfHashCollisions;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.slice.SizeOf.sizeOf;
+import static io.airlift.slice.SizeOf.sizeOfIntArray;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
@@ -35,6 +46,7 @@ public final class PagesHash
 {
     private static final int INSTANCE_SIZE = ClassLayout.parseClass(PagesHash.class).instanceSize();
     private static final DataSize CACHE_SIZE = new DataSize(128, KILOBYTE);
+    private static final int PARALLEL_BUILD_MIN_POSITIONS_PER_PARTITION = 65536;
     private final LongArrayList addresses;
     private final PagesHashStrategy pagesHashStrategy;
 
@@ -54,9 +66,22 @@ public final class PagesHash
             LongArrayList addresses,
             PagesHashStrategy pagesHashStrategy,
             PositionLinks.FactoryBuilder positionLinks)
+    {
+        this(addresses, pagesHashStrategy, positionLinks, 1, directExecutor());
+    }
+
+    public PagesHash(
+            LongArrayList addresses,
+            PagesHashStrategy pagesHashStrategy,
+            PositionLinks.FactoryBuilder positionLinks,
+            int buildConcurrency,
+            Executor buildExecutor)
     {
         this.addresses = requireNonNull(addresses, "addresses is null");
         this.pagesHashStrategy = requireNonNull(pagesHashStrategy, "pagesHashStrategy is null");
+        requireNonNull(positionLinks, "positionLinks is null");
+        checkArgument(buildConcurrency > 0, "buildConcurrency must be positive");
+        requireNonNull(buildExecutor, "buildExecutor is null");
         this.channelCount = pagesHashStrategy.getChannelCount();
 
         // reserve memory for the arrays
@@ -68,6 +93,49 @@ public final class PagesHash
 
         positionToHashes = new byte[addresses.size()];
 
+        // Only ArrayPositionLinks can be linked in an arbitrary order. SortedPositionLinks
+        // depends on the exact sequence of link() calls, so it is always built sequentially.
+        int partitions = getBuildPartitions(addresses.size(), buildConcurrency);
+        if (partitions > 1 && positionLinks instanceof ArrayPositionLinks.FactoryBuilder) {
+            hashCollisions = buildParallel(positionLinks, partitions, buildExecutor);
+        }
+        else {
+            hashCollisions = build(positionLinks);
+        }
+
+        size = sizeOf(addresses.elements()) + pagesHashStrategy.getSizeInBytes() +
+                sizeOf(key) + sizeOf(positionToHashes);
+        expectedHashCollisions = estimateNumberOfHashCollisions(addresses.size(), hashSize);
+    }
+
+    /**
+     * @return upper bound of the memory allocated temporarily while building a hash of {@code positionCount} positions,
+     * in addition to the memory retained by the hash
+     */
+    public static long getEstimatedBuildTemporarySizeInBytes(int positionCount, int buildConcurrency)
+    {
+        if (!isParallelBuild(positionCount, buildConcurrency)) {
+            return 0;
+        }
+        // home slots and partitioned positions, see buildParallel
+        return 2 * sizeOfIntArray(positionCount);
+    }
+
+    /**
+     * @return whether a hash of {@code positionCount} positions is built by more than one thread
+     */
+    public static boolean isParallelBuild(int positionCount, int buildConcurrency)
+    {
+        return getBuildPartitions(positionCount, buildConcurrency) > 1;
+    }
+
+    private static int getBuildPartitions(int positionCount, int buildConcurrency)
+    {
+        return Math.min(buildConcurrency, positionCount / PARALLEL_BUILD_MIN_POSITIONS_PER_PARTITION);
+    }
+
+    private long build(PositionLinks.FactoryBuilder positionLinks)
+    {
         // We will process addresses in batches, to save memory on array of hashes.
         int positionsInStep = Math.min(addresses.size() + 1, (int) CACHE_SIZE.toBytes() / Integer.SIZE);
         long[] positionToFullHashes = new long[positionsInStep];
@@ -117,11 +185,146 @@ public final class PagesHash
                 key[pos] = realPosition;
             }
         }
+        return hashCollisionsLocal;
+    }
 
-        size = sizeOf(addresses.elements()) + pagesHashStrategy.getSizeInBytes() +
-                sizeOf(key) + sizeOf(positionToHashes);
-        hashCollisions = hashCollisionsLocal;
-        expectedHashCollisions = estimateNumberOfHashCollisions(addresses.size(), hashSize);
+    /**
+     * Builds the hash table by splitting the slot space of {@code key} into {@code partitions}
+     * contiguous ranges. Positions are first radix-partitioned by the range of their home slot,
+     * keeping them in ascending order, and every range is then filled by a single thread, so no
+     * slot is ever written concurrently. Positions whose probe sequence runs past the end of
+     * their range are inserted afterwards by the calling thread. The calling thread works on
+     * one partition of every phase and waits for the others to finish on {@code executor}. All positions of a key share
+     * a home slot, so every chain is the same as the one produced by {@link #build}, but the
+     * slot a key ends up in (and thus the number of collisions) may differ.
+     */
+    private long buildParallel(PositionLinks.FactoryBuilder positionLinks, int partitions, Executor executor)
+    {
+        int positionCount = addresses.size();
+        int positionsPerPartition = (positionCount + partitions - 1) / partitions;
+        int slotsPerPartition = (mask + 1) / partitions;
+
+        // home slot of every position (-1 for null keys), reused in the insert phase
+        // to record the position every position links to (-1 for the first position of a key)
+        int[] slots = new int[positionCount];
+        int[][] counts = new int[partitions][partitions];
+        runPartitioned(executor, partitions, chunk -> {
+            int end = Math.min((chunk + 1) * positionsPerPartition, positionCount);
+            for (int position = chunk * positionsPerPartition; position < end; position++) {
+                long hash = readHashPosition(position);
+                positionToHashes[position] = (byte) hash;
+                if (isPositionNull(position)) {
+                    slots[position] = -1;
+                    continue;
+                }
+                int homeSlot = getHashPosition(hash, mask);
+                slots[position] = homeSlot;
+                counts[chunk][getSlotPartition(homeSlot, slotsPerPartition, partitions)]++;
+            }
+        });
+
+        // turn counts into write offsets, so that positions of every partition are stored contiguously and in ascending order
+        int[] partitionOffsets = new int[partitions + 1];
+        int offset = 0;
+        for (int partition = 0; partition < partitions; partition++) {
+            partitionOffsets[partition] = offset;
+            for (int chunk = 0; chunk < partitions; chunk++) {
+                int count = counts[chunk][partition];
+                counts[chunk][partition] = offset;
+                offset += count;
+            }
+        }
+        partitionOffsets[partitions] = offset;
+
+        int[] partitionedPositions = new int[offset];
+        runPartitioned(executor, partitions, chunk -> {
+            int[] writeOffsets = counts[chunk];
+            int end = Math.min((chunk + 1) * positionsPerPartition, positionCount);
+            for (int position = chunk * positionsPerPartition; position < end; position++) {
+                if (slots[position] != -1) {
+                    partitionedPositions[writeOffsets[getSlotPartition(slots[position], slotsPerPartition, partitions)]++] = position;
+                }
+            }
+        });
+
+        long[] partitionCollisions = new long[partitions];
+        LongArrayList[] overflows = new LongArrayList[partitions];
+        runPartitioned(executor, partitions, partition -> {
+            int slotsEnd = partition == partitions - 1 ? mask + 1 : (partition + 1) * slotsPerPartition;
+            LongArrayList overflow = new LongArrayList();
+            long collisions = 0;
+            for (int i = partitionOffsets[partition]; i < partitionOffsets[partition + 1]; i++) {
+                int position = partitionedPositions[i];
+                int homeSlot = slots[position];
+                slots[position] = -1;
+
+                int pos = homeSlot;
+                long probeCollisions = 0;
+                while (pos < slotsEnd && key[pos] != -1) {
+                    int currentKey = key[pos];
+                    if (positionToHashes[position] == positionToHashes[currentKey] && positionEqualsPositionIgnoreNulls(currentKey, position)) {
+                        slots[position] = currentKey;
+                        break;
+                    }
+                    pos++;
+                    probeCollisions++;
+                }
+                if (pos == slotsEnd) {
+                    // probe sequence leaves this range, insert once all ranges are filled
+                    overflow.add(((long) position << 32) | homeSlot);
+                    continue;
+                }
+                key[pos] = position;
+                collisions += probeCollisions;
+            }
+            overflows[partition] = overflow;
+            partitionCollisions[partition] = collisions;
+        });
+
+        long hashCollisionsLocal = 0;
+        for (int partition = 0; partition < partitions; partition++) {
+            hashCollisionsLocal += partitionCollisions[partition];
+            LongArrayList overflow = overflows[partition];
+            for (int i = 0; i < overflow.size(); i++) {
+                int position = (int) (overflow.getLong(i) >>> 32);
+                int pos = (int) overflow.getLong(i);
+                while (key[pos] != -1) {
+                    int currentKey = key[pos];
+                    if (positionToHashes[position] == positionToHashes[currentKey] && positionEqualsPositionIgnoreNulls(currentKey, position)) {
+                        slots[position] = currentKey;
+                        break;
+                    }
+                    pos = (pos + 1) & mask;
+                    hashCollisionsLocal++;
+                }
+                key[pos] = position;
+            }
+        }
+
+        for (int position = 0; position < positionCount; position++) {
+            if (slots[position] != -1) {
+                positionLinks.link(position, slots[position]);
+            }
+        }
+        return hashCollisionsLocal;
+    }
+
+    private static void runPartitioned(Executor executor, int partitions, IntConsumer task)
+    {
+        List<ListenableFuture<?>> futures = new ArrayList<>(partitions - 1);
+        for (int partition = 1; partition < partitions; partition++) {
+            int currentPartition = partition;
+            ListenableFutureTask<?> future = ListenableFutureTask.create(() -> task.accept(currentPartition), null);
+            executor.execute(future);
+            futures.add(future);
+        }
+        task.accept(0);
+        getFutureValue(allAsList(futures));
+    }
+
+    private static int getSlotPartition(int slot, int slotsPerPartition, int partitions)
+    {
+        return Math.min(slot / slotsPerPartition, partitions - 1);
     }
 
     public final int getChannelCount()
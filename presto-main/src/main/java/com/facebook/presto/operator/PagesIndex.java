@@ -49,6 +49,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.function.IntUnaryOperator;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
@@ -59,6 +61,7 @@ import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
 import static com.facebook.presto.operator.SyntheticAddress.encodeSyntheticAddress;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.slice.SizeOf.sizeOf;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.Objects.requireNonNull;
@@ -82,6 +85,7 @@ public class PagesIndex
     private final JoinCompiler joinCompiler;
     private final FunctionManager functionManager;
     private final boolean groupByUsesEqualTo;
+    private final Executor hashBuildExecutor;
 
     private final List<Type> types;
     private final LongArrayList valueAddresses;
@@ -98,6 +102,7 @@ public class PagesIndex
             JoinCompiler joinCompiler,
             FunctionManager functionManager,
             boolean groupByUsesEqualTo,
+            Executor hashBuildExecutor,
             List<Type> types,
             int expectedPositions,
             boolean eagerCompact)
@@ -106,6 +111,7 @@ public class PagesIndex
         this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
         this.functionManager = requireNonNull(functionManager, "functionManager is null");
         this.groupByUsesEqualTo = groupByUsesEqualTo;
+        this.hashBuildExecutor = requireNonNull(hashBuildExecutor, "hashBuildExecutor is null");
         this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
         this.valueAddresses = new LongArrayList(expectedPositions);
         this.eagerCompact = eagerCompact;
@@ -140,7 +146,7 @@ public class PagesIndex
         @Override
         public PagesIndex newPagesIndex(List<Type> types, int expectedPositions)
         {
-            return new PagesIndex(ORDERING_COMPILER, JOIN_COMPILER, MetadataManager.createTestMetadataManager().getFunctionManager(), groupByUsesEqualTo, types, expectedPositions, eagerCompact);
+            return new PagesIndex(ORDERING_COMPILER, JOIN_COMPILER, MetadataManager.createTestMetadataManager().getFunctionManager(), groupByUsesEqualTo, directExecutor(), types, expectedPositions, eagerCompact);
         }
     }
 
@@ -152,21 +158,23 @@ public class PagesIndex
         private final boolean eagerCompact;
         private final FunctionManager functionManager;
         private final boolean groupByUsesEqualTo;
+        private final ExecutorService hashBuildExecutor;
 
         @Inject
-        public DefaultFactory(OrderingCompiler orderingCompiler, JoinCompiler joinCompiler, FeaturesConfig featuresConfig, Metadata metadata)
+        public DefaultFactory(OrderingCompiler orderingCompiler, JoinCompiler joinCompiler, FeaturesConfig featuresConfig, Metadata metadata, @ForJoinHashBuild ExecutorService hashBuildExecutor)
         {
             this.orderingCompiler = requireNonNull(orderingCompiler, "orderingCompiler is null");
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
             this.eagerCompact = requireNonNull(featuresConfig, "featuresConfig is null").isPagesIndexEagerCompactionEnabled();
             this.functionManager = requireNonNull(metadata, "metadata is null").getFunctionManager();
             this.groupByUsesEqualTo = featuresConfig.isGroupByUsesEqualTo();
+            this.hashBuildExecutor = requireNonNull(hashBuildExecutor, "hashBuildExecutor is null");
         }
 
         @Override
         public PagesIndex newPagesIndex(List<Type> types, int expectedPositions)
         {
-            return new PagesIndex(orderingCompiler, joinCompiler, functionManager, groupByUsesEqualTo, types, expectedPositions, eagerCompact);
+            return new PagesIndex(orderingCompiler, joinCompiler, functionManager, groupByUsesEqualTo, hashBuildExecutor, types, expectedPositions, eagerCompact);
         }
     }
 
@@ -497,7 +505,8 @@ public class PagesIndex
                         hashChannel,
                         filterFunctionFactory,
                         sortChannel,
-                        searchFunctionFactories);
+                        searchFunctionFactories,
+                        hashBuildExecutor);
             }
             catch (Exception e) {
                 log.error(e, "Lookup source compile failed for types=%s error=%s", types, e);
@@ -522,7 +531,8 @@ public class PagesIndex
                 channels,
                 filterFunctionFactory,
                 sortChannel,
-                searchFunctionFactories);
+                searchFunctionFactories,
+                hashBuildExecutor);
     }
 
     private List<Integer> rangeList(int endExclusive)
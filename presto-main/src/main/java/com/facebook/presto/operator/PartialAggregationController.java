@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Tracks the reduction ratio achieved by all partial {@link HashAggregationOperator}s
+ * created by one factory and decides when partial aggregation is not worth its cost.
+ * Once disabled, operators forward every input row as its own intermediate state.
+ */
+@ThreadSafe
+public class PartialAggregationController
+{
+    private final long minRows;
+    private final double reductionRatioThreshold;
+
+    @GuardedBy("this")
+    private long totalInputRows;
+    @GuardedBy("this")
+    private long totalOutputRows;
+
+    private volatile boolean partialAggregationDisabled;
+
+    public PartialAggregationController(long minRows, double reductionRatioThreshold)
+    {
+        checkArgument(minRows > 0, "minRows must be positive");
+        checkArgument(reductionRatioThreshold >= 0.0 && reductionRatioThreshold <= 1.0, "reductionRatioThreshold must be between 0 and 1");
+        this.minRows = minRows;
+        this.reductionRatioThreshold = reductionRatioThreshold;
+    }
+
+    public boolean isPartialAggregationDisabled()
+    {
+        return partialAggregationDisabled;
+    }
+
+    public synchronized void onFlush(long inputRows, long outputRows)
+    {
+        if (partialAggregationDisabled) {
+            return;
+        }
+
+        totalInputRows += inputRows;
+        totalOutputRows += outputRows;
+        if (totalInputRows >= minRows && getReductionRatio() < reductionRatioThreshold) {
+            partialAggregationDisabled = true;
+        }
+    }
+
+    public PartialAggregationController duplicate()
+    {
+        return new PartialAggregationController(minRows, reductionRatioThreshold);
+    }
+
+    private synchronized double getReductionRatio()
+    {
+        if (totalInputRows == 0) {
+            return 1.0;
+        }
+        return 1.0 - (double) totalOutputRows / totalInputRows;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return toStringHelper(this)
+                .add("minRows", minRows)
+                .add("reductionRatioThreshold", reductionRatioThreshold)
+                .add("totalInputRows", totalInputRows)
+                .add("totalOutputRows", totalOutputRows)
+                .add("partialAggregationDisabled", partialAggregationDisabled)
+                .toString();
+    }
+}
@@ -42,6 +42,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -71,6 +72,10 @@ public class PipelineContext
 
     private final AtomicInteger totalSplits = new AtomicInteger();
     private final AtomicInteger completedDrivers = new AtomicInteger();
+    private final AtomicInteger createdDrivers = new AtomicInteger();
+    // drivers whose stats have been merged into the stats of the pipeline
+    private final AtomicInteger mergedDrivers = new AtomicInteger();
+    private final AtomicBoolean noMoreDrivers = new AtomicBoolean();
 
     private final AtomicReference<DateTime> executionStartTime = new AtomicReference<>();
     private final AtomicReference<DateTime> lastExecutionStartTime = new AtomicReference<>();
@@ -152,10 +157,25 @@ public class PipelineContext
                 yieldExecutor,
                 pipelineMemoryContext.newMemoryTrackingContext(),
                 lifespan);
+        createdDrivers.incrementAndGet();
         drivers.add(driverContext);
         return driverContext;
     }
 
+    public void noMoreDrivers()
+    {
+        noMoreDrivers.set(true);
+    }
+
+    /**
+     * Returns true when no more drivers will be added to this pipeline and the stats of all its drivers have been merged,
+     * so the stats of the pipeline will not change anymore.
+     */
+    public boolean isFinished()
+    {
+        return noMoreDrivers.get() && mergedDrivers.get() == createdDrivers.get();
+    }
+
     public Session getSession()
     {
         return taskContext.getSession();
@@ -167,6 +187,26 @@ public class PipelineContext
         totalSplits.addAndGet(count);
     }
 
+    public void splitsRemoved(int count)
+    {
+        checkArgument(count >= 0);
+        totalSplits.addAndGet(-count);
+    }
+
+    /**
+     * Removes a driver that was never started because its split was taken back from the task.
+     */
+    public void driverRemoved(DriverContext driverContext)
+    {
+        requireNonNull(driverContext, "driverContext is null");
+        checkArgument(!driverContext.isExecutionStarted(), "Driver %s has already started", driverContext);
+
+        if (!drivers.remove(driverContext)) {
+            throw new IllegalArgumentException("Unknown driver " + driverContext);
+        }
+        createdDrivers.decrementAndGet();
+    }
+
     public void driverFinished(DriverContext driverContext)
     {
         requireNonNull(driverContext, "driverContext is null");
@@ -220,6 +260,8 @@ public class PipelineContext
         outputPositions.update(driverStats.getOutputPositions());
 
         physicalWrittenDataSize.getAndAdd(driverStats.getPhysicalWrittenDataSize().toBytes());
+
+        mergedDrivers.incrementAndGet();
     }
 
     public void start()
@@ -26,10 +26,13 @@ import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.util.Objects.requireNonNull;
 
 @Immutable
@@ -426,4 +429,75 @@ public class PipelineStats
                         .collect(Collectors.toList()),
                 ImmutableList.of());
     }
+
+    /**
+     * Returns these stats without the operator summaries that are equal to those in the given earlier stats of this pipeline.
+     */
+    public PipelineStats withoutOperatorSummariesOf(PipelineStats baseStats)
+    {
+        Set<OperatorStats> baseOperatorSummaries = ImmutableSet.copyOf(baseStats.getOperatorSummaries());
+        List<OperatorStats> changedOperatorSummaries = operatorSummaries.stream()
+                .filter(operatorSummary -> !baseOperatorSummaries.contains(operatorSummary))
+                .collect(toImmutableList());
+        if (changedOperatorSummaries.size() == operatorSummaries.size()) {
+            return this;
+        }
+        return withOperatorSummaries(changedOperatorSummaries);
+    }
+
+    /**
+     * Adds the operator summaries {@link #withoutOperatorSummariesOf(PipelineStats)} left out, taken from the given earlier stats of this pipeline.
+     */
+    public PipelineStats withOperatorSummariesFrom(PipelineStats baseStats)
+    {
+        Map<Integer, OperatorStats> allOperatorSummaries = new TreeMap<>();
+        for (OperatorStats operatorSummary : baseStats.getOperatorSummaries()) {
+            allOperatorSummaries.put(operatorSummary.getOperatorId(), operatorSummary);
+        }
+        for (OperatorStats operatorSummary : operatorSummaries) {
+            allOperatorSummaries.put(operatorSummary.getOperatorId(), operatorSummary);
+        }
+        if (allOperatorSummaries.size() == operatorSummaries.size()) {
+            return this;
+        }
+        return withOperatorSummaries(ImmutableList.copyOf(allOperatorSummaries.values()));
+    }
+
+    private PipelineStats withOperatorSummaries(List<OperatorStats> operatorSummaries)
+    {
+        return new PipelineStats(
+                pipelineId,
+                firstStartTime,
+                lastStartTime,
+                lastEndTime,
+                inputPipeline,
+                outputPipeline,
+                totalDrivers,
+                queuedDrivers,
+                queuedPartitionedDrivers,
+                runningDrivers,
+                runningPartitionedDrivers,
+                blockedDrivers,
+                completedDrivers,
+                userMemoryReservation,
+                revocableMemoryReservation,
+                systemMemoryReservation,
+                queuedTime,
+                elapsedTime,
+                totalScheduledTime,
+                totalCpuTime,
+                totalBlockedTime,
+                fullyBlocked,
+                blockedReasons,
+                totalAllocation,
+                rawInputDataSize,
+                rawInputPositions,
+                processedInputDataSize,
+                processedInputPositions,
+                outputDataSize,
+                outputPositions,
+                physicalWrittenDataSize,
+                operatorSummaries,
+                drivers);
+    }
 }
@@ -70,6 +70,7 @@ public class ScanFilterAndProjectOperator
     private final LocalMemoryContext outputMemoryContext;
     private final SettableFuture<?> blocked = SettableFuture.create();
     private final MergingPageOutput mergingOutput;
+    private final Optional<DynamicPageFilter> dynamicFilter;
 
     private RecordCursor cursor;
     private ConnectorPageSource pageSource;
@@ -82,6 +83,10 @@ public class ScanFilterAndProjectOperator
     private long completedPositions;
     private long readTimeNanos;
 
+    // written by the driver, read by the info supplier from other threads
+    private volatile long dynamicFilterInputPositions;
+    private volatile long dynamicFilterFilteredPositions;
+
     protected ScanFilterAndProjectOperator(
             OperatorContext operatorContext,
             PlanNodeId sourceId,
@@ -91,7 +96,8 @@ public class ScanFilterAndProjectOperator
             TableHandle table,
             Iterable<ColumnHandle> columns,
             Iterable<Type> types,
-            MergingPageOutput mergingOutput)
+            MergingPageOutput mergingOutput,
+            Optional<DynamicPageFilter> dynamicFilter)
     {
         this.cursorProcessor = requireNonNull(cursorProcessor, "cursorProcessor is null");
         this.pageProcessor = requireNonNull(pageProcessor, "pageProcessor is null");
@@ -104,8 +110,13 @@ public class ScanFilterAndProjectOperator
         this.pageProcessorMemoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext(ScanFilterAndProjectOperator.class.getSimpleName());
         this.outputMemoryContext = operatorContext.newLocalSystemMemoryContext(ScanFilterAndProjectOperator.class.getSimpleName());
         this.mergingOutput = requireNonNull(mergingOutput, "mergingOutput is null");
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
 
         this.pageBuilder = new PageBuilder(ImmutableList.copyOf(requireNonNull(types, "types is null")));
+
+        if (dynamicFilter.isPresent()) {
+            operatorContext.setInfoSupplier(() -> new DynamicFilterInfo(dynamicFilterInputPositions, dynamicFilterFilteredPositions, null));
+        }
     }
 
     @Override
@@ -133,7 +144,10 @@ public class ScanFilterAndProjectOperator
         this.split = split;
 
         Object splitInfo = split.getInfo();
-        if (splitInfo != null) {
+        if (dynamicFilter.isPresent()) {
+            operatorContext.setInfoSupplier(() -> new DynamicFilterInfo(dynamicFilterInputPositions, dynamicFilterFilteredPositions, splitInfo));
+        }
+        else if (splitInfo != null) {
             operatorContext.setInfoSupplier(() -> new SplitOperatorInfo(splitInfo));
         }
         blocked.set(null);
@@ -277,9 +291,12 @@ public class ScanFilterAndProjectOperator
             if (page != null) {
                 // update operator stats
                 page = recordProcessedInput(page);
+                page = applyDynamicFilter(page);
 
-                Iterator<Optional<Page>> output = pageProcessor.process(operatorContext.getSession().getSqlFunctionProperties(), yieldSignal, pageProcessorMemoryContext, page);
-                mergingOutput.addInput(output);
+                if (page.getPositionCount() > 0) {
+                    Iterator<Optional<Page>> output = pageProcessor.process(operatorContext.getSession().getSqlFunctionProperties(), yieldSignal, pageProcessorMemoryContext, page);
+                    mergingOutput.addInput(output);
+                }
             }
 
             if (finishing) {
@@ -292,6 +309,17 @@ public class ScanFilterAndProjectOperator
         return result;
     }
 
+    private Page applyDynamicFilter(Page page)
+    {
+        if (!dynamicFilter.isPresent()) {
+            return page;
+        }
+        Page filtered = dynamicFilter.get().filter(page);
+        dynamicFilterInputPositions += page.getPositionCount();
+        dynamicFilterFilteredPositions += page.getPositionCount() - filtered.getPositionCount();
+        return filtered;
+    }
+
     private final class RecordingLazyBlockLoader
             implements LazyBlockLoader<LazyBlock>
     {
@@ -386,6 +414,7 @@ public class ScanFilterAndProjectOperator
         private final List<Type> types;
         private final DataSize minOutputPageSize;
         private final int minOutputPageRowCount;
+        private final Optional<DynamicPageFilter> dynamicFilter;
         private boolean closed;
 
         public ScanFilterAndProjectOperatorFactory(
@@ -399,7 +428,8 @@ public class ScanFilterAndProjectOperator
                 Iterable<ColumnHandle> columns,
                 List<Type> types,
                 DataSize minOutputPageSize,
-                int minOutputPageRowCount)
+                int minOutputPageRowCount,
+                Optional<DynamicPageFilter> dynamicFilter)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -412,6 +442,7 @@ public class ScanFilterAndProjectOperator
             this.types = requireNonNull(types, "types is null");
             this.minOutputPageSize = requireNonNull(minOutputPageSize, "minOutputPageSize is null");
             this.minOutputPageRowCount = minOutputPageRowCount;
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         }
 
         @Override
@@ -434,7 +465,8 @@ public class ScanFilterAndProjectOperator
                     table,
                     columns,
                     types,
-                    new MergingPageOutput(types, minOutputPageSize.toBytes(), minOutputPageRowCount));
+                    new MergingPageOutput(types, minOutputPageSize.toBytes(), minOutputPageRowCount),
+                    dynamicFilter);
         }
 
         @Override
@@ -51,6 +51,7 @@ public class TableScanOperator
         private final PageSourceProvider pageSourceProvider;
         private final TableHandle table;
         private final List<ColumnHandle> columns;
+        private final Optional<DynamicPageFilter> dynamicFilter;
         private boolean closed;
 
         public TableScanOperatorFactory(
@@ -58,13 +59,15 @@ public class TableScanOperator
                 PlanNodeId sourceId,
                 PageSourceProvider pageSourceProvider,
                 TableHandle table,
-                Iterable<ColumnHandle> columns)
+                Iterable<ColumnHandle> columns,
+                Optional<DynamicPageFilter> dynamicFilter)
         {
             this.operatorId = operatorId;
             this.sourceId = requireNonNull(sourceId, "sourceId is null");
             this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
             this.table = requireNonNull(table, "table is null");
             this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         }
 
         @Override
@@ -83,7 +86,8 @@ public class TableScanOperator
                     sourceId,
                     pageSourceProvider,
                     table,
-                    columns);
+                    columns,
+                    dynamicFilter);
         }
 
         @Override
@@ -100,6 +104,7 @@ public class TableScanOperator
     private final List<ColumnHandle> columns;
     private final LocalMemoryContext systemMemoryContext;
     private final SettableFuture<?> blocked = SettableFuture.create();
+    private final Optional<DynamicPageFilter> dynamicFilter;
 
     private Split split;
     private ConnectorPageSource source;
@@ -110,12 +115,17 @@ public class TableScanOperator
     private long completedPositions;
     private long readTimeNanos;
 
+    // written by the driver, read by the info supplier from other threads
+    private volatile long dynamicFilterInputPositions;
+    private volatile long dynamicFilterFilteredPositions;
+
     public TableScanOperator(
             OperatorContext operatorContext,
             PlanNodeId planNodeId,
             PageSourceProvider pageSourceProvider,
             TableHandle table,
-            Iterable<ColumnHandle> columns)
+            Iterable<ColumnHandle> columns,
+            Optional<DynamicPageFilter> dynamicFilter)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -123,6 +133,11 @@ public class TableScanOperator
         this.table = requireNonNull(table, "table is null");
         this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
         this.systemMemoryContext = operatorContext.newLocalSystemMemoryContext(TableScanOperator.class.getSimpleName());
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
+
+        if (dynamicFilter.isPresent()) {
+            operatorContext.setInfoSupplier(() -> new DynamicFilterInfo(dynamicFilterInputPositions, dynamicFilterFilteredPositions, null));
+        }
     }
 
     @Override
@@ -150,7 +165,10 @@ public class TableScanOperator
         this.split = split;
 
         Object splitInfo = split.getInfo();
-        if (splitInfo != null) {
+        if (dynamicFilter.isPresent()) {
+            operatorContext.setInfoSupplier(() -> new DynamicFilterInfo(dynamicFilterInputPositions, dynamicFilterFilteredPositions, splitInfo));
+        }
+        else if (splitInfo != null) {
             operatorContext.setInfoSupplier(() -> new SplitOperatorInfo(splitInfo));
         }
 
@@ -256,6 +274,16 @@ public class TableScanOperator
             // update operator stats
             operatorContext.recordProcessedInput(page.getSizeInBytes(), page.getPositionCount());
             recordSourceRawInputStats();
+
+            if (dynamicFilter.isPresent()) {
+                int inputPositions = page.getPositionCount();
+                page = dynamicFilter.get().filter(page);
+                dynamicFilterInputPositions += inputPositions;
+                dynamicFilterFilteredPositions += inputPositions - page.getPositionCount();
+                if (page.getPositionCount() == 0) {
+                    page = null;
+                }
+            }
         }
 
         // updating system memory usage should happen after page is loaded.
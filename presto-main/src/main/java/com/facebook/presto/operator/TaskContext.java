@@ -98,6 +98,9 @@ public class TaskContext
     private final AtomicDouble cumulativeUserMemory = new AtomicDouble(0.0);
     private final AtomicLong peakTotalMemoryInBytes = new AtomicLong(0);
 
+    private final AtomicLong fragmentResultCacheHits = new AtomicLong();
+    private final AtomicLong fragmentResultCacheMisses = new AtomicLong();
+
     @GuardedBy("cumulativeMemoryLock")
     private long lastUserMemoryReservation;
 
@@ -401,6 +404,16 @@ public class TaskContext
         return toIntExact(max(0, endFullGcCount - startFullGcCount));
     }
 
+    public void recordFragmentResultCacheHit()
+    {
+        fragmentResultCacheHits.incrementAndGet();
+    }
+
+    public void recordFragmentResultCacheMiss()
+    {
+        fragmentResultCacheMisses.incrementAndGet();
+    }
+
     public TaskStats getTaskStats()
     {
         // check for end state to avoid callback ordering problems
@@ -544,6 +557,8 @@ public class TaskContext
                 succinctBytes(outputDataSize),
                 outputPositions,
                 succinctBytes(physicalWrittenDataSize),
+                fragmentResultCacheHits.get(),
+                fragmentResultCacheMisses.get(),
                 fullGcCount,
                 fullGcTime,
                 pipelineStats);
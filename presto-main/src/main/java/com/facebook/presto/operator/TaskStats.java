@@ -76,6 +76,9 @@ public class TaskStats
 
     private final DataSize physicalWrittenDataSize;
 
+    private final long fragmentResultCacheHits;
+    private final long fragmentResultCacheMisses;
+
     private final int fullGcCount;
     private final Duration fullGcTime;
 
@@ -116,6 +119,8 @@ public class TaskStats
                 0,
                 new DataSize(0, BYTE),
                 0,
+                0,
+                0,
                 new Duration(0, MILLISECONDS),
                 ImmutableList.of());
     }
@@ -163,6 +168,9 @@ public class TaskStats
 
             @JsonProperty("physicalWrittenDataSize") DataSize physicalWrittenDataSize,
 
+            @JsonProperty("fragmentResultCacheHits") long fragmentResultCacheHits,
+            @JsonProperty("fragmentResultCacheMisses") long fragmentResultCacheMisses,
+
             @JsonProperty("fullGcCount") int fullGcCount,
             @JsonProperty("fullGcTime") Duration fullGcTime,
 
@@ -222,6 +230,11 @@ public class TaskStats
 
         this.physicalWrittenDataSize = requireNonNull(physicalWrittenDataSize, "writtenDataSize is null");
 
+        checkArgument(fragmentResultCacheHits >= 0, "fragmentResultCacheHits is negative");
+        this.fragmentResultCacheHits = fragmentResultCacheHits;
+        checkArgument(fragmentResultCacheMisses >= 0, "fragmentResultCacheMisses is negative");
+        this.fragmentResultCacheMisses = fragmentResultCacheMisses;
+
         checkArgument(fullGcCount >= 0, "fullGcCount is negative");
         this.fullGcCount = fullGcCount;
         this.fullGcTime = requireNonNull(fullGcTime, "fullGcTime is null");
@@ -413,6 +426,18 @@ public class TaskStats
         return physicalWrittenDataSize;
     }
 
+    @JsonProperty
+    public long getFragmentResultCacheHits()
+    {
+        return fragmentResultCacheHits;
+    }
+
+    @JsonProperty
+    public long getFragmentResultCacheMisses()
+    {
+        return fragmentResultCacheMisses;
+    }
+
     @JsonProperty
     public List<PipelineStats> getPipelines()
     {
@@ -478,11 +503,55 @@ public class TaskStats
                 outputDataSize,
                 outputPositions,
                 physicalWrittenDataSize,
+                fragmentResultCacheHits,
+                fragmentResultCacheMisses,
                 fullGcCount,
                 fullGcTime,
                 ImmutableList.of());
     }
 
+    public TaskStats withPipelines(List<PipelineStats> pipelines)
+    {
+        return new TaskStats(
+                createTime,
+                firstStartTime,
+                lastStartTime,
+                lastEndTime,
+                endTime,
+                elapsedTime,
+                queuedTime,
+                totalDrivers,
+                queuedDrivers,
+                queuedPartitionedDrivers,
+                runningDrivers,
+                runningPartitionedDrivers,
+                blockedDrivers,
+                completedDrivers,
+                cumulativeUserMemory,
+                userMemoryReservation,
+                revocableMemoryReservation,
+                systemMemoryReservation,
+                peakTotalMemoryInBytes,
+                totalScheduledTime,
+                totalCpuTime,
+                totalBlockedTime,
+                fullyBlocked,
+                blockedReasons,
+                totalAllocation,
+                rawInputDataSize,
+                rawInputPositions,
+                processedInputDataSize,
+                processedInputPositions,
+                outputDataSize,
+                outputPositions,
+                physicalWrittenDataSize,
+                fragmentResultCacheHits,
+                fragmentResultCacheMisses,
+                fullGcCount,
+                fullGcTime,
+                pipelines);
+    }
+
     public TaskStats summarizeFinal()
     {
         return new TaskStats(
@@ -518,6 +587,8 @@ public class TaskStats
                 outputDataSize,
                 outputPositions,
                 physicalWrittenDataSize,
+                fragmentResultCacheHits,
+                fragmentResultCacheMisses,
                 fullGcCount,
                 fullGcTime,
                 pipelines.stream()
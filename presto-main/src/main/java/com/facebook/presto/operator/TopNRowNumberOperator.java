@@ -18,21 +18,34 @@ import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.SortOrder;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
+import static com.facebook.airlift.concurrent.MoreFutures.checkSuccess;
+import static com.facebook.airlift.concurrent.MoreFutures.getDone;
 import static com.facebook.presto.SystemSessionProperties.isDictionaryAggregationEnabled;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.transformAsync;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.util.Objects.requireNonNull;
 
 public class TopNRowNumberOperator
@@ -59,6 +72,8 @@ public class TopNRowNumberOperator
         private final boolean generateRowNumber;
         private boolean closed;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
 
         public TopNRowNumberOperatorFactory(
                 int operatorId,
@@ -74,6 +89,41 @@ public class TopNRowNumberOperator
                 Optional<Integer> hashChannel,
                 int expectedPositions,
                 JoinCompiler joinCompiler)
+        {
+            this(
+                    operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    partitionChannels,
+                    partitionTypes,
+                    sortChannels,
+                    sortOrder,
+                    maxRowCountPerPartition,
+                    partial,
+                    hashChannel,
+                    expectedPositions,
+                    joinCompiler,
+                    false,
+                    unsupportedPartitioningSpillerFactory());
+        }
+
+        public TopNRowNumberOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                List<Integer> partitionChannels,
+                List<? extends Type> partitionTypes,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                int maxRowCountPerPartition,
+                boolean partial,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -91,6 +141,8 @@ public class TopNRowNumberOperator
             this.generateRowNumber = !partial;
             this.expectedPositions = expectedPositions;
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -110,7 +162,9 @@ public class TopNRowNumberOperator
                     generateRowNumber,
                     hashChannel,
                     expectedPositions,
-                    joinCompiler);
+                    joinCompiler,
+                    spillEnabled,
+                    partitioningSpillerFactory);
         }
 
         @Override
@@ -122,22 +176,62 @@ public class TopNRowNumberOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new TopNRowNumberOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, partitionChannels, partitionTypes, sortChannels, sortOrder, maxRowCountPerPartition, partial, hashChannel, expectedPositions, joinCompiler);
+            return new TopNRowNumberOperatorFactory(
+                    operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    partitionChannels,
+                    partitionTypes,
+                    sortChannels,
+                    sortOrder,
+                    maxRowCountPerPartition,
+                    partial,
+                    hashChannel,
+                    expectedPositions,
+                    joinCompiler,
+                    spillEnabled,
+                    partitioningSpillerFactory);
         }
     }
 
+    // must be a power of 2
+    private static final int SPILL_PARTITION_COUNT = 16;
+
     private final OperatorContext operatorContext;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
 
+    private final List<Type> sourceTypes;
     private final List<Integer> outputChannels;
+    private final List<Integer> partitionChannels;
+    private final List<Type> partitionTypes;
+    private final PageWithPositionComparator comparator;
+    private final int maxRowCountPerPartition;
+    private final boolean generateRowNumber;
+    private final Optional<Integer> hashChannel;
+    private final int expectedPositions;
+    private final JoinCompiler joinCompiler;
 
-    private final GroupByHash groupByHash;
-    private final GroupedTopNBuilder groupedTopNBuilder;
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+
+    private GroupByHash groupByHash;
+    private GroupedTopNBuilder groupedTopNBuilder;
 
     private boolean finishing;
     private Work<?> unfinishedWork;
     private Iterator<Page> outputIterator;
 
+    private Optional<PartitioningSpiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Optional<Runnable> finishMemoryRevoke = Optional.empty();
+    // whether the rows buffered since the last revoke have been spilled before producing output
+    private boolean remainingRowsSpilled;
+    // next spill partition to be loaded back into groupedTopNBuilder
+    private int unspillPartition;
+    private Iterator<Page> unspilledPages;
+
     public TopNRowNumberOperator(
             OperatorContext operatorContext,
             List<? extends Type> sourceTypes,
@@ -150,10 +244,13 @@ public class TopNRowNumberOperator
             boolean generateRowNumber,
             Optional<Integer> hashChannel,
             int expectedPositions,
-            JoinCompiler joinCompiler)
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
 
         ImmutableList.Builder<Integer> outputChannelsBuilder = ImmutableList.builder();
         for (int channel : requireNonNull(outputChannels, "outputChannels is null")) {
@@ -165,9 +262,28 @@ public class TopNRowNumberOperator
         this.outputChannels = outputChannelsBuilder.build();
 
         checkArgument(maxRowCountPerPartition > 0, "maxRowCountPerPartition must be > 0");
-
         if (!partitionChannels.isEmpty()) {
             checkArgument(expectedPositions > 0, "expectedPositions must be > 0");
+        }
+
+        this.sourceTypes = ImmutableList.copyOf(sourceTypes);
+        this.partitionChannels = ImmutableList.copyOf(requireNonNull(partitionChannels, "partitionChannels is null"));
+        this.partitionTypes = ImmutableList.copyOf(requireNonNull(partitionTypes, "partitionTypes is null"));
+        this.comparator = new SimplePageWithPositionComparator(toTypes(sourceTypes, outputChannels, generateRowNumber), sortChannels, sortOrders);
+        this.maxRowCountPerPartition = maxRowCountPerPartition;
+        this.generateRowNumber = generateRowNumber;
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.expectedPositions = expectedPositions;
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+
+        createGroupedTopNBuilder();
+    }
+
+    private void createGroupedTopNBuilder()
+    {
+        if (!partitionChannels.isEmpty()) {
             groupByHash = createGroupByHash(
                     partitionTypes,
                     Ints.toArray(partitionChannels),
@@ -181,10 +297,9 @@ public class TopNRowNumberOperator
             groupByHash = new NoChannelGroupByHash();
         }
 
-        List<Type> types = toTypes(sourceTypes, outputChannels, generateRowNumber);
-        this.groupedTopNBuilder = new GroupedTopNBuilder(
-                ImmutableList.copyOf(sourceTypes),
-                new SimplePageWithPositionComparator(types, sortChannels, sortOrders),
+        groupedTopNBuilder = new GroupedTopNBuilder(
+                sourceTypes,
+                comparator,
                 maxRowCountPerPartition,
                 generateRowNumber,
                 groupByHash);
@@ -206,14 +321,20 @@ public class TopNRowNumberOperator
     public boolean isFinished()
     {
         // has no more input, has finished flushing, and has no unfinished work
-        return finishing && outputIterator != null && !outputIterator.hasNext() && unfinishedWork == null;
+        return finishing && outputIterator != null && !outputIterator.hasNext() && unfinishedWork == null && !hasPendingSpillPartitions();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return spillInProgress.isDone() ? NOT_BLOCKED : spillInProgress;
     }
 
     @Override
     public boolean needsInput()
     {
         // still has more input, has not started flushing yet, and has no unfinished work
-        return !finishing && outputIterator == null && unfinishedWork == null;
+        return !finishing && outputIterator == null && unfinishedWork == null && !finishMemoryRevoke.isPresent();
     }
 
     @Override
@@ -223,6 +344,7 @@ public class TopNRowNumberOperator
         checkState(unfinishedWork == null, "Cannot add input with the operator when unfinished work is not empty");
         checkState(outputIterator == null, "Cannot add input with the operator when flushing");
         requireNonNull(page, "page is null");
+        checkSuccess(spillInProgress, "spilling failed");
         unfinishedWork = groupedTopNBuilder.processPage(page);
         if (unfinishedWork.process()) {
             unfinishedWork = null;
@@ -230,9 +352,81 @@ public class TopNRowNumberOperator
         updateMemoryReservation();
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        checkState(spillEnabled, "Spill not enabled, no revokable memory should be reserved");
+        checkState(!finishMemoryRevoke.isPresent(), "Previous revoke has not finished");
+
+        if (finishing || unfinishedWork != null || groupByHash.getGroupCount() == 0) {
+            // the retained rows are needed for output or are still being updated
+            finishMemoryRevoke = Optional.of(() -> {});
+            return immediateFuture(null);
+        }
+
+        spillInProgress = spillRetainedRows();
+        finishMemoryRevoke = Optional.of(() -> {
+            createGroupedTopNBuilder();
+            updateMemoryReservation();
+        });
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        checkState(finishMemoryRevoke.isPresent(), "Cannot finish unknown revoking");
+        checkSuccess(spillInProgress, "spilling failed");
+        finishMemoryRevoke.get().run();
+        finishMemoryRevoke = Optional.empty();
+    }
+
+    /**
+     * Spills the top rows of every group, partitioned by the hash of the partition channels, so
+     * that all rows of a group end up in the same spill partition regardless of when they were spilled.
+     */
+    private ListenableFuture<?> spillRetainedRows()
+    {
+        if (!spiller.isPresent()) {
+            HashGenerator hashGenerator = hashChannel.isPresent()
+                    ? new PrecomputedHashGenerator(hashChannel.get())
+                    : new InterpretedHashGenerator(partitionTypes, Ints.toArray(partitionChannels));
+            spiller = Optional.of(partitioningSpillerFactory.create(
+                    sourceTypes,
+                    new LocalPartitionGenerator(hashGenerator, SPILL_PARTITION_COUNT),
+                    operatorContext.getSpillContext().newLocalSpillContext(),
+                    operatorContext.newAggregateSystemMemoryContext()));
+        }
+
+        return spillPages(groupedTopNBuilder.buildRetainedRows());
+    }
+
+    /**
+     * The spiller does not allow concurrent spills, so each page is spilled once the previous one has
+     * been written. The remaining pages are spilled by the thread completing the previous spill, while
+     * the operator is blocked on the returned future, so the driver never waits for the disk.
+     */
+    private ListenableFuture<?> spillPages(Iterator<Page> pages)
+    {
+        while (pages.hasNext()) {
+            ListenableFuture<?> spillingFuture = spiller.get().partitionAndSpill(pages.next(), partition -> true).getSpillingFuture();
+            if (!spillingFuture.isDone()) {
+                return transformAsync(spillingFuture, ignored -> spillPages(pages), directExecutor());
+            }
+            // propagate the failure of a spill that has already completed
+            getDone(spillingFuture);
+        }
+        return immediateFuture(null);
+    }
+
     @Override
     public Page getOutput()
     {
+        if (!spillInProgress.isDone()) {
+            return null;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+
         if (unfinishedWork != null) {
             boolean finished = unfinishedWork.process();
             updateMemoryReservation();
@@ -247,6 +441,9 @@ public class TopNRowNumberOperator
         }
 
         if (outputIterator == null) {
+            if (spiller.isPresent() && !unspillNextPartition()) {
+                return null;
+            }
             // start flushing
             outputIterator = groupedTopNBuilder.buildResult();
         }
@@ -261,10 +458,72 @@ public class TopNRowNumberOperator
             }
             output = new Page(blocks);
         }
+        else if (hasPendingSpillPartitions()) {
+            // move on to the next spill partition
+            outputIterator = null;
+        }
         updateMemoryReservation();
         return output;
     }
 
+    /**
+     * Loads the rows of the next spill partition into a new groupedTopNBuilder, which again keeps
+     * only the top rows of each group.
+     *
+     * @return false if the partition could not be fully loaded yet
+     */
+    private boolean unspillNextPartition()
+    {
+        if (unspilledPages == null) {
+            if (!remainingRowsSpilled) {
+                remainingRowsSpilled = true;
+                if (groupByHash.getGroupCount() > 0) {
+                    // rows buffered since the last revoke have to be merged with the spilled ones
+                    spillInProgress = spillRetainedRows();
+                }
+            }
+            if (!spillInProgress.isDone()) {
+                return false;
+            }
+            checkSuccess(spillInProgress, "spilling failed");
+            createGroupedTopNBuilder();
+            unspilledPages = spiller.get().getSpilledPages(unspillPartition);
+        }
+
+        while (unspilledPages.hasNext()) {
+            unfinishedWork = groupedTopNBuilder.processPage(unspilledPages.next());
+            boolean finished = unfinishedWork.process();
+            updateMemoryReservation();
+            if (!finished) {
+                return false;
+            }
+            unfinishedWork = null;
+        }
+
+        unspilledPages = null;
+        unspillPartition++;
+        if (!hasPendingSpillPartitions()) {
+            spiller.get().verifyAllPartitionsRead();
+        }
+        return true;
+    }
+
+    private boolean hasPendingSpillPartitions()
+    {
+        return spiller.isPresent() && unspillPartition < SPILL_PARTITION_COUNT;
+    }
+
+    @Override
+    public void close()
+    {
+        try (Closer closer = Closer.create()) {
+            spiller.ifPresent(closer::register);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @VisibleForTesting
     public int getCapacity()
     {
@@ -275,7 +534,15 @@ public class TopNRowNumberOperator
     private boolean updateMemoryReservation()
     {
         // TODO: may need to use trySetMemoryReservation with a compaction to free memory (but that may cause GC pressure)
-        localUserMemoryContext.setBytes(groupedTopNBuilder.getEstimatedSizeInBytes());
+        if (spillEnabled && !finishing) {
+            // the retained rows can be spilled until the operator starts producing output
+            localUserMemoryContext.setBytes(0);
+            localRevocableMemoryContext.setBytes(groupedTopNBuilder.getEstimatedSizeInBytes());
+        }
+        else {
+            localRevocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(groupedTopNBuilder.getEstimatedSizeInBytes());
+        }
         return operatorContext.isWaitingForMemory().isDone();
     }
 
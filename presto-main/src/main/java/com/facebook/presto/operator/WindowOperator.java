@@ -22,11 +22,15 @@ import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.operator.window.FramedWindowFunction;
 import com.facebook.presto.operator.window.WindowPartition;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.facebook.presto.sql.gen.OrderingCompiler;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
 import java.util.Optional;
@@ -35,12 +39,15 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiPredicate;
 import java.util.stream.Stream;
 
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
 import static com.facebook.presto.common.block.SortOrder.ASC_NULLS_LAST;
+import static com.facebook.presto.util.MergeSortedPages.mergeSortedPages;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkPositionIndex;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Iterables.concat;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static java.util.Collections.nCopies;
 import static java.util.Objects.requireNonNull;
 
@@ -63,6 +70,9 @@ public class WindowOperator
         private final int expectedPositions;
         private boolean closed;
         private final PagesIndex.Factory pagesIndexFactory;
+        private final boolean spillEnabled;
+        private final SpillerFactory spillerFactory;
+        private final OrderingCompiler orderingCompiler;
 
         public WindowOperatorFactory(
                 int operatorId,
@@ -76,7 +86,10 @@ public class WindowOperator
                 List<SortOrder> sortOrder,
                 int preSortedChannelPrefix,
                 int expectedPositions,
-                PagesIndex.Factory pagesIndexFactory)
+                PagesIndex.Factory pagesIndexFactory,
+                boolean spillEnabled,
+                SpillerFactory spillerFactory,
+                OrderingCompiler orderingCompiler)
         {
             requireNonNull(sourceTypes, "sourceTypes is null");
             requireNonNull(planNodeId, "planNodeId is null");
@@ -88,6 +101,8 @@ public class WindowOperator
             requireNonNull(sortChannels, "sortChannels is null");
             requireNonNull(sortOrder, "sortOrder is null");
             requireNonNull(pagesIndexFactory, "pagesIndexFactory is null");
+            requireNonNull(spillerFactory, "spillerFactory is null");
+            requireNonNull(orderingCompiler, "orderingCompiler is null");
             checkArgument(sortChannels.size() == sortOrder.size(), "Must have same number of sort channels as sort orders");
             checkArgument(preSortedChannelPrefix <= sortChannels.size(), "Cannot have more pre-sorted channels than specified sorted channels");
             checkArgument(preSortedChannelPrefix == 0 || ImmutableSet.copyOf(preGroupedChannels).equals(ImmutableSet.copyOf(partitionChannels)), "preSortedChannelPrefix can only be greater than zero if all partition channels are pre-grouped");
@@ -104,6 +119,9 @@ public class WindowOperator
             this.sortOrder = ImmutableList.copyOf(sortOrder);
             this.preSortedChannelPrefix = preSortedChannelPrefix;
             this.expectedPositions = expectedPositions;
+            this.spillEnabled = spillEnabled;
+            this.spillerFactory = spillerFactory;
+            this.orderingCompiler = orderingCompiler;
         }
 
         @Override
@@ -123,7 +141,10 @@ public class WindowOperator
                     sortOrder,
                     preSortedChannelPrefix,
                     expectedPositions,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    spillEnabled,
+                    spillerFactory,
+                    orderingCompiler);
         }
 
         @Override
@@ -147,7 +168,10 @@ public class WindowOperator
                     sortOrder,
                     preSortedChannelPrefix,
                     expectedPositions,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    spillEnabled,
+                    spillerFactory,
+                    orderingCompiler);
         }
     }
 
@@ -165,8 +189,10 @@ public class WindowOperator
     private final List<Integer> orderChannels;
     private final List<SortOrder> ordering;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
 
     private final int[] preGroupedChannels;
+    private final int[] unGroupedPartitionChannels;
 
     private final PagesHashStrategy preGroupedPartitionHashStrategy;
     private final PagesHashStrategy unGroupedPartitionHashStrategy;
@@ -177,6 +203,14 @@ public class WindowOperator
 
     private final PageBuilder pageBuilder;
 
+    private final List<Type> sourceTypes;
+    private final boolean spillEnabled;
+    private final SpillerFactory spillerFactory;
+    private final OrderingCompiler orderingCompiler;
+    // spilled runs are sorted by the partition channels that are not pre-grouped and all sort channels
+    private final List<Integer> spillSortChannels;
+    private final List<SortOrder> spillSortOrder;
+
     private final WindowInfo.DriverWindowInfoBuilder windowInfo;
     private final AtomicReference<Optional<WindowInfo.DriverWindowInfo>> driverWindowInfo = new AtomicReference<>(Optional.empty());
 
@@ -186,6 +220,13 @@ public class WindowOperator
 
     private Page pendingInput;
 
+    private Optional<Spiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Optional<Runnable> finishMemoryRevoke = Optional.empty();
+    private Optional<WorkProcessor<Page>> mergedSpilledPages = Optional.empty();
+    private Page pendingSpilledPage;
+    private boolean unspillingPartition;
+
     public WindowOperator(
             OperatorContext operatorContext,
             List<Type> sourceTypes,
@@ -197,7 +238,10 @@ public class WindowOperator
             List<SortOrder> sortOrder,
             int preSortedChannelPrefix,
             int expectedPositions,
-            PagesIndex.Factory pagesIndexFactory)
+            PagesIndex.Factory pagesIndexFactory,
+            boolean spillEnabled,
+            SpillerFactory spillerFactory,
+            OrderingCompiler orderingCompiler)
     {
         requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(outputChannels, "outputChannels is null");
@@ -214,6 +258,11 @@ public class WindowOperator
 
         this.operatorContext = operatorContext;
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
+        this.sourceTypes = ImmutableList.copyOf(sourceTypes);
+        this.spillEnabled = spillEnabled;
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        this.orderingCompiler = requireNonNull(orderingCompiler, "orderingCompiler is null");
         this.outputChannels = Ints.toArray(outputChannels);
         this.windowFunctions = windowFunctionDefinitions.stream()
                 .map(functionDefinition -> new FramedWindowFunction(functionDefinition.createWindowFunction(), functionDefinition.getFrameInfo()))
@@ -232,6 +281,7 @@ public class WindowOperator
         List<Integer> unGroupedPartitionChannels = partitionChannels.stream()
                 .filter(channel -> !preGroupedChannels.contains(channel))
                 .collect(toImmutableList());
+        this.unGroupedPartitionChannels = Ints.toArray(unGroupedPartitionChannels);
         this.unGroupedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(unGroupedPartitionChannels, OptionalInt.empty());
         List<Integer> preSortedChannels = sortChannels.stream()
                 .limit(preSortedChannelPrefix)
@@ -251,6 +301,8 @@ public class WindowOperator
             this.orderChannels = ImmutableList.copyOf(concat(unGroupedPartitionChannels, sortChannels));
             this.ordering = ImmutableList.copyOf(concat(nCopies(unGroupedPartitionChannels.size(), ASC_NULLS_LAST), sortOrder));
         }
+        this.spillSortChannels = ImmutableList.copyOf(concat(unGroupedPartitionChannels, sortChannels));
+        this.spillSortOrder = ImmutableList.copyOf(concat(nCopies(unGroupedPartitionChannels.size(), ASC_NULLS_LAST), sortOrder));
 
         windowInfo = new WindowInfo.DriverWindowInfoBuilder();
         operatorContext.setInfoSupplier(this::getWindowInfo);
@@ -273,11 +325,14 @@ public class WindowOperator
         if (state == State.FINISHING || state == State.FINISHED) {
             return;
         }
-        if (state == State.NEEDS_INPUT) {
+        State previousState = state;
+        state = State.FINISHING;
+        // If a revoke is in progress, the pages index is finished once the spill completes
+        if (previousState == State.NEEDS_INPUT && !finishMemoryRevoke.isPresent()) {
             // Since was waiting for more input, prepare what we have for output since we will not be getting any more input
             finishPagesIndex();
+            updateMemoryUsage();
         }
-        state = State.FINISHING;
     }
 
     @Override
@@ -307,7 +362,62 @@ public class WindowOperator
         if (processPendingInput()) {
             state = State.HAS_OUTPUT;
         }
-        localUserMemoryContext.setBytes(pagesIndex.getEstimatedSize().toBytes());
+        updateMemoryUsage();
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        checkState(spillEnabled, "Spill not enabled, no revokable memory should be reserved");
+        checkState(!finishMemoryRevoke.isPresent(), "Previous revoke has not finished");
+
+        if (state != State.NEEDS_INPUT || pagesIndex.getPositionCount() == 0) {
+            // Probably stale revoking request, the buffered rows are no longer revocable
+            finishMemoryRevoke = Optional.of(() -> {});
+            return immediateFuture(null);
+        }
+
+        sortPagesIndexForSpill();
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.create(
+                    sourceTypes,
+                    operatorContext.getSpillContext(),
+                    operatorContext.newAggregateSystemMemoryContext()));
+        }
+        spillInProgress = spiller.get().spill(pagesIndex.getSortedPages());
+        finishMemoryRevoke = Optional.of(() -> {
+            pagesIndex.clear();
+            if (state == State.FINISHING) {
+                // finish was called while spilling
+                finishPagesIndex();
+            }
+            updateMemoryUsage();
+        });
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        checkState(finishMemoryRevoke.isPresent(), "Cannot finish unknown revoking");
+        // check for exception from the spill
+        getFutureValue(spillInProgress);
+        finishMemoryRevoke.get().run();
+        finishMemoryRevoke = Optional.empty();
+    }
+
+    private void updateMemoryUsage()
+    {
+        long pagesIndexSize = pagesIndex.getEstimatedSize().toBytes();
+        if (spillEnabled && state == State.NEEDS_INPUT) {
+            // rows of an incomplete group can be spilled
+            localUserMemoryContext.setBytes(0);
+            localRevocableMemoryContext.setBytes(pagesIndexSize);
+        }
+        else {
+            localRevocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(pagesIndexSize);
+        }
     }
 
     /**
@@ -377,7 +487,7 @@ public class WindowOperator
         }
 
         Page page = extractOutput();
-        localUserMemoryContext.setBytes(pagesIndex.getEstimatedSize().toBytes());
+        updateMemoryUsage();
         return page;
     }
 
@@ -390,13 +500,24 @@ public class WindowOperator
             if (partition == null || !partition.hasNext()) {
                 int partitionStart = partition == null ? 0 : partition.getPartitionEnd();
 
-                if (partitionStart >= pagesIndex.getPositionCount()) {
+                if (unspillingPartition || partitionStart >= pagesIndex.getPositionCount()) {
                     // Finished all of the partitions in the current pagesIndex
                     partition = null;
-                    pagesIndex.clear();
+                    if (!unspillingPartition) {
+                        pagesIndex.clear();
+                    }
 
+                    if (mergedSpilledPages.isPresent() && !unspillPartition()) {
+                        // merging of the spilled runs yielded
+                        return null;
+                    }
+
+                    if (pagesIndex.getPositionCount() > 0) {
+                        // Loaded the next partition of the spilled group
+                        partitionStart = 0;
+                    }
                     // Try to extract more partitions from the pendingInput
-                    if (pendingInput != null && processPendingInput()) {
+                    else if (pendingInput != null && processPendingInput()) {
                         partitionStart = 0;
                     }
                     else if (state == State.FINISHING) {
@@ -440,12 +561,94 @@ public class WindowOperator
         }
     }
 
+    private void sortPagesIndexForSpill()
+    {
+        if (pagesIndex.getPositionCount() > 1 && !spillSortChannels.isEmpty()) {
+            pagesIndex.sort(spillSortChannels, spillSortOrder);
+        }
+    }
+
     private void finishPagesIndex()
     {
+        if (spiller.isPresent()) {
+            // Part of the current group was spilled. Spill the rest of it as well and
+            // merge the sorted runs back, loading one partition at a time into pagesIndex.
+            if (pagesIndex.getPositionCount() > 0) {
+                sortPagesIndexForSpill();
+                getFutureValue(spiller.get().spill(pagesIndex.getSortedPages()));
+                pagesIndex.clear();
+            }
+            mergedSpilledPages = Optional.of(mergeSortedPages(
+                    spiller.get().getSpills().stream()
+                            .map(WorkProcessor::fromIterator)
+                            .collect(toImmutableList()),
+                    orderingCompiler.compilePageWithPositionComparator(sourceTypes, spillSortChannels, spillSortOrder),
+                    sourceTypes,
+                    operatorContext.newAggregateSystemMemoryContext(),
+                    operatorContext.getDriverContext().getYieldSignal()));
+            return;
+        }
+
         sortPagesIndexIfNecessary();
         windowInfo.addIndex(pagesIndex);
     }
 
+    /**
+     * Loads the next partition of the spilled group into pagesIndex. Once all spilled
+     * rows have been consumed, pagesIndex is left empty and the spiller is released.
+     *
+     * @return false if merging of the spilled runs yielded before the partition was fully loaded
+     */
+    private boolean unspillPartition()
+    {
+        WorkProcessor<Page> spilledPages = mergedSpilledPages.get();
+        unspillingPartition = true;
+        while (true) {
+            if (pendingSpilledPage == null) {
+                if (!spilledPages.process()) {
+                    return false;
+                }
+                if (spilledPages.isFinished()) {
+                    closeSpiller();
+                    break;
+                }
+                pendingSpilledPage = spilledPages.getResult();
+                if (pendingSpilledPage.getPositionCount() == 0) {
+                    pendingSpilledPage = null;
+                    continue;
+                }
+            }
+
+            Page partitionPage = rearrangePage(pendingSpilledPage, unGroupedPartitionChannels);
+            if (pagesIndex.getPositionCount() > 0 && !pagesIndex.positionEqualsRow(unGroupedPartitionHashStrategy, 0, 0, partitionPage)) {
+                // pending page starts the next partition
+                break;
+            }
+
+            int partitionEnd = findGroupEnd(partitionPage, unGroupedPartitionHashStrategy, 0);
+            pagesIndex.addPage(pendingSpilledPage.getRegion(0, partitionEnd));
+            if (partitionEnd < pendingSpilledPage.getPositionCount()) {
+                pendingSpilledPage = pendingSpilledPage.getRegion(partitionEnd, pendingSpilledPage.getPositionCount() - partitionEnd);
+                break;
+            }
+            pendingSpilledPage = null;
+        }
+        unspillingPartition = false;
+
+        // rows of the partition are already sorted by the merge
+        if (pagesIndex.getPositionCount() > 0) {
+            windowInfo.addIndex(pagesIndex);
+        }
+        return true;
+    }
+
+    private void closeSpiller()
+    {
+        mergedSpilledPages = Optional.empty();
+        spiller.ifPresent(Spiller::close);
+        spiller = Optional.empty();
+    }
+
     // Assumes input grouped on relevant pagesHashStrategy columns
     private static int findGroupEnd(Page page, PagesHashStrategy pagesHashStrategy, int startPosition)
     {
@@ -497,5 +700,6 @@ public class WindowOperator
     public void close()
     {
         driverWindowInfo.set(Optional.of(windowInfo.build()));
+        closeSpiller();
     }
 }
@@ -44,6 +44,7 @@ import com.facebook.presto.spi.page.SerializedPage;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.spi.relation.ConstantExpression;
 import com.facebook.presto.sql.planner.OutputPartitioning;
+import com.facebook.presto.sql.planner.SkewedPartitioning;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.Closer;
@@ -53,6 +54,8 @@ import io.airlift.slice.SliceOutput;
 import io.airlift.units.DataSize;
 import org.openjdk.jol.info.ClassLayout;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.List;
@@ -97,6 +100,7 @@ public class OptimizedPartitionedOutputOperator
             List<Optional<ConstantExpression>> partitionConstants,
             boolean replicatesAnyRow,
             OptionalInt nullChannel,
+            Optional<SkewedPartitioning> skewedPartitioning,
             OutputBuffer outputBuffer,
             PagesSerdeFactory serdeFactory,
             DataSize maxMemory,
@@ -110,6 +114,7 @@ public class OptimizedPartitionedOutputOperator
                 partitionConstants,
                 replicatesAnyRow,
                 nullChannel,
+                skewedPartitioning,
                 outputBuffer,
                 serdeFactory,
                 sourceTypes,
@@ -260,6 +265,7 @@ public class OptimizedPartitionedOutputOperator
                     outputPartitioning.get().getPartitionConstants(),
                     outputPartitioning.get().isReplicateNullsAndAny(),
                     outputPartitioning.get().getNullChannel(),
+                    outputPartitioning.get().getSkewedPartitioning(),
                     outputBuffer,
                     serdeFactory,
                     maxMemory,
@@ -279,6 +285,7 @@ public class OptimizedPartitionedOutputOperator
         private final List<Optional<ConstantExpression>> partitionConstants;
         private final boolean replicatesAnyRow;
         private final OptionalInt nullChannel;
+        private final Optional<SkewedPartitioning> skewedPartitioning;
         private final OutputBuffer outputBuffer;
         private final PagesSerdeFactory serdeFactory;
         private final DataSize maxMemory;
@@ -294,6 +301,7 @@ public class OptimizedPartitionedOutputOperator
                 List<Optional<ConstantExpression>> partitionConstants,
                 boolean replicatesAnyRow,
                 OptionalInt nullChannel,
+                Optional<SkewedPartitioning> skewedPartitioning,
                 OutputBuffer outputBuffer,
                 PagesSerdeFactory serdeFactory,
                 DataSize maxMemory,
@@ -308,6 +316,7 @@ public class OptimizedPartitionedOutputOperator
             this.partitionConstants = requireNonNull(partitionConstants, "partitionConstants is null");
             this.replicatesAnyRow = replicatesAnyRow;
             this.nullChannel = requireNonNull(nullChannel, "nullChannel is null");
+            this.skewedPartitioning = requireNonNull(skewedPartitioning, "skewedPartitioning is null");
             this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
             this.serdeFactory = requireNonNull(serdeFactory, "serdeFactory is null");
             this.maxMemory = requireNonNull(maxMemory, "maxMemory is null");
@@ -327,6 +336,7 @@ public class OptimizedPartitionedOutputOperator
                     partitionConstants,
                     replicatesAnyRow,
                     nullChannel,
+                    skewedPartitioning,
                     outputBuffer,
                     serdeFactory,
                     maxMemory,
@@ -351,6 +361,7 @@ public class OptimizedPartitionedOutputOperator
                     partitionConstants,
                     replicatesAnyRow,
                     nullChannel,
+                    skewedPartitioning,
                     outputBuffer,
                     serdeFactory,
                     maxMemory,
@@ -367,8 +378,11 @@ public class OptimizedPartitionedOutputOperator
         private final PagesSerde serde;
         private final boolean replicatesAnyRow;
         private final OptionalInt nullChannel; // when present, send the position to every partition if this channel is null.
+        @Nullable
+        private final SkewedPartitionSpreader skewedPartitionSpreader; // present when the rows of skewed partitions are spread or replicated
         private final AtomicLong rowsAdded = new AtomicLong();
         private final AtomicLong pagesAdded = new AtomicLong();
+        private final AtomicLong skewedRowsSpread = new AtomicLong();
 
         // The ArrayAllocator used by BlockFlattener for decoding blocks.
         // There could be queries that shuffles data with up to 1000 columns so we need to set the maxOutstandingArrays a high number.
@@ -393,6 +407,7 @@ public class OptimizedPartitionedOutputOperator
                 List<Optional<ConstantExpression>> partitionConstants,
                 boolean replicatesAnyRow,
                 OptionalInt nullChannel,
+                Optional<SkewedPartitioning> skewedPartitioning,
                 OutputBuffer outputBuffer,
                 PagesSerdeFactory serdeFactory,
                 List<Type> sourceTypes,
@@ -407,6 +422,7 @@ public class OptimizedPartitionedOutputOperator
                     .collect(toImmutableList());
             this.replicatesAnyRow = replicatesAnyRow;
             this.nullChannel = requireNonNull(nullChannel, "nullChannel is null");
+            this.skewedPartitionSpreader = skewedPartitioning.map(skew -> new SkewedPartitionSpreader(skew, partitionFunction.getPartitionCount())).orElse(null);
             this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
             this.serde = requireNonNull(serdeFactory, "serdeFactory is null").createPagesSerde();
 
@@ -444,7 +460,7 @@ public class OptimizedPartitionedOutputOperator
 
         public PartitionedOutputInfo getInfo()
         {
-            return new PartitionedOutputInfo(rowsAdded.get(), pagesAdded.get(), outputBuffer.getPeakMemoryUsage());
+            return new PartitionedOutputInfo(rowsAdded.get(), pagesAdded.get(), outputBuffer.getPeakMemoryUsage(), skewedRowsSpread.get());
         }
 
         public void partitionPage(Page page)
@@ -472,10 +488,19 @@ public class OptimizedPartitionedOutputOperator
                     }
                     hasAnyRowBeenReplicated = true;
                 }
-                else {
+                else if (skewedPartitionSpreader == null) {
                     int partition = partitionFunction.getPartition(partitionFunctionArgs, position);
                     partitionBuffers[partition].addPosition(position);
                 }
+                else {
+                    int firstPartition = skewedPartitionSpreader.getFirstPartition(partitionFunction.getPartition(partitionFunctionArgs, position));
+                    for (int offset = 0; offset < skewedPartitionSpreader.getPartitionCount(); offset++) {
+                        partitionBuffers[skewedPartitionSpreader.getPartition(firstPartition, offset)].addPosition(position);
+                    }
+                }
+            }
+            if (skewedPartitionSpreader != null) {
+                skewedRowsSpread.set(skewedPartitionSpreader.getSpreadRows());
             }
 
             // Decode the page just once. The decoded blocks will be fed to each PartitionBuffer object to set up AbstractBlockEncodingBuffer.
@@ -26,16 +26,24 @@ public class PartitionedOutputInfo
     private final long rowsAdded;
     private final long pagesAdded;
     private final long outputBufferPeakMemoryUsage;
+    private final long skewedRowsSpread;
+
+    public PartitionedOutputInfo(long rowsAdded, long pagesAdded, long outputBufferPeakMemoryUsage)
+    {
+        this(rowsAdded, pagesAdded, outputBufferPeakMemoryUsage, 0);
+    }
 
     @JsonCreator
     public PartitionedOutputInfo(
             @JsonProperty("rowsAdded") long rowsAdded,
             @JsonProperty("pagesAdded") long pagesAdded,
-            @JsonProperty("outputBufferPeakMemoryUsage") long outputBufferPeakMemoryUsage)
+            @JsonProperty("outputBufferPeakMemoryUsage") long outputBufferPeakMemoryUsage,
+            @JsonProperty("skewedRowsSpread") long skewedRowsSpread)
     {
         this.rowsAdded = rowsAdded;
         this.pagesAdded = pagesAdded;
         this.outputBufferPeakMemoryUsage = outputBufferPeakMemoryUsage;
+        this.skewedRowsSpread = skewedRowsSpread;
     }
 
     @JsonProperty
@@ -56,13 +64,23 @@ public class PartitionedOutputInfo
         return outputBufferPeakMemoryUsage;
     }
 
+    /**
+     * Returns the number of rows of skewed partitions that were spread across several partitions.
+     */
+    @JsonProperty
+    public long getSkewedRowsSpread()
+    {
+        return skewedRowsSpread;
+    }
+
     @Override
     public PartitionedOutputInfo mergeWith(PartitionedOutputInfo other)
     {
         return new PartitionedOutputInfo(
                 rowsAdded + other.rowsAdded,
                 pagesAdded + other.pagesAdded,
-                Math.max(outputBufferPeakMemoryUsage, other.outputBufferPeakMemoryUsage));
+                Math.max(outputBufferPeakMemoryUsage, other.outputBufferPeakMemoryUsage),
+                skewedRowsSpread + other.skewedRowsSpread);
     }
 
     @Override
@@ -78,6 +96,7 @@ public class PartitionedOutputInfo
                 .add("rowsAdded", rowsAdded)
                 .add("pagesAdded", pagesAdded)
                 .add("outputBufferPeakMemoryUsage", outputBufferPeakMemoryUsage)
+                .add("skewedRowsSpread", skewedRowsSpread)
                 .toString();
     }
 }
@@ -32,9 +32,12 @@ import com.facebook.presto.spi.page.SerializedPage;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.spi.relation.ConstantExpression;
 import com.facebook.presto.sql.planner.OutputPartitioning;
+import com.facebook.presto.sql.planner.SkewedPartitioning;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 
+import javax.annotation.Nullable;
+
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
@@ -84,6 +87,7 @@ public class PartitionedOutputOperator
                     outputPartitioning.get().getPartitionConstants(),
                     outputPartitioning.get().isReplicateNullsAndAny(),
                     outputPartitioning.get().getNullChannel(),
+                    outputPartitioning.get().getSkewedPartitioning(),
                     outputBuffer,
                     serdeFactory,
                     maxMemory);
@@ -102,6 +106,7 @@ public class PartitionedOutputOperator
         private final List<Optional<ConstantExpression>> partitionConstants;
         private final boolean replicatesAnyRow;
         private final OptionalInt nullChannel;
+        private final Optional<SkewedPartitioning> skewedPartitioning;
         private final OutputBuffer outputBuffer;
         private final PagesSerdeFactory serdeFactory;
         private final DataSize maxMemory;
@@ -116,6 +121,7 @@ public class PartitionedOutputOperator
                 List<Optional<ConstantExpression>> partitionConstants,
                 boolean replicatesAnyRow,
                 OptionalInt nullChannel,
+                Optional<SkewedPartitioning> skewedPartitioning,
                 OutputBuffer outputBuffer,
                 PagesSerdeFactory serdeFactory,
                 DataSize maxMemory)
@@ -129,6 +135,7 @@ public class PartitionedOutputOperator
             this.partitionConstants = requireNonNull(partitionConstants, "partitionConstants is null");
             this.replicatesAnyRow = replicatesAnyRow;
             this.nullChannel = requireNonNull(nullChannel, "nullChannel is null");
+            this.skewedPartitioning = requireNonNull(skewedPartitioning, "skewedPartitioning is null");
             this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
             this.serdeFactory = requireNonNull(serdeFactory, "serdeFactory is null");
             this.maxMemory = requireNonNull(maxMemory, "maxMemory is null");
@@ -147,6 +154,7 @@ public class PartitionedOutputOperator
                     partitionConstants,
                     replicatesAnyRow,
                     nullChannel,
+                    skewedPartitioning,
                     outputBuffer,
                     serdeFactory,
                     maxMemory);
@@ -170,6 +178,7 @@ public class PartitionedOutputOperator
                     partitionConstants,
                     replicatesAnyRow,
                     nullChannel,
+                    skewedPartitioning,
                     outputBuffer,
                     serdeFactory,
                     maxMemory);
@@ -190,6 +199,7 @@ public class PartitionedOutputOperator
             List<Optional<ConstantExpression>> partitionConstants,
             boolean replicatesAnyRow,
             OptionalInt nullChannel,
+            Optional<SkewedPartitioning> skewedPartitioning,
             OutputBuffer outputBuffer,
             PagesSerdeFactory serdeFactory,
             DataSize maxMemory)
@@ -202,6 +212,7 @@ public class PartitionedOutputOperator
                 partitionConstants,
                 replicatesAnyRow,
                 nullChannel,
+                skewedPartitioning,
                 outputBuffer,
                 serdeFactory,
                 sourceTypes,
@@ -278,8 +289,11 @@ public class PartitionedOutputOperator
         private final PageBuilder[] pageBuilders;
         private final boolean replicatesAnyRow;
         private final OptionalInt nullChannel; // when present, send the position to every partition if this channel is null.
+        @Nullable
+        private final SkewedPartitionSpreader skewedPartitionSpreader; // present when the rows of skewed partitions are spread or replicated
         private final AtomicLong rowsAdded = new AtomicLong();
         private final AtomicLong pagesAdded = new AtomicLong();
+        private final AtomicLong skewedRowsSpread = new AtomicLong();
         private boolean hasAnyRowBeenReplicated;
         private final OperatorContext operatorContext;
         private final LocalMemoryContext systemMemoryContext;
@@ -290,6 +304,7 @@ public class PartitionedOutputOperator
                 List<Optional<ConstantExpression>> partitionConstants,
                 boolean replicatesAnyRow,
                 OptionalInt nullChannel,
+                Optional<SkewedPartitioning> skewedPartitioning,
                 OutputBuffer outputBuffer,
                 PagesSerdeFactory serdeFactory,
                 List<Type> sourceTypes,
@@ -303,6 +318,7 @@ public class PartitionedOutputOperator
                     .collect(toImmutableList());
             this.replicatesAnyRow = replicatesAnyRow;
             this.nullChannel = requireNonNull(nullChannel, "nullChannel is null");
+            this.skewedPartitionSpreader = skewedPartitioning.map(skew -> new SkewedPartitionSpreader(skew, partitionFunction.getPartitionCount())).orElse(null);
             this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
             this.sourceTypes = requireNonNull(sourceTypes, "sourceTypes is null");
             this.serde = requireNonNull(serdeFactory, "serdeFactory is null").createPagesSerde();
@@ -354,7 +370,7 @@ public class PartitionedOutputOperator
 
         public PartitionedOutputInfo getInfo()
         {
-            return new PartitionedOutputInfo(rowsAdded.get(), pagesAdded.get(), outputBuffer.getPeakMemoryUsage());
+            return new PartitionedOutputInfo(rowsAdded.get(), pagesAdded.get(), outputBuffer.getPeakMemoryUsage(), skewedRowsSpread.get());
         }
 
         public void partitionPage(Page page)
@@ -371,10 +387,19 @@ public class PartitionedOutputOperator
                     }
                     hasAnyRowBeenReplicated = true;
                 }
-                else {
+                else if (skewedPartitionSpreader == null) {
                     int partition = partitionFunction.getPartition(partitionFunctionArgs, position);
                     appendRow(pageBuilders[partition], page, position);
                 }
+                else {
+                    int firstPartition = skewedPartitionSpreader.getFirstPartition(partitionFunction.getPartition(partitionFunctionArgs, position));
+                    for (int offset = 0; offset < skewedPartitionSpreader.getPartitionCount(); offset++) {
+                        appendRow(pageBuilders[skewedPartitionSpreader.getPartition(firstPartition, offset)], page, position);
+                    }
+                }
+            }
+            if (skewedPartitionSpreader != null) {
+                skewedRowsSpread.set(skewedPartitionSpreader.getSpreadRows());
             }
 
             // We track the memory before it's flushed to avoid under counting when the page size is large.
@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.repartition;
+
+import com.facebook.presto.sql.planner.SkewedPartitioning;
+import com.google.common.annotations.VisibleForTesting;
+
+import static com.facebook.presto.sql.planner.SkewedPartitioning.Mode.REPLICATE_TO_SPREAD_PARTITIONS;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Chooses the partitions a row is sent to for {@link SkewedPartitioning}. A row goes to
+ * {@link #getPartitionCount()} consecutive partitions, starting at the one returned by
+ * {@link #getFirstPartition(int)}. This class is not thread safe, every page partitioner has its own.
+ * <p>
+ * The build side cannot know which probe partitions turn out to be skewed, so with
+ * {@link SkewedPartitioning.Mode#REPLICATE_TO_SPREAD_PARTITIONS} every build row is copied to
+ * {@code spreadFactor} partitions, even when no probe partition is ever spread. This multiplies
+ * the network traffic and the hash table memory of the build side by the spread factor.
+ */
+public class SkewedPartitionSpreader
+{
+    // a partition is skewed once it received more than this multiple of the average number of rows per partition
+    @VisibleForTesting
+    static final double SKEW_RATIO = 2;
+    // skew is not detected from fewer rows
+    @VisibleForTesting
+    static final long MIN_ROWS = 10_000;
+
+    private final int partitionCount;
+    private final int spreadFactor;
+    private final boolean replicate;
+
+    private final long[] partitionRows;
+    private final boolean[] skewedPartitions;
+    private final int[] nextSpreadOffsets;
+    private long totalRows;
+    private long spreadRows;
+
+    public SkewedPartitionSpreader(SkewedPartitioning skewedPartitioning, int partitionCount)
+    {
+        requireNonNull(skewedPartitioning, "skewedPartitioning is null");
+        checkArgument(partitionCount > 0, "partitionCount must be positive");
+        this.partitionCount = partitionCount;
+        this.spreadFactor = min(skewedPartitioning.getSpreadFactor(), partitionCount);
+        this.replicate = skewedPartitioning.getMode() == REPLICATE_TO_SPREAD_PARTITIONS;
+        this.partitionRows = new long[partitionCount];
+        this.skewedPartitions = new boolean[partitionCount];
+        this.nextSpreadOffsets = new int[partitionCount];
+    }
+
+    /**
+     * Returns the number of consecutive partitions every row is sent to.
+     */
+    public int getPartitionCount()
+    {
+        return replicate ? spreadFactor : 1;
+    }
+
+    /**
+     * Returns the first partition the row is sent to, given the partition computed by the partition function.
+     */
+    public int getFirstPartition(int partition)
+    {
+        if (replicate) {
+            return partition;
+        }
+
+        totalRows++;
+        partitionRows[partition]++;
+        if (!skewedPartitions[partition]) {
+            if (totalRows < MIN_ROWS || partitionRows[partition] <= SKEW_RATIO * totalRows / partitionCount) {
+                return partition;
+            }
+            skewedPartitions[partition] = true;
+        }
+
+        spreadRows++;
+        int offset = nextSpreadOffsets[partition];
+        nextSpreadOffsets[partition] = (offset + 1) % spreadFactor;
+        return (partition + offset) % partitionCount;
+    }
+
+    /**
+     * Returns the partition with the specified offset from the first partition of a row.
+     */
+    public int getPartition(int firstPartition, int offset)
+    {
+        return (firstPartition + offset) % partitionCount;
+    }
+
+    /**
+     * Returns the number of rows of skewed partitions that were spread across partitions.
+     */
+    public long getSpreadRows()
+    {
+        return spreadRows;
+    }
+}
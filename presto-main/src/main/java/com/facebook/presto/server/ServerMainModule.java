@@ -52,9 +52,15 @@ import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.execution.TaskManagementExecutor;
 import com.facebook.presto.execution.TaskManager;
 import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.execution.TaskSource;
 import com.facebook.presto.execution.TaskStatus;
+import com.facebook.presto.execution.buffer.PageCompressionStats;
 import com.facebook.presto.execution.executor.MultilevelSplitQueue;
 import com.facebook.presto.execution.executor.TaskExecutor;
+import com.facebook.presto.execution.resultcache.FragmentResultCache;
+import com.facebook.presto.execution.resultcache.FragmentResultCacheConfig;
+import com.facebook.presto.execution.scheduler.FileNetworkTopology;
+import com.facebook.presto.execution.scheduler.FileNetworkTopologyConfig;
 import com.facebook.presto.execution.scheduler.FlatNetworkTopology;
 import com.facebook.presto.execution.scheduler.LegacyNetworkTopology;
 import com.facebook.presto.execution.scheduler.NetworkTopology;
@@ -93,6 +99,7 @@ import com.facebook.presto.operator.ExchangeClientConfig;
 import com.facebook.presto.operator.ExchangeClientFactory;
 import com.facebook.presto.operator.ExchangeClientSupplier;
 import com.facebook.presto.operator.ForExchange;
+import com.facebook.presto.operator.ForJoinHashBuild;
 import com.facebook.presto.operator.LookupJoinOperators;
 import com.facebook.presto.operator.OperatorStats;
 import com.facebook.presto.operator.PagesIndex;
@@ -186,6 +193,7 @@ import static com.facebook.airlift.json.JsonBinder.jsonBinder;
 import static com.facebook.airlift.json.JsonCodecBinder.jsonCodecBinder;
 import static com.facebook.drift.client.guice.DriftClientBinder.driftClientBinder;
 import static com.facebook.drift.server.guice.DriftServerBinder.driftServerBinder;
+import static com.facebook.presto.execution.scheduler.NodeSchedulerConfig.NetworkTopologyType.FILE;
 import static com.facebook.presto.execution.scheduler.NodeSchedulerConfig.NetworkTopologyType.FLAT;
 import static com.facebook.presto.execution.scheduler.NodeSchedulerConfig.NetworkTopologyType.LEGACY;
 import static com.facebook.presto.server.smile.SmileCodecBinder.smileCodecBinder;
@@ -196,6 +204,7 @@ import static com.google.inject.multibindings.OptionalBinder.newOptionalBinder;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.weakref.jmx.guice.ExportBinder.newExporter;
@@ -295,6 +304,13 @@ public class ServerMainModule
                 NodeSchedulerConfig.class,
                 config -> FLAT.equalsIgnoreCase(config.getNetworkTopology()),
                 moduleBinder -> moduleBinder.bind(NetworkTopology.class).to(FlatNetworkTopology.class).in(Scopes.SINGLETON)));
+        install(installModuleIf(
+                NodeSchedulerConfig.class,
+                config -> FILE.equalsIgnoreCase(config.getNetworkTopology()),
+                moduleBinder -> {
+                    configBinder(moduleBinder).bindConfig(FileNetworkTopologyConfig.class);
+                    moduleBinder.bind(NetworkTopology.class).to(FileNetworkTopology.class).in(Scopes.SINGLETON);
+                }));
 
         // task execution
         jaxrsBinder(binder).bind(TaskResource.class);
@@ -305,6 +321,11 @@ public class ServerMainModule
         binder.bind(SqlTaskManager.class).in(Scopes.SINGLETON);
         binder.bind(TaskManager.class).to(Key.get(SqlTaskManager.class));
 
+        // fragment result cache
+        configBinder(binder).bindConfig(FragmentResultCacheConfig.class);
+        binder.bind(FragmentResultCache.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(FragmentResultCache.class).withGeneratedName();
+
         // memory revoking scheduler
         binder.bind(MemoryRevokingScheduler.class).in(Scopes.SINGLETON);
 
@@ -450,6 +471,7 @@ public class ServerMainModule
         jsonCodecBinder(binder).bindJsonCodec(TaskUpdateRequest.class);
         jsonCodecBinder(binder).bindJsonCodec(ConnectorSplit.class);
         jsonCodecBinder(binder).bindJsonCodec(PlanFragment.class);
+        jsonCodecBinder(binder).bindJsonCodec(TaskSource.class);
         smileCodecBinder(binder).bindSmileCodec(TaskUpdateRequest.class);
         smileCodecBinder(binder).bindSmileCodec(ConnectorSplit.class);
         smileCodecBinder(binder).bindSmileCodec(PlanFragment.class);
@@ -510,6 +532,8 @@ public class ServerMainModule
         binder.bind(SingleStreamSpillerFactory.class).to(FileSingleStreamSpillerFactory.class).in(Scopes.SINGLETON);
         binder.bind(PartitioningSpillerFactory.class).to(GenericPartitioningSpillerFactory.class).in(Scopes.SINGLETON);
         binder.bind(SpillerStats.class).in(Scopes.SINGLETON);
+        binder.bind(PageCompressionStats.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(PageCompressionStats.class).withGeneratedName();
         newExporter(binder).export(SpillerFactory.class).withGeneratedName();
         binder.bind(LocalSpillManager.class).in(Scopes.SINGLETON);
         configBinder(binder).bindConfig(NodeSpillConfig.class);
@@ -540,6 +564,15 @@ public class ServerMainModule
         return newScheduledThreadPool(config.getClientThreads(), daemonThreadsNamed("exchange-client-%s"));
     }
 
+    @Provides
+    @Singleton
+    @ForJoinHashBuild
+    public static ExecutorService createJoinHashBuildExecutor()
+    {
+        // shared by the parallel builds of all lookup sources, so it never runs more threads than there are processors
+        return newFixedThreadPool(Runtime.getRuntime().availableProcessors(), daemonThreadsNamed("join-hash-build-%s"));
+    }
+
     @Provides
     @Singleton
     @ForAsyncRpc
@@ -571,11 +604,13 @@ public class ServerMainModule
         @Inject
         public ExecutorCleanup(
                 @ForExchange ScheduledExecutorService exchangeExecutor,
+                @ForJoinHashBuild ExecutorService joinHashBuildExecutor,
                 @ForAsyncRpc ExecutorService httpResponseExecutor,
                 @ForAsyncRpc ScheduledExecutorService httpTimeoutExecutor)
         {
             executors = ImmutableList.of(
                     exchangeExecutor,
+                    joinHashBuildExecutor,
                     httpResponseExecutor,
                     httpTimeoutExecutor);
         }
@@ -21,6 +21,7 @@ import com.facebook.presto.common.Page;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.execution.TaskManager;
+import com.facebook.presto.execution.TaskSource;
 import com.facebook.presto.execution.TaskState;
 import com.facebook.presto.execution.TaskStatus;
 import com.facebook.presto.execution.buffer.BufferResult;
@@ -29,8 +30,13 @@ import com.facebook.presto.metadata.SessionPropertyManager;
 import com.facebook.presto.server.smile.Codec;
 import com.facebook.presto.server.smile.SmileCodec;
 import com.facebook.presto.spi.page.SerializedPage;
+import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.sql.planner.PlanFragment;
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.reflect.TypeToken;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -60,6 +66,7 @@ import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -67,8 +74,10 @@ import static com.facebook.airlift.concurrent.MoreFutures.addTimeout;
 import static com.facebook.airlift.http.server.AsyncResponseHandler.bindAsyncResponse;
 import static com.facebook.presto.PrestoMediaTypes.APPLICATION_JACKSON_SMILE;
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_ACKNOWLEDGED_VERSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CURRENT_STATE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_FINISHED_PIPELINES;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_SIZE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_WAIT;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
@@ -77,10 +86,12 @@ import static com.facebook.presto.client.PrestoHeaders.PRESTO_TASK_INSTANCE_ID;
 import static com.facebook.presto.server.smile.JsonCodecWrapper.wrapJsonCodec;
 import static com.facebook.presto.util.TaskUtils.DEFAULT_MAX_WAIT_TIME;
 import static com.facebook.presto.util.TaskUtils.randomizeWaitTime;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
@@ -91,6 +102,7 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 public class TaskResource
 {
     private static final Duration ADDITIONAL_WAIT_TIME = new Duration(5, SECONDS);
+    private static final Duration SENT_UPDATE_EXPIRATION = new Duration(5, MINUTES);
 
     private final TaskManager taskManager;
     private final SessionPropertyManager sessionPropertyManager;
@@ -100,6 +112,14 @@ public class TaskResource
     private final TimeStat resultsRequestTime = new TimeStat();
     private final Codec<PlanFragment> planFragmentCodec;
 
+    // the last task info and status sent to callers that acknowledge versions, the next ones are sent as deltas of these
+    private final Cache<TaskId, TaskInfo> sentTaskInfos = CacheBuilder.newBuilder()
+            .expireAfterAccess(SENT_UPDATE_EXPIRATION.toMillis(), MILLISECONDS)
+            .build();
+    private final Cache<TaskId, TaskStatus> sentTaskStatuses = CacheBuilder.newBuilder()
+            .expireAfterAccess(SENT_UPDATE_EXPIRATION.toMillis(), MILLISECONDS)
+            .build();
+
     @Inject
     public TaskResource(
             TaskManager taskManager,
@@ -160,17 +180,22 @@ public class TaskResource
             @PathParam("taskId") final TaskId taskId,
             @HeaderParam(PRESTO_CURRENT_STATE) TaskState currentState,
             @HeaderParam(PRESTO_MAX_WAIT) Duration maxWait,
+            @HeaderParam(PRESTO_FINISHED_PIPELINES) String finishedPipelines,
+            @HeaderParam(PRESTO_ACKNOWLEDGED_VERSION) Long acknowledgedVersion,
             @Context UriInfo uriInfo,
             @Suspended AsyncResponse asyncResponse)
     {
         requireNonNull(taskId, "taskId is null");
 
+        // the caller already has the final stats of these pipelines
+        Set<Integer> finishedPipelineIds = parseFinishedPipelineIds(finishedPipelines);
+
         if (currentState == null || maxWait == null) {
             TaskInfo taskInfo = taskManager.getTaskInfo(taskId);
             if (shouldSummarize(uriInfo)) {
-                taskInfo = taskInfo.summarize();
+                taskInfo = summarize(taskInfo, uriInfo);
             }
-            asyncResponse.resume(taskInfo);
+            asyncResponse.resume(toDelta(taskInfo.withoutFinishedPipelines(finishedPipelineIds), acknowledgedVersion));
             return;
         }
 
@@ -182,7 +207,13 @@ public class TaskResource
                 timeoutExecutor);
 
         if (shouldSummarize(uriInfo)) {
-            futureTaskInfo = Futures.transform(futureTaskInfo, TaskInfo::summarize, directExecutor());
+            futureTaskInfo = Futures.transform(futureTaskInfo, taskInfo -> summarize(taskInfo, uriInfo), directExecutor());
+        }
+        if (!finishedPipelineIds.isEmpty()) {
+            futureTaskInfo = Futures.transform(futureTaskInfo, taskInfo -> taskInfo.withoutFinishedPipelines(finishedPipelineIds), directExecutor());
+        }
+        if (acknowledgedVersion != null) {
+            futureTaskInfo = Futures.transform(futureTaskInfo, taskInfo -> toDelta(taskInfo, acknowledgedVersion), directExecutor());
         }
 
         // For hard timeout, add an additional time to max wait for thread scheduling contention and GC
@@ -199,6 +230,7 @@ public class TaskResource
             @PathParam("taskId") TaskId taskId,
             @HeaderParam(PRESTO_CURRENT_STATE) TaskState currentState,
             @HeaderParam(PRESTO_MAX_WAIT) Duration maxWait,
+            @HeaderParam(PRESTO_ACKNOWLEDGED_VERSION) Long acknowledgedVersion,
             @Context UriInfo uriInfo,
             @Suspended AsyncResponse asyncResponse)
     {
@@ -206,7 +238,7 @@ public class TaskResource
 
         if (currentState == null || maxWait == null) {
             TaskStatus taskStatus = taskManager.getTaskStatus(taskId);
-            asyncResponse.resume(taskStatus);
+            asyncResponse.resume(toDelta(taskId, taskStatus, acknowledgedVersion));
             return;
         }
 
@@ -219,6 +251,9 @@ public class TaskResource
                 () -> taskManager.getTaskStatus(taskId),
                 waitTime,
                 timeoutExecutor);
+        if (acknowledgedVersion != null) {
+            futureTaskStatus = Futures.transform(futureTaskStatus, taskStatus -> toDelta(taskId, taskStatus, acknowledgedVersion), directExecutor());
+        }
 
         // For hard timeout, add an additional time to max wait for thread scheduling contention and GC
         Duration timeout = new Duration(waitTime.toMillis() + ADDITIONAL_WAIT_TIME.toMillis(), MILLISECONDS);
@@ -244,6 +279,8 @@ public class TaskResource
         else {
             taskInfo = taskManager.cancelTask(taskId);
         }
+        sentTaskInfos.invalidate(taskId);
+        sentTaskStatuses.invalidate(taskId);
 
         if (shouldSummarize(uriInfo)) {
             taskInfo = taskInfo.summarize();
@@ -344,6 +381,20 @@ public class TaskResource
         taskManager.removeRemoteSource(taskId, remoteSourceTaskId);
     }
 
+    @DELETE
+    @Path("{taskId}/queued-splits/{sourceId}")
+    @Produces(APPLICATION_JSON)
+    public TaskSource withdrawQueuedSplits(
+            @PathParam("taskId") TaskId taskId,
+            @PathParam("sourceId") PlanNodeId sourceId,
+            @QueryParam("withdrawalId") long withdrawalId)
+    {
+        requireNonNull(taskId, "taskId is null");
+        requireNonNull(sourceId, "sourceId is null");
+
+        return taskManager.withdrawQueuedSplits(taskId, sourceId, withdrawalId);
+    }
+
     @Managed
     @Nested
     public TimeStat getReadFromOutputBufferTime()
@@ -362,4 +413,69 @@ public class TaskResource
     {
         return uriInfo.getQueryParameters().containsKey("summarize");
     }
+
+    private static TaskInfo summarize(TaskInfo taskInfo, UriInfo uriInfo)
+    {
+        if (uriInfo.getQueryParameters().containsKey("finishedPipelines")) {
+            // the caller leaves finished pipelines out of later requests, so it can take their stats as they finish
+            return taskInfo.summarizeWithFinishedPipelines();
+        }
+        return taskInfo.summarize();
+    }
+
+    /**
+     * Returns the given task info as a delta of the task info last sent for the task, if the caller acknowledged
+     * that one, and keeps the given task info to send the next one as a delta of.
+     */
+    private TaskInfo toDelta(TaskInfo taskInfo, Long acknowledgedVersion)
+    {
+        if (acknowledgedVersion == null) {
+            return taskInfo;
+        }
+        TaskId taskId = taskInfo.getTaskId();
+        TaskInfo sentTaskInfo = sentTaskInfos.getIfPresent(taskId);
+        if (taskInfo.getTaskStatus().getState().isDone()) {
+            // the caller does not ask for updates of a finished task
+            sentTaskInfos.invalidate(taskId);
+        }
+        else {
+            sentTaskInfos.put(taskId, taskInfo);
+        }
+        if (sentTaskInfo == null || sentTaskInfo.getTaskStatus().getVersion() != acknowledgedVersion) {
+            return taskInfo;
+        }
+        return taskInfo.withoutOperatorSummariesOf(sentTaskInfo);
+    }
+
+    /**
+     * Returns the given task status as a delta of the task status last sent for the task, if the caller acknowledged
+     * that one, and keeps the given task status to send the next one as a delta of.
+     */
+    private TaskStatus toDelta(TaskId taskId, TaskStatus taskStatus, Long acknowledgedVersion)
+    {
+        if (acknowledgedVersion == null) {
+            return taskStatus;
+        }
+        TaskStatus sentTaskStatus = sentTaskStatuses.getIfPresent(taskId);
+        if (taskStatus.getState().isDone()) {
+            sentTaskStatuses.invalidate(taskId);
+        }
+        else {
+            sentTaskStatuses.put(taskId, taskStatus);
+        }
+        if (sentTaskStatus == null || sentTaskStatus.getVersion() != acknowledgedVersion) {
+            return taskStatus;
+        }
+        return taskStatus.withoutCompletedDriverGroupsOf(sentTaskStatus);
+    }
+
+    private static Set<Integer> parseFinishedPipelineIds(String finishedPipelines)
+    {
+        if (finishedPipelines == null) {
+            return ImmutableSet.of();
+        }
+        return Splitter.on(',').omitEmptyStrings().trimResults().splitToList(finishedPipelines).stream()
+                .map(Integer::valueOf)
+                .collect(toImmutableSet());
+    }
 }
@@ -36,6 +36,9 @@ import com.facebook.presto.execution.StageExecutionStats;
 import com.facebook.presto.execution.StageInfo;
 import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.execution.buffer.PagesSerdeFactory;
+import com.facebook.presto.execution.resultcache.CachedQueryResult;
+import com.facebook.presto.execution.resultcache.QueryResultCache;
+import com.facebook.presto.execution.resultcache.QueryResultCache.ResultRecorder;
 import com.facebook.presto.operator.ExchangeClient;
 import com.facebook.presto.spi.ErrorCode;
 import com.facebook.presto.spi.QueryId;
@@ -102,6 +105,15 @@ class Query
 
     private final PagesSerde serde;
 
+    private final QueryResultCache queryResultCache;
+
+    // output when it is served from the result cache
+    @GuardedBy("this")
+    private CachedQueryResult cachedResult;
+
+    @GuardedBy("this")
+    private Optional<ResultRecorder> resultRecorder = Optional.empty();
+
     @GuardedBy("this")
     private OptionalLong nextToken = OptionalLong.of(0);
 
@@ -154,9 +166,10 @@ class Query
             ExchangeClient exchangeClient,
             Executor dataProcessorExecutor,
             ScheduledExecutorService timeoutExecutor,
-            BlockEncodingSerde blockEncodingSerde)
+            BlockEncodingSerde blockEncodingSerde,
+            QueryResultCache queryResultCache)
     {
-        Query result = new Query(session, slug, queryManager, exchangeClient, dataProcessorExecutor, timeoutExecutor, blockEncodingSerde);
+        Query result = new Query(session, slug, queryManager, exchangeClient, dataProcessorExecutor, timeoutExecutor, blockEncodingSerde, queryResultCache);
 
         result.queryManager.addOutputInfoListener(result.getQueryId(), result::setQueryOutputInfo);
 
@@ -177,7 +190,8 @@ class Query
             ExchangeClient exchangeClient,
             Executor resultsProcessorExecutor,
             ScheduledExecutorService timeoutExecutor,
-            BlockEncodingSerde blockEncodingSerde)
+            BlockEncodingSerde blockEncodingSerde,
+            QueryResultCache queryResultCache)
     {
         requireNonNull(session, "session is null");
         requireNonNull(slug, "slug is null");
@@ -186,6 +200,7 @@ class Query
         requireNonNull(resultsProcessorExecutor, "resultsProcessorExecutor is null");
         requireNonNull(timeoutExecutor, "timeoutExecutor is null");
         requireNonNull(blockEncodingSerde, "serde is null");
+        requireNonNull(queryResultCache, "queryResultCache is null");
 
         this.queryManager = queryManager;
 
@@ -195,6 +210,7 @@ class Query
         this.exchangeClient = exchangeClient;
         this.resultsProcessorExecutor = resultsProcessorExecutor;
         this.timeoutExecutor = timeoutExecutor;
+        this.queryResultCache = queryResultCache;
 
         serde = new PagesSerdeFactory(blockEncodingSerde, isExchangeCompressionEnabled(session)).createPagesSerde();
     }
@@ -208,6 +224,10 @@ class Query
     public synchronized void dispose()
     {
         exchangeClient.close();
+        if (cachedResult != null) {
+            cachedResult.close();
+        }
+        resultRecorder.ifPresent(ResultRecorder::abandon);
     }
 
     public QueryId getQueryId()
@@ -362,7 +382,7 @@ class Query
             long rows = 0;
             long targetResultBytes = targetResultSize.toBytes();
             while (bytes < targetResultBytes) {
-                SerializedPage serializedPage = exchangeClient.pollPage();
+                SerializedPage serializedPage = pollPage();
                 if (serializedPage == null) {
                     break;
                 }
@@ -401,8 +421,11 @@ class Query
 
         closeExchangeClientIfNecessary(queryInfo);
 
+        // queries served from the result cache have no output stage, but they do have output
+        boolean resultCacheHit = queryInfo.getQueryStats().getResultCacheHits() > 0;
+
         // for queries with no output, return a fake result for clients that require it
-        if ((queryInfo.getState() == QueryState.FINISHED) && !queryInfo.getOutputStage().isPresent()) {
+        if ((queryInfo.getState() == QueryState.FINISHED) && !queryInfo.getOutputStage().isPresent() && !resultCacheHit) {
             columns = ImmutableList.of(new Column("result", BooleanType.BOOLEAN));
             data = ImmutableSet.of(ImmutableList.of(true));
         }
@@ -412,11 +435,22 @@ class Query
         // (1) the query is not done AND the query state is not FAILED
         //   OR
         // (2)there is more data to send (due to buffering)
-        if ((!queryInfo.isFinalQueryInfo() && queryInfo.getState() != FAILED) || !exchangeClient.isClosed()) {
+        //   OR
+        // (3)there are cached pages to send, or the cached pages have not been received yet
+        boolean hasCachedResult = resultCacheHit && (this.cachedResult == null || !this.cachedResult.isFinished());
+        if ((!queryInfo.isFinalQueryInfo() && queryInfo.getState() != FAILED) || !exchangeClient.isClosed() || hasCachedResult) {
             nextToken = OptionalLong.of(token + 1);
         }
         else {
             nextToken = OptionalLong.empty();
+
+            // all of the output has been returned, so it can be stored in the result cache
+            if (queryInfo.getState() == QueryState.FINISHED) {
+                resultRecorder.ifPresent(ResultRecorder::commit);
+            }
+            else {
+                resultRecorder.ifPresent(ResultRecorder::abandon);
+            }
         }
 
         URI nextResultsUri = null;
@@ -464,6 +498,19 @@ class Query
         return queryResults;
     }
 
+    private synchronized SerializedPage pollPage()
+    {
+        if (cachedResult != null) {
+            return cachedResult.pollPage();
+        }
+
+        SerializedPage serializedPage = exchangeClient.pollPage();
+        if (serializedPage != null) {
+            resultRecorder.ifPresent(recorder -> recorder.addPage(serializedPage));
+        }
+        return serializedPage;
+    }
+
     private synchronized void closeExchangeClientIfNecessary(QueryInfo queryInfo)
     {
         // Close the exchange client if the query has failed, or if the query
@@ -489,6 +536,9 @@ class Query
             }
             columns = list.build();
             types = outputInfo.getColumnTypes();
+
+            cachedResult = outputInfo.getCachedResult().orElse(null);
+            resultRecorder = outputInfo.getResultCacheKey().map(queryResultCache::recordResult);
         }
 
         outputInfo.getBufferLocations().forEach(exchangeClient::addLocation);
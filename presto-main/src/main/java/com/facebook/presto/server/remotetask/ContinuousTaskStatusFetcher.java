@@ -32,6 +32,7 @@ import io.airlift.units.Duration;
 
 import javax.annotation.concurrent.GuardedBy;
 
+import java.util.OptionalLong;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -40,6 +41,7 @@ import java.util.function.Consumer;
 
 import static com.facebook.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
 import static com.facebook.airlift.http.client.Request.Builder.prepareGet;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_ACKNOWLEDGED_VERSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CURRENT_STATE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_WAIT;
 import static com.facebook.presto.server.RequestHelpers.setContentTypeHeaders;
@@ -69,9 +71,14 @@ class ContinuousTaskStatusFetcher
     private final RequestErrorTracker errorTracker;
     private final RemoteTaskStats stats;
     private final boolean isBinaryTransportEnabled;
+    private final boolean deltaUpdatesEnabled;
 
     private final AtomicLong currentRequestStartNanos = new AtomicLong();
 
+    // the last status received from the task, which the task sends the next one as a delta of
+    @GuardedBy("this")
+    private TaskStatus lastReceivedTaskStatus;
+
     @GuardedBy("this")
     private boolean running;
 
@@ -84,6 +91,7 @@ class ContinuousTaskStatusFetcher
             TaskStatus initialTaskStatus,
             Duration refreshMaxWait,
             Codec<TaskStatus> taskStatusCodec,
+            boolean deltaUpdatesEnabled,
             Executor executor,
             HttpClient httpClient,
             Duration maxErrorDuration,
@@ -99,6 +107,7 @@ class ContinuousTaskStatusFetcher
 
         this.refreshMaxWait = requireNonNull(refreshMaxWait, "refreshMaxWait is null");
         this.taskStatusCodec = requireNonNull(taskStatusCodec, "taskStatusCodec is null");
+        this.deltaUpdatesEnabled = deltaUpdatesEnabled;
 
         this.executor = requireNonNull(executor, "executor is null");
         this.httpClient = requireNonNull(httpClient, "httpClient is null");
@@ -150,11 +159,14 @@ class ContinuousTaskStatusFetcher
             return;
         }
 
-        Request request = setContentTypeHeaders(isBinaryTransportEnabled, prepareGet())
+        Request.Builder requestBuilder = setContentTypeHeaders(isBinaryTransportEnabled, prepareGet())
                 .setUri(uriBuilderFrom(taskStatus.getSelf()).appendPath("status").build())
                 .setHeader(PRESTO_CURRENT_STATE, taskStatus.getState().toString())
-                .setHeader(PRESTO_MAX_WAIT, refreshMaxWait.toString())
-                .build();
+                .setHeader(PRESTO_MAX_WAIT, refreshMaxWait.toString());
+        if (deltaUpdatesEnabled && lastReceivedTaskStatus != null) {
+            requestBuilder.setHeader(PRESTO_ACKNOWLEDGED_VERSION, String.valueOf(lastReceivedTaskStatus.getVersion()));
+        }
+        Request request = requestBuilder.build();
 
         ResponseHandler responseHandler;
         if (isBinaryTransportEnabled) {
@@ -181,7 +193,12 @@ class ContinuousTaskStatusFetcher
         try (SetThreadName ignored = new SetThreadName("ContinuousTaskStatusFetcher-%s", taskId)) {
             updateStats(currentRequestStartNanos.get());
             try {
-                updateTaskStatus(value);
+                if (deltaUpdatesEnabled) {
+                    value = withCompletedDriverGroupsFromLastReceived(value);
+                }
+                if (value != null) {
+                    updateTaskStatus(value);
+                }
                 errorTracker.requestSucceeded();
             }
             finally {
@@ -224,6 +241,25 @@ class ContinuousTaskStatusFetcher
         }
     }
 
+    /**
+     * Adds the completed driver groups a delta left out, and keeps the result to take those of the next delta from.
+     * Returns null if the delta is not one of the last status received, which makes the next request ask for a
+     * complete status.
+     */
+    private synchronized TaskStatus withCompletedDriverGroupsFromLastReceived(TaskStatus newValue)
+    {
+        OptionalLong baseVersion = newValue.getBaseVersion();
+        if (baseVersion.isPresent()) {
+            if (lastReceivedTaskStatus == null || lastReceivedTaskStatus.getVersion() != baseVersion.getAsLong()) {
+                lastReceivedTaskStatus = null;
+                return null;
+            }
+            newValue = newValue.withCompletedDriverGroupsFrom(lastReceivedTaskStatus);
+        }
+        lastReceivedTaskStatus = newValue;
+        return newValue;
+    }
+
     void updateTaskStatus(TaskStatus newValue)
     {
         // change to new value if old value is not changed and new value has a newer version
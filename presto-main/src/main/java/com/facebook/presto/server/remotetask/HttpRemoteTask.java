@@ -19,6 +19,7 @@ import com.facebook.airlift.http.client.HttpUriBuilder;
 import com.facebook.airlift.http.client.Request;
 import com.facebook.airlift.http.client.ResponseHandler;
 import com.facebook.airlift.http.client.StatusResponseHandler.StatusResponse;
+import com.facebook.airlift.json.JsonCodec;
 import com.facebook.airlift.log.Logger;
 import com.facebook.presto.Session;
 import com.facebook.presto.execution.FutureStateChange;
@@ -103,7 +104,6 @@ import static com.facebook.presto.spi.StandardErrorCode.EXCEEDED_TASK_UPDATE_SIZ
 import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static com.facebook.presto.util.Failures.toFailure;
 import static com.google.common.base.MoreObjects.toStringHelper;
-import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
@@ -162,6 +162,10 @@ public final class HttpRemoteTask
     private boolean splitQueueHasSpace = true;
     @GuardedBy("this")
     private OptionalInt whenSplitQueueHasSpaceThreshold = OptionalInt.empty();
+    @GuardedBy("this")
+    private long nextSplitWithdrawalId;
+    @GuardedBy("this")
+    private ListenableFuture<List<Split>> splitWithdrawal = immediateFuture(ImmutableList.of());
 
     private final boolean summarizeTaskInfo;
 
@@ -172,6 +176,7 @@ public final class HttpRemoteTask
     private final Codec<TaskInfo> taskInfoCodec;
     private final Codec<TaskUpdateRequest> taskUpdateRequestCodec;
     private final Codec<PlanFragment> planFragmentCodec;
+    private final JsonCodec<TaskSource> taskSourceCodec;
 
     private final RequestErrorTracker updateErrorTracker;
 
@@ -205,10 +210,13 @@ public final class HttpRemoteTask
             Duration taskInfoRefreshMaxWait,
             Duration taskInfoUpdateInterval,
             boolean summarizeTaskInfo,
+            boolean taskInfoOmitFinishedPipelinesEnabled,
+            boolean deltaUpdatesEnabled,
             Codec<TaskStatus> taskStatusCodec,
             Codec<TaskInfo> taskInfoCodec,
             Codec<TaskUpdateRequest> taskUpdateRequestCodec,
             Codec<PlanFragment> planFragmentCodec,
+            JsonCodec<TaskSource> taskSourceCodec,
             PartitionedSplitCountTracker partitionedSplitCountTracker,
             RemoteTaskStats stats,
             boolean isBinaryTransportEnabled,
@@ -228,6 +236,7 @@ public final class HttpRemoteTask
         requireNonNull(taskInfoCodec, "taskInfoCodec is null");
         requireNonNull(taskUpdateRequestCodec, "taskUpdateRequestCodec is null");
         requireNonNull(planFragmentCodec, "planFragmentCodec is null");
+        requireNonNull(taskSourceCodec, "taskSourceCodec is null");
         requireNonNull(partitionedSplitCountTracker, "partitionedSplitCountTracker is null");
         requireNonNull(maxErrorDuration, "maxErrorDuration is null");
         requireNonNull(stats, "stats is null");
@@ -249,6 +258,7 @@ public final class HttpRemoteTask
             this.taskInfoCodec = taskInfoCodec;
             this.taskUpdateRequestCodec = taskUpdateRequestCodec;
             this.planFragmentCodec = planFragmentCodec;
+            this.taskSourceCodec = taskSourceCodec;
             this.updateErrorTracker = new RequestErrorTracker(taskId, location, maxErrorDuration, errorScheduledExecutor, "updating task");
             this.partitionedSplitCountTracker = requireNonNull(partitionedSplitCountTracker, "partitionedSplitCountTracker is null");
             this.maxErrorDuration = maxErrorDuration;
@@ -284,6 +294,7 @@ public final class HttpRemoteTask
                     initialTask.getTaskStatus(),
                     taskStatusRefreshMaxWait,
                     taskStatusCodec,
+                    deltaUpdatesEnabled,
                     executor,
                     httpClient,
                     maxErrorDuration,
@@ -300,6 +311,8 @@ public final class HttpRemoteTask
                     taskInfoCodec,
                     maxErrorDuration,
                     summarizeTaskInfo,
+                    taskInfoOmitFinishedPipelinesEnabled,
+                    deltaUpdatesEnabled,
                     executor,
                     updateScheduledExecutor,
                     errorScheduledExecutor,
@@ -507,6 +520,88 @@ public final class HttpRemoteTask
         addCallback(httpClient.executeAsync(request, createStatusResponseHandler()), callback, directExecutor());
     }
 
+    @Override
+    public synchronized ListenableFuture<List<Split>> withdrawQueuedSplits(PlanNodeId sourceId)
+    {
+        requireNonNull(sourceId, "sourceId is null");
+
+        // the worker only remembers the last withdrawal, so withdrawals do not overlap
+        if (getTaskStatus().getState().isDone() || !splitWithdrawal.isDone()) {
+            return immediateFuture(ImmutableList.of());
+        }
+
+        URI withdrawalUri = uriBuilderFrom(taskLocation)
+                .appendPath("queued-splits")
+                .appendPath(sourceId.toString())
+                .addParameter("withdrawalId", String.valueOf(nextSplitWithdrawalId++))
+                .build();
+
+        Request request = prepareDelete()
+                .setUri(withdrawalUri)
+                .build();
+        RequestErrorTracker errorTracker = new RequestErrorTracker(
+                taskId,
+                withdrawalUri,
+                maxErrorDuration,
+                errorScheduledExecutor,
+                "withdrawing queued splits");
+
+        SettableFuture<List<Split>> future = SettableFuture.create();
+        splitWithdrawal = future;
+        doWithdrawQueuedSplits(errorTracker, request, future);
+        return future;
+    }
+
+    /// This method may call itself recursively when retrying for failures
+    private void doWithdrawQueuedSplits(RequestErrorTracker errorTracker, Request request, SettableFuture<List<Split>> future)
+    {
+        errorTracker.startRequest();
+
+        SimpleHttpResponseCallback<TaskSource> callback = new SimpleHttpResponseCallback<TaskSource>()
+        {
+            @Override
+            public void success(TaskSource value)
+            {
+                future.set(value.getSplits().stream()
+                        .map(ScheduledSplit::getSplit)
+                        .collect(toImmutableList()));
+            }
+
+            @Override
+            public void failed(Throwable cause)
+            {
+                // the request is retried with the same withdrawal id, for which the worker returns the same splits
+                try {
+                    errorTracker.requestFailed(cause);
+                }
+                catch (PrestoException e) {
+                    fatal(e);
+                    return;
+                }
+                ListenableFuture<?> errorRateLimit = errorTracker.acquireRequestPermit();
+                if (errorRateLimit.isDone()) {
+                    doWithdrawQueuedSplits(errorTracker, request, future);
+                }
+                else {
+                    errorRateLimit.addListener(() -> doWithdrawQueuedSplits(errorTracker, request, future), errorScheduledExecutor);
+                }
+            }
+
+            @Override
+            public void fatal(Throwable cause)
+            {
+                // the worker may have withdrawn splits that are now lost, so the task cannot produce a correct result
+                failTask(cause);
+                future.set(ImmutableList.of());
+            }
+        };
+
+        addCallback(
+                httpClient.executeAsync(request, createAdaptingJsonResponseHandler(taskSourceCodec)),
+                new SimpleHttpResponseHandler<>(callback, request.getUri(), stats),
+                executor);
+    }
+
     @Override
     public int getPartitionedSplitCount()
     {
@@ -550,10 +645,8 @@ public final class HttpRemoteTask
     @Override
     public synchronized ListenableFuture<?> whenSplitQueueHasSpace(int threshold)
     {
-        if (whenSplitQueueHasSpaceThreshold.isPresent()) {
-            checkArgument(threshold == whenSplitQueueHasSpaceThreshold.getAsInt(), "Multiple split queue space notification thresholds not supported");
-        }
-        else {
+        // the threshold of a task may change when the split queue of the task is sized adaptively, and only the latest one is used
+        if (!whenSplitQueueHasSpaceThreshold.isPresent() || threshold != whenSplitQueueHasSpaceThreshold.getAsInt()) {
             whenSplitQueueHasSpaceThreshold = OptionalInt.of(threshold);
             updateSplitQueueSpace();
         }
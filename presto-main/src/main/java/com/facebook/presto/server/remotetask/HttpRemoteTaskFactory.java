@@ -27,6 +27,7 @@ import com.facebook.presto.execution.RemoteTaskFactory;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.execution.TaskSource;
 import com.facebook.presto.execution.TaskStatus;
 import com.facebook.presto.execution.buffer.OutputBuffers;
 import com.facebook.presto.execution.scheduler.TableWriteInfo;
@@ -70,10 +71,13 @@ public class HttpRemoteTaskFactory
     private final Codec<TaskInfo> taskInfoCodec;
     private final Codec<TaskUpdateRequest> taskUpdateRequestCodec;
     private final Codec<PlanFragment> planFragmentCodec;
+    private final JsonCodec<TaskSource> taskSourceCodec;
     private final Duration maxErrorDuration;
     private final Duration taskStatusRefreshMaxWait;
     private final Duration taskInfoRefreshMaxWait;
     private final Duration taskInfoUpdateInterval;
+    private final boolean taskInfoOmitFinishedPipelinesEnabled;
+    private final boolean deltaUpdatesEnabled;
     private final ExecutorService coreExecutor;
     private final Executor executor;
     private final ThreadPoolExecutorMBean executorMBean;
@@ -97,6 +101,7 @@ public class HttpRemoteTaskFactory
             SmileCodec<TaskUpdateRequest> taskUpdateRequestSmileCodec,
             JsonCodec<PlanFragment> planFragmentJsonCodec,
             SmileCodec<PlanFragment> planFragmentSmileCodec,
+            JsonCodec<TaskSource> taskSourceJsonCodec,
             RemoteTaskStats stats,
             InternalCommunicationConfig communicationConfig)
     {
@@ -106,6 +111,8 @@ public class HttpRemoteTaskFactory
         this.taskStatusRefreshMaxWait = taskConfig.getStatusRefreshMaxWait();
         this.taskInfoUpdateInterval = taskConfig.getInfoUpdateInterval();
         this.taskInfoRefreshMaxWait = taskConfig.getInfoRefreshMaxWait();
+        this.taskInfoOmitFinishedPipelinesEnabled = taskConfig.isInfoOmitFinishedPipelinesEnabled();
+        this.deltaUpdatesEnabled = taskConfig.isDeltaUpdatesEnabled();
         this.coreExecutor = newCachedThreadPool(daemonThreadsNamed("remote-task-callback-%s"));
         this.executor = new BoundedExecutor(coreExecutor, config.getRemoteTaskMaxCallbackThreads());
         this.executorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) coreExecutor);
@@ -124,6 +131,7 @@ public class HttpRemoteTaskFactory
             this.taskUpdateRequestCodec = wrapJsonCodec(taskUpdateRequestJsonCodec);
         }
         this.planFragmentCodec = wrapJsonCodec(planFragmentJsonCodec);
+        this.taskSourceCodec = requireNonNull(taskSourceJsonCodec, "taskSourceJsonCodec is null");
 
         this.updateScheduledExecutor = newSingleThreadScheduledExecutor(daemonThreadsNamed("task-info-update-scheduler-%s"));
         this.errorScheduledExecutor = newSingleThreadScheduledExecutor(daemonThreadsNamed("remote-task-error-delay-%s"));
@@ -174,10 +182,13 @@ public class HttpRemoteTaskFactory
                 taskInfoRefreshMaxWait,
                 taskInfoUpdateInterval,
                 summarizeTaskInfo,
+                taskInfoOmitFinishedPipelinesEnabled,
+                deltaUpdatesEnabled,
                 taskStatusCodec,
                 taskInfoCodec,
                 taskUpdateRequestCodec,
                 planFragmentCodec,
+                taskSourceCodec,
                 partitionedSplitCountTracker,
                 stats,
                 isBinaryTransportEnabled,
@@ -26,6 +26,7 @@ import com.facebook.presto.execution.TaskStatus;
 import com.facebook.presto.server.smile.BaseResponse;
 import com.facebook.presto.server.smile.Codec;
 import com.facebook.presto.server.smile.SmileCodec;
+import com.google.common.base.Joiner;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.Duration;
@@ -34,6 +35,8 @@ import javax.annotation.concurrent.GuardedBy;
 
 import java.net.URI;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -43,7 +46,9 @@ import java.util.function.Consumer;
 
 import static com.facebook.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
 import static com.facebook.airlift.http.client.Request.Builder.prepareGet;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_ACKNOWLEDGED_VERSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CURRENT_STATE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_FINISHED_PIPELINES;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_WAIT;
 import static com.facebook.presto.server.RequestHelpers.setContentTypeHeaders;
 import static com.facebook.presto.server.smile.AdaptingJsonResponseHandler.createAdaptingJsonResponseHandler;
@@ -73,6 +78,12 @@ public class TaskInfoFetcher
     private final RequestErrorTracker errorTracker;
 
     private final boolean summarizeTaskInfo;
+    private final boolean omitFinishedPipelinesEnabled;
+    private final boolean deltaUpdatesEnabled;
+
+    // the last task info received from the task, which the task sends the next one as a delta of
+    @GuardedBy("this")
+    private TaskInfo lastReceivedTaskInfo;
 
     @GuardedBy("this")
     private final AtomicLong currentRequestStartNanos = new AtomicLong();
@@ -99,6 +110,8 @@ public class TaskInfoFetcher
             Codec<TaskInfo> taskInfoCodec,
             Duration maxErrorDuration,
             boolean summarizeTaskInfo,
+            boolean omitFinishedPipelinesEnabled,
+            boolean deltaUpdatesEnabled,
             Executor executor,
             ScheduledExecutorService updateScheduledExecutor,
             ScheduledExecutorService errorScheduledExecutor,
@@ -120,6 +133,8 @@ public class TaskInfoFetcher
         this.errorTracker = new RequestErrorTracker(taskId, initialTask.getTaskStatus().getSelf(), maxErrorDuration, errorScheduledExecutor, "getting info for task");
 
         this.summarizeTaskInfo = summarizeTaskInfo;
+        this.omitFinishedPipelinesEnabled = omitFinishedPipelinesEnabled;
+        this.deltaUpdatesEnabled = deltaUpdatesEnabled;
 
         this.executor = requireNonNull(executor, "executor is null");
         this.httpClient = requireNonNull(httpClient, "httpClient is null");
@@ -215,7 +230,14 @@ public class TaskInfoFetcher
         }
 
         HttpUriBuilder httpUriBuilder = uriBuilderFrom(taskStatus.getSelf());
-        URI uri = summarizeTaskInfo ? httpUriBuilder.addParameter("summarize").build() : httpUriBuilder.build();
+        if (summarizeTaskInfo) {
+            httpUriBuilder.addParameter("summarize");
+            if (omitFinishedPipelinesEnabled) {
+                // a summary of a running task has no pipelines, so ask for the finished ones to be kept
+                httpUriBuilder.addParameter("finishedPipelines");
+            }
+        }
+        URI uri = httpUriBuilder.build();
         Request.Builder uriBuilder = setContentTypeHeaders(isBinaryTransportEnabled, prepareGet());
 
         if (taskInfoRefreshMaxWait.toMillis() != 0L) {
@@ -223,6 +245,16 @@ public class TaskInfoFetcher
                     .setHeader(PRESTO_MAX_WAIT, taskInfoRefreshMaxWait.toString());
         }
 
+        Set<Integer> finishedPipelineIds = getTaskInfo().getFinishedPipelineIds();
+        if (omitFinishedPipelinesEnabled && !finishedPipelineIds.isEmpty()) {
+            // the stats of these pipelines will not change, so ask the task not to send them again
+            uriBuilder.setHeader(PRESTO_FINISHED_PIPELINES, Joiner.on(',').join(finishedPipelineIds));
+        }
+
+        if (deltaUpdatesEnabled && lastReceivedTaskInfo != null) {
+            uriBuilder.setHeader(PRESTO_ACKNOWLEDGED_VERSION, String.valueOf(lastReceivedTaskInfo.getTaskStatus().getVersion()));
+        }
+
         Request request = uriBuilder.setUri(uri).build();
 
         ResponseHandler responseHandler;
@@ -239,8 +271,10 @@ public class TaskInfoFetcher
         Futures.addCallback(future, new SimpleHttpResponseHandler<>(this, request.getUri(), stats), executor);
     }
 
-    synchronized void updateTaskInfo(TaskInfo newValue)
+    synchronized void updateTaskInfo(TaskInfo newTaskInfo)
     {
+        // add the stats of the finished pipelines the task left out
+        TaskInfo newValue = newTaskInfo.withFinishedPipelinesFrom(taskInfo.get());
         boolean updated = taskInfo.setIf(newValue, oldValue -> {
             TaskStatus oldTaskStatus = oldValue.getTaskStatus();
             TaskStatus newTaskStatus = newValue.getTaskStatus();
@@ -270,10 +304,35 @@ public class TaskInfoFetcher
             }
             updateStats(startNanos);
             errorTracker.requestSucceeded();
+            if (deltaUpdatesEnabled) {
+                newValue = withOperatorSummariesFromLastReceived(newValue);
+                if (newValue == null) {
+                    return;
+                }
+            }
             updateTaskInfo(newValue);
         }
     }
 
+    /**
+     * Adds the operator summaries a delta left out, and keeps the result to take those of the next delta from.
+     * Returns null if the delta is not one of the last task info received, which makes the next request ask for a
+     * complete task info.
+     */
+    private synchronized TaskInfo withOperatorSummariesFromLastReceived(TaskInfo newValue)
+    {
+        OptionalLong baseVersion = newValue.getBaseVersion();
+        if (baseVersion.isPresent()) {
+            if (lastReceivedTaskInfo == null || lastReceivedTaskInfo.getTaskStatus().getVersion() != baseVersion.getAsLong()) {
+                lastReceivedTaskInfo = null;
+                return null;
+            }
+            newValue = newValue.withOperatorSummariesFrom(lastReceivedTaskInfo);
+        }
+        lastReceivedTaskInfo = newValue;
+        return newValue;
+    }
+
     @Override
     public void failed(Throwable cause)
     {
@@ -18,7 +18,6 @@ import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.operator.SpillContext;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.page.PagesSerde;
-import com.facebook.presto.spi.page.PagesSerdeUtil;
 import com.facebook.presto.spi.page.SerializedPage;
 import com.facebook.presto.spi.spiller.SpillCipher;
 import com.google.common.annotations.VisibleForTesting;
@@ -30,14 +29,18 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import io.airlift.slice.InputStreamSliceInput;
 import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.Slice;
 import io.airlift.slice.SliceOutput;
 
 import javax.annotation.concurrent.NotThreadSafe;
 
 import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Iterator;
@@ -45,11 +48,19 @@ import java.util.List;
 import java.util.Optional;
 
 import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.SERIALIZED_PAGE_HEADER_SIZE;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.SERIALIZED_PAGE_SIZE_OFFSET;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.readSerializedPage;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.readSerializedPages;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.writeSerializedPage;
 import static com.facebook.presto.spiller.FileSingleStreamSpillerFactory.SPILL_FILE_PREFIX;
 import static com.facebook.presto.spiller.FileSingleStreamSpillerFactory.SPILL_FILE_SUFFIX;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
 import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.READ;
 import static java.util.Objects.requireNonNull;
 
 @NotThreadSafe
@@ -66,6 +77,7 @@ public class FileSingleStreamSpiller
     private final SpillContext localSpillContext;
     private final LocalMemoryContext memoryContext;
     private final Optional<SpillCipher> spillCipher;
+    private final boolean memoryMappedReadEnabled;
 
     private final ListeningExecutorService executor;
 
@@ -80,7 +92,8 @@ public class FileSingleStreamSpiller
             SpillerStats spillerStats,
             SpillContext spillContext,
             LocalMemoryContext memoryContext,
-            Optional<SpillCipher> spillCipher)
+            Optional<SpillCipher> spillCipher,
+            boolean memoryMappedReadEnabled)
     {
         this.serde = requireNonNull(serde, "serde is null");
         this.executor = requireNonNull(executor, "executor is null");
@@ -90,6 +103,7 @@ public class FileSingleStreamSpiller
         this.spillCipher = requireNonNull(spillCipher, "spillCipher is null");
         checkState(!spillCipher.isPresent() || !spillCipher.get().isDestroyed(), "spillCipher is already destroyed");
         this.spillCipher.ifPresent(cipher -> closer.register(cipher::destroy));
+        this.memoryMappedReadEnabled = memoryMappedReadEnabled;
         // HACK!
         // The writePages() method is called in a separate thread pool and it's possible that
         // these spiller thread can run concurrently with the close() method.
@@ -162,9 +176,19 @@ public class FileSingleStreamSpiller
         writable = false;
 
         try {
-            InputStream input = closer.register(targetFile.newInputStream());
-            Iterator<Page> pages = PagesSerdeUtil.readPages(serde, new InputStreamSliceInput(input, BUFFER_SIZE));
-            return closeWhenExhausted(pages, input);
+            Iterator<SerializedPage> serializedPages;
+            Closeable resource;
+            if (memoryMappedReadEnabled) {
+                FileChannel channel = closer.register(targetFile.newFileChannel(READ));
+                serializedPages = new MappedSerializedPageIterator(channel);
+                resource = channel;
+            }
+            else {
+                InputStream input = closer.register(targetFile.newInputStream());
+                serializedPages = readSerializedPages(new InputStreamSliceInput(input, BUFFER_SIZE));
+                resource = input;
+            }
+            return closeWhenExhausted(new DeserializingIterator(serializedPages), resource);
         }
         catch (IOException e) {
             throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to read spilled pages", e);
@@ -212,4 +236,81 @@ public class FileSingleStreamSpiller
             }
         };
     }
+
+    private class DeserializingIterator
+            extends AbstractIterator<Page>
+    {
+        private final Iterator<SerializedPage> serializedPages;
+
+        DeserializingIterator(Iterator<SerializedPage> serializedPages)
+        {
+            this.serializedPages = requireNonNull(serializedPages, "serializedPages is null");
+        }
+
+        @Override
+        protected Page computeNext()
+        {
+            long start = System.nanoTime();
+            try {
+                if (!serializedPages.hasNext()) {
+                    return endOfData();
+                }
+                SerializedPage serializedPage = serializedPages.next();
+                spillerStats.addToTotalUnspilledBytes(serializedPage.getSizeInBytes());
+                return serde.deserialize(serializedPage);
+            }
+            finally {
+                spillerStats.addToTotalUnspillTimeNanos(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Reads serialized pages directly from memory mapped ranges of the spill file. Every page is mapped
+     * on its own, so uncompressed pages are decoded without copying them to the heap first, while the
+     * unspilled blocks only retain the mapping of the page they were read from.
+     */
+    private static class MappedSerializedPageIterator
+            extends AbstractIterator<SerializedPage>
+    {
+        private final FileChannel channel;
+        private final long fileSize;
+        private final ByteBuffer header = ByteBuffer.allocate(SERIALIZED_PAGE_HEADER_SIZE).order(LITTLE_ENDIAN);
+
+        private long position;
+
+        MappedSerializedPageIterator(FileChannel channel)
+                throws IOException
+        {
+            this.channel = requireNonNull(channel, "channel is null");
+            this.fileSize = channel.size();
+        }
+
+        @Override
+        protected SerializedPage computeNext()
+        {
+            if (position >= fileSize) {
+                return endOfData();
+            }
+
+            try {
+                checkState(position + SERIALIZED_PAGE_HEADER_SIZE <= fileSize, "Spill file is truncated");
+                header.clear();
+                while (header.hasRemaining()) {
+                    if (channel.read(header, position + header.position()) < 0) {
+                        throw new EOFException("Spill file is truncated");
+                    }
+                }
+                int serializedPageSize = SERIALIZED_PAGE_HEADER_SIZE + header.getInt(SERIALIZED_PAGE_SIZE_OFFSET);
+                checkState(position + serializedPageSize <= fileSize, "Spill file is truncated");
+
+                Slice serializedPage = wrappedBuffer(channel.map(READ_ONLY, position, serializedPageSize));
+                position += serializedPageSize;
+                return readSerializedPage(serializedPage.getInput());
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
 }
@@ -16,6 +16,8 @@ package com.facebook.presto.spiller;
 import com.facebook.airlift.log.Logger;
 import com.facebook.presto.common.block.BlockEncodingSerde;
 import com.facebook.presto.common.type.Type;
+import com.facebook.presto.execution.buffer.PageCompressionCodec;
+import com.facebook.presto.execution.buffer.PageCompressionStats;
 import com.facebook.presto.execution.buffer.PagesSerdeFactory;
 import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.operator.SpillContext;
@@ -66,10 +68,16 @@ public class FileSingleStreamSpillerFactory
     private final SpillerStats spillerStats;
     private final double maxUsedSpaceThreshold;
     private final boolean spillEncryptionEnabled;
+    private final boolean spillMemoryMappedReadEnabled;
     private int roundRobinIndex;
 
     @Inject
-    public FileSingleStreamSpillerFactory(BlockEncodingSerde blockEncodingSerde, SpillerStats spillerStats, FeaturesConfig featuresConfig, NodeSpillConfig nodeSpillConfig)
+    public FileSingleStreamSpillerFactory(
+            BlockEncodingSerde blockEncodingSerde,
+            SpillerStats spillerStats,
+            PageCompressionStats pageCompressionStats,
+            FeaturesConfig featuresConfig,
+            NodeSpillConfig nodeSpillConfig)
     {
         this(
                 listeningDecorator(newFixedThreadPool(
@@ -80,7 +88,12 @@ public class FileSingleStreamSpillerFactory
                 requireNonNull(featuresConfig, "featuresConfig is null").getSpillerSpillPaths(),
                 requireNonNull(featuresConfig, "featuresConfig is null").getSpillMaxUsedSpaceThreshold(),
                 requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").isSpillCompressionEnabled(),
-                requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").isSpillEncryptionEnabled());
+                requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").getSpillCompressionCodec(),
+                requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").getSpillCompressionZstdLevel(),
+                requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").isSpillAdaptiveCompressionEnabled(),
+                pageCompressionStats,
+                requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").isSpillEncryptionEnabled(),
+                requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").isSpillMemoryMappedReadEnabled());
     }
 
     @VisibleForTesting
@@ -93,7 +106,57 @@ public class FileSingleStreamSpillerFactory
             boolean spillCompressionEnabled,
             boolean spillEncryptionEnabled)
     {
-        this.serdeFactory = new PagesSerdeFactory(requireNonNull(blockEncodingSerde, "blockEncodingSerde is null"), spillCompressionEnabled);
+        this(executor, blockEncodingSerde, spillerStats, spillPaths, maxUsedSpaceThreshold, spillCompressionEnabled, spillEncryptionEnabled, false);
+    }
+
+    @VisibleForTesting
+    public FileSingleStreamSpillerFactory(
+            ListeningExecutorService executor,
+            BlockEncodingSerde blockEncodingSerde,
+            SpillerStats spillerStats,
+            List<Path> spillPaths,
+            double maxUsedSpaceThreshold,
+            boolean spillCompressionEnabled,
+            boolean spillEncryptionEnabled,
+            boolean spillMemoryMappedReadEnabled)
+    {
+        this(
+                executor,
+                blockEncodingSerde,
+                spillerStats,
+                spillPaths,
+                maxUsedSpaceThreshold,
+                spillCompressionEnabled,
+                PageCompressionCodec.LZ4,
+                3,
+                false,
+                new PageCompressionStats(),
+                spillEncryptionEnabled,
+                spillMemoryMappedReadEnabled);
+    }
+
+    @VisibleForTesting
+    public FileSingleStreamSpillerFactory(
+            ListeningExecutorService executor,
+            BlockEncodingSerde blockEncodingSerde,
+            SpillerStats spillerStats,
+            List<Path> spillPaths,
+            double maxUsedSpaceThreshold,
+            boolean spillCompressionEnabled,
+            PageCompressionCodec spillCompressionCodec,
+            int spillCompressionZstdLevel,
+            boolean spillAdaptiveCompressionEnabled,
+            PageCompressionStats pageCompressionStats,
+            boolean spillEncryptionEnabled,
+            boolean spillMemoryMappedReadEnabled)
+    {
+        this.serdeFactory = new PagesSerdeFactory(
+                requireNonNull(blockEncodingSerde, "blockEncodingSerde is null"),
+                spillCompressionEnabled,
+                spillCompressionCodec,
+                spillCompressionZstdLevel,
+                spillAdaptiveCompressionEnabled,
+                pageCompressionStats);
         this.executor = requireNonNull(executor, "executor is null");
         this.spillerStats = requireNonNull(spillerStats, "spillerStats can not be null");
         requireNonNull(spillPaths, "spillPaths is null");
@@ -113,6 +176,7 @@ public class FileSingleStreamSpillerFactory
         });
         this.maxUsedSpaceThreshold = maxUsedSpaceThreshold;
         this.spillEncryptionEnabled = spillEncryptionEnabled;
+        this.spillMemoryMappedReadEnabled = spillMemoryMappedReadEnabled;
         this.roundRobinIndex = 0;
     }
 
@@ -154,7 +218,7 @@ public class FileSingleStreamSpillerFactory
             spillCipher = Optional.of(new AesSpillCipher());
         }
         PagesSerde serde = serdeFactory.createPagesSerdeForSpill(spillCipher);
-        return new FileSingleStreamSpiller(serde, executor, getNextSpillPath(), spillerStats, spillContext, memoryContext, spillCipher);
+        return new FileSingleStreamSpiller(serde, executor, getNextSpillPath(), spillerStats, spillContext, memoryContext, spillCipher, spillMemoryMappedReadEnabled);
     }
 
     private synchronized Path getNextSpillPath()
@@ -14,17 +14,26 @@
 package com.facebook.presto.spiller;
 
 import com.facebook.airlift.configuration.Config;
+import com.facebook.presto.execution.buffer.PageCompressionCodec;
 import io.airlift.units.DataSize;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import static com.facebook.presto.execution.buffer.PageCompressionCodec.LZ4;
+
 public class NodeSpillConfig
 {
     private DataSize maxSpillPerNode = new DataSize(100, DataSize.Unit.GIGABYTE);
     private DataSize queryMaxSpillPerNode = new DataSize(100, DataSize.Unit.GIGABYTE);
 
     private boolean spillCompressionEnabled;
+    private PageCompressionCodec spillCompressionCodec = LZ4;
+    private int spillCompressionZstdLevel = 3;
+    private boolean spillAdaptiveCompressionEnabled;
     private boolean spillEncryptionEnabled;
+    private boolean spillMemoryMappedReadEnabled;
 
     @NotNull
     public DataSize getMaxSpillPerNode()
@@ -64,6 +73,45 @@ public class NodeSpillConfig
         return this;
     }
 
+    @NotNull
+    public PageCompressionCodec getSpillCompressionCodec()
+    {
+        return spillCompressionCodec;
+    }
+
+    @Config("experimental.spill-compression-codec")
+    public NodeSpillConfig setSpillCompressionCodec(PageCompressionCodec spillCompressionCodec)
+    {
+        this.spillCompressionCodec = spillCompressionCodec;
+        return this;
+    }
+
+    @Min(1)
+    @Max(22)
+    public int getSpillCompressionZstdLevel()
+    {
+        return spillCompressionZstdLevel;
+    }
+
+    @Config("experimental.spill-compression-zstd-level")
+    public NodeSpillConfig setSpillCompressionZstdLevel(int spillCompressionZstdLevel)
+    {
+        this.spillCompressionZstdLevel = spillCompressionZstdLevel;
+        return this;
+    }
+
+    public boolean isSpillAdaptiveCompressionEnabled()
+    {
+        return spillAdaptiveCompressionEnabled;
+    }
+
+    @Config("experimental.spill-adaptive-compression-enabled")
+    public NodeSpillConfig setSpillAdaptiveCompressionEnabled(boolean spillAdaptiveCompressionEnabled)
+    {
+        this.spillAdaptiveCompressionEnabled = spillAdaptiveCompressionEnabled;
+        return this;
+    }
+
     public boolean isSpillEncryptionEnabled()
     {
         return spillEncryptionEnabled;
@@ -75,4 +123,16 @@ public class NodeSpillConfig
         this.spillEncryptionEnabled = spillEncryptionEnabled;
         return this;
     }
+
+    public boolean isSpillMemoryMappedReadEnabled()
+    {
+        return spillMemoryMappedReadEnabled;
+    }
+
+    @Config("experimental.spill-memory-mapped-read-enabled")
+    public NodeSpillConfig setSpillMemoryMappedReadEnabled(boolean spillMemoryMappedReadEnabled)
+    {
+        this.spillMemoryMappedReadEnabled = spillMemoryMappedReadEnabled;
+        return this;
+    }
 }
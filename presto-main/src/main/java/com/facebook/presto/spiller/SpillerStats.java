@@ -17,9 +17,13 @@ import org.weakref.jmx.Managed;
 
 import java.util.concurrent.atomic.AtomicLong;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
 public class SpillerStats
 {
     protected final AtomicLong totalSpilledBytes = new AtomicLong();
+    protected final AtomicLong totalUnspilledBytes = new AtomicLong();
+    protected final AtomicLong totalUnspillTimeNanos = new AtomicLong();
 
     @Managed
     public long getTotalSpilledBytes()
@@ -31,4 +35,26 @@ public class SpillerStats
     {
         totalSpilledBytes.addAndGet(delta);
     }
+
+    @Managed
+    public long getTotalUnspilledBytes()
+    {
+        return totalUnspilledBytes.get();
+    }
+
+    public void addToTotalUnspilledBytes(long delta)
+    {
+        totalUnspilledBytes.addAndGet(delta);
+    }
+
+    @Managed
+    public long getTotalUnspillTimeMillis()
+    {
+        return NANOSECONDS.toMillis(totalUnspillTimeNanos.get());
+    }
+
+    public void addToTotalUnspillTimeNanos(long delta)
+    {
+        totalUnspillTimeNanos.addAndGet(delta);
+    }
 }
@@ -16,6 +16,7 @@ package com.facebook.presto.sql.analyzer;
 import com.facebook.airlift.configuration.Config;
 import com.facebook.airlift.configuration.ConfigDescription;
 import com.facebook.airlift.configuration.DefunctConfig;
+import com.facebook.presto.execution.buffer.PageCompressionCodec;
 import com.facebook.presto.operator.aggregation.arrayagg.ArrayAggGroupImplementation;
 import com.facebook.presto.operator.aggregation.histogram.HistogramGroupImplementation;
 import com.facebook.presto.operator.aggregation.multimapagg.MultimapAggGroupImplementation;
@@ -29,6 +30,7 @@ import io.airlift.units.MaxDataSize;
 import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.DecimalMax;
 import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
@@ -89,6 +91,12 @@ public class FeaturesConfig
     private boolean enableIntermediateAggregations;
     private boolean pushTableWriteThroughUnion = true;
     private boolean exchangeCompressionEnabled;
+    private PageCompressionCodec exchangeCompressionCodec = PageCompressionCodec.LZ4;
+    private int exchangeCompressionZstdLevel = 3;
+    private boolean exchangeAdaptiveCompressionEnabled;
+    private boolean adaptivePartialAggregationEnabled;
+    private long adaptivePartialAggregationMinRows = 100_000;
+    private double adaptivePartialAggregationReductionRatioThreshold = 0.2;
     private boolean legacyArrayAgg;
     private boolean legacyLogFunction;
     private boolean groupByUsesEqualTo;
@@ -111,6 +119,9 @@ public class FeaturesConfig
     private MultimapAggGroupImplementation multimapAggGroupImplementation = MultimapAggGroupImplementation.NEW;
     private boolean spillEnabled;
     private DataSize aggregationOperatorUnspillMemoryLimit = new DataSize(4, DataSize.Unit.MEGABYTE);
+    private boolean spillWindowOperator = true;
+    private boolean spillOrderBy = true;
+    private boolean spillTopNRowNumber = true;
     private List<Path> spillerSpillPaths = ImmutableList.of();
     private int spillerThreads = 4;
     private double spillMaxUsedSpaceThreshold = 0.9;
@@ -152,6 +163,12 @@ public class FeaturesConfig
     private boolean useLegacyScheduler = true;
     private boolean optimizeCommonSubExpressions = true;
     private boolean preferDistributedUnion = true;
+    private boolean enableDynamicFiltering;
+    private int dynamicFilteringMaxDistinctValues = 10_000;
+    private int joinHashBuildConcurrency = 1;
+    private boolean queryResultCacheEnabled;
+    private boolean fragmentResultCacheEnabled;
+    private int skewedJoinSpreadFactor = 1;
 
     private PartitioningPrecisionStrategy partitioningPrecisionStrategy = PartitioningPrecisionStrategy.AUTOMATIC;
 
@@ -818,6 +835,45 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isSpillWindowOperator()
+    {
+        return spillWindowOperator;
+    }
+
+    @Config("experimental.spill-window-operator")
+    @ConfigDescription("Spill window operator if spill is enabled")
+    public FeaturesConfig setSpillWindowOperator(boolean spillWindowOperator)
+    {
+        this.spillWindowOperator = spillWindowOperator;
+        return this;
+    }
+
+    public boolean isSpillOrderBy()
+    {
+        return spillOrderBy;
+    }
+
+    @Config("experimental.spill-order-by")
+    @ConfigDescription("Spill order by operator if spill is enabled")
+    public FeaturesConfig setSpillOrderBy(boolean spillOrderBy)
+    {
+        this.spillOrderBy = spillOrderBy;
+        return this;
+    }
+
+    public boolean isSpillTopNRowNumber()
+    {
+        return spillTopNRowNumber;
+    }
+
+    @Config("experimental.spill-topn-row-number")
+    @ConfigDescription("Spill top N row number operator if spill is enabled")
+    public FeaturesConfig setSpillTopNRowNumber(boolean spillTopNRowNumber)
+    {
+        this.spillTopNRowNumber = spillTopNRowNumber;
+        return this;
+    }
+
     public List<Path> getSpillerSpillPaths()
     {
         return spillerSpillPaths;
@@ -916,6 +972,89 @@ public class FeaturesConfig
         return this;
     }
 
+    @NotNull
+    public PageCompressionCodec getExchangeCompressionCodec()
+    {
+        return exchangeCompressionCodec;
+    }
+
+    @Config("exchange.compression-codec")
+    @ConfigDescription("Codec used to compress exchange pages when exchange compression is enabled")
+    public FeaturesConfig setExchangeCompressionCodec(PageCompressionCodec exchangeCompressionCodec)
+    {
+        this.exchangeCompressionCodec = exchangeCompressionCodec;
+        return this;
+    }
+
+    @Min(1)
+    @Max(22)
+    public int getExchangeCompressionZstdLevel()
+    {
+        return exchangeCompressionZstdLevel;
+    }
+
+    @Config("exchange.compression-zstd-level")
+    public FeaturesConfig setExchangeCompressionZstdLevel(int exchangeCompressionZstdLevel)
+    {
+        this.exchangeCompressionZstdLevel = exchangeCompressionZstdLevel;
+        return this;
+    }
+
+    public boolean isExchangeAdaptiveCompressionEnabled()
+    {
+        return exchangeAdaptiveCompressionEnabled;
+    }
+
+    @Config("exchange.adaptive-compression-enabled")
+    @ConfigDescription("Skip compressing exchange pages while the data does not compress well")
+    public FeaturesConfig setExchangeAdaptiveCompressionEnabled(boolean exchangeAdaptiveCompressionEnabled)
+    {
+        this.exchangeAdaptiveCompressionEnabled = exchangeAdaptiveCompressionEnabled;
+        return this;
+    }
+
+    public boolean isAdaptivePartialAggregationEnabled()
+    {
+        return adaptivePartialAggregationEnabled;
+    }
+
+    @Config("experimental.adaptive-partial-aggregation")
+    @ConfigDescription("Stop aggregating in partial aggregations that do not reduce the number of rows enough")
+    public FeaturesConfig setAdaptivePartialAggregationEnabled(boolean adaptivePartialAggregationEnabled)
+    {
+        this.adaptivePartialAggregationEnabled = adaptivePartialAggregationEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public long getAdaptivePartialAggregationMinRows()
+    {
+        return adaptivePartialAggregationMinRows;
+    }
+
+    @Config("experimental.adaptive-partial-aggregation-min-rows")
+    @ConfigDescription("Minimum number of input rows a partial aggregation must process before it can be disabled")
+    public FeaturesConfig setAdaptivePartialAggregationMinRows(long adaptivePartialAggregationMinRows)
+    {
+        this.adaptivePartialAggregationMinRows = adaptivePartialAggregationMinRows;
+        return this;
+    }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getAdaptivePartialAggregationReductionRatioThreshold()
+    {
+        return adaptivePartialAggregationReductionRatioThreshold;
+    }
+
+    @Config("experimental.adaptive-partial-aggregation-reduction-ratio-threshold")
+    @ConfigDescription("Partial aggregation is disabled when the fraction of input rows it eliminates is below this threshold")
+    public FeaturesConfig setAdaptivePartialAggregationReductionRatioThreshold(double adaptivePartialAggregationReductionRatioThreshold)
+    {
+        this.adaptivePartialAggregationReductionRatioThreshold = adaptivePartialAggregationReductionRatioThreshold;
+        return this;
+    }
+
     public boolean isEnableIntermediateAggregations()
     {
         return enableIntermediateAggregations;
@@ -1250,4 +1389,85 @@ public class FeaturesConfig
         this.preferDistributedUnion = preferDistributedUnion;
         return this;
     }
+
+    public boolean isEnableDynamicFiltering()
+    {
+        return enableDynamicFiltering;
+    }
+
+    @Config("experimental.enable-dynamic-filtering")
+    @ConfigDescription("Filter probe side table scans of broadcast joins with the keys collected from the build side")
+    public FeaturesConfig setEnableDynamicFiltering(boolean enableDynamicFiltering)
+    {
+        this.enableDynamicFiltering = enableDynamicFiltering;
+        return this;
+    }
+
+    @Min(0)
+    public int getDynamicFilteringMaxDistinctValues()
+    {
+        return dynamicFilteringMaxDistinctValues;
+    }
+
+    @Config("experimental.dynamic-filtering-max-distinct-values")
+    @ConfigDescription("Maximum number of distinct build side values per join key tracked by a dynamic filter before falling back to a min/max range")
+    public FeaturesConfig setDynamicFilteringMaxDistinctValues(int dynamicFilteringMaxDistinctValues)
+    {
+        this.dynamicFilteringMaxDistinctValues = dynamicFilteringMaxDistinctValues;
+        return this;
+    }
+
+    @Min(1)
+    public int getJoinHashBuildConcurrency()
+    {
+        return joinHashBuildConcurrency;
+    }
+
+    @Config("join-hash-build-concurrency")
+    @ConfigDescription("Number of threads used to build the hash table of a single join lookup source")
+    public FeaturesConfig setJoinHashBuildConcurrency(int joinHashBuildConcurrency)
+    {
+        this.joinHashBuildConcurrency = joinHashBuildConcurrency;
+        return this;
+    }
+
+    public boolean isQueryResultCacheEnabled()
+    {
+        return queryResultCacheEnabled;
+    }
+
+    @Config("experimental.query-result-cache-enabled")
+    @ConfigDescription("Serve the results of repeated deterministic queries from the coordinator result cache")
+    public FeaturesConfig setQueryResultCacheEnabled(boolean queryResultCacheEnabled)
+    {
+        this.queryResultCacheEnabled = queryResultCacheEnabled;
+        return this;
+    }
+
+    public boolean isFragmentResultCacheEnabled()
+    {
+        return fragmentResultCacheEnabled;
+    }
+
+    @Config("experimental.fragment-result-cache-enabled")
+    @ConfigDescription("Reuse the cached output of leaf plan fragments for splits that were processed before")
+    public FeaturesConfig setFragmentResultCacheEnabled(boolean fragmentResultCacheEnabled)
+    {
+        this.fragmentResultCacheEnabled = fragmentResultCacheEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getSkewedJoinSpreadFactor()
+    {
+        return skewedJoinSpreadFactor;
+    }
+
+    @Config("optimizer.skewed-join-spread-factor")
+    @ConfigDescription("Number of partitions the probe rows of a skewed partition of a partitioned join are spread across, or 1 to disable")
+    public FeaturesConfig setSkewedJoinSpreadFactor(int skewedJoinSpreadFactor)
+    {
+        this.skewedJoinSpreadFactor = skewedJoinSpreadFactor;
+        return this;
+    }
 }
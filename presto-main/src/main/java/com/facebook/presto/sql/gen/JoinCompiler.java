@@ -38,6 +38,9 @@ import com.facebook.presto.common.type.StandardTypes;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.metadata.FunctionManager;
 import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.operator.FixedWidthJoinHash;
+import com.facebook.presto.operator.FixedWidthJoinHashSupplier;
+import com.facebook.presto.operator.FixedWidthPagesHash;
 import com.facebook.presto.operator.JoinHash;
 import com.facebook.presto.operator.JoinHashSupplier;
 import com.facebook.presto.operator.LookupSourceSupplier;
@@ -64,8 +67,10 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.Executor;
 import java.util.stream.IntStream;
 
+import static com.facebook.presto.SystemSessionProperties.getJoinHashBuildConcurrency;
 import static com.facebook.presto.bytecode.Access.FINAL;
 import static com.facebook.presto.bytecode.Access.PRIVATE;
 import static com.facebook.presto.bytecode.Access.PUBLIC;
@@ -81,6 +86,7 @@ import static com.facebook.presto.bytecode.expression.BytecodeExpressions.consta
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.getStatic;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.newInstance;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.notEqual;
+import static com.facebook.presto.operator.PagesHash.isParallelBuild;
 import static com.facebook.presto.sql.analyzer.TypeSignatureProvider.fromTypes;
 import static com.facebook.presto.sql.gen.InputReferenceCompiler.generateInputReference;
 import static com.facebook.presto.sql.gen.SqlTypeBytecodeExpression.constantType;
@@ -177,6 +183,21 @@ public class JoinCompiler
                 JoinHash.class,
                 PagesHash.class);
 
+        List<Type> joinChannelTypes = joinChannels.stream()
+                .map(types::get)
+                .collect(toImmutableList());
+        if (FixedWidthPagesHash.isSupportedKeyTypes(joinChannelTypes)) {
+            // keys fit in a long and compare as longs, use the hash that keeps them in primitive arrays unless the build runs in parallel
+            Class<? extends LookupSourceSupplier> fixedWidthJoinHashSupplierClass = IsolatedClass.isolateClass(
+                    new DynamicClassLoader(getClass().getClassLoader()),
+                    LookupSourceSupplier.class,
+                    FixedWidthJoinHashSupplier.class,
+                    FixedWidthJoinHash.class,
+                    FixedWidthPagesHash.class);
+
+            return new LookupSourceSupplierFactory(joinHashSupplierClass, fixedWidthJoinHashSupplierClass, new PagesHashStrategyFactory(pagesHashStrategyClass), joinChannels, joinChannelTypes);
+        }
+
         return new LookupSourceSupplierFactory(joinHashSupplierClass, new PagesHashStrategyFactory(pagesHashStrategyClass));
     }
 
@@ -900,13 +921,44 @@ public class JoinCompiler
     public static class LookupSourceSupplierFactory
     {
         private final Constructor<? extends LookupSourceSupplier> constructor;
+        // supplier specialized on the key types, used when the hash is not built in parallel
+        private final Optional<Constructor<? extends LookupSourceSupplier>> fixedWidthConstructor;
         private final PagesHashStrategyFactory pagesHashStrategyFactory;
+        private final Optional<List<Integer>> joinChannels;
+        private final Optional<List<Type>> joinChannelTypes;
 
         public LookupSourceSupplierFactory(Class<? extends LookupSourceSupplier> joinHashSupplierClass, PagesHashStrategyFactory pagesHashStrategyFactory)
         {
             this.pagesHashStrategyFactory = pagesHashStrategyFactory;
+            this.fixedWidthConstructor = Optional.empty();
+            this.joinChannels = Optional.empty();
+            this.joinChannelTypes = Optional.empty();
+            this.constructor = getJoinHashSupplierConstructor(joinHashSupplierClass);
+        }
+
+        public LookupSourceSupplierFactory(
+                Class<? extends LookupSourceSupplier> joinHashSupplierClass,
+                Class<? extends LookupSourceSupplier> fixedWidthJoinHashSupplierClass,
+                PagesHashStrategyFactory pagesHashStrategyFactory,
+                List<Integer> joinChannels,
+                List<Type> joinChannelTypes)
+        {
+            this.pagesHashStrategyFactory = pagesHashStrategyFactory;
+            this.joinChannels = Optional.of(ImmutableList.copyOf(requireNonNull(joinChannels, "joinChannels is null")));
+            this.joinChannelTypes = Optional.of(ImmutableList.copyOf(requireNonNull(joinChannelTypes, "joinChannelTypes is null")));
+            this.constructor = getJoinHashSupplierConstructor(joinHashSupplierClass);
+            try {
+                fixedWidthConstructor = Optional.of(fixedWidthJoinHashSupplierClass.getConstructor(Session.class, PagesHashStrategy.class, LongArrayList.class, List.class, List.class, List.class, Optional.class, Optional.class, List.class));
+            }
+            catch (NoSuchMethodException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private static Constructor<? extends LookupSourceSupplier> getJoinHashSupplierConstructor(Class<? extends LookupSourceSupplier> joinHashSupplierClass)
+        {
             try {
-                constructor = joinHashSupplierClass.getConstructor(Session.class, PagesHashStrategy.class, LongArrayList.class, List.class, Optional.class, Optional.class, List.class);
+                return joinHashSupplierClass.getConstructor(Session.class, PagesHashStrategy.class, LongArrayList.class, List.class, Optional.class, Optional.class, List.class, Executor.class);
             }
             catch (NoSuchMethodException e) {
                 throw new RuntimeException(e);
@@ -920,11 +972,16 @@ public class JoinCompiler
                 OptionalInt hashChannel,
                 Optional<JoinFilterFunctionFactory> filterFunctionFactory,
                 Optional<Integer> sortChannel,
-                List<JoinFilterFunctionFactory> searchFunctionFactories)
+                List<JoinFilterFunctionFactory> searchFunctionFactories,
+                Executor hashBuildExecutor)
         {
             PagesHashStrategy pagesHashStrategy = pagesHashStrategyFactory.createPagesHashStrategy(channels, hashChannel);
             try {
-                return constructor.newInstance(session, pagesHashStrategy, addresses, channels, filterFunctionFactory, sortChannel, searchFunctionFactories);
+                // the fixed width hash is built by a single thread, keep the parallel build of large hashes
+                if (fixedWidthConstructor.isPresent() && !isParallelBuild(addresses.size(), getJoinHashBuildConcurrency(session))) {
+                    return fixedWidthConstructor.get().newInstance(session, pagesHashStrategy, addresses, channels, joinChannels.get(), joinChannelTypes.get(), filterFunctionFactory, sortChannel, searchFunctionFactories);
+                }
+                return constructor.newInstance(session, pagesHashStrategy, addresses, channels, filterFunctionFactory, sortChannel, searchFunctionFactories, hashBuildExecutor);
             }
             catch (ReflectiveOperationException e) {
                 throw new RuntimeException(e);
@@ -29,6 +29,7 @@ import com.facebook.presto.execution.ExplainAnalyzeContext;
 import com.facebook.presto.execution.StageExecutionId;
 import com.facebook.presto.execution.TaskManagerConfig;
 import com.facebook.presto.execution.buffer.OutputBuffer;
+import com.facebook.presto.execution.buffer.PageCompressionStats;
 import com.facebook.presto.execution.buffer.PagesSerdeFactory;
 import com.facebook.presto.execution.scheduler.ExecutionWriterTarget;
 import com.facebook.presto.execution.scheduler.ExecutionWriterTarget.CreateHandle;
@@ -45,6 +46,7 @@ import com.facebook.presto.operator.AssignUniqueIdOperator;
 import com.facebook.presto.operator.DeleteOperator.DeleteOperatorFactory;
 import com.facebook.presto.operator.DevNullOperator.DevNullOperatorFactory;
 import com.facebook.presto.operator.DriverFactory;
+import com.facebook.presto.operator.DynamicPageFilter;
 import com.facebook.presto.operator.EnforceSingleRowOperator;
 import com.facebook.presto.operator.ExplainAnalyzeOperator.ExplainAnalyzeOperatorFactory;
 import com.facebook.presto.operator.FilterAndProjectOperator;
@@ -53,6 +55,7 @@ import com.facebook.presto.operator.HashAggregationOperator.HashAggregationOpera
 import com.facebook.presto.operator.HashBuilderOperator.HashBuilderOperatorFactory;
 import com.facebook.presto.operator.HashSemiJoinOperator.HashSemiJoinOperatorFactory;
 import com.facebook.presto.operator.JoinBridgeManager;
+import com.facebook.presto.operator.JoinDynamicFilter;
 import com.facebook.presto.operator.JoinOperatorFactory;
 import com.facebook.presto.operator.JoinOperatorFactory.OuterOperatorFactoryResult;
 import com.facebook.presto.operator.LimitOperator.LimitOperatorFactory;
@@ -70,6 +73,7 @@ import com.facebook.presto.operator.OutputFactory;
 import com.facebook.presto.operator.PageSinkCommitStrategy;
 import com.facebook.presto.operator.PagesIndex;
 import com.facebook.presto.operator.PagesSpatialIndexFactory;
+import com.facebook.presto.operator.PartialAggregationController;
 import com.facebook.presto.operator.PartitionFunction;
 import com.facebook.presto.operator.PartitionedLookupSourceFactory;
 import com.facebook.presto.operator.PipelineExecutionStrategy;
@@ -198,6 +202,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import com.google.common.primitives.Ints;
@@ -222,17 +227,27 @@ import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static com.facebook.presto.SystemSessionProperties.getAdaptivePartialAggregationMinRows;
+import static com.facebook.presto.SystemSessionProperties.getAdaptivePartialAggregationReductionRatioThreshold;
 import static com.facebook.presto.SystemSessionProperties.getAggregationOperatorUnspillMemoryLimit;
+import static com.facebook.presto.SystemSessionProperties.getDynamicFilteringMaxDistinctValues;
+import static com.facebook.presto.SystemSessionProperties.getExchangeCompressionCodec;
+import static com.facebook.presto.SystemSessionProperties.getExchangeCompressionZstdLevel;
 import static com.facebook.presto.SystemSessionProperties.getFilterAndProjectMinOutputPageRowCount;
 import static com.facebook.presto.SystemSessionProperties.getFilterAndProjectMinOutputPageSize;
 import static com.facebook.presto.SystemSessionProperties.getIndexLoaderTimeout;
 import static com.facebook.presto.SystemSessionProperties.getTaskConcurrency;
 import static com.facebook.presto.SystemSessionProperties.getTaskPartitionedWriterCount;
 import static com.facebook.presto.SystemSessionProperties.getTaskWriterCount;
+import static com.facebook.presto.SystemSessionProperties.isAdaptivePartialAggregationEnabled;
+import static com.facebook.presto.SystemSessionProperties.isExchangeAdaptiveCompressionEnabled;
 import static com.facebook.presto.SystemSessionProperties.isExchangeCompressionEnabled;
 import static com.facebook.presto.SystemSessionProperties.isOptimizeCommonSubExpressions;
 import static com.facebook.presto.SystemSessionProperties.isOptimizedRepartitioningEnabled;
 import static com.facebook.presto.SystemSessionProperties.isSpillEnabled;
+import static com.facebook.presto.SystemSessionProperties.isSpillOrderBy;
+import static com.facebook.presto.SystemSessionProperties.isSpillTopNRowNumber;
+import static com.facebook.presto.SystemSessionProperties.isSpillWindowOperator;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.TypeSignature.parseTypeSignature;
 import static com.facebook.presto.common.type.TypeUtils.writeNativeValue;
@@ -293,6 +308,7 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Range.closedOpen;
+import static com.google.common.collect.Sets.newIdentityHashSet;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -320,6 +336,7 @@ public class LocalExecutionPlanner
     private final SingleStreamSpillerFactory singleStreamSpillerFactory;
     private final PartitioningSpillerFactory partitioningSpillerFactory;
     private final BlockEncodingSerde blockEncodingSerde;
+    private final PageCompressionStats pageCompressionStats;
     private final PagesIndex.Factory pagesIndexFactory;
     private final JoinCompiler joinCompiler;
     private final LookupJoinOperators lookupJoinOperators;
@@ -346,6 +363,7 @@ public class LocalExecutionPlanner
             SingleStreamSpillerFactory singleStreamSpillerFactory,
             PartitioningSpillerFactory partitioningSpillerFactory,
             BlockEncodingSerde blockEncodingSerde,
+            PageCompressionStats pageCompressionStats,
             PagesIndex.Factory pagesIndexFactory,
             JoinCompiler joinCompiler,
             LookupJoinOperators lookupJoinOperators,
@@ -368,6 +386,7 @@ public class LocalExecutionPlanner
         this.singleStreamSpillerFactory = requireNonNull(singleStreamSpillerFactory, "singleStreamSpillerFactory is null");
         this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.pageCompressionStats = requireNonNull(pageCompressionStats, "pageCompressionStats is null");
         this.maxPartialAggregationMemorySize = taskManagerConfig.getMaxPartialAggregationMemoryUsage();
         this.maxPagePartitioningBufferSize = taskManagerConfig.getMaxPagePartitioningBufferSize();
         this.maxPagePartitioningBufferCount = taskManagerConfig.getMaxPagePartitioningBufferCount();
@@ -499,7 +518,13 @@ public class LocalExecutionPlanner
             nullChannel = OptionalInt.of(outputLayout.indexOf(getOnlyElement(partitioningColumns)));
         }
 
-        return Optional.of(new OutputPartitioning(partitionFunction, partitionChannels, partitionConstants, partitioningScheme.isReplicateNullsAndAny(), nullChannel));
+        return Optional.of(new OutputPartitioning(
+                partitionFunction,
+                partitionChannels,
+                partitionConstants,
+                partitioningScheme.isReplicateNullsAndAny(),
+                nullChannel,
+                partitioningScheme.getSkewedPartitioning()));
     }
 
     @VisibleForTesting
@@ -536,7 +561,13 @@ public class LocalExecutionPlanner
                                 outputTypes,
                                 pagePreprocessor,
                                 outputPartitioning,
-                                new PagesSerdeFactory(blockEncodingSerde, isExchangeCompressionEnabled(session))))
+                                new PagesSerdeFactory(
+                                        blockEncodingSerde,
+                                        isExchangeCompressionEnabled(session),
+                                        getExchangeCompressionCodec(session),
+                                        getExchangeCompressionZstdLevel(session),
+                                        isExchangeAdaptiveCompressionEnabled(session),
+                                        pageCompressionStats)))
                         .build(),
                 context.getDriverInstanceCount(),
                 physicalOperation.getPipelineExecutionStrategy());
@@ -593,6 +624,9 @@ public class LocalExecutionPlanner
         // this is shared with all subContexts
         private final AtomicInteger nextPipelineId;
         private final TableWriteInfo tableWriteInfo;
+        // dynamic filters waiting for the probe side table scan they apply to, shared with all subContexts
+        private final Map<PlanNodeId, List<DynamicFilterTarget>> pendingDynamicFilters;
+        private final Set<JoinDynamicFilter> appliedDynamicFilters;
 
         private int nextOperatorId;
         private boolean inputDriver = true;
@@ -600,7 +634,7 @@ public class LocalExecutionPlanner
 
         public LocalExecutionPlanContext(TaskContext taskContext, TableWriteInfo tableWriteInfo)
         {
-            this(taskContext, new ArrayList<>(), Optional.empty(), new AtomicInteger(0), tableWriteInfo);
+            this(taskContext, new ArrayList<>(), Optional.empty(), new AtomicInteger(0), tableWriteInfo, new HashMap<>(), newIdentityHashSet());
         }
 
         private LocalExecutionPlanContext(
@@ -608,13 +642,17 @@ public class LocalExecutionPlanner
                 List<DriverFactory> driverFactories,
                 Optional<IndexSourceContext> indexSourceContext,
                 AtomicInteger nextPipelineId,
-                TableWriteInfo tableWriteInfo)
+                TableWriteInfo tableWriteInfo,
+                Map<PlanNodeId, List<DynamicFilterTarget>> pendingDynamicFilters,
+                Set<JoinDynamicFilter> appliedDynamicFilters)
         {
             this.taskContext = taskContext;
             this.driverFactories = driverFactories;
             this.indexSourceContext = indexSourceContext;
             this.nextPipelineId = nextPipelineId;
             this.tableWriteInfo = tableWriteInfo;
+            this.pendingDynamicFilters = pendingDynamicFilters;
+            this.appliedDynamicFilters = appliedDynamicFilters;
         }
 
         public void addDriverFactory(boolean inputDriver, boolean outputDriver, List<OperatorFactory> operatorFactories, OptionalInt driverInstances, PipelineExecutionStrategy pipelineExecutionStrategy)
@@ -679,12 +717,32 @@ public class LocalExecutionPlanner
         public LocalExecutionPlanContext createSubContext()
         {
             checkState(!indexSourceContext.isPresent(), "index build plan can not have sub-contexts");
-            return new LocalExecutionPlanContext(taskContext, driverFactories, indexSourceContext, nextPipelineId, tableWriteInfo);
+            return new LocalExecutionPlanContext(taskContext, driverFactories, indexSourceContext, nextPipelineId, tableWriteInfo, pendingDynamicFilters, appliedDynamicFilters);
         }
 
         public LocalExecutionPlanContext createIndexSourceSubContext(IndexSourceContext indexSourceContext)
         {
-            return new LocalExecutionPlanContext(taskContext, driverFactories, Optional.of(indexSourceContext), nextPipelineId, tableWriteInfo);
+            return new LocalExecutionPlanContext(taskContext, driverFactories, Optional.of(indexSourceContext), nextPipelineId, tableWriteInfo, pendingDynamicFilters, appliedDynamicFilters);
+        }
+
+        public void addDynamicFilterTarget(PlanNodeId tableScanId, DynamicFilterTarget target)
+        {
+            pendingDynamicFilters.computeIfAbsent(tableScanId, id -> new ArrayList<>()).add(target);
+        }
+
+        public List<DynamicFilterTarget> takeDynamicFilterTargets(PlanNodeId tableScanId)
+        {
+            List<DynamicFilterTarget> targets = pendingDynamicFilters.remove(tableScanId);
+            if (targets == null) {
+                return ImmutableList.of();
+            }
+            targets.forEach(target -> appliedDynamicFilters.add(target.getFilter()));
+            return targets;
+        }
+
+        public boolean isDynamicFilterApplied(JoinDynamicFilter filter)
+        {
+            return appliedDynamicFilters.contains(filter);
         }
 
         public OptionalInt getDriverInstanceCount()
@@ -702,6 +760,35 @@ public class LocalExecutionPlanner
         }
     }
 
+    private static class DynamicFilterTarget
+    {
+        private final JoinDynamicFilter filter;
+        private final int keyIndex;
+        private final VariableReferenceExpression variable;
+
+        public DynamicFilterTarget(JoinDynamicFilter filter, int keyIndex, VariableReferenceExpression variable)
+        {
+            this.filter = requireNonNull(filter, "filter is null");
+            this.keyIndex = keyIndex;
+            this.variable = requireNonNull(variable, "variable is null");
+        }
+
+        public JoinDynamicFilter getFilter()
+        {
+            return filter;
+        }
+
+        public int getKeyIndex()
+        {
+            return keyIndex;
+        }
+
+        public VariableReferenceExpression getVariable()
+        {
+            return variable;
+        }
+    }
+
     private static class IndexSourceContext
     {
         private final SetMultimap<VariableReferenceExpression, Integer> indexLookupToProbeInput;
@@ -924,7 +1011,9 @@ public class LocalExecutionPlanner
                     node.isPartial(),
                     hashChannel,
                     1000,
-                    joinCompiler);
+                    joinCompiler,
+                    isSpillEnabled(context.getSession()) && isSpillTopNRowNumber(context.getSession()),
+                    partitioningSpillerFactory);
 
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, source);
         }
@@ -1010,7 +1099,10 @@ public class LocalExecutionPlanner
                     sortOrder,
                     node.getPreSortedOrderPrefix(),
                     10_000,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    isSpillEnabled(context.getSession()) && isSpillWindowOperator(context.getSession()),
+                    spillerFactory,
+                    orderingCompiler);
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), context, source);
         }
@@ -1067,7 +1159,10 @@ public class LocalExecutionPlanner
                     10_000,
                     orderByChannels,
                     sortOrder.build(),
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    isSpillEnabled(context.getSession()) && isSpillOrderBy(context.getSession()),
+                    spillerFactory,
+                    orderingCompiler);
 
             return new PhysicalOperation(operator, source.getLayout(), context, source);
         }
@@ -1295,7 +1390,8 @@ public class LocalExecutionPlanner
                             columns,
                             projections.stream().map(RowExpression::getType).collect(toImmutableList()),
                             getFilterAndProjectMinOutputPageSize(session),
-                            getFilterAndProjectMinOutputPageRowCount(session));
+                            getFilterAndProjectMinOutputPageRowCount(session),
+                            createDynamicPageFilter(sourceNode.getId(), sourceLayout, context));
 
                     return new PhysicalOperation(operatorFactory, outputMappings, context, stageExecutionDescriptor.isScanGroupedExecution(sourceNode.getId()) ? GROUPED_EXECUTION : UNGROUPED_EXECUTION);
                 }
@@ -1352,8 +1448,26 @@ public class LocalExecutionPlanner
             else {
                 tableHandle = node.getTable();
             }
-            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, tableHandle, columns);
-            return new PhysicalOperation(operatorFactory, makeLayout(node), context, stageExecutionDescriptor.isScanGroupedExecution(node.getId()) ? GROUPED_EXECUTION : UNGROUPED_EXECUTION);
+            ImmutableMap<VariableReferenceExpression, Integer> layout = makeLayout(node);
+            OperatorFactory operatorFactory = new TableScanOperatorFactory(
+                    context.getNextOperatorId(),
+                    node.getId(),
+                    pageSourceProvider,
+                    tableHandle,
+                    columns,
+                    createDynamicPageFilter(node.getId(), layout, context));
+            return new PhysicalOperation(operatorFactory, layout, context, stageExecutionDescriptor.isScanGroupedExecution(node.getId()) ? GROUPED_EXECUTION : UNGROUPED_EXECUTION);
+        }
+
+        private Optional<DynamicPageFilter> createDynamicPageFilter(PlanNodeId tableScanId, Map<VariableReferenceExpression, Integer> layout, LocalExecutionPlanContext context)
+        {
+            List<DynamicFilterTarget> targets = context.takeDynamicFilterTargets(tableScanId);
+            if (targets.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(new DynamicPageFilter(targets.stream()
+                    .map(target -> new DynamicPageFilter.Target(target.getFilter(), target.getKeyIndex(), layout.get(target.getVariable())))
+                    .collect(toImmutableList())));
         }
 
         @Override
@@ -2024,12 +2138,17 @@ public class LocalExecutionPlanner
                 Optional<VariableReferenceExpression> buildHashVariable,
                 LocalExecutionPlanContext context)
         {
+            Optional<JoinDynamicFilter> dynamicFilter = registerDynamicFilter(node, probeVariables, context);
+
             // Plan probe
             PhysicalOperation probeSource = probeNode.accept(this, context);
 
+            // Only collect the build side keys if a probe side table scan picked up the filter
+            dynamicFilter = dynamicFilter.filter(context::isDynamicFilterApplied);
+
             // Plan build
             JoinBridgeManager<PartitionedLookupSourceFactory> lookupSourceFactory =
-                    createLookupSourceFactory(node, buildNode, buildVariables, buildHashVariable, probeSource, context);
+                    createLookupSourceFactory(node, buildNode, buildVariables, buildHashVariable, probeSource, dynamicFilter, context);
 
             OperatorFactory operator = createLookupJoin(node, probeSource, probeVariables, probeHashVariable, lookupSourceFactory, context);
 
@@ -2042,12 +2161,41 @@ public class LocalExecutionPlanner
             return new PhysicalOperation(operator, outputMappings.build(), context, probeSource);
         }
 
+        private Optional<JoinDynamicFilter> registerDynamicFilter(
+                JoinNode node,
+                List<VariableReferenceExpression> probeVariables,
+                LocalExecutionPlanContext context)
+        {
+            // Grouped execution builds a lookup source per lifespan, which a single filter can not follow
+            Map<VariableReferenceExpression, PlanNodeId> probeScans = Maps.filterValues(
+                    node.getDynamicFilterTargets(),
+                    tableScanId -> !stageExecutionDescriptor.isScanGroupedExecution(tableScanId));
+            if (probeScans.isEmpty()) {
+                return Optional.empty();
+            }
+
+            JoinDynamicFilter dynamicFilter = new JoinDynamicFilter(
+                    probeVariables.stream()
+                            .map(VariableReferenceExpression::getType)
+                            .collect(toImmutableList()),
+                    getDynamicFilteringMaxDistinctValues(session));
+            for (int keyIndex = 0; keyIndex < probeVariables.size(); keyIndex++) {
+                VariableReferenceExpression probeVariable = probeVariables.get(keyIndex);
+                PlanNodeId probeScanId = probeScans.get(probeVariable);
+                if (probeScanId != null) {
+                    context.addDynamicFilterTarget(probeScanId, new DynamicFilterTarget(dynamicFilter, keyIndex, probeVariable));
+                }
+            }
+            return Optional.of(dynamicFilter);
+        }
+
         private JoinBridgeManager<PartitionedLookupSourceFactory> createLookupSourceFactory(
                 JoinNode node,
                 PlanNode buildNode,
                 List<VariableReferenceExpression> buildVariables,
                 Optional<VariableReferenceExpression> buildHashVariable,
                 PhysicalOperation probeSource,
+                Optional<JoinDynamicFilter> dynamicFilter,
                 LocalExecutionPlanContext context)
         {
             LocalExecutionPlanContext buildContext = context.createSubContext();
@@ -2070,6 +2218,7 @@ public class LocalExecutionPlanner
             boolean spillEnabled = isSpillEnabled(context.getSession());
             boolean buildOuter = node.getType() == RIGHT || node.getType() == FULL;
             int partitionCount = buildContext.getDriverInstanceCount().orElse(1);
+            dynamicFilter.ifPresent(filter -> filter.setPartitionCount(partitionCount));
 
             Optional<JoinFilterFunctionFactory> filterFunctionFactory = node.getFilter()
                     .map(filterExpression -> compileJoinFilterFunction(
@@ -2128,7 +2277,8 @@ public class LocalExecutionPlanner
                     10_000,
                     pagesIndexFactory,
                     spillEnabled && !buildOuter && partitionCount > 1,
-                    singleStreamSpillerFactory);
+                    singleStreamSpillerFactory,
+                    dynamicFilter);
 
             context.addDriverFactory(
                     buildContext.isInputDriver(),
@@ -2888,6 +3038,12 @@ public class LocalExecutionPlanner
             }
             else {
                 Optional<Integer> hashChannel = hashVariable.map(variableChannelGetter(source));
+                Optional<PartialAggregationController> partialAggregationController = Optional.empty();
+                if (step == Step.PARTIAL && isAdaptivePartialAggregationEnabled(session)) {
+                    partialAggregationController = Optional.of(new PartialAggregationController(
+                            getAdaptivePartialAggregationMinRows(session),
+                            getAdaptivePartialAggregationReductionRatioThreshold(session)));
+                }
                 return new HashAggregationOperatorFactory(
                         context.getNextOperatorId(),
                         planNodeId,
@@ -2905,7 +3061,8 @@ public class LocalExecutionPlanner
                         unspillMemoryLimit,
                         spillerFactory,
                         joinCompiler,
-                        useSystemMemory);
+                        useSystemMemory,
+                        partialAggregationController);
             }
         }
     }
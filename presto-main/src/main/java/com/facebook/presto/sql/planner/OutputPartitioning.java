@@ -30,6 +30,7 @@ public class OutputPartitioning
     private final List<Optional<ConstantExpression>> partitionConstants;
     private final boolean replicateNullsAndAny;
     private final OptionalInt nullChannel;
+    private final Optional<SkewedPartitioning> skewedPartitioning;
 
     public OutputPartitioning(
             PartitionFunction partitionFunction,
@@ -37,12 +38,24 @@ public class OutputPartitioning
             List<Optional<ConstantExpression>> partitionConstants,
             boolean replicateNullsAndAny,
             OptionalInt nullChannel)
+    {
+        this(partitionFunction, partitionChannels, partitionConstants, replicateNullsAndAny, nullChannel, Optional.empty());
+    }
+
+    public OutputPartitioning(
+            PartitionFunction partitionFunction,
+            List<Integer> partitionChannels,
+            List<Optional<ConstantExpression>> partitionConstants,
+            boolean replicateNullsAndAny,
+            OptionalInt nullChannel,
+            Optional<SkewedPartitioning> skewedPartitioning)
     {
         this.partitionFunction = requireNonNull(partitionFunction, "partitionFunction is null");
         this.partitionChannels = ImmutableList.copyOf(requireNonNull(partitionChannels, "partitionChannels is null"));
         this.partitionConstants = ImmutableList.copyOf(requireNonNull(partitionConstants, "partitionConstants is null"));
         this.replicateNullsAndAny = replicateNullsAndAny;
         this.nullChannel = requireNonNull(nullChannel, "nullChannel is null");
+        this.skewedPartitioning = requireNonNull(skewedPartitioning, "skewedPartitioning is null");
     }
 
     public PartitionFunction getPartitionFunction()
@@ -69,4 +82,9 @@ public class OutputPartitioning
     {
         return nullChannel;
     }
+
+    public Optional<SkewedPartitioning> getSkewedPartitioning()
+    {
+        return skewedPartitioning;
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Describes how the two hash partitioned inputs of a join deal with partitions that receive much more
+ * rows than the others. The probe side spreads the rows of such a partition round robin across the
+ * spread factor consecutive partitions starting at it, and the build side sends every row to all of the
+ * partitions its probe rows may be spread to, so every probe row still finds all matching build rows.
+ */
+public class SkewedPartitioning
+{
+    public enum Mode
+    {
+        SPREAD_SKEWED_PARTITIONS,
+        REPLICATE_TO_SPREAD_PARTITIONS,
+    }
+
+    private final Mode mode;
+    private final int spreadFactor;
+
+    @JsonCreator
+    public SkewedPartitioning(
+            @JsonProperty("mode") Mode mode,
+            @JsonProperty("spreadFactor") int spreadFactor)
+    {
+        this.mode = requireNonNull(mode, "mode is null");
+        checkArgument(spreadFactor > 1, "spreadFactor must be greater than one");
+        this.spreadFactor = spreadFactor;
+    }
+
+    @JsonProperty
+    public Mode getMode()
+    {
+        return mode;
+    }
+
+    @JsonProperty
+    public int getSpreadFactor()
+    {
+        return spreadFactor;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SkewedPartitioning that = (SkewedPartitioning) o;
+        return mode == that.mode &&
+                spreadFactor == that.spreadFactor;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(mode, spreadFactor);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("mode", mode)
+                .add("spreadFactor", spreadFactor)
+                .toString();
+    }
+}
@@ -182,7 +182,8 @@ public class PushPartialAggregationThroughExchange
                 aggregationOutputs,
                 exchange.getPartitioningScheme().getHashColumn(),
                 exchange.getPartitioningScheme().isReplicateNullsAndAny(),
-                exchange.getPartitioningScheme().getBucketToPartition());
+                exchange.getPartitioningScheme().getBucketToPartition(),
+                exchange.getPartitioningScheme().getSkewedPartitioning());
 
         return new ExchangeNode(
                 context.getIdAllocator().getNextId(),
@@ -0,0 +1,101 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.execution.warnings.WarningCollector;
+import com.facebook.presto.spi.plan.FilterNode;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spi.plan.PlanNodeIdAllocator;
+import com.facebook.presto.spi.plan.ProjectNode;
+import com.facebook.presto.spi.plan.TableScanNode;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.planner.PlanVariableAllocator;
+import com.facebook.presto.sql.planner.TypeProvider;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.SimplePlanRewriter;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.isEnableDynamicFiltering;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Decides which probe side table scans of a hash join are filtered with the join keys collected
+ * from the build side, and records them in {@link JoinNode#getDynamicFilterTargets()}. A probe row
+ * without a match is dropped by INNER and RIGHT joins, so it is safe to drop it while scanning,
+ * as long as only filters and identity projections of the join key sit between the scan and the join.
+ * <p>
+ * The build side values are only handed to scans of the same task, so this must run after all
+ * exchanges have been added, and the scans referenced by id must not be rewritten afterwards.
+ */
+public class AddDynamicFilters
+        implements PlanOptimizer
+{
+    @Override
+    public PlanNode optimize(PlanNode plan, Session session, TypeProvider types, PlanVariableAllocator variableAllocator, PlanNodeIdAllocator idAllocator, WarningCollector warningCollector)
+    {
+        requireNonNull(plan, "plan is null");
+        requireNonNull(session, "session is null");
+
+        if (!isEnableDynamicFiltering(session)) {
+            return plan;
+        }
+        return SimplePlanRewriter.rewriteWith(new Rewriter(), plan);
+    }
+
+    private static class Rewriter
+            extends SimplePlanRewriter<Void>
+    {
+        @Override
+        public PlanNode visitJoin(JoinNode node, RewriteContext<Void> context)
+        {
+            JoinNode rewritten = (JoinNode) context.defaultRewrite(node);
+            if ((rewritten.getType() != INNER && rewritten.getType() != RIGHT) || rewritten.getCriteria().isEmpty()) {
+                return rewritten;
+            }
+
+            ImmutableMap.Builder<VariableReferenceExpression, PlanNodeId> targets = ImmutableMap.builder();
+            rewritten.getCriteria().stream()
+                    .map(JoinNode.EquiJoinClause::getLeft)
+                    .distinct()
+                    .forEach(variable -> findScan(rewritten.getLeft(), variable).ifPresent(scan -> targets.put(variable, scan.getId())));
+            return rewritten.withDynamicFilterTargets(targets.build());
+        }
+
+        private static Optional<TableScanNode> findScan(PlanNode node, VariableReferenceExpression variable)
+        {
+            if (node instanceof TableScanNode) {
+                if (node.getOutputVariables().contains(variable)) {
+                    return Optional.of((TableScanNode) node);
+                }
+                return Optional.empty();
+            }
+            if (node instanceof FilterNode) {
+                return findScan(((FilterNode) node).getSource(), variable);
+            }
+            if (node instanceof ProjectNode) {
+                ProjectNode project = (ProjectNode) node;
+                if (variable.equals(project.getAssignments().get(variable))) {
+                    return findScan(project.getSource(), variable);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.execution.warnings.WarningCollector;
+import com.facebook.presto.spi.plan.FilterNode;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.plan.PlanNodeIdAllocator;
+import com.facebook.presto.spi.plan.ProjectNode;
+import com.facebook.presto.sql.planner.PartitioningScheme;
+import com.facebook.presto.sql.planner.PlanVariableAllocator;
+import com.facebook.presto.sql.planner.SkewedPartitioning;
+import com.facebook.presto.sql.planner.TypeProvider;
+import com.facebook.presto.sql.planner.plan.ExchangeNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.SimplePlanRewriter;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.getExchangeMaterializationStrategy;
+import static com.facebook.presto.SystemSessionProperties.getSkewedJoinSpreadFactor;
+import static com.facebook.presto.execution.QueryManagerConfig.ExchangeMaterializationStrategy.NONE;
+import static com.facebook.presto.sql.planner.SkewedPartitioning.Mode.REPLICATE_TO_SPREAD_PARTITIONS;
+import static com.facebook.presto.sql.planner.SkewedPartitioning.Mode.SPREAD_SKEWED_PARTITIONS;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
+import static com.facebook.presto.sql.planner.plan.ExchangeNode.Scope.REMOTE_STREAMING;
+import static com.facebook.presto.sql.planner.plan.ExchangeNode.Type.REPARTITION;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lets partitioned inner and left joins cope with skewed join keys. The remote exchange of the probe side
+ * spreads the rows of partitions it finds skewed across several partitions, and the remote exchange of the
+ * build side sends every row to all of the partitions the matching probe rows may be spread to.
+ * <p>
+ * The output of such a join is no longer partitioned on the join keys, so the join is only rewritten when
+ * nothing between it and the next remote exchange relies on that partitioning.
+ */
+public class SpreadSkewedJoinPartitions
+        implements PlanOptimizer
+{
+    @Override
+    public PlanNode optimize(PlanNode plan, Session session, TypeProvider types, PlanVariableAllocator variableAllocator, PlanNodeIdAllocator idAllocator, WarningCollector warningCollector)
+    {
+        requireNonNull(plan, "plan is null");
+        requireNonNull(session, "session is null");
+
+        int spreadFactor = getSkewedJoinSpreadFactor(session);
+        // materialized exchanges are bucketed by the connector and cannot spread partitions
+        if (spreadFactor <= 1 || getExchangeMaterializationStrategy(session) != NONE) {
+            return plan;
+        }
+        return SimplePlanRewriter.rewriteWith(new Rewriter(spreadFactor), plan, false);
+    }
+
+    /**
+     * The context tells whether the partitioning of the output of the node does not matter to its ancestors.
+     */
+    private static class Rewriter
+            extends SimplePlanRewriter<Boolean>
+    {
+        private final int spreadFactor;
+
+        private Rewriter(int spreadFactor)
+        {
+            this.spreadFactor = spreadFactor;
+        }
+
+        @Override
+        public PlanNode visitPlan(PlanNode node, RewriteContext<Boolean> context)
+        {
+            return context.defaultRewrite(node, false);
+        }
+
+        @Override
+        public PlanNode visitProject(ProjectNode node, RewriteContext<Boolean> context)
+        {
+            return context.defaultRewrite(node, context.get());
+        }
+
+        @Override
+        public PlanNode visitFilter(FilterNode node, RewriteContext<Boolean> context)
+        {
+            return context.defaultRewrite(node, context.get());
+        }
+
+        @Override
+        public PlanNode visitExchange(ExchangeNode node, RewriteContext<Boolean> context)
+        {
+            return context.defaultRewrite(node, node.getScope().isRemote() || context.get());
+        }
+
+        @Override
+        public PlanNode visitJoin(JoinNode node, RewriteContext<Boolean> context)
+        {
+            JoinNode rewritten = (JoinNode) context.defaultRewrite(node, false);
+            if (!context.get() ||
+                    (rewritten.getType() != INNER && rewritten.getType() != LEFT) ||
+                    rewritten.getCriteria().isEmpty() ||
+                    !rewritten.getDistributionType().equals(Optional.of(PARTITIONED))) {
+                return rewritten;
+            }
+
+            Optional<PlanNode> left = spreadRemoteExchange(rewritten.getLeft(), new SkewedPartitioning(SPREAD_SKEWED_PARTITIONS, spreadFactor));
+            Optional<PlanNode> right = spreadRemoteExchange(rewritten.getRight(), new SkewedPartitioning(REPLICATE_TO_SPREAD_PARTITIONS, spreadFactor));
+            if (!left.isPresent() || !right.isPresent()) {
+                return rewritten;
+            }
+            return rewritten.replaceChildren(ImmutableList.of(left.get(), right.get()));
+        }
+
+        private static Optional<PlanNode> spreadRemoteExchange(PlanNode node, SkewedPartitioning skewedPartitioning)
+        {
+            if (node instanceof ExchangeNode && ((ExchangeNode) node).getScope().isRemote()) {
+                ExchangeNode exchange = (ExchangeNode) node;
+                PartitioningScheme partitioningScheme = exchange.getPartitioningScheme();
+                if (exchange.getType() != REPARTITION ||
+                        exchange.getScope() != REMOTE_STREAMING ||
+                        !partitioningScheme.getPartitioning().getHandle().equals(FIXED_HASH_DISTRIBUTION) ||
+                        partitioningScheme.isReplicateNullsAndAny() ||
+                        partitioningScheme.getSkewedPartitioning().isPresent()) {
+                    return Optional.empty();
+                }
+                return Optional.of(new ExchangeNode(
+                        exchange.getId(),
+                        exchange.getType(),
+                        exchange.getScope(),
+                        partitioningScheme.withSkewedPartitioning(Optional.of(skewedPartitioning)),
+                        exchange.getSources(),
+                        exchange.getInputs(),
+                        exchange.isEnsureSourceOrdering(),
+                        exchange.getOrderingScheme()));
+            }
+
+            // local exchanges, projections and filters keep the rows in the partition they were sent to
+            if (node instanceof ExchangeNode || node instanceof ProjectNode || node instanceof FilterNode) {
+                if (node.getSources().size() != 1) {
+                    return Optional.empty();
+                }
+                return spreadRemoteExchange(getOnlyElement(node.getSources()), skewedPartitioning)
+                        .map(source -> node.replaceChildren(ImmutableList.of(source)));
+            }
+            return Optional.empty();
+        }
+    }
+}
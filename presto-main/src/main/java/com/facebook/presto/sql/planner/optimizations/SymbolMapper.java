@@ -280,7 +280,8 @@ public class SymbolMapper
                 mapAndDistinctVariable(source.getOutputVariables()),
                 scheme.getHashColumn().map(this::map),
                 scheme.isReplicateNullsAndAny(),
-                scheme.getBucketToPartition());
+                scheme.getBucketToPartition(),
+                scheme.getSkewedPartitioning());
     }
 
     private StatisticAggregations map(StatisticAggregations statisticAggregations)
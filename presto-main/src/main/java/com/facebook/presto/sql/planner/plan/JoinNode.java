@@ -22,12 +22,14 @@ import com.facebook.presto.sql.planner.SortExpressionContext;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
 import javax.annotation.concurrent.Immutable;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -42,6 +44,7 @@ import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
@@ -58,6 +61,22 @@ public class JoinNode
     private final Optional<VariableReferenceExpression> leftHashVariable;
     private final Optional<VariableReferenceExpression> rightHashVariable;
     private final Optional<DistributionType> distributionType;
+    // probe side join key -> probe side table scan filtered with the build side values of that key
+    private final Map<VariableReferenceExpression, PlanNodeId> dynamicFilterTargets;
+
+    public JoinNode(PlanNodeId id,
+            Type type,
+            PlanNode left,
+            PlanNode right,
+            List<EquiJoinClause> criteria,
+            List<VariableReferenceExpression> outputVariables,
+            Optional<RowExpression> filter,
+            Optional<VariableReferenceExpression> leftHashVariable,
+            Optional<VariableReferenceExpression> rightHashVariable,
+            Optional<DistributionType> distributionType)
+    {
+        this(id, type, left, right, criteria, outputVariables, filter, leftHashVariable, rightHashVariable, distributionType, ImmutableMap.of());
+    }
 
     @JsonCreator
     public JoinNode(@JsonProperty("id") PlanNodeId id,
@@ -69,7 +88,8 @@ public class JoinNode
             @JsonProperty("filter") Optional<RowExpression> filter,
             @JsonProperty("leftHashVariable") Optional<VariableReferenceExpression> leftHashVariable,
             @JsonProperty("rightHashVariable") Optional<VariableReferenceExpression> rightHashVariable,
-            @JsonProperty("distributionType") Optional<DistributionType> distributionType)
+            @JsonProperty("distributionType") Optional<DistributionType> distributionType,
+            @JsonProperty("dynamicFilterTargets") Map<VariableReferenceExpression, PlanNodeId> dynamicFilterTargets)
     {
         super(id);
         requireNonNull(type, "type is null");
@@ -81,6 +101,7 @@ public class JoinNode
         requireNonNull(leftHashVariable, "leftHashVariable is null");
         requireNonNull(rightHashVariable, "rightHashVariable is null");
         requireNonNull(distributionType, "distributionType is null");
+        requireNonNull(dynamicFilterTargets, "dynamicFilterTargets is null");
 
         this.type = type;
         this.left = left;
@@ -91,6 +112,7 @@ public class JoinNode
         this.leftHashVariable = leftHashVariable;
         this.rightHashVariable = rightHashVariable;
         this.distributionType = distributionType;
+        this.dynamicFilterTargets = ImmutableMap.copyOf(dynamicFilterTargets);
 
         Set<VariableReferenceExpression> inputVariables = ImmutableSet.<VariableReferenceExpression>builder()
                 .addAll(left.getOutputVariables())
@@ -116,6 +138,9 @@ public class JoinNode
                     type,
                     distributionType.get());
         }
+        checkArgument(
+                criteria.stream().map(EquiJoinClause::getLeft).collect(toImmutableSet()).containsAll(dynamicFilterTargets.keySet()),
+                "Dynamic filters can only be applied to probe side join keys");
     }
 
     public JoinNode flipChildren()
@@ -275,6 +300,12 @@ public class JoinNode
         return distributionType;
     }
 
+    @JsonProperty
+    public Map<VariableReferenceExpression, PlanNodeId> getDynamicFilterTargets()
+    {
+        return dynamicFilterTargets;
+    }
+
     @Override
     public <R, C> R accept(InternalPlanVisitor<R, C> visitor, C context)
     {
@@ -285,12 +316,17 @@ public class JoinNode
     public PlanNode replaceChildren(List<PlanNode> newChildren)
     {
         checkArgument(newChildren.size() == 2, "expected newChildren to contain 2 nodes");
-        return new JoinNode(getId(), type, newChildren.get(0), newChildren.get(1), criteria, outputVariables, filter, leftHashVariable, rightHashVariable, distributionType);
+        return new JoinNode(getId(), type, newChildren.get(0), newChildren.get(1), criteria, outputVariables, filter, leftHashVariable, rightHashVariable, distributionType, dynamicFilterTargets);
     }
 
     public JoinNode withDistributionType(DistributionType distributionType)
     {
-        return new JoinNode(getId(), type, left, right, criteria, outputVariables, filter, leftHashVariable, rightHashVariable, Optional.of(distributionType));
+        return new JoinNode(getId(), type, left, right, criteria, outputVariables, filter, leftHashVariable, rightHashVariable, Optional.of(distributionType), dynamicFilterTargets);
+    }
+
+    public JoinNode withDynamicFilterTargets(Map<VariableReferenceExpression, PlanNodeId> dynamicFilterTargets)
+    {
+        return new JoinNode(getId(), type, left, right, criteria, outputVariables, filter, leftHashVariable, rightHashVariable, distributionType, dynamicFilterTargets);
     }
 
     public boolean isCrossJoin()
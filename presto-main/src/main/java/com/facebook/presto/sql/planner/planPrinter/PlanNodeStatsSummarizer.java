@@ -15,7 +15,10 @@ package com.facebook.presto.sql.planner.planPrinter;
 
 import com.facebook.presto.execution.StageInfo;
 import com.facebook.presto.execution.TaskInfo;
+import com.facebook.presto.operator.DynamicFilterInfo;
+import com.facebook.presto.operator.HashAggregationInfo;
 import com.facebook.presto.operator.HashCollisionsInfo;
+import com.facebook.presto.operator.OperatorInfo;
 import com.facebook.presto.operator.OperatorStats;
 import com.facebook.presto.operator.PipelineStats;
 import com.facebook.presto.operator.TaskStats;
@@ -29,6 +32,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 import static com.facebook.presto.util.MoreMaps.mergeMaps;
@@ -84,6 +88,7 @@ public class PlanNodeStatsSummarizer
         Map<PlanNodeId, Map<String, OperatorInputStats>> operatorInputStats = new HashMap<>();
         Map<PlanNodeId, Map<String, OperatorHashCollisionsStats>> operatorHashCollisionsStats = new HashMap<>();
         Map<PlanNodeId, WindowOperatorStats> windowNodeStats = new HashMap<>();
+        Map<PlanNodeId, DynamicFilterInfo> dynamicFilterInfos = new HashMap<>();
 
         for (PipelineStats pipelineStats : taskStats.getPipelines()) {
             // Due to eventual consistently collected stats, these could be empty
@@ -123,15 +128,15 @@ public class PlanNodeStatsSummarizer
                                         operatorStats.getSumSquaredInputPositions())),
                         (map1, map2) -> mergeMaps(map1, map2, OperatorInputStats::merge));
 
-                if (operatorStats.getInfo() instanceof HashCollisionsInfo) {
-                    HashCollisionsInfo hashCollisionsInfo = (HashCollisionsInfo) operatorStats.getInfo();
+                Optional<HashCollisionsInfo> hashCollisionsInfo = getHashCollisionsInfo(operatorStats.getInfo());
+                if (hashCollisionsInfo.isPresent()) {
                     operatorHashCollisionsStats.merge(planNodeId,
                             ImmutableMap.of(
                                     operatorStats.getOperatorType(),
                                     new OperatorHashCollisionsStats(
-                                            hashCollisionsInfo.getWeightedHashCollisions(),
-                                            hashCollisionsInfo.getWeightedSumSquaredHashCollisions(),
-                                            hashCollisionsInfo.getWeightedExpectedHashCollisions())),
+                                            hashCollisionsInfo.get().getWeightedHashCollisions(),
+                                            hashCollisionsInfo.get().getWeightedSumSquaredHashCollisions(),
+                                            hashCollisionsInfo.get().getWeightedExpectedHashCollisions())),
                             (map1, map2) -> mergeMaps(map1, map2, OperatorHashCollisionsStats::merge));
                 }
 
@@ -141,6 +146,10 @@ public class PlanNodeStatsSummarizer
                     windowNodeStats.merge(planNodeId, WindowOperatorStats.create(windowInfo), (left, right) -> left.mergeWith(right));
                 }
 
+                if (operatorStats.getInfo() instanceof DynamicFilterInfo) {
+                    dynamicFilterInfos.merge(planNodeId, (DynamicFilterInfo) operatorStats.getInfo(), DynamicFilterInfo::mergeWith);
+                }
+
                 planNodeInputPositions.merge(planNodeId, operatorStats.getInputPositions(), Long::sum);
                 planNodeInputBytes.merge(planNodeId, operatorStats.getInputDataSize().toBytes(), Long::sum);
 
@@ -211,6 +220,22 @@ public class PlanNodeStatsSummarizer
                         operatorInputStats.get(planNodeId),
                         windowNodeStats.get(planNodeId));
             }
+            else if (dynamicFilterInfos.containsKey(planNodeId)) {
+                DynamicFilterInfo dynamicFilterInfo = dynamicFilterInfos.get(planNodeId);
+                nodeStats = new DynamicFilterPlanNodeStats(
+                        planNodeId,
+                        new Duration(planNodeScheduledMillis.get(planNodeId), MILLISECONDS),
+                        new Duration(planNodeCpuMillis.get(planNodeId), MILLISECONDS),
+                        planNodeInputPositions.get(planNodeId),
+                        succinctDataSize(planNodeInputBytes.get(planNodeId), BYTE),
+                        planNodeRawInputPositions.get(planNodeId),
+                        succinctDataSize(planNodeRawInputBytes.get(planNodeId), BYTE),
+                        outputPositions,
+                        succinctDataSize(planNodeOutputBytes.getOrDefault(planNodeId, 0L), BYTE),
+                        operatorInputStats.get(planNodeId),
+                        dynamicFilterInfo.getInputPositions(),
+                        dynamicFilterInfo.getFilteredPositions());
+            }
             else {
                 nodeStats = new PlanNodeStats(
                         planNodeId,
@@ -229,4 +254,15 @@ public class PlanNodeStatsSummarizer
         }
         return stats;
     }
+
+    private static Optional<HashCollisionsInfo> getHashCollisionsInfo(OperatorInfo info)
+    {
+        if (info instanceof HashCollisionsInfo) {
+            return Optional.of((HashCollisionsInfo) info);
+        }
+        if (info instanceof HashAggregationInfo) {
+            return Optional.of(((HashAggregationInfo) info).getHashCollisionsInfo());
+        }
+        return Optional.empty();
+    }
 }
@@ -121,6 +121,10 @@ public class TextRenderer
             printWindowOperatorStats(output, ((WindowPlanNodeStats) nodeStats).getWindowOperatorStats());
         }
 
+        if (nodeStats instanceof DynamicFilterPlanNodeStats) {
+            printDynamicFilterStats(output, (DynamicFilterPlanNodeStats) nodeStats);
+        }
+
         return output.toString();
     }
 
@@ -186,6 +190,16 @@ public class TextRenderer
         output.append(format("Size of partition: std.dev.: %s\n", formatDouble(stats.getPartitionRowsStdDev())));
     }
 
+    private static void printDynamicFilterStats(StringBuilder output, DynamicFilterPlanNodeStats stats)
+    {
+        long inputPositions = stats.getDynamicFilterInputPositions();
+        long filteredPositions = stats.getDynamicFilterFilteredPositions();
+        output.append(format("Dynamic filter: removed %s of %s (%s%%)\n",
+                formatPositions(filteredPositions),
+                formatPositions(inputPositions),
+                formatDouble(inputPositions == 0 ? 0 : 100.0d * filteredPositions / inputPositions)));
+    }
+
     private static Map<String, String> translateOperatorTypes(Set<String> operators)
     {
         if (operators.size() == 1) {
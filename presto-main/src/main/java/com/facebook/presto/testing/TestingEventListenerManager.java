@@ -16,6 +16,7 @@ package com.facebook.presto.testing;
 import com.facebook.presto.eventlistener.EventListenerManager;
 import com.facebook.presto.spi.eventlistener.EventListener;
 import com.facebook.presto.spi.eventlistener.EventListenerFactory;
+import com.facebook.presto.spi.eventlistener.LowMemoryKillerEvent;
 import com.facebook.presto.spi.eventlistener.QueryCompletedEvent;
 import com.facebook.presto.spi.eventlistener.QueryCreatedEvent;
 import com.facebook.presto.spi.eventlistener.SplitCompletedEvent;
@@ -58,4 +59,12 @@ public class TestingEventListenerManager
             configuredEventListener.get().get().splitCompleted(splitCompletedEvent);
         }
     }
+
+    @Override
+    public void lowMemoryKillerActed(LowMemoryKillerEvent lowMemoryKillerEvent)
+    {
+        if (configuredEventListener.get().isPresent()) {
+            configuredEventListener.get().get().lowMemoryKillerActed(lowMemoryKillerEvent);
+        }
+    }
 }
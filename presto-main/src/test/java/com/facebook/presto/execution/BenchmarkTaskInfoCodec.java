@@ -0,0 +1,315 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.airlift.json.JsonCodec;
+import com.facebook.presto.operator.DriverContext;
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.operator.PipelineContext;
+import com.facebook.presto.operator.TaskContext;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.net.URI;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.airlift.json.JsonCodec.jsonCodec;
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.execution.TaskState.RUNNING;
+import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+
+/**
+ * Measures the coordinator side decoding of a task info update of a task with many pipelines, when the update carries
+ * the stats of all pipelines, when it leaves out the finished pipelines the coordinator already has, and when it is
+ * also a delta that leaves out the operator summaries that did not change. It also measures the decoding of a task
+ * status with many completed driver groups, complete and as a delta.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkTaskInfoCodec
+{
+    private static final JsonCodec<TaskInfo> TASK_INFO_CODEC = jsonCodec(TaskInfo.class);
+    private static final JsonCodec<TaskStatus> TASK_STATUS_CODEC = jsonCodec(TaskStatus.class);
+    private static final int OPERATORS_PER_PIPELINE = 8;
+
+    @Benchmark
+    public TaskInfo decodeAllPipelines(BenchmarkData data)
+    {
+        return TASK_INFO_CODEC.fromJson(data.getAllPipelines()).withFinishedPipelinesFrom(data.getPreviousTaskInfo());
+    }
+
+    @Benchmark
+    public TaskInfo decodeWithoutFinishedPipelines(BenchmarkData data)
+    {
+        return TASK_INFO_CODEC.fromJson(data.getWithoutFinishedPipelines()).withFinishedPipelinesFrom(data.getPreviousTaskInfo());
+    }
+
+    @Benchmark
+    public TaskInfo decodeDelta(BenchmarkData data)
+    {
+        return TASK_INFO_CODEC.fromJson(data.getDelta())
+                .withOperatorSummariesFrom(data.getPreviousReceivedTaskInfo())
+                .withFinishedPipelinesFrom(data.getPreviousTaskInfo());
+    }
+
+    @Benchmark
+    public TaskStatus decodeTaskStatus(TaskStatusBenchmarkData data)
+    {
+        return TASK_STATUS_CODEC.fromJson(data.getTaskStatus());
+    }
+
+    @Benchmark
+    public TaskStatus decodeTaskStatusDelta(TaskStatusBenchmarkData data)
+    {
+        return TASK_STATUS_CODEC.fromJson(data.getDelta()).withCompletedDriverGroupsFrom(data.getPreviousTaskStatus());
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"10", "100"})
+        private int pipelineCount = 10;
+
+        // the last pipeline is still running
+        @Param({"0.5", "0.9"})
+        private double finishedPipelineRatio = 0.9;
+
+        private ExecutorService executor;
+        private ScheduledExecutorService scheduledExecutor;
+
+        private TaskInfo previousTaskInfo;
+        private TaskInfo previousReceivedTaskInfo;
+        private byte[] allPipelines;
+        private byte[] withoutFinishedPipelines;
+        private byte[] delta;
+
+        @Setup
+        public void setup()
+        {
+            executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
+            scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed("test-scheduledExecutor-%s"));
+
+            int finishedPipelineCount = Math.min((int) (pipelineCount * finishedPipelineRatio), pipelineCount - 1);
+            TaskContext taskContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION);
+            ImmutableSet.Builder<Integer> finishedPipelineIdsBuilder = ImmutableSet.builder();
+            ImmutableList.Builder<OperatorContext> outputOperatorContexts = ImmutableList.builder();
+            for (int pipelineId = 0; pipelineId < pipelineCount; pipelineId++) {
+                PipelineContext pipelineContext = taskContext.addPipelineContext(pipelineId, pipelineId == 0, pipelineId == pipelineCount - 1, false);
+                DriverContext driverContext = pipelineContext.addDriverContext();
+                for (int operatorId = 0; operatorId < OPERATORS_PER_PIPELINE; operatorId++) {
+                    OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, new PlanNodeId(pipelineId + "_" + operatorId), "BenchmarkOperator");
+                    if (operatorId == OPERATORS_PER_PIPELINE - 1) {
+                        outputOperatorContexts.add(operatorContext);
+                    }
+                }
+                if (pipelineId < finishedPipelineCount) {
+                    pipelineContext.noMoreDrivers();
+                    driverContext.finished();
+                    finishedPipelineIdsBuilder.add(pipelineId);
+                }
+            }
+            Set<Integer> finishedPipelineIds = finishedPipelineIdsBuilder.build();
+
+            previousTaskInfo = createTaskInfo(taskContext, finishedPipelineIds);
+            previousReceivedTaskInfo = previousTaskInfo.withoutFinishedPipelines(finishedPipelineIds);
+
+            // between two updates, the last operator of each running pipeline produces output
+            for (OperatorContext operatorContext : outputOperatorContexts.build()) {
+                operatorContext.recordOutput(1024, 100);
+            }
+            TaskInfo taskInfo = createTaskInfo(taskContext, finishedPipelineIds);
+            allPipelines = TASK_INFO_CODEC.toJsonBytes(taskInfo);
+            withoutFinishedPipelines = TASK_INFO_CODEC.toJsonBytes(taskInfo.withoutFinishedPipelines(finishedPipelineIds));
+            delta = TASK_INFO_CODEC.toJsonBytes(taskInfo.withoutFinishedPipelines(finishedPipelineIds).withoutOperatorSummariesOf(previousReceivedTaskInfo));
+        }
+
+        private static TaskInfo createTaskInfo(TaskContext taskContext, Set<Integer> finishedPipelineIds)
+        {
+            TaskInfo initialTaskInfo = TaskInfo.createInitialTask(
+                    taskContext.getTaskId(),
+                    URI.create("fake://task/" + taskContext.getTaskId()),
+                    ImmutableList.of(),
+                    taskContext.getTaskStats());
+            return new TaskInfo(
+                    initialTaskInfo.getTaskId(),
+                    initialTaskInfo.getTaskStatus(),
+                    initialTaskInfo.getLastHeartbeat(),
+                    initialTaskInfo.getOutputBuffers(),
+                    initialTaskInfo.getNoMoreSplits(),
+                    initialTaskInfo.getStats(),
+                    initialTaskInfo.isNeedsPlan(),
+                    finishedPipelineIds);
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            executor.shutdownNow();
+            scheduledExecutor.shutdownNow();
+        }
+
+        public TaskInfo getPreviousTaskInfo()
+        {
+            return previousTaskInfo;
+        }
+
+        public byte[] getAllPipelines()
+        {
+            return allPipelines;
+        }
+
+        public byte[] getWithoutFinishedPipelines()
+        {
+            return withoutFinishedPipelines;
+        }
+
+        public TaskInfo getPreviousReceivedTaskInfo()
+        {
+            return previousReceivedTaskInfo;
+        }
+
+        public byte[] getDelta()
+        {
+            return delta;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class TaskStatusBenchmarkData
+    {
+        // grouped execution of a bucketed table, one more group completes between two updates
+        @Param({"100", "1000"})
+        private int completedDriverGroupCount = 1000;
+
+        private TaskStatus previousTaskStatus;
+        private byte[] taskStatus;
+        private byte[] delta;
+
+        @Setup
+        public void setup()
+        {
+            previousTaskStatus = createTaskStatus(1, completedDriverGroupCount - 1);
+            TaskStatus taskStatus = createTaskStatus(2, completedDriverGroupCount);
+            this.taskStatus = TASK_STATUS_CODEC.toJsonBytes(taskStatus);
+            delta = TASK_STATUS_CODEC.toJsonBytes(taskStatus.withoutCompletedDriverGroupsOf(previousTaskStatus));
+        }
+
+        private static TaskStatus createTaskStatus(long version, int completedDriverGroupCount)
+        {
+            return new TaskStatus(
+                    "benchmark",
+                    version,
+                    RUNNING,
+                    URI.create("fake://task/0"),
+                    IntStream.range(0, completedDriverGroupCount)
+                            .mapToObj(Lifespan::driverGroup)
+                            .collect(toImmutableSet()),
+                    ImmutableList.of(),
+                    0,
+                    1,
+                    0.0,
+                    false,
+                    0,
+                    0,
+                    0,
+                    0,
+                    0);
+        }
+
+        public TaskStatus getPreviousTaskStatus()
+        {
+            return previousTaskStatus;
+        }
+
+        public byte[] getTaskStatus()
+        {
+            return taskStatus;
+        }
+
+        public byte[] getDelta()
+        {
+            return delta;
+        }
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        // assure the benchmarks are valid before running
+        BenchmarkData data = new BenchmarkData();
+        data.setup();
+        try {
+            TaskInfo allPipelines = new BenchmarkTaskInfoCodec().decodeAllPipelines(data);
+            TaskInfo withoutFinishedPipelines = new BenchmarkTaskInfoCodec().decodeWithoutFinishedPipelines(data);
+            TaskInfo delta = new BenchmarkTaskInfoCodec().decodeDelta(data);
+            checkState(allPipelines.getStats().getPipelines().size() == data.pipelineCount);
+            checkState(withoutFinishedPipelines.getStats().getPipelines().size() == data.pipelineCount);
+            checkState(delta.getStats().getPipelines().size() == data.pipelineCount);
+            checkState(getOperatorSummaryCount(delta) == data.pipelineCount * OPERATORS_PER_PIPELINE);
+        }
+        finally {
+            data.tearDown();
+        }
+
+        TaskStatusBenchmarkData statusData = new TaskStatusBenchmarkData();
+        statusData.setup();
+        TaskStatus taskStatusDelta = new BenchmarkTaskInfoCodec().decodeTaskStatusDelta(statusData);
+        checkState(taskStatusDelta.getCompletedDriverGroups().size() == statusData.completedDriverGroupCount);
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkTaskInfoCodec.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+
+    private static long getOperatorSummaryCount(TaskInfo taskInfo)
+    {
+        return taskInfo.getStats().getPipelines().stream()
+                .mapToLong(pipeline -> pipeline.getOperatorSummaries().size())
+                .sum();
+    }
+}
@@ -159,6 +159,12 @@ public class MockManagedQueryExecution
                         DataSize.valueOf("34GB"),
                         DataSize.valueOf("35GB"),
                         DataSize.valueOf("36GB"),
+                        0,
+                        0,
+                        0,
+                        DataSize.valueOf("0B"),
+                        0,
+                        0,
                         ImmutableList.of(),
                         ImmutableList.of()),
                 Optional.empty(),
@@ -83,6 +83,7 @@ import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimp
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SOURCE_DISTRIBUTION;
 import static com.facebook.presto.util.Failures.toFailures;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.Futures.nonCancellationPropagating;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
@@ -379,6 +380,23 @@ public class MockRemoteTaskFactory
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public ListenableFuture<List<Split>> withdrawQueuedSplits(PlanNodeId sourceId)
+        {
+            List<Split> withdrawn = new ArrayList<>();
+            synchronized (this) {
+                Iterator<Split> iterator = splits.get(sourceId).iterator();
+                int queued = getQueuedPartitionedSplitCount();
+                while (withdrawn.size() < queued && iterator.hasNext()) {
+                    withdrawn.add(iterator.next());
+                    iterator.remove();
+                }
+            }
+            partitionedSplitCountTracker.setPartitionedSplitCount(getPartitionedSplitCount());
+            updateSplitQueueSpace();
+            return immediateFuture(ImmutableList.copyOf(withdrawn));
+        }
+
         @Override
         public void setOutputBuffers(OutputBuffers outputBuffers)
         {
@@ -252,6 +252,59 @@ public class TestMemoryRevokingScheduler
         assertMemoryRevokingRequestedFor(operatorContext);
     }
 
+    @Test
+    public void testMemoryRevokingByCoordinatorOnBlockedPools()
+            throws Exception
+    {
+        SqlTask sqlTask1 = newSqlTask();
+        OperatorContext operatorContext1 = createContexts(sqlTask1);
+        SqlTask sqlTask2 = newSqlTask();
+        OperatorContext operatorContext2 = createContexts(sqlTask2);
+
+        allOperatorContexts = ImmutableSet.of(operatorContext1, operatorContext2);
+        List<SqlTask> tasks = ImmutableList.of(sqlTask1, sqlTask2);
+        MemoryRevokingScheduler scheduler = new MemoryRevokingScheduler(singletonList(memoryPool), () -> tasks, executor, 1.0, 1.0);
+
+        operatorContext1.localRevocableMemoryContext().setBytes(3);
+        operatorContext2.localRevocableMemoryContext().setBytes(6);
+        scheduler.requestMemoryRevokingByCoordinator();
+        awaitAsynchronousCallbacksRun();
+        // the pool still has free memory
+        assertMemoryRevokingNotRequested();
+
+        operatorContext2.localRevocableMemoryContext().setBytes(8);
+        assertEquals(-1, memoryPool.getFreeBytes());
+        scheduler.requestMemoryRevokingByCoordinator();
+        awaitAsynchronousCallbacksRun();
+        // all of the revocable memory is revoked, not just what is needed to reach the revoking target
+        assertMemoryRevokingRequestedFor(operatorContext1, operatorContext2);
+    }
+
+    @Test
+    public void testMemoryRevokingByCoordinatorBelowThreshold()
+            throws Exception
+    {
+        SqlTask sqlTask1 = newSqlTask();
+        OperatorContext operatorContext1 = createContexts(sqlTask1);
+        SqlTask sqlTask2 = newSqlTask();
+        OperatorContext operatorContext2 = createContexts(sqlTask2);
+
+        allOperatorContexts = ImmutableSet.of(operatorContext1, operatorContext2);
+        List<SqlTask> tasks = ImmutableList.of(sqlTask1, sqlTask2);
+        MemoryRevokingScheduler scheduler = new MemoryRevokingScheduler(singletonList(memoryPool), () -> tasks, executor, 1.0, 0.5);
+
+        operatorContext1.localRevocableMemoryContext().setBytes(3);
+        operatorContext2.localRevocableMemoryContext().setBytes(3);
+        requestMemoryRevoking(scheduler);
+        // the pool is below the revoking threshold of the node
+        assertMemoryRevokingNotRequested();
+
+        scheduler.requestMemoryRevokingByCoordinator();
+        awaitAsynchronousCallbacksRun();
+        // the pool is only revoked down to the revoking target, since it is not blocked
+        assertMemoryRevokingRequestedFor(operatorContext1);
+    }
+
     private OperatorContext createContexts(SqlTask sqlTask)
     {
         TaskContext taskContext = sqlTask.getQueryContext().addTaskContext(new TaskStateMachine(new TaskId("q", 1, 0, 1), executor), session, false, false, false, false, false);
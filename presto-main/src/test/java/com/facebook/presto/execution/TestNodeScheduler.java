@@ -20,6 +20,7 @@ import com.facebook.presto.execution.scheduler.NetworkLocationCache;
 import com.facebook.presto.execution.scheduler.NetworkTopology;
 import com.facebook.presto.execution.scheduler.NodeScheduler;
 import com.facebook.presto.execution.scheduler.NodeSchedulerConfig;
+import com.facebook.presto.execution.scheduler.ResettableRandomizedIterator;
 import com.facebook.presto.execution.scheduler.SplitPlacementResult;
 import com.facebook.presto.execution.scheduler.nodeSelection.NodeSelectionStats;
 import com.facebook.presto.execution.scheduler.nodeSelection.NodeSelector;
@@ -35,6 +36,7 @@ import com.facebook.presto.testing.TestingTransactionHandle;
 import com.facebook.presto.util.FinalizerService;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -57,9 +59,11 @@ import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.presto.execution.scheduler.NetworkLocation.ROOT_LOCATION;
+import static com.facebook.presto.execution.scheduler.NodeScheduler.selectNodesByNetworkLocation;
 import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.HARD_AFFINITY;
 import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.NO_PREFERENCE;
 import static java.util.Objects.requireNonNull;
@@ -465,6 +469,25 @@ public class TestNodeScheduler
         assertEquals(nodeTaskMap.getPartitionedSplitsOnNode(newNode), 0);
     }
 
+    @Test
+    public void testStragglerSplitQueue()
+    {
+        TestingTransactionHandle transactionHandle = TestingTransactionHandle.create();
+        Set<Split> splits = new HashSet<>();
+        for (int i = 0; i < 45; i++) {
+            splits.add(new Split(CONNECTOR_ID, transactionHandle, new TestSplitRemote()));
+        }
+
+        // other1 is a straggler, and the split queue of other2 is reduced because it is slower than other3
+        Map<String, Integer> maxPendingSplits = ImmutableMap.of("other1", 1, "other2", 5, "other3", 10);
+        SplitPlacementResult result = nodeSelector.computeAssignments(splits, ImmutableList.copyOf(taskMap.values()), maxPendingSplits::get, "other1"::equals);
+
+        Map<String, Integer> assignedSplits = new HashMap<>();
+        result.getAssignments().asMap().forEach((node, nodeSplits) -> assignedSplits.put(node.getNodeIdentifier(), nodeSplits.size()));
+        // the straggler only gets its split queue, while the slower node is still filled up to max-splits-per-node
+        assertEquals(assignedSplits, ImmutableMap.of("other1", 1, "other2", 20, "other3", 20));
+    }
+
     @Test
     public void testTaskCompletion()
             throws Exception
@@ -592,6 +615,32 @@ public class TestNodeScheduler
         assertTrue(internalNodesSecondCall.containsAll(internalNodes));
     }
 
+    @Test
+    public void testSelectNodesByNetworkLocation()
+    {
+        InternalNode zone1Node = new InternalNode("node1", URI.create("http://host1.zone1:11"), NodeVersion.UNKNOWN, false);
+        InternalNode zone2Node1 = new InternalNode("node2", URI.create("http://host2.zone2:12"), NodeVersion.UNKNOWN, false);
+        InternalNode zone2Node2 = new InternalNode("node3", URI.create("http://host3.zone2:13"), NodeVersion.UNKNOWN, false);
+        InternalNode unknownNode = new InternalNode("node4", URI.create("http://host4:14"), NodeVersion.UNKNOWN, false);
+        List<InternalNode> nodes = ImmutableList.of(zone1Node, zone2Node1, zone2Node2, unknownNode);
+        TestNetworkTopology topology = new TestNetworkTopology();
+        Function<InternalNode, NetworkLocation> locator = node -> node == unknownNode ? ROOT_LOCATION : topology.locate(node.getHostAndPort());
+
+        // the location of the coordinator comes first
+        List<InternalNode> selected = selectNodesByNetworkLocation(1, new ResettableRandomizedIterator<>(nodes), locator, new NetworkLocation("zone1", "host5"));
+        assertEquals(selected, ImmutableList.of(zone1Node));
+
+        // then the locations with the most nodes, and nodes with an unknown location last
+        selected = selectNodesByNetworkLocation(2, new ResettableRandomizedIterator<>(nodes), locator, ROOT_LOCATION);
+        assertEquals(ImmutableSet.copyOf(selected), ImmutableSet.of(zone2Node1, zone2Node2));
+        selected = selectNodesByNetworkLocation(3, new ResettableRandomizedIterator<>(nodes), locator, new NetworkLocation("zone3", "host6"));
+        assertEquals(selected.get(2), zone1Node);
+        selected = selectNodesByNetworkLocation(10, new ResettableRandomizedIterator<>(nodes), locator, new NetworkLocation("zone1", "host5"));
+        assertEquals(selected.size(), 4);
+        assertEquals(selected.get(0), zone1Node);
+        assertEquals(selected.get(3), unknownNode);
+    }
+
     private List<RemoteTask> getRemoteTableScanTask(SplitPlacementResult splitPlacementResult)
     {
         Map<InternalNode, RemoteTask> taskMap = new HashMap<>();
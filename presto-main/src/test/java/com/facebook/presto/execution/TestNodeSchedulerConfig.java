@@ -32,7 +32,11 @@ public class TestNodeSchedulerConfig
                 .setMinCandidates(10)
                 .setMaxSplitsPerNode(100)
                 .setMaxPendingSplitsPerTask(10)
-                .setIncludeCoordinator(true));
+                .setIncludeCoordinator(true)
+                .setAdaptiveSplitQueueSizingEnabled(false)
+                .setStragglerThrottlingEnabled(false)
+                .setStragglerSplitRateRatio(0.25)
+                .setTopologyAwareTaskPlacementEnabled(false));
     }
 
     @Test
@@ -44,6 +48,10 @@ public class TestNodeSchedulerConfig
                 .put("node-scheduler.include-coordinator", "false")
                 .put("node-scheduler.max-pending-splits-per-task", "11")
                 .put("node-scheduler.max-splits-per-node", "101")
+                .put("node-scheduler.adaptive-split-queue-sizing-enabled", "true")
+                .put("node-scheduler.straggler-throttling-enabled", "true")
+                .put("node-scheduler.straggler-split-rate-ratio", "0.5")
+                .put("node-scheduler.topology-aware-task-placement-enabled", "true")
                 .build();
 
         NodeSchedulerConfig expected = new NodeSchedulerConfig()
@@ -51,7 +59,11 @@ public class TestNodeSchedulerConfig
                 .setIncludeCoordinator(false)
                 .setMaxSplitsPerNode(101)
                 .setMaxPendingSplitsPerTask(11)
-                .setMinCandidates(11);
+                .setMinCandidates(11)
+                .setAdaptiveSplitQueueSizingEnabled(true)
+                .setStragglerThrottlingEnabled(true)
+                .setStragglerSplitRateRatio(0.5)
+                .setTopologyAwareTaskPlacementEnabled(true);
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
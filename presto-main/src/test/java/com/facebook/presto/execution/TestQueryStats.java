@@ -212,6 +212,13 @@ public class TestQueryStats
 
             new DataSize(33, BYTE),
 
+            34,
+            35,
+            36,
+            new DataSize(37, BYTE),
+            38,
+            39,
+
             ImmutableList.of(new StageGcStatistics(
                     101,
                     1001,
@@ -294,6 +301,13 @@ public class TestQueryStats
 
         assertEquals(actual.getWrittenIntermediatePhysicalDataSize(), new DataSize(33, BYTE));
 
+        assertEquals(actual.getResultCacheHits(), 34);
+        assertEquals(actual.getResultCacheMisses(), 35);
+        assertEquals(actual.getResultCacheEvictions(), 36);
+        assertEquals(actual.getResultCacheSavedDataSize(), new DataSize(37, BYTE));
+        assertEquals(actual.getFragmentResultCacheHits(), 38);
+        assertEquals(actual.getFragmentResultCacheMisses(), 39);
+
         assertEquals(actual.getStageGcStatistics().size(), 1);
         StageGcStatistics gcStatistics = actual.getStageGcStatistics().get(0);
         assertEquals(gcStatistics.getStageId(), 101);
@@ -184,7 +184,8 @@ public class TestSqlTaskExecution
                     localExecutionPlan,
                     taskExecutor,
                     taskNotificationExecutor,
-                    createTestSplitMonitor());
+                    createTestSplitMonitor(),
+                    Optional.empty());
 
             //
             // test body
@@ -442,7 +443,8 @@ public class TestSqlTaskExecution
                     localExecutionPlan,
                     taskExecutor,
                     taskNotificationExecutor,
-                    createTestSplitMonitor());
+                    createTestSplitMonitor(),
+                    Optional.empty());
 
             //
             // test body
@@ -608,6 +610,91 @@ public class TestSqlTaskExecution
         }
     }
 
+    @Test(timeOut = 20_000)
+    public void testWithdrawQueuedSplits()
+            throws Exception
+    {
+        ScheduledExecutorService taskNotificationExecutor = newScheduledThreadPool(10, threadsNamed("task-notification-%s"));
+        ScheduledExecutorService driverYieldExecutor = newScheduledThreadPool(2, threadsNamed("driver-yield-%s"));
+        // the task runs a single driver at a time, so the other drivers stay queued
+        TaskExecutor taskExecutor = new TaskExecutor(1, 1, 1, 1, TASK_FAIR, Ticker.systemTicker());
+        taskExecutor.start();
+
+        try {
+            TaskStateMachine taskStateMachine = new TaskStateMachine(TASK_ID, taskNotificationExecutor);
+            PartitionedOutputBuffer outputBuffer = newTestingOutputBuffer(taskNotificationExecutor);
+            OutputBufferConsumer outputBufferConsumer = new OutputBufferConsumer(outputBuffer, OUTPUT_BUFFER_ID);
+
+            // TaskOutput
+            //      |
+            //    Scan
+            TestingScanOperatorFactory testingScanOperatorFactory = new TestingScanOperatorFactory(0, TABLE_SCAN_NODE_ID, ImmutableList.of(VARCHAR));
+            TaskOutputOperatorFactory taskOutputOperatorFactory = new TaskOutputOperatorFactory(
+                    1,
+                    TABLE_SCAN_NODE_ID,
+                    outputBuffer,
+                    Function.identity(),
+                    new PagesSerdeFactory(new BlockEncodingManager(new TestingTypeManager()), false));
+            LocalExecutionPlan localExecutionPlan = new LocalExecutionPlan(
+                    ImmutableList.of(new DriverFactory(
+                            0,
+                            true,
+                            true,
+                            ImmutableList.of(testingScanOperatorFactory, taskOutputOperatorFactory),
+                            OptionalInt.empty(),
+                            UNGROUPED_EXECUTION)),
+                    ImmutableList.of(TABLE_SCAN_NODE_ID),
+                    StageExecutionDescriptor.ungroupedExecution());
+            TaskContext taskContext = newTestingTaskContext(taskNotificationExecutor, driverYieldExecutor, taskStateMachine);
+            SqlTaskExecution sqlTaskExecution = SqlTaskExecution.createSqlTaskExecution(
+                    taskStateMachine,
+                    taskContext,
+                    outputBuffer,
+                    ImmutableList.of(),
+                    localExecutionPlan,
+                    taskExecutor,
+                    taskNotificationExecutor,
+                    createTestSplitMonitor(),
+                    Optional.empty());
+
+            // the first driver blocks until it is resumed, and the other two are queued behind it
+            testingScanOperatorFactory.getPauser().pause();
+            sqlTaskExecution.addSources(ImmutableList.of(new TaskSource(
+                    TABLE_SCAN_NODE_ID,
+                    ImmutableSet.of(
+                            newScheduledSplit(0, TABLE_SCAN_NODE_ID, Lifespan.taskWide(), 0, 100),
+                            newScheduledSplit(1, TABLE_SCAN_NODE_ID, Lifespan.taskWide(), 100000, 100),
+                            newScheduledSplit(2, TABLE_SCAN_NODE_ID, Lifespan.taskWide(), 200000, 100)),
+                    false)));
+
+            // the queued splits are withdrawn, and a retry of the withdrawal returns the same splits
+            Set<ScheduledSplit> withdrawnSplits = sqlTaskExecution.withdrawQueuedSplits(TABLE_SCAN_NODE_ID, 0);
+            assertEquals(withdrawnSplits.size(), 2);
+            assertEquals(sqlTaskExecution.withdrawQueuedSplits(TABLE_SCAN_NODE_ID, 0), withdrawnSplits);
+            assertEquals(taskContext.getTaskStats().getQueuedPartitionedDrivers(), 0);
+            assertEquals(taskContext.getTaskStats().getTotalDrivers(), 1);
+
+            // there is nothing left to withdraw, and an older withdrawal returns nothing
+            assertEquals(sqlTaskExecution.withdrawQueuedSplits(TABLE_SCAN_NODE_ID, 1), ImmutableSet.of());
+            assertEquals(sqlTaskExecution.withdrawQueuedSplits(TABLE_SCAN_NODE_ID, 0), ImmutableSet.of());
+
+            // the task only produces the output of the split that was running
+            testingScanOperatorFactory.getPauser().resume();
+            sqlTaskExecution.addSources(ImmutableList.of(new TaskSource(TABLE_SCAN_NODE_ID, ImmutableSet.of(), true)));
+            outputBufferConsumer.consume(100, ASSERT_WAIT_TIMEOUT);
+            outputBufferConsumer.assertBufferComplete(ASSERT_WAIT_TIMEOUT);
+
+            outputBufferConsumer.abort(); // complete the task by calling abort on it
+            TaskState taskState = taskStateMachine.getStateChange(TaskState.RUNNING).get(10, SECONDS);
+            assertEquals(taskState, TaskState.FINISHED);
+        }
+        finally {
+            taskExecutor.stop();
+            taskNotificationExecutor.shutdownNow();
+            driverYieldExecutor.shutdown();
+        }
+    }
+
     private TaskContext newTestingTaskContext(ScheduledExecutorService taskNotificationExecutor, ScheduledExecutorService driverYieldExecutor, TaskStateMachine taskStateMachine)
     {
         QueryContext queryContext = new QueryContext(
@@ -21,6 +21,8 @@ import com.facebook.presto.execution.buffer.BufferState;
 import com.facebook.presto.execution.buffer.OutputBuffers;
 import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
 import com.facebook.presto.execution.executor.TaskExecutor;
+import com.facebook.presto.execution.resultcache.FragmentResultCache;
+import com.facebook.presto.execution.resultcache.QueryResultCache;
 import com.facebook.presto.execution.scheduler.TableWriteInfo;
 import com.facebook.presto.memory.LocalMemoryManager;
 import com.facebook.presto.memory.NodeMemoryConfig;
@@ -42,7 +44,10 @@ import io.airlift.units.Duration;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
@@ -55,8 +60,12 @@ import static com.facebook.presto.execution.TaskTestUtils.createTestSplitMonitor
 import static com.facebook.presto.execution.TaskTestUtils.createTestingPlanner;
 import static com.facebook.presto.execution.buffer.OutputBuffers.BufferType.PARTITIONED;
 import static com.facebook.presto.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
+import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
 import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
@@ -72,21 +81,26 @@ public class TestSqlTaskManager
     private final TaskManagementExecutor taskManagementExecutor;
     private final LocalMemoryManager localMemoryManager;
     private final LocalSpillManager localSpillManager;
+    private final Path fragmentResultCacheDirectory;
 
     public TestSqlTaskManager()
+            throws IOException
     {
         localMemoryManager = new LocalMemoryManager(new NodeMemoryConfig());
         localSpillManager = new LocalSpillManager(new NodeSpillConfig());
         taskExecutor = new TaskExecutor(8, 16, 3, 4, TASK_FAIR, Ticker.systemTicker());
         taskExecutor.start();
         taskManagementExecutor = new TaskManagementExecutor();
+        fragmentResultCacheDirectory = Files.createTempDirectory("fragment-result-cache");
     }
 
     @AfterClass(alwaysRun = true)
     public void tearDown()
+            throws IOException
     {
         taskExecutor.stop();
         taskManagementExecutor.close();
+        deleteRecursively(fragmentResultCacheDirectory, ALLOW_INSECURE);
     }
 
     @Test
@@ -252,7 +266,8 @@ public class TestSqlTaskManager
                 new NodeSpillConfig(),
                 new TestingGcMonitor(),
                 new BlockEncodingManager(new TypeRegistry()),
-                new OrderingCompiler());
+                new OrderingCompiler(),
+                new FragmentResultCache(new QueryResultCache(fragmentResultCacheDirectory, 0, 0, 0, newDirectExecutorService()), createTestMetadataManager()));
     }
 
     private TaskInfo createTask(SqlTaskManager sqlTaskManager, TaskId taskId, ImmutableSet<ScheduledSplit> splits, OutputBuffers outputBuffers)
@@ -74,6 +74,9 @@ public class TestStageExecutionStats
 
             new DataSize(26, BYTE),
 
+            27,
+            28,
+
             new StageGcStatistics(
                     101,
                     1001,
@@ -140,6 +143,9 @@ public class TestStageExecutionStats
 
         assertEquals(actual.getPhysicalWrittenDataSize(), new DataSize(26, BYTE));
 
+        assertEquals(actual.getFragmentResultCacheHits(), 27);
+        assertEquals(actual.getFragmentResultCacheMisses(), 28);
+
         assertEquals(actual.getGcInfo().getStageId(), 101);
         assertEquals(actual.getGcInfo().getStageExecutionId(), 1001);
         assertEquals(actual.getGcInfo().getTasks(), 102);
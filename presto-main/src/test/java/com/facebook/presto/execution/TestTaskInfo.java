@@ -0,0 +1,218 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.operator.DriverContext;
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.operator.OperatorStats;
+import com.facebook.presto.operator.PipelineContext;
+import com.facebook.presto.operator.PipelineStats;
+import com.facebook.presto.operator.TaskContext;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.execution.TaskState.FAILED;
+import static com.facebook.presto.execution.TaskStatus.failWith;
+import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class TestTaskInfo
+{
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduledExecutor;
+
+    @BeforeClass
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
+        scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed("test-scheduledExecutor-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        scheduledExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testFinishedPipeline()
+    {
+        PipelineContext pipelineContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION).addPipelineContext(0, true, true, false);
+        DriverContext driverContext = pipelineContext.addDriverContext();
+        assertFalse(pipelineContext.isFinished());
+
+        pipelineContext.noMoreDrivers();
+        assertFalse(pipelineContext.isFinished());
+
+        driverContext.finished();
+        assertTrue(pipelineContext.isFinished());
+    }
+
+    @Test
+    public void testWithoutFinishedPipelines()
+    {
+        TaskInfo taskInfo = createTaskInfo(ImmutableSet.of(0));
+
+        TaskInfo delta = taskInfo.withoutFinishedPipelines(ImmutableSet.of(0));
+        assertEquals(getPipelineIds(delta), ImmutableList.of(1));
+        assertEquals(delta.getFinishedPipelineIds(), ImmutableSet.of(0));
+
+        // pipelines that are not finished are always sent
+        assertSame(taskInfo.withoutFinishedPipelines(ImmutableSet.of(1)), taskInfo);
+        assertSame(taskInfo.withoutFinishedPipelines(ImmutableSet.of()), taskInfo);
+    }
+
+    @Test
+    public void testWithFinishedPipelinesFrom()
+    {
+        TaskInfo delta = createTaskInfo(ImmutableSet.of(0)).withoutFinishedPipelines(ImmutableSet.of(0));
+
+        TaskInfo taskInfo = delta.withFinishedPipelinesFrom(createTaskInfo(ImmutableSet.of(0)));
+        assertEquals(getPipelineIds(taskInfo), ImmutableList.of(0, 1));
+        assertEquals(taskInfo.getFinishedPipelineIds(), ImmutableSet.of(0));
+
+        // the previous stats of the pipeline are not final, so they are not used and the pipeline must be sent again
+        taskInfo = delta.withFinishedPipelinesFrom(createTaskInfo(ImmutableSet.of()));
+        assertEquals(getPipelineIds(taskInfo), ImmutableList.of(1));
+        assertEquals(taskInfo.getFinishedPipelineIds(), ImmutableSet.of());
+
+        // the previous task info has no stats for the pipeline
+        taskInfo = delta.withFinishedPipelinesFrom(delta);
+        assertEquals(getPipelineIds(taskInfo), ImmutableList.of(1));
+        assertEquals(taskInfo.getFinishedPipelineIds(), ImmutableSet.of());
+
+        // a complete task info is not changed
+        TaskInfo complete = createTaskInfo(ImmutableSet.of(0));
+        assertSame(complete.withFinishedPipelinesFrom(delta), complete);
+    }
+
+    @Test
+    public void testSummarizeWithFinishedPipelines()
+    {
+        TaskInfo taskInfo = createTaskInfo(ImmutableSet.of(0));
+
+        // the summary of a running task leaves out all pipelines
+        TaskInfo summary = taskInfo.summarize();
+        assertEquals(getPipelineIds(summary), ImmutableList.of());
+        assertEquals(summary.getFinishedPipelineIds(), ImmutableSet.of(0));
+
+        TaskInfo summaryWithFinishedPipelines = taskInfo.summarizeWithFinishedPipelines();
+        assertEquals(getPipelineIds(summaryWithFinishedPipelines), ImmutableList.of(0));
+        assertEquals(summaryWithFinishedPipelines.getFinishedPipelineIds(), ImmutableSet.of(0));
+
+        // once the receiver has the stats of a finished pipeline, they are taken from what it holds
+        TaskInfo merged = summaryWithFinishedPipelines.withoutFinishedPipelines(ImmutableSet.of(0)).withFinishedPipelinesFrom(summaryWithFinishedPipelines);
+        assertEquals(getPipelineIds(merged), ImmutableList.of(0));
+        assertEquals(merged.getFinishedPipelineIds(), ImmutableSet.of(0));
+        merged = summary.withFinishedPipelinesFrom(summaryWithFinishedPipelines);
+        assertEquals(getPipelineIds(merged), ImmutableList.of(0));
+        assertEquals(merged.getFinishedPipelineIds(), ImmutableSet.of(0));
+
+        // without them, the finished pipeline is asked for again
+        merged = summary.withFinishedPipelinesFrom(summary);
+        assertEquals(getPipelineIds(merged), ImmutableList.of());
+        assertEquals(merged.getFinishedPipelineIds(), ImmutableSet.of());
+    }
+
+    @Test
+    public void testWithoutOperatorSummariesOf()
+    {
+        TaskContext taskContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION);
+        DriverContext driverContext = taskContext.addPipelineContext(0, true, true, false).addDriverContext();
+        OperatorContext changedOperatorContext = driverContext.addOperatorContext(0, new PlanNodeId("0"), "TestOperator");
+        driverContext.addOperatorContext(1, new PlanNodeId("1"), "TestOperator");
+
+        TaskInfo baseTaskInfo = createTaskInfo(taskContext, ImmutableSet.of());
+        changedOperatorContext.recordOutput(100, 10);
+        TaskInfo taskInfo = createTaskInfo(taskContext, ImmutableSet.of());
+
+        TaskInfo delta = taskInfo.withoutOperatorSummariesOf(baseTaskInfo);
+        assertEquals(delta.getBaseVersion(), OptionalLong.of(baseTaskInfo.getTaskStatus().getVersion()));
+        assertEquals(getOperatorIds(delta), ImmutableList.of(0));
+
+        TaskInfo merged = delta.withOperatorSummariesFrom(baseTaskInfo);
+        assertFalse(merged.getBaseVersion().isPresent());
+        assertEquals(getOperatorIds(merged), ImmutableList.of(0, 1));
+        assertEquals(merged.getStats().getPipelines().get(0).getOperatorSummaries(), taskInfo.getStats().getPipelines().get(0).getOperatorSummaries());
+
+        // a complete task info is not changed
+        assertSame(taskInfo.withOperatorSummariesFrom(baseTaskInfo), taskInfo);
+
+        // a delta can only be completed with the task info it is a delta of
+        TaskInfo otherTaskInfo = baseTaskInfo.withTaskStatus(failWith(baseTaskInfo.getTaskStatus(), FAILED, ImmutableList.of()));
+        assertThrows(IllegalArgumentException.class, () -> delta.withOperatorSummariesFrom(otherTaskInfo));
+    }
+
+    private TaskInfo createTaskInfo(Set<Integer> finishedPipelineIds)
+    {
+        TaskContext taskContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION);
+        taskContext.addPipelineContext(0, true, false, false);
+        taskContext.addPipelineContext(1, false, true, false);
+        return createTaskInfo(taskContext, finishedPipelineIds);
+    }
+
+    private static TaskInfo createTaskInfo(TaskContext taskContext, Set<Integer> finishedPipelineIds)
+    {
+        TaskInfo taskInfo = TaskInfo.createInitialTask(
+                taskContext.getTaskId(),
+                URI.create("fake://task/" + taskContext.getTaskId()),
+                ImmutableList.of(),
+                taskContext.getTaskStats());
+        return new TaskInfo(
+                taskInfo.getTaskId(),
+                taskInfo.getTaskStatus(),
+                taskInfo.getLastHeartbeat(),
+                taskInfo.getOutputBuffers(),
+                taskInfo.getNoMoreSplits(),
+                taskInfo.getStats(),
+                taskInfo.isNeedsPlan(),
+                finishedPipelineIds);
+    }
+
+    private static List<Integer> getPipelineIds(TaskInfo taskInfo)
+    {
+        return taskInfo.getStats().getPipelines().stream()
+                .map(PipelineStats::getPipelineId)
+                .collect(toImmutableList());
+    }
+
+    private static List<Integer> getOperatorIds(TaskInfo taskInfo)
+    {
+        return taskInfo.getStats().getPipelines().stream()
+                .flatMap(pipeline -> pipeline.getOperatorSummaries().stream())
+                .map(OperatorStats::getOperatorId)
+                .collect(toImmutableList());
+    }
+}
@@ -40,6 +40,8 @@ public class TestTaskManagerConfig
                 .setStatusRefreshMaxWait(new Duration(1, TimeUnit.SECONDS))
                 .setInfoUpdateInterval(new Duration(3, TimeUnit.SECONDS))
                 .setInfoRefreshMaxWait(new Duration(0, TimeUnit.SECONDS))
+                .setInfoOmitFinishedPipelinesEnabled(false)
+                .setDeltaUpdatesEnabled(false)
                 .setPerOperatorCpuTimerEnabled(true)
                 .setTaskCpuTimerEnabled(true)
                 .setPerOperatorAllocationTrackingEnabled(false)
@@ -67,6 +69,8 @@ public class TestTaskManagerConfig
                 .setTaskNotificationThreads(5)
                 .setTaskYieldThreads(3)
                 .setLevelTimeMultiplier(new BigDecimal("2"))
+                .setWorkStealingEnabled(false)
+                .setWorkStealingNodeCount(1)
                 .setStatisticsCpuTimerEnabled(true)
                 .setLegacyLifespanCompletionCondition(false)
                 .setTaskPriorityTracking(TASK_FAIR));
@@ -81,6 +85,8 @@ public class TestTaskManagerConfig
                 .put("task.status-refresh-max-wait", "2s")
                 .put("task.info-update-interval", "2s")
                 .put("experimental.task.info-update-refresh-max-wait", "3s")
+                .put("task.info-omit-finished-pipelines-enabled", "true")
+                .put("task.delta-updates-enabled", "true")
                 .put("task.per-operator-cpu-timer-enabled", "false")
                 .put("task.cpu-timer-enabled", "false")
                 .put("task.per-operator-allocation-tracking-enabled", "true")
@@ -108,6 +114,8 @@ public class TestTaskManagerConfig
                 .put("task.task-notification-threads", "13")
                 .put("task.task-yield-threads", "8")
                 .put("task.level-time-multiplier", "2.1")
+                .put("task.work-stealing-enabled", "true")
+                .put("task.work-stealing-node-count", "2")
                 .put("task.statistics-cpu-timer-enabled", "false")
                 .put("task.legacy-lifespan-completion-condition", "true")
                 .put("task.task-priority-tracking", "QUERY_FAIR")
@@ -119,6 +127,8 @@ public class TestTaskManagerConfig
                 .setStatusRefreshMaxWait(new Duration(2, TimeUnit.SECONDS))
                 .setInfoUpdateInterval(new Duration(2, TimeUnit.SECONDS))
                 .setInfoRefreshMaxWait(new Duration(3, TimeUnit.SECONDS))
+                .setInfoOmitFinishedPipelinesEnabled(true)
+                .setDeltaUpdatesEnabled(true)
                 .setPerOperatorCpuTimerEnabled(false)
                 .setTaskCpuTimerEnabled(false)
                 .setPerOperatorAllocationTrackingEnabled(true)
@@ -146,6 +156,8 @@ public class TestTaskManagerConfig
                 .setTaskNotificationThreads(13)
                 .setTaskYieldThreads(8)
                 .setLevelTimeMultiplier(new BigDecimal("2.1"))
+                .setWorkStealingEnabled(true)
+                .setWorkStealingNodeCount(2)
                 .setStatisticsCpuTimerEnabled(false)
                 .setLegacyLifespanCompletionCondition(true)
                 .setTaskPriorityTracking(QUERY_FAIR);
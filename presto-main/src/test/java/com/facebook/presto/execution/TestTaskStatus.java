@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.airlift.json.JsonCodec;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import static com.facebook.airlift.json.JsonCodec.jsonCodec;
+import static com.facebook.presto.execution.Lifespan.driverGroup;
+import static com.facebook.presto.execution.TaskState.RUNNING;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
+
+public class TestTaskStatus
+{
+    private static final JsonCodec<TaskStatus> CODEC = jsonCodec(TaskStatus.class);
+
+    @Test
+    public void testWithoutCompletedDriverGroupsOf()
+    {
+        TaskStatus baseTaskStatus = createTaskStatus(1, ImmutableSet.of(driverGroup(0), driverGroup(1)));
+        TaskStatus taskStatus = createTaskStatus(2, ImmutableSet.of(driverGroup(0), driverGroup(1), driverGroup(2)));
+
+        TaskStatus delta = CODEC.fromJson(CODEC.toJson(taskStatus.withoutCompletedDriverGroupsOf(baseTaskStatus)));
+        assertEquals(delta.getVersion(), 2);
+        assertEquals(delta.getBaseVersion(), OptionalLong.of(1));
+        assertEquals(delta.getCompletedDriverGroups(), ImmutableSet.of(driverGroup(2)));
+
+        TaskStatus merged = delta.withCompletedDriverGroupsFrom(baseTaskStatus);
+        assertFalse(merged.getBaseVersion().isPresent());
+        assertEquals(merged.getCompletedDriverGroups(), taskStatus.getCompletedDriverGroups());
+
+        // a complete status is not changed
+        assertSame(taskStatus.withCompletedDriverGroupsFrom(baseTaskStatus), taskStatus);
+
+        // a delta can only be completed with the status it is a delta of
+        assertThrows(IllegalArgumentException.class, () -> delta.withCompletedDriverGroupsFrom(taskStatus));
+    }
+
+    private static TaskStatus createTaskStatus(long version, Set<Lifespan> completedDriverGroups)
+    {
+        return new TaskStatus(
+                "test",
+                version,
+                RUNNING,
+                URI.create("fake://task/0"),
+                completedDriverGroups,
+                ImmutableList.of(),
+                0,
+                0,
+                0.0,
+                false,
+                0,
+                0,
+                0,
+                0,
+                0);
+    }
+}
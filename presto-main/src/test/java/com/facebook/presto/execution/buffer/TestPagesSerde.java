@@ -13,11 +13,14 @@
  */
 package com.facebook.presto.execution.buffer;
 
+import com.facebook.presto.block.BlockEncodingManager;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.type.TestingTypeManager;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.spi.page.PagesSerde;
+import com.facebook.presto.spi.page.SerializedPage;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
@@ -25,14 +28,20 @@ import org.testng.annotations.Test;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.execution.buffer.PageCompressionCodec.LZ4;
+import static com.facebook.presto.execution.buffer.PageCompressionCodec.SNAPPY;
+import static com.facebook.presto.execution.buffer.PageCompressionCodec.ZSTD;
 import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
+import static com.facebook.presto.spi.page.PageCodecMarker.COMPRESSED;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.readPages;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.writePages;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestPagesSerde
 {
@@ -60,6 +69,63 @@ public class TestPagesSerde
         assertFalse(pageIterator.hasNext());
     }
 
+    @Test
+    public void testCompressionCodecs()
+    {
+        Page page = createCompressiblePage();
+        for (PageCompressionCodec codec : PageCompressionCodec.values()) {
+            PageCompressionStats stats = new PageCompressionStats();
+            PagesSerde serde = createPagesSerde(codec, false, stats);
+
+            SerializedPage serializedPage = serde.serialize(page);
+            assertTrue(COMPRESSED.isSet(serializedPage.getPageCodecMarkers()));
+            assertEquals(PageCompressionCodec.fromCodecMarkers(serializedPage.getPageCodecMarkers()), codec);
+            assertPageEquals(ImmutableList.of(BIGINT), serde.deserialize(serializedPage), page);
+
+            PageCompressionStats.CodecStats codecStats = stats.getCodecStats(codec);
+            assertEquals(codecStats.getCompressedPages(), 1);
+            assertEquals(codecStats.getDecompressedPages(), 1);
+            assertEquals(codecStats.getCompressionInputBytes(), serializedPage.getUncompressedSizeInBytes());
+            assertEquals(codecStats.getCompressionOutputBytes(), serializedPage.getSizeInBytes());
+            assertTrue(codecStats.getCompressionRatio() < 1);
+        }
+    }
+
+    @Test
+    public void testMixedCodecStream()
+    {
+        Page page = createCompressiblePage();
+        PagesSerde reader = createPagesSerde(LZ4, false, new PageCompressionStats());
+        for (PageCompressionCodec codec : ImmutableList.of(ZSTD, LZ4, SNAPPY)) {
+            SerializedPage serializedPage = createPagesSerde(codec, false, new PageCompressionStats()).serialize(page);
+            assertPageEquals(ImmutableList.of(BIGINT), reader.deserialize(serializedPage), page);
+        }
+    }
+
+    @Test
+    public void testAdaptiveCompression()
+    {
+        BlockBuilder builder = BIGINT.createBlockBuilder(null, 1000);
+        for (int i = 0; i < 1000; i++) {
+            BIGINT.writeLong(builder, ThreadLocalRandom.current().nextLong());
+        }
+        Page incompressiblePage = new Page(builder.build());
+
+        PageCompressionStats stats = new PageCompressionStats();
+        PagesSerde serde = createPagesSerde(LZ4, true, stats);
+        for (int i = 0; i < 10; i++) {
+            SerializedPage serializedPage = serde.serialize(incompressiblePage);
+            assertFalse(COMPRESSED.isSet(serializedPage.getPageCodecMarkers()));
+            assertPageEquals(ImmutableList.of(BIGINT), serde.deserialize(serializedPage), incompressiblePage);
+        }
+        // compression is attempted for pages 1, 3 and 6, each failure doubling the number of pages skipped
+        assertEquals(stats.getCodecStats(LZ4).getCompressedPages(), 3);
+
+        // the skipped run has ended, so the next page is sampled again
+        assertTrue(COMPRESSED.isSet(serde.serialize(createCompressiblePage()).getPageCodecMarkers()));
+        assertEquals(stats.getCodecStats(LZ4).getCompressedPages(), 4);
+    }
+
     @Test
     public void testBigintSerializedSize()
     {
@@ -107,6 +173,20 @@ public class TestPagesSerde
         assertEquals(secondValueSize, 4 + 3); // length + "bob" (null shared with first entry)
     }
 
+    private static PagesSerde createPagesSerde(PageCompressionCodec codec, boolean adaptiveCompressionEnabled, PageCompressionStats stats)
+    {
+        return new PagesSerdeFactory(new BlockEncodingManager(new TestingTypeManager()), true, codec, 3, adaptiveCompressionEnabled, stats).createPagesSerde();
+    }
+
+    private static Page createCompressiblePage()
+    {
+        BlockBuilder builder = BIGINT.createBlockBuilder(null, 1000);
+        for (int i = 0; i < 1000; i++) {
+            BIGINT.writeLong(builder, i % 10);
+        }
+        return new Page(builder.build());
+    }
+
     private static int serializedSize(List<? extends Type> types, Page expectedPage)
     {
         PagesSerde serde = new TestingPagesSerdeFactory().createPagesSerde();
@@ -0,0 +1,238 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.executor;
+
+import com.facebook.presto.execution.SplitRunner;
+import com.facebook.presto.execution.TaskId;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.Duration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.facebook.presto.execution.TaskManagerConfig.TaskPriorityTracking.TASK_FAIR;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Compares the task executor with a single shared split queue to the one with a split queue
+ * for every runner thread and work stealing. The throughput benchmark runs many short splits
+ * of several tasks, and the latency benchmark measures the time a short split takes on a
+ * runner pool that is kept busy by long running splits.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = SECONDS)
+public class BenchmarkTaskExecutor
+{
+    private static final int RUNNER_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int TASKS = 16;
+    private static final int SPLITS_PER_TASK = 256;
+    private static final int SPLITS = TASKS * SPLITS_PER_TASK;
+    private static final int QUANTA_PER_SPLIT = 4;
+    private static final long TOKENS_PER_QUANTA = 1_000;
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(SPLITS)
+    public Object throughput(ThroughputData data)
+            throws Exception
+    {
+        List<ListenableFuture<?>> futures = new ArrayList<>(SPLITS);
+        for (TaskHandle taskHandle : data.getTaskHandles()) {
+            ImmutableList.Builder<SplitRunner> splits = ImmutableList.builder();
+            for (int i = 0; i < SPLITS_PER_TASK; i++) {
+                splits.add(new BenchmarkSplit(QUANTA_PER_SPLIT));
+            }
+            futures.addAll(data.getTaskExecutor().enqueueSplits(taskHandle, false, splits.build()));
+        }
+        return allAsList(futures).get();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object latency(LatencyData data)
+            throws Exception
+    {
+        return getOnlyElement(data.getTaskExecutor().enqueueSplits(data.getTaskHandle(), false, ImmutableList.of(new BenchmarkSplit(QUANTA_PER_SPLIT)))).get();
+    }
+
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Thread)
+    public static class ThroughputData
+    {
+        @Param({"false", "true"})
+        private boolean workStealing;
+
+        private TaskExecutor taskExecutor;
+        private List<TaskHandle> taskHandles;
+
+        @Setup
+        public void setup()
+        {
+            taskExecutor = createTaskExecutor(workStealing);
+            ImmutableList.Builder<TaskHandle> taskHandles = ImmutableList.builder();
+            for (int i = 0; i < TASKS; i++) {
+                taskHandles.add(addTask(taskExecutor, i));
+            }
+            this.taskHandles = taskHandles.build();
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            taskExecutor.stop();
+        }
+
+        public TaskExecutor getTaskExecutor()
+        {
+            return taskExecutor;
+        }
+
+        public List<TaskHandle> getTaskHandles()
+        {
+            return taskHandles;
+        }
+    }
+
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Thread)
+    public static class LatencyData
+    {
+        @Param({"false", "true"})
+        private boolean workStealing;
+
+        private TaskExecutor taskExecutor;
+        private TaskHandle taskHandle;
+
+        @Setup
+        public void setup()
+        {
+            taskExecutor = createTaskExecutor(workStealing);
+            // intermediate splits do not count towards the running leaf splits, so they do not delay the start of the measured splits
+            TaskHandle backgroundTaskHandle = addTask(taskExecutor, 0);
+            ImmutableList.Builder<SplitRunner> backgroundSplits = ImmutableList.builder();
+            for (int i = 0; i < RUNNER_THREADS; i++) {
+                backgroundSplits.add(new BenchmarkSplit(Integer.MAX_VALUE));
+            }
+            taskExecutor.enqueueSplits(backgroundTaskHandle, true, backgroundSplits.build());
+            taskHandle = addTask(taskExecutor, 1);
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            taskExecutor.stop();
+        }
+
+        public TaskExecutor getTaskExecutor()
+        {
+            return taskExecutor;
+        }
+
+        public TaskHandle getTaskHandle()
+        {
+            return taskHandle;
+        }
+    }
+
+    private static TaskExecutor createTaskExecutor(boolean workStealing)
+    {
+        MultilevelSplitQueue splitQueue = new MultilevelSplitQueue(2, workStealing ? RUNNER_THREADS : 1, 1);
+        TaskExecutor taskExecutor = new TaskExecutor(RUNNER_THREADS, RUNNER_THREADS * 2, 3, 4, TASK_FAIR, splitQueue, Ticker.systemTicker());
+        taskExecutor.start();
+        return taskExecutor;
+    }
+
+    private static TaskHandle addTask(TaskExecutor taskExecutor, int id)
+    {
+        return taskExecutor.addTask(new TaskId("benchmark", 0, 0, id), () -> 0, 10, new Duration(1, SECONDS), OptionalInt.empty());
+    }
+
+    private static class BenchmarkSplit
+            implements SplitRunner
+    {
+        private final int quanta;
+        private final AtomicInteger completedQuanta = new AtomicInteger();
+
+        public BenchmarkSplit(int quanta)
+        {
+            this.quanta = quanta;
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return completedQuanta.get() >= quanta;
+        }
+
+        @Override
+        public ListenableFuture<?> processFor(Duration duration)
+        {
+            Blackhole.consumeCPU(TOKENS_PER_QUANTA);
+            completedQuanta.incrementAndGet();
+            return immediateFuture(null);
+        }
+
+        @Override
+        public String getInfo()
+        {
+            return "benchmark-split";
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkTaskExecutor.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -13,6 +13,8 @@
  */
 package com.facebook.presto.execution.executor;
 
+import com.facebook.airlift.stats.CounterStat;
+import com.facebook.airlift.stats.TimeStat;
 import com.facebook.airlift.testing.TestingTicker;
 import com.facebook.presto.execution.SplitRunner;
 import com.facebook.presto.execution.TaskId;
@@ -38,11 +40,13 @@ import static com.facebook.presto.execution.TaskManagerConfig.TaskPriorityTracki
 import static com.facebook.presto.execution.executor.MultilevelSplitQueue.LEVEL_CONTRIBUTION_CAP;
 import static com.facebook.presto.execution.executor.MultilevelSplitQueue.LEVEL_THRESHOLD_SECONDS;
 import static com.google.common.collect.Iterables.getOnlyElement;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 public class TestTaskExecutor
@@ -372,6 +376,61 @@ public class TestTaskExecutor
         }
     }
 
+    @Test
+    public void testWorkStealing()
+            throws Exception
+    {
+        // runner queues 0 and 1 belong to the first node, 2 and 3 to the second one
+        MultilevelSplitQueue splitQueue = new MultilevelSplitQueue(2, 4, 2);
+        TestingTicker ticker = new TestingTicker();
+        TaskHandle handle = new TaskHandle(new TaskId("test", 0, 0, 0), new TaskPriorityTracker(splitQueue), () -> 1, 1, new Duration(1, SECONDS), OptionalInt.empty());
+
+        PrioritizedSplitRunner firstNodeSplit = createPrioritizedSplitRunner(handle, ticker);
+        PrioritizedSplitRunner secondNodeSplit = createPrioritizedSplitRunner(handle, ticker);
+        PrioritizedSplitRunner localSplit = createPrioritizedSplitRunner(handle, ticker);
+        splitQueue.offer(firstNodeSplit, 0);
+        splitQueue.offer(secondNodeSplit, 2);
+        splitQueue.offer(localSplit, 3);
+        assertEquals(splitQueue.size(), 3);
+
+        // a runner takes the splits of its own queue first
+        assertSame(splitQueue.take(3), localSplit);
+        assertEquals(splitQueue.getStolenSplits().getTotalCount(), 0);
+
+        // then it steals from the queues of its own node before the queues of other nodes
+        assertSame(splitQueue.take(3), secondNodeSplit);
+        assertSame(splitQueue.take(3), firstNodeSplit);
+        assertEquals(splitQueue.getStolenSplits().getTotalCount(), 2);
+        assertEquals(splitQueue.size(), 0);
+    }
+
+    @Test(invocationCount = 10, timeOut = 30_000)
+    public void testTasksCompleteWithWorkStealing()
+            throws Exception
+    {
+        TestingTicker ticker = new TestingTicker();
+        TaskExecutor taskExecutor = new TaskExecutor(4, 8, 3, 4, TASK_FAIR, new MultilevelSplitQueue(2, 4, 2), ticker);
+        taskExecutor.start();
+        try {
+            TaskHandle taskHandle = taskExecutor.addTask(new TaskId("test", 0, 0, 0), () -> 0, 10, new Duration(1, MILLISECONDS), OptionalInt.empty());
+            ImmutableList.Builder<TestingJob> jobsBuilder = ImmutableList.builder();
+            for (int i = 0; i < 20; i++) {
+                jobsBuilder.add(new TestingJob(ticker, new Phaser(), new Phaser(), new Phaser(), 5, 0));
+            }
+            List<TestingJob> jobs = jobsBuilder.build();
+            for (ListenableFuture<?> future : taskExecutor.enqueueSplits(taskHandle, false, jobs)) {
+                future.get(10, SECONDS);
+            }
+            for (TestingJob job : jobs) {
+                assertEquals(job.getCompletedPhases(), 5);
+            }
+            assertEquals(taskExecutor.getWaitingSplits(), 0);
+        }
+        finally {
+            taskExecutor.stop();
+        }
+    }
+
     @Test(timeOut = 30_000)
     public void testMinMaxDriversPerTask()
     {
@@ -451,6 +510,12 @@ public class TestTaskExecutor
         }
     }
 
+    private static PrioritizedSplitRunner createPrioritizedSplitRunner(TaskHandle handle, TestingTicker ticker)
+    {
+        TestingJob job = new TestingJob(ticker, new Phaser(), new Phaser(), new Phaser(), 1, 0);
+        return new PrioritizedSplitRunner(handle, job, ticker, new CounterStat(), new CounterStat(), new TimeStat(MICROSECONDS), new TimeStat(MICROSECONDS));
+    }
+
     private void assertSplitStates(int endIndex, TestingJob[] splits)
     {
         // assert that splits up to and including endIndex are all started
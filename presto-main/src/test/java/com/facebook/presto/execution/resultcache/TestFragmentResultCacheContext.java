@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.resultcache;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.operator.Driver;
+import com.facebook.presto.operator.DriverContext;
+import com.facebook.presto.operator.Operator;
+import com.facebook.presto.operator.TaskContext;
+import com.facebook.presto.operator.ValuesOperator;
+import com.facebook.presto.spi.ConnectorId;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spi.schedule.NodeSelectionStrategy;
+import com.facebook.presto.testing.PageConsumerOperator;
+import com.facebook.presto.testing.TestingTransactionHandle;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
+import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
+import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.NO_PREFERENCE;
+import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestFragmentResultCacheContext
+{
+    private static final List<Type> TYPES = ImmutableList.of(VARCHAR, BIGINT);
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduledExecutor;
+    private Path directory;
+    private FragmentResultCache cache;
+
+    @BeforeMethod
+    public void setUp()
+            throws IOException
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
+        scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed("test-scheduledExecutor-%s"));
+        directory = Files.createTempDirectory("fragment-result-cache");
+        cache = new FragmentResultCache(new QueryResultCache(directory, 1_000_000, 1_000_000, 1_000_000, newDirectExecutorService()), createTestMetadataManager());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        executor.shutdownNow();
+        scheduledExecutor.shutdownNow();
+        deleteRecursively(directory, ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testReplayCachedOutput()
+    {
+        List<Page> input = rowPagesBuilder(TYPES)
+                .addSequencePage(10, 20, 30)
+                .addSequencePage(5, 40, 50)
+                .build();
+        Split split = createSplit(Optional.of("split-1"));
+
+        TaskContext firstTaskContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION);
+        List<Page> firstOutput = runDriver(new FragmentResultCacheContext(cache, "fragment", firstTaskContext), firstTaskContext, split, input);
+        assertPagesEqual(firstOutput, input);
+        assertEquals(firstTaskContext.getTaskStats().getFragmentResultCacheHits(), 0);
+        assertEquals(firstTaskContext.getTaskStats().getFragmentResultCacheMisses(), 1);
+
+        // the second driver gets no input, so its output can only come from the cache
+        TaskContext secondTaskContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION);
+        List<Page> secondOutput = runDriver(new FragmentResultCacheContext(cache, "fragment", secondTaskContext), secondTaskContext, split, ImmutableList.of());
+        assertPagesEqual(secondOutput, input);
+        assertEquals(secondTaskContext.getTaskStats().getFragmentResultCacheHits(), 1);
+        assertEquals(secondTaskContext.getTaskStats().getFragmentResultCacheMisses(), 0);
+
+        // the output of a different fragment is not shared
+        TaskContext thirdTaskContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION);
+        assertTrue(runDriver(new FragmentResultCacheContext(cache, "other fragment", thirdTaskContext), thirdTaskContext, split, ImmutableList.of()).isEmpty());
+        assertEquals(thirdTaskContext.getTaskStats().getFragmentResultCacheMisses(), 1);
+    }
+
+    @Test
+    public void testSplitWithoutIdentifier()
+    {
+        TaskContext taskContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION);
+        DriverContext driverContext = taskContext.addPipelineContext(0, true, true, false).addDriverContext();
+        List<Operator> operators = createOperators(driverContext, ImmutableList.of(), new ArrayList<>());
+
+        assertSame(new FragmentResultCacheContext(cache, "fragment", taskContext).createOperators(createSplit(Optional.empty()), operators), operators);
+        assertEquals(taskContext.getTaskStats().getFragmentResultCacheHits(), 0);
+        assertEquals(taskContext.getTaskStats().getFragmentResultCacheMisses(), 0);
+    }
+
+    private static List<Page> runDriver(FragmentResultCacheContext context, TaskContext taskContext, Split split, List<Page> input)
+    {
+        DriverContext driverContext = taskContext.addPipelineContext(0, true, true, false).addDriverContext();
+        List<Page> output = new ArrayList<>();
+        Driver driver = Driver.createDriver(driverContext, context.createOperators(split, createOperators(driverContext, input, output)));
+        while (!driver.isFinished()) {
+            driver.process();
+        }
+        driver.close();
+        return output;
+    }
+
+    private static List<Operator> createOperators(DriverContext driverContext, List<Page> input, List<Page> output)
+    {
+        return ImmutableList.of(
+                new ValuesOperator(driverContext.addOperatorContext(0, new PlanNodeId("values"), ValuesOperator.class.getSimpleName()), input),
+                new PageConsumerOperator(driverContext.addOperatorContext(1, new PlanNodeId("output"), PageConsumerOperator.class.getSimpleName()), output::add, Function.identity()));
+    }
+
+    private static void assertPagesEqual(List<Page> actual, List<Page> expected)
+    {
+        assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < actual.size(); i++) {
+            assertPageEquals(TYPES, actual.get(i), expected.get(i));
+        }
+    }
+
+    private static Split createSplit(Optional<String> splitIdentifier)
+    {
+        return new Split(new ConnectorId("test"), TestingTransactionHandle.create(), new ConnectorSplit()
+        {
+            @Override
+            public NodeSelectionStrategy getNodeSelectionStrategy()
+            {
+                return NO_PREFERENCE;
+            }
+
+            @Override
+            public List<HostAddress> getPreferredNodes(List<HostAddress> sortedCandidates)
+            {
+                return ImmutableList.of();
+            }
+
+            @Override
+            public Object getInfo()
+            {
+                return this;
+            }
+
+            @Override
+            public Optional<String> getSplitIdentifier()
+            {
+                return splitIdentifier;
+            }
+        });
+    }
+}
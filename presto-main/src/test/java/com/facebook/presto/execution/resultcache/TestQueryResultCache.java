@@ -0,0 +1,281 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.resultcache;
+
+import com.facebook.presto.execution.resultcache.QueryResultCache.ResultRecorder;
+import com.facebook.presto.spi.page.PageCodecMarker;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestQueryResultCache
+{
+    private static final QueryResultCacheKey KEY_1 = new QueryResultCacheKey("key1");
+    private static final QueryResultCacheKey KEY_2 = new QueryResultCacheKey("key2");
+    private static final QueryResultCacheKey KEY_3 = new QueryResultCacheKey("key3");
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp()
+            throws IOException
+    {
+        directory = Files.createTempDirectory("query-result-cache");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(directory, ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testHitAndMiss()
+    {
+        QueryResultCache cache = createCache(1000, 1000);
+        List<SerializedPage> pages = ImmutableList.of(createPage(10, 1), createPage(20, 2));
+
+        assertFalse(cache.get(KEY_1).isPresent());
+        record(cache, KEY_1, pages);
+
+        Optional<CachedQueryResult> cachedResult = cache.get(KEY_1);
+        assertTrue(cachedResult.isPresent());
+        assertEquals(cachedResult.get().getSizeInBytes(), 30);
+        assertEquals(readPages(cachedResult.get()), pages);
+        assertFalse(cache.get(KEY_2).isPresent());
+
+        assertEquals(cache.getHits().getTotalCount(), 1);
+        assertEquals(cache.getMisses().getTotalCount(), 2);
+        assertEquals(cache.getBytesSaved().getTotalCount(), 30);
+        assertEquals(cache.getEntryCount(), 1);
+        assertEquals(cache.getSizeInBytes(), 30);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction()
+    {
+        QueryResultCache cache = createCache(100, 100);
+        record(cache, KEY_1, ImmutableList.of(createPage(40, 1)));
+        record(cache, KEY_2, ImmutableList.of(createPage(40, 2)));
+
+        // make the first result the most recently used one
+        assertTrue(cache.get(KEY_1).isPresent());
+
+        record(cache, KEY_3, ImmutableList.of(createPage(40, 3)));
+        assertTrue(cache.get(KEY_1).isPresent());
+        assertFalse(cache.get(KEY_2).isPresent());
+        assertTrue(cache.get(KEY_3).isPresent());
+
+        assertEquals(cache.getEvictions().getTotalCount(), 1);
+        assertEquals(cache.getEntryCount(), 2);
+        assertEquals(cache.getSizeInBytes(), 80);
+    }
+
+    @Test
+    public void testResultIsReadWhileItIsReturned()
+    {
+        QueryResultCache cache = createCache(100, 100);
+        record(cache, KEY_1, ImmutableList.of(createPage(40, 1), createPage(40, 2)));
+
+        CachedQueryResult cachedResult = cache.get(KEY_1).get();
+        assertFalse(cachedResult.isFinished());
+        assertEquals(cachedResult.pollPage(), createPage(40, 1));
+        assertFalse(cachedResult.isFinished());
+
+        // the result opened before its entry was evicted can still be read
+        record(cache, KEY_2, ImmutableList.of(createPage(40, 3)));
+        assertFalse(cache.get(KEY_1).isPresent());
+        assertEquals(cachedResult.pollPage(), createPage(40, 2));
+        assertTrue(cachedResult.isFinished());
+        assertNull(cachedResult.pollPage());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "cached query result is closed")
+    public void testClosedResultIsNotTruncated()
+    {
+        QueryResultCache cache = createCache(100, 100);
+        record(cache, KEY_1, ImmutableList.of(createPage(40, 1), createPage(40, 2)));
+
+        CachedQueryResult cachedResult = cache.get(KEY_1).get();
+        assertEquals(cachedResult.pollPage(), createPage(40, 1));
+        cachedResult.close();
+        cachedResult.pollPage();
+    }
+
+    @Test
+    public void testEntryTooLarge()
+    {
+        QueryResultCache cache = createCache(1000, 50);
+        record(cache, KEY_1, ImmutableList.of(createPage(30, 1), createPage(30, 2)));
+
+        assertFalse(cache.get(KEY_1).isPresent());
+        assertEquals(cache.getEntryCount(), 0);
+        assertEquals(cache.getSizeInBytes(), 0);
+    }
+
+    @Test
+    public void testAbandon()
+    {
+        QueryResultCache cache = createCache(1000, 1000);
+        ResultRecorder recorder = cache.recordResult(KEY_1);
+        recorder.addPage(createPage(10, 1));
+        recorder.abandon();
+        recorder.commit();
+
+        assertFalse(cache.get(KEY_1).isPresent());
+    }
+
+    @Test
+    public void testStaleResultsDeleted()
+    {
+        QueryResultCache cache = createCache(1000, 1000);
+        record(cache, KEY_1, ImmutableList.of(createPage(10, 1)));
+
+        // a new cache does not know the results of the previous one
+        QueryResultCache restarted = createCache(1000, 1000);
+        assertFalse(restarted.get(KEY_1).isPresent());
+        assertEquals(directory.toFile().list().length, 0);
+    }
+
+    @Test
+    public void testRecordingSizeLimit()
+    {
+        QueryResultCache cache = new QueryResultCache(directory, 1000, 1000, 50, newDirectExecutorService());
+        ResultRecorder first = cache.recordResult(KEY_1);
+        first.addPage(createPage(30, 1));
+        assertEquals(cache.getRecordingSizeInBytes(), 30);
+
+        // the pages of the second result do not fit next to the pages of the first one
+        ResultRecorder second = cache.recordResult(KEY_2);
+        second.addPage(createPage(30, 2));
+        assertTrue(second.isDone());
+        assertEquals(cache.getRecordingSizeInBytes(), 30);
+
+        first.commit();
+        second.commit();
+        assertEquals(cache.getRecordingSizeInBytes(), 0);
+        assertTrue(cache.get(KEY_1).isPresent());
+        assertFalse(cache.get(KEY_2).isPresent());
+
+        // abandoned results free their memory as well
+        ResultRecorder third = cache.recordResult(KEY_3);
+        third.addPage(createPage(30, 3));
+        third.abandon();
+        assertEquals(cache.getRecordingSizeInBytes(), 0);
+    }
+
+    @Test
+    public void testResultsAreWrittenInBackground()
+    {
+        List<Runnable> writes = new ArrayList<>();
+        QueryResultCache cache = new QueryResultCache(directory, 1000, 1000, 1000, new AbstractExecutorService()
+        {
+            @Override
+            public void execute(Runnable command)
+            {
+                writes.add(command);
+            }
+
+            @Override
+            public void shutdown()
+            {
+            }
+
+            @Override
+            public List<Runnable> shutdownNow()
+            {
+                return ImmutableList.of();
+            }
+
+            @Override
+            public boolean isShutdown()
+            {
+                return false;
+            }
+
+            @Override
+            public boolean isTerminated()
+            {
+                return false;
+            }
+
+            @Override
+            public boolean awaitTermination(long timeout, TimeUnit unit)
+            {
+                return true;
+            }
+        });
+        record(cache, KEY_1, ImmutableList.of(createPage(10, 1)));
+
+        // the result is held in memory until it is written
+        assertEquals(writes.size(), 1);
+        assertEquals(cache.getRecordingSizeInBytes(), 10);
+        assertFalse(cache.get(KEY_1).isPresent());
+
+        writes.forEach(Runnable::run);
+        assertEquals(cache.getRecordingSizeInBytes(), 0);
+        assertTrue(cache.get(KEY_1).isPresent());
+    }
+
+    private static List<SerializedPage> readPages(CachedQueryResult cachedResult)
+    {
+        ImmutableList.Builder<SerializedPage> pages = ImmutableList.builder();
+        for (SerializedPage page = cachedResult.pollPage(); page != null; page = cachedResult.pollPage()) {
+            pages.add(page);
+        }
+        assertTrue(cachedResult.isFinished());
+        return pages.build();
+    }
+
+    private QueryResultCache createCache(long maxSizeInBytes, long maxEntrySizeInBytes)
+    {
+        return new QueryResultCache(directory, maxSizeInBytes, maxEntrySizeInBytes, maxSizeInBytes, newDirectExecutorService());
+    }
+
+    private static void record(QueryResultCache cache, QueryResultCacheKey key, List<SerializedPage> pages)
+    {
+        ResultRecorder recorder = cache.recordResult(key);
+        pages.forEach(recorder::addPage);
+        recorder.commit();
+    }
+
+    private static SerializedPage createPage(int sizeInBytes, int positionCount)
+    {
+        byte[] bytes = new byte[sizeInBytes];
+        bytes[0] = (byte) positionCount;
+        return new SerializedPage(wrappedBuffer(bytes), PageCodecMarker.none(), positionCount, sizeInBytes);
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.resultcache;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.cost.StatsAndCosts;
+import com.facebook.presto.execution.QueryManagerConfig;
+import com.facebook.presto.execution.warnings.WarningCollector;
+import com.facebook.presto.metadata.FunctionManager;
+import com.facebook.presto.operator.StageExecutionDescriptor;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.plan.PlanNodeIdAllocator;
+import com.facebook.presto.spi.relation.DeterminismEvaluator;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.planner.Partitioning;
+import com.facebook.presto.sql.planner.PartitioningScheme;
+import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.sql.planner.PlanFragment;
+import com.facebook.presto.sql.planner.PlanFragmenter;
+import com.facebook.presto.sql.planner.SubPlan;
+import com.facebook.presto.sql.planner.iterative.rule.test.PlanBuilder;
+import com.facebook.presto.sql.planner.plan.PlanFragmentId;
+import com.facebook.presto.sql.relational.RowExpressionDeterminismEvaluator;
+import com.facebook.presto.testing.LocalQueryRunner;
+import com.facebook.presto.tpch.TpchConnectorFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.QUERY_MAX_RUN_TIME;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.TimeZoneKey.getTimeZoneKey;
+import static com.facebook.presto.common.type.TimestampWithTimeZoneType.TIMESTAMP_WITH_TIME_ZONE;
+import static com.facebook.presto.execution.resultcache.QueryResultCacheKey.createQueryResultCacheKey;
+import static com.facebook.presto.execution.resultcache.QueryResultCacheKey.hasDeterministicResult;
+import static com.facebook.presto.execution.resultcache.QueryResultCacheKey.isReadOnly;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
+import static com.facebook.presto.sql.planner.iterative.rule.test.PlanBuilder.assignment;
+import static com.facebook.presto.sql.planner.plan.SampleNode.Type.BERNOULLI;
+import static com.facebook.presto.sql.relational.Expressions.call;
+import static com.facebook.presto.sql.relational.Expressions.constant;
+import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestQueryResultCacheKey
+{
+    private static final String QUERY = "SELECT nationkey, name FROM nation WHERE regionkey = 1";
+
+    private LocalQueryRunner queryRunner;
+    private PlanFragmenter planFragmenter;
+    private FunctionManager functionManager;
+    private DeterminismEvaluator determinismEvaluator;
+
+    @BeforeClass
+    public void setUp()
+    {
+        queryRunner = new LocalQueryRunner(testSessionBuilder()
+                .setCatalog("local")
+                .setSchema("tiny")
+                .build());
+        queryRunner.createCatalog(queryRunner.getDefaultSession().getCatalog().get(), new TpchConnectorFactory(1), ImmutableMap.of());
+        planFragmenter = new PlanFragmenter(queryRunner.getMetadata(), queryRunner.getNodePartitioningManager(), new QueryManagerConfig(), queryRunner.getSqlParser());
+        functionManager = queryRunner.getMetadata().getFunctionManager();
+        determinismEvaluator = new RowExpressionDeterminismEvaluator(functionManager);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        if (queryRunner != null) {
+            queryRunner.close();
+            queryRunner = null;
+        }
+    }
+
+    @Test
+    public void testSameQueryHasSameKey()
+    {
+        Optional<QueryResultCacheKey> key = createKey(queryRunner.getDefaultSession(), QUERY);
+        assertTrue(key.isPresent());
+        assertEquals(createKey(queryRunner.getDefaultSession(), QUERY), key);
+    }
+
+    @Test
+    public void testDifferentQueriesHaveDifferentKeys()
+    {
+        Optional<QueryResultCacheKey> key = createKey(queryRunner.getDefaultSession(), QUERY);
+        Optional<QueryResultCacheKey> otherKey = createKey(queryRunner.getDefaultSession(), "SELECT nationkey, name FROM nation WHERE regionkey = 2");
+        assertTrue(key.isPresent());
+        assertTrue(otherKey.isPresent());
+        assertNotEquals(otherKey, key);
+
+        // the same table in a different scale factor has a different data version
+        Optional<QueryResultCacheKey> otherSchemaKey = createKey(queryRunner.getDefaultSession(), "SELECT nationkey, name FROM sf1.nation WHERE regionkey = 1");
+        assertTrue(otherSchemaKey.isPresent());
+        assertNotEquals(otherSchemaKey, key);
+    }
+
+    @Test
+    public void testSessionIsPartOfKey()
+    {
+        Optional<QueryResultCacheKey> key = createKey(queryRunner.getDefaultSession(), QUERY);
+        assertTrue(key.isPresent());
+
+        Session otherTimeZone = Session.builder(queryRunner.getDefaultSession())
+                .setTimeZoneKey(getTimeZoneKey("Asia/Kathmandu"))
+                .build();
+        assertNotEquals(createKey(otherTimeZone, QUERY), key);
+
+        Session otherProperties = Session.builder(queryRunner.getDefaultSession())
+                .setSystemProperty(QUERY_MAX_RUN_TIME, "1h")
+                .build();
+        assertNotEquals(createKey(otherProperties, QUERY), key);
+    }
+
+    @Test
+    public void testQueriesDependingOnStartTimeAreNotShared()
+    {
+        @Language("SQL") String query = "SELECT orderkey, current_timestamp FROM orders";
+        Session session = Session.builder(queryRunner.getDefaultSession())
+                .setStartTime(0)
+                .build();
+        Session nextDay = Session.builder(queryRunner.getDefaultSession())
+                .setStartTime(86_400_000)
+                .build();
+
+        // the planner may fold current_timestamp into a constant, in which case the start time is part of the plan
+        Optional<QueryResultCacheKey> key = createKey(session, query);
+        assertTrue(!key.isPresent() || !key.equals(createKey(nextDay, query)));
+    }
+
+    @Test
+    public void testReadOnly()
+    {
+        assertTrue(isReadOnly(queryRunner.inTransaction(session -> createSubPlan(session, QUERY))));
+
+        PlanBuilder planBuilder = new PlanBuilder(queryRunner.getDefaultSession(), new PlanNodeIdAllocator(), queryRunner.getMetadata());
+        VariableReferenceExpression column = planBuilder.variable("column", BIGINT);
+        PlanNode writer = planBuilder.tableWriter(ImmutableList.of(column), ImmutableList.of("column"), planBuilder.values(column));
+        SubPlan writerPlan = createSubPlan(writer);
+        assertFalse(isReadOnly(writerPlan));
+        assertFalse(createQueryResultCacheKey(writerPlan, queryRunner.getDefaultSession(), queryRunner.getMetadata()).isPresent());
+    }
+
+    @Test
+    public void testDeterministicResult()
+    {
+        assertTrue(hasDeterministicResult(project(call(functionManager, "abs", BIGINT, constant(-1L, BIGINT)), BIGINT), determinismEvaluator));
+        assertFalse(hasDeterministicResult(project(call(functionManager, "random", DOUBLE), DOUBLE), determinismEvaluator));
+
+        // deterministic within a query, but different for queries started at different times
+        assertFalse(hasDeterministicResult(project(call(functionManager, "now", TIMESTAMP_WITH_TIME_ZONE), TIMESTAMP_WITH_TIME_ZONE), determinismEvaluator));
+        assertFalse(hasDeterministicResult(project(call(functionManager, "current_date", DATE), DATE), determinismEvaluator));
+        assertFalse(hasDeterministicResult(
+                project(call(functionManager, "year", BIGINT, call(functionManager, "current_date", DATE)), BIGINT),
+                determinismEvaluator));
+
+        PlanBuilder planBuilder = new PlanBuilder(queryRunner.getDefaultSession(), new PlanNodeIdAllocator(), queryRunner.getMetadata());
+        PlanNode sample = planBuilder.sample(0.5, BERNOULLI, planBuilder.values(planBuilder.variable("column", BIGINT)));
+        assertFalse(hasDeterministicResult(sample, determinismEvaluator));
+    }
+
+    private PlanNode project(RowExpression expression, Type type)
+    {
+        PlanBuilder planBuilder = new PlanBuilder(queryRunner.getDefaultSession(), new PlanNodeIdAllocator(), queryRunner.getMetadata());
+        return planBuilder.project(assignment(planBuilder.variable("expression", type), expression), planBuilder.values(1));
+    }
+
+    private Optional<QueryResultCacheKey> createKey(Session session, @Language("SQL") String sql)
+    {
+        return queryRunner.inTransaction(session, transactionSession ->
+                createQueryResultCacheKey(createSubPlan(transactionSession, sql), transactionSession, queryRunner.getMetadata()));
+    }
+
+    private SubPlan createSubPlan(Session transactionSession, @Language("SQL") String sql)
+    {
+        Plan plan = queryRunner.createPlan(transactionSession, sql, WarningCollector.NOOP);
+        return planFragmenter.createSubPlans(transactionSession, plan, true, new PlanNodeIdAllocator(), WarningCollector.NOOP);
+    }
+
+    private static SubPlan createSubPlan(PlanNode root)
+    {
+        PlanFragment fragment = new PlanFragment(
+                new PlanFragmentId(0),
+                root,
+                ImmutableSet.copyOf(root.getOutputVariables()),
+                SINGLE_DISTRIBUTION,
+                ImmutableList.of(),
+                new PartitioningScheme(Partitioning.create(SINGLE_DISTRIBUTION, ImmutableList.of()), root.getOutputVariables()),
+                StageExecutionDescriptor.ungroupedExecution(),
+                false,
+                StatsAndCosts.empty(),
+                Optional.empty());
+        return new SubPlan(fragment, ImmutableList.of());
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.airlift.stats.CounterStat;
+import com.facebook.airlift.testing.TestingTicker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+
+import java.util.OptionalDouble;
+
+import static com.facebook.presto.execution.scheduler.AdaptiveSplitQueueSizer.STRAGGLER_MIN_SAMPLES;
+import static com.facebook.presto.execution.scheduler.AdaptiveSplitQueueSizer.STRAGGLER_PROBATION_NANOS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestAdaptiveSplitQueueSizer
+{
+    private static final int MAX_PENDING_SPLITS_PER_TASK = 10;
+
+    @Test
+    public void testConfiguredLimitWithoutCompletedSplits()
+    {
+        TestingTicker ticker = new TestingTicker();
+        AdaptiveSplitQueueSizer sizer = new AdaptiveSplitQueueSizer(MAX_PENDING_SPLITS_PER_TASK, ticker);
+        sizer.recordAssignedSplits("a", 10);
+        sizer.recordAssignedSplits("b", 10);
+
+        ticker.increment(1, SECONDS);
+        sizer.updatePartitionedSplitCount("a", 10);
+        sizer.updatePartitionedSplitCount("b", 10);
+        sizer.updateMaxPendingSplits();
+
+        assertEquals(sizer.getMaxPendingSplits("a"), MAX_PENDING_SPLITS_PER_TASK);
+        assertEquals(sizer.getMaxPendingSplits("b"), MAX_PENDING_SPLITS_PER_TASK);
+        assertEquals(sizer.getMaxPendingSplits("unknown"), MAX_PENDING_SPLITS_PER_TASK);
+    }
+
+    @Test
+    public void testLimitFollowsCompletionRate()
+    {
+        TestingTicker ticker = new TestingTicker();
+        AdaptiveSplitQueueSizer sizer = new AdaptiveSplitQueueSizer(MAX_PENDING_SPLITS_PER_TASK, ticker);
+        sizer.recordAssignedSplits("fast", 10);
+        sizer.recordAssignedSplits("slow", 10);
+
+        ticker.increment(1, SECONDS);
+        sizer.updatePartitionedSplitCount("fast", 2);
+        sizer.updatePartitionedSplitCount("slow", 8);
+        sizer.updateMaxPendingSplits();
+
+        // 8 and 2 splits per second, against an average of 5
+        assertEquals(sizer.getMaxPendingSplits("fast"), 16);
+        assertEquals(sizer.getMaxPendingSplits("slow"), 4);
+        assertEquals(sizer.getMaxPendingSplits("unknown"), MAX_PENDING_SPLITS_PER_TASK);
+    }
+
+    @Test
+    public void testLimitIsBounded()
+    {
+        TestingTicker ticker = new TestingTicker();
+        AdaptiveSplitQueueSizer sizer = new AdaptiveSplitQueueSizer(MAX_PENDING_SPLITS_PER_TASK, ticker);
+        sizer.recordAssignedSplits("fast", 100);
+        sizer.recordAssignedSplits("idle1", 10);
+        sizer.recordAssignedSplits("idle2", 10);
+        sizer.recordAssignedSplits("idle3", 10);
+        sizer.recordAssignedSplits("idle4", 10);
+
+        ticker.increment(1, SECONDS);
+        sizer.updatePartitionedSplitCount("fast", 0);
+        sizer.updatePartitionedSplitCount("idle1", 10);
+        sizer.updatePartitionedSplitCount("idle2", 10);
+        sizer.updatePartitionedSplitCount("idle3", 10);
+        sizer.updatePartitionedSplitCount("idle4", 10);
+        sizer.updateMaxPendingSplits();
+
+        assertEquals(sizer.getMaxPendingSplits("fast"), (int) (MAX_PENDING_SPLITS_PER_TASK * AdaptiveSplitQueueSizer.MAX_QUEUE_SCALE));
+        assertEquals(sizer.getMaxPendingSplits("idle1"), (int) Math.round(MAX_PENDING_SPLITS_PER_TASK / AdaptiveSplitQueueSizer.MAX_QUEUE_SCALE));
+    }
+
+    @Test
+    public void testSamplesAreRateLimited()
+    {
+        TestingTicker ticker = new TestingTicker();
+        AdaptiveSplitQueueSizer sizer = new AdaptiveSplitQueueSizer(MAX_PENDING_SPLITS_PER_TASK, ticker);
+        sizer.recordAssignedSplits("fast", 10);
+        sizer.recordAssignedSplits("slow", 10);
+
+        // the first sample is taken too early and is ignored
+        ticker.increment(100, MILLISECONDS);
+        sizer.updatePartitionedSplitCount("fast", 0);
+        sizer.updatePartitionedSplitCount("slow", 10);
+        sizer.updateMaxPendingSplits();
+        assertEquals(sizer.getMaxPendingSplits("fast"), MAX_PENDING_SPLITS_PER_TASK);
+        assertEquals(sizer.getMaxPendingSplits("slow"), MAX_PENDING_SPLITS_PER_TASK);
+
+        ticker.increment(900, MILLISECONDS);
+        sizer.updatePartitionedSplitCount("fast", 5);
+        sizer.updatePartitionedSplitCount("slow", 5);
+        sizer.updateMaxPendingSplits();
+        assertEquals(sizer.getMaxPendingSplits("fast"), MAX_PENDING_SPLITS_PER_TASK);
+        assertEquals(sizer.getMaxPendingSplits("slow"), MAX_PENDING_SPLITS_PER_TASK);
+    }
+
+    @Test
+    public void testStragglers()
+    {
+        TestingTicker ticker = new TestingTicker();
+        CounterStat throttledStragglerTasks = new CounterStat();
+        AdaptiveSplitQueueSizer sizer = new AdaptiveSplitQueueSizer(MAX_PENDING_SPLITS_PER_TASK, false, OptionalDouble.of(0.25), throttledStragglerTasks, ticker);
+        sizer.recordAssignedSplits("a", 40);
+        sizer.recordAssignedSplits("b", 40);
+        sizer.recordAssignedSplits("c", 40);
+
+        // a median of 10 splits per second, but a single sample is not enough to judge a task
+        ticker.increment(1, SECONDS);
+        sizer.updatePartitionedSplitCount("a", 30);
+        sizer.updatePartitionedSplitCount("b", 28);
+        sizer.updatePartitionedSplitCount("c", 38);
+        sizer.updateMaxPendingSplits();
+        assertFalse(sizer.isStraggler("c"));
+        assertEquals(sizer.getMaxPendingSplits("c"), MAX_PENDING_SPLITS_PER_TASK);
+
+        ticker.increment(1, SECONDS);
+        sizer.updatePartitionedSplitCount("a", 20);
+        sizer.updatePartitionedSplitCount("b", 16);
+        sizer.updatePartitionedSplitCount("c", 36);
+        sizer.updateMaxPendingSplits();
+
+        assertFalse(sizer.isStraggler("a"));
+        assertFalse(sizer.isStraggler("b"));
+        assertTrue(sizer.isStraggler("c"));
+        assertEquals(sizer.getMaxPendingSplits("a"), MAX_PENDING_SPLITS_PER_TASK);
+        assertEquals(sizer.getMaxPendingSplits("b"), MAX_PENDING_SPLITS_PER_TASK);
+        assertEquals(sizer.getMaxPendingSplits("c"), 1);
+        assertEquals(throttledStragglerTasks.getTotalCount(), 1);
+
+        // the straggler stays one for its probation, although its reduced split queue keeps its rate low
+        ticker.increment(STRAGGLER_PROBATION_NANOS - SECONDS.toNanos(1), NANOSECONDS);
+        sizer.updatePartitionedSplitCount("c", 35);
+        sizer.updateMaxPendingSplits();
+        assertTrue(sizer.isStraggler("c"));
+        assertEquals(sizer.getMaxPendingSplits("c"), 1);
+        assertEquals(throttledStragglerTasks.getTotalCount(), 1);
+
+        // then it gets a regular split queue, and its rate is measured again before it is judged again
+        ticker.increment(1, SECONDS);
+        sizer.updateMaxPendingSplits();
+        assertFalse(sizer.isStraggler("c"));
+        assertEquals(sizer.getMaxPendingSplits("c"), MAX_PENDING_SPLITS_PER_TASK);
+
+        ticker.increment(1, SECONDS);
+        sizer.updatePartitionedSplitCount("c", 34);
+        sizer.updateMaxPendingSplits();
+        assertFalse(sizer.isStraggler("c"));
+        assertEquals(throttledStragglerTasks.getTotalCount(), 1);
+
+        // a task that is still slow after its probation is a straggler again
+        ticker.increment(1, SECONDS);
+        sizer.updatePartitionedSplitCount("c", 33);
+        sizer.updateMaxPendingSplits();
+        assertTrue(sizer.isStraggler("c"));
+        assertEquals(sizer.getMaxPendingSplits("c"), 1);
+        assertEquals(throttledStragglerTasks.getTotalCount(), 2);
+
+        // the configured split batch size is used when the split queues are not scaled
+        assertEquals(sizer.getSplitBatchSize(ImmutableList.of(), 3, 1000), 1000);
+    }
+
+    @Test
+    public void testStragglerRecovers()
+    {
+        TestingTicker ticker = new TestingTicker();
+        AdaptiveSplitQueueSizer sizer = new AdaptiveSplitQueueSizer(MAX_PENDING_SPLITS_PER_TASK, false, OptionalDouble.of(0.25), new CounterStat(), ticker);
+        sizer.recordAssignedSplits("a", 100);
+        sizer.recordAssignedSplits("b", 100);
+        sizer.recordAssignedSplits("c", 100);
+
+        for (int i = 1; i <= STRAGGLER_MIN_SAMPLES; i++) {
+            ticker.increment(1, SECONDS);
+            sizer.updatePartitionedSplitCount("a", 100 - 10 * i);
+            sizer.updatePartitionedSplitCount("b", 100 - 10 * i);
+            sizer.updatePartitionedSplitCount("c", 100 - i);
+            sizer.updateMaxPendingSplits();
+        }
+        assertTrue(sizer.isStraggler("c"));
+
+        // once its probation is over, a task that runs as fast as the others is not a straggler
+        ticker.increment(STRAGGLER_PROBATION_NANOS, NANOSECONDS);
+        sizer.updateMaxPendingSplits();
+        assertFalse(sizer.isStraggler("c"));
+        sizer.recordAssignedSplits("c", 20);
+        int queuedSplits = 100 - STRAGGLER_MIN_SAMPLES + 20;
+        for (int i = 1; i <= STRAGGLER_MIN_SAMPLES; i++) {
+            ticker.increment(1, SECONDS);
+            sizer.updatePartitionedSplitCount("c", queuedSplits - 10 * i);
+            sizer.updateMaxPendingSplits();
+        }
+        assertFalse(sizer.isStraggler("c"));
+        assertEquals(sizer.getMaxPendingSplits("c"), MAX_PENDING_SPLITS_PER_TASK);
+    }
+
+    @Test
+    public void testNewStragglersArePolledOnce()
+    {
+        TestingTicker ticker = new TestingTicker();
+        AdaptiveSplitQueueSizer sizer = new AdaptiveSplitQueueSizer(MAX_PENDING_SPLITS_PER_TASK, false, OptionalDouble.of(0.25), new CounterStat(), ticker);
+        sizer.recordAssignedSplits("a", 100);
+        sizer.recordAssignedSplits("b", 100);
+        sizer.recordAssignedSplits("c", 100);
+
+        for (int i = 1; i <= STRAGGLER_MIN_SAMPLES; i++) {
+            ticker.increment(1, SECONDS);
+            sizer.updatePartitionedSplitCount("a", 100 - 10 * i);
+            sizer.updatePartitionedSplitCount("b", 100 - 10 * i);
+            sizer.updatePartitionedSplitCount("c", 100 - i);
+            sizer.updateMaxPendingSplits();
+        }
+        assertTrue(sizer.isStraggler("c"));
+
+        // the queued splits of a straggler are withdrawn once, although it stays a straggler
+        assertEquals(sizer.pollNewStragglers(), ImmutableSet.of("c"));
+        ticker.increment(1, SECONDS);
+        sizer.updateMaxPendingSplits();
+        assertTrue(sizer.isStraggler("c"));
+        assertEquals(sizer.pollNewStragglers(), ImmutableSet.of());
+    }
+
+    @Test
+    public void testWithdrawnSplitsAreNotCompleted()
+    {
+        TestingTicker ticker = new TestingTicker();
+        AdaptiveSplitQueueSizer sizer = new AdaptiveSplitQueueSizer(MAX_PENDING_SPLITS_PER_TASK, true, OptionalDouble.empty(), new CounterStat(), ticker);
+        sizer.recordAssignedSplits("a", 100);
+        sizer.recordAssignedSplits("b", 100);
+
+        ticker.increment(1, SECONDS);
+        sizer.updatePartitionedSplitCount("a", 90);
+        sizer.updatePartitionedSplitCount("b", 90);
+        sizer.updateMaxPendingSplits();
+        assertEquals(sizer.getMaxPendingSplits("a"), MAX_PENDING_SPLITS_PER_TASK);
+
+        // 50 splits are taken back from the first task, which still completes 10 splits per second
+        sizer.recordWithdrawnSplits("a", 50);
+        ticker.increment(1, SECONDS);
+        sizer.updatePartitionedSplitCount("a", 30);
+        sizer.updatePartitionedSplitCount("b", 80);
+        sizer.updateMaxPendingSplits();
+        assertEquals(sizer.getMaxPendingSplits("a"), MAX_PENDING_SPLITS_PER_TASK);
+        assertEquals(sizer.getMaxPendingSplits("b"), MAX_PENDING_SPLITS_PER_TASK);
+    }
+
+    @Test
+    public void testIdleTimeIsNotCounted()
+    {
+        TestingTicker ticker = new TestingTicker();
+        AdaptiveSplitQueueSizer sizer = new AdaptiveSplitQueueSizer(MAX_PENDING_SPLITS_PER_TASK, true, OptionalDouble.of(0.25), new CounterStat(), ticker);
+        sizer.recordAssignedSplits("busy", 200);
+        sizer.recordAssignedSplits("starved", 10);
+
+        // both tasks complete 10 splits per second, but the starved task runs out of splits
+        ticker.increment(1, SECONDS);
+        sizer.updatePartitionedSplitCount("busy", 190);
+        sizer.updatePartitionedSplitCount("starved", 0);
+        sizer.updateMaxPendingSplits();
+        assertEquals(sizer.getMaxPendingSplits("busy"), MAX_PENDING_SPLITS_PER_TASK);
+        assertEquals(sizer.getMaxPendingSplits("starved"), MAX_PENDING_SPLITS_PER_TASK);
+
+        // the starved task does not complete splits it does not have
+        for (int i = 2; i <= 5; i++) {
+            ticker.increment(1, SECONDS);
+            sizer.updatePartitionedSplitCount("busy", 200 - 10 * i);
+            sizer.updatePartitionedSplitCount("starved", 0);
+            sizer.updateMaxPendingSplits();
+        }
+        assertFalse(sizer.isStraggler("starved"));
+        assertEquals(sizer.getMaxPendingSplits("starved"), MAX_PENDING_SPLITS_PER_TASK);
+
+        // the interval of the next sample starts when the task gets splits again
+        ticker.increment(10, SECONDS);
+        sizer.recordAssignedSplits("starved", 10);
+        ticker.increment(1, SECONDS);
+        sizer.updatePartitionedSplitCount("busy", 40);
+        sizer.updatePartitionedSplitCount("starved", 0);
+        sizer.updateMaxPendingSplits();
+        assertFalse(sizer.isStraggler("starved"));
+        assertEquals(sizer.getMaxPendingSplits("starved"), MAX_PENDING_SPLITS_PER_TASK);
+    }
+
+    @Test
+    public void testSingleTaskIsNoStraggler()
+    {
+        TestingTicker ticker = new TestingTicker();
+        AdaptiveSplitQueueSizer sizer = new AdaptiveSplitQueueSizer(MAX_PENDING_SPLITS_PER_TASK, false, OptionalDouble.of(0.25), new CounterStat(), ticker);
+        sizer.recordAssignedSplits("a", 20);
+
+        ticker.increment(1, SECONDS);
+        sizer.updatePartitionedSplitCount("a", 19);
+        sizer.updateMaxPendingSplits();
+
+        assertFalse(sizer.isStraggler("a"));
+        assertEquals(sizer.getMaxPendingSplits("a"), MAX_PENDING_SPLITS_PER_TASK);
+    }
+
+    @Test
+    public void testSplitBatchSize()
+    {
+        AdaptiveSplitQueueSizer sizer = new AdaptiveSplitQueueSizer(MAX_PENDING_SPLITS_PER_TASK, new TestingTicker());
+
+        // nodes without a task have an empty split queue
+        assertEquals(sizer.getSplitBatchSize(ImmutableList.of(), 3, 1000), 3 * MAX_PENDING_SPLITS_PER_TASK);
+        assertEquals(sizer.getSplitBatchSize(ImmutableList.of(), 3, 20), 20);
+        assertEquals(sizer.getSplitBatchSize(ImmutableList.of(), 0, 1000), 1);
+    }
+}
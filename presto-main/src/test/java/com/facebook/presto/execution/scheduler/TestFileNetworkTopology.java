@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.presto.spi.HostAddress;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static com.facebook.presto.execution.scheduler.NetworkLocation.ROOT_LOCATION;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+
+public class TestFileNetworkTopology
+{
+    @Test
+    public void testLocate()
+            throws IOException
+    {
+        File file = File.createTempFile("topology", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), ImmutableList.of(
+                "# host zone/rack",
+                "worker-1.example.com us-east-1a/rack-1",
+                "",
+                "Worker-2.example.com   us-east-1b/rack-7"), UTF_8);
+
+        FileNetworkTopology topology = new FileNetworkTopology(file, ImmutableList.of("zone", "rack"));
+        assertEquals(topology.getLocationSegmentNames(), ImmutableList.of("zone", "rack", "machine"));
+        assertEquals(
+                topology.locate(HostAddress.fromParts("worker-1.example.com", 8080)),
+                NetworkLocation.create(ImmutableList.of("us-east-1a", "rack-1", "worker-1.example.com")));
+        assertEquals(
+                topology.locate(HostAddress.fromParts("worker-2.example.com", 8080)),
+                NetworkLocation.create(ImmutableList.of("us-east-1b", "rack-7", "worker-2.example.com")));
+        assertEquals(topology.locate(HostAddress.fromParts("worker-3.example.com", 8080)), ROOT_LOCATION);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Expected 2 location segments in line 1 of .*")
+    public void testWrongSegmentCount()
+            throws IOException
+    {
+        File file = File.createTempFile("topology", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), ImmutableList.of("worker-1.example.com us-east-1a"), UTF_8);
+
+        new FileNetworkTopology(file, ImmutableList.of("zone", "rack"));
+    }
+}
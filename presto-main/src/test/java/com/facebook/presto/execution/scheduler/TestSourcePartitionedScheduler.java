@@ -31,6 +31,7 @@ import com.facebook.presto.failureDetector.NoOpFailureDetector;
 import com.facebook.presto.metadata.InMemoryNodeManager;
 import com.facebook.presto.metadata.InternalNode;
 import com.facebook.presto.metadata.InternalNodeManager;
+import com.facebook.presto.metadata.Split;
 import com.facebook.presto.operator.StageExecutionDescriptor;
 import com.facebook.presto.spi.ConnectorId;
 import com.facebook.presto.spi.ConnectorSplit;
@@ -61,6 +62,8 @@ import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -69,11 +72,13 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
@@ -420,6 +425,83 @@ public class TestSourcePartitionedScheduler
         secondStage.abort();
     }
 
+    @Test
+    public void testWithdrawnSplitsAreScheduledAgain()
+    {
+        SubPlan plan = createPlan();
+        NodeTaskMap nodeTaskMap = new NodeTaskMap(finalizerService);
+        SqlStageExecution stage = createSqlStageExecution(plan, nodeTaskMap);
+
+        NodeSchedulerConfig nodeSchedulerConfig = new NodeSchedulerConfig()
+                .setIncludeCoordinator(false)
+                .setMaxSplitsPerNode(20)
+                .setMaxPendingSplitsPerTask(0);
+        NodeScheduler nodeScheduler = new NodeScheduler(new LegacyNetworkTopology(), nodeManager, new NodeSelectionStats(), nodeSchedulerConfig, nodeTaskMap);
+        SplitSource splitSource = new ConnectorAwareSplitSource(CONNECTOR_ID, TestingTransactionHandle.create(), createFixedSplitSource(60, TestingSplit::createRemoteSplit));
+        SplitPlacementPolicy dynamicPlacementPolicy = new DynamicSplitPlacementPolicy(nodeScheduler.createNodeSelector(CONNECTOR_ID), stage::getAllTasks);
+        SettableFuture<List<Split>> splitWithdrawal = SettableFuture.create();
+        // the placement policy withdraws splits once, after the first assignment
+        SplitPlacementPolicy placementPolicy = new SplitPlacementPolicy()
+        {
+            private boolean withdrawn;
+
+            @Override
+            public SplitPlacementResult computeAssignments(Set<Split> splits)
+            {
+                return dynamicPlacementPolicy.computeAssignments(splits);
+            }
+
+            @Override
+            public void lockDownNodes()
+            {
+                dynamicPlacementPolicy.lockDownNodes();
+            }
+
+            @Override
+            public List<InternalNode> allNodes()
+            {
+                return dynamicPlacementPolicy.allNodes();
+            }
+
+            @Override
+            public List<ListenableFuture<List<Split>>> withdrawSplitsFromStragglers(PlanNodeId sourceId)
+            {
+                if (withdrawn) {
+                    return ImmutableList.of();
+                }
+                withdrawn = true;
+                return ImmutableList.of(splitWithdrawal);
+            }
+        };
+        StageScheduler scheduler = newSourcePartitionedSchedulerAsStageScheduler(stage, TABLE_SCAN_NODE_ID, splitSource, placementPolicy, 60);
+
+        // all splits are placed, but the scheduler waits for the withdrawn splits
+        ScheduleResult scheduleResult = scheduler.schedule();
+        assertFalse(scheduleResult.isFinished());
+        assertFalse(scheduleResult.getBlocked().isDone());
+        assertEquals(scheduleResult.getSplitsScheduled(), 60);
+        assertPartitionedSplitCount(stage, 60);
+
+        // the splits of the straggler are withdrawn, while the other tasks complete their splits
+        MockRemoteTask straggler = (MockRemoteTask) stage.getAllTasks().get(0);
+        for (RemoteTask task : stage.getAllTasks()) {
+            if (task != straggler) {
+                ((MockRemoteTask) task).clearSplits();
+            }
+        }
+        splitWithdrawal.set(getFutureValue(straggler.withdrawQueuedSplits(TABLE_SCAN_NODE_ID)));
+        assertTrue(scheduleResult.getBlocked().isDone());
+        assertPartitionedSplitCount(stage, 0);
+
+        // the withdrawn splits are placed again
+        scheduleResult = scheduler.schedule();
+        assertEquals(scheduleResult.getSplitsScheduled(), 20);
+        assertPartitionedSplitCount(stage, 20);
+        assertEffectivelyFinished(scheduleResult, scheduler);
+
+        stage.abort();
+    }
+
     private static void assertPartitionedSplitCount(SqlStageExecution stage, int expectedPartitionedSplitCount)
     {
         assertEquals(stage.getAllTasks().stream().mapToInt(RemoteTask::getPartitionedSplitCount).sum(), expectedPartitionedSplitCount);
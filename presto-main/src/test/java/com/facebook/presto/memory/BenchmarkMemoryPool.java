@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.memory;
+
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.memory.MemoryPoolId;
+import io.airlift.units.DataSize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+
+/**
+ * Measures the throughput of memory pool accounting when many driver threads
+ * reserve and free memory concurrently, as they do through {@code LocalMemoryContext.setBytes}.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+public class BenchmarkMemoryPool
+{
+    private static final String TAG = "benchmark";
+    private static final long BYTES = 4096;
+
+    @State(Scope.Benchmark)
+    public static class PoolData
+    {
+        @Param({"1", "16", "128"})
+        private int queries = 16;
+
+        private final AtomicInteger nextThread = new AtomicInteger();
+        private MemoryPool pool;
+        private QueryId[] queryIds;
+
+        @Setup
+        public void setup()
+        {
+            // large enough to never block, so the benchmark measures the accounting only
+            pool = new MemoryPool(new MemoryPoolId("benchmark"), new DataSize(1024, GIGABYTE));
+            queryIds = new QueryId[queries];
+            for (int i = 0; i < queries; i++) {
+                queryIds[i] = new QueryId("query_" + i);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadData
+    {
+        private MemoryPool pool;
+        private QueryId queryId;
+
+        @Setup
+        public void setup(PoolData poolData)
+        {
+            pool = poolData.pool;
+            queryId = poolData.queryIds[poolData.nextThread.getAndIncrement() % poolData.queryIds.length];
+        }
+    }
+
+    @Benchmark
+    @Threads(32)
+    public boolean reserveAndFree32Threads(ThreadData data)
+    {
+        return reserveAndFree(data);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean reserveAndFree64Threads(ThreadData data)
+    {
+        return reserveAndFree(data);
+    }
+
+    @Benchmark
+    @Threads(96)
+    public boolean reserveAndFree96Threads(ThreadData data)
+    {
+        return reserveAndFree(data);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public boolean tryReserveAndFree32Threads(ThreadData data)
+    {
+        return tryReserveAndFree(data);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean tryReserveAndFree64Threads(ThreadData data)
+    {
+        return tryReserveAndFree(data);
+    }
+
+    private static boolean reserveAndFree(ThreadData data)
+    {
+        boolean done = data.pool.reserve(data.queryId, TAG, BYTES).isDone();
+        data.pool.free(data.queryId, TAG, BYTES);
+        return done;
+    }
+
+    private static boolean tryReserveAndFree(ThreadData data)
+    {
+        boolean reserved = data.pool.tryReserve(data.queryId, TAG, BYTES);
+        if (reserved) {
+            data.pool.free(data.queryId, TAG, BYTES);
+        }
+        return reserved;
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        // assure the benchmarks are valid before running
+        PoolData poolData = new PoolData();
+        poolData.setup();
+        ThreadData threadData = new ThreadData();
+        threadData.setup(poolData);
+        reserveAndFree(threadData);
+        tryReserveAndFree(threadData);
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkMemoryPool.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
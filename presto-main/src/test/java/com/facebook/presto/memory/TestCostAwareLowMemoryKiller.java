@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.memory;
+
+import com.facebook.presto.memory.LowMemoryKiller.QueryMemoryInfo;
+import com.facebook.presto.spi.QueryId;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.Duration;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.memory.LocalMemoryManager.GENERAL_POOL;
+import static com.facebook.presto.memory.LocalMemoryManager.RESERVED_POOL;
+import static com.facebook.presto.memory.LowMemoryKillerTestingUtils.toNodeMemoryInfoList;
+import static com.facebook.presto.testing.assertions.Assert.assertEquals;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+@Test
+public class TestCostAwareLowMemoryKiller
+{
+    private final LowMemoryKiller lowMemoryKiller = new CostAwareLowMemoryKiller(new Duration(10, SECONDS));
+
+    @Test
+    public void testMemoryRevokingGracePeriod()
+    {
+        assertEquals(lowMemoryKiller.getMemoryRevokingGracePeriod(), Optional.of(new Duration(10, SECONDS)));
+        assertEquals(new TotalReservationLowMemoryKiller().getMemoryRevokingGracePeriod(), Optional.empty());
+    }
+
+    @Test
+    public void testGeneralPoolNotBlocked()
+    {
+        int reservePool = 10;
+        int generalPool = 12;
+        Map<String, Map<String, Long>> queries = ImmutableMap.<String, Map<String, Long>>builder()
+                .put("q_1", ImmutableMap.of("n1", 0L, "n2", 6L, "n3", 0L))
+                .put("q_2", ImmutableMap.of("n1", 3L, "n2", 5L, "n3", 2L))
+                .build();
+        assertEquals(
+                lowMemoryKiller.chooseQueryToKill(
+                        toQueryMemoryInfoList(queries, ImmutableMap.of("q_1", new Duration(1, MINUTES), "q_2", new Duration(1, MINUTES))),
+                        toNodeMemoryInfoList(reservePool, generalPool, "q_r", queries)),
+                Optional.empty());
+    }
+
+    @Test
+    public void testLeastWastedWork()
+    {
+        int reservePool = 10;
+        int generalPool = 12;
+        // only n2 is blocked: q_1 uses the most memory there, but it has done much more work than q_2 for every byte it frees
+        Map<String, Map<String, Long>> queries = ImmutableMap.<String, Map<String, Long>>builder()
+                .put("q_1", ImmutableMap.of("n1", 0L, "n2", 8L, "n3", 0L))
+                .put("q_2", ImmutableMap.of("n1", 3L, "n2", 5L, "n3", 2L))
+                .put("q_3", ImmutableMap.of("n1", 0L, "n2", 0L, "n3", 9L))
+                .build();
+        List<MemoryInfo> nodes = toNodeMemoryInfoList(reservePool, generalPool, "q_r", queries);
+        assertEquals(
+                lowMemoryKiller.chooseQueryToKill(
+                        toQueryMemoryInfoList(queries, ImmutableMap.of("q_1", new Duration(10, MINUTES), "q_2", new Duration(1, MINUTES), "q_3", new Duration(0, SECONDS))),
+                        nodes),
+                Optional.of(new QueryId("q_2")));
+        assertEquals(
+                lowMemoryKiller.chooseQueryToKill(
+                        toQueryMemoryInfoList(queries, ImmutableMap.of("q_1", new Duration(1, MINUTES), "q_2", new Duration(1, MINUTES), "q_3", new Duration(0, SECONDS))),
+                        nodes),
+                Optional.of(new QueryId("q_1")));
+    }
+
+    @Test
+    public void testReservedPoolQueryNotKilled()
+    {
+        int reservePool = 10;
+        int generalPool = 12;
+        Map<String, Map<String, Long>> queries = ImmutableMap.<String, Map<String, Long>>builder()
+                .put("q_1", ImmutableMap.of("n1", 12L))
+                .put("q_r", ImmutableMap.of("n1", 6L))
+                .build();
+        List<QueryMemoryInfo> queryMemoryInfos = ImmutableList.of(
+                new QueryMemoryInfo(new QueryId("q_1"), GENERAL_POOL, 12, 0, new Duration(10, MINUTES)),
+                new QueryMemoryInfo(new QueryId("q_r"), RESERVED_POOL, 6, 0, new Duration(0, SECONDS)));
+        assertEquals(
+                lowMemoryKiller.chooseQueryToKill(queryMemoryInfos, toNodeMemoryInfoList(reservePool, generalPool, "q_r", queries)),
+                Optional.of(new QueryId("q_1")));
+    }
+
+    private static List<QueryMemoryInfo> toQueryMemoryInfoList(Map<String, Map<String, Long>> queries, Map<String, Duration> cpuTimes)
+    {
+        ImmutableList.Builder<QueryMemoryInfo> result = ImmutableList.builder();
+        for (Map.Entry<String, Map<String, Long>> entry : queries.entrySet()) {
+            long totalReservation = entry.getValue().values().stream()
+                    .mapToLong(x -> x)
+                    .sum();
+            result.add(new QueryMemoryInfo(new QueryId(entry.getKey()), GENERAL_POOL, totalReservation, 0, cpuTimes.get(entry.getKey())));
+        }
+        return result.build();
+    }
+}
@@ -37,6 +37,8 @@ public class TestMemoryManagerConfig
         assertRecordedDefaults(ConfigAssertions.recordDefaults(MemoryManagerConfig.class)
                 .setLowMemoryKillerPolicy(NONE)
                 .setKillOnOutOfMemoryDelay(new Duration(5, MINUTES))
+                .setMemoryRevokingGracePeriod(new Duration(30, SECONDS))
+                .setMemoryRevokingThreshold(0.9)
                 .setMaxQueryMemory(new DataSize(20, GIGABYTE))
                 .setSoftMaxQueryMemory(new DataSize(20, GIGABYTE))
                 .setMaxQueryTotalMemory(new DataSize(40, GIGABYTE))
@@ -49,6 +51,8 @@ public class TestMemoryManagerConfig
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("query.low-memory-killer.policy", "total-reservation-on-blocked-nodes")
                 .put("query.low-memory-killer.delay", "20s")
+                .put("query.low-memory-killer.revoking-grace-period", "1m")
+                .put("query.low-memory-killer.revoking-threshold", "0.8")
                 .put("query.max-memory", "2GB")
                 .put("query.soft-max-memory", "1GB")
                 .put("query.max-total-memory", "3GB")
@@ -58,6 +62,8 @@ public class TestMemoryManagerConfig
         MemoryManagerConfig expected = new MemoryManagerConfig()
                 .setLowMemoryKillerPolicy(TOTAL_RESERVATION_ON_BLOCKED_NODES)
                 .setKillOnOutOfMemoryDelay(new Duration(20, SECONDS))
+                .setMemoryRevokingGracePeriod(new Duration(1, MINUTES))
+                .setMemoryRevokingThreshold(0.8)
                 .setMaxQueryMemory(new DataSize(2, GIGABYTE))
                 .setSoftMaxQueryMemory(new DataSize(1, GIGABYTE))
                 .setMaxQueryTotalMemory(new DataSize(3, GIGABYTE))
@@ -42,9 +42,13 @@ import io.airlift.units.DataSize;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
@@ -56,6 +60,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNull;
@@ -283,6 +288,50 @@ public class TestMemoryPools
         assertEquals(pool2.getFreeBytes(), 1000);
     }
 
+    @Test(timeOut = 60_000)
+    public void testConcurrentReserveAndFree()
+            throws Exception
+    {
+        int threads = 16;
+        int iterations = 10_000;
+        MemoryPool testPool = new MemoryPool(new MemoryPoolId("test"), new DataSize(threads * 10, BYTE));
+        List<ListenableFuture<?>> blockedFutures = new CopyOnWriteArrayList<>();
+
+        ExecutorService executor = newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                QueryId queryId = new QueryId("query_" + (thread % 4));
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < iterations; i++) {
+                        // the pool is over-committed whenever more than half of the threads hold memory
+                        ListenableFuture<?> future = testPool.reserve(queryId, "test_tag", 20);
+                        if (!future.isDone()) {
+                            blockedFutures.add(future);
+                        }
+                        testPool.free(queryId, "test_tag", 20);
+                        assertTrue(testPool.tryReserve(queryId, "test_tag", 0));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(testPool.getReservedBytes(), 0);
+        assertEquals(testPool.getFreeBytes(), threads * 10);
+        assertTrue(testPool.getInfo().getQueryMemoryReservations().isEmpty());
+        assertEquals(testPool.getTaggedMemoryAllocations().size(), 0);
+        // every future handed out while the pool was full must be completed once all memory is freed
+        for (ListenableFuture<?> future : blockedFutures) {
+            assertTrue(future.isDone());
+        }
+    }
+
     private long runDriversUntilBlocked(Predicate<OperatorContext> reason)
     {
         long iterationsCount = 0;
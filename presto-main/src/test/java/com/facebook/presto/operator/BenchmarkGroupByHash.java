@@ -17,6 +17,10 @@ import com.facebook.presto.array.LongBigArray;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.PageBuilder;
 import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.block.DictionaryBlock;
+import com.facebook.presto.common.block.DictionaryId;
+import com.facebook.presto.common.block.RunLengthEncodedBlock;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
@@ -55,6 +59,7 @@ import java.util.Optional;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
+import static com.facebook.presto.common.block.DictionaryId.randomDictionaryId;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.operator.UpdateMemory.NOOP;
@@ -73,6 +78,15 @@ public class BenchmarkGroupByHash
     private static final String GROUP_COUNT_STRING = "3000000";
     private static final int GROUP_COUNT = Integer.parseInt(GROUP_COUNT_STRING);
     private static final int EXPECTED_SIZE = 10_000;
+    private static final int DICTIONARY_PAGE_POSITIONS = 10_000;
+    private static final int RLE_PAGE_POSITIONS = 1_000;
+
+    public enum BlockEncoding
+    {
+        FLAT,
+        DICTIONARY,
+        RLE
+    }
 
     @Benchmark
     @OperationsPerInvocation(POSITIONS)
@@ -120,7 +134,7 @@ public class BenchmarkGroupByHash
     @OperationsPerInvocation(POSITIONS)
     public Object bigintGroupByHash(SingleChannelBenchmarkData data)
     {
-        GroupByHash groupByHash = new BigintGroupByHash(0, data.getHashEnabled(), EXPECTED_SIZE, NOOP);
+        GroupByHash groupByHash = new BigintGroupByHash(0, data.getHashEnabled(), EXPECTED_SIZE, true, NOOP);
         data.getPages().forEach(p -> groupByHash.addPage(p).process());
 
         ImmutableList.Builder<Page> pages = ImmutableList.builder();
@@ -137,6 +151,23 @@ public class BenchmarkGroupByHash
         return pageBuilder.build();
     }
 
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public long bigintGroupByHashGetGroupIds(SingleChannelBenchmarkData data)
+    {
+        GroupByHash groupByHash = new BigintGroupByHash(0, data.getHashEnabled(), EXPECTED_SIZE, true, NOOP);
+        long groupIdSum = 0;
+        for (Page page : data.getPages()) {
+            Work<GroupByIdBlock> work = groupByHash.getGroupIds(page);
+            work.process();
+            GroupByIdBlock groupIds = work.getResult();
+            for (int position = 0; position < groupIds.getPositionCount(); position++) {
+                groupIdSum += groupIds.getGroupId(position);
+            }
+        }
+        return groupIdSum;
+    }
+
     @Benchmark
     @OperationsPerInvocation(POSITIONS)
     public long baseline(BaselinePagesData data)
@@ -222,6 +253,45 @@ public class BenchmarkGroupByHash
         return pages.build();
     }
 
+    private static List<Page> createBigintPages(int positionCount, int groupCount, boolean hashEnabled, BlockEncoding encoding)
+    {
+        if (encoding == BlockEncoding.FLAT) {
+            return createBigintPages(positionCount, groupCount, 1, hashEnabled);
+        }
+
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        if (encoding == BlockEncoding.RLE) {
+            for (int position = 0; position < positionCount; position += RLE_PAGE_POSITIONS) {
+                int rand = ThreadLocalRandom.current().nextInt(groupCount);
+                Block value = BIGINT.createFixedSizeBlockBuilder(1).writeLong(rand).build();
+                Block hash = BIGINT.createFixedSizeBlockBuilder(1).writeLong(BigintOperators.hashCode(rand)).build();
+                Block block = new RunLengthEncodedBlock(value, RLE_PAGE_POSITIONS);
+                pages.add(hashEnabled ? new Page(block, new RunLengthEncodedBlock(hash, RLE_PAGE_POSITIONS)) : new Page(block));
+            }
+            return pages.build();
+        }
+
+        // all pages share the dictionary of every group, as they do when produced by a single dictionary encoded column
+        BlockBuilder dictionaryBuilder = BIGINT.createFixedSizeBlockBuilder(groupCount);
+        BlockBuilder hashDictionaryBuilder = BIGINT.createFixedSizeBlockBuilder(groupCount);
+        for (int value = 0; value < groupCount; value++) {
+            BIGINT.writeLong(dictionaryBuilder, value);
+            BIGINT.writeLong(hashDictionaryBuilder, BigintOperators.hashCode(value));
+        }
+        Block dictionary = dictionaryBuilder.build();
+        Block hashDictionary = hashDictionaryBuilder.build();
+        DictionaryId dictionaryId = randomDictionaryId();
+        for (int position = 0; position < positionCount; position += DICTIONARY_PAGE_POSITIONS) {
+            int[] ids = new int[DICTIONARY_PAGE_POSITIONS];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = ThreadLocalRandom.current().nextInt(groupCount);
+            }
+            Block block = new DictionaryBlock(ids.length, dictionary, ids, dictionaryId);
+            pages.add(hashEnabled ? new Page(block, new DictionaryBlock(ids.length, hashDictionary, ids, dictionaryId)) : new Page(block));
+        }
+        return pages.build();
+    }
+
     private static List<Page> createVarcharPages(int positionCount, int groupCount, int channelCount, boolean hashEnabled)
     {
         List<Type> types = Collections.nCopies(channelCount, VARCHAR);
@@ -290,6 +360,9 @@ public class BenchmarkGroupByHash
         @Param(GROUP_COUNT_STRING)
         private int groupCount = GROUP_COUNT;
 
+        @Param({"FLAT", "DICTIONARY", "RLE"})
+        private BlockEncoding encoding = BlockEncoding.FLAT;
+
         private List<Page> pages;
         private List<Type> types;
         private int[] channels;
@@ -297,7 +370,7 @@ public class BenchmarkGroupByHash
         @Setup
         public void setup()
         {
-            pages = createBigintPages(POSITIONS, GROUP_COUNT, channelCount, hashEnabled);
+            pages = createBigintPages(POSITIONS, GROUP_COUNT, hashEnabled, encoding);
             types = Collections.nCopies(1, BIGINT);
             channels = new int[1];
             for (int i = 0; i < 1; i++) {
@@ -419,6 +492,7 @@ public class BenchmarkGroupByHash
         SingleChannelBenchmarkData singleChannelBenchmarkData = new SingleChannelBenchmarkData();
         singleChannelBenchmarkData.setup();
         new BenchmarkGroupByHash().bigintGroupByHash(singleChannelBenchmarkData);
+        new BenchmarkGroupByHash().bigintGroupByHashGetGroupIds(singleChannelBenchmarkData);
 
         Options options = new OptionsBuilder()
                 .verbosity(VerboseMode.NORMAL)
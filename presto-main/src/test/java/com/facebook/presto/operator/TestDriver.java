@@ -192,7 +192,8 @@ public class TestDriver
                     }
                 },
                 TESTING_TABLE_HANDLE,
-                ImmutableList.of());
+                ImmutableList.of(),
+                Optional.empty());
 
         PageConsumerOperator sink = createSinkOperator(types);
         Driver driver = Driver.createDriver(driverContext, source, sink);
@@ -500,7 +501,7 @@ public class TestDriver
                 TableHandle table,
                 Iterable<ColumnHandle> columns)
         {
-            super(operatorContext, planNodeId, pageSourceProvider, table, columns);
+            super(operatorContext, planNodeId, pageSourceProvider, table, columns, Optional.empty());
         }
 
         @Override
@@ -525,7 +526,7 @@ public class TestDriver
                 TableHandle table,
                 Iterable<ColumnHandle> columns)
         {
-            super(operatorContext, planNodeId, pageSourceProvider, table, columns);
+            super(operatorContext, planNodeId, pageSourceProvider, table, columns, Optional.empty());
         }
 
         @Override
@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.memory.context.AggregatedMemoryContext;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestDynamicPageFilter
+{
+    @Test
+    public void testSummary()
+    {
+        DynamicFilterSummary summary = new DynamicFilterSummary(BIGINT, 10);
+        Block probe = createLongsBlock(1L, 5L, 10L, 20L, null);
+        assertFalse(summary.test(probe, 0), "empty summary must not match");
+
+        summary.add(createLongsBlock(5L, 10L, null));
+        assertFalse(summary.test(probe, 0));
+        assertTrue(summary.test(probe, 1));
+        assertTrue(summary.test(probe, 2));
+        assertFalse(summary.test(probe, 3));
+        assertFalse(summary.test(probe, 4), "nulls never match");
+
+        DynamicFilterSummary other = new DynamicFilterSummary(BIGINT, 10);
+        other.add(createLongsBlock(20L));
+        summary.mergeWith(other);
+        assertTrue(summary.test(probe, 3));
+        assertFalse(summary.test(probe, 0));
+    }
+
+    @Test
+    public void testSummaryFallsBackToRange()
+    {
+        DynamicFilterSummary summary = new DynamicFilterSummary(BIGINT, 2);
+        summary.add(createLongsBlock(1L, 10L, 100L));
+        Block probe = createLongsBlock(0L, 5L, 50L, 101L);
+        assertFalse(summary.test(probe, 0));
+        assertTrue(summary.test(probe, 1));
+        assertTrue(summary.test(probe, 2));
+        assertFalse(summary.test(probe, 3));
+    }
+
+    @Test
+    public void testFilterPublishedAfterAllPartitions()
+    {
+        JoinDynamicFilter filter = new JoinDynamicFilter(ImmutableList.of(BIGINT, VARCHAR), 10);
+        filter.setPartitionCount(2);
+
+        AggregatedMemoryContext memoryContext = newSimpleAggregatedMemoryContext();
+        JoinDynamicFilter.Collector first = filter.createCollector(ImmutableList.of(0, 1), memoryContext.newLocalMemoryContext("test"));
+        JoinDynamicFilter.Collector second = filter.createCollector(ImmutableList.of(0, 1), memoryContext.newLocalMemoryContext("test"));
+        first.add(new Page(createLongsBlock(1L, 2L), createStringsBlock("a", "b")));
+        second.add(new Page(createLongsBlock(3L), createStringsBlock("c")));
+
+        DynamicPageFilter pageFilter = new DynamicPageFilter(ImmutableList.of(
+                new DynamicPageFilter.Target(filter, 0, 1),
+                new DynamicPageFilter.Target(filter, 1, 0)));
+        Page probe = new Page(createStringsBlock("a", "b", "c", "d"), createLongsBlock(1L, 4L, 3L, 1L));
+
+        first.finish();
+        assertFalse(filter.isComplete());
+        assertSame(pageFilter.filter(probe), probe);
+
+        second.finish();
+        assertTrue(filter.isComplete());
+        Page filtered = pageFilter.filter(probe);
+        assertEquals(filtered.getPositionCount(), 2);
+        assertEquals(BIGINT.getLong(filtered.getBlock(1), 0), 1L);
+        assertEquals(BIGINT.getLong(filtered.getBlock(1), 1), 3L);
+        assertEquals(VARCHAR.getSlice(filtered.getBlock(0), 1).toStringUtf8(), "c");
+    }
+
+    @Test
+    public void testCollectorMemory()
+    {
+        JoinDynamicFilter filter = new JoinDynamicFilter(ImmutableList.of(BIGINT), 1000);
+        filter.setPartitionCount(1);
+        AggregatedMemoryContext memoryContext = newSimpleAggregatedMemoryContext();
+        JoinDynamicFilter.Collector collector = filter.createCollector(ImmutableList.of(0), memoryContext.newLocalMemoryContext("test"));
+
+        collector.add(new Page(createLongsBlock(1L, 2L)));
+        long smallSize = memoryContext.getBytes();
+        assertTrue(smallSize > 0);
+
+        collector.add(new Page(createLongSequenceBlock(0, 500)));
+        assertTrue(memoryContext.getBytes() > smallSize + 500 * Long.BYTES, "hashes of distinct values must be accounted for");
+
+        // the memory of the partition summaries also covers the published summaries
+        collector.finish();
+        assertTrue(memoryContext.getBytes() > smallSize);
+
+        collector.close();
+        assertEquals(memoryContext.getBytes(), 0);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.google.common.collect.ImmutableList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.operator.SyntheticAddress.encodeSyntheticAddress;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestFixedWidthPagesHash
+{
+    private static final int BLOCK_COUNT = 3;
+    private static final int POSITIONS_PER_BLOCK = 10_000;
+    private static final int DISTINCT_KEYS = 5_000;
+
+    @Test
+    public void testSupportedKeyTypes()
+    {
+        assertTrue(FixedWidthPagesHash.isSupportedKeyTypes(ImmutableList.of(BIGINT)));
+        assertTrue(FixedWidthPagesHash.isSupportedKeyTypes(ImmutableList.of(INTEGER, BIGINT)));
+        assertFalse(FixedWidthPagesHash.isSupportedKeyTypes(ImmutableList.of()));
+        assertFalse(FixedWidthPagesHash.isSupportedKeyTypes(ImmutableList.of(BIGINT, BIGINT, BIGINT)));
+        assertFalse(FixedWidthPagesHash.isSupportedKeyTypes(ImmutableList.of(DOUBLE)));
+        assertFalse(FixedWidthPagesHash.isSupportedKeyTypes(ImmutableList.of(BIGINT, VARCHAR)));
+    }
+
+    @Test
+    public void testUsedForSequentialBuildsOnly()
+    {
+        assertTrue(FixedWidthPagesHash.isUsedForBuild(ImmutableList.of(BIGINT), 1_000_000, 1));
+        assertTrue(FixedWidthPagesHash.isUsedForBuild(ImmutableList.of(BIGINT), 1000, 8));
+        // large enough for PagesHash to be built in parallel
+        assertFalse(FixedWidthPagesHash.isUsedForBuild(ImmutableList.of(BIGINT), 1_000_000, 8));
+        assertFalse(FixedWidthPagesHash.isUsedForBuild(ImmutableList.of(VARCHAR), 1000, 1));
+    }
+
+    @Test
+    public void testSingleKeyMatchesPagesHash()
+    {
+        List<Block> keys = createBlocks(BIGINT, 31, 0);
+        assertMatchesPagesHash(ImmutableList.of(BIGINT), ImmutableList.of(keys));
+    }
+
+    @Test
+    public void testTwoKeysMatchPagesHash()
+    {
+        List<Block> keys0 = createBlocks(BIGINT, 31, 0);
+        List<Block> keys1 = createBlocks(INTEGER, 7, 3);
+        assertMatchesPagesHash(ImmutableList.of(BIGINT, INTEGER), ImmutableList.of(keys0, keys1));
+    }
+
+    private static void assertMatchesPagesHash(List<Type> types, List<List<Block>> channels)
+    {
+        LongArrayList addresses = addresses(channels.get(0));
+
+        ArrayPositionLinks.FactoryBuilder expectedLinks = ArrayPositionLinks.builder(addresses.size());
+        PagesHash expected = new PagesHash(addresses, pagesHashStrategy(types, channels), expectedLinks);
+
+        ArrayPositionLinks.FactoryBuilder actualLinks = ArrayPositionLinks.builder(addresses.size());
+        FixedWidthPagesHash actual = new FixedWidthPagesHash(addresses, pagesHashStrategy(types, channels), actualLinks, channels, types);
+
+        assertEquals(actualLinks.size(), expectedLinks.size());
+        assertEquals(actualLinks.build().checksum(), expectedLinks.build().checksum());
+        assertEquals(actual.getHashCollisions(), expected.getHashCollisions());
+
+        // probe with all build keys as well as keys missing from the build side
+        Block[] probeBlocks = new Block[types.size()];
+        for (int channel = 0; channel < types.size(); channel++) {
+            probeBlocks[channel] = createProbeBlock(types.get(channel), channels.get(channel));
+        }
+        Page probe = new Page(probeBlocks);
+        for (int position = 0; position < probe.getPositionCount(); position++) {
+            if (probe.getBlock(0).isNull(position) || probe.getBlock(probe.getChannelCount() - 1).isNull(position)) {
+                continue;
+            }
+            assertEquals(actual.getAddressIndex(position, probe), expected.getAddressIndex(position, probe));
+        }
+    }
+
+    private static List<Block> createBlocks(Type type, long multiplier, long offset)
+    {
+        ImmutableList.Builder<Block> blocks = ImmutableList.builder();
+        for (int block = 0; block < BLOCK_COUNT; block++) {
+            BlockBuilder blockBuilder = type.createBlockBuilder(null, POSITIONS_PER_BLOCK);
+            for (int position = 0; position < POSITIONS_PER_BLOCK; position++) {
+                if (position % 97 == 0) {
+                    blockBuilder.appendNull();
+                }
+                else {
+                    type.writeLong(blockBuilder, (position * multiplier + block + offset) % DISTINCT_KEYS);
+                }
+            }
+            blocks.add(blockBuilder.build());
+        }
+        return blocks.build();
+    }
+
+    private static Block createProbeBlock(Type type, List<Block> buildBlocks)
+    {
+        // all build positions followed by values that are not on the build side
+        BlockBuilder blockBuilder = type.createBlockBuilder(null, BLOCK_COUNT * POSITIONS_PER_BLOCK + 100);
+        for (Block block : buildBlocks) {
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                type.appendTo(block, position, blockBuilder);
+            }
+        }
+        for (int value = 0; value < 100; value++) {
+            type.writeLong(blockBuilder, DISTINCT_KEYS + value);
+        }
+        return blockBuilder.build();
+    }
+
+    private static PagesHashStrategy pagesHashStrategy(List<Type> types, List<List<Block>> channels)
+    {
+        ImmutableList.Builder<Integer> joinChannels = ImmutableList.builder();
+        for (int channel = 0; channel < types.size(); channel++) {
+            joinChannels.add(channel);
+        }
+        return new SimplePagesHashStrategy(
+                types,
+                ImmutableList.of(),
+                channels,
+                joinChannels.build(),
+                OptionalInt.empty(),
+                Optional.empty(),
+                MetadataManager.createTestMetadataManager().getFunctionManager(),
+                new FeaturesConfig().isGroupByUsesEqualTo());
+    }
+
+    private static LongArrayList addresses(List<Block> blocks)
+    {
+        LongArrayList addresses = new LongArrayList();
+        for (int block = 0; block < blocks.size(); block++) {
+            for (int position = 0; position < blocks.get(block).getPositionCount(); position++) {
+                addresses.add(encodeSyntheticAddress(block, position));
+            }
+        }
+        return addresses;
+    }
+}
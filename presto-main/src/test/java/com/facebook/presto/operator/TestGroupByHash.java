@@ -20,6 +20,7 @@ import com.facebook.presto.common.PageBuilder;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.DictionaryBlock;
 import com.facebook.presto.common.block.DictionaryId;
+import com.facebook.presto.common.block.RunLengthEncodedBlock;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
@@ -137,6 +138,44 @@ public class TestGroupByHash
         }
     }
 
+    @Test
+    public void testBigintDictionaryAndRunLengthEncodedInputs()
+    {
+        GroupByHash groupByHash = createGroupByHash(ImmutableList.of(BIGINT), new int[] {0}, Optional.empty(), 1, false, JOIN_COMPILER, UpdateMemory.NOOP);
+
+        // a dictionary with a null entry, referenced out of order and more than once
+        Block dictionary = createLongsBlock(10L, null, 30L, 40L);
+        int[] ids = new int[] {3, 0, 0, 1, 2, 3, 1, 0};
+        Work<GroupByIdBlock> work = groupByHash.getGroupIds(new Page(new DictionaryBlock(ids.length, dictionary, ids)));
+        assertTrue(work.process());
+        GroupByIdBlock groupIds = work.getResult();
+        assertEquals(groupIds.getPositionCount(), ids.length);
+        assertEquals(groupByHash.getGroupCount(), 4);
+        for (int position = 0; position < ids.length; position++) {
+            PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+            pageBuilder.declarePosition();
+            groupByHash.appendValuesTo((int) groupIds.getGroupId(position), pageBuilder, 0);
+            Block value = pageBuilder.build().getBlock(0);
+            if (dictionary.isNull(ids[position])) {
+                assertTrue(value.isNull(0));
+            }
+            else {
+                assertEquals(BIGINT.getLong(value, 0), BIGINT.getLong(dictionary, ids[position]));
+            }
+        }
+
+        // a run length encoded block maps every position to the group of its single value
+        work = groupByHash.getGroupIds(new Page(new RunLengthEncodedBlock(createLongsBlock(30L), 100)));
+        assertTrue(work.process());
+        GroupByIdBlock runLengthEncodedGroupIds = work.getResult();
+        assertEquals(runLengthEncodedGroupIds.getPositionCount(), 100);
+        assertEquals(runLengthEncodedGroupIds.getGroupId(99), groupIds.getGroupId(4));
+        assertEquals(groupByHash.getGroupCount(), 4);
+
+        groupByHash.addPage(new Page(new RunLengthEncodedBlock(createLongsBlock(50L), 100))).process();
+        assertEquals(groupByHash.getGroupCount(), 5);
+    }
+
     @Test
     public void testTypes()
     {
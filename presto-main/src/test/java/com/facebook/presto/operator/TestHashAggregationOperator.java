@@ -565,6 +565,69 @@ public class TestHashAggregationOperator
         assertEquals(driverContext.getMemoryUsage(), 0);
     }
 
+    @Test(dataProvider = "hashEnabled")
+    public void testAdaptivePartialAggregation(boolean hashEnabled)
+            throws Exception
+    {
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(500, 0)
+                .addSequencePage(500, 500)
+                .addSequencePage(500, 1000)
+                .addSequencePage(500, 1500)
+                .build();
+
+        // every key is unique, so partial aggregation does not reduce the number of rows at all
+        PartialAggregationController partialAggregationController = new PartialAggregationController(500, 0.5);
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                ImmutableList.of(),
+                Step.PARTIAL,
+                false,
+                ImmutableList.of(LONG_SUM.bind(ImmutableList.of(0), Optional.empty()),
+                        COUNT.bind(ImmutableList.of(), Optional.empty())),
+                rowPagesBuilder.getHashChannel(),
+                Optional.empty(),
+                100_000,
+                Optional.of(new DataSize(1, KILOBYTE)),
+                false,
+                new DataSize(16, MEGABYTE),
+                spillerFactory,
+                joinCompiler,
+                false,
+                Optional.of(partialAggregationController));
+
+        DriverContext driverContext = createDriverContext(1024);
+        MaterializedResult.Builder expectedBuilder = resultBuilder(driverContext.getSession(), BIGINT, BIGINT, BIGINT);
+        for (long key = 0; key < 2000; key++) {
+            expectedBuilder.row(key, key, 1L);
+        }
+        MaterializedResult expected = expectedBuilder.build();
+
+        try (Operator operator = operatorFactory.createOperator(driverContext)) {
+            List<Page> outputPages = toPages(operator, input.iterator());
+            if (hashEnabled) {
+                // Drop the hashChannel for all pages
+                outputPages = dropChannel(outputPages, ImmutableList.of(1));
+            }
+            MaterializedResult actual = toMaterializedResult(operator.getOperatorContext().getSession(), expected.getTypes(), outputPages);
+            assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.getMaterializedRows());
+
+            assertTrue(partialAggregationController.isPartialAggregationDisabled());
+            OperatorInfo info = operator.getOperatorContext().getOperatorStats().getInfo();
+            assertTrue(info instanceof HashAggregationInfo);
+            HashAggregationInfo hashAggregationInfo = (HashAggregationInfo) info;
+            assertEquals(hashAggregationInfo.getPartialAggregationDisabledOperators(), 1);
+            assertGreaterThan(hashAggregationInfo.getPassThroughRows(), 0L);
+            assertEquals(hashAggregationInfo.getAggregatedInputRows(), hashAggregationInfo.getAggregatedOutputRows());
+            assertEquals(hashAggregationInfo.getAggregatedInputRows() + hashAggregationInfo.getPassThroughRows(), 2000);
+        }
+    }
+
     @Test
     public void testMergeWithMemorySpill()
     {
@@ -0,0 +1,143 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.google.common.collect.ImmutableList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.operator.PagesHash.getEstimatedBuildTemporarySizeInBytes;
+import static com.facebook.presto.operator.SyntheticAddress.encodeSyntheticAddress;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestPagesHash
+{
+    private static final int BLOCK_COUNT = 4;
+    private static final int POSITIONS_PER_BLOCK = 100_000;
+    private static final int DISTINCT_KEYS = 50_000;
+
+    // fewer threads than build partitions, so some partitions wait for a free thread
+    private final ExecutorService executor = newFixedThreadPool(3, daemonThreadsNamed("test-join-hash-build-%s"));
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testParallelBuildProducesSameChains()
+    {
+        List<Block> blocks = createBlocks();
+        LongArrayList addresses = addresses(blocks);
+
+        ArrayPositionLinks.FactoryBuilder sequentialLinks = ArrayPositionLinks.builder(addresses.size());
+        PagesHash sequential = new PagesHash(addresses, pagesHashStrategy(blocks), sequentialLinks, 1, directExecutor());
+
+        ArrayPositionLinks.FactoryBuilder parallelLinks = ArrayPositionLinks.builder(addresses.size());
+        PagesHash parallel = new PagesHash(addresses, pagesHashStrategy(blocks), parallelLinks, 8, executor);
+
+        assertEquals(parallelLinks.size(), sequentialLinks.size());
+        assertEquals(parallelLinks.build().checksum(), sequentialLinks.build().checksum());
+
+        // probe with all build keys as well as keys missing from the build side
+        Page probe = new Page(createLongSequenceBlock(-10, DISTINCT_KEYS + 10));
+        for (int position = 0; position < probe.getPositionCount(); position++) {
+            assertEquals(parallel.getAddressIndex(position, probe), sequential.getAddressIndex(position, probe));
+        }
+    }
+
+    @Test
+    public void testParallelBuildSkippedForSmallBuilds()
+    {
+        List<Block> blocks = ImmutableList.of(createLongSequenceBlock(0, 1000));
+        LongArrayList addresses = addresses(blocks);
+
+        ArrayPositionLinks.FactoryBuilder positionLinks = ArrayPositionLinks.builder(addresses.size());
+        PagesHash pagesHash = new PagesHash(addresses, pagesHashStrategy(blocks), positionLinks, 8, executor);
+
+        assertTrue(positionLinks.isEmpty());
+        Page probe = new Page(createLongSequenceBlock(0, 1000));
+        for (int position = 0; position < probe.getPositionCount(); position++) {
+            assertEquals(pagesHash.getAddressIndex(position, probe), position);
+        }
+    }
+
+    @Test
+    public void testEstimatedBuildTemporarySize()
+    {
+        assertEquals(getEstimatedBuildTemporarySizeInBytes(1_000_000, 1), 0);
+        assertEquals(getEstimatedBuildTemporarySizeInBytes(1000, 8), 0);
+        assertTrue(getEstimatedBuildTemporarySizeInBytes(1_000_000, 8) >= 2L * Integer.BYTES * 1_000_000);
+    }
+
+    private static List<Block> createBlocks()
+    {
+        ImmutableList.Builder<Block> blocks = ImmutableList.builder();
+        for (int block = 0; block < BLOCK_COUNT; block++) {
+            BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, POSITIONS_PER_BLOCK);
+            for (int position = 0; position < POSITIONS_PER_BLOCK; position++) {
+                if (position % 97 == 0) {
+                    blockBuilder.appendNull();
+                }
+                else {
+                    BIGINT.writeLong(blockBuilder, (position * 31L + block) % DISTINCT_KEYS);
+                }
+            }
+            blocks.add(blockBuilder.build());
+        }
+        return blocks.build();
+    }
+
+    private static PagesHashStrategy pagesHashStrategy(List<Block> blocks)
+    {
+        return new SimplePagesHashStrategy(
+                ImmutableList.of(BIGINT),
+                ImmutableList.of(),
+                ImmutableList.of(blocks),
+                ImmutableList.of(0),
+                OptionalInt.empty(),
+                Optional.empty(),
+                MetadataManager.createTestMetadataManager().getFunctionManager(),
+                new FeaturesConfig().isGroupByUsesEqualTo());
+    }
+
+    private static LongArrayList addresses(List<Block> blocks)
+    {
+        LongArrayList addresses = new LongArrayList();
+        for (int block = 0; block < blocks.size(); block++) {
+            for (int position = 0; position < blocks.get(block).getPositionCount(); position++) {
+                addresses.add(encodeSyntheticAddress(block, position));
+            }
+        }
+        return addresses;
+    }
+}
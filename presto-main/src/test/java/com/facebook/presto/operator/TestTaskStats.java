@@ -70,6 +70,9 @@ public class TestTaskStats
 
             new DataSize(25, BYTE),
 
+            30,
+            31,
+
             26,
             new Duration(27, NANOSECONDS),
 
@@ -126,6 +129,9 @@ public class TestTaskStats
 
         assertEquals(actual.getPhysicalWrittenDataSize(), new DataSize(25, BYTE));
 
+        assertEquals(actual.getFragmentResultCacheHits(), 30);
+        assertEquals(actual.getFragmentResultCacheMisses(), 31);
+
         assertEquals(actual.getPipelines().size(), 1);
         assertExpectedPipelineStats(actual.getPipelines().get(0));
     }
@@ -17,24 +17,37 @@ import com.facebook.presto.RowPagesBuilder;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.SortOrder;
 import com.facebook.presto.common.type.Type;
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spiller.GenericPartitioningSpillerFactory;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.SingleStreamSpiller;
+import com.facebook.presto.spiller.SingleStreamSpillerFactory;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.IntPredicate;
 
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static com.facebook.airlift.testing.Assertions.assertGreaterThan;
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
@@ -43,12 +56,18 @@ import static com.facebook.presto.common.type.DoubleType.DOUBLE;
 import static com.facebook.presto.operator.GroupByHashYieldAssertion.createPagesWithDistinctHashKeys;
 import static com.facebook.presto.operator.GroupByHashYieldAssertion.finishOperatorWithYieldingGroupByHash;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
+import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEqualsIgnoreOrder;
+import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
 import static com.facebook.presto.operator.TopNRowNumberOperator.TopNRowNumberOperatorFactory;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestTopNRowNumberOperator
@@ -137,6 +156,125 @@ public class TestTopNRowNumberOperator
         assertOperatorEquals(operatorFactory, driverContext, input, expected);
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testPartitionedWithSpill(boolean hashEnabled)
+    {
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT, DOUBLE);
+        List<Page> input = rowPagesBuilder
+                .row(1L, 0.3)
+                .row(2L, 0.2)
+                .row(3L, 0.1)
+                .row(3L, 0.91)
+                .pageBreak()
+                .row(1L, 0.4)
+                .pageBreak()
+                .row(1L, 0.5)
+                .row(1L, 0.6)
+                .row(2L, 0.7)
+                .row(2L, 0.8)
+                .pageBreak()
+                .row(2L, 0.9)
+                .row(1L, 0.1)
+                .build();
+
+        TopNRowNumberOperatorFactory operatorFactory = new TopNRowNumberOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT, DOUBLE),
+                Ints.asList(1, 0),
+                Ints.asList(0),
+                ImmutableList.of(BIGINT),
+                Ints.asList(1),
+                ImmutableList.of(SortOrder.ASC_NULLS_LAST),
+                3,
+                false,
+                Optional.empty(),
+                10,
+                joinCompiler,
+                true,
+                new GenericPartitioningSpillerFactory(new DummySingleStreamSpillerFactory()));
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), DOUBLE, BIGINT, BIGINT)
+                .row(0.1, 1L, 1L)
+                .row(0.3, 1L, 2L)
+                .row(0.4, 1L, 3L)
+                .row(0.2, 2L, 1L)
+                .row(0.7, 2L, 2L)
+                .row(0.8, 2L, 3L)
+                .row(0.1, 3L, 1L)
+                .row(0.91, 3L, 2L)
+                .build();
+
+        assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected);
+    }
+
+    @Test
+    public void testSpillDoesNotBlockDriver()
+    {
+        List<Page> input = rowPagesBuilder(BIGINT, DOUBLE)
+                .row(1L, 0.3)
+                .row(2L, 0.2)
+                .row(1L, 0.1)
+                .pageBreak()
+                .row(2L, 0.4)
+                .row(3L, 0.5)
+                .build();
+
+        DelayedPartitioningSpiller[] spiller = new DelayedPartitioningSpiller[1];
+        TopNRowNumberOperatorFactory operatorFactory = new TopNRowNumberOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT, DOUBLE),
+                Ints.asList(1, 0),
+                Ints.asList(0),
+                ImmutableList.of(BIGINT),
+                Ints.asList(1),
+                ImmutableList.of(SortOrder.ASC_NULLS_LAST),
+                1,
+                false,
+                Optional.empty(),
+                10,
+                joinCompiler,
+                true,
+                (types, partitionFunction, spillContext, memoryContext) -> {
+                    spiller[0] = new DelayedPartitioningSpiller(partitionFunction);
+                    return spiller[0];
+                });
+        Operator operator = operatorFactory.createOperator(driverContext);
+
+        operator.addInput(input.get(0));
+        ListenableFuture<?> revokingFuture = operator.startMemoryRevoke();
+        assertFalse(revokingFuture.isDone(), "revoking must not wait for the spill to be written");
+        assertFalse(operator.isBlocked().isDone());
+        spiller[0].finishSpills();
+        assertTrue(revokingFuture.isDone());
+        operator.finishMemoryRevoke();
+
+        operator.addInput(input.get(1));
+        operator.finish();
+        assertNull(operator.getOutput());
+        assertFalse(operator.isBlocked().isDone(), "rows buffered since the last revoke are spilled before producing output");
+        spiller[0].finishSpills();
+        assertTrue(operator.isBlocked().isDone());
+
+        List<Page> output = new ArrayList<>();
+        while (!operator.isFinished()) {
+            Page page = operator.getOutput();
+            if (page != null) {
+                output.add(page);
+            }
+        }
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), DOUBLE, BIGINT, BIGINT)
+                .row(0.1, 1L, 1L)
+                .row(0.2, 2L, 1L)
+                .row(0.5, 3L, 1L)
+                .build();
+        assertEqualsIgnoreOrder(
+                toMaterializedResult(driverContext.getSession(), ImmutableList.of(DOUBLE, BIGINT, BIGINT), output).getMaterializedRows(),
+                expected.getMaterializedRows());
+    }
+
     @Test(dataProvider = "partial")
     public void testUnPartitioned(boolean partial)
     {
@@ -230,4 +368,113 @@ public class TestTopNRowNumberOperator
         }
         assertEquals(count, 6_000 * 600);
     }
+
+    /**
+     * Keeps the spilled pages in memory and completes a spill only when {@link #finishSpills} is called.
+     */
+    private static class DelayedPartitioningSpiller
+            implements PartitioningSpiller
+    {
+        private final PartitionFunction partitionFunction;
+        private final List<List<Page>> partitions = new ArrayList<>();
+        private SettableFuture<?> spillInProgress;
+
+        private DelayedPartitioningSpiller(PartitionFunction partitionFunction)
+        {
+            this.partitionFunction = partitionFunction;
+            for (int partition = 0; partition < partitionFunction.getPartitionCount(); partition++) {
+                partitions.add(new ArrayList<>());
+            }
+        }
+
+        @Override
+        public PartitioningSpillResult partitionAndSpill(Page page, IntPredicate spillPartitionMask)
+        {
+            assertTrue(spillInProgress == null || spillInProgress.isDone(), "concurrent spill");
+            IntArrayList[] positions = new IntArrayList[partitions.size()];
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                int partition = partitionFunction.getPartition(page, position);
+                if (positions[partition] == null) {
+                    positions[partition] = new IntArrayList();
+                }
+                positions[partition].add(position);
+            }
+            for (int partition = 0; partition < positions.length; partition++) {
+                if (positions[partition] != null) {
+                    partitions.get(partition).add(page.getPositions(positions[partition].elements(), 0, positions[partition].size()));
+                }
+            }
+            spillInProgress = SettableFuture.create();
+            return new PartitioningSpillResult(spillInProgress, page.getPositions(new int[0], 0, 0));
+        }
+
+        public void finishSpills()
+        {
+            // completing a spill may start spilling the next page
+            while (spillInProgress != null && !spillInProgress.isDone()) {
+                spillInProgress.set(null);
+            }
+        }
+
+        @Override
+        public Iterator<Page> getSpilledPages(int partition)
+        {
+            return partitions.get(partition).iterator();
+        }
+
+        @Override
+        public void verifyAllPartitionsRead()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
+    private static class DummySingleStreamSpillerFactory
+            implements SingleStreamSpillerFactory
+    {
+        @Override
+        public SingleStreamSpiller create(List<Type> types, SpillContext spillContext, LocalMemoryContext memoryContext)
+        {
+            return new SingleStreamSpiller()
+            {
+                private final List<Page> spills = new ArrayList<>();
+
+                @Override
+                public ListenableFuture<?> spill(Iterator<Page> pageIterator)
+                {
+                    Iterators.addAll(spills, pageIterator);
+                    return immediateFuture(null);
+                }
+
+                @Override
+                public Iterator<Page> getSpilledPages()
+                {
+                    return spills.iterator();
+                }
+
+                @Override
+                public long getSpilledPagesInMemorySize()
+                {
+                    return spills.stream()
+                            .mapToLong(Page::getSizeInBytes)
+                            .sum();
+                }
+
+                @Override
+                public ListenableFuture<List<Page>> getAllSpilledPages()
+                {
+                    return immediateFuture(ImmutableList.copyOf(spills));
+                }
+
+                @Override
+                public void close()
+                {
+                }
+            };
+        }
+    }
 }
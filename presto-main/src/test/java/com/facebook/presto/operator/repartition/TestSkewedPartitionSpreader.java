@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.repartition;
+
+import com.facebook.presto.sql.planner.SkewedPartitioning;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.operator.repartition.SkewedPartitionSpreader.MIN_ROWS;
+import static com.facebook.presto.sql.planner.SkewedPartitioning.Mode.REPLICATE_TO_SPREAD_PARTITIONS;
+import static com.facebook.presto.sql.planner.SkewedPartitioning.Mode.SPREAD_SKEWED_PARTITIONS;
+import static org.testng.Assert.assertEquals;
+
+public class TestSkewedPartitionSpreader
+{
+    private static final int PARTITION_COUNT = 4;
+
+    @Test
+    public void testUniformPartitionsAreNotSpread()
+    {
+        SkewedPartitionSpreader spreader = new SkewedPartitionSpreader(new SkewedPartitioning(SPREAD_SKEWED_PARTITIONS, 3), PARTITION_COUNT);
+        assertEquals(spreader.getPartitionCount(), 1);
+
+        for (int row = 0; row < 10 * MIN_ROWS; row++) {
+            int partition = row % PARTITION_COUNT;
+            assertEquals(spreader.getFirstPartition(partition), partition);
+        }
+        assertEquals(spreader.getSpreadRows(), 0);
+    }
+
+    @Test
+    public void testSkewedPartitionIsSpread()
+    {
+        SkewedPartitionSpreader spreader = new SkewedPartitionSpreader(new SkewedPartitioning(SPREAD_SKEWED_PARTITIONS, 3), PARTITION_COUNT);
+
+        // skew is not detected from the first rows
+        for (int row = 0; row < MIN_ROWS - 1; row++) {
+            assertEquals(spreader.getFirstPartition(3), 3);
+        }
+        assertEquals(spreader.getSpreadRows(), 0);
+
+        // the rows of the skewed partition go round robin to the partitions following it
+        assertEquals(spreader.getFirstPartition(3), 3);
+        assertEquals(spreader.getFirstPartition(3), 0);
+        assertEquals(spreader.getFirstPartition(3), 1);
+        assertEquals(spreader.getFirstPartition(3), 3);
+        assertEquals(spreader.getSpreadRows(), 4);
+
+        // other partitions are not affected
+        assertEquals(spreader.getFirstPartition(1), 1);
+        assertEquals(spreader.getSpreadRows(), 4);
+    }
+
+    @Test
+    public void testReplicate()
+    {
+        SkewedPartitionSpreader spreader = new SkewedPartitionSpreader(new SkewedPartitioning(REPLICATE_TO_SPREAD_PARTITIONS, 3), PARTITION_COUNT);
+        assertEquals(spreader.getPartitionCount(), 3);
+
+        for (int row = 0; row < 2 * MIN_ROWS; row++) {
+            assertEquals(spreader.getFirstPartition(2), 2);
+        }
+        assertEquals(spreader.getPartition(2, 0), 2);
+        assertEquals(spreader.getPartition(2, 1), 3);
+        assertEquals(spreader.getPartition(2, 2), 0);
+        assertEquals(spreader.getSpreadRows(), 0);
+    }
+
+    @Test
+    public void testSpreadFactorIsLimitedByPartitionCount()
+    {
+        SkewedPartitionSpreader spreader = new SkewedPartitionSpreader(new SkewedPartitioning(REPLICATE_TO_SPREAD_PARTITIONS, 8), PARTITION_COUNT);
+        assertEquals(spreader.getPartitionCount(), PARTITION_COUNT);
+    }
+}
@@ -99,6 +99,12 @@ public class TestBasicQueryInfo
                                 DataSize.valueOf("34GB"),
                                 DataSize.valueOf("35GB"),
                                 DataSize.valueOf("36GB"),
+                                0,
+                                0,
+                                0,
+                                DataSize.valueOf("0B"),
+                                0,
+                                0,
                                 ImmutableList.of(new StageGcStatistics(
                                         101,
                                         1002,
@@ -149,6 +149,12 @@ public class TestQueryStateInfo
                         DataSize.valueOf("34GB"),
                         DataSize.valueOf("35GB"),
                         DataSize.valueOf("36GB"),
+                        0,
+                        0,
+                        0,
+                        DataSize.valueOf("0B"),
+                        0,
+                        0,
                         ImmutableList.of(),
                         ImmutableList.of()),
                 Optional.empty(),
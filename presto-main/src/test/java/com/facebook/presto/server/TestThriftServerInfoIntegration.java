@@ -41,6 +41,7 @@ import com.facebook.presto.server.testing.TestingPrestoServer;
 import com.facebook.presto.server.thrift.ThriftServerInfoClient;
 import com.facebook.presto.server.thrift.ThriftServerInfoService;
 import com.facebook.presto.spi.NodeState;
+import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -234,6 +235,12 @@ public class TestThriftServerInfoIntegration
                 {
                     throw new UnsupportedOperationException();
                 }
+
+                @Override
+                public TaskSource withdrawQueuedSplits(TaskId taskId, PlanNodeId sourceId, long withdrawalId)
+                {
+                    throw new UnsupportedOperationException();
+                }
             };
         }
     }
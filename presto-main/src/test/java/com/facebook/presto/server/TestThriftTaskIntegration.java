@@ -41,6 +41,7 @@ import com.facebook.presto.execution.scheduler.TableWriteInfo;
 import com.facebook.presto.memory.MemoryPoolAssignmentsRequest;
 import com.facebook.presto.server.thrift.ThriftTaskClient;
 import com.facebook.presto.server.thrift.ThriftTaskService;
+import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.net.HostAndPort;
@@ -273,6 +274,12 @@ public class TestThriftTaskIntegration
                 {
                     throw new UnsupportedOperationException();
                 }
+
+                @Override
+                public TaskSource withdrawQueuedSplits(TaskId taskId, PlanNodeId sourceId, long withdrawalId)
+                {
+                    throw new UnsupportedOperationException();
+                }
             };
         }
     }
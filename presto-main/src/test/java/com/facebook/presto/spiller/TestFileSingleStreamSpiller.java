@@ -33,9 +33,11 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
+import static com.facebook.airlift.testing.Assertions.assertLessThan;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.DoubleType.DOUBLE;
 import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
@@ -46,6 +48,7 @@ import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static java.lang.Double.doubleToLongBits;
 import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.size;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
@@ -69,14 +72,14 @@ public class TestFileSingleStreamSpiller
     public void testSpill()
             throws Exception
     {
-        assertSpill(false, false);
+        assertSpill(false, false, false);
     }
 
     @Test
     public void testSpillCompression()
             throws Exception
     {
-        assertSpill(true, false);
+        assertSpill(true, false, false);
     }
 
     @Test
@@ -84,27 +87,78 @@ public class TestFileSingleStreamSpiller
             throws Exception
     {
         // Both with compression enabled and disabled
-        assertSpill(false, true);
+        assertSpill(false, true, false);
     }
 
     @Test
     public void testSpillEncryptionWithCompression()
             throws Exception
     {
-        assertSpill(true, true);
+        assertSpill(true, true, false);
     }
 
-    private void assertSpill(boolean compression, boolean encryption)
+    @Test
+    public void testSpillMemoryMappedRead()
+            throws Exception
+    {
+        assertSpill(false, false, true);
+    }
+
+    @Test
+    public void testSpillMemoryMappedReadWithCompressionAndEncryption()
+            throws Exception
+    {
+        assertSpill(true, false, true);
+        assertSpill(false, true, true);
+        assertSpill(true, true, true);
+    }
+
+    @Test
+    public void testMemoryMappedReadRetainedSize()
             throws Exception
     {
+        int pageCount = 1000;
         FileSingleStreamSpillerFactory spillerFactory = new FileSingleStreamSpillerFactory(
                 executor, // executor won't be closed, because we don't call destroy() on the spiller factory
                 new BlockEncodingManager(new TypeRegistry()),
                 new SpillerStats(),
                 ImmutableList.of(spillPath.toPath()),
                 1.0,
+                false,
+                false,
+                true);
+        LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
+        SingleStreamSpiller spiller = spillerFactory.create(TYPES, bytes -> {}, memoryContext);
+
+        Page page = buildPage();
+        spiller.spill(Collections.nCopies(pageCount, page).iterator()).get();
+        long spillFileSize = size(listFiles(spillPath.toPath()).get(0));
+
+        List<Page> spilledPages = ImmutableList.copyOf(spiller.getSpilledPages());
+        assertEquals(spilledPages.size(), pageCount);
+        for (Page spilledPage : spilledPages) {
+            PageAssertions.assertPageEquals(TYPES, page, spilledPage);
+            // the slices of an unspilled page must not keep the rest of the spill file mapped
+            assertLessThan(spilledPage.getRetainedSizeInBytes(), spillFileSize / 10);
+        }
+
+        spiller.close();
+        assertEquals(listFiles(spillPath.toPath()).size(), 0);
+    }
+
+    private void assertSpill(boolean compression, boolean encryption, boolean memoryMappedRead)
+            throws Exception
+    {
+        SpillerStats spillerStats = new SpillerStats();
+        FileSingleStreamSpillerFactory spillerFactory = new FileSingleStreamSpillerFactory(
+                executor, // executor won't be closed, because we don't call destroy() on the spiller factory
+                new BlockEncodingManager(new TypeRegistry()),
+                spillerStats,
+                ImmutableList.of(spillPath.toPath()),
+                1.0,
                 compression,
-                encryption);
+                encryption,
+                memoryMappedRead);
         LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
         SingleStreamSpiller singleStreamSpiller = spillerFactory.create(TYPES, bytes -> {}, memoryContext);
         assertTrue(singleStreamSpiller instanceof FileSingleStreamSpiller);
@@ -142,6 +196,7 @@ public class TestFileSingleStreamSpiller
         for (int i = 0; i < 4; ++i) {
             PageAssertions.assertPageEquals(TYPES, page, spilledPages.get(i));
         }
+        assertEquals(spillerStats.getTotalUnspilledBytes(), spillerStats.getTotalSpilledBytes());
 
         spiller.close();
         assertEquals(listFiles(spillPath.toPath()).size(), 0);
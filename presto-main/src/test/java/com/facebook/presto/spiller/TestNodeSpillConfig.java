@@ -22,6 +22,8 @@ import java.util.Map;
 
 import static com.facebook.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
 import static com.facebook.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
+import static com.facebook.presto.execution.buffer.PageCompressionCodec.LZ4;
+import static com.facebook.presto.execution.buffer.PageCompressionCodec.ZSTD;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
@@ -34,7 +36,11 @@ public class TestNodeSpillConfig
                 .setMaxSpillPerNode(new DataSize(100, GIGABYTE))
                 .setQueryMaxSpillPerNode(new DataSize(100, GIGABYTE))
                 .setSpillCompressionEnabled(false)
-                .setSpillEncryptionEnabled(false));
+                .setSpillCompressionCodec(LZ4)
+                .setSpillCompressionZstdLevel(3)
+                .setSpillAdaptiveCompressionEnabled(false)
+                .setSpillEncryptionEnabled(false)
+                .setSpillMemoryMappedReadEnabled(false));
     }
 
     @Test
@@ -44,14 +50,22 @@ public class TestNodeSpillConfig
                 .put("experimental.max-spill-per-node", "10MB")
                 .put("experimental.query-max-spill-per-node", "15 MB")
                 .put("experimental.spill-compression-enabled", "true")
+                .put("experimental.spill-compression-codec", "ZSTD")
+                .put("experimental.spill-compression-zstd-level", "7")
+                .put("experimental.spill-adaptive-compression-enabled", "true")
                 .put("experimental.spill-encryption-enabled", "true")
+                .put("experimental.spill-memory-mapped-read-enabled", "true")
                 .build();
 
         NodeSpillConfig expected = new NodeSpillConfig()
                 .setMaxSpillPerNode(new DataSize(10, MEGABYTE))
                 .setQueryMaxSpillPerNode(new DataSize(15, MEGABYTE))
                 .setSpillCompressionEnabled(true)
-                .setSpillEncryptionEnabled(true);
+                .setSpillCompressionCodec(ZSTD)
+                .setSpillCompressionZstdLevel(7)
+                .setSpillAdaptiveCompressionEnabled(true)
+                .setSpillEncryptionEnabled(true)
+                .setSpillMemoryMappedReadEnabled(true);
 
         assertFullMapping(properties, expected);
     }
@@ -28,6 +28,8 @@ import java.util.Map;
 
 import static com.facebook.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
 import static com.facebook.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
+import static com.facebook.presto.execution.buffer.PageCompressionCodec.LZ4;
+import static com.facebook.presto.execution.buffer.PageCompressionCodec.ZSTD;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.AggregationPartitioningMergingStrategy.LEGACY;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.AggregationPartitioningMergingStrategy.TOP_DOWN;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.JoinDistributionType.BROADCAST;
@@ -87,6 +89,9 @@ public class TestFeaturesConfig
                 .setRe2JDfaRetries(5)
                 .setSpillEnabled(false)
                 .setAggregationOperatorUnspillMemoryLimit(DataSize.valueOf("4MB"))
+                .setSpillWindowOperator(true)
+                .setSpillOrderBy(true)
+                .setSpillTopNRowNumber(true)
                 .setSpillerSpillPaths("")
                 .setSpillerThreads(4)
                 .setSpillMaxUsedSpaceThreshold(0.9)
@@ -101,6 +106,12 @@ public class TestFeaturesConfig
                 .setPrintStatsForNonJoinQuery(false)
                 .setDefaultFilterFactorEnabled(false)
                 .setExchangeCompressionEnabled(false)
+                .setExchangeCompressionCodec(LZ4)
+                .setExchangeCompressionZstdLevel(3)
+                .setExchangeAdaptiveCompressionEnabled(false)
+                .setAdaptivePartialAggregationEnabled(false)
+                .setAdaptivePartialAggregationMinRows(100_000)
+                .setAdaptivePartialAggregationReductionRatioThreshold(0.2)
                 .setLegacyTimestamp(true)
                 .setLegacyRowFieldOrdinalAccess(false)
                 .setLegacyCharToVarcharCoercion(false)
@@ -133,6 +144,12 @@ public class TestFeaturesConfig
                 .setExperimentalFunctionsEnabled(false)
                 .setUseLegacyScheduler(true)
                 .setOptimizeCommonSubExpressions(true)
+                .setEnableDynamicFiltering(false)
+                .setDynamicFilteringMaxDistinctValues(10_000)
+                .setJoinHashBuildConcurrency(1)
+                .setQueryResultCacheEnabled(false)
+                .setFragmentResultCacheEnabled(false)
+                .setSkewedJoinSpreadFactor(1)
                 .setPreferDistributedUnion(true));
     }
 
@@ -187,12 +204,21 @@ public class TestFeaturesConfig
                 .put("re2j.dfa-retries", "42")
                 .put("experimental.spill-enabled", "true")
                 .put("experimental.aggregation-operator-unspill-memory-limit", "100MB")
+                .put("experimental.spill-window-operator", "false")
+                .put("experimental.spill-order-by", "false")
+                .put("experimental.spill-topn-row-number", "false")
                 .put("experimental.spiller-spill-path", "/tmp/custom/spill/path1,/tmp/custom/spill/path2")
                 .put("experimental.spiller-threads", "42")
                 .put("experimental.spiller-max-used-space-threshold", "0.8")
                 .put("experimental.memory-revoking-threshold", "0.2")
                 .put("experimental.memory-revoking-target", "0.8")
                 .put("exchange.compression-enabled", "true")
+                .put("exchange.compression-codec", "ZSTD")
+                .put("exchange.compression-zstd-level", "9")
+                .put("exchange.adaptive-compression-enabled", "true")
+                .put("experimental.adaptive-partial-aggregation", "true")
+                .put("experimental.adaptive-partial-aggregation-min-rows", "5000")
+                .put("experimental.adaptive-partial-aggregation-reduction-ratio-threshold", "0.5")
                 .put("deprecated.legacy-timestamp", "false")
                 .put("optimizer.enable-intermediate-aggregations", "true")
                 .put("parse-decimal-literals-as-double", "true")
@@ -222,6 +248,12 @@ public class TestFeaturesConfig
                 .put("experimental-functions-enabled", "true")
                 .put("use-legacy-scheduler", "false")
                 .put("optimize-common-sub-expressions", "false")
+                .put("experimental.enable-dynamic-filtering", "true")
+                .put("experimental.dynamic-filtering-max-distinct-values", "100")
+                .put("join-hash-build-concurrency", "8")
+                .put("experimental.query-result-cache-enabled", "true")
+                .put("experimental.fragment-result-cache-enabled", "true")
+                .put("optimizer.skewed-join-spread-factor", "4")
                 .put("prefer-distributed-union", "false")
                 .build();
 
@@ -269,6 +301,9 @@ public class TestFeaturesConfig
                 .setRe2JDfaRetries(42)
                 .setSpillEnabled(true)
                 .setAggregationOperatorUnspillMemoryLimit(DataSize.valueOf("100MB"))
+                .setSpillWindowOperator(false)
+                .setSpillOrderBy(false)
+                .setSpillTopNRowNumber(false)
                 .setSpillerSpillPaths("/tmp/custom/spill/path1,/tmp/custom/spill/path2")
                 .setSpillerThreads(42)
                 .setSpillMaxUsedSpaceThreshold(0.8)
@@ -276,6 +311,12 @@ public class TestFeaturesConfig
                 .setMemoryRevokingTarget(0.8)
                 .setLegacyLogFunction(true)
                 .setExchangeCompressionEnabled(true)
+                .setExchangeCompressionCodec(ZSTD)
+                .setExchangeCompressionZstdLevel(9)
+                .setExchangeAdaptiveCompressionEnabled(true)
+                .setAdaptivePartialAggregationEnabled(true)
+                .setAdaptivePartialAggregationMinRows(5000)
+                .setAdaptivePartialAggregationReductionRatioThreshold(0.5)
                 .setLegacyTimestamp(false)
                 .setLegacyRowFieldOrdinalAccess(true)
                 .setLegacyCharToVarcharCoercion(true)
@@ -308,6 +349,12 @@ public class TestFeaturesConfig
                 .setExperimentalFunctionsEnabled(true)
                 .setUseLegacyScheduler(false)
                 .setOptimizeCommonSubExpressions(false)
+                .setEnableDynamicFiltering(true)
+                .setDynamicFilteringMaxDistinctValues(100)
+                .setJoinHashBuildConcurrency(8)
+                .setQueryResultCacheEnabled(true)
+                .setFragmentResultCacheEnabled(true)
+                .setSkewedJoinSpreadFactor(4)
                 .setPreferDistributedUnion(false);
         assertFullMapping(properties, expected);
     }
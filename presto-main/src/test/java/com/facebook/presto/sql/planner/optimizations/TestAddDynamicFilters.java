@@ -0,0 +1,89 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spi.plan.TableScanNode;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.sql.planner.assertions.BasePlanTest;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static com.facebook.presto.SystemSessionProperties.ENABLE_DYNAMIC_FILTERING;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.anyTree;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.tableScan;
+import static com.facebook.presto.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestAddDynamicFilters
+        extends BasePlanTest
+{
+    @Test
+    public void testInnerJoin()
+    {
+        @Language("SQL") String sql = "SELECT o.orderkey FROM orders o JOIN lineitem l ON o.orderkey = l.orderkey WHERE l.quantity < 5";
+
+        assertPlanWithSession(sql, dynamicFiltering(true), true, anyTree(tableScan("orders")), plan -> {
+            JoinNode join = getOnlyJoin(plan);
+            Map<VariableReferenceExpression, PlanNodeId> targets = join.getDynamicFilterTargets();
+            assertEquals(targets.size(), 1);
+            VariableReferenceExpression probeKey = join.getCriteria().get(0).getLeft();
+            TableScanNode probeScan = searchFrom(join.getLeft())
+                    .where(TableScanNode.class::isInstance)
+                    .findOnlyElement();
+            assertEquals(targets.get(probeKey), probeScan.getId());
+        });
+
+        assertPlanWithSession(sql, dynamicFiltering(false), true, anyTree(tableScan("orders")), plan ->
+                assertTrue(getOnlyJoin(plan).getDynamicFilterTargets().isEmpty()));
+    }
+
+    @Test
+    public void testLeftJoin()
+    {
+        @Language("SQL") String sql = "SELECT o.orderkey FROM orders o LEFT JOIN lineitem l ON o.orderkey = l.orderkey";
+
+        assertPlanWithSession(sql, dynamicFiltering(true), true, anyTree(tableScan("orders")), plan ->
+                assertTrue(getOnlyJoin(plan).getDynamicFilterTargets().isEmpty()));
+    }
+
+    @Test
+    public void testProbeKeyComputedByProjection()
+    {
+        @Language("SQL") String sql = "SELECT o.orderkey FROM orders o JOIN lineitem l ON o.orderkey + 1 = l.orderkey + 1";
+
+        assertPlanWithSession(sql, dynamicFiltering(true), true, anyTree(tableScan("orders")), plan ->
+                assertTrue(getOnlyJoin(plan).getDynamicFilterTargets().isEmpty()));
+    }
+
+    private static JoinNode getOnlyJoin(Plan plan)
+    {
+        return searchFrom(plan.getRoot())
+                .where(JoinNode.class::isInstance)
+                .findOnlyElement();
+    }
+
+    private Session dynamicFiltering(boolean enabled)
+    {
+        return Session.builder(getQueryRunner().getDefaultSession())
+                .setSystemProperty(ENABLE_DYNAMIC_FILTERING, Boolean.toString(enabled))
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.execution.warnings.WarningCollector;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.sql.planner.SkewedPartitioning;
+import com.facebook.presto.sql.planner.assertions.BasePlanTest;
+import com.facebook.presto.sql.planner.plan.ExchangeNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.google.common.collect.ImmutableMap;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+import static com.facebook.presto.SystemSessionProperties.JOIN_REORDERING_STRATEGY;
+import static com.facebook.presto.SystemSessionProperties.SKEWED_JOIN_SPREAD_FACTOR;
+import static com.facebook.presto.sql.planner.LogicalPlanner.Stage.OPTIMIZED_AND_VALIDATED;
+import static com.facebook.presto.sql.planner.SkewedPartitioning.Mode.REPLICATE_TO_SPREAD_PARTITIONS;
+import static com.facebook.presto.sql.planner.SkewedPartitioning.Mode.SPREAD_SKEWED_PARTITIONS;
+import static com.facebook.presto.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestSpreadSkewedJoinPartitions
+        extends BasePlanTest
+{
+    private static final int SPREAD_FACTOR = 4;
+
+    public TestSpreadSkewedJoinPartitions()
+    {
+        super(ImmutableMap.of(
+                SKEWED_JOIN_SPREAD_FACTOR, Integer.toString(SPREAD_FACTOR),
+                JOIN_DISTRIBUTION_TYPE, "PARTITIONED",
+                JOIN_REORDERING_STRATEGY, "NONE"));
+    }
+
+    @Test
+    public void testJoinsUnderRemoteExchangeAreSpread()
+    {
+        assertSpread("SELECT o.orderkey, c.name FROM orders o JOIN customer c ON o.custkey = c.custkey", INNER);
+        assertSpread("SELECT o.orderkey, c.name FROM orders o LEFT JOIN customer c ON o.custkey = c.custkey", LEFT);
+        // projections and filters above the join do not depend on its partitioning
+        assertSpread("SELECT o.orderkey + 1 FROM orders o JOIN customer c ON o.custkey = c.custkey WHERE o.totalprice > c.acctbal", INNER);
+    }
+
+    @Test
+    public void testRightAndFullJoinsAreNotSpread()
+    {
+        // unmatched build rows would be returned once for every partition they are copied to
+        assertNotSpread("SELECT o.orderkey, c.name FROM orders o RIGHT JOIN customer c ON o.custkey = c.custkey");
+        assertNotSpread("SELECT o.orderkey, c.name FROM orders o FULL JOIN customer c ON o.custkey = c.custkey");
+    }
+
+    @Test
+    public void testReplicatedJoinsAreNotSpread()
+    {
+        Session session = Session.builder(getQueryRunner().getDefaultSession())
+                .setSystemProperty(JOIN_DISTRIBUTION_TYPE, "BROADCAST")
+                .build();
+        assertEquals(getSkewedExchanges(createPlan(session, "SELECT o.orderkey, c.name FROM orders o JOIN customer c ON o.custkey = c.custkey")).size(), 0);
+    }
+
+    @Test
+    public void testJoinsWhosePartitioningIsUsedAreNotSpread()
+    {
+        assertNotSpread("SELECT c.custkey, count(*) FROM orders o JOIN customer c ON o.custkey = c.custkey GROUP BY c.custkey");
+        assertNotSpread("SELECT c.custkey, row_number() OVER (PARTITION BY c.custkey ORDER BY o.orderkey) FROM orders o JOIN customer c ON o.custkey = c.custkey");
+        assertNotSpread("SELECT o.orderkey FROM orders o JOIN customer c ON o.custkey = c.custkey WHERE c.custkey IN (SELECT custkey FROM customer WHERE acctbal > 0)");
+        assertNotSpread("SELECT o.orderkey FROM orders o JOIN customer c ON o.custkey = c.custkey JOIN customer c2 ON c.custkey = c2.custkey");
+    }
+
+    private void assertSpread(@Language("SQL") String sql, JoinNode.Type joinType)
+    {
+        Plan plan = createPlan(getQueryRunner().getDefaultSession(), sql);
+        List<JoinNode> joins = searchFrom(plan.getRoot())
+                .where(node -> node instanceof JoinNode)
+                .findAll();
+        assertEquals(joins.size(), 1, "joins of " + sql);
+        JoinNode join = joins.get(0);
+        assertEquals(join.getType(), joinType);
+
+        // the probe side spreads skewed partitions and the build side is copied to all the partitions they are spread to
+        assertEquals(getSkewedPartitioning(join.getLeft()), Optional.of(new SkewedPartitioning(SPREAD_SKEWED_PARTITIONS, SPREAD_FACTOR)), "probe side of " + sql);
+        assertEquals(getSkewedPartitioning(join.getRight()), Optional.of(new SkewedPartitioning(REPLICATE_TO_SPREAD_PARTITIONS, SPREAD_FACTOR)), "build side of " + sql);
+        assertEquals(getSkewedExchanges(plan).size(), 2, "skewed exchanges of " + sql);
+    }
+
+    private void assertNotSpread(@Language("SQL") String sql)
+    {
+        Plan plan = createPlan(getQueryRunner().getDefaultSession(), sql);
+        assertTrue(searchFrom(plan.getRoot()).where(node -> node instanceof JoinNode).matches(), "no join in " + sql);
+        assertEquals(getSkewedExchanges(plan).size(), 0, "skewed exchanges of " + sql);
+    }
+
+    private static Optional<SkewedPartitioning> getSkewedPartitioning(PlanNode node)
+    {
+        // the closest remote exchange below the join, skipping the local exchanges in between
+        return searchFrom(node)
+                .where(TestSpreadSkewedJoinPartitions::isRemoteExchange)
+                .recurseOnlyWhen(candidate -> !isRemoteExchange(candidate))
+                .findFirst()
+                .map(ExchangeNode.class::cast)
+                .flatMap(exchange -> exchange.getPartitioningScheme().getSkewedPartitioning());
+    }
+
+    private static boolean isRemoteExchange(PlanNode node)
+    {
+        return node instanceof ExchangeNode && ((ExchangeNode) node).getScope().isRemote();
+    }
+
+    private static List<ExchangeNode> getSkewedExchanges(Plan plan)
+    {
+        return searchFrom(plan.getRoot())
+                .where(node -> node instanceof ExchangeNode && ((ExchangeNode) node).getPartitioningScheme().getSkewedPartitioning().isPresent())
+                .findAll();
+    }
+
+    private Plan createPlan(Session session, @Language("SQL") String sql)
+    {
+        return getQueryRunner().inTransaction(session, transactionSession -> getQueryRunner().createPlan(transactionSession, sql, OPTIMIZED_AND_VALIDATED, false, WarningCollector.NOOP));
+    }
+}
@@ -30,6 +30,11 @@ public class HiveBloomFilter
 {
     private static final int INSTANCE_SIZE = ClassLayout.parseClass(HiveBloomFilter.class).instanceSize() + ClassLayout.parseClass(BitSet.class).instanceSize();
 
+    public HiveBloomFilter(long expectedEntries, double fpp)
+    {
+        super(expectedEntries, fpp);
+    }
+
     // constructor that allows deserialization of a long list into the actual hive bloom filter
     public HiveBloomFilter(List<Long> bits, int numBits, int numHashFunctions)
     {
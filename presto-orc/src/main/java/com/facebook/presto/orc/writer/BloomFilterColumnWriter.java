@@ -0,0 +1,216 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.VarbinaryType;
+import com.facebook.presto.common.type.VarcharType;
+import com.facebook.presto.orc.OrcOutputBuffer;
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.CompressedMetadataWriter;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.OrcMetadataWriter;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
+import com.facebook.presto.orc.metadata.statistics.HiveBloomFilter;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.BLOOM_FILTER;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Adds a bloom filter for every row group to the statistics and the index streams of a column writer.
+ * The bloom filters are built for the types {@code TupleDomainOrcPredicate} can test them for.
+ * Only ORC files have a bloom filter index, so the index is always written in the ORC format.
+ */
+public class BloomFilterColumnWriter
+        implements ColumnWriter
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(BloomFilterColumnWriter.class).instanceSize();
+    private static final OrcMetadataWriter ORC_METADATA_WRITER = new OrcMetadataWriter();
+
+    private final int column;
+    private final Type type;
+    private final ColumnWriter delegate;
+    private final int expectedEntries;
+    private final double fpp;
+    private final OrcOutputBuffer bloomFilterBuffer;
+
+    private final List<HiveBloomFilter> rowGroupBloomFilters = new ArrayList<>();
+    private long rowGroupBloomFiltersRetainedSizeInBytes;
+    private HiveBloomFilter bloomFilter;
+
+    public BloomFilterColumnWriter(int column, Type type, ColumnWriter delegate, CompressionKind compression, int bufferSize, int expectedEntries, double fpp)
+    {
+        checkArgument(column >= 0, "column is negative");
+        checkArgument(isBloomFilterSupported(type), "Bloom filters are not supported for type %s", type);
+        checkArgument(expectedEntries > 0, "expectedEntries must be positive");
+        checkArgument(fpp > 0.0 && fpp < 1.0, "fpp must be between 0 and 1");
+        this.column = column;
+        this.type = requireNonNull(type, "type is null");
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.expectedEntries = expectedEntries;
+        this.fpp = fpp;
+        this.bloomFilterBuffer = new OrcOutputBuffer(requireNonNull(compression, "compression is null"), bufferSize);
+        this.bloomFilter = new HiveBloomFilter(expectedEntries, fpp);
+    }
+
+    public static boolean isBloomFilterSupported(Type type)
+    {
+        return type == TINYINT || type == SMALLINT || type == INTEGER || type == BIGINT || type == DOUBLE || type instanceof VarcharType || type instanceof VarbinaryType;
+    }
+
+    @Override
+    public List<ColumnWriter> getNestedColumnWriters()
+    {
+        return delegate.getNestedColumnWriters();
+    }
+
+    @Override
+    public Map<Integer, ColumnEncoding> getColumnEncodings()
+    {
+        return delegate.getColumnEncodings();
+    }
+
+    @Override
+    public void beginRowGroup()
+    {
+        delegate.beginRowGroup();
+    }
+
+    @Override
+    public void writeBlock(Block block)
+    {
+        delegate.writeBlock(block);
+
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                continue;
+            }
+            if (type == DOUBLE) {
+                bloomFilter.addDouble(type.getDouble(block, position));
+            }
+            else if (type instanceof VarcharType || type instanceof VarbinaryType) {
+                Slice value = type.getSlice(block, position);
+                // the bloom filter hashes a byte array from its start, so only values at the start of their array are not copied
+                if (value.hasByteArray() && value.byteArrayOffset() == 0) {
+                    bloomFilter.addBytes(value.byteArray(), value.length());
+                }
+                else {
+                    bloomFilter.add(value.getBytes());
+                }
+            }
+            else {
+                bloomFilter.addLong(type.getLong(block, position));
+            }
+        }
+    }
+
+    @Override
+    public Map<Integer, ColumnStatistics> finishRowGroup()
+    {
+        Map<Integer, ColumnStatistics> statistics = delegate.finishRowGroup();
+        rowGroupBloomFilters.add(bloomFilter);
+        rowGroupBloomFiltersRetainedSizeInBytes += bloomFilter.getRetainedSizeInBytes();
+        HiveBloomFilter rowGroupBloomFilter = bloomFilter;
+        bloomFilter = new HiveBloomFilter(expectedEntries, fpp);
+
+        ImmutableMap.Builder<Integer, ColumnStatistics> result = ImmutableMap.builder();
+        for (Entry<Integer, ColumnStatistics> entry : statistics.entrySet()) {
+            if (entry.getKey() == column) {
+                result.put(column, entry.getValue().withBloomFilter(rowGroupBloomFilter));
+            }
+            else {
+                result.put(entry);
+            }
+        }
+        return result.build();
+    }
+
+    @Override
+    public void close()
+    {
+        delegate.close();
+    }
+
+    @Override
+    public Map<Integer, ColumnStatistics> getColumnStripeStatistics()
+    {
+        return delegate.getColumnStripeStatistics();
+    }
+
+    @Override
+    public List<StreamDataOutput> getIndexStreams(CompressedMetadataWriter metadataWriter)
+            throws IOException
+    {
+        ORC_METADATA_WRITER.writeBloomFilters(bloomFilterBuffer, rowGroupBloomFilters);
+        bloomFilterBuffer.close();
+        DynamicSliceOutput output = new DynamicSliceOutput(toIntExact(bloomFilterBuffer.getOutputDataSize()));
+        bloomFilterBuffer.writeDataTo(output);
+        Slice slice = output.slice();
+        bloomFilterBuffer.reset();
+
+        Stream stream = new Stream(column, BLOOM_FILTER, slice.length(), false);
+        return ImmutableList.<StreamDataOutput>builder()
+                .addAll(delegate.getIndexStreams(metadataWriter))
+                .add(new StreamDataOutput(slice, stream))
+                .build();
+    }
+
+    @Override
+    public List<StreamDataOutput> getDataStreams()
+    {
+        return delegate.getDataStreams();
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return delegate.getBufferedBytes();
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return INSTANCE_SIZE + delegate.getRetainedBytes() + bloomFilterBuffer.getRetainedSize() + rowGroupBloomFiltersRetainedSizeInBytes + bloomFilter.getRetainedSizeInBytes();
+    }
+
+    @Override
+    public void reset()
+    {
+        delegate.reset();
+        rowGroupBloomFilters.clear();
+        rowGroupBloomFiltersRetainedSizeInBytes = 0;
+        bloomFilter = new HiveBloomFilter(expectedEntries, fpp);
+    }
+}
@@ -19,11 +19,28 @@ import io.airlift.compress.Compressor;
 import java.nio.ByteBuffer;
 
 import static java.lang.Math.toIntExact;
+import static java.lang.String.format;
 
 public class ZstdJniCompressor
         implements Compressor
 {
-    private static final int COMPRESSION_LEVEL = 3; // default level
+    public static final int DEFAULT_COMPRESSION_LEVEL = 3;
+    public static final int MAX_COMPRESSION_LEVEL = 22;
+
+    private final int compressionLevel;
+
+    public ZstdJniCompressor()
+    {
+        this(DEFAULT_COMPRESSION_LEVEL);
+    }
+
+    public ZstdJniCompressor(int compressionLevel)
+    {
+        if (compressionLevel < 1 || compressionLevel > MAX_COMPRESSION_LEVEL) {
+            throw new IllegalArgumentException(format("Invalid zstd compression level: %s", compressionLevel));
+        }
+        this.compressionLevel = compressionLevel;
+    }
 
     @Override
     public int maxCompressedLength(int uncompressedSize)
@@ -34,16 +51,42 @@ public class ZstdJniCompressor
     @Override
     public int compress(byte[] input, int inputOffset, int inputLength, byte[] output, int outputOffset, int maxOutputLength)
     {
-        long size = Zstd.compressByteArray(output, outputOffset, maxOutputLength, input, inputOffset, inputLength, COMPRESSION_LEVEL);
-        if (Zstd.isError(size)) {
-            throw new RuntimeException(Zstd.getErrorName(size));
-        }
-        return toIntExact(size);
+        return checkError(Zstd.compressByteArray(output, outputOffset, maxOutputLength, input, inputOffset, inputLength, compressionLevel));
     }
 
     @Override
     public void compress(ByteBuffer input, ByteBuffer output)
     {
-        throw new UnsupportedOperationException();
+        int compressedSize;
+        if (input.hasArray() && output.hasArray()) {
+            compressedSize = compress(
+                    input.array(),
+                    input.arrayOffset() + input.position(),
+                    input.remaining(),
+                    output.array(),
+                    output.arrayOffset() + output.position(),
+                    output.remaining());
+        }
+        else if (input.isDirect() && output.isDirect()) {
+            compressedSize = checkError(Zstd.compressDirectByteBuffer(output, output.position(), output.remaining(), input, input.position(), input.remaining(), compressionLevel));
+        }
+        else {
+            // zstd-jni only compresses between two heap arrays or two direct buffers
+            byte[] inputBytes = new byte[input.remaining()];
+            input.duplicate().get(inputBytes);
+            byte[] outputBytes = new byte[maxCompressedLength(inputBytes.length)];
+            compressedSize = compress(inputBytes, 0, inputBytes.length, outputBytes, 0, outputBytes.length);
+            output.duplicate().put(outputBytes, 0, compressedSize);
+        }
+        input.position(input.limit());
+        output.position(output.position() + compressedSize);
+    }
+
+    private static int checkError(long size)
+    {
+        if (Zstd.isError(size)) {
+            throw new RuntimeException(Zstd.getErrorName(size));
+        }
+        return toIntExact(size);
     }
 }
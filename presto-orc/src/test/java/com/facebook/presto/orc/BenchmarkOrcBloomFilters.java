@@ -0,0 +1,236 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.orc.OrcWriteValidation.OrcWriteValidationMode;
+import com.facebook.presto.orc.TupleDomainOrcPredicate.ColumnReference;
+import com.facebook.presto.orc.cache.StorageOrcFileTailSource;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slice;
+import io.airlift.units.DataSize;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.orc.NoopOrcAggregatedMemoryContext.NOOP_ORC_AGGREGATED_MEMORY_CONTEXT;
+import static com.facebook.presto.orc.OrcEncoding.ORC;
+import static com.facebook.presto.orc.OrcReader.INITIAL_BATCH_SIZE;
+import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZSTD;
+import static com.google.common.io.Files.createTempDir;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Measures the cost of writing row group bloom filters and the share of the rows a point lookup
+ * on a high cardinality string column no longer reads because of them. The rows skipped by the
+ * lookup are reported in the rowsSkipped and rowsRead counters.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(3)
+@Warmup(iterations = 10, time = 1000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkOrcBloomFilters
+{
+    private static final int ROWS = 1_000_000;
+    private static final int ROW_GROUP_SIZE = 10_000;
+    private static final String COLUMN_NAME = "id";
+
+    @Benchmark
+    public long write(BenchmarkData data)
+            throws IOException
+    {
+        File file = new File(data.temporaryDirectory, randomUUID().toString());
+        try {
+            data.writeFile(file);
+            return file.length();
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Benchmark
+    public long pointLookup(BenchmarkData data, RowCounter counter)
+            throws IOException
+    {
+        long rows = 0;
+        try (OrcBatchRecordReader recordReader = data.createRecordReader()) {
+            while (true) {
+                int batchSize = recordReader.nextBatch();
+                if (batchSize <= 0) {
+                    break;
+                }
+                recordReader.readBlock(0);
+                rows += batchSize;
+            }
+        }
+        counter.rowsRead += rows;
+        counter.rowsSkipped += ROWS - rows;
+        return rows;
+    }
+
+    @SuppressWarnings("PublicField")
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class RowCounter
+    {
+        public long rowsRead;
+        public long rowsSkipped;
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        private final Random random = new Random(0);
+
+        @Param({"true", "false"})
+        private boolean bloomFilter;
+
+        @Param({"0.05", "0.01"})
+        private double fpp;
+
+        private File temporaryDirectory;
+        private File orcFile;
+        private Page page;
+        private Slice lookupValue;
+
+        @Setup
+        public void setup()
+                throws IOException
+        {
+            BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(null, ROWS);
+            Slice lookup = null;
+            int lookupPosition = random.nextInt(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                Slice value = utf8Slice(new UUID(random.nextLong(), random.nextLong()).toString());
+                VARCHAR.writeSlice(blockBuilder, value);
+                if (i == lookupPosition) {
+                    lookup = value;
+                }
+            }
+            this.page = new Page(blockBuilder.build());
+            this.lookupValue = lookup;
+
+            temporaryDirectory = createTempDir();
+            orcFile = new File(temporaryDirectory, randomUUID().toString());
+            writeFile(orcFile);
+        }
+
+        @TearDown
+        public void tearDown()
+                throws IOException
+        {
+            deleteRecursively(temporaryDirectory.toPath(), ALLOW_INSECURE);
+        }
+
+        private void writeFile(File file)
+                throws IOException
+        {
+            OrcWriterOptions options = new OrcWriterOptions()
+                    .withRowGroupMaxRowCount(ROW_GROUP_SIZE)
+                    .withBloomFilterFpp(fpp);
+            if (bloomFilter) {
+                options = options.withBloomFilterColumns(ImmutableSet.of(COLUMN_NAME));
+            }
+
+            OrcWriter writer = new OrcWriter(
+                    new OutputStreamDataSink(new FileOutputStream(file)),
+                    ImmutableList.of(COLUMN_NAME),
+                    ImmutableList.of(VARCHAR),
+                    ORC,
+                    ZSTD,
+                    options,
+                    ImmutableMap.of(),
+                    HIVE_STORAGE_TIME_ZONE,
+                    false,
+                    OrcWriteValidationMode.BOTH,
+                    new OrcWriterStats());
+            writer.write(page);
+            writer.close();
+        }
+
+        private OrcBatchRecordReader createRecordReader()
+                throws IOException
+        {
+            OrcDataSource dataSource = new FileOrcDataSource(orcFile, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), true);
+            OrcReader orcReader = new OrcReader(
+                    dataSource,
+                    ORC,
+                    new StorageOrcFileTailSource(),
+                    new StorageStripeMetadataSource(),
+                    NOOP_ORC_AGGREGATED_MEMORY_CONTEXT,
+                    OrcReaderTestingUtils.createDefaultTestConfig(),
+                    false);
+            TupleDomainOrcPredicate<String> predicate = new TupleDomainOrcPredicate<>(
+                    TupleDomain.withColumnDomains(ImmutableMap.of(COLUMN_NAME, Domain.singleValue(VARCHAR, lookupValue))),
+                    ImmutableList.of(new ColumnReference<>(COLUMN_NAME, 0, VARCHAR)),
+                    true,
+                    Optional.empty());
+            return orcReader.createBatchRecordReader(
+                    ImmutableMap.of(0, VARCHAR),
+                    predicate,
+                    HIVE_STORAGE_TIME_ZONE,
+                    new TestingHiveOrcAggregatedMemoryContext(),
+                    INITIAL_BATCH_SIZE);
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkOrcBloomFilters.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
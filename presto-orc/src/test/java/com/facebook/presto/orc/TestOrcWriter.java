@@ -22,10 +22,12 @@ import com.facebook.presto.orc.metadata.Footer;
 import com.facebook.presto.orc.metadata.Stream;
 import com.facebook.presto.orc.metadata.StripeFooter;
 import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.orc.metadata.statistics.HiveBloomFilter;
 import com.facebook.presto.orc.stream.DataOutput;
 import com.facebook.presto.orc.stream.OrcInputStream;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.slice.Slices;
 import io.airlift.units.DataSize;
 import org.testng.annotations.Test;
@@ -37,6 +39,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static com.facebook.airlift.testing.Assertions.assertGreaterThanOrEqual;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.orc.NoopOrcAggregatedMemoryContext.NOOP_ORC_AGGREGATED_MEMORY_CONTEXT;
 import static com.facebook.presto.orc.OrcEncoding.ORC;
@@ -45,9 +48,14 @@ import static com.facebook.presto.orc.StripeReader.isIndexStream;
 import static com.facebook.presto.orc.TestingOrcPredicate.ORC_ROW_GROUP_SIZE;
 import static com.facebook.presto.orc.TestingOrcPredicate.ORC_STRIPE_SIZE;
 import static com.facebook.presto.orc.metadata.CompressionKind.NONE;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.BLOOM_FILTER;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.lang.Math.toIntExact;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 public class TestOrcWriter
 {
@@ -136,6 +144,88 @@ public class TestOrcWriter
         }
     }
 
+    @Test
+    public void testWriteBloomFilters()
+            throws IOException
+    {
+        TempFile tempFile = new TempFile();
+        OrcWriter writer = new OrcWriter(
+                new OutputStreamDataSink(new FileOutputStream(tempFile.getFile())),
+                ImmutableList.of("test1", "test2"),
+                ImmutableList.of(BIGINT, BIGINT),
+                ORC,
+                NONE,
+                new OrcWriterOptions()
+                        .withStripeMinSize(new DataSize(0, MEGABYTE))
+                        .withStripeMaxSize(new DataSize(32, MEGABYTE))
+                        .withStripeMaxRowCount(ORC_STRIPE_SIZE)
+                        .withRowGroupMaxRowCount(ORC_ROW_GROUP_SIZE)
+                        .withDictionaryMaxMemory(new DataSize(32, MEGABYTE))
+                        .withBloomFilterColumns(ImmutableSet.of("test1")),
+                ImmutableMap.of(),
+                HIVE_STORAGE_TIME_ZONE,
+                true,
+                OrcWriteValidationMode.BOTH,
+                new OrcWriterStats());
+
+        int entries = 3 * ORC_ROW_GROUP_SIZE;
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, entries);
+        for (int i = 0; i < entries; i++) {
+            BIGINT.writeLong(blockBuilder, i);
+        }
+        Block block = blockBuilder.build();
+        writer.write(new Page(block, block));
+        writer.close();
+
+        DataSize dataSize = new DataSize(1, MEGABYTE);
+        OrcDataSource orcDataSource = new FileOrcDataSource(tempFile.getFile(), dataSize, dataSize, dataSize, true);
+        Footer footer = new OrcReader(
+                orcDataSource,
+                ORC,
+                new StorageOrcFileTailSource(),
+                new StorageStripeMetadataSource(),
+                NOOP_ORC_AGGREGATED_MEMORY_CONTEXT,
+                new OrcReaderOptions(
+                        dataSize,
+                        dataSize,
+                        dataSize,
+                        false),
+                false
+        ).getFooter();
+        assertEquals(footer.getStripes().size(), 1);
+        StripeInformation stripe = footer.getStripes().get(0);
+
+        byte[] tailBuffer = new byte[toIntExact(stripe.getFooterLength())];
+        orcDataSource.readFully(stripe.getOffset() + stripe.getIndexLength() + stripe.getDataLength(), tailBuffer);
+        StripeFooter stripeFooter;
+        try (InputStream inputStream = new OrcInputStream(orcDataSource.getId(), Slices.wrappedBuffer(tailBuffer).getInput(), Optional.empty(), new TestingHiveOrcAggregatedMemoryContext(), tailBuffer.length)) {
+            stripeFooter = ORC.createMetadataReader().readStripeFooter(footer.getTypes(), inputStream);
+        }
+
+        // only the configured column has a bloom filter stream
+        List<HiveBloomFilter> bloomFilters = null;
+        long offset = stripe.getOffset();
+        for (Stream stream : stripeFooter.getStreams()) {
+            if (stream.getStreamKind() == BLOOM_FILTER) {
+                assertEquals(stream.getColumn(), 1);
+                assertNull(bloomFilters);
+                byte[] buffer = new byte[stream.getLength()];
+                orcDataSource.readFully(offset, buffer);
+                try (InputStream inputStream = new OrcInputStream(orcDataSource.getId(), Slices.wrappedBuffer(buffer).getInput(), Optional.empty(), new TestingHiveOrcAggregatedMemoryContext(), buffer.length)) {
+                    bloomFilters = ORC.createMetadataReader().readBloomFilterIndexes(inputStream);
+                }
+            }
+            offset += stream.getLength();
+        }
+        assertNotNull(bloomFilters);
+
+        // there is a bloom filter for every row group and it contains the values of the row group
+        assertEquals(bloomFilters.size(), 3);
+        for (int i = 0; i < entries; i++) {
+            assertTrue(bloomFilters.get(i / ORC_ROW_GROUP_SIZE).testLong(i));
+        }
+    }
+
     @Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = "Dummy exception from mocked instance")
     public void testVerifyNoIllegalStateException()
             throws IOException
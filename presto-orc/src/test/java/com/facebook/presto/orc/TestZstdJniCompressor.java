@@ -0,0 +1,101 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.zstd.ZstdJniCompressor;
+import io.airlift.compress.zstd.ZstdDecompressor;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestZstdJniCompressor
+{
+    private static final byte[] INPUT = createInput();
+
+    @Test
+    public void testByteArray()
+    {
+        ZstdJniCompressor compressor = new ZstdJniCompressor();
+        byte[] compressed = new byte[compressor.maxCompressedLength(INPUT.length) + 10];
+        int compressedSize = compressor.compress(INPUT, 0, INPUT.length, compressed, 10, compressed.length - 10);
+        assertDecompressed(Arrays.copyOfRange(compressed, 10, 10 + compressedSize));
+    }
+
+    @Test
+    public void testHeapByteBuffer()
+    {
+        assertByteBufferCompression(ByteBuffer.wrap(INPUT), ByteBuffer.allocate(new ZstdJniCompressor().maxCompressedLength(INPUT.length)));
+    }
+
+    @Test
+    public void testDirectByteBuffer()
+    {
+        assertByteBufferCompression(directCopy(INPUT), ByteBuffer.allocateDirect(new ZstdJniCompressor().maxCompressedLength(INPUT.length)));
+    }
+
+    @Test
+    public void testMixedByteBuffers()
+    {
+        int maxCompressedLength = new ZstdJniCompressor().maxCompressedLength(INPUT.length);
+        assertByteBufferCompression(ByteBuffer.wrap(INPUT), ByteBuffer.allocateDirect(maxCompressedLength));
+        assertByteBufferCompression(directCopy(INPUT), ByteBuffer.allocate(maxCompressedLength));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Invalid zstd compression level: 23")
+    public void testInvalidCompressionLevel()
+    {
+        new ZstdJniCompressor(ZstdJniCompressor.MAX_COMPRESSION_LEVEL + 1);
+    }
+
+    private static void assertByteBufferCompression(ByteBuffer input, ByteBuffer output)
+    {
+        output.position(3);
+        new ZstdJniCompressor(ZstdJniCompressor.MAX_COMPRESSION_LEVEL).compress(input, output);
+        assertEquals(input.remaining(), 0);
+
+        output.flip();
+        output.position(3);
+        byte[] compressed = new byte[output.remaining()];
+        output.get(compressed);
+        assertDecompressed(compressed);
+    }
+
+    private static void assertDecompressed(byte[] compressed)
+    {
+        byte[] decompressed = new byte[INPUT.length];
+        int decompressedSize = new ZstdDecompressor().decompress(compressed, 0, compressed.length, decompressed, 0, decompressed.length);
+        assertEquals(decompressedSize, INPUT.length);
+        assertEquals(decompressed, INPUT);
+    }
+
+    private static ByteBuffer directCopy(byte[] bytes)
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] createInput()
+    {
+        byte[] input = new byte[64 * 1024];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (byte) (i % 251 < 128 ? i % 7 : i);
+        }
+        return input;
+    }
+}
@@ -21,8 +21,12 @@ import com.facebook.presto.parquet.batchreader.BooleanFlatBatchReader;
 import com.facebook.presto.parquet.batchreader.BooleanNestedBatchReader;
 import com.facebook.presto.parquet.batchreader.Int32FlatBatchReader;
 import com.facebook.presto.parquet.batchreader.Int32NestedBatchReader;
+import com.facebook.presto.parquet.batchreader.Int32ShortDecimalFlatBatchReader;
+import com.facebook.presto.parquet.batchreader.Int32ShortDecimalNestedBatchReader;
 import com.facebook.presto.parquet.batchreader.Int64FlatBatchReader;
 import com.facebook.presto.parquet.batchreader.Int64NestedBatchReader;
+import com.facebook.presto.parquet.batchreader.LongDecimalFlatBatchReader;
+import com.facebook.presto.parquet.batchreader.LongDecimalNestedBatchReader;
 import com.facebook.presto.parquet.batchreader.TimestampFlatBatchReader;
 import com.facebook.presto.parquet.batchreader.TimestampNestedBatchReader;
 import com.facebook.presto.parquet.reader.AbstractColumnReader;
@@ -37,11 +41,15 @@ import com.facebook.presto.parquet.reader.ShortDecimalColumnReader;
 import com.facebook.presto.parquet.reader.TimestampColumnReader;
 import com.facebook.presto.spi.PrestoException;
 import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
 
 import java.util.Optional;
 
 import static com.facebook.presto.parquet.ParquetTypeUtils.createDecimalType;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT32;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT64;
 
 public class ColumnReaderFactory
 {
@@ -51,13 +59,16 @@ public class ColumnReaderFactory
 
     public static ColumnReader createReader(RichColumnDescriptor descriptor, boolean batchReadEnabled)
     {
-        // decimal is not supported in batch readers
-        if (batchReadEnabled && descriptor.getPrimitiveType().getOriginalType() != OriginalType.DECIMAL) {
+        if (batchReadEnabled && isBatchReadSupported(descriptor)) {
             final boolean isNested = descriptor.getPath().length > 1;
             switch (descriptor.getPrimitiveType().getPrimitiveTypeName()) {
                 case BOOLEAN:
                     return isNested ? new BooleanNestedBatchReader(descriptor) : new BooleanFlatBatchReader(descriptor);
                 case INT32:
+                    if (isDecimal(descriptor)) {
+                        return isNested ? new Int32ShortDecimalNestedBatchReader(descriptor) : new Int32ShortDecimalFlatBatchReader(descriptor);
+                    }
+                    return isNested ? new Int32NestedBatchReader(descriptor) : new Int32FlatBatchReader(descriptor);
                 case FLOAT:
                     return isNested ? new Int32NestedBatchReader(descriptor) : new Int32FlatBatchReader(descriptor);
                 case INT64:
@@ -67,6 +78,8 @@ public class ColumnReaderFactory
                     return isNested ? new TimestampNestedBatchReader(descriptor) : new TimestampFlatBatchReader(descriptor);
                 case BINARY:
                     return isNested ? new BinaryNestedBatchReader(descriptor) : new BinaryFlatBatchReader(descriptor);
+                case FIXED_LEN_BYTE_ARRAY:
+                    return isNested ? new LongDecimalNestedBatchReader(descriptor) : new LongDecimalFlatBatchReader(descriptor);
             }
         }
 
@@ -93,6 +106,31 @@ public class ColumnReaderFactory
         }
     }
 
+    private static boolean isBatchReadSupported(RichColumnDescriptor descriptor)
+    {
+        if (!isDecimal(descriptor)) {
+            return descriptor.getPrimitiveType().getPrimitiveTypeName() != FIXED_LEN_BYTE_ARRAY;
+        }
+
+        // short decimals stored as INT32 or INT64 are read as their unscaled values and long decimals stored as
+        // FIXED_LEN_BYTE_ARRAY as their two unscaled longs, other decimals are not supported in batch readers
+        PrimitiveTypeName primitiveTypeName = descriptor.getPrimitiveType().getPrimitiveTypeName();
+        Optional<Type> type = createDecimalType(descriptor);
+        if (!type.isPresent()) {
+            return false;
+        }
+        boolean isShort = ((DecimalType) type.get()).isShort();
+        if (primitiveTypeName == INT32 || primitiveTypeName == INT64) {
+            return isShort;
+        }
+        return primitiveTypeName == FIXED_LEN_BYTE_ARRAY && !isShort;
+    }
+
+    private static boolean isDecimal(RichColumnDescriptor descriptor)
+    {
+        return descriptor.getPrimitiveType().getOriginalType() == OriginalType.DECIMAL;
+    }
+
     private static Optional<AbstractColumnReader> createDecimalColumnReader(RichColumnDescriptor descriptor)
     {
         Optional<Type> type = createDecimalType(descriptor);
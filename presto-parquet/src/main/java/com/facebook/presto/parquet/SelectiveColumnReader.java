@@ -0,0 +1,31 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet;
+
+import com.facebook.presto.parquet.reader.ColumnChunk;
+
+/**
+ * A reader of a flat column that can decode only some positions of a batch and skip the values of the others.
+ */
+public interface SelectiveColumnReader
+        extends ColumnReader
+{
+    /**
+     * Reads the values of the given positions of the next batch. The block of the returned chunk has
+     * {@code positionCount} positions, and no definition or repetition levels.
+     *
+     * @param positions positions in the batch, in increasing order
+     */
+    ColumnChunk readNext(int[] positions, int positionCount);
+}
@@ -0,0 +1,372 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.RunLengthEncodedBlock;
+import com.facebook.presto.parquet.DataPage;
+import com.facebook.presto.parquet.DictionaryPage;
+import com.facebook.presto.parquet.Field;
+import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.SelectiveColumnReader;
+import com.facebook.presto.parquet.batchreader.decoders.Decoders.FlatDecoders;
+import com.facebook.presto.parquet.batchreader.decoders.FlatDefinitionLevelDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder;
+import com.facebook.presto.parquet.batchreader.dictionary.Dictionaries;
+import com.facebook.presto.parquet.dictionary.Dictionary;
+import com.facebook.presto.parquet.reader.ColumnChunk;
+import com.facebook.presto.parquet.reader.PageReader;
+import com.facebook.presto.spi.PrestoException;
+import org.apache.parquet.io.ParquetDecodingException;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static com.facebook.presto.parquet.ParquetErrorCode.PARQUET_IO_READ_ERROR;
+import static com.facebook.presto.parquet.batchreader.decoders.Decoders.readFlatPage;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Batch reader of a flat column of fixed width values. The values of a batch are decoded into a
+ * primitive array of type {@code T}, which is wrapped in a block without copying. When only some
+ * positions of a batch are read, the values of the other positions are skipped without decoding them.
+ */
+public abstract class AbstractFlatBatchReader<T>
+        implements SelectiveColumnReader
+{
+    protected final RichColumnDescriptor columnDescriptor;
+
+    protected Field field;
+    protected int nextBatchSize;
+    protected FlatDefinitionLevelDecoder definitionLevelDecoder;
+    protected ValuesDecoder valuesDecoder;
+    protected int remainingCountInPage;
+
+    private Dictionary dictionary;
+    private int readOffset;
+    private PageReader pageReader;
+
+    public AbstractFlatBatchReader(RichColumnDescriptor columnDescriptor)
+    {
+        this.columnDescriptor = requireNonNull(columnDescriptor, "columnDescriptor is null");
+    }
+
+    protected abstract T createValues(int positionCount);
+
+    /**
+     * Reads {@code length} values into {@code values} starting at position {@code offset}.
+     */
+    protected abstract void readValues(ValuesDecoder valuesDecoder, T values, int offset, int length)
+            throws IOException;
+
+    protected abstract void skipValues(ValuesDecoder valuesDecoder, int length)
+            throws IOException;
+
+    /**
+     * Spreads the {@code nonNullCount} values at the start of the range {@code [offset, offset + length)}
+     * over the positions of the range that are not null.
+     */
+    protected abstract void unpackNulls(T values, boolean[] isNull, int offset, int length, int nonNullCount);
+
+    protected abstract Block createBlock(int positionCount, Optional<boolean[]> isNull, T values);
+
+    @Override
+    public boolean isInitialized()
+    {
+        return pageReader != null && field != null;
+    }
+
+    @Override
+    public void init(PageReader pageReader, Field field)
+    {
+        checkArgument(!isInitialized(), "Parquet batch reader already initialized");
+        this.pageReader = requireNonNull(pageReader, "pageReader is null");
+        checkArgument(pageReader.getTotalValueCount() > 0, "page is empty");
+        this.field = requireNonNull(field, "field is null");
+
+        DictionaryPage dictionaryPage = pageReader.readDictionaryPage();
+        if (dictionaryPage != null) {
+            dictionary = Dictionaries.createDictionary(columnDescriptor, dictionaryPage);
+        }
+    }
+
+    @Override
+    public void prepareNextRead(int batchSize)
+    {
+        readOffset = readOffset + nextBatchSize;
+        nextBatchSize = batchSize;
+    }
+
+    @Override
+    public ColumnChunk readNext()
+    {
+        ColumnChunk columnChunk = null;
+        try {
+            seek();
+            if (field.isRequired()) {
+                columnChunk = readWithoutNull();
+            }
+            else {
+                columnChunk = readWithNull();
+            }
+        }
+        catch (IOException exception) {
+            throw new PrestoException(PARQUET_IO_READ_ERROR, "Error reading Parquet column " + columnDescriptor, exception);
+        }
+
+        readOffset = 0;
+        nextBatchSize = 0;
+        return columnChunk;
+    }
+
+    @Override
+    public ColumnChunk readNext(int[] positions, int positionCount)
+    {
+        ColumnChunk columnChunk = null;
+        try {
+            seek();
+            columnChunk = readPositions(positions, positionCount);
+        }
+        catch (IOException exception) {
+            throw new PrestoException(PARQUET_IO_READ_ERROR, "Error reading Parquet column " + columnDescriptor, exception);
+        }
+
+        readOffset = 0;
+        nextBatchSize = 0;
+        return columnChunk;
+    }
+
+    protected boolean readNextPage()
+    {
+        definitionLevelDecoder = null;
+        valuesDecoder = null;
+        remainingCountInPage = 0;
+
+        DataPage page = pageReader.readPage();
+        if (page == null) {
+            return false;
+        }
+
+        FlatDecoders flatDecoders = readFlatPage(page, columnDescriptor, dictionary);
+        definitionLevelDecoder = flatDecoders.getDefinitionLevelDecoder();
+        valuesDecoder = flatDecoders.getValuesDecoder();
+
+        remainingCountInPage = page.getValueCount();
+        return true;
+    }
+
+    private ColumnChunk readWithNull()
+            throws IOException
+    {
+        T values = createValues(nextBatchSize);
+        boolean[] isNull = new boolean[nextBatchSize];
+
+        int totalNonNullCount = 0;
+        int remainingInBatch = nextBatchSize;
+        int startOffset = 0;
+        while (remainingInBatch > 0) {
+            if (remainingCountInPage == 0) {
+                if (!readNextPage()) {
+                    break;
+                }
+            }
+
+            int chunkSize = Math.min(remainingCountInPage, remainingInBatch);
+            int nonNullCount = definitionLevelDecoder.readNext(isNull, startOffset, chunkSize);
+            totalNonNullCount += nonNullCount;
+
+            if (nonNullCount > 0) {
+                readValues(valuesDecoder, values, startOffset, nonNullCount);
+                if (nonNullCount < chunkSize) {
+                    unpackNulls(values, isNull, startOffset, chunkSize, nonNullCount);
+                }
+            }
+
+            startOffset += chunkSize;
+            remainingInBatch -= chunkSize;
+            remainingCountInPage -= chunkSize;
+        }
+
+        if (remainingInBatch != 0) {
+            throw new ParquetDecodingException("Still remaining to be read in current batch.");
+        }
+
+        if (totalNonNullCount == 0) {
+            Block block = RunLengthEncodedBlock.create(field.getType(), null, nextBatchSize);
+            return new ColumnChunk(block, new int[0], new int[0]);
+        }
+
+        boolean hasNoNull = totalNonNullCount == nextBatchSize;
+        Block block = createBlock(nextBatchSize, hasNoNull ? Optional.empty() : Optional.of(isNull), values);
+        return new ColumnChunk(block, new int[0], new int[0]);
+    }
+
+    private ColumnChunk readWithoutNull()
+            throws IOException
+    {
+        T values = createValues(nextBatchSize);
+        int remainingInBatch = nextBatchSize;
+        int startOffset = 0;
+        while (remainingInBatch > 0) {
+            if (remainingCountInPage == 0) {
+                if (!readNextPage()) {
+                    break;
+                }
+            }
+
+            int chunkSize = Math.min(remainingCountInPage, remainingInBatch);
+
+            readValues(valuesDecoder, values, startOffset, chunkSize);
+            startOffset += chunkSize;
+            remainingInBatch -= chunkSize;
+            remainingCountInPage -= chunkSize;
+        }
+
+        if (remainingInBatch != 0) {
+            throw new ParquetDecodingException(format("Corrupted Parquet file: extra %d values to be consumed when scanning current batch", remainingInBatch));
+        }
+
+        Block block = createBlock(nextBatchSize, Optional.empty(), values);
+        return new ColumnChunk(block, new int[0], new int[0]);
+    }
+
+    private ColumnChunk readPositions(int[] positions, int positionCount)
+            throws IOException
+    {
+        T values = createValues(positionCount);
+        // null flags of the selected positions, and of all the positions of the batch as read from the definition levels
+        boolean[] isNull = field.isRequired() ? null : new boolean[positionCount];
+        boolean[] batchIsNull = field.isRequired() ? null : new boolean[nextBatchSize];
+
+        int totalNonNullCount = 0;
+        // index in positions of the next position to read
+        int outputOffset = 0;
+        // first position of the batch that has not been read or skipped
+        int batchOffset = 0;
+        while (batchOffset < nextBatchSize) {
+            if (remainingCountInPage == 0) {
+                if (!readNextPage()) {
+                    break;
+                }
+            }
+
+            int chunkEnd = batchOffset + Math.min(remainingCountInPage, nextBatchSize - batchOffset);
+            if (batchIsNull != null) {
+                definitionLevelDecoder.readNext(batchIsNull, batchOffset, chunkEnd - batchOffset);
+            }
+
+            int position = batchOffset;
+            while (outputOffset < positionCount && positions[outputOffset] < chunkEnd) {
+                // read the run of consecutive selected positions that starts at the next selected position
+                int runStart = positions[outputOffset];
+                int runLength = 1;
+                while (outputOffset + runLength < positionCount && positions[outputOffset + runLength] == runStart + runLength && runStart + runLength < chunkEnd) {
+                    runLength++;
+                }
+
+                skip(batchIsNull, position, runStart);
+                if (batchIsNull == null) {
+                    readValues(valuesDecoder, values, outputOffset, runLength);
+                    totalNonNullCount += runLength;
+                }
+                else {
+                    System.arraycopy(batchIsNull, runStart, isNull, outputOffset, runLength);
+                    int nonNullCount = countNonNull(batchIsNull, runStart, runStart + runLength);
+                    if (nonNullCount > 0) {
+                        readValues(valuesDecoder, values, outputOffset, nonNullCount);
+                        if (nonNullCount < runLength) {
+                            unpackNulls(values, isNull, outputOffset, runLength, nonNullCount);
+                        }
+                    }
+                    totalNonNullCount += nonNullCount;
+                }
+
+                outputOffset += runLength;
+                position = runStart + runLength;
+            }
+            skip(batchIsNull, position, chunkEnd);
+
+            remainingCountInPage -= chunkEnd - batchOffset;
+            batchOffset = chunkEnd;
+        }
+
+        if (batchOffset != nextBatchSize) {
+            throw new ParquetDecodingException(format("Corrupted Parquet file: extra %d values to be consumed when scanning current batch", nextBatchSize - batchOffset));
+        }
+
+        if (isNull != null && totalNonNullCount == 0) {
+            Block block = RunLengthEncodedBlock.create(field.getType(), null, positionCount);
+            return new ColumnChunk(block, new int[0], new int[0]);
+        }
+
+        boolean hasNoNull = totalNonNullCount == positionCount;
+        Block block = createBlock(positionCount, hasNoNull ? Optional.empty() : Optional.of(isNull), values);
+        return new ColumnChunk(block, new int[0], new int[0]);
+    }
+
+    /**
+     * Skips the values of the positions of the batch from {@code start} (inclusive) to {@code end} (exclusive) of the current page.
+     */
+    private void skip(boolean[] batchIsNull, int start, int end)
+            throws IOException
+    {
+        int valueCount = batchIsNull == null ? end - start : countNonNull(batchIsNull, start, end);
+        if (valueCount > 0) {
+            skipValues(valuesDecoder, valueCount);
+        }
+    }
+
+    private static int countNonNull(boolean[] isNull, int start, int end)
+    {
+        int nonNullCount = 0;
+        for (int position = start; position < end; position++) {
+            if (!isNull[position]) {
+                nonNullCount++;
+            }
+        }
+        return nonNullCount;
+    }
+
+    private void seek()
+            throws IOException
+    {
+        if (readOffset == 0) {
+            return;
+        }
+
+        int remainingInBatch = readOffset;
+        int startOffset = 0;
+        while (remainingInBatch > 0) {
+            if (remainingCountInPage == 0) {
+                if (!readNextPage()) {
+                    break;
+                }
+            }
+
+            int chunkSize = Math.min(remainingCountInPage, remainingInBatch);
+            int skipSize = chunkSize;
+            if (!columnDescriptor.isRequired()) {
+                boolean[] isNull = new boolean[readOffset];
+                int nonNullCount = definitionLevelDecoder.readNext(isNull, startOffset, chunkSize);
+                skipSize = nonNullCount;
+                startOffset += chunkSize;
+            }
+            skipValues(valuesDecoder, skipSize);
+            remainingInBatch -= chunkSize;
+            remainingCountInPage -= chunkSize;
+        }
+    }
+}
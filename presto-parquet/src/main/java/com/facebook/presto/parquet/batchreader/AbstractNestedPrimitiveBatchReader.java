@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.RunLengthEncodedBlock;
+import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder;
+import com.facebook.presto.parquet.reader.ColumnChunk;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Batch reader of a nested column of fixed width values. The values of a batch are decoded into a
+ * primitive array of type {@code T}, which is wrapped in a block without copying.
+ */
+public abstract class AbstractNestedPrimitiveBatchReader<T>
+        extends AbstractNestedBatchReader
+{
+    public AbstractNestedPrimitiveBatchReader(RichColumnDescriptor columnDescriptor)
+    {
+        super(columnDescriptor);
+    }
+
+    protected abstract T createValues(int positionCount);
+
+    /**
+     * Reads {@code length} values into {@code values} starting at position {@code offset}.
+     */
+    protected abstract void readValues(ValuesDecoder valuesDecoder, T values, int offset, int length)
+            throws IOException;
+
+    protected abstract void skipValues(ValuesDecoder valuesDecoder, int length)
+            throws IOException;
+
+    /**
+     * Spreads the {@code nonNullCount} values at the start of the range {@code [offset, offset + length)}
+     * over the positions of the range that are not null.
+     */
+    protected abstract void unpackNulls(T values, boolean[] isNull, int offset, int length, int nonNullCount);
+
+    protected abstract Block createBlock(int positionCount, Optional<boolean[]> isNull, T values);
+
+    @Override
+    protected ColumnChunk readNestedWithNull()
+            throws IOException
+    {
+        int maxDefinitionLevel = columnDescriptor.getMaxDefinitionLevel();
+        RepetitionLevelDecodingContext repetitionLevelDecodingContext = readRepetitionLevels(nextBatchSize);
+        DefinitionLevelDecodingContext definitionLevelDecodingContext = readDefinitionLevels(repetitionLevelDecodingContext.getDLValuesDecoderContexts(), repetitionLevelDecodingContext.getRepetitionLevels().length);
+
+        int[] definitionLevels = definitionLevelDecodingContext.getDefinitionLevels();
+        int newBatchSize = 0;
+        int batchNonNullCount = 0;
+        for (ValuesDecoderContext valuesDecoderContext : definitionLevelDecodingContext.getValuesDecoderContexts()) {
+            int nonNullCount = 0;
+            int valueCount = 0;
+            for (int i = valuesDecoderContext.getStart(); i < valuesDecoderContext.getEnd(); i++) {
+                nonNullCount += (definitionLevels[i] == maxDefinitionLevel ? 1 : 0);
+                valueCount += (definitionLevels[i] >= maxDefinitionLevel - 1 ? 1 : 0);
+            }
+            batchNonNullCount += nonNullCount;
+            newBatchSize += valueCount;
+            valuesDecoderContext.setNonNullCount(nonNullCount);
+            valuesDecoderContext.setValueCount(valueCount);
+        }
+
+        if (batchNonNullCount == 0) {
+            Block block = RunLengthEncodedBlock.create(field.getType(), null, newBatchSize);
+            return new ColumnChunk(block, definitionLevels, repetitionLevelDecodingContext.getRepetitionLevels());
+        }
+
+        T values = createValues(newBatchSize);
+        boolean[] isNull = new boolean[newBatchSize];
+        int offset = 0;
+        for (ValuesDecoderContext valuesDecoderContext : definitionLevelDecodingContext.getValuesDecoderContexts()) {
+            readValues(valuesDecoderContext.getValuesDecoder(), values, offset, valuesDecoderContext.getNonNullCount());
+
+            if (valuesDecoderContext.getNonNullCount() < valuesDecoderContext.getValueCount()) {
+                int valueIndex = offset;
+                for (int i = valuesDecoderContext.getStart(); i < valuesDecoderContext.getEnd(); i++) {
+                    if (definitionLevels[i] >= maxDefinitionLevel - 1) {
+                        isNull[valueIndex++] = definitionLevels[i] != maxDefinitionLevel;
+                    }
+                }
+                unpackNulls(values, isNull, offset, valuesDecoderContext.getValueCount(), valuesDecoderContext.getNonNullCount());
+            }
+            offset += valuesDecoderContext.getValueCount();
+        }
+
+        boolean hasNoNull = batchNonNullCount == newBatchSize;
+        Block block = createBlock(newBatchSize, hasNoNull ? Optional.empty() : Optional.of(isNull), values);
+        return new ColumnChunk(block, definitionLevels, repetitionLevelDecodingContext.getRepetitionLevels());
+    }
+
+    @Override
+    protected ColumnChunk readNestedNoNull()
+            throws IOException
+    {
+        int maxDefinitionLevel = columnDescriptor.getMaxDefinitionLevel();
+        RepetitionLevelDecodingContext repetitionLevelDecodingContext = readRepetitionLevels(nextBatchSize);
+        DefinitionLevelDecodingContext definitionLevelDecodingContext = readDefinitionLevels(repetitionLevelDecodingContext.getDLValuesDecoderContexts(), repetitionLevelDecodingContext.getRepetitionLevels().length);
+
+        int[] definitionLevels = definitionLevelDecodingContext.getDefinitionLevels();
+        int newBatchSize = 0;
+        for (ValuesDecoderContext valuesDecoderContext : definitionLevelDecodingContext.getValuesDecoderContexts()) {
+            int valueCount = 0;
+            for (int i = valuesDecoderContext.getStart(); i < valuesDecoderContext.getEnd(); i++) {
+                valueCount += (definitionLevels[i] == maxDefinitionLevel ? 1 : 0);
+            }
+            newBatchSize += valueCount;
+            valuesDecoderContext.setNonNullCount(valueCount);
+            valuesDecoderContext.setValueCount(valueCount);
+        }
+
+        T values = createValues(newBatchSize);
+        int offset = 0;
+        for (ValuesDecoderContext valuesDecoderContext : definitionLevelDecodingContext.getValuesDecoderContexts()) {
+            readValues(valuesDecoderContext.getValuesDecoder(), values, offset, valuesDecoderContext.getNonNullCount());
+            offset += valuesDecoderContext.getValueCount();
+        }
+
+        Block block = createBlock(newBatchSize, Optional.empty(), values);
+        return new ColumnChunk(block, definitionLevels, repetitionLevelDecodingContext.getRepetitionLevels());
+    }
+
+    @Override
+    protected void seek()
+            throws IOException
+    {
+        if (readOffset == 0) {
+            return;
+        }
+        int maxDefinitionLevel = columnDescriptor.getMaxDefinitionLevel();
+        RepetitionLevelDecodingContext repetitionLevelDecodingContext = readRepetitionLevels(readOffset);
+        DefinitionLevelDecodingContext definitionLevelDecodingContext = readDefinitionLevels(repetitionLevelDecodingContext.getDLValuesDecoderContexts(), repetitionLevelDecodingContext.getRepetitionLevels().length);
+
+        int[] definitionLevels = definitionLevelDecodingContext.getDefinitionLevels();
+        for (ValuesDecoderContext valuesDecoderContext : definitionLevelDecodingContext.getValuesDecoderContexts()) {
+            int valueCount = 0;
+            for (int i = valuesDecoderContext.getStart(); i < valuesDecoderContext.getEnd(); i++) {
+                valueCount += (definitionLevels[i] == maxDefinitionLevel ? 1 : 0);
+            }
+            skipValues(valuesDecoderContext.getValuesDecoder(), valueCount);
+        }
+    }
+}
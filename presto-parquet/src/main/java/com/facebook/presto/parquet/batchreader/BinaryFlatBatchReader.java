@@ -17,11 +17,11 @@ package com.facebook.presto.parquet.batchreader;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.RunLengthEncodedBlock;
 import com.facebook.presto.common.block.VariableWidthBlock;
-import com.facebook.presto.parquet.ColumnReader;
 import com.facebook.presto.parquet.DataPage;
 import com.facebook.presto.parquet.DictionaryPage;
 import com.facebook.presto.parquet.Field;
 import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.SelectiveColumnReader;
 import com.facebook.presto.parquet.batchreader.decoders.Decoders.FlatDecoders;
 import com.facebook.presto.parquet.batchreader.decoders.FlatDefinitionLevelDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.BinaryValuesDecoder;
@@ -33,6 +33,7 @@ import com.facebook.presto.parquet.reader.PageReader;
 import com.facebook.presto.spi.PrestoException;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
+import org.apache.parquet.io.ParquetDecodingException;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -43,10 +44,15 @@ import java.util.Optional;
 import static com.facebook.presto.parquet.ParquetErrorCode.PARQUET_IO_READ_ERROR;
 import static com.facebook.presto.parquet.batchreader.decoders.Decoders.readFlatPage;
 import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Batch reader of a flat column of variable width values. When only some positions of a batch are read,
+ * the values of the other positions are skipped without copying them.
+ */
 public class BinaryFlatBatchReader
-        implements ColumnReader
+        implements SelectiveColumnReader
 {
     private final RichColumnDescriptor columnDescriptor;
 
@@ -114,6 +120,23 @@ public class BinaryFlatBatchReader
         return columnChunk;
     }
 
+    @Override
+    public ColumnChunk readNext(int[] positions, int positionCount)
+    {
+        ColumnChunk columnChunk = null;
+        try {
+            seek();
+            columnChunk = readPositions(positions, positionCount);
+        }
+        catch (IOException ex) {
+            throw new PrestoException(PARQUET_IO_READ_ERROR, "Error reading Parquet column " + columnDescriptor, ex);
+        }
+
+        readOffset = 0;
+        nextBatchSize = 0;
+        return columnChunk;
+    }
+
     protected boolean readNextPage()
     {
         definitionLevelDecoder = null;
@@ -170,13 +193,93 @@ public class BinaryFlatBatchReader
             remainingCountInPage -= readChunkSize;
         }
 
+        return createColumnChunk(nextBatchSize, isNull, totalNonNullCount, valueBuffers, valuesDecoderContexts, bufferSize);
+    }
+
+    private ColumnChunk readPositions(int[] positions, int positionCount)
+            throws IOException
+    {
+        // null flags of the selected positions, and of all the positions of the batch as read from the definition levels
+        boolean[] isNull = new boolean[positionCount];
+        boolean[] batchIsNull = field.isRequired() ? null : new boolean[nextBatchSize];
+
+        // values of each run of consecutive selected positions; a context covers the run in the selected positions
+        List<ValueBuffer> valueBuffers = new ArrayList<>();
+        List<ValuesDecoderContext> valuesDecoderContexts = new ArrayList<>();
+        int bufferSize = 0;
+
+        int totalNonNullCount = 0;
+        // index in positions of the next position to read
+        int outputOffset = 0;
+        // first position of the batch that has not been read or skipped
+        int batchOffset = 0;
+        while (batchOffset < nextBatchSize) {
+            if (remainingCountInPage == 0) {
+                if (!readNextPage()) {
+                    break;
+                }
+            }
+
+            int chunkEnd = batchOffset + Math.min(remainingCountInPage, nextBatchSize - batchOffset);
+            if (batchIsNull != null) {
+                definitionLevelDecoder.readNext(batchIsNull, batchOffset, chunkEnd - batchOffset);
+            }
+
+            int position = batchOffset;
+            while (outputOffset < positionCount && positions[outputOffset] < chunkEnd) {
+                // read the run of consecutive selected positions that starts at the next selected position
+                int runStart = positions[outputOffset];
+                int runLength = 1;
+                while (outputOffset + runLength < positionCount && positions[outputOffset + runLength] == runStart + runLength && runStart + runLength < chunkEnd) {
+                    runLength++;
+                }
+
+                skip(batchIsNull, position, runStart);
+                int nonNullCount = runLength;
+                if (batchIsNull != null) {
+                    System.arraycopy(batchIsNull, runStart, isNull, outputOffset, runLength);
+                    nonNullCount = countNonNull(batchIsNull, runStart, runStart + runLength);
+                }
+                totalNonNullCount += nonNullCount;
+
+                ValueBuffer valueBuffer = valuesDecoder.readNext(nonNullCount);
+                bufferSize += valueBuffer.getBufferSize();
+                valueBuffers.add(valueBuffer);
+
+                ValuesDecoderContext<BinaryValuesDecoder> valuesDecoderContext = new ValuesDecoderContext(valuesDecoder, outputOffset, outputOffset + runLength);
+                valuesDecoderContext.setValueCount(runLength);
+                valuesDecoderContext.setNonNullCount(nonNullCount);
+                valuesDecoderContexts.add(valuesDecoderContext);
+
+                outputOffset += runLength;
+                position = runStart + runLength;
+            }
+            skip(batchIsNull, position, chunkEnd);
+
+            remainingCountInPage -= chunkEnd - batchOffset;
+            batchOffset = chunkEnd;
+        }
+
+        if (batchOffset != nextBatchSize) {
+            throw new ParquetDecodingException(format("Corrupted Parquet file: extra %d values to be consumed when scanning current batch", nextBatchSize - batchOffset));
+        }
+
+        return createColumnChunk(positionCount, isNull, totalNonNullCount, valueBuffers, valuesDecoderContexts, bufferSize);
+    }
+
+    /**
+     * Copies the values of the contexts into a single block, and spreads the values of each context over
+     * the positions of its range that are not null.
+     */
+    private ColumnChunk createColumnChunk(int positionCount, boolean[] isNull, int totalNonNullCount, List<ValueBuffer> valueBuffers, List<ValuesDecoderContext> valuesDecoderContexts, int bufferSize)
+    {
         if (totalNonNullCount == 0) {
-            Block block = RunLengthEncodedBlock.create(field.getType(), null, nextBatchSize);
+            Block block = RunLengthEncodedBlock.create(field.getType(), null, positionCount);
             return new ColumnChunk(block, new int[0], new int[0]);
         }
 
         byte[] byteBuffer = new byte[bufferSize];
-        int[] offsets = new int[nextBatchSize + 1];
+        int[] offsets = new int[positionCount + 1];
 
         int i = 0;
         int bufferIndex = 0;
@@ -208,8 +311,8 @@ public class BinaryFlatBatchReader
         }
 
         Slice buffer = Slices.wrappedBuffer(byteBuffer, 0, bufferSize);
-        boolean hasNoNull = totalNonNullCount == nextBatchSize;
-        Block block = new VariableWidthBlock(nextBatchSize, buffer, offsets, hasNoNull ? Optional.empty() : Optional.of(isNull));
+        boolean hasNoNull = totalNonNullCount == positionCount;
+        Block block = new VariableWidthBlock(positionCount, buffer, offsets, hasNoNull ? Optional.empty() : Optional.of(isNull));
         return new ColumnChunk(block, new int[0], new int[0]);
     }
 
@@ -265,6 +368,29 @@ public class BinaryFlatBatchReader
         return new ColumnChunk(block, new int[0], new int[0]);
     }
 
+    /**
+     * Skips the values of the positions of the batch from {@code start} (inclusive) to {@code end} (exclusive) of the current page.
+     */
+    private void skip(boolean[] batchIsNull, int start, int end)
+            throws IOException
+    {
+        int valueCount = batchIsNull == null ? end - start : countNonNull(batchIsNull, start, end);
+        if (valueCount > 0) {
+            valuesDecoder.skip(valueCount);
+        }
+    }
+
+    private static int countNonNull(boolean[] isNull, int start, int end)
+    {
+        int nonNullCount = 0;
+        for (int position = start; position < end; position++) {
+            if (!isNull[position]) {
+                nonNullCount++;
+            }
+        }
+        return nonNullCount;
+    }
+
     private void seek()
             throws IOException
     {
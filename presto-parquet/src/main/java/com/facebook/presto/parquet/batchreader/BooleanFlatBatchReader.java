@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.ByteArrayBlock;
+import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.BooleanValuesDecoder;
+
+import java.util.Optional;
+
+import static com.facebook.presto.parquet.batchreader.ReaderUtils.unpackByteNulls;
+
+public class BooleanFlatBatchReader
+        extends AbstractFlatBatchReader<byte[]>
+{
+    public BooleanFlatBatchReader(RichColumnDescriptor columnDescriptor)
+    {
+        super(columnDescriptor);
+    }
+
+    @Override
+    protected byte[] createValues(int positionCount)
+    {
+        return new byte[positionCount];
+    }
+
+    @Override
+    protected void readValues(ValuesDecoder valuesDecoder, byte[] values, int offset, int length)
+    {
+        ((BooleanValuesDecoder) valuesDecoder).readNext(values, offset, length);
+    }
+
+    @Override
+    protected void skipValues(ValuesDecoder valuesDecoder, int length)
+    {
+        ((BooleanValuesDecoder) valuesDecoder).skip(length);
+    }
+
+    @Override
+    protected void unpackNulls(byte[] values, boolean[] isNull, int offset, int length, int nonNullCount)
+    {
+        unpackByteNulls(values, isNull, offset, length, nonNullCount);
+    }
+
+    @Override
+    protected Block createBlock(int positionCount, Optional<boolean[]> isNull, byte[] values)
+    {
+        return new ByteArrayBlock(positionCount, isNull, values);
+    }
+}
@@ -15,6 +15,8 @@ package com.facebook.presto.parquet.batchreader;
 
 public class BytesUtils
 {
+    private static final long SIGN_LONG_MASK = 1L << 63;
+
     private BytesUtils()
     {
     }
@@ -61,4 +63,25 @@ public class BytesUtils
         out[6 + outPos] = (byte) (inByte >> 6 & 1);
         out[7 + outPos] = (byte) (inByte >> 7 & 1);
     }
+
+    /**
+     * Converts the big endian two's complement value of {@code length} bytes, at most 16, into the
+     * low and high longs of the sign and magnitude representation used by long decimals.
+     */
+    public static void getLongDecimal(byte[] byteBuffer, int offset, int length, long[] values, int valuesOffset)
+    {
+        long high = byteBuffer[offset] < 0 ? -1L : 0L;
+        long low = high;
+        for (int i = 0; i < length; i++) {
+            high = (high << 8) | (low >>> 56);
+            low = (low << 8) | (byteBuffer[offset + i] & 255);
+        }
+        if (high < 0) {
+            low = ~low + 1;
+            high = ~high + (low == 0 ? 1 : 0);
+            high |= SIGN_LONG_MASK;
+        }
+        values[valuesOffset] = low;
+        values[valuesOffset + 1] = high;
+    }
 }
@@ -15,229 +15,52 @@ package com.facebook.presto.parquet.batchreader;
 
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.IntArrayBlock;
-import com.facebook.presto.common.block.RunLengthEncodedBlock;
-import com.facebook.presto.parquet.ColumnReader;
-import com.facebook.presto.parquet.DataPage;
-import com.facebook.presto.parquet.DictionaryPage;
-import com.facebook.presto.parquet.Field;
 import com.facebook.presto.parquet.RichColumnDescriptor;
-import com.facebook.presto.parquet.batchreader.decoders.Decoders.FlatDecoders;
-import com.facebook.presto.parquet.batchreader.decoders.FlatDefinitionLevelDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.Int32ValuesDecoder;
-import com.facebook.presto.parquet.batchreader.dictionary.Dictionaries;
-import com.facebook.presto.parquet.dictionary.Dictionary;
-import com.facebook.presto.parquet.reader.ColumnChunk;
-import com.facebook.presto.parquet.reader.PageReader;
-import com.facebook.presto.spi.PrestoException;
-import org.apache.parquet.io.ParquetDecodingException;
 
 import java.io.IOException;
 import java.util.Optional;
 
-import static com.facebook.presto.parquet.ParquetErrorCode.PARQUET_IO_READ_ERROR;
-import static com.facebook.presto.parquet.batchreader.decoders.Decoders.readFlatPage;
-import static com.google.common.base.Preconditions.checkArgument;
-import static java.lang.String.format;
-import static java.util.Objects.requireNonNull;
+import static com.facebook.presto.parquet.batchreader.ReaderUtils.unpackIntNulls;
 
 public class Int32FlatBatchReader
-        implements ColumnReader
+        extends AbstractFlatBatchReader<int[]>
 {
-    private final RichColumnDescriptor columnDescriptor;
-
-    protected Field field;
-    protected int nextBatchSize;
-    protected FlatDefinitionLevelDecoder definitionLevelDecoder;
-    protected Int32ValuesDecoder valuesDecoder;
-    protected int remainingCountInPage;
-
-    private Dictionary dictionary;
-    private int readOffset;
-    private PageReader pageReader;
-
     public Int32FlatBatchReader(RichColumnDescriptor columnDescriptor)
     {
-        this.columnDescriptor = requireNonNull(columnDescriptor, "columnDescriptor is null");
-    }
-
-    @Override
-    public boolean isInitialized()
-    {
-        return pageReader != null && field != null;
+        super(columnDescriptor);
     }
 
     @Override
-    public void init(PageReader pageReader, Field field)
+    protected int[] createValues(int positionCount)
     {
-        checkArgument(!isInitialized(), "Parquet batch reader already initialized");
-        this.pageReader = requireNonNull(pageReader, "pageReader is null");
-        checkArgument(pageReader.getTotalValueCount() > 0, "page is empty");
-        this.field = requireNonNull(field, "field is null");
-
-        DictionaryPage dictionaryPage = pageReader.readDictionaryPage();
-        if (dictionaryPage != null) {
-            dictionary = Dictionaries.createDictionary(columnDescriptor, dictionaryPage);
-        }
+        return new int[positionCount];
     }
 
     @Override
-    public void prepareNextRead(int batchSize)
+    protected void readValues(ValuesDecoder valuesDecoder, int[] values, int offset, int length)
+            throws IOException
     {
-        readOffset = readOffset + nextBatchSize;
-        nextBatchSize = batchSize;
+        ((Int32ValuesDecoder) valuesDecoder).readNext(values, offset, length);
     }
 
     @Override
-    public ColumnChunk readNext()
-    {
-        ColumnChunk columnChunk = null;
-        try {
-            seek();
-            if (field.isRequired()) {
-                columnChunk = readWithoutNull();
-            }
-            else {
-                columnChunk = readWithNull();
-            }
-        }
-        catch (IOException exception) {
-            throw new PrestoException(PARQUET_IO_READ_ERROR, "Error reading Parquet column " + columnDescriptor, exception);
-        }
-
-        readOffset = 0;
-        nextBatchSize = 0;
-        return columnChunk;
-    }
-
-    protected boolean readNextPage()
-    {
-        definitionLevelDecoder = null;
-        valuesDecoder = null;
-        remainingCountInPage = 0;
-
-        DataPage page = pageReader.readPage();
-        if (page == null) {
-            return false;
-        }
-
-        FlatDecoders flatDecoders = readFlatPage(page, columnDescriptor, dictionary);
-        definitionLevelDecoder = flatDecoders.getDefinitionLevelDecoder();
-        valuesDecoder = (Int32ValuesDecoder) flatDecoders.getValuesDecoder();
-
-        remainingCountInPage = page.getValueCount();
-        return true;
-    }
-
-    private ColumnChunk readWithNull()
+    protected void skipValues(ValuesDecoder valuesDecoder, int length)
             throws IOException
     {
-        int[] values = new int[nextBatchSize];
-        boolean[] isNull = new boolean[nextBatchSize];
-
-        int totalNonNullCount = 0;
-        int remainingInBatch = nextBatchSize;
-        int startOffset = 0;
-        while (remainingInBatch > 0) {
-            if (remainingCountInPage == 0) {
-                if (!readNextPage()) {
-                    break;
-                }
-            }
-
-            int chunkSize = Math.min(remainingCountInPage, remainingInBatch);
-            int nonNullCount = definitionLevelDecoder.readNext(isNull, startOffset, chunkSize);
-            totalNonNullCount += nonNullCount;
-
-            if (nonNullCount > 0) {
-                valuesDecoder.readNext(values, startOffset, nonNullCount);
-
-                int valueDestinationIndex = startOffset + chunkSize - 1;
-                int valueSourceIndex = startOffset + nonNullCount - 1;
-
-                while (valueDestinationIndex >= startOffset) {
-                    if (!isNull[valueDestinationIndex]) {
-                        values[valueDestinationIndex] = values[valueSourceIndex];
-                        valueSourceIndex--;
-                    }
-                    valueDestinationIndex--;
-                }
-            }
-
-            startOffset += chunkSize;
-            remainingInBatch -= chunkSize;
-            remainingCountInPage -= chunkSize;
-        }
-
-        if (remainingInBatch != 0) {
-            throw new ParquetDecodingException("Still remaining to be read in current batch.");
-        }
-
-        if (totalNonNullCount == 0) {
-            Block block = RunLengthEncodedBlock.create(field.getType(), null, nextBatchSize);
-            return new ColumnChunk(block, new int[0], new int[0]);
-        }
-
-        boolean hasNoNull = totalNonNullCount == nextBatchSize;
-        Block block = new IntArrayBlock(nextBatchSize, hasNoNull ? Optional.empty() : Optional.of(isNull), values);
-        return new ColumnChunk(block, new int[0], new int[0]);
+        ((Int32ValuesDecoder) valuesDecoder).skip(length);
     }
 
-    private ColumnChunk readWithoutNull()
-            throws IOException
+    @Override
+    protected void unpackNulls(int[] values, boolean[] isNull, int offset, int length, int nonNullCount)
     {
-        int[] values = new int[nextBatchSize];
-        int remainingInBatch = nextBatchSize;
-        int startOffset = 0;
-        while (remainingInBatch > 0) {
-            if (remainingCountInPage == 0) {
-                if (!readNextPage()) {
-                    break;
-                }
-            }
-
-            int chunkSize = Math.min(remainingCountInPage, remainingInBatch);
-
-            valuesDecoder.readNext(values, startOffset, chunkSize);
-            startOffset += chunkSize;
-            remainingInBatch -= chunkSize;
-            remainingCountInPage -= chunkSize;
-        }
-
-        if (remainingInBatch != 0) {
-            throw new ParquetDecodingException(format("Corrupted Parquet file: extra %d values to be consumed when scanning current batch", remainingInBatch));
-        }
-
-        Block block = new IntArrayBlock(nextBatchSize, Optional.empty(), values);
-        return new ColumnChunk(block, new int[0], new int[0]);
+        unpackIntNulls(values, isNull, offset, length, nonNullCount);
     }
 
-    private void seek()
-            throws IOException
+    @Override
+    protected Block createBlock(int positionCount, Optional<boolean[]> isNull, int[] values)
     {
-        if (readOffset == 0) {
-            return;
-        }
-
-        int remainingInBatch = readOffset;
-        int startOffset = 0;
-        while (remainingInBatch > 0) {
-            if (remainingCountInPage == 0) {
-                if (!readNextPage()) {
-                    break;
-                }
-            }
-
-            int chunkSize = Math.min(remainingCountInPage, remainingInBatch);
-            int skipSize = chunkSize;
-            if (!columnDescriptor.isRequired()) {
-                boolean[] isNull = new boolean[readOffset];
-                int nonNullCount = definitionLevelDecoder.readNext(isNull, startOffset, chunkSize);
-                skipSize = nonNullCount;
-                startOffset += chunkSize;
-            }
-            valuesDecoder.skip(skipSize);
-            remainingInBatch -= chunkSize;
-            remainingCountInPage -= chunkSize;
-        }
+        return new IntArrayBlock(positionCount, isNull, values);
     }
 }
@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.LongArrayBlock;
+import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.Int32ValuesDecoder;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static com.facebook.presto.parquet.batchreader.ReaderUtils.unpackLongNulls;
+
+/**
+ * Reads the unscaled values of short decimals stored as INT32 and widens them to the longs of the short decimal type.
+ */
+public class Int32ShortDecimalFlatBatchReader
+        extends AbstractFlatBatchReader<long[]>
+{
+    private int[] intValues = new int[0];
+
+    public Int32ShortDecimalFlatBatchReader(RichColumnDescriptor columnDescriptor)
+    {
+        super(columnDescriptor);
+    }
+
+    @Override
+    protected long[] createValues(int positionCount)
+    {
+        return new long[positionCount];
+    }
+
+    @Override
+    protected void readValues(ValuesDecoder valuesDecoder, long[] values, int offset, int length)
+            throws IOException
+    {
+        if (intValues.length < length) {
+            intValues = new int[length];
+        }
+        ((Int32ValuesDecoder) valuesDecoder).readNext(intValues, 0, length);
+        for (int i = 0; i < length; i++) {
+            values[offset + i] = intValues[i];
+        }
+    }
+
+    @Override
+    protected void skipValues(ValuesDecoder valuesDecoder, int length)
+            throws IOException
+    {
+        ((Int32ValuesDecoder) valuesDecoder).skip(length);
+    }
+
+    @Override
+    protected void unpackNulls(long[] values, boolean[] isNull, int offset, int length, int nonNullCount)
+    {
+        unpackLongNulls(values, isNull, offset, length, nonNullCount);
+    }
+
+    @Override
+    protected Block createBlock(int positionCount, Optional<boolean[]> isNull, long[] values)
+    {
+        return new LongArrayBlock(positionCount, isNull, values);
+    }
+}
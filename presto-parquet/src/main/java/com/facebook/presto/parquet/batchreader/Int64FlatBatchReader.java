@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.LongArrayBlock;
+import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.Int64ValuesDecoder;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static com.facebook.presto.parquet.batchreader.ReaderUtils.unpackLongNulls;
+
+public class Int64FlatBatchReader
+        extends AbstractFlatBatchReader<long[]>
+{
+    public Int64FlatBatchReader(RichColumnDescriptor columnDescriptor)
+    {
+        super(columnDescriptor);
+    }
+
+    @Override
+    protected long[] createValues(int positionCount)
+    {
+        return new long[positionCount];
+    }
+
+    @Override
+    protected void readValues(ValuesDecoder valuesDecoder, long[] values, int offset, int length)
+            throws IOException
+    {
+        ((Int64ValuesDecoder) valuesDecoder).readNext(values, offset, length);
+    }
+
+    @Override
+    protected void skipValues(ValuesDecoder valuesDecoder, int length)
+            throws IOException
+    {
+        ((Int64ValuesDecoder) valuesDecoder).skip(length);
+    }
+
+    @Override
+    protected void unpackNulls(long[] values, boolean[] isNull, int offset, int length, int nonNullCount)
+    {
+        unpackLongNulls(values, isNull, offset, length, nonNullCount);
+    }
+
+    @Override
+    protected Block createBlock(int positionCount, Optional<boolean[]> isNull, long[] values)
+    {
+        return new LongArrayBlock(positionCount, isNull, values);
+    }
+}
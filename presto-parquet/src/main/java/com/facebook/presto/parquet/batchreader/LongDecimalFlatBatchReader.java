@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.Int128ArrayBlock;
+import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.LongDecimalValuesDecoder;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static com.facebook.presto.parquet.batchreader.ReaderUtils.unpackInt128Nulls;
+
+/**
+ * Reads long decimals stored as FIXED_LEN_BYTE_ARRAY into the two longs per value of the long decimal type.
+ */
+public class LongDecimalFlatBatchReader
+        extends AbstractFlatBatchReader<long[]>
+{
+    public LongDecimalFlatBatchReader(RichColumnDescriptor columnDescriptor)
+    {
+        super(columnDescriptor);
+    }
+
+    @Override
+    protected long[] createValues(int positionCount)
+    {
+        return new long[2 * positionCount];
+    }
+
+    @Override
+    protected void readValues(ValuesDecoder valuesDecoder, long[] values, int offset, int length)
+            throws IOException
+    {
+        ((LongDecimalValuesDecoder) valuesDecoder).readNext(values, offset, length);
+    }
+
+    @Override
+    protected void skipValues(ValuesDecoder valuesDecoder, int length)
+            throws IOException
+    {
+        ((LongDecimalValuesDecoder) valuesDecoder).skip(length);
+    }
+
+    @Override
+    protected void unpackNulls(long[] values, boolean[] isNull, int offset, int length, int nonNullCount)
+    {
+        unpackInt128Nulls(values, isNull, offset, length, nonNullCount);
+    }
+
+    @Override
+    protected Block createBlock(int positionCount, Optional<boolean[]> isNull, long[] values)
+    {
+        return new Int128ArrayBlock(positionCount, isNull, values);
+    }
+}
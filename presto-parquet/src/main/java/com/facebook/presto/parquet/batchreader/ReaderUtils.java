@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader;
+
+/**
+ * The unpack methods spread the {@code nonNullCount} values read to the start of the range
+ * {@code [offset, offset + length)} over the positions of the range that are not null.
+ */
+public final class ReaderUtils
+{
+    private ReaderUtils()
+    {
+    }
+
+    public static void unpackIntNulls(int[] values, boolean[] isNull, int offset, int length, int nonNullCount)
+    {
+        int sourceIndex = offset + nonNullCount - 1;
+        for (int destinationIndex = offset + length - 1; destinationIndex >= offset; destinationIndex--) {
+            if (isNull[destinationIndex]) {
+                values[destinationIndex] = 0;
+            }
+            else {
+                values[destinationIndex] = values[sourceIndex--];
+            }
+        }
+    }
+
+    public static void unpackLongNulls(long[] values, boolean[] isNull, int offset, int length, int nonNullCount)
+    {
+        int sourceIndex = offset + nonNullCount - 1;
+        for (int destinationIndex = offset + length - 1; destinationIndex >= offset; destinationIndex--) {
+            if (isNull[destinationIndex]) {
+                values[destinationIndex] = 0;
+            }
+            else {
+                values[destinationIndex] = values[sourceIndex--];
+            }
+        }
+    }
+
+    public static void unpackByteNulls(byte[] values, boolean[] isNull, int offset, int length, int nonNullCount)
+    {
+        int sourceIndex = offset + nonNullCount - 1;
+        for (int destinationIndex = offset + length - 1; destinationIndex >= offset; destinationIndex--) {
+            if (isNull[destinationIndex]) {
+                values[destinationIndex] = 0;
+            }
+            else {
+                values[destinationIndex] = values[sourceIndex--];
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #unpackLongNulls} for values that take two longs per position.
+     */
+    public static void unpackInt128Nulls(long[] values, boolean[] isNull, int offset, int length, int nonNullCount)
+    {
+        int sourceIndex = offset + nonNullCount - 1;
+        for (int destinationIndex = offset + length - 1; destinationIndex >= offset; destinationIndex--) {
+            if (isNull[destinationIndex]) {
+                values[2 * destinationIndex] = 0;
+                values[2 * destinationIndex + 1] = 0;
+            }
+            else {
+                values[2 * destinationIndex] = values[2 * sourceIndex];
+                values[2 * destinationIndex + 1] = values[2 * sourceIndex + 1];
+                sourceIndex--;
+            }
+        }
+    }
+}
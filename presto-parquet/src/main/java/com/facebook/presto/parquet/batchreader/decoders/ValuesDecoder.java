@@ -71,4 +71,19 @@ public interface ValuesDecoder
 
         void skip(int length);
     }
+
+    /**
+     * Decodes long decimals into two longs per value, the low and the high half of the unscaled value,
+     * as laid out by {@link com.facebook.presto.common.block.Int128ArrayBlock}. The offset and length
+     * are in values.
+     */
+    interface LongDecimalValuesDecoder
+            extends ValuesDecoder
+    {
+        void readNext(long[] values, int offset, int length)
+                throws IOException;
+
+        void skip(int length)
+                throws IOException;
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader.decoders.plain;
+
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.LongDecimalValuesDecoder;
+
+import static com.facebook.presto.parquet.batchreader.BytesUtils.getLongDecimal;
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class LongDecimalPlainValuesDecoder
+        implements LongDecimalValuesDecoder
+{
+    private final int typeLength;
+    private final byte[] byteBuffer;
+    private final int bufferEnd;
+
+    private int bufferOffset;
+
+    public LongDecimalPlainValuesDecoder(int typeLength, byte[] byteBuffer, int bufferOffset, int bufferLength)
+    {
+        checkArgument(typeLength > 0 && typeLength <= 16, "typeLength %s should be in the range 1-16 for a long decimal", typeLength);
+        this.typeLength = typeLength;
+        this.byteBuffer = byteBuffer;
+        this.bufferEnd = bufferOffset + bufferLength;
+        this.bufferOffset = bufferOffset;
+    }
+
+    @Override
+    public void readNext(long[] values, int offset, int length)
+    {
+        checkArgument(bufferOffset + length * typeLength <= bufferEnd, "End of stream: invalid read request");
+        checkArgument(length >= 0 && offset >= 0, "invalid read request: offset %s, length", offset, length);
+
+        final int endOffset = offset + length;
+        final byte[] localByteBuffer = byteBuffer;
+        final int localTypeLength = typeLength;
+        int localBufferOffset = bufferOffset;
+
+        while (offset < endOffset) {
+            getLongDecimal(localByteBuffer, localBufferOffset, localTypeLength, values, 2 * offset);
+            localBufferOffset += localTypeLength;
+            offset++;
+        }
+
+        bufferOffset = localBufferOffset;
+    }
+
+    @Override
+    public void skip(int length)
+    {
+        checkArgument(bufferOffset + length * typeLength <= bufferEnd, "End of stream: invalid read request");
+        checkArgument(length >= 0, "invalid length %s", length);
+
+        bufferOffset += length * typeLength;
+    }
+}
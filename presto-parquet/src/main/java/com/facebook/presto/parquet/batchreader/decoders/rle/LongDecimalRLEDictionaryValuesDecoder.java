@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader.decoders.rle;
+
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.LongDecimalValuesDecoder;
+import com.facebook.presto.parquet.batchreader.dictionary.LongDecimalDictionary;
+import org.apache.parquet.io.ParquetDecodingException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+public class LongDecimalRLEDictionaryValuesDecoder
+        extends BaseRLEBitPackedDecoder
+        implements LongDecimalValuesDecoder
+{
+    private final LongDecimalDictionary dictionary;
+
+    public LongDecimalRLEDictionaryValuesDecoder(int bitWidth, InputStream inputStream, LongDecimalDictionary dictionary)
+    {
+        super(Integer.MAX_VALUE, bitWidth, inputStream);
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public void readNext(long[] values, int offset, int length)
+            throws IOException
+    {
+        int destinationIndex = offset;
+        int remainingToCopy = length;
+        while (remainingToCopy > 0) {
+            if (currentCount == 0) {
+                if (!decode()) {
+                    break;
+                }
+            }
+
+            int numEntriesToFill = Math.min(remainingToCopy, currentCount);
+            int endIndex = destinationIndex + numEntriesToFill;
+            switch (mode) {
+                case RLE: {
+                    final long low = dictionary.getLow(currentValue);
+                    final long high = dictionary.getHigh(currentValue);
+                    while (destinationIndex < endIndex) {
+                        values[2 * destinationIndex] = low;
+                        values[2 * destinationIndex + 1] = high;
+                        destinationIndex++;
+                    }
+                    break;
+                }
+                case PACKED: {
+                    final int[] localBuffer = currentBuffer;
+                    final LongDecimalDictionary localDictionary = dictionary;
+                    for (int srcIndex = currentBuffer.length - currentCount; destinationIndex < endIndex; srcIndex++) {
+                        int id = localBuffer[srcIndex];
+                        values[2 * destinationIndex] = localDictionary.getLow(id);
+                        values[2 * destinationIndex + 1] = localDictionary.getHigh(id);
+                        destinationIndex++;
+                    }
+                    break;
+                }
+                default:
+                    throw new ParquetDecodingException("not a valid mode " + mode);
+            }
+
+            currentCount -= numEntriesToFill;
+            remainingToCopy -= numEntriesToFill;
+        }
+        checkState(remainingToCopy == 0, "End of stream: Invalid read size request");
+    }
+
+    @Override
+    public void skip(int length)
+            throws IOException
+    {
+        checkArgument(length >= 0, "invalid length %s", length);
+        int remaining = length;
+        while (remaining > 0) {
+            if (currentCount == 0) {
+                if (!decode()) {
+                    break;
+                }
+            }
+
+            int readChunkSize = Math.min(remaining, currentCount);
+            currentCount -= readChunkSize;
+            remaining -= readChunkSize;
+        }
+        checkState(remaining == 0, "End of stream: Invalid skip size request: %s", length);
+    }
+}
@@ -44,6 +44,8 @@ public class Dictionaries
                 case BINARY:
                     return new BinaryBatchDictionary(dictionaryPage);
                 case FIXED_LEN_BYTE_ARRAY:
+                    // only long decimals are read by the batch readers from FIXED_LEN_BYTE_ARRAY columns
+                    return new LongDecimalDictionary(dictionaryPage, columnDescriptor.getPrimitiveType().getTypeLength());
                 case BOOLEAN:
                 default:
                     break;
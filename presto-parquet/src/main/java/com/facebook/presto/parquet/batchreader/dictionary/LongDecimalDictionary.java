@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader.dictionary;
+
+import com.facebook.presto.parquet.DictionaryPage;
+import com.facebook.presto.parquet.dictionary.Dictionary;
+
+import static com.facebook.presto.parquet.batchreader.BytesUtils.getLongDecimal;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Dictionary of long decimals stored as FIXED_LEN_BYTE_ARRAY, decoded up front into the two longs per value
+ * of {@link com.facebook.presto.common.block.Int128ArrayBlock}.
+ */
+public class LongDecimalDictionary
+        extends Dictionary
+{
+    private final long[] dictionary;
+
+    public LongDecimalDictionary(DictionaryPage dictionaryPage, int typeLength)
+    {
+        super(dictionaryPage.getEncoding());
+        requireNonNull(dictionaryPage, "dictionaryPage is null");
+        checkArgument(typeLength > 0 && typeLength <= 16, "typeLength %s should be in the range 1-16 for a long decimal", typeLength);
+        checkArgument(dictionaryPage.getDictionarySize() >= 0, "Dictionary size should be greater than or equal zero");
+        checkArgument(dictionaryPage.getSlice().length() >= typeLength * dictionaryPage.getDictionarySize(), "Dictionary buffer size is less than expected");
+
+        int dictionarySize = dictionaryPage.getDictionarySize();
+        byte[] pageBuffer = requireNonNull(dictionaryPage.getSlice(), "dictionary slice is null").getBytes();
+        long[] dictionary = new long[2 * dictionarySize];
+
+        int offset = 0;
+        for (int i = 0; i < dictionarySize; i++) {
+            getLongDecimal(pageBuffer, offset, typeLength, dictionary, 2 * i);
+            offset += typeLength;
+        }
+        this.dictionary = dictionary;
+    }
+
+    public long getLow(int id)
+    {
+        return dictionary[2 * id];
+    }
+
+    public long getHigh(int id)
+    {
+        return dictionary[2 * id + 1];
+    }
+}
@@ -36,6 +36,12 @@ public interface Predicate
         {
             return true;
         }
+
+        @Override
+        public boolean isPredicateColumn(ColumnDescriptor column)
+        {
+            return false;
+        }
     };
 
     /**
@@ -58,4 +64,12 @@ public interface Predicate
      * @param dictionary The single column dictionary
      */
     boolean matches(DictionaryDescriptor dictionary);
+
+    /**
+     * Whether the predicate restricts the values of the column, so that the statistics of the column
+     * can eliminate a file section. The Parquet Reader only reads the page indexes of such columns.
+     *
+     * @param column the column
+     */
+    boolean isPredicateColumn(ColumnDescriptor column);
 }
@@ -18,8 +18,10 @@ import com.facebook.presto.common.type.Type;
 import com.facebook.presto.parquet.DictionaryPage;
 import com.facebook.presto.parquet.ParquetCorruptionException;
 import com.facebook.presto.parquet.ParquetDataSource;
+import com.facebook.presto.parquet.ParquetDataSourceId;
 import com.facebook.presto.parquet.ParquetEncoding;
 import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.reader.RowRanges;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -30,8 +32,11 @@ import org.apache.parquet.column.ColumnDescriptor;
 import org.apache.parquet.column.Encoding;
 import org.apache.parquet.column.EncodingStats;
 import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.format.ColumnIndex;
 import org.apache.parquet.format.DictionaryPageHeader;
+import org.apache.parquet.format.OffsetIndex;
 import org.apache.parquet.format.PageHeader;
+import org.apache.parquet.format.PageLocation;
 import org.apache.parquet.format.PageType;
 import org.apache.parquet.format.Util;
 import org.apache.parquet.hadoop.metadata.BlockMetaData;
@@ -52,8 +57,10 @@ import static com.facebook.presto.common.type.SmallintType.SMALLINT;
 import static com.facebook.presto.common.type.TinyintType.TINYINT;
 import static com.facebook.presto.parquet.ParquetCompressionUtils.decompress;
 import static com.facebook.presto.parquet.ParquetTypeUtils.getParquetEncoding;
+import static com.facebook.presto.parquet.reader.MetadataReader.readStats;
 import static com.google.common.base.Verify.verify;
 import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static org.apache.parquet.column.Encoding.BIT_PACKED;
 import static org.apache.parquet.column.Encoding.PLAIN_DICTIONARY;
@@ -97,6 +104,53 @@ public final class PredicateUtils
         return dictionaryPredicatesMatch(parquetPredicate, block, dataSource, descriptorsByPath, parquetTupleDomain);
     }
 
+    /**
+     * Returns the rows of a row group in the pages of a column whose statistics in the column index may match the predicate.
+     */
+    public static RowRanges getMatchingRowRanges(
+            Predicate parquetPredicate,
+            ColumnDescriptor column,
+            ColumnIndex columnIndex,
+            OffsetIndex offsetIndex,
+            long rowGroupRowCount,
+            ParquetDataSourceId id,
+            boolean failOnCorruptedParquetStatistics)
+            throws ParquetCorruptionException
+    {
+        List<PageLocation> pageLocations = offsetIndex.getPage_locations();
+        List<Boolean> nullPages = columnIndex.getNull_pages();
+        if (nullPages.size() != pageLocations.size() || columnIndex.getMin_values().size() != pageLocations.size() || columnIndex.getMax_values().size() != pageLocations.size()) {
+            throw new ParquetCorruptionException("Column index of column %s in %s does not match its offset index", column, id);
+        }
+
+        RowRanges.Builder rowRanges = RowRanges.builder();
+        for (int page = 0; page < pageLocations.size(); page++) {
+            long firstRow = pageLocations.get(page).getFirst_row_index();
+            long endRow = page + 1 < pageLocations.size() ? pageLocations.get(page + 1).getFirst_row_index() : rowGroupRowCount;
+            if (firstRow >= endRow) {
+                throw new ParquetCorruptionException("Offset index of column %s in %s has a page without rows", column, id);
+            }
+            long rowCount = endRow - firstRow;
+
+            org.apache.parquet.format.Statistics pageStatistics = new org.apache.parquet.format.Statistics();
+            if (nullPages.get(page)) {
+                pageStatistics.setNull_count(rowCount);
+            }
+            else {
+                pageStatistics.setMin(columnIndex.getMin_values().get(page));
+                pageStatistics.setMax(columnIndex.getMax_values().get(page));
+                // without null counts, assume that the page has a null value but is not all nulls
+                pageStatistics.setNull_count(columnIndex.isSetNull_counts() ? columnIndex.getNull_counts().get(page) : min(1, rowCount - 1));
+            }
+
+            Statistics<?> statistics = readStats(pageStatistics, column.getPrimitiveType().getPrimitiveTypeName());
+            if (parquetPredicate.matches(rowCount, ImmutableMap.of(column, statistics), id, failOnCorruptedParquetStatistics)) {
+                rowRanges.add(firstRow, endRow);
+            }
+        }
+        return rowRanges.build();
+    }
+
     private static Map<ColumnDescriptor, Statistics<?>> getStatistics(BlockMetaData blockMetadata, Map<List<String>, RichColumnDescriptor> descriptorsByPath)
     {
         ImmutableMap.Builder<ColumnDescriptor, Statistics<?>> statistics = ImmutableMap.builder();
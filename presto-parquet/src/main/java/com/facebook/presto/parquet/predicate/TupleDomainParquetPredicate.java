@@ -121,6 +121,14 @@ public class TupleDomainParquetPredicate
         return effectivePredicateDomain == null || effectivePredicateMatches(effectivePredicateDomain, dictionary);
     }
 
+    @Override
+    public boolean isPredicateColumn(ColumnDescriptor column)
+    {
+        return effectivePredicate.getDomains()
+                .map(domains -> domains.containsKey(column))
+                .orElse(false);
+    }
+
     private static boolean effectivePredicateMatches(Domain effectivePredicateDomain, DictionaryDescriptor dictionary)
     {
         return !effectivePredicateDomain.intersect(getDomain(effectivePredicateDomain.getType(), dictionary)).isNone();
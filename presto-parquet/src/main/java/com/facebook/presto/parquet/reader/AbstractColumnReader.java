@@ -15,7 +15,6 @@ package com.facebook.presto.parquet.reader;
 
 import com.facebook.presto.common.block.BlockBuilder;
 import com.facebook.presto.common.type.Type;
-import com.facebook.presto.parquet.ColumnReader;
 import com.facebook.presto.parquet.DataPage;
 import com.facebook.presto.parquet.DataPageV1;
 import com.facebook.presto.parquet.DataPageV2;
@@ -24,6 +23,7 @@ import com.facebook.presto.parquet.Field;
 import com.facebook.presto.parquet.ParquetEncoding;
 import com.facebook.presto.parquet.ParquetTypeUtils;
 import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.SelectiveColumnReader;
 import com.facebook.presto.parquet.dictionary.Dictionary;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.Slice;
@@ -42,11 +42,12 @@ import static com.facebook.presto.parquet.ValuesType.DEFINITION_LEVEL;
 import static com.facebook.presto.parquet.ValuesType.REPETITION_LEVEL;
 import static com.facebook.presto.parquet.ValuesType.VALUES;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static java.util.Objects.requireNonNull;
 
 public abstract class AbstractColumnReader
-        implements ColumnReader
+        implements SelectiveColumnReader
 {
     private static final int EMPTY_LEVEL_VALUE = -1;
     protected final RichColumnDescriptor columnDescriptor;
@@ -140,6 +141,31 @@ public abstract class AbstractColumnReader
         return new ColumnChunk(blockBuilder.build(), definitionLevels.toIntArray(), repetitionLevels.toIntArray());
     }
 
+    @Override
+    public ColumnChunk readNext(int[] positions, int positionCount)
+    {
+        checkState(columnDescriptor.getMaxRepetitionLevel() == 0, "only the positions of a flat column can be read");
+        seek();
+        BlockBuilder blockBuilder = field.getType().createBlockBuilder(null, positionCount);
+        // the levels of a flat column are not needed to build its block
+        IntList levels = new IntArrayList();
+        int position = 0;
+        for (int i = 0; i < positionCount; i++) {
+            skip(positions[i] - position);
+            if (page == null) {
+                readNextPage();
+            }
+            readValues(blockBuilder, 1, field.getType(), levels, levels);
+            levels.clear();
+            position = positions[i] + 1;
+        }
+        skip(nextBatchSize - position);
+
+        readOffset = 0;
+        nextBatchSize = 0;
+        return new ColumnChunk(blockBuilder.build(), new int[0], new int[0]);
+    }
+
     private void readValues(BlockBuilder blockBuilder, int valuesToRead, Type type, IntList definitionLevels, IntList repetitionLevels)
     {
         processValues(valuesToRead, ignored -> {
@@ -183,19 +209,21 @@ public abstract class AbstractColumnReader
     private void seek()
     {
         checkArgument(currentValueCount <= totalValueCount, "Already read all values in column chunk");
-        if (readOffset == 0) {
-            return;
-        }
+        skip(readOffset);
+    }
+
+    private void skip(int valueCount)
+    {
         int valuePosition = 0;
-        while (valuePosition < readOffset) {
+        while (valuePosition < valueCount) {
             if (page == null) {
                 readNextPage();
             }
-            int offset = Math.min(remainingValueCountInPage, readOffset - valuePosition);
+            int offset = Math.min(remainingValueCountInPage, valueCount - valuePosition);
             skipValues(offset);
             valuePosition = valuePosition + offset;
         }
-        checkArgument(valuePosition == readOffset, "valuePosition %s must be equal to readOffset %s", valuePosition, readOffset);
+        checkArgument(valuePosition == valueCount, "valuePosition %s must be equal to valueCount %s", valuePosition, valueCount);
     }
 
     private boolean readNextPage()
@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.reader;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Location of the column index or the offset index of a column chunk in a Parquet file.
+ */
+public class IndexReference
+{
+    private final long offset;
+    private final int length;
+
+    public IndexReference(long offset, int length)
+    {
+        checkArgument(offset >= 0, "offset is negative");
+        checkArgument(length > 0, "length must be positive");
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public long getOffset()
+    {
+        return offset;
+    }
+
+    public int getLength()
+    {
+        return length;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("offset", offset)
+                .add("length", length)
+                .toString();
+    }
+}
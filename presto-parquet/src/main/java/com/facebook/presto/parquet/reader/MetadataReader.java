@@ -13,19 +13,23 @@
  */
 package com.facebook.presto.parquet.reader;
 
+import com.facebook.presto.parquet.ParquetDataSource;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.parquet.format.ColumnChunk;
+import org.apache.parquet.format.ColumnIndex;
 import org.apache.parquet.format.ColumnMetaData;
 import org.apache.parquet.format.ConvertedType;
 import org.apache.parquet.format.Encoding;
 import org.apache.parquet.format.FileMetaData;
 import org.apache.parquet.format.KeyValue;
+import org.apache.parquet.format.OffsetIndex;
 import org.apache.parquet.format.RowGroup;
 import org.apache.parquet.format.SchemaElement;
 import org.apache.parquet.format.Statistics;
 import org.apache.parquet.format.Type;
+import org.apache.parquet.format.Util;
 import org.apache.parquet.format.converter.ParquetMetadataConverter;
 import org.apache.parquet.hadoop.metadata.BlockMetaData;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
@@ -112,7 +116,7 @@ public final class MetadataReader
         List<RowGroup> rowGroups = fileMetaData.getRow_groups();
         if (rowGroups != null) {
             for (RowGroup rowGroup : rowGroups) {
-                BlockMetaData blockMetaData = new BlockMetaData();
+                ParquetBlockMetaData blockMetaData = new ParquetBlockMetaData();
                 blockMetaData.setRowCount(rowGroup.getNum_rows());
                 blockMetaData.setTotalByteSize(rowGroup.getTotal_byte_size());
                 List<ColumnChunk> columns = rowGroup.getColumns();
@@ -144,6 +148,12 @@ public final class MetadataReader
                             metaData.total_compressed_size,
                             metaData.total_uncompressed_size);
                     blockMetaData.addColumn(column);
+                    if (columnChunk.isSetColumn_index_offset() && columnChunk.isSetColumn_index_length()) {
+                        blockMetaData.setColumnIndexReference(columnPath, new IndexReference(columnChunk.getColumn_index_offset(), columnChunk.getColumn_index_length()));
+                    }
+                    if (columnChunk.isSetOffset_index_offset() && columnChunk.isSetOffset_index_length()) {
+                        blockMetaData.setOffsetIndexReference(columnPath, new IndexReference(columnChunk.getOffset_index_offset(), columnChunk.getOffset_index_length()));
+                    }
                 }
                 blockMetaData.setPath(filePath);
                 blocks.add(blockMetaData);
@@ -160,6 +170,18 @@ public final class MetadataReader
         return new ParquetMetadata(new org.apache.parquet.hadoop.metadata.FileMetaData(messageType, keyValueMetaData, fileMetaData.getCreated_by()), blocks);
     }
 
+    public static ColumnIndex readColumnIndex(ParquetDataSource dataSource, IndexReference reference)
+            throws IOException
+    {
+        return Util.readColumnIndex(readFully(dataSource, reference));
+    }
+
+    public static OffsetIndex readOffsetIndex(ParquetDataSource dataSource, IndexReference reference)
+            throws IOException
+    {
+        return Util.readOffsetIndex(readFully(dataSource, reference));
+    }
+
     private static MessageType readParquetSchema(List<SchemaElement> schema)
     {
         Iterator<SchemaElement> schemaIterator = schema.iterator();
@@ -308,6 +330,13 @@ public final class MetadataReader
         return ((ch4 << 24) + (ch3 << 16) + (ch2 << 8) + (ch1));
     }
 
+    private static InputStream readFully(ParquetDataSource dataSource, IndexReference reference)
+    {
+        byte[] buffer = new byte[reference.getLength()];
+        dataSource.readFully(reference.getOffset(), buffer);
+        return new ByteArrayInputStream(buffer);
+    }
+
     private static InputStream readFully(FSDataInputStream from, long position, int length)
             throws IOException
     {
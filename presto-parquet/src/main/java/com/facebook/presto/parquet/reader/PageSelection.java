@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.reader;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.parquet.format.OffsetIndex;
+import org.apache.parquet.format.PageLocation;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The data pages of a column chunk that hold rows of the row ranges to read. The column reader
+ * only sees these pages, so the rows of the other pages do not count when it skips rows.
+ */
+final class PageSelection
+{
+    private final long firstPageOffset;
+    private final List<PageLocation> pageLocations;
+    private final long[] firstRows;
+    private final long[] endRows;
+
+    private PageSelection(long firstPageOffset, List<PageLocation> pageLocations, long[] firstRows, long[] endRows)
+    {
+        this.firstPageOffset = firstPageOffset;
+        this.pageLocations = requireNonNull(pageLocations, "pageLocations is null");
+        this.firstRows = requireNonNull(firstRows, "firstRows is null");
+        this.endRows = requireNonNull(endRows, "endRows is null");
+    }
+
+    public static PageSelection select(OffsetIndex offsetIndex, long rowGroupRowCount, RowRanges rowRanges)
+    {
+        List<PageLocation> allPageLocations = offsetIndex.getPage_locations();
+        checkArgument(!allPageLocations.isEmpty(), "offset index has no pages");
+
+        ImmutableList.Builder<PageLocation> pageLocations = ImmutableList.builder();
+        long[] firstRows = new long[allPageLocations.size()];
+        long[] endRows = new long[allPageLocations.size()];
+        int pageCount = 0;
+        for (int page = 0; page < allPageLocations.size(); page++) {
+            long firstRow = allPageLocations.get(page).getFirst_row_index();
+            long endRow = page + 1 < allPageLocations.size() ? allPageLocations.get(page + 1).getFirst_row_index() : rowGroupRowCount;
+            if (rowRanges.overlaps(firstRow, endRow)) {
+                pageLocations.add(allPageLocations.get(page));
+                firstRows[pageCount] = firstRow;
+                endRows[pageCount] = endRow;
+                pageCount++;
+            }
+        }
+        return new PageSelection(allPageLocations.get(0).getOffset(), pageLocations.build(), firstRows, endRows);
+    }
+
+    /**
+     * Offset of the first data page of the column chunk, selected or not. The dictionary page, if any, precedes it.
+     */
+    public long getFirstPageOffset()
+    {
+        return firstPageOffset;
+    }
+
+    public List<PageLocation> getPageLocations()
+    {
+        return pageLocations;
+    }
+
+    /**
+     * Returns the number of rows from {@code start} (inclusive) to {@code end} (exclusive) in the selected pages.
+     */
+    public long getSelectedRowCount(long start, long end)
+    {
+        long rowCount = 0;
+        for (int page = 0; page < pageLocations.size() && firstRows[page] < end; page++) {
+            rowCount += max(0, min(end, endRows[page]) - max(start, firstRows[page]));
+        }
+        return rowCount;
+    }
+}
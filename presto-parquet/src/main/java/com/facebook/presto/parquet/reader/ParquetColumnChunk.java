@@ -62,11 +62,26 @@ public class ParquetColumnChunk
 
     public PageReader readAllPages()
             throws IOException
+    {
+        return readPages(false);
+    }
+
+    /**
+     * Reads a buffer that holds the dictionary page of the column chunk, if any, followed by some of its data pages.
+     */
+    public PageReader readSelectedPages()
+            throws IOException
+    {
+        return readPages(true);
+    }
+
+    private PageReader readPages(boolean selectedPages)
+            throws IOException
     {
         List<DataPage> pages = new ArrayList<>();
         DictionaryPage dictionaryPage = null;
         long valueCount = 0;
-        while (valueCount < descriptor.getColumnChunkMetaData().getValueCount()) {
+        while (selectedPages ? pos < count : valueCount < descriptor.getColumnChunkMetaData().getValueCount()) {
             PageHeader pageHeader = readPageHeader();
             int uncompressedPageSize = pageHeader.getUncompressed_page_size();
             int compressedPageSize = pageHeader.getCompressed_page_size();
@@ -34,12 +34,18 @@ import com.facebook.presto.parquet.ParquetDataSource;
 import com.facebook.presto.parquet.ParquetResultVerifierUtils;
 import com.facebook.presto.parquet.PrimitiveField;
 import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.SelectiveColumnReader;
+import com.facebook.presto.parquet.predicate.Predicate;
+import com.facebook.presto.spi.PrestoException;
 import io.airlift.units.DataSize;
 import it.unimi.dsi.fastutil.booleans.BooleanArrayList;
 import it.unimi.dsi.fastutil.booleans.BooleanList;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
 import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.format.ColumnIndex;
+import org.apache.parquet.format.OffsetIndex;
+import org.apache.parquet.format.PageLocation;
 import org.apache.parquet.hadoop.metadata.BlockMetaData;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
 import org.apache.parquet.hadoop.metadata.ColumnPath;
@@ -60,8 +66,12 @@ import static com.facebook.presto.common.type.StandardTypes.MAP;
 import static com.facebook.presto.common.type.StandardTypes.ROW;
 import static com.facebook.presto.common.type.StandardTypes.SMALLINT;
 import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.parquet.ParquetErrorCode.PARQUET_IO_READ_ERROR;
 import static com.facebook.presto.parquet.ParquetValidationUtils.validateParquet;
+import static com.facebook.presto.parquet.predicate.PredicateUtils.getMatchingRowRanges;
 import static com.facebook.presto.parquet.reader.ListColumnReader.calculateCollectionOffsets;
+import static com.facebook.presto.parquet.reader.MetadataReader.readColumnIndex;
+import static com.facebook.presto.parquet.reader.MetadataReader.readOffsetIndex;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
@@ -81,12 +91,17 @@ public class ParquetReader
     private final AggregatedMemoryContext systemMemoryContext;
     private final boolean batchReadEnabled;
     private final boolean enableVerification;
+    private final Predicate parquetPredicate;
+    private final boolean failOnCorruptedParquetStatistics;
 
     private int currentBlock;
     private BlockMetaData currentBlockMetadata;
     private long currentPosition;
-    private long currentGroupRowCount;
     private long nextRowInGroup;
+    private RowRanges currentGroupRowRanges = RowRanges.EMPTY;
+    private int currentRowRange;
+    // selected pages of each column in the current row group, null when all pages are read
+    private final PageSelection[] pageSelections;
     private int batchSize;
 
     private int nextBatchSize = INITIAL_BATCH_SIZE;
@@ -107,6 +122,23 @@ public class ParquetReader
             DataSize maxReadBlockSize,
             boolean batchReadEnabled,
             boolean enableVerification)
+    {
+        this(messageColumnIO, blocks, dataSource, systemMemoryContext, maxReadBlockSize, batchReadEnabled, enableVerification, Predicate.TRUE, false);
+    }
+
+    /**
+     * @param parquetPredicate when the row groups have page indexes, only the pages that hold rows that may match the predicate are read
+     */
+    public ParquetReader(MessageColumnIO
+            messageColumnIO,
+            List<BlockMetaData> blocks,
+            ParquetDataSource dataSource,
+            AggregatedMemoryContext systemMemoryContext,
+            DataSize maxReadBlockSize,
+            boolean batchReadEnabled,
+            boolean enableVerification,
+            Predicate parquetPredicate,
+            boolean failOnCorruptedParquetStatistics)
     {
         this.blocks = blocks;
         this.dataSource = requireNonNull(dataSource, "dataSource is null");
@@ -119,6 +151,9 @@ public class ParquetReader
         this.enableVerification = enableVerification;
         verificationColumnReaders = enableVerification ? new ColumnReader[columns.size()] : null;
         maxBytesPerCell = new long[columns.size()];
+        this.parquetPredicate = requireNonNull(parquetPredicate, "parquetPredicate is null");
+        this.failOnCorruptedParquetStatistics = failOnCorruptedParquetStatistics;
+        pageSelections = new PageSelection[columns.size()];
     }
 
     @Override
@@ -136,15 +171,27 @@ public class ParquetReader
 
     public int nextBatch()
     {
-        if (nextRowInGroup >= currentGroupRowCount && !advanceToNextRowGroup()) {
-            return -1;
+        while (currentRowRange == currentGroupRowRanges.getRangeCount()) {
+            if (!advanceToNextRowGroup()) {
+                return -1;
+            }
+        }
+
+        long rowRangeStart = currentGroupRowRanges.getStart(currentRowRange);
+        long rowRangeEnd = currentGroupRowRanges.getEnd(currentRowRange);
+        if (nextRowInGroup < rowRangeStart) {
+            skipRows(nextRowInGroup, rowRangeStart);
+            nextRowInGroup = rowRangeStart;
         }
 
         batchSize = toIntExact(min(nextBatchSize, maxBatchSize));
         nextBatchSize = min(batchSize * BATCH_SIZE_GROWTH_FACTOR, MAX_VECTOR_LENGTH);
-        batchSize = toIntExact(min(batchSize, currentGroupRowCount - nextRowInGroup));
+        batchSize = toIntExact(min(batchSize, rowRangeEnd - nextRowInGroup));
 
         nextRowInGroup += batchSize;
+        if (nextRowInGroup == rowRangeEnd) {
+            currentRowRange++;
+        }
         currentPosition += batchSize;
         Arrays.stream(columnReaders)
                 .forEach(reader -> reader.prepareNextRead(batchSize));
@@ -169,11 +216,89 @@ public class ParquetReader
         currentBlock = currentBlock + 1;
 
         nextRowInGroup = 0L;
-        currentGroupRowCount = currentBlockMetadata.getRowCount();
+        try {
+            currentGroupRowRanges = getRowRanges(currentBlockMetadata);
+        }
+        catch (IOException e) {
+            throw new PrestoException(PARQUET_IO_READ_ERROR, "Error reading the page indexes of " + dataSource.getId(), e);
+        }
+        currentRowRange = 0;
         initializeColumnReaders();
         return true;
     }
 
+    /**
+     * Returns the rows of the row group that may match the predicate according to the column indexes of
+     * the predicate columns, and selects the pages of every column that hold these rows.
+     */
+    private RowRanges getRowRanges(BlockMetaData block)
+            throws IOException
+    {
+        Arrays.fill(pageSelections, null);
+        RowRanges rowRanges = RowRanges.all(block.getRowCount());
+        if (!(block instanceof ParquetBlockMetaData)) {
+            return rowRanges;
+        }
+        ParquetBlockMetaData parquetBlock = (ParquetBlockMetaData) block;
+
+        OffsetIndex[] offsetIndexes = new OffsetIndex[columns.size()];
+        for (PrimitiveColumnIO column : columns) {
+            ColumnDescriptor columnDescriptor = column.getColumnDescriptor();
+            // the rows of a page are its values only in columns without repetition
+            if (!parquetPredicate.isPredicateColumn(columnDescriptor) || columnDescriptor.getMaxRepetitionLevel() > 0) {
+                continue;
+            }
+            ColumnPath path = ColumnPath.get(columnDescriptor.getPath());
+            Optional<IndexReference> columnIndexReference = parquetBlock.getColumnIndexReference(path);
+            Optional<IndexReference> offsetIndexReference = parquetBlock.getOffsetIndexReference(path);
+            if (!columnIndexReference.isPresent() || !offsetIndexReference.isPresent()) {
+                continue;
+            }
+
+            ColumnIndex columnIndex = readColumnIndex(dataSource, columnIndexReference.get());
+            offsetIndexes[column.getId()] = readOffsetIndex(dataSource, offsetIndexReference.get());
+            rowRanges = rowRanges.intersect(getMatchingRowRanges(parquetPredicate, columnDescriptor, columnIndex, offsetIndexes[column.getId()], block.getRowCount(), dataSource.getId(), failOnCorruptedParquetStatistics));
+            if (rowRanges.getRangeCount() == 0) {
+                return rowRanges;
+            }
+        }
+
+        if (rowRanges.getRowCount() == block.getRowCount()) {
+            return rowRanges;
+        }
+
+        // columns without an offset index are read in full and skip the rows outside the ranges
+        for (PrimitiveColumnIO column : columns) {
+            OffsetIndex offsetIndex = offsetIndexes[column.getId()];
+            if (offsetIndex == null) {
+                Optional<IndexReference> offsetIndexReference = parquetBlock.getOffsetIndexReference(ColumnPath.get(column.getColumnDescriptor().getPath()));
+                if (!offsetIndexReference.isPresent()) {
+                    continue;
+                }
+                offsetIndex = readOffsetIndex(dataSource, offsetIndexReference.get());
+            }
+            pageSelections[column.getId()] = PageSelection.select(offsetIndex, block.getRowCount(), rowRanges);
+        }
+        return rowRanges;
+    }
+
+    /**
+     * Skips the rows from {@code start} (inclusive) to {@code end} (exclusive) of the current row group. Every column
+     * reader skips the rows it has, which are all these rows unless only some pages of the column are read.
+     */
+    private void skipRows(long start, long end)
+    {
+        for (PrimitiveColumnIO column : columns) {
+            int fieldId = column.getId();
+            PageSelection pageSelection = pageSelections[fieldId];
+            int rowCount = toIntExact(pageSelection == null ? end - start : pageSelection.getSelectedRowCount(start, end));
+            columnReaders[fieldId].prepareNextRead(rowCount);
+            if (enableVerification) {
+                verificationColumnReaders[fieldId].prepareNextRead(rowCount);
+            }
+        }
+    }
+
     private ColumnChunk readArray(GroupField field)
             throws IOException
     {
@@ -237,24 +362,7 @@ public class ParquetReader
         ColumnDescriptor columnDescriptor = field.getDescriptor();
 
         int fieldId = field.getId();
-        ColumnReader columnReader = columnReaders[fieldId];
-        if (!columnReader.isInitialized()) {
-            validateParquet(currentBlockMetadata.getRowCount() > 0, "Row group has 0 rows");
-            ColumnChunkMetaData metadata = getColumnChunkMetaData(columnDescriptor);
-            long startingPosition = metadata.getStartingPos();
-            int totalSize = toIntExact(metadata.getTotalSize());
-            byte[] buffer = allocateBlock(totalSize);
-            dataSource.readFully(startingPosition, buffer);
-            ColumnChunkDescriptor descriptor = new ColumnChunkDescriptor(columnDescriptor, metadata, totalSize);
-            ParquetColumnChunk columnChunk = new ParquetColumnChunk(descriptor, buffer, 0);
-            columnReader.init(columnChunk.readAllPages(), field);
-
-            if (enableVerification) {
-                ColumnReader verificationColumnReader = verificationColumnReaders[field.getId()];
-                ParquetColumnChunk columnChunkVerfication = new ParquetColumnChunk(descriptor, buffer, 0);
-                verificationColumnReader.init(columnChunkVerfication.readAllPages(), field);
-            }
-        }
+        ColumnReader columnReader = getColumnReader(field);
 
         ColumnChunk columnChunk = columnReader.readNext();
         columnChunk = typeCoercion(columnChunk, field.getDescriptor().getPrimitiveType().getPrimitiveTypeName(), field.getType());
@@ -276,6 +384,84 @@ public class ParquetReader
         return columnChunk;
     }
 
+    private Block readPrimitive(PrimitiveField field, int[] positions, int positionCount)
+            throws IOException
+    {
+        ColumnReader columnReader = getColumnReader(field);
+        if (!(columnReader instanceof SelectiveColumnReader) || field.getDescriptor().getMaxRepetitionLevel() > 0 || enableVerification) {
+            return readPrimitive(field).getBlock().getPositions(positions, 0, positionCount);
+        }
+
+        ColumnChunk columnChunk = ((SelectiveColumnReader) columnReader).readNext(positions, positionCount);
+        return typeCoercion(columnChunk, field.getDescriptor().getPrimitiveType().getPrimitiveTypeName(), field.getType()).getBlock();
+    }
+
+    private ColumnReader getColumnReader(PrimitiveField field)
+            throws IOException
+    {
+        ColumnDescriptor columnDescriptor = field.getDescriptor();
+        int fieldId = field.getId();
+        ColumnReader columnReader = columnReaders[fieldId];
+        if (!columnReader.isInitialized()) {
+            validateParquet(currentBlockMetadata.getRowCount() > 0, "Row group has 0 rows");
+            ColumnChunkMetaData metadata = getColumnChunkMetaData(columnDescriptor);
+            PageSelection pageSelection = pageSelections[fieldId];
+            byte[] buffer = pageSelection == null ? readColumnChunk(metadata) : readSelectedPages(metadata, pageSelection);
+            ColumnChunkDescriptor descriptor = new ColumnChunkDescriptor(columnDescriptor, metadata, buffer.length);
+            ParquetColumnChunk columnChunk = new ParquetColumnChunk(descriptor, buffer, 0);
+            columnReader.init(pageSelection == null ? columnChunk.readAllPages() : columnChunk.readSelectedPages(), field);
+
+            if (enableVerification) {
+                ColumnReader verificationColumnReader = verificationColumnReaders[field.getId()];
+                ParquetColumnChunk columnChunkVerfication = new ParquetColumnChunk(descriptor, buffer, 0);
+                verificationColumnReader.init(pageSelection == null ? columnChunkVerfication.readAllPages() : columnChunkVerfication.readSelectedPages(), field);
+            }
+        }
+        return columnReader;
+    }
+
+    private byte[] readColumnChunk(ColumnChunkMetaData metadata)
+    {
+        byte[] buffer = allocateBlock(toIntExact(metadata.getTotalSize()));
+        dataSource.readFully(metadata.getStartingPos(), buffer);
+        return buffer;
+    }
+
+    /**
+     * Reads the dictionary page, if any, and the selected data pages of a column chunk. Adjacent pages are read at once.
+     */
+    private byte[] readSelectedPages(ColumnChunkMetaData metadata, PageSelection pageSelection)
+    {
+        long dictionaryPageSize = pageSelection.getFirstPageOffset() - metadata.getStartingPos();
+        long length = dictionaryPageSize;
+        for (PageLocation page : pageSelection.getPageLocations()) {
+            length += page.getCompressed_page_size();
+        }
+        byte[] buffer = allocateBlock(toIntExact(length));
+
+        int bufferOffset = 0;
+        long readStart = metadata.getStartingPos();
+        long readEnd = pageSelection.getFirstPageOffset();
+        for (PageLocation page : pageSelection.getPageLocations()) {
+            if (page.getOffset() != readEnd) {
+                bufferOffset += readFully(readStart, readEnd, buffer, bufferOffset);
+                readStart = page.getOffset();
+            }
+            readEnd = page.getOffset() + page.getCompressed_page_size();
+        }
+        readFully(readStart, readEnd, buffer, bufferOffset);
+        return buffer;
+    }
+
+    private int readFully(long start, long end, byte[] buffer, int bufferOffset)
+    {
+        int length = toIntExact(end - start);
+        if (length > 0) {
+            dataSource.readFully(start, buffer, bufferOffset, length);
+        }
+        return length;
+    }
+
     private byte[] allocateBlock(int length)
     {
         byte[] buffer = new byte[length];
@@ -313,6 +499,21 @@ public class ParquetReader
         return readColumnChunk(field).getBlock();
     }
 
+    /**
+     * Reads the values of the given positions of the current batch. The values of the other positions of a column of
+     * a primitive type are skipped without decoding them; a column of a nested type is read in full.
+     *
+     * @param positions positions in the batch, in increasing order
+     */
+    public Block readBlock(Field field, int[] positions, int positionCount)
+            throws IOException
+    {
+        if (field instanceof PrimitiveField) {
+            return readPrimitive((PrimitiveField) field, positions, positionCount);
+        }
+        return readBlock(field).getPositions(positions, 0, positionCount);
+    }
+
     private ColumnChunk readColumnChunk(Field field)
             throws IOException
     {
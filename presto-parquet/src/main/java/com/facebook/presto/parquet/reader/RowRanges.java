@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.reader;
+
+import java.util.Arrays;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Rows of a row group, as sorted and disjoint ranges. A range includes its start row and excludes its end row.
+ */
+public final class RowRanges
+{
+    public static final RowRanges EMPTY = new RowRanges(new long[0], new long[0], 0);
+
+    private final long[] starts;
+    private final long[] ends;
+    private final int rangeCount;
+
+    private RowRanges(long[] starts, long[] ends, int rangeCount)
+    {
+        this.starts = starts;
+        this.ends = ends;
+        this.rangeCount = rangeCount;
+    }
+
+    public static RowRanges all(long rowCount)
+    {
+        if (rowCount == 0) {
+            return EMPTY;
+        }
+        return new RowRanges(new long[] {0}, new long[] {rowCount}, 1);
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    public int getRangeCount()
+    {
+        return rangeCount;
+    }
+
+    public long getStart(int range)
+    {
+        checkArgument(range >= 0 && range < rangeCount, "range %s is out of bounds", range);
+        return starts[range];
+    }
+
+    public long getEnd(int range)
+    {
+        checkArgument(range >= 0 && range < rangeCount, "range %s is out of bounds", range);
+        return ends[range];
+    }
+
+    public long getRowCount()
+    {
+        long rowCount = 0;
+        for (int range = 0; range < rangeCount; range++) {
+            rowCount += ends[range] - starts[range];
+        }
+        return rowCount;
+    }
+
+    /**
+     * Whether any row from {@code start} (inclusive) to {@code end} (exclusive) is in these ranges.
+     */
+    public boolean overlaps(long start, long end)
+    {
+        for (int range = 0; range < rangeCount && starts[range] < end; range++) {
+            if (ends[range] > start) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public RowRanges intersect(RowRanges other)
+    {
+        Builder builder = builder();
+        int range = 0;
+        int otherRange = 0;
+        while (range < rangeCount && otherRange < other.rangeCount) {
+            long start = max(starts[range], other.starts[otherRange]);
+            long end = min(ends[range], other.ends[otherRange]);
+            if (start < end) {
+                builder.add(start, end);
+            }
+            if (ends[range] < other.ends[otherRange]) {
+                range++;
+            }
+            else {
+                otherRange++;
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("starts", Arrays.toString(Arrays.copyOf(starts, rangeCount)))
+                .add("ends", Arrays.toString(Arrays.copyOf(ends, rangeCount)))
+                .toString();
+    }
+
+    public static class Builder
+    {
+        private long[] starts = new long[8];
+        private long[] ends = new long[8];
+        private int rangeCount;
+
+        private Builder() {}
+
+        /**
+         * Adds a range that starts at or after the end of the last added range. Adjacent ranges are merged.
+         */
+        public Builder add(long start, long end)
+        {
+            checkArgument(start < end, "start %s must be less than end %s", start, end);
+            if (rangeCount > 0) {
+                checkArgument(start >= ends[rangeCount - 1], "ranges must be added in order");
+                if (start == ends[rangeCount - 1]) {
+                    ends[rangeCount - 1] = end;
+                    return this;
+                }
+            }
+            if (rangeCount == starts.length) {
+                starts = Arrays.copyOf(starts, rangeCount * 2);
+                ends = Arrays.copyOf(ends, rangeCount * 2);
+            }
+            starts[rangeCount] = start;
+            ends[rangeCount] = end;
+            rangeCount++;
+            return this;
+        }
+
+        public RowRanges build()
+        {
+            if (rangeCount == 0) {
+                return EMPTY;
+            }
+            return new RowRanges(Arrays.copyOf(starts, rangeCount), Arrays.copyOf(ends, rangeCount), rangeCount);
+        }
+    }
+}
@@ -13,10 +13,13 @@
  */
 package com.facebook.presto.parquet.writer;
 
+import org.apache.parquet.format.ColumnIndex;
 import org.apache.parquet.format.ColumnMetaData;
+import org.apache.parquet.format.OffsetIndex;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
 
@@ -40,11 +43,21 @@ public interface ColumnWriter
     {
         private final ColumnMetaData metaData;
         private final List<ParquetDataOutput> data;
+        private final Optional<ColumnIndex> columnIndex;
+        // page offsets are relative to the start of the column chunk
+        private final Optional<OffsetIndex> offsetIndex;
 
         public BufferData(List<ParquetDataOutput> data, ColumnMetaData metaData)
+        {
+            this(data, metaData, Optional.empty(), Optional.empty());
+        }
+
+        public BufferData(List<ParquetDataOutput> data, ColumnMetaData metaData, Optional<ColumnIndex> columnIndex, Optional<OffsetIndex> offsetIndex)
         {
             this.data = requireNonNull(data, "data is null");
             this.metaData = requireNonNull(metaData, "metaData is null");
+            this.columnIndex = requireNonNull(columnIndex, "columnIndex is null");
+            this.offsetIndex = requireNonNull(offsetIndex, "offsetIndex is null");
         }
 
         public ColumnMetaData getMetaData()
@@ -56,5 +69,15 @@ public interface ColumnWriter
         {
             return data;
         }
+
+        public Optional<ColumnIndex> getColumnIndex()
+        {
+            return columnIndex;
+        }
+
+        public Optional<OffsetIndex> getOffsetIndex()
+        {
+            return offsetIndex;
+        }
     }
 }
@@ -0,0 +1,136 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.writer;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.parquet.column.statistics.DoubleStatistics;
+import org.apache.parquet.column.statistics.FloatStatistics;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.format.BoundaryOrder;
+import org.apache.parquet.format.ColumnIndex;
+import org.apache.parquet.format.OffsetIndex;
+import org.apache.parquet.format.PageLocation;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collects the column index and the offset index of a column chunk while its data pages are written.
+ * The offsets of the pages added are relative to the first data page of the column chunk.
+ */
+class PageIndexBuilder
+{
+    // the column index is left out rather than truncating longer min and max values
+    private static final int MAX_VALUE_LENGTH = 64;
+    private static final ByteBuffer EMPTY_VALUE = ByteBuffer.allocate(0);
+
+    private final PrimitiveTypeName type;
+
+    private final List<PageLocation> pageLocations = new ArrayList<>();
+    private final List<Boolean> nullPages = new ArrayList<>();
+    private final List<ByteBuffer> minValues = new ArrayList<>();
+    private final List<ByteBuffer> maxValues = new ArrayList<>();
+    private final List<Long> nullCounts = new ArrayList<>();
+    private boolean columnIndexValid;
+    private long rowCount;
+
+    public PageIndexBuilder(PrimitiveTypeName type)
+    {
+        this.type = requireNonNull(type, "type is null");
+        // INT96 has no defined sort order
+        this.columnIndexValid = type != PrimitiveTypeName.INT96;
+    }
+
+    public void addPage(long offset, int compressedPageSize, int pageRowCount, long nullCount, Statistics<?> statistics)
+    {
+        checkArgument(pageRowCount > 0, "page has no rows");
+        pageLocations.add(new PageLocation(offset, compressedPageSize, rowCount));
+        rowCount += pageRowCount;
+
+        nullCounts.add(nullCount);
+        if (!statistics.hasNonNullValue()) {
+            nullPages.add(true);
+            minValues.add(EMPTY_VALUE);
+            maxValues.add(EMPTY_VALUE);
+            return;
+        }
+        nullPages.add(false);
+        if (isNaN(statistics)) {
+            columnIndexValid = false;
+        }
+        if (!columnIndexValid) {
+            return;
+        }
+        byte[] min = statistics.getMinBytes();
+        byte[] max = statistics.getMaxBytes();
+        if (min.length > MAX_VALUE_LENGTH || max.length > MAX_VALUE_LENGTH) {
+            columnIndexValid = false;
+            return;
+        }
+        minValues.add(ByteBuffer.wrap(min));
+        maxValues.add(ByteBuffer.wrap(max));
+    }
+
+    public Optional<ColumnIndex> getColumnIndex()
+    {
+        if (!columnIndexValid || pageLocations.isEmpty()) {
+            return Optional.empty();
+        }
+        ColumnIndex columnIndex = new ColumnIndex(ImmutableList.copyOf(nullPages), ImmutableList.copyOf(minValues), ImmutableList.copyOf(maxValues), BoundaryOrder.UNORDERED);
+        columnIndex.setNull_counts(ImmutableList.copyOf(nullCounts));
+        return Optional.of(columnIndex);
+    }
+
+    /**
+     * @param firstPageOffset offset of the first data page in the column chunk, which is the size of the dictionary page if any
+     */
+    public Optional<OffsetIndex> getOffsetIndex(long firstPageOffset)
+    {
+        if (pageLocations.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new OffsetIndex(pageLocations.stream()
+                .map(location -> new PageLocation(location.getOffset() + firstPageOffset, location.getCompressed_page_size(), location.getFirst_row_index()))
+                .collect(toImmutableList())));
+    }
+
+    public void reset()
+    {
+        pageLocations.clear();
+        nullPages.clear();
+        minValues.clear();
+        maxValues.clear();
+        nullCounts.clear();
+        columnIndexValid = type != PrimitiveTypeName.INT96;
+        rowCount = 0;
+    }
+
+    private static boolean isNaN(Statistics<?> statistics)
+    {
+        if (statistics instanceof DoubleStatistics) {
+            return Double.isNaN(((DoubleStatistics) statistics).getMin()) || Double.isNaN(((DoubleStatistics) statistics).getMax());
+        }
+        if (statistics instanceof FloatStatistics) {
+            return Float.isNaN(((FloatStatistics) statistics).getMin()) || Float.isNaN(((FloatStatistics) statistics).getMax());
+        }
+        return false;
+    }
+}
@@ -23,8 +23,11 @@ import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import io.airlift.units.DataSize;
 import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.format.ColumnIndex;
 import org.apache.parquet.format.ColumnMetaData;
 import org.apache.parquet.format.FileMetaData;
+import org.apache.parquet.format.OffsetIndex;
+import org.apache.parquet.format.PageLocation;
 import org.apache.parquet.format.RowGroup;
 import org.apache.parquet.format.Util;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
@@ -35,6 +38,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
+import java.util.Optional;
 
 import static com.facebook.presto.parquet.writer.ParquetDataOutput.createDataOutput;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -74,6 +78,9 @@ public class ParquetWriter
     private final int chunkMaxLogicalBytes;
 
     private ImmutableList.Builder<RowGroup> rowGroupBuilder = ImmutableList.builder();
+    // page indexes of the column chunks of each row group, written after the data of all row groups
+    private final ImmutableList.Builder<List<Optional<ColumnIndex>>> columnIndexes = ImmutableList.builder();
+    private final ImmutableList.Builder<List<Optional<OffsetIndex>>> offsetIndexes = ImmutableList.builder();
 
     private int rows;
     private boolean closed;
@@ -216,6 +223,7 @@ public class ParquetWriter
                 .map(BufferData::getMetaData)
                 .collect(toImmutableList());
         updateRowGroups(updateColumnMetadataOffset(metadatas, stripeStartOffset));
+        updatePageIndexes(bufferDataList, stripeStartOffset);
 
         // flush pages
         bufferDataList.stream()
@@ -228,7 +236,9 @@ public class ParquetWriter
             throws IOException
     {
         checkState(closed);
-        Slice footer = getFooter(rowGroupBuilder.build(), messageType);
+        List<RowGroup> rowGroups = rowGroupBuilder.build();
+        writePageIndexes(rowGroups);
+        Slice footer = getFooter(rowGroups, messageType);
         createDataOutput(footer).writeData(outputStream);
 
         Slice footerSize = Slices.allocate(SIZE_OF_INT);
@@ -238,6 +248,41 @@ public class ParquetWriter
         createDataOutput(MAGIC).writeData(outputStream);
     }
 
+    // Page indexes are written after the data, the column indexes of all column chunks first
+    private void writePageIndexes(List<RowGroup> rowGroups)
+            throws IOException
+    {
+        List<List<Optional<ColumnIndex>>> rowGroupColumnIndexes = columnIndexes.build();
+        for (int rowGroup = 0; rowGroup < rowGroups.size(); rowGroup++) {
+            List<org.apache.parquet.format.ColumnChunk> columnChunks = rowGroups.get(rowGroup).getColumns();
+            List<Optional<ColumnIndex>> chunkColumnIndexes = rowGroupColumnIndexes.get(rowGroup);
+            for (int column = 0; column < columnChunks.size(); column++) {
+                if (chunkColumnIndexes.get(column).isPresent()) {
+                    DynamicSliceOutput sliceOutput = new DynamicSliceOutput(40);
+                    Util.writeColumnIndex(chunkColumnIndexes.get(column).get(), sliceOutput);
+                    columnChunks.get(column).setColumn_index_offset(outputStream.size());
+                    columnChunks.get(column).setColumn_index_length(sliceOutput.size());
+                    createDataOutput(sliceOutput.slice()).writeData(outputStream);
+                }
+            }
+        }
+
+        List<List<Optional<OffsetIndex>>> rowGroupOffsetIndexes = offsetIndexes.build();
+        for (int rowGroup = 0; rowGroup < rowGroups.size(); rowGroup++) {
+            List<org.apache.parquet.format.ColumnChunk> columnChunks = rowGroups.get(rowGroup).getColumns();
+            List<Optional<OffsetIndex>> chunkOffsetIndexes = rowGroupOffsetIndexes.get(rowGroup);
+            for (int column = 0; column < columnChunks.size(); column++) {
+                if (chunkOffsetIndexes.get(column).isPresent()) {
+                    DynamicSliceOutput sliceOutput = new DynamicSliceOutput(40);
+                    Util.writeOffsetIndex(chunkOffsetIndexes.get(column).get(), sliceOutput);
+                    columnChunks.get(column).setOffset_index_offset(outputStream.size());
+                    columnChunks.get(column).setOffset_index_length(sliceOutput.size());
+                    createDataOutput(sliceOutput.slice()).writeData(outputStream);
+                }
+            }
+        }
+    }
+
     static Slice getFooter(List<RowGroup> rowGroups, MessageType messageType)
             throws IOException
     {
@@ -261,6 +306,23 @@ public class ParquetWriter
         rowGroupBuilder.add(new RowGroup(columnChunks, totalBytes, rows));
     }
 
+    private void updatePageIndexes(List<BufferData> bufferDataList, long offset)
+    {
+        ImmutableList.Builder<Optional<ColumnIndex>> rowGroupColumnIndexes = ImmutableList.builder();
+        ImmutableList.Builder<Optional<OffsetIndex>> rowGroupOffsetIndexes = ImmutableList.builder();
+        long currentOffset = offset;
+        for (BufferData bufferData : bufferDataList) {
+            long columnChunkOffset = currentOffset;
+            rowGroupColumnIndexes.add(bufferData.getColumnIndex());
+            rowGroupOffsetIndexes.add(bufferData.getOffsetIndex().map(offsetIndex -> new OffsetIndex(offsetIndex.getPage_locations().stream()
+                    .map(location -> new PageLocation(location.getOffset() + columnChunkOffset, location.getCompressed_page_size(), location.getFirst_row_index()))
+                    .collect(toImmutableList()))));
+            currentOffset += bufferData.getMetaData().getTotal_compressed_size();
+        }
+        columnIndexes.add(rowGroupColumnIndexes.build());
+        offsetIndexes.add(rowGroupOffsetIndexes.build());
+    }
+
     private static org.apache.parquet.format.ColumnChunk toColumnChunk(ColumnMetaData metaData)
     {
         // TODO Not sure whether file_offset is used
@@ -77,10 +77,12 @@ public class PrimitiveColumnWriter
     private long totalUnCompressedSize;
     private long totalRows;
     private Statistics<?> columnStatistics;
+    private long dictionaryPageSize;
 
     private final int maxDefinitionLevel;
 
     private final List<ParquetDataOutput> pageBuffer = new ArrayList<>();
+    private final PageIndexBuilder pageIndexBuilder;
 
     @Nullable
     private final ParquetCompressor compressor;
@@ -102,6 +104,7 @@ public class PrimitiveColumnWriter
         this.pageSizeThreshold = pageSizeThreshold;
 
         this.columnStatistics = Statistics.createStats(columnDescriptor.getPrimitiveType());
+        this.pageIndexBuilder = new PageIndexBuilder(columnDescriptor.getPrimitiveType().getPrimitiveTypeName());
     }
 
     @Override
@@ -160,7 +163,8 @@ public class PrimitiveColumnWriter
             throws IOException
     {
         checkState(closed);
-        return ImmutableList.of(new BufferData(getDataStreams(), getColumnMetaData()));
+        List<ParquetDataOutput> dataStreams = getDataStreams();
+        return ImmutableList.of(new BufferData(dataStreams, getColumnMetaData(), pageIndexBuilder.getColumnIndex(), pageIndexBuilder.getOffsetIndex(dictionaryPageSize)));
     }
 
     // Returns ColumnMetaData that offset is invalid
@@ -216,6 +220,8 @@ public class PrimitiveColumnWriter
         statistics.incrementNumNulls(currentPageNullCounts);
 
         columnStatistics.mergeStatistics(statistics);
+        // the data pages written so far precede this page
+        long pageOffset = totalCompressedSize;
 
         parquetMetadataConverter.writeDataPageV2Header((int) uncompressedSize,
                 (int) compressedSize,
@@ -236,6 +242,8 @@ public class PrimitiveColumnWriter
 
         List<ParquetDataOutput> dataOutputs = outputDataStreams.build();
 
+        pageIndexBuilder.addPage(pageOffset, toIntExact(pageHeader.size() + compressedSize), currentPageRowCount, currentPageNullCounts, statistics);
+
         // update total stats
         totalCompressedSize += pageHeader.size() + compressedSize;
         totalUnCompressedSize += pageHeader.size() + uncompressedSize;
@@ -283,6 +291,7 @@ public class PrimitiveColumnWriter
             dictPage.add(pageData);
             totalCompressedSize += pageHeader.size() + compressedSize;
             totalUnCompressedSize += pageHeader.size() + uncompressedSize;
+            dictionaryPageSize = pageHeader.size() + compressedSize;
 
             primitiveValueWriter.resetDictionary();
         }
@@ -318,7 +327,9 @@ public class PrimitiveColumnWriter
         totalCompressedSize = 0;
         totalUnCompressedSize = 0;
         totalRows = 0;
+        dictionaryPageSize = 0;
         encodings.clear();
+        pageIndexBuilder.reset();
         this.columnStatistics = Statistics.createStats(columnDescriptor.getPrimitiveType());
 
         getDataStreamsCalled = false;
@@ -15,7 +15,9 @@ package com.facebook.presto.parquet;
 
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.type.ArrayType;
+import com.facebook.presto.common.type.DecimalType;
 import com.facebook.presto.common.type.RowType;
+import com.facebook.presto.common.type.SqlDecimal;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.common.type.VarcharType;
 import com.facebook.presto.parquet.reader.MetadataReader;
@@ -36,6 +38,7 @@ import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OperationsPerInvocation;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -48,6 +51,7 @@ import org.openjdk.jmh.runner.options.VerboseMode;
 
 import java.io.File;
 import java.io.IOException;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -56,7 +60,10 @@ import java.util.concurrent.TimeUnit;
 
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DecimalType.createDecimalType;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
 import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.RealType.REAL;
 import static com.facebook.presto.common.type.TimestampType.TIMESTAMP;
 import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static com.facebook.presto.parquet.ParquetTypeUtils.getColumnIO;
@@ -79,9 +86,10 @@ public class BenchmarkParquetReader
 {
     public static final int ROWS = 10_000_000;
 
-    private static final boolean enableOptimizedReader = true;
     private static final boolean enableVerification = false;
 
+    private static final DecimalType LONG_DECIMAL = createDecimalType(38, 10);
+
     public static void main(String[] args)
             throws Throwable
     {
@@ -162,6 +170,34 @@ public class BenchmarkParquetReader
         return read(data);
     }
 
+    @Benchmark
+    public Object readFloatNoNull(FloatNoNullBenchmarkData data)
+            throws Throwable
+    {
+        return read(data);
+    }
+
+    @Benchmark
+    public Object readFloatWithNull(FloatWithNullBenchmarkData data)
+            throws Throwable
+    {
+        return read(data);
+    }
+
+    @Benchmark
+    public Object readDoubleNoNull(DoubleNoNullBenchmarkData data)
+            throws Throwable
+    {
+        return read(data);
+    }
+
+    @Benchmark
+    public Object readDoubleWithNull(DoubleWithNullBenchmarkData data)
+            throws Throwable
+    {
+        return read(data);
+    }
+
     @Benchmark
     public Object readSliceDictionaryNoNull(VarcharNoNullBenchmarkData data)
             throws Throwable
@@ -211,6 +247,27 @@ public class BenchmarkParquetReader
         return read(data);
     }
 
+    @Benchmark
+    public Object readLongDecimalNoNull(LongDecimalNoNullBenchmarkData data)
+            throws Throwable
+    {
+        return read(data);
+    }
+
+    @Benchmark
+    public Object readLongDecimalWithNull(LongDecimalWithNullBenchmarkData data)
+            throws Throwable
+    {
+        return read(data);
+    }
+
+    @Benchmark
+    public Object readListLongDecimalWithNull(ListLongDecimalWithNullBenchmarkData data)
+            throws Throwable
+    {
+        return read(data);
+    }
+
     @Benchmark
     public Object readStructBooleanWithNull(StructBooleanWithNullBenchmarkData data)
             throws Throwable
@@ -246,12 +303,16 @@ public class BenchmarkParquetReader
         return read(data);
     }
 
-    private abstract static class BenchmarkData
+    public abstract static class BenchmarkData
     {
         protected File temporaryDirectory;
         protected File file;
         protected Random random;
 
+        // compares the batch readers with the value at a time readers
+        @Param({"true", "false"})
+        public boolean enableOptimizedReader = true;
+
         private Field field;
 
         @Setup
@@ -506,6 +567,112 @@ public class BenchmarkParquetReader
         }
     }
 
+    @State(Scope.Thread)
+    public static class FloatNoNullBenchmarkData
+            extends BenchmarkData
+    {
+        @Override
+        protected List<?> generateValues()
+        {
+            List<Float> values = new ArrayList<>();
+            for (int i = 0; i < ROWS; ++i) {
+                values.add(Float.valueOf(random.nextFloat()));
+            }
+            return values;
+        }
+
+        @Override
+        protected Type getType()
+        {
+            return REAL;
+        }
+
+        @Override
+        protected boolean getNullability()
+        {
+            return false;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FloatWithNullBenchmarkData
+            extends BenchmarkData
+    {
+        @Override
+        protected List<?> generateValues()
+        {
+            List<Float> values = new ArrayList<>();
+            for (int i = 0; i < ROWS; ++i) {
+                if (random.nextBoolean()) {
+                    values.add(Float.valueOf(random.nextFloat()));
+                }
+                else {
+                    values.add(null);
+                }
+            }
+            return values;
+        }
+
+        @Override
+        protected Type getType()
+        {
+            return REAL;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DoubleNoNullBenchmarkData
+            extends BenchmarkData
+    {
+        @Override
+        protected List<?> generateValues()
+        {
+            List<Double> values = new ArrayList<>();
+            for (int i = 0; i < ROWS; ++i) {
+                values.add(Double.valueOf(random.nextDouble()));
+            }
+            return values;
+        }
+
+        @Override
+        protected Type getType()
+        {
+            return DOUBLE;
+        }
+
+        @Override
+        protected boolean getNullability()
+        {
+            return false;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DoubleWithNullBenchmarkData
+            extends BenchmarkData
+    {
+        @Override
+        protected List<?> generateValues()
+        {
+            List<Double> values = new ArrayList<>();
+            for (int i = 0; i < ROWS; ++i) {
+                if (random.nextBoolean()) {
+                    values.add(Double.valueOf(random.nextDouble()));
+                }
+                else {
+                    values.add(null);
+                }
+            }
+            return values;
+        }
+
+        @Override
+        protected Type getType()
+        {
+            return DOUBLE;
+        }
+    }
+
     @State(Scope.Thread)
     public static class VarcharNoNullBenchmarkData
             extends BenchmarkData
@@ -871,6 +1038,104 @@ public class BenchmarkParquetReader
         }
     }
 
+    @State(Scope.Thread)
+    public static class LongDecimalNoNullBenchmarkData
+            extends BenchmarkData
+    {
+        @Override
+        protected List<?> generateValues()
+        {
+            List<SqlDecimal> values = new ArrayList<>();
+            for (int i = 0; i < ROWS; ++i) {
+                values.add(randomLongDecimal(random));
+            }
+            return values;
+        }
+
+        @Override
+        protected Type getType()
+        {
+            return LONG_DECIMAL;
+        }
+
+        @Override
+        protected boolean getNullability()
+        {
+            return false;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LongDecimalWithNullBenchmarkData
+            extends BenchmarkData
+    {
+        @Override
+        protected List<?> generateValues()
+        {
+            List<SqlDecimal> values = new ArrayList<>();
+            for (int i = 0; i < ROWS; ++i) {
+                if (random.nextBoolean()) {
+                    values.add(randomLongDecimal(random));
+                }
+                else {
+                    values.add(null);
+                }
+            }
+            return values;
+        }
+
+        @Override
+        protected Type getType()
+        {
+            return LONG_DECIMAL;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ListLongDecimalWithNullBenchmarkData
+            extends BenchmarkData
+    {
+        @Override
+        protected List<?> generateValues()
+        {
+            Random random = new Random(0);
+            List<List<SqlDecimal>> values = new ArrayList<>();
+            for (int i = 0; i < ROWS; ++i) {
+                if (random.nextBoolean()) {
+                    values.add(null);
+                    continue;
+                }
+                int size = random.nextInt(5) + 1;
+                List<SqlDecimal> entry = new ArrayList<>();
+                for (int j = 0; j < size; j++) {
+                    if (random.nextBoolean()) {
+                        entry.add(randomLongDecimal(random));
+                    }
+                    else {
+                        entry.add(null);
+                    }
+                }
+                values.add(entry);
+            }
+            return values;
+        }
+
+        @Override
+        protected Type getType()
+        {
+            return new ArrayType(LONG_DECIMAL);
+        }
+    }
+
+    private static SqlDecimal randomLongDecimal(Random random)
+    {
+        BigInteger unscaledValue = new BigInteger(126, random);
+        if (random.nextBoolean()) {
+            unscaledValue = unscaledValue.negate();
+        }
+        return new SqlDecimal(unscaledValue, LONG_DECIMAL.getPrecision(), LONG_DECIMAL.getScale());
+    }
+
     static {
         try {
             // call all versions of the column readers to pollute the profile
@@ -917,6 +1182,14 @@ public class BenchmarkParquetReader
             dataVarcharWithNull.setup();
             benchmark.readSliceDictionaryWithNull(dataVarcharWithNull);
 
+            LongDecimalNoNullBenchmarkData dataLongDecimalNoNull = new LongDecimalNoNullBenchmarkData();
+            dataLongDecimalNoNull.setup();
+            benchmark.readLongDecimalNoNull(dataLongDecimalNoNull);
+
+            LongDecimalWithNullBenchmarkData dataLongDecimalWithNull = new LongDecimalWithNullBenchmarkData();
+            dataLongDecimalWithNull.setup();
+            benchmark.readLongDecimalWithNull(dataLongDecimalWithNull);
+
             // List types
             ListBooleanWithNullBenchmarkData dataListBoolWithNull = new ListBooleanWithNullBenchmarkData();
             dataListBoolWithNull.setup();
@@ -938,6 +1211,10 @@ public class BenchmarkParquetReader
             dataListVarcharWithNull.setup();
             benchmark.readListSliceDictionaryWithNull(dataListVarcharWithNull);
 
+            ListLongDecimalWithNullBenchmarkData dataListLongDecimalWithNull = new ListLongDecimalWithNullBenchmarkData();
+            dataListLongDecimalWithNull.setup();
+            benchmark.readListLongDecimalWithNull(dataListLongDecimalWithNull);
+
             // struct types
             StructBooleanWithNullBenchmarkData dataStructBoolWithNull = new StructBooleanWithNullBenchmarkData();
             dataStructBoolWithNull.setup();
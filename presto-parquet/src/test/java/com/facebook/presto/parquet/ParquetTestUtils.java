@@ -443,6 +443,7 @@ public class ParquetTestUtils
             }
 
             return builder.length(primitiveType.getTypeLength())
+                    .as(primitiveType.getOriginalType())
                     .named(primitiveType.getName())
                     .asPrimitiveType();
         }
@@ -467,6 +468,10 @@ public class ParquetTestUtils
             return new Text(((String) value).getBytes());
         }
 
+        if (type instanceof DecimalType) {
+            return HiveDecimal.create(((SqlDecimal) value).toBigDecimal());
+        }
+
         if (type instanceof ArrayType) {
             List<Object> valueList = (List<Object>) value;
             List<Object> list = new ArrayList<>();
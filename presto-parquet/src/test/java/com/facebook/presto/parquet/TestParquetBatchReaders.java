@@ -0,0 +1,275 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.facebook.presto.common.type.ArrayType;
+import com.facebook.presto.common.type.DecimalType;
+import com.facebook.presto.common.type.RowType;
+import com.facebook.presto.common.type.SqlDecimal;
+import com.facebook.presto.common.type.SqlTimestamp;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.parquet.reader.MetadataReader;
+import com.facebook.presto.parquet.reader.ParquetReader;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.ColumnIOConverter;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.schema.MessageType;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DecimalType.createDecimalType;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.parquet.ParquetTypeUtils.getColumnIO;
+import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
+import static com.google.common.io.Files.createTempDir;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.UUID.randomUUID;
+import static org.apache.parquet.schema.MessageTypeParser.parseMessageType;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Reads files written by Hive, or by the Parquet example writer for encodings Hive does not write, with the batch
+ * readers, with the verification against the value at a time readers enabled, and checks the values read against
+ * the values written.
+ */
+public class TestParquetBatchReaders
+{
+    private static final int ROWS = 100_000;
+    private static final SqlFunctionProperties PROPERTIES = SESSION.getSqlFunctionProperties();
+    private static final DecimalType LONG_DECIMAL = createDecimalType(38, 10);
+
+    private File temporaryDirectory;
+
+    @BeforeClass
+    public void setUp()
+    {
+        temporaryDirectory = createTempDir();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(temporaryDirectory.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testBoolean()
+            throws Exception
+    {
+        Random random = new Random(0);
+        assertBatchRead(BOOLEAN, false, generateValues(random, false, Random::nextBoolean), true);
+        assertBatchRead(BOOLEAN, true, generateValues(random, true, Random::nextBoolean), true);
+    }
+
+    @Test
+    public void testInt32()
+            throws Exception
+    {
+        Random random = new Random(0);
+        assertBatchRead(INTEGER, false, generateValues(random, false, Random::nextInt), true);
+        assertBatchRead(INTEGER, true, generateValues(random, true, Random::nextInt), true);
+    }
+
+    @Test
+    public void testInt64()
+            throws Exception
+    {
+        Random random = new Random(0);
+        assertBatchRead(BIGINT, false, generateValues(random, false, Random::nextLong), true);
+        assertBatchRead(BIGINT, true, generateValues(random, true, Random::nextLong), true);
+    }
+
+    @Test
+    public void testTimestamp()
+            throws Exception
+    {
+        // Hive shifts the timestamps it writes by the time zone of the JVM, so only compare with the value at a time reader
+        Random random = new Random(0);
+        assertBatchRead(TIMESTAMP, false, generateValues(random, false, TestParquetBatchReaders::randomTimestamp), false);
+        assertBatchRead(TIMESTAMP, true, generateValues(random, true, TestParquetBatchReaders::randomTimestamp), false);
+    }
+
+    @Test
+    public void testInt64Timestamp()
+            throws Exception
+    {
+        // INT64 TIMESTAMP_MILLIS values are milliseconds since the epoch, which is how Presto represents timestamps,
+        // so the INT64 readers read them as they are; TIMESTAMP_MICROS is not supported by either reader
+        Random random = new Random(0);
+        List<Long> values = generateValues(random, true, TestParquetBatchReaders::randomTimestamp);
+        File file = new File(temporaryDirectory, randomUUID().toString());
+        MessageType schema = parseMessageType("message test { optional int64 column (TIMESTAMP_MILLIS); }");
+        try (ParquetWriter<Group> writer = ExampleParquetWriter.builder(new Path(file.getAbsolutePath()))
+                .withType(schema)
+                .withConf(new Configuration())
+                .build()) {
+            SimpleGroupFactory groupFactory = new SimpleGroupFactory(schema);
+            for (Long value : values) {
+                Group group = groupFactory.newGroup();
+                if (value != null) {
+                    group.add("column", value.longValue());
+                }
+                writer.write(group);
+            }
+        }
+
+        List<SqlTimestamp> expected = new ArrayList<>(values.size());
+        for (Long value : values) {
+            expected.add(value == null ? null : toSqlTimestamp(value));
+        }
+        assertBatchRead(file, TIMESTAMP, expected, true);
+    }
+
+    @Test
+    public void testLongDecimal()
+            throws Exception
+    {
+        Random random = new Random(0);
+        assertBatchRead(LONG_DECIMAL, false, generateValues(random, false, TestParquetBatchReaders::randomLongDecimal), true);
+        assertBatchRead(LONG_DECIMAL, true, generateValues(random, true, TestParquetBatchReaders::randomLongDecimal), true);
+
+        // few distinct values, so that all pages are dictionary encoded
+        assertBatchRead(LONG_DECIMAL, true, generateValues(random, true, valueRandom -> randomLongDecimal(new Random(valueRandom.nextInt(100)))), true);
+    }
+
+    @Test
+    public void testNested()
+            throws Exception
+    {
+        Random random = new Random(0);
+        assertBatchRead(rowOf(BOOLEAN), true, generateValues(random, true, valueRandom -> Collections.singletonList(nullOr(valueRandom, Random::nextBoolean))), true);
+        assertBatchRead(rowOf(INTEGER), true, generateValues(random, true, valueRandom -> Collections.singletonList(nullOr(valueRandom, Random::nextInt))), true);
+        assertBatchRead(rowOf(BIGINT), true, generateValues(random, true, valueRandom -> Collections.singletonList(nullOr(valueRandom, Random::nextLong))), true);
+        assertBatchRead(rowOf(TIMESTAMP), true, generateValues(random, true, valueRandom -> Collections.singletonList(nullOr(valueRandom, TestParquetBatchReaders::randomTimestamp))), false);
+        assertBatchRead(rowOf(LONG_DECIMAL), true, generateValues(random, true, valueRandom -> Collections.singletonList(nullOr(valueRandom, TestParquetBatchReaders::randomLongDecimal))), true);
+
+        assertBatchRead(new ArrayType(BOOLEAN), true, generateValues(random, true, valueRandom -> randomList(valueRandom, Random::nextBoolean)), true);
+        assertBatchRead(new ArrayType(INTEGER), true, generateValues(random, true, valueRandom -> randomList(valueRandom, Random::nextInt)), true);
+        assertBatchRead(new ArrayType(BIGINT), true, generateValues(random, true, valueRandom -> randomList(valueRandom, Random::nextLong)), true);
+        assertBatchRead(new ArrayType(TIMESTAMP), true, generateValues(random, true, valueRandom -> randomList(valueRandom, TestParquetBatchReaders::randomTimestamp)), false);
+        assertBatchRead(new ArrayType(LONG_DECIMAL), true, generateValues(random, true, valueRandom -> randomList(valueRandom, TestParquetBatchReaders::randomLongDecimal)), true);
+    }
+
+    private void assertBatchRead(Type type, boolean nullable, List<?> values, boolean compareValues)
+            throws Exception
+    {
+        File file = new File(temporaryDirectory, randomUUID().toString());
+        ParquetTestUtils.writeParquetColumnHive(file, "column", nullable, type, values.iterator());
+        assertBatchRead(file, type, values, compareValues);
+    }
+
+    private void assertBatchRead(File file, Type type, List<?> values, boolean compareValues)
+            throws Exception
+    {
+        FileParquetDataSource dataSource = new FileParquetDataSource(file);
+        ParquetMetadata parquetMetadata = MetadataReader.readFooter(FileSystem.getLocal(new Configuration()), new Path(file.getAbsolutePath()), file.length());
+        MessageType schema = parquetMetadata.getFileMetaData().getSchema();
+        MessageColumnIO messageColumnIO = getColumnIO(schema, schema);
+        Field field = ColumnIOConverter.constructField(type, messageColumnIO.getChild(0)).get();
+
+        int position = 0;
+        // the reader compares every batch with the one of the value at a time reader and fails on any difference
+        try (ParquetReader reader = new ParquetReader(messageColumnIO, parquetMetadata.getBlocks(), dataSource, newSimpleAggregatedMemoryContext(), new DataSize(16, MEGABYTE), true, true)) {
+            while (reader.nextBatch() > 0) {
+                Block block = reader.readBlock(field);
+                for (int i = 0; i < block.getPositionCount(); i++) {
+                    if (compareValues) {
+                        assertEquals(type.getObjectValue(PROPERTIES, block, i), values.get(position), "position " + position);
+                    }
+                    position++;
+                }
+            }
+        }
+        assertEquals(position, values.size());
+    }
+
+    private static <T> List<T> generateValues(Random random, boolean nullable, Function<Random, T> generator)
+    {
+        List<T> values = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            values.add(nullable ? nullOr(random, generator) : generator.apply(random));
+        }
+        return values;
+    }
+
+    private static <T> T nullOr(Random random, Function<Random, T> generator)
+    {
+        return random.nextInt(4) == 0 ? null : generator.apply(random);
+    }
+
+    private static <T> List<T> randomList(Random random, Function<Random, T> generator)
+    {
+        // the Hive writer fails on empty arrays
+        int size = 1 + random.nextInt(4);
+        List<T> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(nullOr(random, generator));
+        }
+        return list;
+    }
+
+    private static RowType rowOf(Type type)
+    {
+        return RowType.from(Collections.singletonList(RowType.field("field", type)));
+    }
+
+    private static long randomTimestamp(Random random)
+    {
+        return random.nextInt(1572281176) * 1000L;
+    }
+
+    private static SqlTimestamp toSqlTimestamp(long millis)
+    {
+        if (PROPERTIES.isLegacyTimestamp()) {
+            return new SqlTimestamp(millis, PROPERTIES.getTimeZoneKey());
+        }
+        return new SqlTimestamp(millis);
+    }
+
+    private static SqlDecimal randomLongDecimal(Random random)
+    {
+        BigInteger unscaledValue = new BigInteger(126, random);
+        if (random.nextBoolean()) {
+            unscaledValue = unscaledValue.negate();
+        }
+        return new SqlDecimal(unscaledValue, LONG_DECIMAL.getPrecision(), LONG_DECIMAL.getScale());
+    }
+}
@@ -21,11 +21,13 @@ import org.apache.parquet.bytes.HeapByteBufferAllocator;
 import org.apache.parquet.column.values.ValuesWriter;
 import org.apache.parquet.column.values.bitpacking.ByteBitPackingValuesWriter;
 import org.apache.parquet.column.values.bitpacking.Packer;
+import org.apache.parquet.column.values.plain.FixedLenByteArrayPlainValuesWriter;
 import org.apache.parquet.column.values.plain.PlainValuesWriter;
 import org.apache.parquet.column.values.rle.RunLengthBitPackingHybridEncoder;
 import org.apache.parquet.io.api.Binary;
 
 import java.io.IOException;
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.util.ArrayList;
@@ -96,6 +98,9 @@ public class TestParquetUtils
         if (valueSizeBits == 1) {
             writer = new ByteBitPackingValuesWriter(1, Packer.LITTLE_ENDIAN);
         }
+        else if (valueSizeBits == 128) {
+            writer = new FixedLenByteArrayPlainValuesWriter(16, 20, 1024 * 1000, new HeapByteBufferAllocator());
+        }
         else {
             writer = new PlainValuesWriter(20, 1024 * 1000, new HeapByteBufferAllocator());
         }
@@ -144,8 +149,19 @@ public class TestParquetUtils
                 }
                 break;
             }
+            case 128: {
+                for (int i = 0; i < valueCount; i++) {
+                    BigInteger value = new BigInteger(126, random);
+                    if (random.nextBoolean()) {
+                        value = value.negate();
+                    }
+                    writer.writeBytes(Binary.fromConstantByteArray(toFixedLengthBytes(value, 16)));
+                    addedValues.add(value);
+                }
+                break;
+            }
             default:
-                throw new IllegalArgumentException("invalid value size (expected: 4, 8 or 12)");
+                throw new IllegalArgumentException("invalid value size (expected: 4, 8, 12 or 16)");
         }
 
         try {
@@ -156,6 +172,22 @@ public class TestParquetUtils
         }
     }
 
+    /**
+     * Returns the big endian two's complement bytes of the value, sign extended to the given length.
+     */
+    public static byte[] toFixedLengthBytes(BigInteger value, int length)
+    {
+        byte[] bytes = value.toByteArray();
+        checkArgument(bytes.length <= length, "value %s does not fit in %s bytes", value, length);
+        byte[] result = new byte[length];
+        byte padding = (byte) (value.signum() < 0 ? -1 : 0);
+        for (int i = 0; i < length - bytes.length; i++) {
+            result[i] = padding;
+        }
+        System.arraycopy(bytes, 0, result, length - bytes.length, bytes.length);
+        return result;
+    }
+
     public static byte[] generateDictionaryIdPage2048(int maxValue, Random random, List<Integer> addedValues)
     {
         RunLengthBitPackingHybridEncoder encoder = getDictionaryDataPageEncoder(maxValue);
@@ -18,32 +18,39 @@ import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.BinaryValu
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.BooleanValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.Int32ValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.Int64ValuesDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.LongDecimalValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.TimestampValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.plain.BinaryPlainValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.plain.BooleanPlainValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.plain.Int32PlainValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.plain.Int64PlainValuesDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.plain.LongDecimalPlainValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.plain.TimestampPlainValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.rle.BinaryRLEDictionaryValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.rle.BooleanRLEValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.rle.Int32RLEDictionaryValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.rle.Int64RLEDictionaryValuesDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.rle.LongDecimalRLEDictionaryValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.rle.TimestampRLEDictionaryValuesDecoder;
 import com.facebook.presto.parquet.batchreader.dictionary.BinaryBatchDictionary;
+import com.facebook.presto.parquet.batchreader.dictionary.LongDecimalDictionary;
 import com.facebook.presto.parquet.batchreader.dictionary.TimestampDictionary;
 import com.facebook.presto.parquet.dictionary.IntegerDictionary;
 import com.facebook.presto.parquet.dictionary.LongDictionary;
+import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import org.testng.annotations.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
+import static com.facebook.presto.common.type.Decimals.encodeUnscaledValue;
 import static com.facebook.presto.parquet.ParquetEncoding.PLAIN_DICTIONARY;
 import static com.facebook.presto.parquet.batchreader.decoders.TestParquetUtils.generateDictionaryIdPage2048;
 import static com.facebook.presto.parquet.batchreader.decoders.TestParquetUtils.generatePlainValuesPage;
@@ -94,6 +101,16 @@ public class TestValuesDecoders
         return new TimestampRLEDictionaryValuesDecoder(getWidthFromMaxInt(dictionarySize), new ByteArrayInputStream(pageBytes), dictionary);
     }
 
+    private static LongDecimalValuesDecoder longDecimalPlain(byte[] pageBytes)
+    {
+        return new LongDecimalPlainValuesDecoder(16, pageBytes, 0, pageBytes.length);
+    }
+
+    private static LongDecimalValuesDecoder longDecimalDictionary(byte[] pageBytes, int dictionarySize, LongDecimalDictionary dictionary)
+    {
+        return new LongDecimalRLEDictionaryValuesDecoder(getWidthFromMaxInt(dictionarySize), new ByteArrayInputStream(pageBytes), dictionary);
+    }
+
     private static BooleanValuesDecoder booleanPlain(byte[] pageBytes)
     {
         return new BooleanPlainValuesDecoder(pageBytes, 0, pageBytes.length);
@@ -199,6 +216,31 @@ public class TestValuesDecoders
         }
     }
 
+    private static void longDecimalBatchReadWithSkipHelper(int batchSize, int skipSize, int valueCount, LongDecimalValuesDecoder decoder, List<Object> expectedValues)
+            throws IOException
+    {
+        long[] actualValues = new long[2 * valueCount];
+        int inputOffset = 0;
+        int outputOffset = 0;
+        while (inputOffset < valueCount) {
+            int readBatchSize = min(batchSize, valueCount - inputOffset);
+            decoder.readNext(actualValues, outputOffset, readBatchSize);
+
+            for (int i = 0; i < readBatchSize; i++) {
+                Slice expectedValue = encodeUnscaledValue((BigInteger) expectedValues.get(inputOffset + i));
+                assertEquals(actualValues[2 * (outputOffset + i)], expectedValue.getLong(0));
+                assertEquals(actualValues[2 * (outputOffset + i) + 1], expectedValue.getLong(8));
+            }
+
+            inputOffset += readBatchSize;
+            outputOffset += readBatchSize;
+
+            int skipBatchSize = min(skipSize, valueCount - inputOffset);
+            decoder.skip(skipBatchSize);
+            inputOffset += skipBatchSize;
+        }
+    }
+
     private static void booleanBatchReadWithSkipHelper(int batchSize, int skipSize, int valueCount, BooleanValuesDecoder decoder, List<Object> expectedValues)
     {
         byte[] actualValues = new byte[valueCount];
@@ -417,6 +459,55 @@ public class TestValuesDecoders
         timestampBatchReadWithSkipHelper(1024, 1024, valueCount, timestampDictionary(dataPage, dictionarySize, tsDictionary), expectedValues);
     }
 
+    @Test
+    public void testLongDecimalPlain()
+            throws IOException
+    {
+        int valueCount = 2048;
+        List<Object> expectedValues = new ArrayList<>();
+
+        byte[] pageBytes = generatePlainValuesPage(valueCount, 128, new Random(83), expectedValues);
+
+        longDecimalBatchReadWithSkipHelper(valueCount, 0, valueCount, longDecimalPlain(pageBytes), expectedValues); // read all values in one batch
+        longDecimalBatchReadWithSkipHelper(29, 0, valueCount, longDecimalPlain(pageBytes), expectedValues);
+        longDecimalBatchReadWithSkipHelper(89, 0, valueCount, longDecimalPlain(pageBytes), expectedValues);
+        longDecimalBatchReadWithSkipHelper(1024, 0, valueCount, longDecimalPlain(pageBytes), expectedValues);
+
+        longDecimalBatchReadWithSkipHelper(256, 29, valueCount, longDecimalPlain(pageBytes), expectedValues);
+        longDecimalBatchReadWithSkipHelper(89, 29, valueCount, longDecimalPlain(pageBytes), expectedValues);
+        longDecimalBatchReadWithSkipHelper(1024, 1024, valueCount, longDecimalPlain(pageBytes), expectedValues);
+    }
+
+    @Test
+    public void testLongDecimalRLEDictionary()
+            throws IOException
+    {
+        Random random = new Random(83);
+        int valueCount = 2048;
+        int dictionarySize = 29;
+        List<Object> dictionary = new ArrayList<>();
+        List<Integer> dictionaryIds = new ArrayList<>();
+
+        byte[] dictionaryPage = generatePlainValuesPage(dictionarySize, 128, random, dictionary);
+        byte[] dataPage = generateDictionaryIdPage2048(dictionarySize - 1, random, dictionaryIds);
+
+        List<Object> expectedValues = new ArrayList<>();
+        for (Integer dictionaryId : dictionaryIds) {
+            expectedValues.add(dictionary.get(dictionaryId));
+        }
+
+        LongDecimalDictionary longDecimalDictionary = new LongDecimalDictionary(new DictionaryPage(Slices.wrappedBuffer(dictionaryPage), dictionarySize, PLAIN_DICTIONARY), 16);
+
+        longDecimalBatchReadWithSkipHelper(valueCount, 0, valueCount, longDecimalDictionary(dataPage, dictionarySize, longDecimalDictionary), expectedValues);
+        longDecimalBatchReadWithSkipHelper(29, 0, valueCount, longDecimalDictionary(dataPage, dictionarySize, longDecimalDictionary), expectedValues);
+        longDecimalBatchReadWithSkipHelper(89, 0, valueCount, longDecimalDictionary(dataPage, dictionarySize, longDecimalDictionary), expectedValues);
+        longDecimalBatchReadWithSkipHelper(1024, 0, valueCount, longDecimalDictionary(dataPage, dictionarySize, longDecimalDictionary), expectedValues);
+
+        longDecimalBatchReadWithSkipHelper(256, 29, valueCount, longDecimalDictionary(dataPage, dictionarySize, longDecimalDictionary), expectedValues);
+        longDecimalBatchReadWithSkipHelper(89, 29, valueCount, longDecimalDictionary(dataPage, dictionarySize, longDecimalDictionary), expectedValues);
+        longDecimalBatchReadWithSkipHelper(1024, 1024, valueCount, longDecimalDictionary(dataPage, dictionarySize, longDecimalDictionary), expectedValues);
+    }
+
     @Test
     public void testBooleanPlain()
     {
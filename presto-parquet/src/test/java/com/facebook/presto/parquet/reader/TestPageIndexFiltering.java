@@ -0,0 +1,333 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.reader;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.Range;
+import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.common.predicate.ValueSet;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.parquet.Field;
+import com.facebook.presto.parquet.FileParquetDataSource;
+import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.predicate.Predicate;
+import com.facebook.presto.parquet.predicate.TupleDomainParquetPredicate;
+import com.facebook.presto.parquet.writer.ParquetWriter;
+import com.facebook.presto.parquet.writer.ParquetWriterOptions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.format.PageLocation;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.ColumnIOConverter;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.schema.MessageType;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.parquet.ParquetTypeUtils.getColumnIO;
+import static com.facebook.presto.parquet.ParquetTypeUtils.getDescriptors;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static com.google.common.io.Files.createTempDir;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestPageIndexFiltering
+{
+    private static final int PAGE_COUNT = 10;
+    private static final int ROWS_PER_PAGE = 1000;
+
+    private static final int COLUMNS_ROW_COUNT = 10_000;
+    private static final int ROWS_PER_WRITE = 100;
+    private static final List<Type> COLUMN_TYPES = ImmutableList.of(BIGINT, BOOLEAN, VARCHAR);
+
+    private File temporaryDirectory;
+    private File file;
+    private File columnsFile;
+
+    @BeforeClass
+    public void setUp()
+            throws IOException
+    {
+        temporaryDirectory = createTempDir();
+        file = new File(temporaryDirectory, "data.parquet");
+        ParquetWriterOptions options = ParquetWriterOptions.builder()
+                .setMaxPageSize(DataSize.succinctBytes(100))
+                .build();
+        try (ParquetWriter writer = new ParquetWriter(new FileOutputStream(file), ImmutableList.of("value"), ImmutableList.of(BIGINT), options, null)) {
+            // each page of sorted values is written to a separate Parquet page
+            for (int page = 0; page < PAGE_COUNT; page++) {
+                writer.write(new Page(createLongSequenceBlock(page * ROWS_PER_PAGE, (page + 1) * ROWS_PER_PAGE)));
+            }
+        }
+
+        columnsFile = new File(temporaryDirectory, "columns.parquet");
+        ParquetWriterOptions columnsOptions = ParquetWriterOptions.builder()
+                .setMaxPageSize(DataSize.succinctBytes(1000))
+                .build();
+        try (ParquetWriter writer = new ParquetWriter(new FileOutputStream(columnsFile), ImmutableList.of("row", "flag", "label"), COLUMN_TYPES, columnsOptions, null)) {
+            // a column starts a new page once it buffered enough data, which takes the booleans many more rows than the other columns
+            for (int row = 0; row < COLUMNS_ROW_COUNT; row += ROWS_PER_WRITE) {
+                writer.write(createColumnsPage(row, row + ROWS_PER_WRITE));
+            }
+        }
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(temporaryDirectory.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testWriterWritesPageIndexes()
+            throws IOException
+    {
+        ParquetBlockMetaData block = (ParquetBlockMetaData) getOnlyElement(readFooter(file).getBlocks());
+        ColumnPath path = ColumnPath.get("value");
+        assertTrue(block.getColumnIndexReference(path).isPresent());
+        assertTrue(block.getOffsetIndexReference(path).isPresent());
+
+        try (FileParquetDataSource dataSource = new FileParquetDataSource(file)) {
+            assertEquals(MetadataReader.readOffsetIndex(dataSource, block.getOffsetIndexReference(path).get()).getPage_locations().size(), PAGE_COUNT);
+            assertEquals(MetadataReader.readColumnIndex(dataSource, block.getColumnIndexReference(path).get()).getMin_values().size(), PAGE_COUNT);
+        }
+    }
+
+    @Test
+    public void testPagesAreSkipped()
+            throws IOException
+    {
+        // the values from 2500 to 3499 are in the third and fourth pages
+        List<Long> values = readValues(Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 2500L, true, 3499L, true)), false));
+        assertEquals(values.size(), 2 * ROWS_PER_PAGE);
+        for (int index = 0; index < values.size(); index++) {
+            assertEquals((long) values.get(index), 2 * ROWS_PER_PAGE + index);
+        }
+    }
+
+    @Test
+    public void testAllPagesAreSkipped()
+            throws IOException
+    {
+        assertEquals(readValues(Domain.singleValue(BIGINT, 20_000L)).size(), 0);
+    }
+
+    @Test
+    public void testNoPageIsSkipped()
+            throws IOException
+    {
+        assertEquals(readValues(Domain.notNull(BIGINT)).size(), PAGE_COUNT * ROWS_PER_PAGE);
+    }
+
+    @Test
+    public void testColumnsWithDifferentPageBoundaries()
+            throws IOException
+    {
+        // the pages of the booleans end at other rows than the pages of the row numbers, so only part of some of them is in the ranges
+        assertNotEquals(getPageFirstRows("flag"), getPageFirstRows("row"));
+        assertColumnsRead(ImmutableList.of(Range.range(BIGINT, 250L, true, 260L, true), Range.range(BIGINT, 8000L, true, 8010L, true)), false);
+    }
+
+    @Test
+    public void testDictionaryPages()
+            throws IOException
+    {
+        // the labels are dictionary encoded, so the dictionary page is read before the selected pages
+        ParquetBlockMetaData block = (ParquetBlockMetaData) getOnlyElement(readFooter(columnsFile).getBlocks());
+        try (FileParquetDataSource dataSource = new FileParquetDataSource(columnsFile)) {
+            PageLocation firstPage = MetadataReader.readOffsetIndex(dataSource, block.getOffsetIndexReference(ColumnPath.get("label")).get()).getPage_locations().get(0);
+            assertTrue(firstPage.getOffset() > block.getColumns().get(2).getStartingPos());
+        }
+        assertColumnsRead(ImmutableList.of(Range.range(BIGINT, 3050L, true, 3149L, true)), false);
+    }
+
+    @Test
+    public void testBatchReaders()
+            throws IOException
+    {
+        assertColumnsRead(ImmutableList.of(Range.range(BIGINT, 250L, true, 260L, true), Range.range(BIGINT, 8000L, true, 8010L, true)), true);
+        assertColumnsRead(ImmutableList.of(Range.range(BIGINT, 3050L, true, 3149L, true)), true);
+    }
+
+    @Test
+    public void testRowRanges()
+    {
+        RowRanges rowRanges = RowRanges.builder()
+                .add(0, 10)
+                .add(10, 20)
+                .add(30, 40)
+                .build();
+        assertEquals(rowRanges.getRangeCount(), 2);
+        assertEquals(rowRanges.getRowCount(), 30);
+        assertTrue(rowRanges.overlaps(35, 50));
+        assertTrue(!rowRanges.overlaps(20, 30));
+
+        RowRanges intersection = rowRanges.intersect(RowRanges.builder().add(5, 35).build());
+        assertEquals(intersection.getRangeCount(), 2);
+        assertEquals(intersection.getStart(0), 5);
+        assertEquals(intersection.getEnd(0), 20);
+        assertEquals(intersection.getStart(1), 30);
+        assertEquals(intersection.getEnd(1), 35);
+        assertEquals(rowRanges.intersect(RowRanges.EMPTY).getRangeCount(), 0);
+    }
+
+    private List<Long> readValues(Domain domain)
+            throws IOException
+    {
+        ParquetMetadata parquetMetadata = readFooter(file);
+        MessageType schema = parquetMetadata.getFileMetaData().getSchema();
+        MessageColumnIO messageColumnIO = getColumnIO(schema, schema);
+        Field field = ColumnIOConverter.constructField(BIGINT, messageColumnIO.getChild(0)).get();
+        RichColumnDescriptor descriptor = getOnlyElement(getDescriptors(schema, schema).values());
+        Predicate predicate = new TupleDomainParquetPredicate(TupleDomain.withColumnDomains(ImmutableMap.of(descriptor, domain)), ImmutableList.of(descriptor));
+        List<BlockMetaData> blocks = parquetMetadata.getBlocks();
+
+        List<Long> values = new ArrayList<>();
+        try (ParquetReader reader = new ParquetReader(messageColumnIO, blocks, new FileParquetDataSource(file), newSimpleAggregatedMemoryContext(), new DataSize(16, MEGABYTE), false, false, predicate, false)) {
+            while (reader.nextBatch() > 0) {
+                Block block = reader.readBlock(field);
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    values.add(BIGINT.getLong(block, position));
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Reads the file with the columns with a predicate on the row numbers, and checks that exactly the rows of the pages
+     * of the row numbers that overlap the ranges are read, with the values of all the columns.
+     */
+    private void assertColumnsRead(List<Range> ranges, boolean batchReadEnabled)
+            throws IOException
+    {
+        ParquetMetadata parquetMetadata = readFooter(columnsFile);
+        MessageType schema = parquetMetadata.getFileMetaData().getSchema();
+        MessageColumnIO messageColumnIO = getColumnIO(schema, schema);
+        List<Field> fields = new ArrayList<>();
+        for (int column = 0; column < COLUMN_TYPES.size(); column++) {
+            fields.add(ColumnIOConverter.constructField(COLUMN_TYPES.get(column), messageColumnIO.getChild(column)).get());
+        }
+        RichColumnDescriptor descriptor = getDescriptors(schema, schema).get(ImmutableList.of("row"));
+        Domain domain = Domain.create(ValueSet.copyOfRanges(BIGINT, ranges), false);
+        Predicate predicate = new TupleDomainParquetPredicate(TupleDomain.withColumnDomains(ImmutableMap.of(descriptor, domain)), ImmutableList.of(descriptor));
+
+        List<Long> expectedRows = new ArrayList<>();
+        List<Long> firstRows = getPageFirstRows("row");
+        for (int page = 0; page < firstRows.size(); page++) {
+            long firstRow = firstRows.get(page);
+            long endRow = page + 1 < firstRows.size() ? firstRows.get(page + 1) : COLUMNS_ROW_COUNT;
+            if (LongStream.range(firstRow, endRow).anyMatch(domain::includesNullableValue)) {
+                LongStream.range(firstRow, endRow).forEach(expectedRows::add);
+            }
+        }
+        assertTrue(expectedRows.size() < COLUMNS_ROW_COUNT);
+
+        List<Long> rows = new ArrayList<>();
+        try (ParquetReader reader = new ParquetReader(messageColumnIO, parquetMetadata.getBlocks(), new FileParquetDataSource(columnsFile), newSimpleAggregatedMemoryContext(), new DataSize(16, MEGABYTE), batchReadEnabled, false, predicate, false)) {
+            while (reader.nextBatch() > 0) {
+                Block rowBlock = reader.readBlock(fields.get(0));
+                Block flagBlock = reader.readBlock(fields.get(1));
+                Block labelBlock = reader.readBlock(fields.get(2));
+                assertEquals(flagBlock.getPositionCount(), rowBlock.getPositionCount());
+                assertEquals(labelBlock.getPositionCount(), rowBlock.getPositionCount());
+                for (int position = 0; position < rowBlock.getPositionCount(); position++) {
+                    long row = BIGINT.getLong(rowBlock, position);
+                    assertEquals(BOOLEAN.getBoolean(flagBlock, position), isFlagged(row), "flag of row " + row);
+                    assertEquals(VARCHAR.getSlice(labelBlock, position).toStringUtf8(), getLabel(row), "label of row " + row);
+                    rows.add(row);
+                }
+            }
+        }
+        assertEquals(rows, expectedRows);
+    }
+
+    private List<Long> getPageFirstRows(String column)
+            throws IOException
+    {
+        ParquetBlockMetaData block = (ParquetBlockMetaData) getOnlyElement(readFooter(columnsFile).getBlocks());
+        try (FileParquetDataSource dataSource = new FileParquetDataSource(columnsFile)) {
+            return MetadataReader.readOffsetIndex(dataSource, block.getOffsetIndexReference(ColumnPath.get(column)).get()).getPage_locations().stream()
+                    .map(PageLocation::getFirst_row_index)
+                    .collect(toImmutableList());
+        }
+    }
+
+    private static Page createColumnsPage(int start, int end)
+    {
+        BlockBuilder rows = BIGINT.createBlockBuilder(null, end - start);
+        BlockBuilder flags = BOOLEAN.createBlockBuilder(null, end - start);
+        BlockBuilder labels = VARCHAR.createBlockBuilder(null, end - start);
+        for (long row = start; row < end; row++) {
+            BIGINT.writeLong(rows, row);
+            BOOLEAN.writeBoolean(flags, isFlagged(row));
+            VARCHAR.writeSlice(labels, utf8Slice(getLabel(row)));
+        }
+        return new Page(rows.build(), flags.build(), labels.build());
+    }
+
+    private static boolean isFlagged(long row)
+    {
+        return row % 3 == 0;
+    }
+
+    private static String getLabel(long row)
+    {
+        // few distinct values, so the column keeps its dictionary
+        return "label_" + row / 1000;
+    }
+
+    private static Block createLongSequenceBlock(int start, int end)
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, end - start);
+        for (long value = start; value < end; value++) {
+            BIGINT.writeLong(blockBuilder, value);
+        }
+        return blockBuilder.build();
+    }
+
+    private static ParquetMetadata readFooter(File parquetFile)
+            throws IOException
+    {
+        return MetadataReader.readFooter(FileSystem.getLocal(new Configuration()), new Path(parquetFile.getAbsolutePath()), parquetFile.length());
+    }
+}
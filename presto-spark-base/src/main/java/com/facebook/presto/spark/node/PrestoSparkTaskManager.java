@@ -25,6 +25,7 @@ import com.facebook.presto.execution.buffer.BufferResult;
 import com.facebook.presto.execution.buffer.OutputBuffers;
 import com.facebook.presto.execution.scheduler.TableWriteInfo;
 import com.facebook.presto.memory.MemoryPoolAssignmentsRequest;
+import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
@@ -124,4 +125,10 @@ public class PrestoSparkTaskManager
     {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public TaskSource withdrawQueuedSplits(TaskId taskId, PlanNodeId sourceId, long withdrawalId)
+    {
+        throw new UnsupportedOperationException();
+    }
 }
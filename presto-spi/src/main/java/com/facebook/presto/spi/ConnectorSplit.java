@@ -16,6 +16,7 @@ package com.facebook.presto.spi;
 import com.facebook.presto.spi.schedule.NodeSelectionStrategy;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ConnectorSplit
 {
@@ -37,4 +38,14 @@ public interface ConnectorSplit
     List<HostAddress> getPreferredNodes(List<HostAddress> sortedCandidates);
 
     Object getInfo();
+
+    /**
+     * Returns a string that identifies the data read by this split, or empty if the data can not be identified.
+     * The identifier must change whenever the data read by the split may change, as the engine
+     * uses it to reuse results that were previously computed from the same data.
+     */
+    default Optional<String> getSplitIdentifier()
+    {
+        return Optional.empty();
+    }
 }
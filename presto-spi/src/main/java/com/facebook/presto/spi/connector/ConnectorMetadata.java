@@ -259,6 +259,16 @@ public interface ConnectorMetadata
         return TableStatistics.empty();
     }
 
+    /**
+     * Returns an opaque version of the data of the specified table, which must change whenever the data
+     * read through the table handle changes. Returns empty if the version is unknown, in which case
+     * query results computed from the table are not cached.
+     */
+    default Optional<String> getTableDataVersion(ConnectorSession session, ConnectorTableHandle tableHandle, Optional<ConnectorTableLayoutHandle> tableLayoutHandle)
+    {
+        return Optional.empty();
+    }
+
     /**
      * Creates a schema.
      */
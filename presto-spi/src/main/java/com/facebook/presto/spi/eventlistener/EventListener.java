@@ -26,4 +26,8 @@ public interface EventListener
     default void splitCompleted(SplitCompletedEvent splitCompletedEvent)
     {
     }
+
+    default void lowMemoryKillerActed(LowMemoryKillerEvent lowMemoryKillerEvent)
+    {
+    }
 }
@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.eventlistener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An action taken by the coordinator to free memory in the general pool: either asking the workers
+ * to revoke (spill) memory, or killing a query.
+ */
+public class LowMemoryKillerEvent
+{
+    public enum Action
+    {
+        REVOKE_MEMORY,
+        KILL_QUERY,
+    }
+
+    private final Action action;
+    private final String policy;
+    private final Instant createTime;
+
+    private final Optional<String> queryId;
+    private final long queryMemoryReservation;
+    private final long queryRevocableMemoryReservation;
+    private final Optional<Duration> queryCpuTime;
+
+    private final long generalPoolReservedBytes;
+    private final long generalPoolReservedRevocableBytes;
+    private final long generalPoolTotalBytes;
+    private final int blockedNodes;
+    private final long revocableBytesOnBlockedNodes;
+    private final Duration outOfMemoryTime;
+
+    public LowMemoryKillerEvent(
+            Action action,
+            String policy,
+            Instant createTime,
+            Optional<String> queryId,
+            long queryMemoryReservation,
+            long queryRevocableMemoryReservation,
+            Optional<Duration> queryCpuTime,
+            long generalPoolReservedBytes,
+            long generalPoolReservedRevocableBytes,
+            long generalPoolTotalBytes,
+            int blockedNodes,
+            long revocableBytesOnBlockedNodes,
+            Duration outOfMemoryTime)
+    {
+        this.action = requireNonNull(action, "action is null");
+        this.policy = requireNonNull(policy, "policy is null");
+        this.createTime = requireNonNull(createTime, "createTime is null");
+        this.queryId = requireNonNull(queryId, "queryId is null");
+        this.queryMemoryReservation = queryMemoryReservation;
+        this.queryRevocableMemoryReservation = queryRevocableMemoryReservation;
+        this.queryCpuTime = requireNonNull(queryCpuTime, "queryCpuTime is null");
+        this.generalPoolReservedBytes = generalPoolReservedBytes;
+        this.generalPoolReservedRevocableBytes = generalPoolReservedRevocableBytes;
+        this.generalPoolTotalBytes = generalPoolTotalBytes;
+        this.blockedNodes = blockedNodes;
+        this.revocableBytesOnBlockedNodes = revocableBytesOnBlockedNodes;
+        this.outOfMemoryTime = requireNonNull(outOfMemoryTime, "outOfMemoryTime is null");
+    }
+
+    public Action getAction()
+    {
+        return action;
+    }
+
+    public String getPolicy()
+    {
+        return policy;
+    }
+
+    public Instant getCreateTime()
+    {
+        return createTime;
+    }
+
+    /**
+     * The killed query, empty unless the action is {@link Action#KILL_QUERY}.
+     */
+    public Optional<String> getQueryId()
+    {
+        return queryId;
+    }
+
+    public long getQueryMemoryReservation()
+    {
+        return queryMemoryReservation;
+    }
+
+    public long getQueryRevocableMemoryReservation()
+    {
+        return queryRevocableMemoryReservation;
+    }
+
+    public Optional<Duration> getQueryCpuTime()
+    {
+        return queryCpuTime;
+    }
+
+    public long getGeneralPoolReservedBytes()
+    {
+        return generalPoolReservedBytes;
+    }
+
+    public long getGeneralPoolReservedRevocableBytes()
+    {
+        return generalPoolReservedRevocableBytes;
+    }
+
+    public long getGeneralPoolTotalBytes()
+    {
+        return generalPoolTotalBytes;
+    }
+
+    public int getBlockedNodes()
+    {
+        return blockedNodes;
+    }
+
+    public long getRevocableBytesOnBlockedNodes()
+    {
+        return revocableBytesOnBlockedNodes;
+    }
+
+    /**
+     * How long the cluster has been out of memory, zero if memory revoking was requested before it ran out.
+     */
+    public Duration getOutOfMemoryTime()
+    {
+        return outOfMemoryTime;
+    }
+}
@@ -25,7 +25,10 @@ import static java.lang.String.format;
 public enum PageCodecMarker
 {
     COMPRESSED(1),
-    ENCRYPTED(2);
+    ENCRYPTED(2),
+    // Identify the codec of a COMPRESSED page; neither being set means LZ4, the original page codec
+    SNAPPY_CODEC(3),
+    ZSTD_CODEC(4);
 
     private final int mask;
 
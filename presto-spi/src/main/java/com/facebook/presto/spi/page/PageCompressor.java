@@ -28,4 +28,12 @@ public interface PageCompressor
             int maxOutputLength);
 
     void compress(ByteBuffer input, ByteBuffer output);
+
+    /**
+     * {@link PageCodecMarker} values identifying the codec of this compressor, set on every page it compresses
+     */
+    default byte getCodecMarkers()
+    {
+        return PageCodecMarker.none();
+    }
 }
@@ -26,4 +26,13 @@ public interface PageDecompressor
             int maxOutputLength);
 
     void decompress(ByteBuffer input, ByteBuffer output);
+
+    /**
+     * Decompresses a page carrying the given {@link PageCodecMarker} values. Decompressors
+     * supporting more than one codec use the markers to pick the codec the page was written with.
+     */
+    default void decompress(byte pageCodecMarkers, ByteBuffer input, ByteBuffer output)
+    {
+        decompress(input, output);
+    }
 }
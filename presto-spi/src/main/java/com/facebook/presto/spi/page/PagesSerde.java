@@ -31,6 +31,7 @@ import static com.facebook.presto.spi.page.PageCodecMarker.ENCRYPTED;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.readRawPage;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.writeRawPage;
 import static io.airlift.slice.SizeOf.sizeOf;
+import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
@@ -39,15 +40,29 @@ import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
 public class PagesSerde
 {
     private static final double MINIMUM_COMPRESSION_RATIO = 0.8;
+    private static final int MAX_ADAPTIVE_SKIPPED_PAGES = 64;
 
     private final BlockEncodingSerde blockEncodingSerde;
     private final Optional<PageCompressor> compressor;
     private final Optional<PageDecompressor> decompressor;
     private final Optional<SpillCipher> spillCipher;
+    private final boolean adaptiveCompression;
 
     private byte[] compressionBuffer;
+    private int incompressiblePagesSkip;
+    private int pagesToSkipCompression;
 
     public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<PageCompressor> compressor, Optional<PageDecompressor> decompressor, Optional<SpillCipher> spillCipher)
+    {
+        this(blockEncodingSerde, compressor, decompressor, spillCipher, false);
+    }
+
+    /**
+     * @param adaptiveCompression when set, pages that do not compress well make the serde send the following
+     * pages uncompressed without trying to compress them, for exponentially more pages while the data stays
+     * incompressible, sampling the compression ratio again after each skipped run
+     */
+    public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<PageCompressor> compressor, Optional<PageDecompressor> decompressor, Optional<SpillCipher> spillCipher, boolean adaptiveCompression)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
         checkArgument(compressor.isPresent() == decompressor.isPresent(), "compressor and decompressor must both be present or both be absent");
@@ -55,6 +70,7 @@ public class PagesSerde
         this.decompressor = requireNonNull(decompressor, "decompressor is null");
         this.spillCipher = requireNonNull(spillCipher, "spillCipher is null");
         checkState(!spillCipher.isPresent() || !spillCipher.get().isDestroyed(), "spillCipher is already destroyed");
+        this.adaptiveCompression = adaptiveCompression;
     }
 
     public SerializedPage serialize(Page page)
@@ -88,7 +104,7 @@ public class PagesSerde
             int uncompressedSize = serializedPage.getUncompressedSizeInBytes();
             ByteBuffer decompressionBuffer = ByteBuffer.allocate(uncompressedSize);
 
-            decompressor.get().decompress(slice.toByteBuffer(), decompressionBuffer);
+            decompressor.get().decompress(serializedPage.getPageCodecMarkers(), slice.toByteBuffer(), decompressionBuffer);
             decompressionBuffer.flip();
             checkState(decompressionBuffer.remaining() == uncompressedSize, "page size changed after decompression into decompressionBuffer");
 
@@ -113,7 +129,7 @@ public class PagesSerde
         int uncompressedSize = slice.length();
         byte markers = PageCodecMarker.none();
 
-        if (compressor.isPresent()) {
+        if (compressor.isPresent() && !skipCompression()) {
             int maxCompressedSize = compressor.get().maxCompressedLength(uncompressedSize);
             compressionBuffer = ensureCapacity(compressionBuffer, maxCompressedSize);
             int compressedSize = compressor.get().compress(
@@ -126,7 +142,12 @@ public class PagesSerde
 
             if (compressedSize / (double) uncompressedSize <= MINIMUM_COMPRESSION_RATIO) {
                 slice = Slices.copyOf(Slices.wrappedBuffer(compressionBuffer, 0, compressedSize));
-                markers = COMPRESSED.set(markers);
+                markers = (byte) (COMPRESSED.set(markers) | compressor.get().getCodecMarkers());
+                incompressiblePagesSkip = 0;
+            }
+            else if (adaptiveCompression) {
+                incompressiblePagesSkip = incompressiblePagesSkip == 0 ? 1 : min(incompressiblePagesSkip * 2, MAX_ADAPTIVE_SKIPPED_PAGES);
+                pagesToSkipCompression = incompressiblePagesSkip;
             }
         }
 
@@ -141,6 +162,15 @@ public class PagesSerde
         return new SerializedPage(slice, markers, positionCount, uncompressedSize);
     }
 
+    private boolean skipCompression()
+    {
+        if (pagesToSkipCompression == 0) {
+            return false;
+        }
+        pagesToSkipCompression--;
+        return true;
+    }
+
     private static void checkArgument(boolean condition, String message)
     {
         if (!condition) {
@@ -25,12 +25,22 @@ import java.util.NoSuchElementException;
 
 import static com.facebook.presto.common.block.BlockSerdeUtil.readBlock;
 import static com.facebook.presto.common.block.BlockSerdeUtil.writeBlock;
+import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
 import static java.lang.Math.toIntExact;
 import static java.util.Arrays.asList;
 import static java.util.Objects.requireNonNull;
 
 public class PagesSerdeUtil
 {
+    /**
+     * Size of the position count, codec markers, uncompressed size and size fields preceding
+     * the data of a page written by {@link #writeSerializedPage(SliceOutput, SerializedPage)}.
+     */
+    public static final int SERIALIZED_PAGE_HEADER_SIZE = SIZE_OF_INT + SIZE_OF_BYTE + SIZE_OF_INT + SIZE_OF_INT;
+    // offset of the size field within the header
+    public static final int SERIALIZED_PAGE_SIZE_OFFSET = SIZE_OF_INT + SIZE_OF_BYTE + SIZE_OF_INT;
+
     private PagesSerdeUtil()
     {
     }
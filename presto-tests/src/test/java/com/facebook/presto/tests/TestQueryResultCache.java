@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.tests;
+
+import com.facebook.presto.execution.QueryStats;
+import com.facebook.presto.execution.resultcache.QueryResultCache;
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.tests.tpch.TpchQueryRunnerBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Key;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.facebook.presto.SystemSessionProperties.QUERY_RESULT_CACHE_ENABLED;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Runs queries through the client protocol of the coordinator, so that a result cache hit is served by
+ * {@link com.facebook.presto.server.protocol.Query} from the cached file instead of the output buffers.
+ */
+@Test(singleThreaded = true)
+public class TestQueryResultCache
+{
+    private Path cacheDirectory;
+    private DistributedQueryRunner queryRunner;
+    private QueryResultCache queryResultCache;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        cacheDirectory = Files.createTempDirectory("query-result-cache");
+        queryRunner = TpchQueryRunnerBuilder.builder()
+                .amendSession(session -> session.setSystemProperty(QUERY_RESULT_CACHE_ENABLED, "true"))
+                .setCoordinatorProperties(ImmutableMap.of("query-result-cache.directory", cacheDirectory.toString()))
+                .build();
+        queryResultCache = queryRunner.getCoordinator().getInstance(Key.get(QueryResultCache.class));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws Exception
+    {
+        if (queryRunner != null) {
+            queryRunner.close();
+            queryRunner = null;
+        }
+        if (cacheDirectory != null) {
+            deleteRecursively(cacheDirectory, ALLOW_INSECURE);
+        }
+    }
+
+    @Test
+    public void testCachedResultIsServed()
+            throws Exception
+    {
+        // large enough to be returned to the client in several pages
+        @Language("SQL") String sql = "SELECT orderkey, custkey, totalprice, comment FROM orders WHERE orderstatus = 'F'";
+
+        ResultWithQueryId<MaterializedResult> first = queryRunner.executeWithQueryId(queryRunner.getDefaultSession(), sql);
+        QueryStats firstStats = getQueryStats(first.getQueryId());
+        assertEquals(firstStats.getResultCacheHits(), 0);
+        assertEquals(firstStats.getResultCacheMisses(), 1);
+        assertEquals(firstStats.getResultCacheSavedDataSize().toBytes(), 0);
+
+        // the result is stored in the background once all of it has been returned
+        long deadline = System.nanoTime() + SECONDS.toNanos(10);
+        while (queryResultCache.getEntryCount() == 0) {
+            assertTrue(System.nanoTime() < deadline, "result was not stored in the cache");
+            Thread.sleep(10);
+        }
+
+        ResultWithQueryId<MaterializedResult> second = queryRunner.executeWithQueryId(queryRunner.getDefaultSession(), sql);
+        QueryStats secondStats = getQueryStats(second.getQueryId());
+        assertEquals(secondStats.getResultCacheHits(), 1);
+        assertEquals(secondStats.getResultCacheMisses(), 0);
+        assertTrue(secondStats.getResultCacheSavedDataSize().toBytes() > 0);
+        assertEquals(secondStats.getTotalTasks(), 0);
+
+        // the cached pages are replayed in the order the first query returned them
+        assertEquals(second.getResult().getTypes(), first.getResult().getTypes());
+        assertEquals(second.getResult().getMaterializedRows(), first.getResult().getMaterializedRows());
+    }
+
+    @Test
+    public void testQueriesWithoutCacheKeyAreNotCached()
+    {
+        long hits = queryResultCache.getHits().getTotalCount();
+        long misses = queryResultCache.getMisses().getTotalCount();
+
+        @Language("SQL") String sql = "SELECT orderkey, rand() FROM orders LIMIT 10";
+        QueryStats firstStats = getQueryStats(queryRunner.executeWithQueryId(queryRunner.getDefaultSession(), sql).getQueryId());
+        QueryStats secondStats = getQueryStats(queryRunner.executeWithQueryId(queryRunner.getDefaultSession(), sql).getQueryId());
+
+        assertEquals(firstStats.getResultCacheMisses(), 0);
+        assertEquals(secondStats.getResultCacheHits(), 0);
+        assertEquals(queryResultCache.getHits().getTotalCount(), hits);
+        assertEquals(queryResultCache.getMisses().getTotalCount(), misses);
+    }
+
+    private QueryStats getQueryStats(QueryId queryId)
+    {
+        return queryRunner.getCoordinator().getQueryManager().getFullQueryInfo(queryId).getQueryStats();
+    }
+}
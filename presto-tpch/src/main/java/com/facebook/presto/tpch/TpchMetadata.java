@@ -338,6 +338,14 @@ public class TpchMetadata
                 .orElse(TableStatistics.empty());
     }
 
+    @Override
+    public Optional<String> getTableDataVersion(ConnectorSession session, ConnectorTableHandle tableHandle, Optional<ConnectorTableLayoutHandle> tableLayoutHandle)
+    {
+        // the data is generated from the table name and scale factor, so it never changes
+        TpchTableHandle tpchTableHandle = (TpchTableHandle) tableHandle;
+        return Optional.of(tpchTableHandle.getTableName() + "@" + tpchTableHandle.getScaleFactor());
+    }
+
     private Map<TpchColumn<?>, List<Object>> getColumnValuesRestrictions(TpchTable<?> tpchTable, Constraint<ColumnHandle> constraint)
     {
         TupleDomain<ColumnHandle> constraintSummary = constraint.getSummary();